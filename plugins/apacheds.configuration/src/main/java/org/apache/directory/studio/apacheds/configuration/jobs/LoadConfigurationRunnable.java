@@ -25,7 +25,10 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.InputStream;
 import java.net.URL;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
 import java.util.List;
 
 import org.apache.directory.api.ldap.model.constants.LdapConstants;
@@ -56,6 +59,7 @@ import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.common.core.jobs.StudioRunnableWithProgress;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.connection.core.IConnectionListener;
 import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
@@ -64,6 +68,7 @@ import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.jobs.SearchRunnable;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.eclipse.core.runtime.NullProgressMonitor;
 import org.eclipse.core.runtime.Platform;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
@@ -331,6 +336,17 @@ public class LoadConfigurationRunnable implements StudioRunnableWithProgress
             // Opening the connection
             openConnection( input, monitor );
 
+            // Reading the whole configuration tree with a single search
+            if ( readConfigurationTree( browserConnection, schemaManager, configurationPartition ) )
+            {
+                // Setting the created partition to the input
+                input.setOriginalPartition( configurationPartition );
+
+                return readConfiguration( configurationPartition );
+            }
+
+            // The server refused the subtree search, the tree is walked level by level
+
             // Creating the search parameter
             SearchParameter configSearchParameter = new SearchParameter();
             configSearchParameter.setSearchBase( new Dn( ServerDNConstants.CONFIG_DN ) ); //$NON-NLS-1$
@@ -372,14 +388,14 @@ public class LoadConfigurationRunnable implements StudioRunnableWithProgress
 
             // Creating a list to hold the entries that need to be checked
             // for children and added to the partition
-            List<Entry> entries = new ArrayList<Entry>();
+            Deque<Entry> entries = new ArrayDeque<>();
             entries.add( configEntry );
 
             // Looping on the entries list until it's empty
             while ( !entries.isEmpty() )
             {
                 // Removing the first entry from the list
-                Entry entry = entries.remove( 0 );
+                Entry entry = entries.poll();
 
                 // Adding the entry to the partition
                 configurationPartition.addEntry( entry );
@@ -420,6 +436,80 @@ public class LoadConfigurationRunnable implements StudioRunnableWithProgress
     }
 
 
+    /**
+     * Reads the whole configuration tree with a single subtree search, paged if paged
+     * searches are enabled on the connection (the next pages are then received in the
+     * background while the entries of the current page are converted), and adds its
+     * entries to the partition, parents before their children.
+     *
+     * @param browserConnection the browser connection
+     * @param schemaManager the schema manager
+     * @param configurationPartition the configuration partition
+     * @return <code>true</code> if the tree has been read, <code>false</code> if the server refused the search
+     * @throws Exception if the entries could not be added to the partition
+     */
+    private boolean readConfigurationTree( IBrowserConnection browserConnection, SchemaManager schemaManager,
+        EntryBasedConfigurationPartition configurationPartition ) throws Exception
+    {
+        StudioProgressMonitor monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+
+        SearchParameter searchParameter = new SearchParameter();
+        searchParameter.setSearchBase( new Dn( ServerDNConstants.CONFIG_DN ) );
+        searchParameter.setFilter( LdapConstants.OBJECT_CLASS_STAR );
+        searchParameter.setScope( SearchScope.SUBTREE );
+        searchParameter.setReturningAttributes( SchemaConstants.ALL_USER_ATTRIBUTES_ARRAY );
+
+        if ( browserConnection.isPagedSearch() )
+        {
+            searchParameter.getControls().add(
+                Controls.newPagedResultsControl( browserConnection.getPagedSearchSize() ) );
+        }
+
+        StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, searchParameter,
+            monitor );
+
+        if ( ( enumeration == null ) || monitor.errorsReported() )
+        {
+            return false;
+        }
+
+        List<Entry> entries = new ArrayList<>();
+
+        try
+        {
+            while ( enumeration.hasMore() )
+            {
+                StudioSearchResult searchResult = enumeration.next();
+                entries.add( new DefaultEntry( schemaManager, searchResult.getEntry() ) );
+            }
+        }
+        catch ( LdapException e )
+        {
+            return false;
+        }
+        finally
+        {
+            enumeration.close();
+        }
+
+        if ( monitor.errorsReported() || entries.isEmpty() )
+        {
+            return false;
+        }
+
+        // Adding the entries to the partition, parents before their children
+        // (the sort is stable, the order of the siblings is kept)
+        entries.sort( Comparator.comparingInt( entry -> entry.getDn().size() ) );
+
+        for ( Entry entry : entries )
+        {
+            configurationPartition.addEntry( entry );
+        }
+
+        return true;
+    }
+
+
     /**
      * Opens the connection.
      *
@@ -20,12 +20,16 @@
 package org.apache.directory.studio.apacheds.configuration.jobs;
 
 
+import java.io.IOException;
+import java.text.ParseException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.directory.api.ldap.model.constants.LdapConstants;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.cursor.CursorException;
 import org.apache.directory.api.ldap.model.entry.Attribute;
 import org.apache.directory.api.ldap.model.entry.DefaultAttribute;
 import org.apache.directory.api.ldap.model.entry.DefaultModification;
@@ -33,9 +37,9 @@ import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.entry.Modification;
 import org.apache.directory.api.ldap.model.entry.ModificationOperation;
 import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeValueException;
 import org.apache.directory.api.ldap.model.filter.FilterParser;
-import org.apache.directory.api.ldap.model.ldif.ChangeType;
 import org.apache.directory.api.ldap.model.ldif.LdifEntry;
 import org.apache.directory.api.ldap.model.message.AliasDerefMode;
 import org.apache.directory.api.ldap.model.message.SearchScope;
@@ -49,6 +53,7 @@ import org.apache.directory.server.core.api.interceptor.context.SearchOperationC
 import org.apache.directory.server.core.api.partition.Partition;
 import org.apache.directory.studio.apacheds.configuration.ApacheDS2ConfigurationPlugin;
 import org.apache.directory.studio.apacheds.configuration.ApacheDS2ConfigurationPluginConstants;
+import org.apache.directory.studio.ldapbrowser.core.utils.EntriesDiffComputer;
 import org.eclipse.core.runtime.IStatus;
 import org.eclipse.core.runtime.Status;
 
@@ -176,6 +181,9 @@ public class PartitionsDiffComputer
 
     /**
      * Compare the two partitions.
+     * 
+     * Both partitions are read in Dn order, one level at a time, and the entries
+     * are merged on their normalized Dn by the {@link EntriesDiffComputer}.
      *
      * @param baseDn the base Dn
      * @param attributeIds the IDs of the attributes
@@ -184,9 +192,6 @@ public class PartitionsDiffComputer
      */
     public List<LdifEntry> comparePartitions( Dn baseDn, String[] attributeIds ) throws PartitionsDiffException
     {
-        // Creating the list containing all modifications
-        List<LdifEntry> modifications = new ArrayList<>();
-
         try
         {
             // Looking up the original base entry
@@ -197,75 +202,6 @@ public class PartitionsDiffComputer
                 throw new PartitionsDiffException( Messages.getString( "PartitionDiffComputer.PartitionNotFound" ) );
             }
 
-            // Creating the list containing all the original entries to be processed
-            // and adding it the original base entry
-            List<Entry> originalEntries = new ArrayList<>();
-            originalEntries.add( originalBaseEntry );
-
-            // Looping until all original entries are being processed
-            while ( !originalEntries.isEmpty() )
-            {
-                // Getting the first original entry from the list
-                Entry originalEntry = originalEntries.remove( 0 );
-
-                // Creating a modification entry to hold all modifications
-                LdifEntry modificationEntry = new LdifEntry();
-                modificationEntry.setDn( originalEntry.getDn() );
-
-                // Looking for the equivalent entry in the destination partition
-                Entry destinationEntry = destinationPartition.lookup( new LookupOperationContext( null, originalEntry
-                    .getDn(), attributeIds ) );
-                
-                if ( destinationEntry != null )
-                {
-                    // Setting the changetype to delete
-                    modificationEntry.setChangeType( ChangeType.Modify );
-
-                    // Comparing both entries
-                    compareEntries( originalEntry, destinationEntry, modificationEntry );
-                }
-                else
-                {
-                    // The original entry is no longer present in the destination partition
-
-                    // Setting the changetype to delete
-                    modificationEntry.setChangeType( ChangeType.Delete );
-                }
-
-                // Checking if modifications occurred on the original entry
-                ChangeType modificationEntryChangeType = modificationEntry.getChangeType();
-                
-                if ( modificationEntryChangeType != ChangeType.None )
-                {
-                    if ( modificationEntryChangeType == ChangeType.Delete
-                        || ( modificationEntryChangeType == ChangeType.Modify && !modificationEntry
-                            .getModifications().isEmpty() ) )
-                    {
-                        // Adding the modification entry to the list
-                        modifications.add( modificationEntry );
-                    }
-                }
-
-                // Creating a search operation context to get the children of the current entry
-                SearchOperationContext soc = new SearchOperationContext( null, originalEntry.getDn(),
-                    SearchScope.ONELEVEL,
-                    FilterParser.parse( originalPartition.getSchemaManager(), LdapConstants.OBJECT_CLASS_STAR ), attributeIds ); //$NON-NLS-1$
-                soc.setAliasDerefMode( AliasDerefMode.DEREF_ALWAYS );
-
-                // Looking for the children of the current entry
-                EntryFilteringCursor cursor = originalPartition.search( soc );
-
-                while ( cursor.next() )
-                {
-                    originalEntries.add( ( ( ClonedServerEntry ) cursor.get() ).getClonedEntry() );
-                }
-            }
-
-            // Reversing the list to allow deletion of leafs first (otherwise we would be deleting
-            // higher nodes with children first).
-            // Order for modified entries does not matter.
-            Collections.reverse( modifications );
-
             // Looking up the destination base entry
             Entry destinationBaseEntry = destinationPartition
                 .lookup( new LookupOperationContext( null, baseDn, attributeIds ) );
@@ -278,56 +214,26 @@ public class PartitionsDiffComputer
                 throw new PartitionsDiffException( Messages.getString( "PartitionDiffComputer.PartitionNotFound" ) );
             }
 
-            // Creating the list containing all the destination entries to be processed
-            // and adding it the destination base entry
-            List<Entry> destinationEntries = new ArrayList<>();
-            destinationEntries.add( originalBaseEntry );
+            EntriesDiffComputer.EntryStream originalEntries = EntriesDiffComputer.readSubtree( originalBaseEntry,
+                createChildEntriesReader( originalPartition, attributeIds ) );
+            EntriesDiffComputer.EntryStream destinationEntries = EntriesDiffComputer.readSubtree(
+                destinationBaseEntry, createChildEntriesReader( destinationPartition, attributeIds ) );
 
-            // Looping until all destination entries are being processed
-            while ( !destinationEntries.isEmpty() )
-            {
-                // Getting the first destination entry from the list
-                Entry destinationEntry = destinationEntries.remove( 0 );
-
-                // Looking for the equivalent entry in the destination partition
-                Entry originalEntry = originalPartition.lookup( new LookupOperationContext( null, destinationEntry
-                    .getDn(), attributeIds ) );
-
-                // We're only looking for new entries, modified or removed 
-                // entries have already been computed
-                if ( originalEntry == null )
+            return EntriesDiffComputer.computeModifications( originalEntries, destinationEntries,
+                new EntriesDiffComputer.EntryComparator()
                 {
-                    // Creating a modification entry to hold all modifications
-                    LdifEntry modificationEntry = new LdifEntry();
-                    modificationEntry.setDn( destinationEntry.getDn() );
-
-                    // Setting the changetype to addition
-                    modificationEntry.setChangeType( ChangeType.Add );
-
-                    // Copying attributes
-                    for ( Attribute attribute : destinationEntry )
+                    @Override
+                    public void compareEntries( Entry originalEntry, Entry destinationEntry,
+                        LdifEntry modificationEntry )
                     {
-                        modificationEntry.addAttribute( attribute );
+                        PartitionsDiffComputer.this.compareEntries( originalEntry, destinationEntry,
+                            modificationEntry );
                     }
-
-                    // Adding the modification entry to the list
-                    modifications.add( modificationEntry );
-                }
-
-                // Creating a search operation context to get the children of the current entry
-                SearchOperationContext soc = new SearchOperationContext( null, destinationEntry.getDn(),
-                    SearchScope.ONELEVEL,
-                    FilterParser.parse( originalPartition.getSchemaManager(), LdapConstants.OBJECT_CLASS_STAR ), attributeIds ); //$NON-NLS-1$
-                soc.setAliasDerefMode( AliasDerefMode.DEREF_ALWAYS );
-
-                // Looking for the children of the current entry
-                EntryFilteringCursor cursor = destinationPartition.search( soc );
-
-                while ( cursor.next() )
-                {
-                    destinationEntries.add( ( ( ClonedServerEntry ) cursor.get() ).getClonedEntry() );
-                }
-            }
+                } );
+        }
+        catch ( PartitionsDiffException pde )
+        {
+            throw pde;
         }
         catch ( Exception e )
         {
@@ -337,8 +243,49 @@ public class PartitionsDiffComputer
 
             throw new PartitionsDiffException( e );
         }
+    }
+
+
+    /**
+     * Creates a reader for the child entries of the given partition.
+     *
+     * @param partition the partition
+     * @param attributeIds the IDs of the attributes
+     * @return the reader, searching one level
+     */
+    private EntriesDiffComputer.ChildEntriesReader createChildEntriesReader( final Partition partition,
+        final String[] attributeIds )
+    {
+        return new EntriesDiffComputer.ChildEntriesReader()
+        {
+            @Override
+            public List<Entry> readChildEntries( Dn dn ) throws LdapException
+            {
+                List<Entry> entries = new ArrayList<>();
+
+                try
+                {
+                    SearchOperationContext soc = new SearchOperationContext( null, dn, SearchScope.ONELEVEL,
+                        FilterParser.parse( partition.getSchemaManager(), LdapConstants.OBJECT_CLASS_STAR ),
+                        attributeIds );
+                    soc.setAliasDerefMode( AliasDerefMode.DEREF_ALWAYS );
 
-        return modifications;
+                    try ( EntryFilteringCursor cursor = partition.search( soc ) )
+                    {
+                        while ( cursor.next() )
+                        {
+                            entries.add( ( ( ClonedServerEntry ) cursor.get() ).getClonedEntry() );
+                        }
+                    }
+                }
+                catch ( ParseException | CursorException | IOException e )
+                {
+                    throw new LdapException( e.getMessage(), e );
+                }
+
+                return entries;
+            }
+        };
     }
 
 
@@ -352,8 +299,8 @@ public class PartitionsDiffComputer
      */
     private void compareEntries( Entry originalEntry, Entry destinationEntry, LdifEntry modificationEntry )
     {
-        // Creating a list to store the already evaluated attribute type
-        List<AttributeType> evaluatedATs = new ArrayList<>();
+        // Creating a set to store the already evaluated attribute type
+        Set<AttributeType> evaluatedATs = new HashSet<>();
 
         // Checking attributes of the original entry
         for ( Attribute originalAttribute : originalEntry )
@@ -436,8 +383,8 @@ public class PartitionsDiffComputer
     private void compareAttributes( Attribute originalAttribute, Attribute destinationAttribute,
         LdifEntry modificationEntry )
     {
-        // Creating a list to store the already evaluated values
-        List<Value> evaluatedValues = new ArrayList<>();
+        // Creating a set to store the already evaluated values
+        Set<Value> evaluatedValues = new HashSet<>();
 
         // Checking values of the original attribute
         for ( Value originalValue : originalAttribute )
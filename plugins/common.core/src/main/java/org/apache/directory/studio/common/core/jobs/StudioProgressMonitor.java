@@ -83,8 +83,15 @@ public class StudioProgressMonitor extends ProgressMonitorWrapper
         super( monitor );
         this.pluginId = pluginId;
         isDone = false;
-        CommonCorePlugin.getDefault().getStudioProgressMonitorWatcherJob().addMonitor(this);
         allowMessageReporting = new AtomicBoolean( true );
+
+        // the monitor isn't watched if the plugin isn't started, e.g. in unit tests
+        CommonCorePlugin plugin = CommonCorePlugin.getDefault();
+
+        if ( ( plugin != null ) && ( plugin.getStudioProgressMonitorWatcherJob() != null ) )
+        {
+            plugin.getStudioProgressMonitorWatcherJob().addMonitor( this );
+        }
     }
 
 
@@ -115,6 +122,20 @@ public class StudioProgressMonitor extends ProgressMonitorWrapper
     }
 
 
+    /**
+     * Checks if the work is done.
+     * 
+     * @return true, if the work is done
+     */
+    public boolean isDone()
+    {
+        synchronized ( this )
+        {
+            return isDone;
+        }
+    }
+
+
     /**
      * Adds the cancel listener.
      * 
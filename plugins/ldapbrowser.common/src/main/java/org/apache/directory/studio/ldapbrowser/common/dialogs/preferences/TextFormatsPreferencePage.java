@@ -96,6 +96,8 @@ public class TextFormatsPreferencePage extends PreferencePage implements IWorkbe
 
     private Button includeVersionLineButton;
 
+    private Button includeChecksumButton;
+
     private LineSeparatorInput ldifLineSeparator;
 
     private OptionsInput tableAttributeDelimiterWidget;
@@ -436,6 +438,13 @@ public class TextFormatsPreferencePage extends PreferencePage implements IWorkbe
         includeVersionLineButton.setSelection( coreStore
             .getBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE ) );
 
+        includeChecksumButton = BaseWidgetUtils.createCheckbox( ldifInnerComposite, Messages
+            .getString( "TextFormatsPreferencePage.IncludeChecksum" ), 1 ); //$NON-NLS-1$
+        includeChecksumButton.setToolTipText( Messages
+            .getString( "TextFormatsPreferencePage.IncludeChecksumToolTip" ) ); //$NON-NLS-1$
+        includeChecksumButton.setSelection( coreStore
+            .getBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_CHECKSUM ) );
+
         ldifTab.setControl( ldifComposite );
     }
 
@@ -451,6 +460,8 @@ public class TextFormatsPreferencePage extends PreferencePage implements IWorkbe
             .getSelection() );
         coreStore.setValue( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE, includeVersionLineButton
             .getSelection() );
+        coreStore.setValue( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_CHECKSUM, includeChecksumButton
+            .getSelection() );
 
         coreStore.setValue( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ATTRIBUTEDELIMITER, csvAttributeDelimiterWidget
             .getRawValue() );
@@ -498,6 +509,8 @@ public class TextFormatsPreferencePage extends PreferencePage implements IWorkbe
             .getDefaultBoolean( BrowserCoreConstants.PREFERENCE_LDIF_SPACE_AFTER_COLON ) );
         includeVersionLineButton.setSelection( coreStore
             .getDefaultBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE ) );
+        includeChecksumButton.setSelection( coreStore
+            .getDefaultBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_CHECKSUM ) );
 
         csvAttributeDelimiterWidget.setRawValue( coreStore
             .getDefaultString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ATTRIBUTEDELIMITER ) );
@@ -114,6 +114,12 @@ public class EntryEditorWidgetLabelProvider extends LabelProvider implements ITa
             IAttribute attribute = ( IAttribute ) obj;
             if ( index == EntryEditorWidgetTableMetadata.KEY_COLUMN_INDEX )
             {
+                if ( attribute.hasMoreValues() )
+                {
+                    return NLS.bind( Messages.getString( "EntryEditorWidgetLabelProvider.AttributeLabelMoreValues" ), //$NON-NLS-1$
+                        attribute.getDescription(), getNumberOfValues( attribute ) );
+                }
+
                 return NLS
                     .bind(
                         Messages.getString( "EntryEditorWidgetLabelProvider.AttributeLabel" ), //$NON-NLS-1$
@@ -23,7 +23,12 @@ package org.apache.directory.studio.ldapbrowser.common.widgets.entryeditor;
 
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonActivator;
 import org.apache.directory.studio.ldapbrowser.common.actions.BrowserSelectionUtils;
+import java.util.ArrayList;
+import java.util.List;
+
 import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.DisplayValueUpdateEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.DisplayValueUpdateListener;
 import org.apache.directory.studio.ldapbrowser.core.events.EmptyValueAddedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EmptyValueDeletedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EntryModificationEvent;
@@ -33,13 +38,17 @@ import org.apache.directory.studio.ldapbrowser.core.events.ValueAddedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.ValueDeletedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.ValueModifiedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.ValueRenamedEvent;
+import org.apache.directory.studio.ldapbrowser.core.jobs.FetchAttributeRangeRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.StudioBrowserJob;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.jface.viewers.ITreeViewerListener;
 import org.eclipse.jface.viewers.StructuredSelection;
+import org.eclipse.jface.viewers.TreeExpansionEvent;
 import org.eclipse.jface.viewers.TreeViewer;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.MouseAdapter;
@@ -139,6 +148,43 @@ public class EntryEditorWidgetUniversalListener implements EntryUpdateListener
         }
     };
 
+    /** This listener fetches further values when expanding an attribute whose values are not completely fetched */
+    protected ITreeViewerListener viewerTreeListener = new ITreeViewerListener()
+    {
+        /**
+         * {@inheritDoc}
+         */
+        public void treeExpanded( TreeExpansionEvent event )
+        {
+            if ( event.getElement() instanceof IAttribute )
+            {
+                IAttribute attribute = ( IAttribute ) event.getElement();
+
+                if ( attribute.hasMoreValues() )
+                {
+                    // the input is usually a cloned entry, fetch the values of the real entry
+                    IEntry entry = attribute.getEntry();
+                    IEntry originalEntry = entry.getBrowserConnection().getEntryFromCache( entry.getDn() );
+
+                    if ( ( originalEntry != null ) && ( originalEntry.getAttribute( attribute.getDescription() ) != null )
+                        && originalEntry.getAttribute( attribute.getDescription() ).hasMoreValues() )
+                    {
+                        new StudioBrowserJob( new FetchAttributeRangeRunnable( originalEntry.getAttribute( attribute
+                            .getDescription() ) ) ).execute();
+                    }
+                }
+            }
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void treeCollapsed( TreeExpansionEvent event )
+        {
+        }
+    };
+
     /** This listener updates the viewer if an property (e.g. is operational attributes visible) has been changed */
     protected IPropertyChangeListener propertyChangeListener = new IPropertyChangeListener()
     {
@@ -151,6 +197,37 @@ public class EntryEditorWidgetUniversalListener implements EntryUpdateListener
         }
     };
 
+    /**
+     * This listener updates the labels of the values whose display strings have changed,
+     * the viewer isn't refreshed so an active cell editor is kept
+     */
+    protected DisplayValueUpdateListener displayValueUpdateListener = new DisplayValueUpdateListener()
+    {
+        public void displayValueUpdated( DisplayValueUpdateEvent event )
+        {
+            if ( ( viewer == null ) || ( viewer.getTree() == null ) || viewer.getTree().isDisposed()
+                || ( viewer.getInput() == null ) )
+            {
+                return;
+            }
+
+            List<IValue> values = new ArrayList<IValue>();
+
+            for ( IValue value : event.getValues() )
+            {
+                if ( value.getAttribute().getEntry() == viewer.getInput() )
+                {
+                    values.add( value );
+                }
+            }
+
+            if ( !values.isEmpty() )
+            {
+                viewer.update( values.toArray(), null );
+            }
+        }
+    };
+
 
     /**
      * Creates a new instance of EntryEditorWidgetUniversalListener.
@@ -171,7 +248,10 @@ public class EntryEditorWidgetUniversalListener implements EntryUpdateListener
         // register listeners
         viewer.getTree().addSelectionListener( viewerSelectionListener );
         viewer.getTree().addMouseListener( viewerMouseListener );
+        viewer.addTreeListener( viewerTreeListener );
         EventRegistry.addEntryUpdateListener( this, BrowserCommonActivator.getDefault().getEventRunner() );
+        EventRegistry.addDisplayValueUpdateListener( displayValueUpdateListener, BrowserCommonActivator.getDefault()
+            .getEventRunner() );
         BrowserCommonActivator.getDefault().getPreferenceStore().addPropertyChangeListener( propertyChangeListener );
 
         // Don't invoke Finish' or 'OK' button when pressing 'Enter' in wizard or dialog
@@ -195,7 +275,9 @@ public class EntryEditorWidgetUniversalListener implements EntryUpdateListener
     {
         if ( viewer != null )
         {
+            viewer.removeTreeListener( viewerTreeListener );
             EventRegistry.removeEntryUpdateListener( this );
+            EventRegistry.removeDisplayValueUpdateListener( displayValueUpdateListener );
             BrowserCommonActivator.getDefault().getPreferenceStore().removePropertyChangeListener(
                 propertyChangeListener );
 
@@ -29,12 +29,16 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.LdapSyntax;
 import org.apache.directory.api.util.Strings;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonActivator;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonConstants;
+import org.apache.directory.studio.ldapbrowser.common.ValueEditorsPreferences;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePreferences;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
@@ -113,6 +117,26 @@ public class ValueEditorManager
     /** A map containing all available value editors. */
     private Map<String, IValueEditor> class2ValueEditors;
 
+    /** 
+     * The resolved value editors, keyed by schema and attribute description. 
+     * A schema reload creates a new schema instance, so the old entries are
+     * simply not hit anymore and garbage-collected together with the schema.
+     */
+    private Map<Schema, Map<String, IValueEditor>> resolvedValueEditors =
+        new WeakHashMap<Schema, Map<String, IValueEditor>>();
+
+    /** The attribute value editor preferences the resolved value editors are based on */
+    private Map<String, String> resolvedAttributeValueEditorMap;
+
+    /** The syntax value editor preferences the resolved value editors are based on */
+    private Map<String, String> resolvedSyntaxValueEditorMap;
+
+    /** The binary attribute preferences the resolved value editors are based on */
+    private Set<String> resolvedBinaryAttributes;
+
+    /** The binary syntax preferences the resolved value editors are based on */
+    private Set<String> resolvedBinarySyntaxes;
+
 
     /**
      * Creates a new instance of ValueEditorManager.
@@ -193,6 +217,7 @@ public class ValueEditorManager
                 ve.dispose();
             }
 
+            resolvedValueEditors.clear();
             parent = null;
         }
     }
@@ -235,6 +260,9 @@ public class ValueEditorManager
      *      Text Editor is returned.
      * </ol>
      *
+     * The result is cached per schema and attribute type, the cache is cleared when
+     * the value editor preferences or the binary attribute and syntax preferences change.
+     *
      * @param schema the schema
      * @param attributeType the attribute type
      * @return the current value editor
@@ -247,10 +275,62 @@ public class ValueEditorManager
             return userSelectedValueEditor;
         }
 
+        // the preferences create new maps whenever the relations are changed
+        ValueEditorsPreferences preferences = BrowserCommonActivator.getDefault().getValueEditorsPreferences();
+        Map<String, String> attributeValueEditorMap = preferences.getAttributeValueEditorMap();
+        Map<String, String> syntaxValueEditorMap = preferences.getSyntaxValueEditorMap();
+
+        // same for the binary attributes and syntaxes used to choose the default value editor
+        BrowserCorePreferences corePreferences = BrowserCorePlugin.getDefault().getCorePreferences();
+        Set<String> binaryAttributes = corePreferences.getUpperCasedBinaryAttributeOidsAndNames();
+        Set<String> binarySyntaxes = corePreferences.getUpperCasedBinarySyntaxOids();
+
+        if ( ( attributeValueEditorMap != resolvedAttributeValueEditorMap )
+            || ( syntaxValueEditorMap != resolvedSyntaxValueEditorMap )
+            || ( binaryAttributes != resolvedBinaryAttributes ) || ( binarySyntaxes != resolvedBinarySyntaxes ) )
+        {
+            resolvedValueEditors.clear();
+            resolvedAttributeValueEditorMap = attributeValueEditorMap;
+            resolvedSyntaxValueEditorMap = syntaxValueEditorMap;
+            resolvedBinaryAttributes = binaryAttributes;
+            resolvedBinarySyntaxes = binarySyntaxes;
+        }
+
+        Map<String, IValueEditor> schemaValueEditors = resolvedValueEditors.get( schema );
+
+        if ( schemaValueEditors == null )
+        {
+            schemaValueEditors = new HashMap<String, IValueEditor>();
+            resolvedValueEditors.put( schema, schemaValueEditors );
+        }
+
+        IValueEditor valueEditor = schemaValueEditors.get( attributeType );
+
+        if ( valueEditor == null )
+        {
+            valueEditor = resolveValueEditor( schema, attributeType, attributeValueEditorMap, syntaxValueEditorMap );
+            schemaValueEditors.put( attributeType, valueEditor );
+        }
+
+        return valueEditor;
+    }
+
+
+    /**
+     * Resolves the value editor for the given attribute from the 
+     * value editor preferences and the schema.
+     *
+     * @param schema the schema
+     * @param attributeType the attribute type
+     * @param attributeValueEditorMap the attribute value editor preferences
+     * @param syntaxValueEditorMap the syntax value editor preferences
+     * @return the value editor
+     */
+    private IValueEditor resolveValueEditor( Schema schema, String attributeType,
+        Map<String, String> attributeValueEditorMap, Map<String, String> syntaxValueEditorMap )
+    {
         AttributeType atd = schema.getAttributeTypeDescription( attributeType );
         // check attribute preferences
-        Map<String, String> attributeValueEditorMap = BrowserCommonActivator.getDefault().getValueEditorsPreferences()
-            .getAttributeValueEditorMap();
         
         String oidStr = Strings.toLowerCase( atd.getOid() );
         
@@ -272,8 +352,6 @@ public class ValueEditorManager
 
         // check syntax preferences
         String syntaxNumericOid = SchemaUtils.getSyntaxNumericOidTransitive( atd, schema );
-        Map<String, String> syntaxValueEditorMap = BrowserCommonActivator.getDefault().getValueEditorsPreferences()
-            .getSyntaxValueEditorMap();
         
         String syntaxtNumericOidStr = Strings.toLowerCase( syntaxNumericOid );
         
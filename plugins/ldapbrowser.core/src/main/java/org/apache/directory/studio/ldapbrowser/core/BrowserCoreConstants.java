@@ -87,6 +87,18 @@ public final class BrowserCoreConstants
 
     public static final String PREFERENCE_LDIF_INCLUDE_VERSION_LINE = "ldifIncludeVersionLine"; //$NON-NLS-1$
 
+    public static final String PREFERENCE_LDIF_INCLUDE_CHECKSUM = "ldifIncludeChecksum"; //$NON-NLS-1$
+
+    public static final String PREFERENCE_RANGE_RETRIEVAL_MAX_VALUES = "rangeRetrievalMaxValues"; //$NON-NLS-1$
+
+    public static final String PREFERENCE_RANGE_RETRIEVAL_MAX_VALUES_IN_MEMORY = "rangeRetrievalMaxValuesInMemory"; //$NON-NLS-1$
+
+    public static final String PREFERENCE_PAGED_SEARCH_PREFETCH_DEPTH = "pagedSearchPrefetchDepth"; //$NON-NLS-1$
+
+    public static final String PREFERENCE_EXPORT_PARALLEL_PARTITIONS = "exportParallelPartitions"; //$NON-NLS-1$
+
+    public static final String PREFERENCE_EXPORT_PARTITION_FILES = "exportPartitionFiles"; //$NON-NLS-1$
+
     public static final int BINARYENCODING_IGNORE = 0;
 
     public static final int BINARYENCODING_BASE64 = 1;
@@ -175,6 +175,10 @@ public class BrowserCoreMessages extends NLS
 
     public static String ldif__n_errors_see_logfile;
 
+    public static String ldif__n_errors;
+
+    public static String ldif__checksum_mismatch;
+
     public static String ldif__imported_into_host_port_on_date;
 
     public static String ldif__import_into_host_port_failed_on_date;
@@ -305,6 +309,10 @@ public class BrowserCoreMessages extends NLS
 
     public static String jobs__export_progress;
 
+    public static String jobs__export_partition_progress;
+
+    public static String jobs__export_partitions_progress;
+
     public static String jobs__export_xls_name;
 
     public static String jobs__export_xls_task;
@@ -349,6 +357,12 @@ public class BrowserCoreMessages extends NLS
 
     public static String jobs__init_entries_error_n;
 
+    public static String jobs__fetch_values_name;
+
+    public static String jobs__fetch_values_progress;
+
+    public static String jobs__fetch_values_error;
+
     public static String jobs__modify_value_name;
 
     public static String jobs__modify_value_task;
@@ -64,6 +64,14 @@ public class BrowserCorePreferencesInitializer extends AbstractPreferenceInitial
         store.setDefault( BrowserCoreConstants.PREFERENCE_LDIF_LINE_SEPARATOR, BrowserCoreConstants.LINE_SEPARATOR );
         store.setDefault( BrowserCoreConstants.PREFERENCE_LDIF_SPACE_AFTER_COLON, true );
         store.setDefault( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE, true );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_CHECKSUM, false );
+
+        store.setDefault( BrowserCoreConstants.PREFERENCE_RANGE_RETRIEVAL_MAX_VALUES, 10000 );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_RANGE_RETRIEVAL_MAX_VALUES_IN_MEMORY, 100000 );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_PAGED_SEARCH_PREFETCH_DEPTH, 2 );
+
+        store.setDefault( BrowserCoreConstants.PREFERENCE_EXPORT_PARALLEL_PARTITIONS, 1 );
+        store.setDefault( BrowserCoreConstants.PREFERENCE_EXPORT_PARTITION_FILES, false );
 
         // default binary attributes
         BinaryAttribute[] defaultBinaryAttributes = new BinaryAttribute[]
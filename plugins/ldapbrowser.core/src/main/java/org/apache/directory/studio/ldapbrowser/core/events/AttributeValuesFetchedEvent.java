@@ -0,0 +1,65 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.events;
+
+
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+
+
+/**
+ * An AttributeValuesFetchedEvent indicates that further values of partially
+ * fetched {@link IAttribute}s of an {@link IEntry} were fetched from the 
+ * underlying directory using incremental range retrieval. The fetched values
+ * were appended to the values of the attributes.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class AttributeValuesFetchedEvent extends AttributesInitializedEvent
+{
+
+    /** The attributes with fetched values. */
+    private IAttribute[] fetchedAttributes;
+
+
+    /**
+     * Creates a new instance of AttributeValuesFetchedEvent.
+     * 
+     * @param entry the entry
+     * @param fetchedAttributes the attributes with fetched values
+     */
+    public AttributeValuesFetchedEvent( IEntry entry, IAttribute[] fetchedAttributes )
+    {
+        super( entry );
+        this.fetchedAttributes = fetchedAttributes;
+    }
+
+
+    /**
+     * Gets the attributes with fetched values.
+     * 
+     * @return the attributes with fetched values
+     */
+    public IAttribute[] getFetchedAttributes()
+    {
+        return fetchedAttributes;
+    }
+
+}
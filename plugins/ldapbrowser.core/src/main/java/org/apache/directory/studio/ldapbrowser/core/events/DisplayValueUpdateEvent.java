@@ -0,0 +1,61 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.events;
+
+
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+
+
+/**
+ * A DisplayValueUpdateEvent indicates that the display strings of some {@link IValue}s
+ * have changed, for example because their rendering has been finished in background.
+ * The values themselves are not modified, so only their labels need to be updated.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DisplayValueUpdateEvent
+{
+    /** The values whose display strings have changed. */
+    private IValue[] values;
+
+
+    /**
+     * Creates a new instance of DisplayValueUpdateEvent.
+     *
+     * @param values the values whose display strings have changed
+     */
+    public DisplayValueUpdateEvent( IValue[] values )
+    {
+        this.values = values;
+    }
+
+
+    /**
+     * Gets the values whose display strings have changed.
+     *
+     * @return the values
+     */
+    public IValue[] getValues()
+    {
+        return values;
+    }
+
+}
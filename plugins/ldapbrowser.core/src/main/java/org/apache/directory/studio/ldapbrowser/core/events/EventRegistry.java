@@ -248,4 +248,56 @@ public class EventRegistry extends ConnectionEventRegistry
         entryUpdateEventManager.fire( factory );
     }
 
+    static final EventManager<DisplayValueUpdateListener, EventRunner> displayValueUpdateEventManager = new EventManager<DisplayValueUpdateListener, EventRunner>();
+
+
+    /**
+     * Adds the display value update listener.
+     *
+     * @param listener the listener
+     * @param runner the runner
+     */
+    public static void addDisplayValueUpdateListener( DisplayValueUpdateListener listener, EventRunner runner )
+    {
+        displayValueUpdateEventManager.addListener( listener, runner );
+    }
+
+
+    /**
+     * Removes the display value update listener.
+     *
+     * @param listener the listener
+     */
+    public static void removeDisplayValueUpdateListener( DisplayValueUpdateListener listener )
+    {
+        displayValueUpdateEventManager.removeListener( listener );
+    }
+
+
+    /**
+     * Notifies each {@link DisplayValueUpdateListener} about the the given {@link DisplayValueUpdateEvent}.
+     * Uses the {@link EventRunner}s.
+     *
+     * @param displayValueUpdateEvent the display value update event
+     * @param source the source
+     */
+    public static void fireDisplayValueUpdated( final DisplayValueUpdateEvent displayValueUpdateEvent,
+        final Object source )
+    {
+        EventRunnableFactory<DisplayValueUpdateListener> factory = new EventRunnableFactory<DisplayValueUpdateListener>()
+        {
+            public EventRunnable createEventRunnable( final DisplayValueUpdateListener listener )
+            {
+                return new EventRunnable()
+                {
+                    public void run()
+                    {
+                        listener.displayValueUpdated( displayValueUpdateEvent );
+                    }
+                };
+            }
+        };
+        displayValueUpdateEventManager.fire( factory );
+    }
+
 }
@@ -24,10 +24,22 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 import java.io.Reader;
 import java.io.StringReader;
 import java.io.Writer;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.name.Dn;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
@@ -36,6 +48,9 @@ import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
+import org.apache.directory.studio.ldifparser.model.container.LdifChangeModDnRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
 import org.apache.directory.studio.ldifparser.parser.LdifParser;
 
 
@@ -52,6 +67,18 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
     /** The LDIF to execute. */
     private String ldif;
 
+    /** The already parsed LDIF containers to execute, null if the LDIF string should be parsed. */
+    private List<LdifContainer> containers;
+
+    /** The object the parsed LDIF containers originate from, used as lock, may be null. */
+    private Object source;
+
+    /** The maximum number of concurrently executed operations. */
+    private int concurrentOperations = 1;
+
+    /** The listener notified about the result of each record, may be null. */
+    private ExecuteLdifListener listener;
+
     /** The update if entry exists flag. */
     private boolean updateIfEntryExists;
 
@@ -76,6 +103,30 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
     }
 
 
+    /**
+     * Creates a new instance of ExecuteLdifJob that executes already parsed LDIF containers.
+     * 
+     * @param browserConnection the browser connection
+     * @param containers the parsed LDIF containers to execute
+     * @param source the object the containers originate from, e.g. the LDIF document, used as lock, may be null
+     * @param updateIfEntryExists the update if entry exists flag
+     * @param continueOnError the continue on error flag
+     * @param concurrentOperations the maximum number of concurrently executed operations
+     * @param listener the listener notified about the result of each record, may be null
+     */
+    public ExecuteLdifRunnable( IBrowserConnection browserConnection, List<LdifContainer> containers, Object source,
+        boolean updateIfEntryExists, boolean continueOnError, int concurrentOperations, ExecuteLdifListener listener )
+    {
+        this.browserConnection = browserConnection;
+        this.containers = containers;
+        this.source = source;
+        this.continueOnError = continueOnError;
+        this.updateIfEntryExists = updateIfEntryExists;
+        this.concurrentOperations = Math.max( 1, concurrentOperations );
+        this.listener = listener;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -101,7 +152,18 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
     public Object[] getLockedObjects()
     {
         List<Object> l = new ArrayList<Object>();
-        l.add( browserConnection.getUrl() + "_" + DigestUtils.shaHex( ldif ) ); //$NON-NLS-1$
+
+        if ( containers != null )
+        {
+            // lock on the identity of the source, serializing the containers is too expensive for large documents
+            Object lock = source != null ? source : containers;
+            l.add( browserConnection.getUrl() + "_" + Integer.toHexString( System.identityHashCode( lock ) ) ); //$NON-NLS-1$
+        }
+        else
+        {
+            l.add( browserConnection.getUrl() + "_" + DigestUtils.shaHex( ldif ) ); //$NON-NLS-1$
+        }
+
         return l.toArray();
     }
 
@@ -120,7 +182,15 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
      */
     public void run( StudioProgressMonitor monitor )
     {
-        executeLdif( browserConnection, ldif, updateIfEntryExists, continueOnError, monitor );
+        if ( containers != null )
+        {
+            executeLdif( browserConnection, containers, updateIfEntryExists, continueOnError, concurrentOperations,
+                listener, monitor );
+        }
+        else
+        {
+            executeLdif( browserConnection, ldif, updateIfEntryExists, continueOnError, monitor );
+        }
     }
 
 
@@ -167,6 +237,192 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
     }
 
 
+    /**
+     * Executes the already parsed LDIF containers. Up to concurrentOperations records are executed 
+     * concurrently, the results are processed in the order they arrive. A record is only started 
+     * if no executing record targets the same entry, an ancestor or a descendant, so the order 
+     * within a subtree is kept. Modify DN records are executed exclusively.
+     * 
+     * @param browserConnection the browser connection
+     * @param containers the LDIF containers
+     * @param updateIfEntryExists the update if entry exists flag
+     * @param continueOnError the continue on error flag
+     * @param concurrentOperations the maximum number of concurrently executed operations
+     * @param listener the listener notified about the result of each record, may be null
+     * @param monitor the progress monitor
+     */
+    public static void executeLdif( final IBrowserConnection browserConnection, List<LdifContainer> containers,
+        final boolean updateIfEntryExists, boolean continueOnError, int concurrentOperations,
+        ExecuteLdifListener listener, StudioProgressMonitor monitor )
+    {
+        executeLdif( browserConnection, containers, continueOnError, concurrentOperations, listener,
+            new RecordExecutor()
+            {
+                public void execute( LdifRecord record, StudioProgressMonitor recordMonitor ) throws Exception
+                {
+                    ImportLdifRunnable.importLdifRecord( browserConnection, record, updateIfEntryExists,
+                        recordMonitor );
+                }
+            }, monitor );
+    }
+
+
+    /**
+     * Executes the already parsed LDIF containers with the given record executor.
+     * 
+     * @param browserConnection the browser connection
+     * @param containers the LDIF containers
+     * @param continueOnError the continue on error flag
+     * @param concurrentOperations the maximum number of concurrently executed operations
+     * @param listener the listener notified about the result of each record, may be null
+     * @param recordExecutor the record executor
+     * @param monitor the progress monitor
+     */
+    static void executeLdif( IBrowserConnection browserConnection, List<LdifContainer> containers,
+        boolean continueOnError, int concurrentOperations, ExecuteLdifListener listener,
+        final RecordExecutor recordExecutor, StudioProgressMonitor monitor )
+    {
+        monitor.beginTask( BrowserCoreMessages.jobs__execute_ldif_task, 2 );
+        monitor.reportProgress( " " ); //$NON-NLS-1$
+        monitor.worked( 1 );
+
+        if ( browserConnection == null )
+        {
+            return;
+        }
+
+        int windowSize = Math.max( 1, concurrentOperations );
+        ExecutorService executor = Executors.newFixedThreadPool( windowSize );
+
+        // the executor is shut down in the finally block on every path, including cancellation and errors
+        try
+        {
+            CompletionService<StudioProgressMonitor> completionService = new ExecutorCompletionService<StudioProgressMonitor>(
+                executor );
+            ExecutionState state = new ExecutionState( browserConnection, completionService, continueOnError,
+                listener, monitor );
+
+            // one reusable monitor per concurrently executed operation
+            for ( int i = 0; i < windowSize; i++ )
+            {
+                state.idleMonitors.add( new StudioProgressMonitor( monitor ) );
+            }
+
+            for ( LdifContainer container : containers )
+            {
+                if ( monitor.isCanceled() || state.stopped )
+                {
+                    break;
+                }
+
+                if ( !( container instanceof LdifRecord ) )
+                {
+                    continue;
+                }
+
+                final LdifRecord record = ( LdifRecord ) container;
+                Dn dn = getDn( record );
+                boolean exclusive = dn == null || record instanceof LdifChangeModDnRecord;
+
+                // wait for a free slot and for executing records of the same subtree
+                while ( !state.executing.isEmpty()
+                    && ( exclusive || state.executing.size() >= windowSize || state.isConflicting( dn ) ) )
+                {
+                    state.processNextResult();
+                }
+
+                if ( monitor.isCanceled() || state.stopped )
+                {
+                    break;
+                }
+
+                final StudioProgressMonitor recordMonitor = state.idleMonitors.poll();
+                recordMonitor.reset();
+
+                Future<StudioProgressMonitor> future = completionService.submit( new Callable<StudioProgressMonitor>()
+                {
+                    public StudioProgressMonitor call()
+                    {
+                        // the worker threads don't fire events per record, a single
+                        // bulk modification event is fired by runNotification()
+                        EventRegistry.suspendEventFiringInCurrentThread();
+
+                        try
+                        {
+                            recordExecutor.execute( record, recordMonitor );
+                        }
+                        catch ( Exception e )
+                        {
+                            recordMonitor.reportError( e );
+                        }
+                        finally
+                        {
+                            EventRegistry.resumeEventFiringInCurrentThread();
+                        }
+
+                        return recordMonitor;
+                    }
+                } );
+
+                state.executing.put( future, new ExecutingRecord( record, dn ) );
+
+                if ( exclusive )
+                {
+                    state.processNextResult();
+                }
+            }
+
+            // wait for the remaining operations
+            while ( !state.executing.isEmpty() )
+            {
+                state.processNextResult();
+            }
+
+            if ( state.stopped )
+            {
+                monitor.reportError( state.stopException );
+            }
+            else if ( state.errorCount > 0 )
+            {
+                monitor.reportError( BrowserCoreMessages.bind( BrowserCoreMessages.ldif__n_errors, new String[]
+                    { "" + state.errorCount } ) ); //$NON-NLS-1$
+            }
+        }
+        catch ( Exception e )
+        {
+            monitor.reportError( e );
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+
+    /**
+     * Gets the DN of the record.
+     * 
+     * @param record the LDIF record
+     * @return the DN or null if the record has no valid DN
+     */
+    private static Dn getDn( LdifRecord record )
+    {
+        if ( record.getDnLine() == null )
+        {
+            return null;
+        }
+
+        try
+        {
+            return new Dn( record.getDnLine().getValueAsString() );
+        }
+        catch ( LdapInvalidDnException e )
+        {
+            return null;
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -174,4 +430,166 @@ public class ExecuteLdifRunnable implements StudioConnectionBulkRunnableWithProg
     {
         EventRegistry.fireEntryUpdated( new BulkModificationEvent( browserConnection ), this );
     }
+
+
+    /**
+     * Listener that is notified about the result of each executed LDIF record. 
+     * It is called from the job thread, in the order the results arrive.
+     */
+    public interface ExecuteLdifListener
+    {
+        /**
+         * Called when the execution of the record has finished.
+         * 
+         * @param record the executed LDIF record
+         * @param exception the error or null if the record was executed successfully
+         */
+        void recordExecuted( LdifRecord record, Exception exception );
+    }
+
+
+    /**
+     * Executes a single LDIF record, the errors are reported to the given monitor.
+     */
+    interface RecordExecutor
+    {
+        /**
+         * Executes the record.
+         * 
+         * @param record the LDIF record
+         * @param monitor the progress monitor of the record
+         * @throws Exception if the record could not be executed
+         */
+        void execute( LdifRecord record, StudioProgressMonitor monitor ) throws Exception;
+    }
+
+
+    /**
+     * A record that is currently executed.
+     */
+    private static class ExecutingRecord
+    {
+        /** The record */
+        private LdifRecord record;
+
+        /** The DN of the record */
+        private Dn dn;
+
+
+        private ExecutingRecord( LdifRecord record, Dn dn )
+        {
+            this.record = record;
+            this.dn = dn;
+        }
+    }
+
+
+    /**
+     * The state of a pipelined execution. Only accessed by the thread that executes the LDIF, 
+     * the operations themselves run in the executor.
+     */
+    private static class ExecutionState
+    {
+        private IBrowserConnection browserConnection;
+
+        private CompletionService<StudioProgressMonitor> completionService;
+
+        private boolean continueOnError;
+
+        private ExecuteLdifListener listener;
+
+        private StudioProgressMonitor monitor;
+
+        /** The currently executed records */
+        private Map<Future<StudioProgressMonitor>, ExecutingRecord> executing = new IdentityHashMap<Future<StudioProgressMonitor>, ExecutingRecord>();
+
+        /** The monitors not used by an executing record */
+        private Deque<StudioProgressMonitor> idleMonitors = new ArrayDeque<StudioProgressMonitor>();
+
+        private int importedCount = 0;
+
+        private int errorCount = 0;
+
+        /** Set if an error occurred and continueOnError is false */
+        private boolean stopped = false;
+
+        private Exception stopException;
+
+
+        private ExecutionState( IBrowserConnection browserConnection,
+            CompletionService<StudioProgressMonitor> completionService, boolean continueOnError,
+            ExecuteLdifListener listener, StudioProgressMonitor monitor )
+        {
+            this.browserConnection = browserConnection;
+            this.completionService = completionService;
+            this.continueOnError = continueOnError;
+            this.listener = listener;
+            this.monitor = monitor;
+        }
+
+
+        /**
+         * Checks if an executing record targets the given DN, one of its ancestors or descendants.
+         */
+        private boolean isConflicting( Dn dn )
+        {
+            for ( ExecutingRecord executingRecord : executing.values() )
+            {
+                if ( executingRecord.dn.equals( dn ) || executingRecord.dn.isDescendantOf( dn )
+                    || dn.isDescendantOf( executingRecord.dn ) )
+                {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+
+        /**
+         * Waits for the next finished operation and processes its result.
+         */
+        private void processNextResult() throws Exception
+        {
+            Future<StudioProgressMonitor> future = completionService.take();
+            StudioProgressMonitor recordMonitor = future.get();
+            LdifRecord record = executing.remove( future ).record;
+            idleMonitors.add( recordMonitor );
+
+            Exception exception = null;
+
+            if ( recordMonitor.errorsReported() )
+            {
+                errorCount++;
+                exception = recordMonitor.getException();
+
+                if ( exception == null )
+                {
+                    exception = new Exception( recordMonitor.getErrorStatus( "" ).getMessage() ); //$NON-NLS-1$
+                }
+
+                if ( !continueOnError && !stopped )
+                {
+                    stopped = true;
+                    stopException = exception;
+                }
+            }
+            else
+            {
+                importedCount++;
+
+                // update cache and adjust attribute/children initialization flags
+                ImportLdifRunnable.updateCache( browserConnection, record );
+            }
+
+            if ( listener != null )
+            {
+                listener.recordExecuted( record, exception );
+            }
+
+            monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.ldif__imported_n_entries_m_errors,
+                new String[]
+                    { "" + importedCount, "" + errorCount } ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
 }
@@ -21,12 +21,13 @@
 package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
-import java.io.BufferedWriter;
-import java.io.FileOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -43,6 +44,7 @@ import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.utils.FileStreams;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 import org.apache.directory.studio.ldifparser.LdifUtils;
@@ -140,46 +142,66 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
 
         Preferences coreStore = BrowserCorePlugin.getDefault().getPluginPreferences();
 
-        String attributeDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ATTRIBUTEDELIMITER );
-        String valueDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_VALUEDELIMITER );
-        String quoteCharacter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_QUOTECHARACTER );
-        String lineSeparator = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_LINESEPARATOR );
-        String encoding = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ENCODING );
-        int binaryEncoding = coreStore.getInt( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_BINARYENCODING );
-        String[] exportAttributes = this.searchParameter.getReturningAttributes();
+        final String attributeDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ATTRIBUTEDELIMITER );
+        final String valueDelimiter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_VALUEDELIMITER );
+        final String quoteCharacter = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_QUOTECHARACTER );
+        final String lineSeparator = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_LINESEPARATOR );
+        final String encoding = coreStore.getString( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_ENCODING );
+        final int binaryEncoding = coreStore.getInt( BrowserCoreConstants.PREFERENCE_FORMAT_CSV_BINARYENCODING );
+        final String[] exportAttributes = this.searchParameter.getReturningAttributes();
 
         try
         {
-            // open file
-            FileOutputStream fos = new FileOutputStream( exportCsvFilename );
-            OutputStreamWriter osw = new OutputStreamWriter( fos, encoding );
-            BufferedWriter bufferedWriter = new BufferedWriter( osw );
+            int parallelism = coreStore.getInt( BrowserCoreConstants.PREFERENCE_EXPORT_PARALLEL_PARTITIONS );
+            List<List<SearchParameter>> partitions = parallelism > 1 ? PartitionedExport.getPartitions(
+                browserConnection, searchParameter, parallelism, monitor ) : Collections
+                .<List<SearchParameter>> emptyList();
 
-            // header
-            if ( this.exportDn )
+            if ( partitions.size() > 1 )
             {
-                bufferedWriter.write( "dn" ); //$NON-NLS-1$
-                if ( exportAttributes == null || exportAttributes.length > 0 )
-                    bufferedWriter.write( attributeDelimiter );
+                // parallel export
+                PartitionedExport.export( partitions, exportCsvFilename, parallelism,
+                    coreStore.getBoolean( BrowserCoreConstants.PREFERENCE_EXPORT_PARTITION_FILES ),
+                    new PartitionedExport.PartitionWriter()
+                    {
+                        public Writer openWriter( File file ) throws IOException
+                        {
+                            return FileStreams.newWriter( file, encoding );
+                        }
+
+
+                        public void writeHeader( Writer writer ) throws IOException
+                        {
+                            writeCsvHeader( writer, exportAttributes, attributeDelimiter, exportDn );
+                        }
+
+
+                        public void writeEntries( SearchParameter partition, Writer writer,
+                            StudioProgressMonitor partitionMonitor ) throws IOException
+                        {
+                            exportToCsv( browserConnection, partition, writer, 0, partitionMonitor, exportAttributes,
+                                attributeDelimiter, valueDelimiter, quoteCharacter, lineSeparator, encoding,
+                                binaryEncoding, exportDn );
+                        }
+                    }, monitor );
             }
-            for ( int i = 0; i < exportAttributes.length; i++ )
+            else
             {
-                bufferedWriter.write( exportAttributes[i] );
-                if ( i + 1 < exportAttributes.length )
-                    bufferedWriter.write( attributeDelimiter );
-            }
-            bufferedWriter.write( BrowserCoreConstants.LINE_SEPARATOR );
+                // open file
+                Writer writer = FileStreams.newWriter( new File( exportCsvFilename ), encoding );
 
-            // export
-            int count = 0;
-            exportToCsv( browserConnection, searchParameter, bufferedWriter, count, monitor, exportAttributes,
-                attributeDelimiter, valueDelimiter, quoteCharacter, lineSeparator, encoding, binaryEncoding, exportDn );
+                // header
+                writeCsvHeader( writer, exportAttributes, attributeDelimiter, exportDn );
 
-            // close file
-            bufferedWriter.close();
-            osw.close();
-            fos.close();
+                // export
+                int count = 0;
+                exportToCsv( browserConnection, searchParameter, writer, count, monitor, exportAttributes,
+                    attributeDelimiter, valueDelimiter, quoteCharacter, lineSeparator, encoding, binaryEncoding,
+                    exportDn );
 
+                // close file
+                writer.close();
+            }
         }
         catch ( Exception e )
         {
@@ -188,12 +210,41 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
+    /**
+     * Writes the CSV header.
+     * 
+     * @param writer the writer
+     * @param exportAttributes the attributes
+     * @param attributeDelimiter the attribute delimiter
+     * @param exportDn the export dn
+     * 
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    private static void writeCsvHeader( Writer writer, String[] exportAttributes, String attributeDelimiter,
+        boolean exportDn ) throws IOException
+    {
+        if ( exportDn )
+        {
+            writer.write( "dn" ); //$NON-NLS-1$
+            if ( exportAttributes == null || exportAttributes.length > 0 )
+                writer.write( attributeDelimiter );
+        }
+        for ( int i = 0; i < exportAttributes.length; i++ )
+        {
+            writer.write( exportAttributes[i] );
+            if ( i + 1 < exportAttributes.length )
+                writer.write( attributeDelimiter );
+        }
+        writer.write( BrowserCoreConstants.LINE_SEPARATOR );
+    }
+
+
     /**
      * Exports to CSV.
      * 
      * @param browserConnection the browser connection
      * @param searchParameter the search parameter
-     * @param bufferedWriter the buffered writer
+     * @param writer the writer
      * @param count the count
      * @param monitor the monitor
      * @param attributes the attributes
@@ -208,7 +259,7 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
      * @throws IOException Signals that an I/O exception has occurred.
      */
     private static void exportToCsv( IBrowserConnection browserConnection, SearchParameter searchParameter,
-        BufferedWriter bufferedWriter, int count, StudioProgressMonitor monitor, String[] attributes,
+        Writer writer, int count, StudioProgressMonitor monitor, String[] attributes,
         String attributeDelimiter, String valueDelimiter, String quoteCharacter, String lineSeparator, String encoding,
         int binaryEncoding, boolean exportDn ) throws IOException
     {
@@ -223,7 +274,7 @@ public class ExportCsvRunnable implements StudioConnectionRunnableWithProgress
                 {
 
                     LdifContentRecord record = ( LdifContentRecord ) container;
-                    bufferedWriter.write( recordToCsv( browserConnection, record, attributes, attributeDelimiter,
+                    writer.write( recordToCsv( browserConnection, record, attributes, attributeDelimiter,
                         valueDelimiter, quoteCharacter, lineSeparator, encoding, binaryEncoding, exportDn ) );
 
                     count++;
@@ -22,7 +22,8 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
 import java.io.BufferedWriter;
-import java.io.FileOutputStream;
+import java.io.File;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -58,6 +59,7 @@ import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnable
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.utils.FileStreams;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
 
 
@@ -213,7 +215,7 @@ public class ExportDsmlRunnable implements StudioConnectionRunnableWithProgress
             // Writing the DSML string to the final destination file.
             if ( dsmlExportString != null )
             {
-                try ( FileOutputStream fos = new FileOutputStream( exportDsmlFilename ) )
+                try ( OutputStream fos = FileStreams.newOutputStream( new File( exportDsmlFilename ) ) )
                 {
                     try ( OutputStreamWriter osw = new OutputStreamWriter( fos, "UTF-8" ) ) //$NON-NLS-1$
                     {
@@ -21,10 +21,12 @@
 package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import org.apache.commons.codec.digest.DigestUtils;
@@ -44,21 +46,17 @@ import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
-import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
-import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
-import org.apache.directory.studio.ldapbrowser.core.utils.AttributeComparator;
+import org.apache.directory.studio.ldapbrowser.core.utils.FileStreams;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
-import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
+import org.apache.directory.studio.ldapbrowser.core.utils.LdifEntryWriter;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
-import org.apache.directory.studio.ldifparser.LdifFormatParameters;
 import org.apache.directory.studio.ldifparser.model.LdifEnumeration;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
 import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifDnLine;
 import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
-import org.apache.directory.studio.ldifparser.model.lines.LdifVersionLine;
+import org.eclipse.core.runtime.Preferences;
 
 
 /**
@@ -144,18 +142,51 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
 
         try
         {
-            // open file
-            FileWriter fileWriter = new FileWriter( exportLdifFilename );
-            BufferedWriter bufferedWriter = new BufferedWriter( fileWriter );
+            Preferences coreStore = BrowserCorePlugin.getDefault().getPluginPreferences();
+            int parallelism = coreStore.getInt( BrowserCoreConstants.PREFERENCE_EXPORT_PARALLEL_PARTITIONS );
+            List<List<SearchParameter>> partitions = parallelism > 1 ? PartitionedExport.getPartitions(
+                browserConnection, searchParameter, parallelism, monitor ) : Collections
+                .<List<SearchParameter>> emptyList();
 
-            // export
-            int count = 0;
-            export( browserConnection, searchParameter, bufferedWriter, count, monitor );
+            if ( partitions.size() > 1 )
+            {
+                // parallel export
+                PartitionedExport.export( partitions, exportLdifFilename, parallelism,
+                    coreStore.getBoolean( BrowserCoreConstants.PREFERENCE_EXPORT_PARTITION_FILES ),
+                    new PartitionedExport.PartitionWriter()
+                    {
+                        public Writer openWriter( File file ) throws IOException
+                        {
+                            return openLdifWriter( file );
+                        }
 
-            // close file
-            bufferedWriter.close();
-            fileWriter.close();
 
+                        public void writeHeader( Writer writer ) throws IOException
+                        {
+                            writeVersionLine( browserConnection, writer );
+                        }
+
+
+                        public void writeEntries( SearchParameter partition, Writer writer,
+                            StudioProgressMonitor partitionMonitor ) throws IOException
+                        {
+                            export( browserConnection, partition, writer, 0, partitionMonitor );
+                        }
+                    }, monitor );
+            }
+            else
+            {
+                // open file
+                Writer writer = openLdifWriter( new File( exportLdifFilename ) );
+
+                // export
+                int count = 0;
+                writeVersionLine( browserConnection, writer );
+                export( browserConnection, searchParameter, writer, count, monitor );
+
+                // close file
+                writer.close();
+            }
         }
         catch ( Exception e )
         {
@@ -164,56 +195,53 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
     }
 
 
+    /**
+     * Opens the writer to an LDIF file, compressed if the file name ends with .gz,
+     * with trailing checksum if enabled in the preferences.
+     */
+    private static Writer openLdifWriter( File file ) throws IOException
+    {
+        return FileStreams.newLdifWriter( file, Charset.defaultCharset().name(),
+            Utils.getLdifFormatParameters().getLineSeparator(), BrowserCorePlugin.getDefault()
+                .getPluginPreferences().getBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_CHECKSUM ) );
+    }
+
+
+    /**
+     * Writes the version line if enabled in the preferences.
+     */
+    private static void writeVersionLine( IBrowserConnection browserConnection, Writer writer ) throws IOException
+    {
+        if ( BrowserCorePlugin.getDefault().getPluginPreferences()
+            .getBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE ) )
+        {
+            new LdifEntryWriter( writer, browserConnection, Utils.getLdifFormatParameters() ).writeVersionLine();
+        }
+    }
+
+
     private static void export( IBrowserConnection browserConnection, SearchParameter searchParameter,
-        BufferedWriter bufferedWriter, int count, StudioProgressMonitor monitor ) throws IOException
+        Writer writer, int count, StudioProgressMonitor monitor ) throws IOException
     {
         try
         {
-            LdifEnumeration enumeration = search( browserConnection, searchParameter, monitor );
-            LdifFormatParameters ldifFormatParameters = Utils.getLdifFormatParameters();
+            DefaultLdifEnumeration enumeration = new DefaultLdifEnumeration(
+                SearchRunnable.search( browserConnection, searchParameter, monitor ), browserConnection,
+                searchParameter, monitor );
 
-            // add version spec
-            if ( BrowserCorePlugin.getDefault().getPluginPreferences()
-                .getBoolean( BrowserCoreConstants.PREFERENCE_LDIF_INCLUDE_VERSION_LINE ) )
-            {
-                LdifVersionLine ldifVersionLine = LdifVersionLine.create();
-                String ldifVersionLineString = ldifVersionLine.toFormattedString( ldifFormatParameters );
-                bufferedWriter.write( ldifVersionLineString );
-                LdifSepLine ldifSepLine = LdifSepLine.create();
-                String ldifSepLineString = ldifSepLine.toFormattedString( ldifFormatParameters );
-                bufferedWriter.write( ldifSepLineString );
-            }
+            // the entries are sorted and formatted while writing, without intermediate LDIF model objects
+            LdifEntryWriter ldifEntryWriter = new LdifEntryWriter( writer, browserConnection,
+                Utils.getLdifFormatParameters() );
 
             // add the records
             while ( !monitor.isCanceled() && !monitor.errorsReported() && enumeration.hasNext() )
             {
-                LdifContainer container = enumeration.next();
+                ldifEntryWriter.writeEntry( enumeration.nextEntry() );
 
-                if ( container instanceof LdifContentRecord )
-                {
-                    LdifContentRecord record = ( LdifContentRecord ) container;
-                    LdifDnLine dnLine = record.getDnLine();
-                    LdifSepLine sepLine = record.getSepLine();
-
-                    // sort and format
-                    DummyEntry entry = ModelConverter.ldifContentRecordToEntry( record, browserConnection );
-                    List<IValue> sortedValues = AttributeComparator.toSortedValues( entry );
-                    LdifContentRecord newRecord = new LdifContentRecord( dnLine );
-                    for ( IValue value : sortedValues )
-                    {
-                        newRecord.addAttrVal( ModelConverter.valueToLdifAttrValLine( value ) );
-                    }
-                    newRecord.finish( sepLine );
-                    String s = newRecord.toFormattedString( ldifFormatParameters );
-
-                    // String s = record.toFormattedString();
-                    bufferedWriter.write( s );
-
-                    count++;
-                    monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
-                        new String[]
-                            { Integer.toString( count ) } ) );
-                }
+                count++;
+                monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__export_progress,
+                    new String[]
+                        { Integer.toString( count ) } ) );
             }
         }
         catch ( LdapException loe )
@@ -296,9 +324,21 @@ public class ExportLdifRunnable implements StudioConnectionRunnableWithProgress
         }
 
 
+        /**
+         * Gets the next entry as received from the directory.
+         *
+         * @return the next entry
+         * @throws LdapException if the next entry could not be received
+         */
+        public Entry nextEntry() throws LdapException
+        {
+            return enumeration.next().getEntry();
+        }
+
+
         public LdifContainer next() throws LdapException
         {
-            Entry entry = enumeration.next().getEntry();
+            Entry entry = nextEntry();
             Dn dn = entry.getDn();
             LdifContentRecord record = LdifContentRecord.create( dn.getName() );
 
@@ -0,0 +1,291 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
+import org.apache.directory.studio.ldapbrowser.core.events.AttributeValuesFetchedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.AttributeValueRange;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+
+
+/**
+ * Runnable to fetch further values of attributes whose values were truncated
+ * by the server and returned using incremental range retrieval 
+ * (e.g. member;range=0-1499).
+ * 
+ * Each run fetches at most the configured number of values per attribute, 
+ * see {@link BrowserCoreConstants#PREFERENCE_RANGE_RETRIEVAL_MAX_VALUES}. The number 
+ * of values kept in memory per attribute is bounded by 
+ * {@link BrowserCoreConstants#PREFERENCE_RANGE_RETRIEVAL_MAX_VALUES_IN_MEMORY}, 
+ * further values are left on the server and the attribute stays partial.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class FetchAttributeRangeRunnable implements StudioConnectionBulkRunnableWithProgress
+{
+    /** The attributes. */
+    private IAttribute[] attributes;
+
+
+    /**
+     * Creates a new instance of FetchAttributeRangeRunnable.
+     * 
+     * @param attributes the attributes
+     */
+    public FetchAttributeRangeRunnable( IAttribute... attributes )
+    {
+        this.attributes = attributes;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Connection[] getConnections()
+    {
+        Set<Connection> connections = new LinkedHashSet<Connection>();
+
+        for ( IAttribute attribute : attributes )
+        {
+            connections.add( attribute.getEntry().getBrowserConnection().getConnection() );
+        }
+
+        return connections.toArray( new Connection[0] );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getName()
+    {
+        return BrowserCoreMessages.jobs__fetch_values_name;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Object[] getLockedObjects()
+    {
+        Set<Object> lockedObjects = new LinkedHashSet<Object>();
+
+        for ( IAttribute attribute : attributes )
+        {
+            lockedObjects.add( attribute.getEntry() );
+        }
+
+        return lockedObjects.toArray();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String getErrorMessage()
+    {
+        return BrowserCoreMessages.jobs__fetch_values_error;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void run( StudioProgressMonitor monitor )
+    {
+        monitor.beginTask( " ", attributes.length + 1 ); //$NON-NLS-1$
+        monitor.reportProgress( " " ); //$NON-NLS-1$
+
+        for ( IAttribute attribute : attributes )
+        {
+            if ( monitor.isCanceled() )
+            {
+                break;
+            }
+
+            monitor.worked( 1 );
+            fetchValues( attribute, getMaxValues(), monitor );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void runNotification( StudioProgressMonitor monitor )
+    {
+        Map<IEntry, List<IAttribute>> entries = new LinkedHashMap<IEntry, List<IAttribute>>();
+
+        for ( IAttribute attribute : attributes )
+        {
+            List<IAttribute> fetchedAttributes = entries.get( attribute.getEntry() );
+
+            if ( fetchedAttributes == null )
+            {
+                fetchedAttributes = new ArrayList<IAttribute>();
+                entries.put( attribute.getEntry(), fetchedAttributes );
+            }
+
+            fetchedAttributes.add( attribute );
+        }
+
+        for ( Map.Entry<IEntry, List<IAttribute>> entry : entries.entrySet() )
+        {
+            EventRegistry.fireEntryUpdated( new AttributeValuesFetchedEvent( entry.getKey(), entry.getValue()
+                .toArray( new IAttribute[0] ) ), this );
+        }
+    }
+
+
+    /**
+     * Gets the maximum number of values to fetch per attribute at once.
+     * 
+     * @return the maximum number of values to fetch per attribute at once
+     */
+    public static int getMaxValues()
+    {
+        return BrowserCorePlugin.getDefault().getPluginPreferences().getInt(
+            BrowserCoreConstants.PREFERENCE_RANGE_RETRIEVAL_MAX_VALUES );
+    }
+
+
+    /**
+     * Gets the maximum number of values kept in memory per attribute.
+     * 
+     * @return the maximum number of values kept in memory per attribute
+     */
+    public static int getMaxValuesInMemory()
+    {
+        return BrowserCorePlugin.getDefault().getPluginPreferences().getInt(
+            BrowserCoreConstants.PREFERENCE_RANGE_RETRIEVAL_MAX_VALUES_IN_MEMORY );
+    }
+
+
+    /**
+     * Fetches further values of the given attribute, range by range, until all
+     * values are fetched or the given maximum number of values is reached. 
+     * The attribute is only marked as complete if the server returned the last range, 
+     * if a fetch fails the attribute keeps its next range.
+     * 
+     * @param attribute the attribute
+     * @param maxValues the maximum number of values to fetch
+     * @param monitor the progress monitor
+     */
+    static void fetchValues( IAttribute attribute, int maxValues, StudioProgressMonitor monitor )
+    {
+        IEntry entry = attribute.getEntry();
+        IBrowserConnection browserConnection = entry.getBrowserConnection();
+        String description = attribute.getDescription();
+        int fetchedValues = 0;
+        maxValues = Math.min( maxValues, getMaxValuesInMemory() - attribute.getValueSize() );
+
+        while ( attribute.hasMoreValues() && fetchedValues < maxValues && !monitor.isCanceled() )
+        {
+            monitor.reportProgress( BrowserCoreMessages.bind( BrowserCoreMessages.jobs__fetch_values_progress,
+                new String[]
+                    { description, Integer.toString( attribute.getValueSize() ), entry.getDn().getName() } ) );
+
+            SearchParameter searchParameter = new SearchParameter();
+            searchParameter.setSearchBase( entry.getDn() );
+            searchParameter.setFilter( ISearch.FILTER_TRUE );
+            searchParameter.setScope( SearchScope.OBJECT );
+            searchParameter.setReturningAttributes( new String[]
+                { AttributeValueRange.toRequestDescription( description, attribute.getNextRangeLow() ) } );
+            searchParameter.setCountLimit( 1 );
+            searchParameter.setTimeLimit( 0 );
+            searchParameter.setAliasesDereferencingMethod( AliasDereferencingMethod.NEVER );
+            searchParameter.setReferralsHandlingMethod( browserConnection.getReferralsHandlingMethod() );
+
+            // if the server returns no further range we stop to avoid an endless loop,
+            // the attribute stays partial so its missing values are never replaced
+            int nextRangeLow = attribute.getNextRangeLow();
+            boolean rangeReceived = false;
+
+            try
+            {
+                StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection,
+                    searchParameter, monitor );
+
+                if ( enumeration != null )
+                {
+                    if ( enumeration.hasMore() )
+                    {
+                        StudioSearchResult sr = enumeration.next();
+
+                        for ( Attribute rangeAttribute : sr.getEntry() )
+                        {
+                            AttributeValueRange range = AttributeValueRange.parse( rangeAttribute.getUpId() );
+
+                            if ( description.equalsIgnoreCase( AttributeValueRange.stripRange( rangeAttribute
+                                .getUpId() ) ) )
+                            {
+                                SearchRunnable.addValues( attribute, rangeAttribute );
+                                fetchedValues += rangeAttribute.size();
+                                rangeReceived = true;
+
+                                // without range option the server returned all remaining values
+                                nextRangeLow = range != null ? range.getNextLow() : AttributeValueRange.LAST;
+                            }
+                        }
+                    }
+
+                    enumeration.close();
+                }
+            }
+            catch ( Exception e )
+            {
+                monitor.reportError( e );
+                rangeReceived = false;
+            }
+
+            if ( !rangeReceived )
+            {
+                // keep the previous next range, the values not fetched must not be treated as deleted
+                break;
+            }
+
+            attribute.setNextRangeLow( nextRangeLow );
+        }
+    }
+}
@@ -22,7 +22,6 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStreamWriter;
 import java.util.ArrayList;
@@ -78,6 +77,7 @@ import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.utils.FileStreams;
 
 
 /**
@@ -192,7 +192,7 @@ public class ImportDsmlRunnable implements StudioConnectionBulkRunnableWithProgr
             // Parsing the file
             Dsmlv2Grammar grammar = new Dsmlv2Grammar();
             Dsmlv2Parser parser = new Dsmlv2Parser( grammar );
-            parser.setInput( new FileInputStream( dsmlFile ), "UTF-8" ); //$NON-NLS-1$
+            parser.setInput( FileStreams.newInputStream( dsmlFile ), "UTF-8" ); //$NON-NLS-1$
             parser.parseAllRequests();
 
             // Getting the batch request
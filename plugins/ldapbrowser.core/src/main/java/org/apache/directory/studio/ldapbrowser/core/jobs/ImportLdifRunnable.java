@@ -24,11 +24,12 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.charset.Charset;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -58,6 +59,8 @@ import org.apache.directory.studio.ldapbrowser.core.events.BulkModificationEvent
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.utils.ChecksumInputStream;
+import org.apache.directory.studio.ldapbrowser.core.utils.FileStreams;
 import org.apache.directory.studio.ldapbrowser.core.utils.ModelConverter;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
@@ -186,7 +189,12 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
 
         try
         {
-            Reader ldifReader = new BufferedReader( new FileReader( this.ldifFile ) );
+            // LDIF files are exported in the default charset, the trailing checksum, if any,
+            // is verified while the file is read by the import
+            Charset charset = Charset.defaultCharset();
+            ChecksumInputStream checksumInputStream = new ChecksumInputStream( FileStreams.newInputStream( ldifFile ),
+                charset );
+            Reader ldifReader = new BufferedReader( new InputStreamReader( checksumInputStream, charset ) );
             LdifParser parser = new LdifParser();
             LdifEnumeration enumeration = parser.parse( ldifReader );
 
@@ -219,6 +227,11 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
 
             logWriter.close();
             ldifReader.close();
+
+            if ( Boolean.FALSE.equals( checksumInputStream.verifyChecksum() ) )
+            {
+                monitor.reportError( BrowserCoreMessages.ldif__checksum_mismatch );
+            }
         }
         catch ( Exception e )
         {
@@ -288,70 +301,7 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
                             logModification( browserConnection, logWriter, record, monitor );
 
                             // update cache and adjust attribute/children initialization flags
-                            Dn dn = new Dn( record.getDnLine().getValueAsString() );
-                            IEntry entry = browserConnection.getEntryFromCache( dn );
-                            Dn parentDn = dn.getParent();
-                            IEntry parentEntry = null;
-                            while ( parentEntry == null && parentDn != null )
-                            {
-                                parentEntry = browserConnection.getEntryFromCache( parentDn );
-                                parentDn = parentDn.getParent();
-                            }
-
-                            if ( record instanceof LdifChangeDeleteRecord )
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                    browserConnection.uncacheEntryRecursive( entry );
-                                }
-                                if ( parentEntry != null )
-                                {
-                                    parentEntry.setChildrenInitialized( false );
-                                }
-                            }
-                            else if ( record instanceof LdifChangeModDnRecord )
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                    browserConnection.uncacheEntryRecursive( entry );
-                                }
-                                if ( parentEntry != null )
-                                {
-                                    parentEntry.setChildrenInitialized( false );
-                                }
-                                LdifChangeModDnRecord modDnRecord = ( LdifChangeModDnRecord ) record;
-                                if ( modDnRecord.getNewsuperiorLine() != null )
-                                {
-                                    Dn newSuperiorDn = new Dn( modDnRecord.getNewsuperiorLine()
-                                        .getValueAsString() );
-                                    IEntry newSuperiorEntry = browserConnection.getEntryFromCache( newSuperiorDn );
-                                    if ( newSuperiorEntry != null )
-                                    {
-                                        newSuperiorEntry.setChildrenInitialized( false );
-                                    }
-                                }
-                            }
-                            else if ( record instanceof LdifChangeAddRecord || record instanceof LdifContentRecord )
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                }
-                                if ( parentEntry != null )
-                                {
-                                    parentEntry.setChildrenInitialized( false );
-                                    parentEntry.setHasChildrenHint( true );
-                                }
-                            }
-                            else
-                            {
-                                if ( entry != null )
-                                {
-                                    entry.setAttributesInitialized( false );
-                                }
-                            }
+                            updateCache( browserConnection, record );
                         }
                     }
                     catch ( Exception e )
@@ -390,6 +340,83 @@ public class ImportLdifRunnable implements StudioConnectionBulkRunnableWithProgr
     }
 
 
+    /**
+     * Updates the cache after the LDIF record has been imported successfully
+     * and adjusts the attribute/children initialization flags.
+     * 
+     * @param browserConnection the browser connection
+     * @param record the imported LDIF record
+     * @throws LdapInvalidDnException if the DN of the record is invalid
+     */
+    static void updateCache( IBrowserConnection browserConnection, LdifRecord record ) throws LdapInvalidDnException
+    {
+        Dn dn = new Dn( record.getDnLine().getValueAsString() );
+        IEntry entry = browserConnection.getEntryFromCache( dn );
+        Dn parentDn = dn.getParent();
+        IEntry parentEntry = null;
+        while ( parentEntry == null && parentDn != null )
+        {
+            parentEntry = browserConnection.getEntryFromCache( parentDn );
+            parentDn = parentDn.getParent();
+        }
+
+        if ( record instanceof LdifChangeDeleteRecord )
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+                browserConnection.uncacheEntryRecursive( entry );
+            }
+            if ( parentEntry != null )
+            {
+                parentEntry.setChildrenInitialized( false );
+            }
+        }
+        else if ( record instanceof LdifChangeModDnRecord )
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+                browserConnection.uncacheEntryRecursive( entry );
+            }
+            if ( parentEntry != null )
+            {
+                parentEntry.setChildrenInitialized( false );
+            }
+            LdifChangeModDnRecord modDnRecord = ( LdifChangeModDnRecord ) record;
+            if ( modDnRecord.getNewsuperiorLine() != null )
+            {
+                Dn newSuperiorDn = new Dn( modDnRecord.getNewsuperiorLine()
+                    .getValueAsString() );
+                IEntry newSuperiorEntry = browserConnection.getEntryFromCache( newSuperiorDn );
+                if ( newSuperiorEntry != null )
+                {
+                    newSuperiorEntry.setChildrenInitialized( false );
+                }
+            }
+        }
+        else if ( record instanceof LdifChangeAddRecord || record instanceof LdifContentRecord )
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+            }
+            if ( parentEntry != null )
+            {
+                parentEntry.setChildrenInitialized( false );
+                parentEntry.setHasChildrenHint( true );
+            }
+        }
+        else
+        {
+            if ( entry != null )
+            {
+                entry.setAttributesInitialized( false );
+            }
+        }
+    }
+
+
     /**
      * Imports the LDIF record.
      * 
@@ -22,6 +22,7 @@ package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.LinkedHashSet;
 import java.util.List;
@@ -44,6 +45,7 @@ import org.apache.directory.studio.ldapbrowser.core.model.IRootDSE;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.Search;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
+import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 
 
 /**
@@ -254,17 +256,30 @@ public class InitializeAttributesRunnable implements StudioConnectionBulkRunnabl
 
             if ( clearAllAttributes )
             {
-                // Clear all attributes (user and operational)
+                // Clear all attributes (user and operational) that are not requested.
                 // Must be done here because SearchRunnable.searchAndUpdateModel only clears
                 // requested attributes. If the user switches the "Show operational attributes"
                 // property then the operational attributes are not cleared.
+                // The requested attributes are updated incrementally by SearchRunnable.
+                List<String> requestedAttributes = Arrays.asList( attributes );
+                boolean allUserAttributes = requestedAttributes.contains( SchemaConstants.ALL_USER_ATTRIBUTES );
+                boolean allOperationalAttributes = requestedAttributes
+                    .contains( SchemaConstants.ALL_OPERATIONAL_ATTRIBUTES );
                 IAttribute[] oldAttributes = entry.getAttributes();
                 
                 if ( oldAttributes != null )
                 {
                     for ( IAttribute oldAttribute : oldAttributes )
                     {
-                        entry.deleteAttribute( oldAttribute );
+                        boolean isOperational = oldAttribute.isOperationalAttribute();
+                        boolean isRequested = ( allUserAttributes && !isOperational )
+                            || ( allOperationalAttributes && isOperational )
+                            || Utils.containsIgnoreCase( requestedAttributes, oldAttribute.getType() );
+
+                        if ( !isRequested )
+                        {
+                            entry.deleteAttribute( oldAttribute );
+                        }
                     }
                 }
             }
@@ -283,6 +298,17 @@ public class InitializeAttributesRunnable implements StudioConnectionBulkRunnabl
             // search
             SearchRunnable.searchAndUpdateModel( entry.getBrowserConnection(), search, monitor );
 
+            // fetch the values truncated by the server, bounded by the configured maximum,
+            // the remaining values are fetched on demand
+            int maxValues = FetchAttributeRangeRunnable.getMaxValues();
+            for ( IAttribute attribute : entry.getAttributes() )
+            {
+                if ( attribute.hasMoreValues() )
+                {
+                    FetchAttributeRangeRunnable.fetchValues( attribute, maxValues - attribute.getValueSize(), monitor );
+                }
+            }
+
             // we requested all attributes, set initialized state
             entry.setAttributesInitialized( true );
         }
@@ -0,0 +1,506 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor.CancelEvent;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor.CancelListener;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+
+/**
+ * A search result enumeration that transparently continues a paged search.
+ * <p>
+ * The pages are received by a system job. As soon as a page was completely
+ * received the next page is requested, while the results of the previous pages
+ * are still consumed. At most the given number of pages are buffered ahead of
+ * the consumer. The next pages are requested with a progress monitor of their 
+ * own, it is canceled when the enumeration is closed or the consumer's progress
+ * monitor is canceled.
+ * <p>
+ * The response controls are the ones of the last received page, the cookie of
+ * the paged results control is empty if all pages were received.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class PagedSearchResultEnumeration extends StudioSearchResultEnumeration
+{
+    /** The browser connection */
+    private IBrowserConnection browserConnection;
+
+    /** The search parameter of the first page */
+    private SearchParameter parameter;
+
+    /** The page size */
+    private int pageSize;
+
+    /** The progress monitor of the consumer */
+    private StudioProgressMonitor monitor;
+
+    /** The progress monitor used to request the next pages */
+    private StudioProgressMonitor prefetchMonitor;
+
+    /** The job receiving the pages */
+    private Job prefetchJob;
+
+    /** Cancels the prefetch when the consumer is canceled, it isn't removed as the monitor may fire concurrently */
+    private CancelListener cancelListener = new CancelListener()
+    {
+        public void cancelRequested( CancelEvent event )
+        {
+            stopPrefetch();
+        }
+    };
+
+    /** The received search results and page ends */
+    private BlockingQueue<Object> queue;
+
+    /** The current search result */
+    private StudioSearchResult currentSearchResult;
+
+    /** The response controls of the last consumed page */
+    private Collection<Control> responseControls = Collections.emptyList();
+
+    /** Flag indicating that all pages were consumed */
+    private boolean finished;
+
+    /** Flag indicating that the consumer closed this enumeration */
+    private volatile boolean closed;
+
+
+    /**
+     * Creates a new instance of PagedSearchResultEnumeration and starts
+     * receiving the pages.
+     *
+     * @param browserConnection the browser connection
+     * @param parameter the search parameter, must contain a paged results control
+     * @param pagedResults the paged results request control of the search parameter
+     * @param firstPage the enumeration of the first page
+     * @param prefetchDepth the maximum number of pages to buffer
+     * @param monitor the progress monitor
+     */
+    PagedSearchResultEnumeration( IBrowserConnection browserConnection, SearchParameter parameter,
+        PagedResults pagedResults, final StudioSearchResultEnumeration firstPage, int prefetchDepth,
+        StudioProgressMonitor monitor )
+    {
+        super( firstPage.getConnection(), null, parameter.getSearchBase().getName(), parameter.getFilter(), null,
+            parameter.getAliasesDereferencingMethod(), parameter.getReferralsHandlingMethod(), null, 0, monitor,
+            null );
+
+        this.browserConnection = browserConnection;
+        this.parameter = parameter;
+        this.pageSize = pagedResults.getSize();
+        this.monitor = monitor;
+
+        int capacity = pageSize > 0 && pageSize <= Integer.MAX_VALUE / prefetchDepth ? pageSize * prefetchDepth
+            : Integer.MAX_VALUE;
+        this.queue = new LinkedBlockingQueue<Object>( capacity );
+
+        prefetchMonitor = new StudioProgressMonitor( BrowserCoreConstants.PLUGIN_ID, new NullProgressMonitor() );
+        monitor.addCancelListener( cancelListener );
+
+        prefetchJob = new Job( "Paged search " + parameter.getSearchBase().getName() ) //$NON-NLS-1$
+        {
+            protected IStatus run( IProgressMonitor jobMonitor )
+            {
+                try
+                {
+                    receivePages( firstPage );
+                }
+                finally
+                {
+                    prefetchMonitor.done();
+                }
+                return Status.OK_STATUS;
+            }
+
+
+            protected void canceling()
+            {
+                prefetchMonitor.setCanceled( true );
+            }
+        };
+        prefetchJob.setSystem( true );
+        prefetchJob.schedule();
+    }
+
+
+    /**
+     * Receives all pages, runs in the prefetch job.
+     *
+     * @param firstPage the enumeration of the first page
+     */
+    private void receivePages( StudioSearchResultEnumeration firstPage )
+    {
+        StudioSearchResultEnumeration enumeration = firstPage;
+        long count = 0;
+        boolean terminated = false;
+        LdapException error = null;
+
+        try
+        {
+            while ( enumeration != null )
+            {
+                PageEnd pageEnd = new PageEnd();
+                try
+                {
+                    while ( enumeration.hasMore() )
+                    {
+                        if ( !put( enumeration.next() ) )
+                        {
+                            return;
+                        }
+                        count++;
+                    }
+                    pageEnd.responseControls = enumeration.getResponseControls();
+                }
+                catch ( LdapException e )
+                {
+                    pageEnd.exception = e;
+                }
+
+                // request the next page before the received results are consumed
+                closeQuietly( enumeration );
+                enumeration = null;
+                byte[] cookie = getCookie( pageEnd.responseControls );
+                int countLimit = parameter.getCountLimit();
+                if ( pageEnd.exception == null && ArrayUtils.isNotEmpty( cookie ) && !isAbandoned()
+                    && ( countLimit == 0 || count < countLimit ) )
+                {
+                    enumeration = searchNextPage( getNextPageParameter( cookie ), prefetchMonitor );
+
+                    if ( prefetchMonitor.errorsReported() && !isAbandoned() )
+                    {
+                        // the consumer gets the error after the results of this page
+                        pageEnd.exception = getPrefetchException();
+                        closeQuietly( enumeration );
+                        enumeration = null;
+                    }
+                }
+
+                pageEnd.last = enumeration == null;
+                if ( !put( pageEnd ) )
+                {
+                    return;
+                }
+                terminated = pageEnd.last;
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+        catch ( RuntimeException e )
+        {
+            error = new LdapException( e.getMessage(), e );
+        }
+        finally
+        {
+            closeQuietly( enumeration );
+
+            if ( !terminated )
+            {
+                // the consumer must not wait for a last page end that never comes
+                terminate( error );
+            }
+        }
+    }
+
+
+    /**
+     * Requests the next page, runs in the prefetch job.
+     *
+     * @param nextPageParameter the search parameter of the next page
+     * @param prefetchMonitor the progress monitor used to request the next pages
+     *
+     * @return the search result enumeration of the next page, null if the search failed
+     */
+    StudioSearchResultEnumeration searchNextPage( SearchParameter nextPageParameter,
+        StudioProgressMonitor prefetchMonitor )
+    {
+        return SearchRunnable.searchPage( browserConnection, nextPageParameter, prefetchMonitor );
+    }
+
+
+    /**
+     * Gets the error reported to the prefetch progress monitor.
+     *
+     * @return the error
+     */
+    private LdapException getPrefetchException()
+    {
+        Exception exception = prefetchMonitor.getException();
+
+        if ( exception instanceof LdapException )
+        {
+            return ( LdapException ) exception;
+        }
+
+        String message = exception != null ? exception.getMessage() : prefetchMonitor.getErrorStatus( "" ) //$NON-NLS-1$
+            .getMessage();
+        return new LdapException( message, exception );
+    }
+
+
+    private static void closeQuietly( StudioSearchResultEnumeration enumeration )
+    {
+        if ( enumeration != null )
+        {
+            try
+            {
+                enumeration.close();
+            }
+            catch ( LdapException e )
+            {
+                // ignore
+            }
+        }
+    }
+
+
+    /**
+     * Adds the last page end to the queue when the pages could not be received
+     * completely.
+     *
+     * @param exception the exception to report to the consumer, may be null
+     */
+    private void terminate( LdapException exception )
+    {
+        PageEnd pageEnd = new PageEnd();
+        pageEnd.exception = exception;
+        pageEnd.last = true;
+
+        try
+        {
+            if ( !put( pageEnd ) )
+            {
+                // nobody waits for it, just avoid that a consumer polls in vain
+                queue.offer( pageEnd );
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            queue.offer( pageEnd );
+        }
+    }
+
+
+    /**
+     * Adds a received search result or page end to the queue, waits while the
+     * queue is full.
+     *
+     * @return false if the enumeration was abandoned before or while waiting
+     */
+    private boolean put( Object o ) throws InterruptedException
+    {
+        while ( !isAbandoned() )
+        {
+            if ( queue.offer( o, 1, TimeUnit.SECONDS ) )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Checks if the consumer is not interested in more results: the enumeration
+     * was closed, the prefetch or the consumer's job was canceled or the 
+     * consumer's job is already done.
+     */
+    private boolean isAbandoned()
+    {
+        return closed || prefetchMonitor.isCanceled() || monitor.isCanceled() || monitor.isDone();
+    }
+
+
+    /**
+     * Cancels the prefetch job and its progress monitor, a pending request 
+     * of the next page is abandoned.
+     */
+    private void stopPrefetch()
+    {
+        prefetchJob.cancel();
+        prefetchMonitor.setCanceled( true );
+    }
+
+
+    private SearchParameter getNextPageParameter( byte[] cookie )
+    {
+        SearchParameter nextPageParameter = ( SearchParameter ) parameter.clone();
+        for ( Iterator<Control> it = nextPageParameter.getControls().iterator(); it.hasNext(); )
+        {
+            if ( it.next() instanceof PagedResults )
+            {
+                it.remove();
+            }
+        }
+        nextPageParameter.getControls().add( Controls.newPagedResultsControl( pageSize, cookie ) );
+        return nextPageParameter;
+    }
+
+
+    private static byte[] getCookie( Collection<Control> responseControls )
+    {
+        if ( responseControls != null )
+        {
+            for ( Control responseControl : responseControls )
+            {
+                if ( responseControl instanceof PagedResults )
+                {
+                    return ( ( PagedResults ) responseControl ).getCookie();
+                }
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean hasMore() throws LdapException
+    {
+        currentSearchResult = null;
+
+        while ( !finished )
+        {
+            if ( closed || monitor.isCanceled() )
+            {
+                finished = true;
+                return false;
+            }
+
+            Object o;
+            try
+            {
+                o = queue.poll( 1, TimeUnit.SECONDS );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                finished = true;
+                return false;
+            }
+
+            if ( o == null )
+            {
+                // don't wait forever for a receiver that stopped, cancellation is checked again
+                continue;
+            }
+
+            if ( o instanceof StudioSearchResult )
+            {
+                currentSearchResult = ( StudioSearchResult ) o;
+                return true;
+            }
+
+            PageEnd pageEnd = ( PageEnd ) o;
+            if ( pageEnd.responseControls != null )
+            {
+                responseControls = pageEnd.responseControls;
+            }
+            if ( pageEnd.exception != null )
+            {
+                finished = true;
+                throw pageEnd.exception;
+            }
+            finished = pageEnd.last;
+        }
+
+        return false;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public StudioSearchResult next() throws LdapException
+    {
+        return currentSearchResult;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public Collection<Control> getResponseControls()
+    {
+        return responseControls;
+    }
+
+
+    /**
+     * Stops receiving more pages. The prefetch job is canceled, it closes 
+     * the enumeration of the page it currently receives.
+     */
+    public void close() throws LdapException
+    {
+        closed = true;
+        finished = true;
+        stopPrefetch();
+
+        // wakes up the prefetch job if it waits for free space
+        queue.clear();
+    }
+
+
+    /**
+     * Marks the end of a received page.
+     */
+    private static class PageEnd
+    {
+        /** The response controls of the page */
+        private Collection<Control> responseControls;
+
+        /** The exception thrown while receiving the page */
+        private LdapException exception;
+
+        /** Flag indicating that this is the last page */
+        private boolean last;
+    }
+}
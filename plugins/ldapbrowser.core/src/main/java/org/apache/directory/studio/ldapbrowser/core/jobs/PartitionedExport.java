@@ -0,0 +1,594 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.apache.directory.studio.ldapbrowser.core.utils.FileStreams;
+
+
+/**
+ * Exports a subtree in parallel. The subtree is split into a few independent partitions,
+ * about two per concurrent export, each partition is a contiguous range of the child
+ * entries of the search base and is exported with one subtree search per child entry,
+ * the first partition additionally contains the search base entry itself. The partitions
+ * are searched and written concurrently and are either merged into the export file in a
+ * deterministic order or written into one file per partition.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class PartitionedExport
+{
+    /** The number of partitions per concurrent export, more partitions balance subtrees of different sizes */
+    static final int PARTITIONS_PER_THREAD = 2;
+
+    /**
+     * The maximum number of child entries of a split search base. A search base with more
+     * child entries is rather flat, one search per child entry would be more expensive
+     * than the single subtree search.
+     */
+    static final int MAX_CHILDREN = 10000;
+
+    /**
+     * Writes the exported entries of a partition.
+     */
+    interface PartitionWriter
+    {
+        /**
+         * Opens a writer to an export file.
+         *
+         * @param file the export file
+         * @return the writer
+         * @throws IOException if an I/O error occurs
+         */
+        Writer openWriter( File file ) throws IOException;
+
+
+        /**
+         * Writes the header of an export file.
+         *
+         * @param writer the writer
+         * @throws IOException if an I/O error occurs
+         */
+        void writeHeader( Writer writer ) throws IOException;
+
+
+        /**
+         * Searches and writes the entries of a search of a partition.
+         *
+         * @param searchParameter the search parameter
+         * @param writer the writer
+         * @param monitor the progress monitor of the partition
+         * @throws IOException if an I/O error occurs
+         */
+        void writeEntries( SearchParameter searchParameter, Writer writer, StudioProgressMonitor monitor )
+            throws IOException;
+    }
+
+
+    private PartitionedExport()
+    {
+    }
+
+
+    /**
+     * Splits the search into partitions. Only subtree searches without count limit
+     * are split, if the search base has at most {@link #MAX_CHILDREN} child entries.
+     *
+     * @param browserConnection the browser connection
+     * @param searchParameter the search parameter
+     * @param parallelism the number of partitions to export concurrently
+     * @param monitor the progress monitor
+     *
+     * @return the searches of the partitions, a single partition with the given
+     *         search if the search can't be split
+     */
+    static List<List<SearchParameter>> getPartitions( IBrowserConnection browserConnection,
+        SearchParameter searchParameter, int parallelism, StudioProgressMonitor monitor )
+    {
+        List<List<SearchParameter>> unsplit = Collections.singletonList( Collections.singletonList( searchParameter ) );
+        if ( searchParameter.getScope() != SearchScope.SUBTREE || searchParameter.getCountLimit() > 0 )
+        {
+            return unsplit;
+        }
+
+        // search the child entries of the search base
+        SearchParameter childrenParameter = createSearch( searchParameter, searchParameter.getSearchBase(),
+            SearchScope.ONELEVEL );
+        childrenParameter.setFilter( "(objectClass=*)" ); //$NON-NLS-1$
+        childrenParameter.setReturningAttributes( new String[]
+            { SchemaConstants.NO_ATTRIBUTE } );
+        List<Dn> children = new ArrayList<Dn>();
+        try
+        {
+            StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, childrenParameter,
+                monitor );
+            while ( !monitor.isCanceled() && enumeration != null && enumeration.hasMore() )
+            {
+                StudioSearchResult searchResult = enumeration.next();
+                if ( searchResult.getSearchContinuationUrl() != null || searchResult.isContinuedSearchResult()
+                    || children.size() == MAX_CHILDREN )
+                {
+                    // referrals are only followed by a single search, flat trees are exported by a single search
+                    enumeration.close();
+                    return unsplit;
+                }
+                children.add( searchResult.getDn() );
+            }
+        }
+        catch ( LdapException e )
+        {
+            return unsplit;
+        }
+        if ( children.isEmpty() || monitor.isCanceled() )
+        {
+            return unsplit;
+        }
+
+        return createPartitions( searchParameter, children, parallelism );
+    }
+
+
+    /**
+     * Groups the child entries of the search base into partitions. The child entries
+     * are sorted by Dn and distributed into contiguous ranges of about the same size,
+     * so the partitioning is deterministic.
+     *
+     * @param searchParameter the search parameter
+     * @param children the child entries of the search base
+     * @param parallelism the number of partitions to export concurrently
+     *
+     * @return the searches of the partitions
+     */
+    static List<List<SearchParameter>> createPartitions( SearchParameter searchParameter, List<Dn> children,
+        int parallelism )
+    {
+        List<Dn> sortedChildren = new ArrayList<Dn>( children );
+        Collections.sort( sortedChildren, new Comparator<Dn>()
+        {
+            public int compare( Dn dn1, Dn dn2 )
+            {
+                return dn1.getName().compareToIgnoreCase( dn2.getName() );
+            }
+        } );
+
+        int childCount = sortedChildren.size();
+        int partitionCount = Math.max( 1, Math.min( parallelism * PARTITIONS_PER_THREAD, childCount ) );
+        List<List<SearchParameter>> partitions = new ArrayList<List<SearchParameter>>( partitionCount );
+        for ( int i = 0; i < partitionCount; i++ )
+        {
+            List<SearchParameter> searches = new ArrayList<SearchParameter>();
+            if ( i == 0 )
+            {
+                searches.add( createSearch( searchParameter, searchParameter.getSearchBase(), SearchScope.OBJECT ) );
+            }
+            for ( Dn child : sortedChildren.subList( i * childCount / partitionCount, ( i + 1 ) * childCount
+                / partitionCount ) )
+            {
+                searches.add( createSearch( searchParameter, child, SearchScope.SUBTREE ) );
+            }
+            partitions.add( searches );
+        }
+
+        return partitions;
+    }
+
+
+    /**
+     * Creates the search parameter of a partition. Each search gets its own
+     * paged results control because the cookie is updated while searching.
+     */
+    private static SearchParameter createSearch( SearchParameter searchParameter, Dn searchBase,
+        SearchScope scope )
+    {
+        SearchParameter search = ( SearchParameter ) searchParameter.clone();
+        search.setSearchBase( searchBase );
+        search.setScope( scope );
+
+        List<Control> controls = search.getControls();
+        for ( int i = 0; i < controls.size(); i++ )
+        {
+            if ( controls.get( i ) instanceof PagedResults )
+            {
+                controls.set( i, Controls.newPagedResultsControl( ( ( PagedResults ) controls.get( i ) ).getSize() ) );
+            }
+        }
+
+        return search;
+    }
+
+
+    /**
+     * Exports the partitions concurrently. The temporary or partition file of a partition
+     * is created when the partition is exported, temporary files are deleted once merged.
+     *
+     * @param partitions the searches of the partitions
+     * @param exportFilename the filename of the export file
+     * @param parallelism the number of partitions to export concurrently
+     * @param separateFiles true to write one file per partition, false to merge
+     *        the partitions into the export file
+     * @param partitionWriter the partition writer
+     * @param monitor the progress monitor
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    static void export( final List<List<SearchParameter>> partitions, final String exportFilename,
+        int parallelism, final boolean separateFiles, final PartitionWriter partitionWriter,
+        final StudioProgressMonitor monitor ) throws IOException
+    {
+        final int partitionCount = partitions.size();
+        final File[] files = new File[partitionCount];
+        final AtomicBoolean finished = new AtomicBoolean( false );
+
+        ExecutorService executor = Executors.newFixedThreadPool( Math.max( 1, Math.min( parallelism,
+            partitionCount ) ) );
+        CompletionService<Integer> completionService = new ExecutorCompletionService<Integer>( executor );
+        try
+        {
+            for ( int i = 0; i < partitionCount; i++ )
+            {
+                final int index = i;
+                completionService.submit( new Callable<Integer>()
+                {
+                    public Integer call() throws IOException
+                    {
+                        if ( finished.get() )
+                        {
+                            return index;
+                        }
+
+                        File file = separateFiles ? getPartitionFile( exportFilename, index ) : File
+                            .createTempFile( "export", ".tmp" ); //$NON-NLS-1$ //$NON-NLS-2$
+                        synchronized ( files )
+                        {
+                            files[index] = file;
+                        }
+
+                        try
+                        {
+                            exportPartition( partitions.get( index ), file, separateFiles, partitionWriter, monitor );
+                        }
+                        finally
+                        {
+                            // the export was aborted while this partition was running
+                            if ( finished.get() && !separateFiles )
+                            {
+                                file.delete();
+                            }
+                        }
+
+                        return index;
+                    }
+                } );
+            }
+
+            // wait for the partitions, merge them in order as soon as all previous partitions are done
+            boolean[] done = new boolean[partitionCount];
+            int merged = 0;
+            Writer writer = separateFiles ? null : partitionWriter.openWriter( new File( exportFilename ) );
+            try
+            {
+                if ( writer != null )
+                {
+                    partitionWriter.writeHeader( writer );
+                }
+
+                for ( int i = 0; i < partitionCount; i++ )
+                {
+                    Future<Integer> future = completionService.take();
+                    done[future.get()] = true;
+                    synchronized ( monitor )
+                    {
+                        monitor.reportProgress( BrowserCoreMessages.bind(
+                            BrowserCoreMessages.jobs__export_partitions_progress, new String[]
+                                { Integer.toString( i + 1 ), Integer.toString( partitionCount ) } ) );
+                    }
+
+                    while ( writer != null && merged < partitionCount && done[merged] )
+                    {
+                        File file;
+                        synchronized ( files )
+                        {
+                            file = files[merged];
+                            files[merged] = null;
+                        }
+                        if ( file != null )
+                        {
+                            append( file, writer );
+                            file.delete();
+                        }
+                        merged++;
+                    }
+                }
+            }
+            finally
+            {
+                if ( writer != null )
+                {
+                    writer.close();
+                }
+            }
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            monitor.setCanceled( true );
+        }
+        catch ( ExecutionException e )
+        {
+            synchronized ( monitor )
+            {
+                monitor.reportError( ( Exception ) e.getCause() );
+            }
+        }
+        finally
+        {
+            finished.set( true );
+            executor.shutdownNow();
+            if ( !separateFiles )
+            {
+                synchronized ( files )
+                {
+                    for ( File file : files )
+                    {
+                        if ( file != null )
+                        {
+                            file.delete();
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Exports the searches of a single partition into the given file, either the final
+     * partition file or a temporary file.
+     */
+    private static void exportPartition( List<SearchParameter> partition, File file, boolean separateFile,
+        PartitionWriter partitionWriter, StudioProgressMonitor monitor ) throws IOException
+    {
+        // the progress is reported per partition, errors are collected and reported to the export
+        PartitionProgressMonitor partitionMonitor = new PartitionProgressMonitor( monitor, partition.get( 0 )
+            .getSearchBase().getName() );
+
+        Writer writer = separateFile ? partitionWriter.openWriter( file ) : new BufferedWriter(
+            new OutputStreamWriter( new FileOutputStream( file ), StandardCharsets.UTF_8 ) );
+        try
+        {
+            if ( separateFile )
+            {
+                partitionWriter.writeHeader( writer );
+            }
+            for ( SearchParameter search : partition )
+            {
+                if ( monitor.isCanceled() || exportErrorsReported( monitor ) || partitionMonitor.errorsReported() )
+                {
+                    break;
+                }
+                partitionWriter.writeEntries( search, writer, partitionMonitor );
+            }
+        }
+        finally
+        {
+            writer.close();
+            partitionMonitor.done();
+        }
+
+        if ( partitionMonitor.errorsReported() )
+        {
+            synchronized ( monitor )
+            {
+                monitor.reportError( partitionMonitor.getException() );
+            }
+        }
+    }
+
+
+    private static boolean exportErrorsReported( StudioProgressMonitor monitor )
+    {
+        synchronized ( monitor )
+        {
+            return monitor.errorsReported();
+        }
+    }
+
+
+    /**
+     * The progress monitor of a partition. The progress is forwarded to the progress monitor
+     * of the export, which is shared by all partitions and therefore only accessed while
+     * holding its lock. Errors are collected per partition.
+     */
+    private static class PartitionProgressMonitor extends StudioProgressMonitor
+    {
+        /** The progress monitor of the export */
+        private final StudioProgressMonitor exportMonitor;
+
+        /** The name of the partition */
+        private final String name;
+
+
+        private PartitionProgressMonitor( StudioProgressMonitor exportMonitor, String name )
+        {
+            super( exportMonitor );
+            this.exportMonitor = exportMonitor;
+            this.name = name;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void reportProgress( String message )
+        {
+            synchronized ( exportMonitor )
+            {
+                exportMonitor.reportProgress( BrowserCoreMessages.bind(
+                    BrowserCoreMessages.jobs__export_partition_progress, new String[]
+                        { name, message } ) );
+            }
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void beginTask( String taskName, int totalWork )
+        {
+            // the task is the one of the export
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void setTaskName( String taskName )
+        {
+            // the task is the one of the export
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void subTask( String taskName )
+        {
+            synchronized ( exportMonitor )
+            {
+                exportMonitor.subTask( taskName );
+            }
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void worked( int work )
+        {
+            synchronized ( exportMonitor )
+            {
+                exportMonitor.worked( work );
+            }
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void internalWorked( double work )
+        {
+            synchronized ( exportMonitor )
+            {
+                exportMonitor.internalWorked( work );
+            }
+        }
+
+
+        /**
+         * Marks the partition as done, the export itself is not done yet.
+         */
+        public void done()
+        {
+            synchronized ( this )
+            {
+                isDone = true;
+            }
+        }
+    }
+
+
+    /**
+     * Gets the file of a partition, the partition number is appended to the
+     * name of the export file, e.g. export-0001.ldif or export-0001.ldif.gz.
+     */
+    static File getPartitionFile( String exportFilename, int index )
+    {
+        File exportFile = new File( exportFilename );
+        String name = exportFile.getName();
+        String compressedExtension = ""; //$NON-NLS-1$
+        if ( FileStreams.isCompressed( exportFile ) )
+        {
+            compressedExtension = name.substring( name.length() - FileStreams.GZIP_EXTENSION.length() );
+            name = name.substring( 0, name.length() - compressedExtension.length() );
+        }
+        int dot = name.lastIndexOf( '.' );
+        String suffix = String.format( "-%04d", index ); //$NON-NLS-1$
+        String partitionName = dot > 0 ? name.substring( 0, dot ) + suffix + name.substring( dot ) : name + suffix;
+        return new File( exportFile.getParentFile(), partitionName + compressedExtension );
+    }
+
+
+    private static void append( File file, Writer writer ) throws IOException
+    {
+        Reader reader = new BufferedReader( new InputStreamReader( new FileInputStream( file ),
+            StandardCharsets.UTF_8 ) );
+        try
+        {
+            char[] buffer = new char[8192];
+            int length;
+            while ( ( length = reader.read( buffer ) ) != -1 )
+            {
+                writer.write( buffer, 0, length );
+            }
+        }
+        finally
+        {
+            reader.close();
+        }
+    }
+}
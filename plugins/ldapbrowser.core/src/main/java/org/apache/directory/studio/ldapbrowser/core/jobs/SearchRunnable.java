@@ -21,12 +21,16 @@
 package org.apache.directory.studio.ldapbrowser.core.jobs;
 
 
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import javax.naming.directory.SearchControls;
@@ -39,6 +43,7 @@ import org.apache.directory.api.ldap.model.message.Control;
 import org.apache.directory.api.ldap.model.message.SearchScope;
 import org.apache.directory.api.ldap.model.message.controls.PagedResults;
 import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.url.LdapUrl;
 import org.apache.directory.api.util.Strings;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
@@ -50,22 +55,28 @@ import org.apache.directory.studio.connection.core.StudioControl;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.connection.core.jobs.StudioConnectionBulkRunnableWithProgress;
+import org.apache.directory.studio.ldapbrowser.core.BrowserCoreConstants;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCoreMessages;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.ValueMultiModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
+import org.apache.directory.studio.ldapbrowser.core.model.AttributeValueRange;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.BaseDNEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.ContinuedSearchResultEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.Entry;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.SearchContinuation;
 import org.apache.directory.studio.ldapbrowser.core.model.impl.Value;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
 import org.apache.directory.studio.ldapbrowser.core.utils.JNDIUtils;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 
@@ -83,6 +94,9 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
     /** The searches to perform. */
     protected ISearch[] searchesToPerform;
 
+    /** The entries whose attributes were modified by the searches. */
+    protected Set<IEntry> modifiedEntries = new LinkedHashSet<IEntry>();
+
 
     /**
      * Creates a new instance of SearchRunnable.
@@ -162,6 +176,7 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
     {
         monitor.beginTask( " ", searches.length + 1 ); //$NON-NLS-1$
         monitor.reportProgress( " " ); //$NON-NLS-1$
+        modifiedEntries.clear();
 
         for ( int pi = 0; pi < searches.length; pi++ )
         {
@@ -187,7 +202,8 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                 do
                 {
                     // perform search
-                    searchAndUpdateModel( searchToPerform.getBrowserConnection(), searchToPerform, monitor );
+                    modifiedEntries.addAll( searchAndUpdateModel( searchToPerform.getBrowserConnection(),
+                        searchToPerform, monitor ) );
 
                     if ( search != searchToPerform )
                     {
@@ -282,6 +298,13 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
             EventRegistry.fireSearchUpdated( new SearchUpdateEvent( searches[pi],
                 SearchUpdateEvent.EventDetail.SEARCH_PERFORMED ), this );
         }
+
+        // one event per entry updated by the searches, event firing is suspended while the job runs
+        for ( IEntry entry : modifiedEntries )
+        {
+            EventRegistry.fireEntryUpdated( new ValueMultiModificationEvent( entry.getBrowserConnection(), entry ),
+                this );
+        }
     }
 
 
@@ -291,13 +314,17 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
      * @param browserConnection the browser connection
      * @param search the search
      * @param monitor the progress monitor
+     * 
+     * @return the entries whose attributes were modified
      */
-    public static void searchAndUpdateModel( IBrowserConnection browserConnection, ISearch search,
+    public static Set<IEntry> searchAndUpdateModel( IBrowserConnection browserConnection, ISearch search,
         StudioProgressMonitor monitor )
     {
+        Set<IEntry> modifiedEntries = new LinkedHashSet<IEntry>();
+
         if ( browserConnection.getConnection() == null )
         {
-            return;
+            return modifiedEntries;
         }
 
         try
@@ -313,7 +340,8 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                 // search
                 try
                 {
-                    enumeration = search( browserConnection, searchParameter, monitor );
+                    enumeration = search( browserConnection, searchParameter, monitor,
+                        !search.isPagedSearchScrollMode() );
 
                     // iterate through the search result
                     while ( !monitor.isCanceled() && enumeration != null && enumeration.hasMore() )
@@ -345,7 +373,7 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                                 // See https://issues.apache.org/jira/browse/DIRSTUDIO-865
                                 if ( entry == null )
                                 {
-                                    return;
+                                    return modifiedEntries;
                                 }
                             }
 
@@ -353,7 +381,10 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                             initFlags( entry, sr, searchParameter );
 
                             // fill the attributes
-                            fillAttributes( entry, sr, search.getSearchParameter() );
+                            if ( fillAttributes( entry, sr, search.getSearchParameter() ) )
+                            {
+                                modifiedEntries.add( entry );
+                            }
 
                             if ( isContinuedSearchResult )
                             {
@@ -435,11 +466,73 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
             }
             monitor.reportError( e );
         }
+
+        return modifiedEntries;
     }
 
 
+    /**
+     * Searches the directory. A paged search is transparently continued, the next
+     * pages are received in the background while the results are consumed.
+     *
+     * @param browserConnection the browser connection
+     * @param parameter the search parameter
+     * @param monitor the progress monitor
+     *
+     * @return the search result enumeration, null if the search failed
+     */
     public static StudioSearchResultEnumeration search( IBrowserConnection browserConnection, SearchParameter parameter,
         StudioProgressMonitor monitor )
+    {
+        return search( browserConnection, parameter, monitor, true );
+    }
+
+
+    /**
+     * Searches the directory.
+     *
+     * @param browserConnection the browser connection
+     * @param parameter the search parameter
+     * @param monitor the progress monitor
+     * @param continuePagedSearch true to transparently continue a paged search,
+     *        false to only receive the requested page
+     *
+     * @return the search result enumeration, null if the search failed
+     */
+    public static StudioSearchResultEnumeration search( IBrowserConnection browserConnection, SearchParameter parameter,
+        StudioProgressMonitor monitor, boolean continuePagedSearch )
+    {
+        StudioSearchResultEnumeration enumeration = searchPage( browserConnection, parameter, monitor );
+
+        if ( continuePagedSearch && enumeration != null )
+        {
+            int prefetchDepth = BrowserCorePlugin.getDefault().getPluginPreferences()
+                .getInt( BrowserCoreConstants.PREFERENCE_PAGED_SEARCH_PREFETCH_DEPTH );
+            for ( Control control : parameter.getControls() )
+            {
+                if ( control instanceof PagedResults && prefetchDepth > 0 )
+                {
+                    return new PagedSearchResultEnumeration( browserConnection, parameter,
+                        ( PagedResults ) control, enumeration, prefetchDepth, monitor );
+                }
+            }
+        }
+
+        return enumeration;
+    }
+
+
+    /**
+     * Searches the directory, only the requested page of a paged search is received.
+     *
+     * @param browserConnection the browser connection
+     * @param parameter the search parameter
+     * @param monitor the progress monitor
+     *
+     * @return the search result enumeration, null if the search failed
+     */
+    static StudioSearchResultEnumeration searchPage( IBrowserConnection browserConnection, SearchParameter parameter,
+        StudioProgressMonitor monitor )
     {
         if ( browserConnection == null )
         {
@@ -684,12 +777,7 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                 String attributeDescription = attribute.getUpId();
                 if ( SchemaConstants.OBJECT_CLASS_AT.equalsIgnoreCase( attributeDescription ) )
                 {
-                    if ( entry.getAttribute( attributeDescription ) != null )
-                    {
-                        entry.deleteAttribute( entry.getAttribute( attributeDescription ) );
-                    }
-                    entry.addAttribute( new org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute( entry,
-                        attributeDescription ) );
+                    updateAttribute( entry, attributeDescription, attribute );
                 }
                 for ( org.apache.directory.api.ldap.model.entry.Value valueObject : attribute )
                 {
@@ -736,10 +824,6 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
                                 entry.setReferral( true );
                                 entry.setHasChildrenHint( false );
                             }
-
-                            IAttribute ocAttribute = entry.getAttribute( attributeDescription );
-                            Value ocValue = new Value( ocAttribute, value );
-                            ocAttribute.addValue( ocValue );
                         }
                     }
                 }
@@ -758,115 +842,238 @@ public class SearchRunnable implements StudioConnectionBulkRunnableWithProgress
 
     /**
      * Fills the attributes and values of the search result into the entry.
-     * Clears existing attributes and values in the entry.
+     * Clears existing attributes and values in the entry that are not contained
+     * in the search result.
+     * 
+     * The entry is updated incrementally: attributes and values that didn't change 
+     * are kept, only the differences are applied to the model. No event is fired 
+     * here, the calling bulk job suspends event firing and notifies once per
+     * modified entry when all search results are processed.
      * 
      * @param entry the entry
      * @param sr the JNDI search result
      * @param searchParameter the search parameters
+     * 
+     * @return true if the entry was modified
      */
-    private static void fillAttributes( IEntry entry, StudioSearchResult sr, SearchParameter searchParameter )
+    private static boolean fillAttributes( IEntry entry, StudioSearchResult sr, SearchParameter searchParameter )
     {
+        boolean modified = false;
+
         if ( searchParameter.getReturningAttributes() == null || searchParameter.getReturningAttributes().length > 0 )
         {
-            // clear old attributes defined as returning attributes or clear all
+            // collect old attributes defined as returning attributes or all
+            Set<IAttribute> oldAttributes = new LinkedHashSet<IAttribute>();
+            IAttribute[] entryAttributes = entry.getAttributes();
+
             if ( searchParameter.getReturningAttributes() != null )
             {
                 String[] ras = searchParameter.getReturningAttributes();
 
-                // special case *
-                if ( Arrays.asList( ras ).contains( SchemaConstants.ALL_USER_ATTRIBUTES ) )
+                for ( int i = 0; entryAttributes != null && i < entryAttributes.length; i++ )
                 {
-                    // clear all user attributes
-                    IAttribute[] oldAttributes = entry.getAttributes();
-                    for ( int i = 0; oldAttributes != null && i < oldAttributes.length; i++ )
+                    // special case *: all user attributes
+                    // special case +: all operational attributes
+                    if ( ( !entryAttributes[i].isOperationalAttribute() && Arrays.asList( ras ).contains(
+                        SchemaConstants.ALL_USER_ATTRIBUTES ) )
+                        || ( entryAttributes[i].isOperationalAttribute() && Arrays.asList( ras ).contains(
+                            SchemaConstants.ALL_OPERATIONAL_ATTRIBUTES ) ) )
                     {
-                        if ( !oldAttributes[i].isOperationalAttribute() )
-                        {
-                            entry.deleteAttribute( oldAttributes[i] );
-                        }
-                    }
-                }
-
-                // special case +
-                if ( Arrays.asList( ras ).contains( SchemaConstants.ALL_OPERATIONAL_ATTRIBUTES ) )
-                {
-                    // clear all operational attributes
-                    IAttribute[] oldAttributes = entry.getAttributes();
-                    for ( int i = 0; oldAttributes != null && i < oldAttributes.length; i++ )
-                    {
-                        if ( oldAttributes[i].isOperationalAttribute() )
-                        {
-                            entry.deleteAttribute( oldAttributes[i] );
-                        }
+                        oldAttributes.add( entryAttributes[i] );
                     }
                 }
 
                 for ( int r = 0; r < ras.length; r++ )
                 {
-                    // clear attributes requested from server, also include sub-types
+                    // attributes requested from server, also include sub-types
                     AttributeHierarchy ah = entry.getAttributeWithSubtypes( ras[r] );
                     if ( ah != null )
                     {
                         for ( Iterator<IAttribute> it = ah.iterator(); it.hasNext(); )
                         {
-                            IAttribute attribute = it.next();
-                            entry.deleteAttribute( attribute );
+                            oldAttributes.add( it.next() );
                         }
                     }
                 }
             }
-            else
+            else if ( entryAttributes != null )
             {
-                // clear all
-                IAttribute[] oldAttributes = entry.getAttributes();
-                for ( int i = 0; oldAttributes != null && i < oldAttributes.length; i++ )
+                // all
+                oldAttributes.addAll( Arrays.asList( entryAttributes ) );
+            }
+
+            // update the attributes contained in the record
+            for ( Attribute attribute : sr.getEntry() )
+            {
+                // values truncated by the server are returned with a range option, e.g. member;range=0-1499
+                String attributeDescription = AttributeValueRange.stripRange( attribute.getUpId() );
+
+                if ( attribute.iterator().hasNext() )
                 {
-                    entry.deleteAttribute( oldAttributes[i] );
+                    modified |= updateAttribute( entry, attributeDescription, attribute );
+                    oldAttributes.remove( entry.getAttribute( attributeDescription ) );
                 }
             }
 
-            // additional clear old attributes if the record contains the attribute
-            for ( Attribute attribute : sr.getEntry() )
+            // clear old attributes not contained in the record
+            for ( IAttribute oldAttribute : oldAttributes )
             {
-                String attributeDescription = attribute.getUpId();
-                IAttribute oldAttribute = entry.getAttribute( attributeDescription );
-                if ( oldAttribute != null )
+                if ( entry.getAttribute( oldAttribute.getDescription() ) == oldAttribute )
                 {
                     entry.deleteAttribute( oldAttribute );
+                    modified = true;
                 }
             }
+        }
 
-            // set new attributes and values
-            for ( Attribute attribute : sr.getEntry() )
+        return modified;
+    }
+
+
+    /**
+     * Updates the given attribute of the entry with the values of the given
+     * Directory API attribute. The attribute is created if it doesn't exist
+     * yet. Otherwise only the values that are not contained in the Directory 
+     * API attribute are deleted and the missing values are added. Values are 
+     * compared according to the equality matching rule of the attribute type, 
+     * values that only differ in case or insignificant spaces are kept.
+     * 
+     * @param entry the entry
+     * @param attributeDescription the attribute description, without range option
+     * @param attribute the Directory API attribute
+     * 
+     * @return true if the entry was modified
+     */
+    static boolean updateAttribute( IEntry entry, String attributeDescription, Attribute attribute )
+    {
+        boolean modified = false;
+        IAttribute studioAttribute = entry.getAttribute( attributeDescription );
+
+        if ( studioAttribute != null && !studioAttribute.getDescription().equals( attributeDescription ) )
+        {
+            // the server returned another spelling of the attribute description, recreate it
+            entry.deleteAttribute( studioAttribute );
+            studioAttribute = null;
+        }
+
+        if ( studioAttribute == null )
+        {
+            studioAttribute = new org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute( entry,
+                attributeDescription );
+            entry.addAttribute( studioAttribute );
+            addValues( studioAttribute, attribute );
+            modified = true;
+        }
+        else
+        {
+            // index the new values by their normalized value
+            Schema schema = entry.getBrowserConnection().getSchema();
+            AttributeType atd = studioAttribute.getAttributeTypeDescription();
+            Map<String, Object> newValues = new LinkedHashMap<String, Object>();
+
+            for ( org.apache.directory.api.ldap.model.entry.Value value : attribute )
             {
-                String attributeDescription = attribute.getUpId();
+                Object rawValue = value.isHumanReadable() ? value.getString() : value.getBytes();
+                newValues.put( getValueKey( atd, schema, rawValue ), rawValue );
+            }
 
-                if ( attribute.iterator().hasNext() )
+            // find the old values not contained in the new values
+            List<IValue> deletedValues = new ArrayList<IValue>();
+
+            for ( IValue oldValue : studioAttribute.getValues() )
+            {
+                if ( newValues.remove( getValueKey( atd, schema, oldValue.getRawValue() ) ) == null )
                 {
-                    IAttribute studioAttribute = null;
-                    if ( entry.getAttribute( attributeDescription ) == null )
-                    {
-                        studioAttribute = new org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute( entry,
-                            attributeDescription );
-                        entry.addAttribute( studioAttribute );
-                    }
-                    else
-                    {
-                        studioAttribute = entry.getAttribute( attributeDescription );
-                    }
+                    deletedValues.add( oldValue );
+                }
+            }
 
-                    for ( org.apache.directory.api.ldap.model.entry.Value value : attribute )
+            if ( !deletedValues.isEmpty() && deletedValues.size() == studioAttribute.getValueSize() )
+            {
+                // all values changed, cheaper to recreate the attribute
+                entry.deleteAttribute( studioAttribute );
+                studioAttribute = new org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute( entry,
+                    attributeDescription );
+                entry.addAttribute( studioAttribute );
+                modified = true;
+            }
+            else if ( !deletedValues.isEmpty() )
+            {
+                if ( studioAttribute instanceof org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute )
+                {
+                    ( ( org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute ) studioAttribute )
+                        .deleteValues( deletedValues );
+                }
+                else
+                {
+                    for ( IValue deletedValue : deletedValues )
                     {
-                        if ( value.isHumanReadable() )
-                        {
-                            studioAttribute.addValue( new Value( studioAttribute, value.getString() ) );
-                        }
-                        else
-                        {
-                            studioAttribute.addValue( new Value( studioAttribute, value.getBytes() ) );
-                        }
+                        studioAttribute.deleteValue( deletedValue );
                     }
                 }
+                modified = true;
+            }
+
+            // add the remaining new values
+            for ( Object rawValue : newValues.values() )
+            {
+                studioAttribute.addValue( new Value( studioAttribute, rawValue ) );
+                modified = true;
+            }
+        }
+
+        AttributeValueRange range = AttributeValueRange.parse( attribute.getUpId() );
+        int nextRangeLow = ( range != null ) ? range.getNextLow() : AttributeValueRange.LAST;
+
+        if ( studioAttribute.getNextRangeLow() != nextRangeLow )
+        {
+            studioAttribute.setNextRangeLow( nextRangeLow );
+            modified = true;
+        }
+
+        return modified;
+    }
+
+
+    /**
+     * Gets the key used to compare values: the value normalized according to the 
+     * equality matching rule of the attribute type for string values, a string with 
+     * one character per byte for binary values.
+     * 
+     * @param atd the attribute type description
+     * @param schema the schema
+     * @param rawValue the raw value, either a String or a byte[]
+     * 
+     * @return the key of the value
+     */
+    private static String getValueKey( AttributeType atd, Schema schema, Object rawValue )
+    {
+        if ( rawValue instanceof byte[] )
+        {
+            return "#" + new String( ( byte[] ) rawValue, StandardCharsets.ISO_8859_1 ); //$NON-NLS-1$
+        }
+
+        return "=" + SchemaUtils.getNormalizedValue( atd, schema, ( String ) rawValue ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Adds the values of the given Directory API attribute to the given attribute.
+     * 
+     * @param studioAttribute the attribute to add the values to
+     * @param attribute the Directory API attribute
+     */
+    static void addValues( IAttribute studioAttribute, Attribute attribute )
+    {
+        for ( org.apache.directory.api.ldap.model.entry.Value value : attribute )
+        {
+            if ( value.isHumanReadable() )
+            {
+                studioAttribute.addValue( new Value( studioAttribute, value.getString() ) );
+            }
+            else
+            {
+                studioAttribute.addValue( new Value( studioAttribute, value.getBytes() ) );
             }
         }
     }
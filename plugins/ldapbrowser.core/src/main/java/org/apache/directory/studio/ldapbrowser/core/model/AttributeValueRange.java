@@ -0,0 +1,225 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.model;
+
+
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * This class represents the range option used for incremental retrieval
+ * of multi-valued attributes, as implemented by Active Directory:
+ * 
+ *   member;range=0-1499
+ *   member;range=1500-*
+ * 
+ * A server that truncates the values of a large attribute returns the attribute 
+ * description with the range of the returned values. The high bound is '*' if 
+ * the last value of the attribute has been returned.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class AttributeValueRange
+{
+    /** The high bound representing the last value, '*' */
+    public static final int LAST = -1;
+
+    /** The low bound */
+    private int low;
+
+    /** The high bound, or LAST */
+    private int high;
+
+
+    /**
+     * Creates a new instance of AttributeValueRange.
+     * 
+     * @param low the low bound
+     * @param high the high bound, or LAST
+     */
+    public AttributeValueRange( int low, int high )
+    {
+        this.low = low;
+        this.high = high;
+    }
+
+
+    /**
+     * Gets the low bound.
+     * 
+     * @return the low bound
+     */
+    public int getLow()
+    {
+        return low;
+    }
+
+
+    /**
+     * Gets the high bound.
+     * 
+     * @return the high bound, or LAST
+     */
+    public int getHigh()
+    {
+        return high;
+    }
+
+
+    /**
+     * Returns true if this range contains the last value of the attribute.
+     * 
+     * @return true if this range contains the last value of the attribute
+     */
+    public boolean isLast()
+    {
+        return high == LAST;
+    }
+
+
+    /**
+     * Gets the low bound of the range following this range.
+     * 
+     * @return the low bound of the following range, or LAST
+     *         if this range contains the last value
+     */
+    public int getNextLow()
+    {
+        return isLast() ? LAST : high + 1;
+    }
+
+
+    /**
+     * Gets the range option, e.g. 'range=1500-*'.
+     * 
+     * @return the range option
+     */
+    public String toOption()
+    {
+        return IAttribute.OPTION_RANGE_PREFIX + low + "-" + ( isLast() ? "*" : Integer.toString( high ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString()
+    {
+        return toOption();
+    }
+
+
+    /**
+     * Parses the range option of the given attribute description.
+     * 
+     * @param description the attribute description, e.g. 'member;range=0-1499'
+     * 
+     * @return the parsed range, null if the description doesn't contain a valid range option
+     */
+    public static AttributeValueRange parse( String description )
+    {
+        if ( description == null )
+        {
+            return null;
+        }
+
+        for ( String option : new AttributeDescription( description ).getParsedOptionList() )
+        {
+            String lowerCasedOption = Strings.toLowerCase( option );
+
+            if ( lowerCasedOption.startsWith( IAttribute.OPTION_RANGE_PREFIX ) )
+            {
+                String range = lowerCasedOption.substring( IAttribute.OPTION_RANGE_PREFIX.length() );
+                int dash = range.indexOf( '-' );
+
+                if ( dash <= 0 || dash == range.length() - 1 )
+                {
+                    return null;
+                }
+
+                try
+                {
+                    int low = Integer.parseInt( range.substring( 0, dash ) );
+                    String highString = range.substring( dash + 1 );
+                    int high = "*".equals( highString ) ? LAST : Integer.parseInt( highString ); //$NON-NLS-1$
+
+                    return new AttributeValueRange( low, high );
+                }
+                catch ( NumberFormatException nfe )
+                {
+                    return null;
+                }
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Removes the range option from the given attribute description.
+     * 
+     * @param description the attribute description, e.g. 'member;range=0-1499'
+     * 
+     * @return the attribute description without range option, e.g. 'member'
+     */
+    public static String stripRange( String description )
+    {
+        if ( description == null || description.indexOf( IAttribute.OPTION_DELIMITER ) < 0 )
+        {
+            return description;
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        for ( String component : description.split( IAttribute.OPTION_DELIMITER ) )
+        {
+            if ( sb.length() > 0 && Strings.toLowerCase( component ).startsWith( IAttribute.OPTION_RANGE_PREFIX ) )
+            {
+                continue;
+            }
+
+            if ( sb.length() > 0 )
+            {
+                sb.append( IAttribute.OPTION_DELIMITER );
+            }
+
+            sb.append( component );
+        }
+
+        return sb.toString();
+    }
+
+
+    /**
+     * Creates the attribute description to request the values starting at the given
+     * low bound, e.g. 'member;range=1500-*'.
+     * 
+     * @param description the attribute description without range option
+     * @param low the low bound
+     * 
+     * @return the attribute description with range option
+     */
+    public static String toRequestDescription( String description, int low )
+    {
+        return description + IAttribute.OPTION_DELIMITER + new AttributeValueRange( low, LAST ).toOption();
+    }
+}
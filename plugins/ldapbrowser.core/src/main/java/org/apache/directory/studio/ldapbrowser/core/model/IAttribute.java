@@ -42,6 +42,9 @@ public interface IAttribute extends Serializable, IAdaptable, AttributePropertyP
     /** The language tag prefix 'lang-' */
     String OPTION_LANG_PREFIX = "lang-"; //$NON-NLS-1$
 
+    /** The range option prefix 'range=' used for incremental value retrieval */
+    String OPTION_RANGE_PREFIX = "range="; //$NON-NLS-1$
+
 
     /**
      * Gets the entry of this attribute.
@@ -257,4 +260,34 @@ public interface IAttribute extends Serializable, IAdaptable, AttributePropertyP
      * @return the AttributeDescription of this attribute,.
      */
     AttributeDescription getAttributeDescription();
+
+
+    /**
+     * Returns true if the server holds more values of this attribute
+     * than retrieved so far, because the server truncated the values
+     * and returned them using incremental range retrieval.
+     * 
+     * @return true if there are more values to retrieve
+     */
+    boolean hasMoreValues();
+
+
+    /**
+     * Gets the index of the next value to retrieve using incremental
+     * range retrieval.
+     * 
+     * @return the index of the next value to retrieve, or
+     *         {@link AttributeValueRange#LAST} if all values are retrieved
+     */
+    int getNextRangeLow();
+
+
+    /**
+     * Sets the index of the next value to retrieve using incremental
+     * range retrieval.
+     * 
+     * @param nextRangeLow the index of the next value to retrieve, or
+     *         {@link AttributeValueRange#LAST} if all values are retrieved
+     */
+    void setNextRangeLow( int nextRangeLow );
 }
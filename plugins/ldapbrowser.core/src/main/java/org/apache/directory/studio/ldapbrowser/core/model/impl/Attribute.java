@@ -23,8 +23,11 @@ package org.apache.directory.studio.ldapbrowser.core.model.impl;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
@@ -37,13 +40,16 @@ import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
 import org.apache.directory.studio.ldapbrowser.core.events.ValueAddedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.ValueDeletedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.ValueModifiedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.ValueMultiModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.internal.search.LdapSearchPageScoreComputer;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeDescription;
+import org.apache.directory.studio.ldapbrowser.core.model.AttributeValueRange;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.SchemaUtils;
+import org.apache.directory.studio.ldapbrowser.core.utils.EntryChangeJournal;
 import org.eclipse.search.ui.ISearchPageScoreComputer;
 
 
@@ -67,6 +73,9 @@ public class Attribute implements IAttribute
     /** The values */
     private List<IValue> valueList;
 
+    /** The index of the next value to retrieve using incremental range retrieval */
+    private int nextRangeLow = AttributeValueRange.LAST;
+
 
     /**
      * Creates an new instance of Attribute with the given description
@@ -189,6 +198,7 @@ public class Attribute implements IAttribute
     {
         IValue emptyValue = new Value( this );
         valueList.add( emptyValue );
+        journalValueAdded( emptyValue );
         attributeModified( new EmptyValueAddedEvent( getEntry().getBrowserConnection(), getEntry(), this, emptyValue ) );
     }
 
@@ -204,6 +214,7 @@ public class Attribute implements IAttribute
             if ( value.isEmpty() )
             {
                 it.remove();
+                journalValueDeleted( value );
                 attributeModified( new EmptyValueDeletedEvent( getEntry().getBrowserConnection(), getEntry(), this,
                     value ) );
                 return;
@@ -223,6 +234,38 @@ public class Attribute implements IAttribute
     }
 
 
+    /**
+     * Records an added value in the change journal of the entry, if any.
+     *
+     * @param value the added value
+     */
+    private void journalValueAdded( IValue value )
+    {
+        EntryChangeJournal journal = EntryChangeJournal.getJournal( getEntry() );
+
+        if ( journal != null )
+        {
+            journal.valueAdded( value );
+        }
+    }
+
+
+    /**
+     * Records a deleted value in the change journal of the entry, if any.
+     *
+     * @param value the deleted value
+     */
+    private void journalValueDeleted( IValue value )
+    {
+        EntryChangeJournal journal = EntryChangeJournal.getJournal( getEntry() );
+
+        if ( journal != null )
+        {
+            journal.valueDeleted( value );
+        }
+    }
+
+
     /**
      * Checks if the given value is valid.
      *
@@ -256,6 +299,7 @@ public class Attribute implements IAttribute
             if ( value.equals( valueToDelete ) )
             {
                 it.remove();
+                journalValueDeleted( value );
                 return true;
             }
         }
@@ -270,6 +314,7 @@ public class Attribute implements IAttribute
     {
         checkValue( valueToAdd );
         valueList.add( valueToAdd );
+        journalValueAdded( valueToAdd );
         attributeModified( new ValueAddedEvent( getEntry().getBrowserConnection(), getEntry(), this, valueToAdd ) );
     }
 
@@ -289,6 +334,51 @@ public class Attribute implements IAttribute
     }
 
 
+    /**
+     * Deletes the given values from this attribute in a single pass over
+     * the value list. The values must be instances returned by 
+     * {@link #getValues()}.
+     * 
+     * @param valuesToDelete
+     *                the values to delete
+     * @throws IllegalArgumentException
+     *                 if a value is null or if a value's attribute
+     *                 isn't this attribute.
+     */
+    public void deleteValues( Collection<IValue> valuesToDelete ) throws IllegalArgumentException
+    {
+        // identity lookup, the hash code of binary values isn't consistent with equals
+        Set<IValue> deleteSet = Collections.newSetFromMap( new IdentityHashMap<IValue, Boolean>() );
+
+        for ( IValue valueToDelete : valuesToDelete )
+        {
+            checkValue( valueToDelete );
+            deleteSet.add( valueToDelete );
+        }
+
+        // rebuild the value list, removing one by one from the array list would be quadratic
+        List<IValue> remainingValues = new ArrayList<IValue>( valueList.size() );
+
+        for ( IValue value : valueList )
+        {
+            if ( deleteSet.contains( value ) )
+            {
+                journalValueDeleted( value );
+            }
+            else
+            {
+                remainingValues.add( value );
+            }
+        }
+
+        if ( remainingValues.size() != valueList.size() )
+        {
+            valueList = remainingValues;
+            attributeModified( new ValueMultiModificationEvent( getEntry().getBrowserConnection(), getEntry() ) );
+        }
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -299,6 +389,7 @@ public class Attribute implements IAttribute
 
         internalDeleteValue( oldValue );
         valueList.add( newValue );
+        journalValueAdded( newValue );
         attributeModified( new ValueModifiedEvent( getEntry().getBrowserConnection(), getEntry(), this, oldValue,
             newValue ) );
     }
@@ -480,4 +571,31 @@ public class Attribute implements IAttribute
         return attributeDescription;
     }
 
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean hasMoreValues()
+    {
+        return nextRangeLow != AttributeValueRange.LAST;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int getNextRangeLow()
+    {
+        return nextRangeLow;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setNextRangeLow( int nextRangeLow )
+    {
+        this.nextRangeLow = nextRangeLow;
+    }
+
 }
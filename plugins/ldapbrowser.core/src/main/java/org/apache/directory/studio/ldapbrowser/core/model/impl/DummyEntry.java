@@ -44,6 +44,7 @@ import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldapbrowser.core.model.ICompareableEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldapbrowser.core.utils.EntryChangeJournal;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 
 
@@ -73,6 +74,9 @@ public class DummyEntry implements IEntry, ICompareableEntry
     /** The attribute map. */
     private Map<String, IAttribute> attributeMap;
 
+    /** The journal recording the value operations, may be null. */
+    private transient EntryChangeJournal changeJournal;
+
 
     protected DummyEntry()
     {
@@ -110,7 +114,13 @@ public class DummyEntry implements IEntry, ICompareableEntry
     public void addAttribute( IAttribute attributeToAdd )
     {
         String oidString = attributeToAdd.getAttributeDescription().toOidString( getBrowserConnection().getSchema() );
-        attributeMap.put( Strings.toLowerCase( oidString ), attributeToAdd );
+        IAttribute replacedAttribute = attributeMap.put( Strings.toLowerCase( oidString ), attributeToAdd );
+
+        if ( ( changeJournal != null ) && ( replacedAttribute != null ) && ( replacedAttribute != attributeToAdd ) )
+        {
+            changeJournal.attributeDeleted( replacedAttribute );
+        }
+
         EventRegistry.fireEntryUpdated( new AttributeAddedEvent( attributeToAdd.getEntry().getBrowserConnection(),
             this, attributeToAdd ), this );
     }
@@ -130,7 +140,13 @@ public class DummyEntry implements IEntry, ICompareableEntry
     public void deleteAttribute( IAttribute attributeToDelete )
     {
         String oidString = attributeToDelete.getAttributeDescription().toOidString( getBrowserConnection().getSchema() );
-        attributeMap.remove( Strings.toLowerCase( oidString ) );
+        IAttribute deletedAttribute = attributeMap.remove( Strings.toLowerCase( oidString ) );
+
+        if ( ( changeJournal != null ) && ( deletedAttribute != null ) )
+        {
+            changeJournal.attributeDeleted( deletedAttribute );
+        }
+
         EventRegistry.fireEntryUpdated( new AttributeDeletedEvent( attributeToDelete.getEntry().getBrowserConnection(),
             this, attributeToDelete ), this );
     }
@@ -547,6 +563,28 @@ public class DummyEntry implements IEntry, ICompareableEntry
     }
 
 
+    /**
+     * Gets the journal recording the value operations of this entry.
+     *
+     * @return the change journal, null if no journal is attached
+     */
+    public EntryChangeJournal getChangeJournal()
+    {
+        return changeJournal;
+    }
+
+
+    /**
+     * Sets the journal recording the value operations of this entry.
+     *
+     * @param changeJournal the change journal, null to stop recording
+     */
+    public void setChangeJournal( EntryChangeJournal changeJournal )
+    {
+        this.changeJournal = changeJournal;
+    }
+
+
     @Override
     public int hashCode()
     {
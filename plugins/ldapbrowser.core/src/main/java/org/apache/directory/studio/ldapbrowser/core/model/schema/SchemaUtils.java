@@ -153,6 +153,45 @@ public class SchemaUtils
         NON_MODIFIABLE_ATTRIBUTE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.VENDOR_VERSION_AT_OID ) );
     }
 
+    /** The well-known equality matching rules that ignore case and insignificant spaces */
+    private static final Set<String> CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES = new HashSet<String>();
+    static
+    {
+        CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.CASE_IGNORE_MATCH_MR ) );
+        CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.CASE_IGNORE_MATCH_MR_OID ) );
+        CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.CASE_IGNORE_IA5_MATCH_MR ) );
+        CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES
+            .add( Strings.toLowerCase( SchemaConstants.CASE_IGNORE_IA5_MATCH_MR_OID ) );
+        CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.CASE_IGNORE_LIST_MATCH_MR ) );
+        CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES
+            .add( Strings.toLowerCase( SchemaConstants.CASE_IGNORE_LIST_MATCH_MR_OID ) );
+        CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.OBJECT_IDENTIFIER_MATCH_MR ) );
+        CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES
+            .add( Strings.toLowerCase( SchemaConstants.OBJECT_IDENTIFIER_MATCH_MR_OID ) );
+    }
+
+    /** The well-known equality matching rules that only ignore insignificant spaces */
+    private static final Set<String> CASE_EXACT_MATCHING_RULE_OIDS_AND_NAMES = new HashSet<String>();
+    static
+    {
+        CASE_EXACT_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.CASE_EXACT_MATCH_MR ) );
+        CASE_EXACT_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.CASE_EXACT_MATCH_MR_OID ) );
+        CASE_EXACT_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.CASE_EXACT_IA5_MATCH_MR ) );
+        CASE_EXACT_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.CASE_EXACT_IA5_MATCH_MR_OID ) );
+    }
+
+    /** The well-known equality matching rules that ignore all spaces */
+    private static final Set<String> SPACE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES = new HashSet<String>();
+    static
+    {
+        SPACE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.NUMERIC_STRING_MATCH_MR ) );
+        SPACE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES
+            .add( Strings.toLowerCase( SchemaConstants.NUMERIC_STRING_MATCH_MR_OID ) );
+        SPACE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES.add( Strings.toLowerCase( SchemaConstants.TELEPHONE_NUMBER_MATCH_MR ) );
+        SPACE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES
+            .add( Strings.toLowerCase( SchemaConstants.TELEPHONE_NUMBER_MATCH_MR_OID ) );
+    }
+
     private static final Comparator<String> nameAndOidComparator = new Comparator<String>()
     {
         public int compare( String s1, String s2 )
@@ -596,6 +635,83 @@ public class SchemaUtils
     }
 
 
+    /**
+     * Normalizes the given string value according to the equality matching rule of 
+     * the given attribute type description, two values with equal normalized values 
+     * match. Only the well-known case ignore, case exact, numeric string and 
+     * telephone number matching rules are supported, values of attribute types with 
+     * other or without equality matching rules are returned unchanged.
+     * 
+     * @param atd the attribute type description
+     * @param schema the schema
+     * @param value the string value
+     * 
+     * @return the normalized value
+     */
+    public static String getNormalizedValue( AttributeType atd, Schema schema, String value )
+    {
+        String emr = getEqualityMatchingRuleNameOrNumericOidTransitive( atd, schema );
+
+        if ( emr == null )
+        {
+            return value;
+        }
+
+        emr = Strings.toLowerCase( emr );
+
+        if ( CASE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES.contains( emr ) )
+        {
+            return Strings.toLowerCase( deepTrim( value ) );
+        }
+        else if ( CASE_EXACT_MATCHING_RULE_OIDS_AND_NAMES.contains( emr ) )
+        {
+            return deepTrim( value );
+        }
+        else if ( SPACE_IGNORE_MATCHING_RULE_OIDS_AND_NAMES.contains( emr ) )
+        {
+            // telephone numbers also ignore hyphens and case, numeric strings only contain digits and spaces
+            StringBuilder sb = new StringBuilder( value.length() );
+
+            for ( char c : value.toCharArray() )
+            {
+                if ( c != ' ' && c != '-' )
+                {
+                    sb.append( c );
+                }
+            }
+
+            return Strings.toLowerCase( sb.toString() );
+        }
+
+        return value;
+    }
+
+
+    /**
+     * Removes leading and trailing spaces and replaces inner sequences of
+     * spaces by a single space.
+     * 
+     * @param value the value
+     * 
+     * @return the trimmed value
+     */
+    private static String deepTrim( String value )
+    {
+        StringBuilder sb = new StringBuilder( value.length() );
+
+        for ( String token : value.trim().split( " +" ) ) //$NON-NLS-1$
+        {
+            if ( sb.length() > 0 )
+            {
+                sb.append( ' ' );
+            }
+            sb.append( token );
+        }
+
+        return sb.toString();
+    }
+
+
     /**
      * Gets the substring matching rule description name or OID of the given or the
      * superior attribute type description.
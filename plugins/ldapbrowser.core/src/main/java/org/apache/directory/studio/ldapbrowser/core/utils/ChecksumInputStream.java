@@ -0,0 +1,294 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+
+
+/**
+ * An input stream that verifies the trailing checksum comment written by
+ * {@link FileStreams#newLdifWriter(java.io.File, String, String, boolean)}.
+ * <p>
+ * The last bytes read are held back from the checksum calculation, when the
+ * end of the stream is reached they contain the checksum comment. The comment
+ * is searched encoded in the charset the file was written with.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ChecksumInputStream extends FilterInputStream
+{
+    /** The number of bytes held back, enough for the checksum comment in any charset, e.g. 76 bytes in UTF-32 */
+    private static final int WINDOW_SIZE = 128;
+
+    /** The value of the checksum comment, which must be the last line */
+    private static final Pattern LAST_LINE = Pattern.compile( "([^\\r\\n]*)(\\r\\n|\\r|\\n)?" ); //$NON-NLS-1$
+
+    /** The charset of the stream */
+    private Charset charset;
+
+    /** The encoded prefix of the checksum comment */
+    private byte[] checksumPrefix;
+
+    /** The encoded line feed */
+    private byte[] lineFeed;
+
+    /** The checksum of the bytes before the window */
+    private CRC32 crc = new CRC32();
+
+    /** The last bytes read */
+    private byte[] window = new byte[WINDOW_SIZE];
+
+    /** The number of bytes in the window */
+    private int windowLength;
+
+    /** Flag indicating that the end of the stream was reached */
+    private boolean eof;
+
+
+    /**
+     * Creates a new instance of ChecksumInputStream for a stream in an ASCII
+     * compatible charset.
+     *
+     * @param in the underlying input stream
+     */
+    public ChecksumInputStream( InputStream in )
+    {
+        this( in, StandardCharsets.ISO_8859_1 );
+    }
+
+
+    /**
+     * Creates a new instance of ChecksumInputStream.
+     *
+     * @param in the underlying input stream
+     * @param charset the charset the stream was written with
+     */
+    public ChecksumInputStream( InputStream in, Charset charset )
+    {
+        super( in );
+        this.charset = charset;
+        this.checksumPrefix = encode( FileStreams.CHECKSUM_PREFIX, charset );
+        this.lineFeed = encode( "\n", charset ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Encodes the given text, without the byte order mark some charsets
+     * write at the start of a stream.
+     */
+    private static byte[] encode( String text, Charset charset )
+    {
+        int markLength = "#".getBytes( charset ).length; //$NON-NLS-1$
+        byte[] bytes = ( "#" + text ).getBytes( charset ); //$NON-NLS-1$
+        return Arrays.copyOfRange( bytes, markLength, bytes.length );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int read() throws IOException
+    {
+        int b = super.read();
+        if ( b == -1 )
+        {
+            eof = true;
+        }
+        else
+        {
+            update( new byte[]
+                { ( byte ) b }, 0, 1 );
+        }
+        return b;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int read( byte[] b, int off, int len ) throws IOException
+    {
+        int n = super.read( b, off, len );
+        if ( n == -1 )
+        {
+            eof = true;
+        }
+        else
+        {
+            update( b, off, n );
+        }
+        return n;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public long skip( long n ) throws IOException
+    {
+        // skipped bytes must be added to the checksum too
+        byte[] buffer = new byte[( int ) Math.min( n, 8192 )];
+        long skipped = 0;
+        while ( skipped < n )
+        {
+            int count = read( buffer, 0, ( int ) Math.min( n - skipped, buffer.length ) );
+            if ( count == -1 )
+            {
+                break;
+            }
+            skipped += count;
+        }
+        return skipped;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean markSupported()
+    {
+        return false;
+    }
+
+
+    /**
+     * Adds the read bytes to the window, the bytes that leave the window
+     * are added to the checksum.
+     */
+    private void update( byte[] b, int off, int len )
+    {
+        int overflow = windowLength + len - WINDOW_SIZE;
+        if ( overflow > 0 )
+        {
+            int fromWindow = Math.min( overflow, windowLength );
+            int fromInput = overflow - fromWindow;
+            crc.update( window, 0, fromWindow );
+            crc.update( b, off, fromInput );
+            System.arraycopy( window, fromWindow, window, 0, windowLength - fromWindow );
+            windowLength -= fromWindow;
+            System.arraycopy( b, off + fromInput, window, windowLength, len - fromInput );
+            windowLength += len - fromInput;
+        }
+        else
+        {
+            System.arraycopy( b, off, window, windowLength, len );
+            windowLength += len;
+        }
+    }
+
+
+    /**
+     * Verifies the checksum. Must be called after the whole stream was read.
+     *
+     * @return {@link Boolean#TRUE} if the checksum matches, {@link Boolean#FALSE} if it
+     *         doesn't match or can't be read, null if the end of the stream wasn't reached 
+     *         or the last line of the stream isn't a checksum comment
+     */
+    public Boolean verifyChecksum()
+    {
+        if ( !eof )
+        {
+            return null;
+        }
+
+        int pos = lastIndexOf( checksumPrefix );
+        if ( pos < 0 || ( pos > 0 && !regionEquals( pos - lineFeed.length, lineFeed ) ) )
+        {
+            return null;
+        }
+
+        // a checksum comment followed by other lines is an ordinary comment
+        int valueOffset = pos + checksumPrefix.length;
+        Matcher matcher = LAST_LINE.matcher( new String( window, valueOffset, windowLength - valueOffset, charset ) );
+        if ( !matcher.matches() )
+        {
+            return null;
+        }
+
+        long expected;
+        try
+        {
+            expected = Long.parseLong( matcher.group( 1 ).trim(), 16 );
+        }
+        catch ( NumberFormatException e )
+        {
+            // a checksum comment that can't be read can't be trusted
+            return Boolean.FALSE;
+        }
+
+        // add the remaining bytes before the checksum comment, only once
+        crc.update( window, 0, pos );
+        System.arraycopy( window, pos, window, 0, windowLength - pos );
+        windowLength -= pos;
+
+        return Boolean.valueOf( crc.getValue() == expected );
+    }
+
+
+    /**
+     * Gets the position of the last occurrence of the given bytes in the window.
+     *
+     * @return the position, -1 if not found
+     */
+    private int lastIndexOf( byte[] bytes )
+    {
+        for ( int pos = windowLength - bytes.length; pos >= 0; pos-- )
+        {
+            if ( regionEquals( pos, bytes ) )
+            {
+                return pos;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Checks if the window contains the given bytes at the given position.
+     */
+    private boolean regionEquals( int pos, byte[] bytes )
+    {
+        if ( pos < 0 || pos + bytes.length > windowLength )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            if ( window[pos + i] != bytes[i] )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
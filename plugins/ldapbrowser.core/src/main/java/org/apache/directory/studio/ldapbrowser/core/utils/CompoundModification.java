@@ -328,6 +328,10 @@ public class CompoundModification
                 IValue newValue = new Value( newAttribute, value.getRawValue() );
                 newAttribute.addValue( newValue );
             }
+            if ( attribute.hasMoreValues() )
+            {
+                newAttribute.setNextRangeLow( attribute.getNextRangeLow() );
+            }
             toEntry.addAttribute( newAttribute );
         }
         EventRegistry.resumeEventFiringInCurrentThread();
@@ -337,6 +341,46 @@ public class CompoundModification
     }
 
 
+    /**
+     * Appends the values of the 1st attribute, starting at the given index, to the
+     * attribute with the same description of the given entry and copies the 
+     * incremental range retrieval state. Used to take over further values fetched 
+     * for a partially fetched attribute, so the values are not recorded in the 
+     * change journal of the entry. No event is fired.
+     *
+     * @param fromAttribute the attribute with the fetched values
+     * @param fromIndex the index of the first fetched value
+     * @param toEntry the entry
+     */
+    public void appendFetchedValues( IAttribute fromAttribute, int fromIndex, IEntry toEntry )
+    {
+        IAttribute toAttribute = toEntry.getAttribute( fromAttribute.getDescription() );
+        if ( toAttribute == null )
+        {
+            // the attribute has been deleted from the entry
+            return;
+        }
+
+        EntryChangeJournal journal = EntryChangeJournal.getJournal( toEntry );
+        EntryChangeJournal.detach( toEntry );
+        EventRegistry.suspendEventFiringInCurrentThread();
+        try
+        {
+            IValue[] values = fromAttribute.getValues();
+            for ( int i = fromIndex; i < values.length; i++ )
+            {
+                toAttribute.addValue( new Value( toAttribute, values[i].getRawValue() ) );
+            }
+            toAttribute.setNextRangeLow( fromAttribute.getNextRangeLow() );
+        }
+        finally
+        {
+            EventRegistry.resumeEventFiringInCurrentThread();
+            EntryChangeJournal.attach( toEntry, journal );
+        }
+    }
+
+
     /**
      * Clones an entry, no event is fired.
      * 
@@ -352,6 +396,17 @@ public class CompoundModification
             IBrowserConnection browserConnection = entry.getBrowserConnection();
             LdifContentRecord record = ModelConverter.entryToLdifContentRecord( entry );
             IEntry clonedEntry = ModelConverter.ldifContentRecordToEntry( record, browserConnection );
+
+            // keep the incremental range retrieval state of partially fetched attributes
+            for ( IAttribute attribute : entry.getAttributes() )
+            {
+                IAttribute clonedAttribute = clonedEntry.getAttribute( attribute.getDescription() );
+                if ( attribute.hasMoreValues() && clonedAttribute != null )
+                {
+                    clonedAttribute.setNextRangeLow( attribute.getNextRangeLow() );
+                }
+            }
+
             return clonedEntry;
         }
         catch ( LdapInvalidDnException e )
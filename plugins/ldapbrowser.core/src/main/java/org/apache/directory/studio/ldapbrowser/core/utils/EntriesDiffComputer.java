@@ -0,0 +1,338 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.ldif.ChangeType;
+import org.apache.directory.api.ldap.model.ldif.LdifEntry;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.name.Rdn;
+
+
+/**
+ * Computes the modifications between two sets of entries, e.g. the
+ * original and the modified content of a configuration partition.
+ * 
+ * Both sets are read as streams in {@link #DN_ORDER} and merged on the
+ * normalized Dn of the entries, so the cost is linear in the number of
+ * entries and only the current entry of each stream is held in memory.
+ * A subtree is streamed in this order by {@link #readSubtree(Entry, ChildEntriesReader)}.
+ * The comparison of two entries with the same Dn is delegated to an
+ * {@link EntryComparator}, as each server has its own rules how to modify
+ * attributes.
+ * 
+ * The returned modifications are ordered so that they could be applied
+ * one after the other: deletions first, leaf entries before their parents,
+ * then the modifications, then the additions, parent entries before their
+ * children.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class EntriesDiffComputer
+{
+    /**
+     * Compares two entries with the same Dn.
+     */
+    public interface EntryComparator
+    {
+        /**
+         * Compares the two given entries and adds the modifications to the modification entry.
+         *
+         * @param originalEntry the original entry
+         * @param modifiedEntry the modified entry
+         * @param modificationEntry the modification LDIF entry holding the modifications between both entries
+         * @throws LdapException if the modifications could not be created
+         */
+        void compareEntries( Entry originalEntry, Entry modifiedEntry, LdifEntry modificationEntry )
+            throws LdapException;
+    }
+
+    /**
+     * A stream of entries in {@link EntriesDiffComputer#DN_ORDER}.
+     */
+    public interface EntryStream
+    {
+        /**
+         * Gets the next entry.
+         *
+         * @return the next entry, null if there are no more entries
+         * @throws LdapException if the entry could not be read
+         */
+        Entry next() throws LdapException;
+    }
+
+    /**
+     * Reads the child entries of an entry, e.g. with a one level search.
+     */
+    public interface ChildEntriesReader
+    {
+        /**
+         * Reads the child entries of the given entry.
+         *
+         * @param dn the Dn of the parent entry
+         * @return the child entries, in any order
+         * @throws LdapException if the child entries could not be read
+         */
+        List<Entry> readChildEntries( Dn dn ) throws LdapException;
+    }
+
+    /**
+     * Orders the Dns hierarchically: the Rdns are compared by their normalized name
+     * starting at the root, a parent is ordered before its children and all descendants
+     * of an entry are ordered before its next sibling.
+     */
+    public static final Comparator<Dn> DN_ORDER = new Comparator<Dn>()
+    {
+        @Override
+        public int compare( Dn dn1, Dn dn2 )
+        {
+            List<Rdn> rdns1 = dn1.getRdns();
+            List<Rdn> rdns2 = dn2.getRdns();
+            int size = Math.min( rdns1.size(), rdns2.size() );
+
+            // The Rdns are stored from the leaf to the root
+            for ( int i = 1; i <= size; i++ )
+            {
+                int result = rdns1.get( rdns1.size() - i ).getNormName().compareTo(
+                    rdns2.get( rdns2.size() - i ).getNormName() );
+
+                if ( result != 0 )
+                {
+                    return result;
+                }
+            }
+
+            return Integer.compare( rdns1.size(), rdns2.size() );
+        }
+    };
+
+    /** Orders the entries by their Dn */
+    private static final Comparator<Entry> ENTRY_ORDER = new Comparator<Entry>()
+    {
+        @Override
+        public int compare( Entry entry1, Entry entry2 )
+        {
+            return DN_ORDER.compare( entry1.getDn(), entry2.getDn() );
+        }
+    };
+
+
+    private EntriesDiffComputer()
+    {
+        // Nothing to do
+    }
+
+
+    /**
+     * Computes the modifications needed to transform the original entries into the modified entries.
+     *
+     * @param originalEntries the original entries, in {@link #DN_ORDER}
+     * @param modifiedEntries the modified entries, in {@link #DN_ORDER}
+     * @param entryComparator the comparator for entries existing in both sets
+     * @return the list of LDIF deletions, modifications and additions
+     * @throws LdapException if the modifications could not be created
+     */
+    public static List<LdifEntry> computeModifications( Iterable<Entry> originalEntries,
+        Iterable<Entry> modifiedEntries, EntryComparator entryComparator ) throws LdapException
+    {
+        return computeModifications( toStream( originalEntries ), toStream( modifiedEntries ), entryComparator );
+    }
+
+
+    /**
+     * Computes the modifications needed to transform the original entries into the modified entries.
+     *
+     * @param originalEntries the original entries, in {@link #DN_ORDER}
+     * @param modifiedEntries the modified entries, in {@link #DN_ORDER}
+     * @param entryComparator the comparator for entries existing in both sets
+     * @return the list of LDIF deletions, modifications and additions
+     * @throws LdapException if the entries could not be read or the modifications could not be created
+     */
+    public static List<LdifEntry> computeModifications( EntryStream originalEntries, EntryStream modifiedEntries,
+        EntryComparator entryComparator ) throws LdapException
+    {
+        List<LdifEntry> deletions = new ArrayList<>();
+        List<LdifEntry> modifications = new ArrayList<>();
+        List<LdifEntry> additions = new ArrayList<>();
+
+        Entry originalEntry = originalEntries.next();
+        Entry modifiedEntry = modifiedEntries.next();
+
+        // Merging both streams, the stream with the lower Dn is advanced
+        while ( originalEntry != null || modifiedEntry != null )
+        {
+            int result;
+
+            if ( originalEntry == null )
+            {
+                result = 1;
+            }
+            else if ( modifiedEntry == null )
+            {
+                result = -1;
+            }
+            else
+            {
+                result = DN_ORDER.compare( originalEntry.getDn(), modifiedEntry.getDn() );
+            }
+
+            if ( result < 0 )
+            {
+                // The entry is no longer present in the modified entries
+                LdifEntry modificationEntry = new LdifEntry();
+                modificationEntry.setDn( originalEntry.getDn() );
+                modificationEntry.setChangeType( ChangeType.Delete );
+                deletions.add( modificationEntry );
+
+                originalEntry = originalEntries.next();
+            }
+            else if ( result > 0 )
+            {
+                // The entry doesn't exist in the original entries
+                LdifEntry modificationEntry = new LdifEntry();
+                modificationEntry.setDn( modifiedEntry.getDn() );
+                modificationEntry.setChangeType( ChangeType.Add );
+
+                for ( Attribute attribute : modifiedEntry )
+                {
+                    modificationEntry.addAttribute( attribute );
+                }
+
+                additions.add( modificationEntry );
+
+                modifiedEntry = modifiedEntries.next();
+            }
+            else
+            {
+                LdifEntry modificationEntry = new LdifEntry();
+                modificationEntry.setDn( originalEntry.getDn() );
+                modificationEntry.setChangeType( ChangeType.Modify );
+                entryComparator.compareEntries( originalEntry, modifiedEntry, modificationEntry );
+
+                if ( !modificationEntry.getModifications().isEmpty() )
+                {
+                    modifications.add( modificationEntry );
+                }
+
+                originalEntry = originalEntries.next();
+                modifiedEntry = modifiedEntries.next();
+            }
+        }
+
+        // The additions are already ordered parents first, the children are deleted before their parent
+        Collections.reverse( deletions );
+
+        List<LdifEntry> result = new ArrayList<>( deletions.size() + modifications.size() + additions.size() );
+        result.addAll( deletions );
+        result.addAll( modifications );
+        result.addAll( additions );
+
+        return result;
+    }
+
+
+    /**
+     * Streams the given entry and all its descendants in {@link #DN_ORDER}. The
+     * child entries are read when their parent is returned, only the child entries
+     * of the entries on the path to the current entry are held in memory.
+     *
+     * @param baseEntry the base entry
+     * @param childEntriesReader the reader for the child entries
+     * @return the stream of the entries of the subtree
+     */
+    public static EntryStream readSubtree( final Entry baseEntry, final ChildEntriesReader childEntriesReader )
+    {
+        return new EntryStream()
+        {
+            /** The not yet returned child entries of each level, the deepest level on top */
+            private final Deque<Iterator<Entry>> levels = new ArrayDeque<>();
+
+            private boolean baseEntryReturned;
+
+
+            @Override
+            public Entry next() throws LdapException
+            {
+                Entry entry;
+
+                if ( !baseEntryReturned )
+                {
+                    entry = baseEntry;
+                    baseEntryReturned = true;
+                }
+                else
+                {
+                    while ( !levels.isEmpty() && !levels.peek().hasNext() )
+                    {
+                        levels.pop();
+                    }
+
+                    if ( levels.isEmpty() )
+                    {
+                        return null;
+                    }
+
+                    entry = levels.peek().next();
+                }
+
+                // The child entries are returned before the next sibling
+                List<Entry> childEntries = childEntriesReader.readChildEntries( entry.getDn() );
+
+                if ( !childEntries.isEmpty() )
+                {
+                    childEntries.sort( ENTRY_ORDER );
+                    levels.push( childEntries.iterator() );
+                }
+
+                return entry;
+            }
+        };
+    }
+
+
+    /**
+     * Wraps the given entries into a stream.
+     */
+    private static EntryStream toStream( Iterable<Entry> entries )
+    {
+        final Iterator<Entry> iterator = entries.iterator();
+
+        return new EntryStream()
+        {
+            @Override
+            public Entry next()
+            {
+                return iterator.hasNext() ? iterator.next() : null;
+            }
+        };
+    }
+}
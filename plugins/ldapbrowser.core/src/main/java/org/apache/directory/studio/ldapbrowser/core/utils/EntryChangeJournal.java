@@ -0,0 +1,317 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+
+
+/**
+ * A journal of the value operations applied to a working copy of an entry.
+ * 
+ * The journal is attached to a {@link DummyEntry} and fed by the attributes
+ * of that entry whenever a value is added or deleted. The operations are
+ * compacted as they are recorded: adding a value and deleting it again
+ * cancel each other out. So checking if the working copy has been modified
+ * doesn't need to compare all values of the working copy with the values
+ * of the reference copy, and the modifications could be built directly from
+ * the values added and deleted in the meantime.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class EntryChangeJournal
+{
+
+    /** The net changes per attribute, the key is the lower-cased attribute description */
+    private Map<String, AttributeChanges> attributeChangesMap = new LinkedHashMap<>();
+
+    /** The number of values with a non-zero net change */
+    private int pendingChangeCount;
+
+
+    /**
+     * Attaches a new, empty journal to the given entry.
+     *
+     * @param entry the entry
+     * @return the attached journal, null if the entry doesn't support journals
+     */
+    public static EntryChangeJournal attach( IEntry entry )
+    {
+        if ( entry instanceof DummyEntry )
+        {
+            EntryChangeJournal journal = new EntryChangeJournal();
+            ( ( DummyEntry ) entry ).setChangeJournal( journal );
+
+            return journal;
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Attaches the given journal to the given entry, e.g. to continue
+     * recording after modifications that must not be recorded.
+     *
+     * @param entry the entry
+     * @param journal the journal, null to detach the journal
+     */
+    public static void attach( IEntry entry, EntryChangeJournal journal )
+    {
+        if ( entry instanceof DummyEntry )
+        {
+            ( ( DummyEntry ) entry ).setChangeJournal( journal );
+        }
+    }
+
+
+    /**
+     * Detaches the journal from the given entry, further modifications
+     * of the entry are not recorded.
+     *
+     * @param entry the entry
+     */
+    public static void detach( IEntry entry )
+    {
+        if ( entry instanceof DummyEntry )
+        {
+            ( ( DummyEntry ) entry ).setChangeJournal( null );
+        }
+    }
+
+
+    /**
+     * Gets the journal attached to the given entry.
+     *
+     * @param entry the entry
+     * @return the journal, null if no journal is attached to the entry
+     */
+    public static EntryChangeJournal getJournal( IEntry entry )
+    {
+        if ( entry instanceof DummyEntry )
+        {
+            return ( ( DummyEntry ) entry ).getChangeJournal();
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Records that the given value has been added to its attribute.
+     *
+     * @param value the added value
+     */
+    public synchronized void valueAdded( IValue value )
+    {
+        record( value, 1 );
+    }
+
+
+    /**
+     * Records that the given value has been deleted from its attribute.
+     *
+     * @param value the deleted value
+     */
+    public synchronized void valueDeleted( IValue value )
+    {
+        record( value, -1 );
+    }
+
+
+    /**
+     * Records that the given attribute, including all its values,
+     * has been deleted from the entry.
+     *
+     * @param attribute the deleted attribute
+     */
+    public synchronized void attributeDeleted( IAttribute attribute )
+    {
+        for ( IValue value : attribute.getValues() )
+        {
+            record( value, -1 );
+        }
+    }
+
+
+    /**
+     * Checks if the journal contains any changes.
+     *
+     * @return true if the entry has been modified since the journal has been attached or cleared
+     */
+    public synchronized boolean hasChanges()
+    {
+        return pendingChangeCount > 0;
+    }
+
+
+    /**
+     * Gets the descriptions of the modified attributes.
+     *
+     * @return the descriptions of the modified attributes, in the order of their first modification
+     */
+    public synchronized Collection<String> getModifiedAttributeDescriptions()
+    {
+        List<String> attributeDescriptions = new ArrayList<>();
+
+        for ( AttributeChanges attributeChanges : attributeChangesMap.values() )
+        {
+            attributeDescriptions.add( attributeChanges.attributeDescription );
+        }
+
+        return attributeDescriptions;
+    }
+
+
+    /**
+     * Gets the values added to the given attribute.
+     *
+     * @param attributeDescription the attribute description
+     * @return the values added to the attribute and not deleted again, in the order of their addition
+     */
+    public synchronized List<LdifAttrValLine> getAddedValues( String attributeDescription )
+    {
+        return getValues( attributeDescription, true );
+    }
+
+
+    /**
+     * Gets the values deleted from the given attribute.
+     *
+     * @param attributeDescription the attribute description
+     * @return the values deleted from the attribute and not added again, in the order of their deletion
+     */
+    public synchronized List<LdifAttrValLine> getDeletedValues( String attributeDescription )
+    {
+        return getValues( attributeDescription, false );
+    }
+
+
+    /**
+     * Clears the journal, e.g. after the modifications have been saved.
+     */
+    public synchronized void clear()
+    {
+        attributeChangesMap.clear();
+        pendingChangeCount = 0;
+    }
+
+
+    private List<LdifAttrValLine> getValues( String attributeDescription, boolean added )
+    {
+        List<LdifAttrValLine> values = new ArrayList<>();
+        AttributeChanges attributeChanges = attributeChangesMap.get( Strings.toLowerCase( attributeDescription ) );
+
+        if ( attributeChanges != null )
+        {
+            for ( Map.Entry<String, Integer> entry : attributeChanges.netChanges.entrySet() )
+            {
+                if ( ( entry.getValue() > 0 ) == added )
+                {
+                    values.add( attributeChanges.attrValLines.get( entry.getKey() ) );
+                }
+            }
+        }
+
+        return values;
+    }
+
+
+    /**
+     * Records a value operation and compacts it with the previous operations
+     * on the same value.
+     *
+     * @param value the value
+     * @param delta 1 if the value has been added, -1 if it has been deleted
+     */
+    private void record( IValue value, int delta )
+    {
+        String attributeDescription = value.getAttribute().getDescription();
+        String attributeKey = Strings.toLowerCase( attributeDescription );
+        AttributeChanges attributeChanges = attributeChangesMap.get( attributeKey );
+
+        if ( attributeChanges == null )
+        {
+            attributeChanges = new AttributeChanges( attributeDescription );
+            attributeChangesMap.put( attributeKey, attributeChanges );
+        }
+
+        // use the same representation as the diff to get the same equality of values
+        LdifAttrValLine attrValLine = Utils.computeDiffCreateAttrValLine( value );
+        String valueKey = attrValLine.getUnfoldedValue();
+        Integer oldCount = attributeChanges.netChanges.get( valueKey );
+        int newCount = ( oldCount == null ? 0 : oldCount ) + delta;
+
+        if ( newCount == 0 )
+        {
+            attributeChanges.netChanges.remove( valueKey );
+            attributeChanges.attrValLines.remove( valueKey );
+            pendingChangeCount--;
+
+            if ( attributeChanges.netChanges.isEmpty() )
+            {
+                attributeChangesMap.remove( attributeKey );
+            }
+        }
+        else
+        {
+            attributeChanges.netChanges.put( valueKey, newCount );
+
+            if ( oldCount == null )
+            {
+                attributeChanges.attrValLines.put( valueKey, attrValLine );
+                pendingChangeCount++;
+            }
+        }
+    }
+
+    /**
+     * The net changes of the values of one attribute.
+     */
+    private static class AttributeChanges
+    {
+        /** The attribute description */
+        private String attributeDescription;
+
+        /** The net number of additions per value */
+        private Map<String, Integer> netChanges = new LinkedHashMap<>();
+
+        /** The LDIF lines of the values with a net change */
+        private Map<String, LdifAttrValLine> attrValLines = new LinkedHashMap<>();
+
+
+        private AttributeChanges( String attributeDescription )
+        {
+            this.attributeDescription = attributeDescription;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * Opens the streams of export and import files. Files with the .gz extension are
+ * written gzip compressed, compressed files are detected by their magic bytes
+ * when read. Large buffers are used to reduce the number of I/O operations.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class FileStreams
+{
+    /** The file extension of gzip compressed files */
+    public static final String GZIP_EXTENSION = ".gz"; //$NON-NLS-1$
+
+    /** The prefix of the trailing checksum comment of LDIF files */
+    public static final String CHECKSUM_PREFIX = "# CRC32: "; //$NON-NLS-1$
+
+    /** The size of the file buffers */
+    private static final int FILE_BUFFER_SIZE = 1024 * 1024;
+
+    /** The size of the compression and character buffers */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+
+    private FileStreams()
+    {
+    }
+
+
+    /**
+     * Checks if the given file is written gzip compressed.
+     *
+     * @param file the file
+     * @return true if the file name ends with .gz
+     */
+    public static boolean isCompressed( File file )
+    {
+        return Strings.toLowerCase( file.getName() ).endsWith( GZIP_EXTENSION );
+    }
+
+
+    /**
+     * Opens an output stream to the given file, gzip compressed if the file name
+     * ends with .gz.
+     *
+     * @param file the file
+     * @return the output stream
+     * @throws IOException if the file can't be opened
+     */
+    public static OutputStream newOutputStream( File file ) throws IOException
+    {
+        OutputStream out = new BufferedOutputStream( new FileOutputStream( file ), FILE_BUFFER_SIZE );
+        if ( isCompressed( file ) )
+        {
+            out = new GZIPOutputStream( out, BUFFER_SIZE );
+        }
+        return out;
+    }
+
+
+    /**
+     * Opens an input stream from the given file, decompressed if the file starts
+     * with the gzip magic bytes.
+     *
+     * @param file the file
+     * @return the input stream
+     * @throws IOException if the file can't be opened
+     */
+    public static InputStream newInputStream( File file ) throws IOException
+    {
+        InputStream in = new BufferedInputStream( new FileInputStream( file ), FILE_BUFFER_SIZE );
+        in.mark( 2 );
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+
+        if ( b1 == ( GZIPInputStream.GZIP_MAGIC & 0xff ) && b2 == ( GZIPInputStream.GZIP_MAGIC >> 8 ) )
+        {
+            in = new BufferedInputStream( new GZIPInputStream( in, BUFFER_SIZE ), BUFFER_SIZE );
+        }
+        return in;
+    }
+
+
+    /**
+     * Opens a writer to the given file, gzip compressed if the file name ends with .gz.
+     *
+     * @param file the file
+     * @param encoding the encoding
+     * @return the writer
+     * @throws IOException if the file can't be opened
+     */
+    public static Writer newWriter( File file, String encoding ) throws IOException
+    {
+        return new BufferedWriter( new OutputStreamWriter( newOutputStream( file ), encoding ), BUFFER_SIZE );
+    }
+
+
+    /**
+     * Opens a writer to the given LDIF file, gzip compressed if the file name ends
+     * with .gz. If requested the CRC32 checksum of the written content is appended
+     * as comment when the writer is closed, see {@link ChecksumInputStream}.
+     *
+     * @param file the file
+     * @param encoding the encoding
+     * @param lineSeparator the line separator
+     * @param checksum true to append the checksum comment
+     * @return the writer
+     * @throws IOException if the file can't be opened
+     */
+    public static Writer newLdifWriter( File file, String encoding, final String lineSeparator, boolean checksum )
+        throws IOException
+    {
+        if ( !checksum )
+        {
+            return newWriter( file, encoding );
+        }
+
+        final CheckedOutputStream out = new CheckedOutputStream( newOutputStream( file ), new CRC32() );
+        return new BufferedWriter( new OutputStreamWriter( out, encoding ), BUFFER_SIZE )
+        {
+            private boolean checksumWritten;
+
+
+            public void close() throws IOException
+            {
+                if ( !checksumWritten )
+                {
+                    checksumWritten = true;
+                    flush();
+                    write( CHECKSUM_PREFIX + String.format( "%08x", out.getChecksum().getValue() ) //$NON-NLS-1$
+                        + lineSeparator );
+                }
+                super.close();
+            }
+        };
+    }
+}
@@ -0,0 +1,226 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import java.io.IOException;
+import java.io.Writer;
+
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Value;
+import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.LdifUtils;
+import org.apache.directory.studio.ldifparser.model.lines.LdifVersionLine;
+
+
+/**
+ * Writes entries received from the directory as LDIF content records directly
+ * to a {@link Writer}, without creating intermediate LDIF model objects.
+ * <p>
+ * The attributes and values are sorted by the {@link AttributeComparator} and
+ * binary values are detected by the schema, so the output is the same as the one 
+ * of the sorted and formatted content record. Values are base64 encoded if required
+ * and lines are folded while writing.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class LdifEntryWriter
+{
+    /** The writer */
+    private Writer writer;
+
+    /** The browser connection */
+    private IBrowserConnection browserConnection;
+
+    /** The LDIF format parameters */
+    private LdifFormatParameters formatParameters;
+
+    /** The separator between attribute description and value */
+    private String colon;
+
+    /** The separator between attribute description and base64 encoded value */
+    private String doubleColon;
+
+    /** The column of the current line, used for folding */
+    private int column;
+
+
+    /**
+     * Creates a new instance of LdifEntryWriter.
+     *
+     * @param writer the writer
+     * @param browserConnection the browser connection, its schema is used to sort the attributes 
+     *      and to detect binary attributes
+     * @param formatParameters the LDIF format parameters
+     */
+    public LdifEntryWriter( Writer writer, IBrowserConnection browserConnection,
+        LdifFormatParameters formatParameters )
+    {
+        this.writer = writer;
+        this.browserConnection = browserConnection;
+        this.formatParameters = formatParameters;
+        this.colon = formatParameters.isSpaceAfterColon() ? ": " : ":"; //$NON-NLS-1$ //$NON-NLS-2$
+        this.doubleColon = formatParameters.isSpaceAfterColon() ? ":: " : "::"; //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    /**
+     * Writes the version line, followed by an empty line.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeVersionLine() throws IOException
+    {
+        writer.write( LdifVersionLine.create().toFormattedString( formatParameters ) );
+        writer.write( formatParameters.getLineSeparator() );
+    }
+
+
+    /**
+     * Writes the given entry as LDIF content record, followed by an empty line.
+     *
+     * @param entry the entry
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public void writeEntry( Entry entry ) throws IOException
+    {
+        String dn = entry.getDn().getName();
+        if ( LdifUtils.mustEncode( dn ) )
+        {
+            writeLine( "dn", doubleColon, LdifUtils.base64encode( LdifUtils.utf8encode( dn ) ) ); //$NON-NLS-1$
+        }
+        else
+        {
+            writeLine( "dn", colon, dn ); //$NON-NLS-1$
+        }
+
+        for ( IValue value : AttributeComparator.toSortedValues( toDummyEntry( entry ) ) )
+        {
+            writeValue( value );
+        }
+
+        writer.write( formatParameters.getLineSeparator() );
+    }
+
+
+    /**
+     * Creates a {@link DummyEntry} from the given entry, it is used to sort the attributes
+     * and values and to detect binary values.
+     */
+    private DummyEntry toDummyEntry( Entry entry )
+    {
+        EventRegistry.suspendEventFiringInCurrentThread();
+
+        try
+        {
+            DummyEntry dummyEntry = new DummyEntry( entry.getDn(), browserConnection );
+
+            for ( org.apache.directory.api.ldap.model.entry.Attribute attribute : entry )
+            {
+                Attribute dummyAttribute = new Attribute( dummyEntry, attribute.getUpId() );
+                dummyEntry.addAttribute( dummyAttribute );
+
+                for ( org.apache.directory.api.ldap.model.entry.Value value : attribute )
+                {
+                    dummyAttribute.addValue( new Value( dummyAttribute, value.isHumanReadable() ? value.getString()
+                        : value.getBytes() ) );
+                }
+            }
+
+            return dummyEntry;
+        }
+        finally
+        {
+            EventRegistry.resumeEventFiringInCurrentThread();
+        }
+    }
+
+
+    private void writeValue( IValue value ) throws IOException
+    {
+        String description = value.getAttribute().getDescription();
+
+        if ( value.isString() )
+        {
+            String string = value.getStringValue();
+            if ( LdifUtils.mustEncode( string ) )
+            {
+                writeLine( description, doubleColon, LdifUtils.base64encode( LdifUtils.utf8encode( string ) ) );
+            }
+            else
+            {
+                writeLine( description, colon, string );
+            }
+        }
+        else
+        {
+            writeLine( description, doubleColon, LdifUtils.base64encode( value.getBinaryValue() ) );
+        }
+    }
+
+
+    /**
+     * Writes a line, folds it when it exceeds the line width.
+     */
+    private void writeLine( String description, String separator, String value ) throws IOException
+    {
+        column = 0;
+        write( description );
+        write( separator );
+        write( value );
+        writer.write( formatParameters.getLineSeparator() );
+    }
+
+
+    private void write( String s ) throws IOException
+    {
+        int lineWidth = formatParameters.getLineWidth();
+        if ( lineWidth < 2 )
+        {
+            writer.write( s );
+            return;
+        }
+
+        int start = 0;
+        int length = s.length();
+        while ( start < length )
+        {
+            if ( column >= lineWidth )
+            {
+                // continuation lines start with a space
+                writer.write( formatParameters.getLineSeparator() );
+                writer.write( ' ' );
+                column = 1;
+            }
+
+            int count = Math.min( length - start, lineWidth - column );
+            writer.write( s, start, count );
+            start += count;
+            column += count;
+        }
+    }
+}
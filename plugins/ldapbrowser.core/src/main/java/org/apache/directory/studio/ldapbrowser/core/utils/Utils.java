@@ -403,6 +403,38 @@ public class Utils
      */
     public static LdifFile computeDiff( IEntry oldEntry, IEntry newEntry )
     {
+        return computeDiff( oldEntry, newEntry, null );
+    }
+
+
+    /**
+     * Computes the difference between the old and the new entry, restricted
+     * to the given attributes, and returns an LDIF that could be applied to
+     * the old entry to get new entry. The values of all other attributes are
+     * not compared at all, the caller must know they are equal.
+     *
+     * @param oldEntry the old entry
+     * @param newEntry the new entry
+     * @param attributeDescriptionsToCompare the descriptions of the attributes to compare,
+     *        null to compare all attributes
+     * @return the change modify record or null if there is no difference
+     *         between the two entries
+     */
+    public static LdifFile computeDiff( IEntry oldEntry, IEntry newEntry,
+        Collection<String> attributeDescriptionsToCompare )
+    {
+        Set<String> attributeDescriptionsFilter = null;
+
+        if ( attributeDescriptionsToCompare != null )
+        {
+            attributeDescriptionsFilter = new HashSet<>();
+
+            for ( String attributeDescription : attributeDescriptionsToCompare )
+            {
+                attributeDescriptionsFilter.add( Strings.toLowerCase( attributeDescription ) );
+            }
+        }
+
         // get connection parameters
         ModifyMode modifyMode = oldEntry.getBrowserConnection().getModifyMode();
         ModifyMode modifyModeNoEMR = oldEntry.getBrowserConnection().getModifyModeNoEMR();
@@ -413,12 +445,20 @@ public class Utils
         
         for ( IAttribute oldAttr : oldEntry.getAttributes() )
         {
-            attributeDescriptions.add( oldAttr.getDescription() );
+            if ( ( attributeDescriptionsFilter == null )
+                || attributeDescriptionsFilter.contains( Strings.toLowerCase( oldAttr.getDescription() ) ) )
+            {
+                attributeDescriptions.add( oldAttr.getDescription() );
+            }
         }
         
         for ( IAttribute newAttr : newEntry.getAttributes() )
         {
-            attributeDescriptions.add( newAttr.getDescription() );
+            if ( ( attributeDescriptionsFilter == null )
+                || attributeDescriptionsFilter.contains( Strings.toLowerCase( newAttr.getDescription() ) ) )
+            {
+                attributeDescriptions.add( newAttr.getDescription() );
+            }
         }
 
         // prepare the LDIF record containing the modifications
@@ -447,6 +487,15 @@ public class Utils
 
             // get old an new values for comparison
             IAttribute oldAttribute = oldEntry.getAttribute( attributeDescription );
+
+            // the old attribute doesn't contain all values (incremental range retrieval):
+            // never replace, that would drop the values not fetched yet
+            boolean isPartial = oldAttribute != null && oldAttribute.hasMoreValues();
+            if ( isPartial )
+            {
+                isReplaceForced = false;
+                isAddDelForced = true;
+            }
             Set<String> oldValues = new HashSet<>();
             Map<String, LdifAttrValLine> oldAttrValLines = new LinkedHashMap<>();
             
@@ -485,6 +534,11 @@ public class Utils
                     // replace (empty value list)
                     modSpec = LdifModSpec.createReplace( attributeDescription );
                 }
+                else if ( isPartial )
+                {
+                    // delete the whole attribute, including the values not fetched yet
+                    modSpec = LdifModSpec.createDelete( attributeDescription );
+                }
                 else
                 // addDelForced or default
                 {
@@ -646,7 +700,167 @@ public class Utils
     }
 
 
-    private static LdifAttrValLine computeDiffCreateAttrValLine( IValue value )
+    /**
+     * Computes the difference between the old and the new entry from the
+     * values recorded in the change journal of the new entry. The values
+     * are not compared at all, only attributes that are replaced as a whole
+     * need to read the values of the new entry.
+     *
+     * @param oldEntry the old entry
+     * @param newEntry the new entry
+     * @param journal the change journal of the new entry, attached when the new entry was equal to the old entry
+     * @return the change modify record or null if there is no difference
+     *         between the two entries
+     */
+    public static LdifFile computeDiffFromJournal( IEntry oldEntry, IEntry newEntry, EntryChangeJournal journal )
+    {
+        // get connection parameters
+        ModifyMode modifyMode = oldEntry.getBrowserConnection().getModifyMode();
+        ModifyMode modifyModeNoEMR = oldEntry.getBrowserConnection().getModifyModeNoEMR();
+        ModifyOrder modifyAddDeleteOrder = oldEntry.getBrowserConnection().getModifyAddDeleteOrder();
+        Schema schema = oldEntry.getBrowserConnection().getSchema();
+
+        // prepare the LDIF record containing the modifications
+        LdifChangeModifyRecord record = new LdifChangeModifyRecord( LdifDnLine.create( newEntry.getDn().getName() ) );
+
+        if ( newEntry.isReferral() )
+        {
+            record.addControl( LdifControlLine.create( StudioControl.MANAGEDSAIT_CONTROL.getOid(),
+                StudioControl.MANAGEDSAIT_CONTROL.isCritical(), StudioControl.MANAGEDSAIT_CONTROL.getControlValue() ) );
+        }
+        record.setChangeType( LdifChangeTypeLine.createModify() );
+
+        for ( String attributeDescription : journal.getModifiedAttributeDescriptions() )
+        {
+            // get attribute type schema information
+            AttributeType atd = schema.getAttributeTypeDescription( attributeDescription );
+            boolean hasEMR = SchemaUtils.getEqualityMatchingRuleNameOrNumericOidTransitive( atd, schema ) != null;
+            boolean isReplaceForced = ( hasEMR && modifyMode == ModifyMode.REPLACE )
+                || ( !hasEMR && modifyModeNoEMR == ModifyMode.REPLACE );
+            boolean isAddDelForced = ( hasEMR && modifyMode == ModifyMode.ADD_DELETE )
+                || ( !hasEMR && modifyModeNoEMR == ModifyMode.ADD_DELETE );
+            boolean isOrderedValue = atd.getExtensions().containsKey( "X-ORDERED" ) //$NON-NLS-1$
+                && atd.getExtensions().get( "X-ORDERED" ).contains( "VALUES" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+            IAttribute oldAttribute = oldEntry.getAttribute( attributeDescription );
+            IAttribute newAttribute = newEntry.getAttribute( attributeDescription );
+
+            // the old attribute doesn't contain all values (incremental range retrieval):
+            // never replace, that would drop the values not fetched yet
+            boolean isPartial = oldAttribute != null && oldAttribute.hasMoreValues();
+            if ( isPartial )
+            {
+                isReplaceForced = false;
+                isAddDelForced = true;
+            }
+
+            List<LdifAttrValLine> toAdd = journal.getAddedValues( attributeDescription );
+            List<LdifAttrValLine> toDel = journal.getDeletedValues( attributeDescription );
+
+            if ( toAdd.isEmpty() && toDel.isEmpty() )
+            {
+                continue;
+            }
+
+            if ( oldAttribute != null && newAttribute == null )
+            {
+                // attribute only exists in the old entry: all values have been deleted
+                LdifModSpec modSpec;
+
+                if ( isReplaceForced )
+                {
+                    // replace (empty value list)
+                    modSpec = LdifModSpec.createReplace( attributeDescription );
+                }
+                else if ( isPartial )
+                {
+                    // delete the whole attribute, including the values not fetched yet
+                    modSpec = LdifModSpec.createDelete( attributeDescription );
+                }
+                else
+                // addDelForced or default
+                {
+                    // delete all
+                    modSpec = LdifModSpec.createDelete( attributeDescription );
+                    addAttrVals( modSpec, toDel );
+                }
+
+                modSpec.finish( LdifModSpecSepLine.create() );
+                record.addModSpec( modSpec );
+            }
+            else if ( oldAttribute == null && newAttribute != null )
+            {
+                // attribute only exists in the new entry: all values have been added
+                LdifModSpec modSpec = isReplaceForced ? LdifModSpec.createReplace( attributeDescription )
+                    : LdifModSpec.createAdd( attributeDescription );
+                addAttrVals( modSpec, toAdd );
+                modSpec.finish( LdifModSpecSepLine.create() );
+                record.addModSpec( modSpec );
+            }
+            else if ( oldAttribute != null && newAttribute != null )
+            {
+                if ( isReplaceForced || ( !isAddDelForced && isOrderedValue ) )
+                {
+                    // replace (all new values)
+                    LdifModSpec modSpec = LdifModSpec.createReplace( attributeDescription );
+
+                    for ( IValue value : newAttribute.getValues() )
+                    {
+                        modSpec.addAttrVal( computeDiffCreateAttrValLine( value ) );
+                    }
+
+                    modSpec.finish( LdifModSpecSepLine.create() );
+                    record.addModSpec( modSpec );
+                }
+                else
+                {
+                    // add/del del/add
+                    LdifModSpec addModSpec = LdifModSpec.createAdd( attributeDescription );
+                    addAttrVals( addModSpec, toAdd );
+                    addModSpec.finish( LdifModSpecSepLine.create() );
+                    LdifModSpec delModSpec = LdifModSpec.createDelete( attributeDescription );
+                    addAttrVals( delModSpec, toDel );
+                    delModSpec.finish( LdifModSpecSepLine.create() );
+
+                    LdifModSpec first = modifyAddDeleteOrder == ModifyOrder.DELETE_FIRST ? delModSpec : addModSpec;
+                    LdifModSpec second = first == delModSpec ? addModSpec : delModSpec;
+
+                    if ( first.getAttrVals().length > 0 )
+                    {
+                        record.addModSpec( first );
+                    }
+
+                    if ( second.getAttrVals().length > 0 )
+                    {
+                        record.addModSpec( second );
+                    }
+                }
+            }
+        }
+
+        record.finish( LdifSepLine.create() );
+
+        LdifFile model = new LdifFile();
+
+        if ( record.isValid() && record.getModSpecs().length > 0 )
+        {
+            model.addContainer( record );
+        }
+
+        return model.getRecords().length > 0 ? model : null;
+    }
+
+
+    private static void addAttrVals( LdifModSpec modSpec, List<LdifAttrValLine> attrValLines )
+    {
+        for ( LdifAttrValLine attrValLine : attrValLines )
+        {
+            modSpec.addAttrVal( attrValLine );
+        }
+    }
+
+
+    static LdifAttrValLine computeDiffCreateAttrValLine( IValue value )
     {
         IAttribute attribute = value.getAttribute();
         
@@ -0,0 +1,328 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.exception.LdapEntryAlreadyExistsException;
+import org.apache.directory.api.ldap.model.exception.LdapNoSuchObjectException;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ExecuteLdifRunnable.ExecuteLdifListener;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ExecuteLdifRunnable.RecordExecutor;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldifparser.model.container.LdifChangeAddRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifChangeDeleteRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
+import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class ExecuteLdifRunnableTest
+{
+    private static final String A = "cn=a,dc=example,dc=com";
+
+    private static final String B = "cn=b,dc=example,dc=com";
+
+    private static final String C = "cn=c,cn=a,dc=example,dc=com";
+
+    private static final String X = "cn=x,dc=example,dc=com";
+
+    private IBrowserConnection connection;
+
+    private StudioProgressMonitor monitor;
+
+    /** The DNs of the entries of the test directory */
+    private Set<String> entries;
+
+    /** The records in the order they are executed */
+    private List<LdifRecord> executedRecords;
+
+    /** The records in the order their results are reported */
+    private List<LdifRecord> reportedRecords;
+
+    /** The reported errors, null for successfully executed records */
+    private List<Exception> reportedErrors;
+
+    /** The threads that executed the records */
+    private Set<Thread> workerThreads;
+
+    private ExecuteLdifListener listener = new ExecuteLdifListener()
+    {
+        public void recordExecuted( LdifRecord record, Exception exception )
+        {
+            reportedRecords.add( record );
+            reportedErrors.add( exception );
+        }
+    };
+
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        connection = new DummyConnection( Schema.DEFAULT_SCHEMA );
+        monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+        entries = Collections.synchronizedSet( new HashSet<String>() );
+        executedRecords = Collections.synchronizedList( new ArrayList<LdifRecord>() );
+        reportedRecords = new ArrayList<LdifRecord>();
+        reportedErrors = new ArrayList<Exception>();
+        workerThreads = Collections.synchronizedSet( new HashSet<Thread>() );
+    }
+
+
+    @Test
+    public void testDependentRecordsAreExecutedInOrder() throws Exception
+    {
+        List<LdifContainer> containers = parse( add( A ) + modify( A ) + add( B ) + modify( B ) + add( C )
+            + modify( C ) + modify( A ) + delete( B ) );
+
+        ExecuteLdifRunnable.executeLdif( connection, containers, false, 4, listener, new TestDirectory(), monitor );
+
+        assertFalse( monitor.errorsReported() );
+        assertEquals( containers.size(), reportedRecords.size() );
+        for ( Exception exception : reportedErrors )
+        {
+            assertNull( exception );
+        }
+        assertEquals( new HashSet<String>( Arrays.asList( A, C ) ), entries );
+
+        // the records of the same entry or subtree are executed and reported in the LDIF order
+        assertInOrder( containers, executedRecords, A, C );
+        assertInOrder( containers, executedRecords, B );
+        assertInOrder( containers, reportedRecords, A, C );
+        assertInOrder( containers, reportedRecords, B );
+        assertWorkerThreadsTerminated();
+    }
+
+
+    @Test
+    public void testErrorsAreReportedForTheFailedRecords() throws Exception
+    {
+        List<LdifContainer> containers = parse( add( A ) + add( A ) + modify( A ) + modify( X ) + add( B ) );
+
+        ExecuteLdifRunnable.executeLdif( connection, containers, true, 4, listener, new TestDirectory(), monitor );
+
+        assertTrue( monitor.errorsReported() );
+        assertEquals( containers.size(), reportedRecords.size() );
+        assertInOrder( containers, reportedRecords, A );
+
+        // the second add of the same entry fails, the modify after it succeeds
+        assertNull( getReportedError( containers.get( 0 ) ) );
+        assertTrue( getReportedError( containers.get( 1 ) ) instanceof LdapEntryAlreadyExistsException );
+        assertNull( getReportedError( containers.get( 2 ) ) );
+        assertTrue( getReportedError( containers.get( 3 ) ) instanceof LdapNoSuchObjectException );
+        assertNull( getReportedError( containers.get( 4 ) ) );
+        assertWorkerThreadsTerminated();
+    }
+
+
+    @Test
+    public void testStopOnError() throws Exception
+    {
+        List<LdifContainer> containers = parse( modify( X ) + add( A ) + add( B ) );
+
+        ExecuteLdifRunnable.executeLdif( connection, containers, false, 1, listener, new TestDirectory(), monitor );
+
+        assertEquals( 1, executedRecords.size() );
+        assertEquals( 1, reportedRecords.size() );
+        assertSame( reportedErrors.get( 0 ), monitor.getException() );
+        assertTrue( monitor.getException() instanceof LdapNoSuchObjectException );
+        assertWorkerThreadsTerminated();
+    }
+
+
+    @Test
+    public void testCancel() throws Exception
+    {
+        List<LdifContainer> containers = parse( add( A ) + add( B ) + add( C ) );
+
+        ExecuteLdifRunnable.executeLdif( connection, containers, true, 1, listener, new TestDirectory()
+        {
+            public void execute( LdifRecord record, StudioProgressMonitor recordMonitor ) throws Exception
+            {
+                monitor.setCanceled( true );
+                super.execute( record, recordMonitor );
+            }
+        }, monitor );
+
+        // the executing record is finished and reported, no record is started after the cancellation
+        assertEquals( 1, executedRecords.size() );
+        assertEquals( executedRecords, reportedRecords );
+        assertWorkerThreadsTerminated();
+    }
+
+
+    @Test
+    public void testListenerError() throws Exception
+    {
+        List<LdifContainer> containers = parse( add( A ) + add( B ) + add( C ) );
+        final RuntimeException listenerError = new RuntimeException();
+
+        ExecuteLdifRunnable.executeLdif( connection, containers, true, 2, new ExecuteLdifListener()
+        {
+            public void recordExecuted( LdifRecord record, Exception exception )
+            {
+                throw listenerError;
+            }
+        }, new TestDirectory(), monitor );
+
+        assertSame( listenerError, monitor.getException() );
+        assertWorkerThreadsTerminated();
+    }
+
+
+    private static List<LdifContainer> parse( String ldif )
+    {
+        List<LdifContainer> records = new ArrayList<LdifContainer>();
+        for ( LdifContainer container : new LdifParser().parse( ldif ).getContainers() )
+        {
+            if ( container instanceof LdifRecord )
+            {
+                records.add( container );
+            }
+        }
+        return records;
+    }
+
+
+    private static String add( String dn )
+    {
+        return "dn: " + dn + "\nchangetype: add\nobjectClass: top\n\n";
+    }
+
+
+    private static String modify( String dn )
+    {
+        return "dn: " + dn + "\nchangetype: modify\nreplace: description\ndescription: " + dn + "\n-\n\n";
+    }
+
+
+    private static String delete( String dn )
+    {
+        return "dn: " + dn + "\nchangetype: delete\n\n";
+    }
+
+
+    private static String getDn( LdifRecord record )
+    {
+        return record.getDnLine().getValueAsString();
+    }
+
+
+    private Exception getReportedError( LdifContainer record )
+    {
+        return reportedErrors.get( reportedRecords.indexOf( record ) );
+    }
+
+
+    /**
+     * Asserts that the records of the given DNs appear in the LDIF order.
+     */
+    private static void assertInOrder( List<LdifContainer> containers, List<LdifRecord> records, String... dns )
+    {
+        List<String> dnList = Arrays.asList( dns );
+        List<LdifContainer> expected = new ArrayList<LdifContainer>();
+        for ( LdifContainer container : containers )
+        {
+            if ( container instanceof LdifRecord && dnList.contains( getDn( ( LdifRecord ) container ) ) )
+            {
+                expected.add( container );
+            }
+        }
+
+        List<LdifContainer> actual = new ArrayList<LdifContainer>();
+        synchronized ( records )
+        {
+            for ( LdifRecord record : records )
+            {
+                if ( dnList.contains( getDn( record ) ) )
+                {
+                    actual.add( record );
+                }
+            }
+        }
+
+        assertEquals( expected, actual );
+    }
+
+
+    /**
+     * Asserts that the threads of the executor are terminated.
+     */
+    private void assertWorkerThreadsTerminated() throws InterruptedException
+    {
+        assertFalse( workerThreads.isEmpty() );
+        for ( Thread thread : new ArrayList<Thread>( workerThreads ) )
+        {
+            thread.join( 5000 );
+            assertFalse( thread.isAlive() );
+        }
+    }
+
+    /**
+     * Executes the records against a set of DNs, an add is slow so that 
+     * a record of the same entry executed concurrently would fail.
+     */
+    private class TestDirectory implements RecordExecutor
+    {
+        public void execute( LdifRecord record, StudioProgressMonitor recordMonitor ) throws Exception
+        {
+            workerThreads.add( Thread.currentThread() );
+            executedRecords.add( record );
+            String dn = getDn( record );
+
+            if ( record instanceof LdifChangeAddRecord )
+            {
+                Thread.sleep( 20 );
+
+                if ( !entries.add( dn ) )
+                {
+                    throw new LdapEntryAlreadyExistsException( dn );
+                }
+            }
+            else if ( !entries.contains( dn ) )
+            {
+                throw new LdapNoSuchObjectException( dn );
+            }
+            else if ( record instanceof LdifChangeDeleteRecord )
+            {
+                entries.remove( dn );
+            }
+        }
+    }
+}
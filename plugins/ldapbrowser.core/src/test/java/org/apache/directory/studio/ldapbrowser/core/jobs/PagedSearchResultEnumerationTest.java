@@ -0,0 +1,307 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.Control;
+import org.apache.directory.api.ldap.model.message.controls.PagedResults;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Controls;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class PagedSearchResultEnumerationTest
+{
+    private static final int PAGE_SIZE = 5;
+
+    private SearchParameter parameter;
+
+    private PagedResults pagedResults;
+
+    private StudioProgressMonitor monitor;
+
+    /** All search results of all pages, in the order they are returned by the server */
+    private List<StudioSearchResult> results;
+
+    /** The pages returned by the server */
+    private List<TestPage> pages;
+
+    /** The progress monitors used to request the next pages */
+    private List<StudioProgressMonitor> prefetchMonitors;
+
+
+    @BeforeEach
+    public void setUp() throws Exception
+    {
+        pagedResults = Controls.newPagedResultsControl( PAGE_SIZE, null );
+        parameter = new SearchParameter();
+        parameter.setSearchBase( new Dn( "dc=example,dc=com" ) );
+        parameter.getControls().add( pagedResults );
+        monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+        results = Collections.synchronizedList( new ArrayList<StudioSearchResult>() );
+        pages = Collections.synchronizedList( new ArrayList<TestPage>() );
+        prefetchMonitors = Collections.synchronizedList( new ArrayList<StudioProgressMonitor>() );
+    }
+
+
+    @Test
+    public void testOrdering() throws Exception
+    {
+        PagedSearchResultEnumeration enumeration = createEnumeration( 4, 1 );
+
+        List<StudioSearchResult> consumed = new ArrayList<StudioSearchResult>();
+        while ( enumeration.hasMore() )
+        {
+            consumed.add( enumeration.next() );
+            // slow consumer, the prefetch is ahead
+            Thread.sleep( 2 );
+        }
+
+        assertEquals( 4 * PAGE_SIZE, consumed.size() );
+        assertEquals( results, consumed );
+        assertEquals( 4, pages.size() );
+        assertFalse( hasCookie( enumeration.getResponseControls() ) );
+        assertFalse( monitor.errorsReported() );
+
+        // the next pages are requested with an own progress monitor
+        for ( StudioProgressMonitor prefetchMonitor : prefetchMonitors )
+        {
+            assertTrue( prefetchMonitor != monitor );
+        }
+    }
+
+
+    @Test
+    public void testClose() throws Exception
+    {
+        PagedSearchResultEnumeration enumeration = createEnumeration( Integer.MAX_VALUE, 2 );
+
+        for ( int i = 0; i < PAGE_SIZE + 1; i++ )
+        {
+            assertTrue( enumeration.hasMore() );
+            assertSame( results.get( i ), enumeration.next() );
+        }
+
+        enumeration.close();
+
+        // the prefetch stops and closes the page it receives
+        assertTrue( waitForClosedPages() );
+        assertTrue( prefetchMonitors.get( 0 ).isCanceled() );
+        int requestedPages = pages.size();
+        Thread.sleep( 100 );
+        assertEquals( requestedPages, pages.size() );
+        assertFalse( enumeration.hasMore() );
+    }
+
+
+    @Test
+    public void testCancel() throws Exception
+    {
+        PagedSearchResultEnumeration enumeration = createEnumeration( Integer.MAX_VALUE, 2 );
+
+        assertTrue( enumeration.hasMore() );
+        assertSame( results.get( 0 ), enumeration.next() );
+        while ( prefetchMonitors.isEmpty() )
+        {
+            Thread.sleep( 10 );
+        }
+
+        monitor.setCanceled( true );
+
+        // the cancellation is propagated to the prefetch
+        assertTrue( waitForClosedPages() );
+        assertTrue( prefetchMonitors.get( 0 ).isCanceled() );
+        assertFalse( enumeration.hasMore() );
+    }
+
+
+    @Test
+    public void testErrorOfNextPage() throws Exception
+    {
+        final AtomicInteger requests = new AtomicInteger();
+        TestPage firstPage = createPage( true );
+        PagedSearchResultEnumeration enumeration = new PagedSearchResultEnumeration( null, parameter,
+            pagedResults, firstPage, 2, monitor )
+        {
+            StudioSearchResultEnumeration searchNextPage( SearchParameter nextPageParameter,
+                StudioProgressMonitor prefetchMonitor )
+            {
+                requests.incrementAndGet();
+                prefetchMonitor.reportError( new LdapException( "busy" ) );
+                return null;
+            }
+        };
+
+        // the results of the first page are returned before the error
+        for ( int i = 0; i < PAGE_SIZE; i++ )
+        {
+            assertTrue( enumeration.hasMore() );
+            assertSame( results.get( i ), enumeration.next() );
+        }
+        LdapException exception = assertThrows( LdapException.class, () -> enumeration.hasMore() );
+        assertEquals( "busy", exception.getMessage() );
+        assertEquals( 1, requests.get() );
+        assertFalse( monitor.errorsReported() );
+    }
+
+
+    /**
+     * Creates an enumeration receiving the given number of pages.
+     */
+    private PagedSearchResultEnumeration createEnumeration( final int pageCount, int prefetchDepth )
+    {
+        TestPage firstPage = createPage( pageCount > 1 );
+
+        return new PagedSearchResultEnumeration( null, parameter, pagedResults, firstPage, prefetchDepth, monitor )
+        {
+            StudioSearchResultEnumeration searchNextPage( SearchParameter nextPageParameter,
+                StudioProgressMonitor prefetchMonitor )
+            {
+                prefetchMonitors.add( prefetchMonitor );
+                return createPage( pages.size() + 1 < pageCount );
+            }
+        };
+    }
+
+
+    private TestPage createPage( boolean hasNextPage )
+    {
+        List<StudioSearchResult> pageResults = new ArrayList<StudioSearchResult>();
+        for ( int i = 0; i < PAGE_SIZE; i++ )
+        {
+            pageResults.add( new StudioSearchResult( null, null, false, null ) );
+        }
+        results.addAll( pageResults );
+
+        TestPage page = new TestPage( pageResults, hasNextPage ? new byte[]
+            { ( byte ) pages.size() } : new byte[0] );
+        pages.add( page );
+        return page;
+    }
+
+
+    /**
+     * Waits until all requested pages are closed.
+     */
+    private boolean waitForClosedPages() throws InterruptedException
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            boolean closed = true;
+            synchronized ( pages )
+            {
+                for ( TestPage page : pages )
+                {
+                    closed &= page.closed;
+                }
+            }
+            if ( closed )
+            {
+                return true;
+            }
+            Thread.sleep( 50 );
+        }
+
+        return false;
+    }
+
+
+    private static boolean hasCookie( Collection<Control> responseControls )
+    {
+        for ( Control control : responseControls )
+        {
+            if ( control instanceof PagedResults )
+            {
+                byte[] cookie = ( ( PagedResults ) control ).getCookie();
+                return cookie != null && cookie.length > 0;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * A page of search results, as returned by the server.
+     */
+    private static class TestPage extends StudioSearchResultEnumeration
+    {
+        private List<StudioSearchResult> pageResults;
+
+        private byte[] cookie;
+
+        private int index = -1;
+
+        private volatile boolean closed;
+
+
+        private TestPage( List<StudioSearchResult> pageResults, byte[] cookie )
+        {
+            super( null, null, null, null, null, null, null, null, 0, null, null );
+            this.pageResults = pageResults;
+            this.cookie = cookie;
+        }
+
+
+        public boolean hasMore() throws LdapException
+        {
+            index++;
+            return index < pageResults.size();
+        }
+
+
+        public StudioSearchResult next() throws LdapException
+        {
+            return pageResults.get( index );
+        }
+
+
+        public Collection<Control> getResponseControls()
+        {
+            List<Control> responseControls = new ArrayList<Control>();
+            responseControls.add( Controls.newPagedResultsControl( PAGE_SIZE, cookie ) );
+            return responseControls;
+        }
+
+
+        public void close() throws LdapException
+        {
+            closed = true;
+        }
+    }
+}
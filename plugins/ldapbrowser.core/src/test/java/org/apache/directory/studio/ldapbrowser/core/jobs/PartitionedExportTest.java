@@ -0,0 +1,309 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.message.SearchScope;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.ldapbrowser.core.model.SearchParameter;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class PartitionedExportTest
+{
+    private static final String BASE = "dc=example,dc=com";
+
+    private static final String HEADER = "version: 1\n\n";
+
+    /** The child entries of the test directory by parent Dn */
+    private Map<String, List<String>> tree;
+
+    /** The search parameter of the complete subtree */
+    private SearchParameter searchParameter;
+
+
+    @BeforeEach
+    public void setUp() throws LdapException
+    {
+        tree = new HashMap<String, List<String>>();
+        for ( int i = 0; i < 20; i++ )
+        {
+            String child = ( i % 3 == 0 ? "ou=Unit" : "ou=unit" ) + i + "," + BASE;
+            addEntry( BASE, child );
+            for ( int j = 0; j < i % 4; j++ )
+            {
+                String grandChild = "cn=entry" + j + "," + child;
+                addEntry( child, grandChild );
+                addEntry( grandChild, "cn=leaf," + grandChild );
+            }
+        }
+
+        searchParameter = new SearchParameter();
+        searchParameter.setSearchBase( new Dn( BASE ) );
+        searchParameter.setScope( SearchScope.SUBTREE );
+    }
+
+
+    @Test
+    public void testCreatePartitions() throws LdapException
+    {
+        List<Dn> children = getChildren();
+        Collections.reverse( children );
+
+        List<List<SearchParameter>> partitions = PartitionedExport.createPartitions( searchParameter, children, 3 );
+
+        assertEquals( 3 * PartitionedExport.PARTITIONS_PER_THREAD, partitions.size() );
+        assertEquals( BASE, partitions.get( 0 ).get( 0 ).getSearchBase().getName() );
+        assertEquals( SearchScope.OBJECT, partitions.get( 0 ).get( 0 ).getScope() );
+
+        // the child entries are distributed in Dn order, each exactly once
+        List<String> partitionedChildren = new ArrayList<String>();
+        for ( List<SearchParameter> partition : partitions )
+        {
+            assertFalse( partition.isEmpty() );
+            for ( SearchParameter search : partition )
+            {
+                if ( search.getScope() == SearchScope.SUBTREE )
+                {
+                    partitionedChildren.add( search.getSearchBase().getName() );
+                }
+            }
+        }
+        assertEquals( getSortedChildren( BASE ), partitionedChildren );
+    }
+
+
+    @Test
+    public void testCreatePartitionsWithFewChildren() throws LdapException
+    {
+        List<Dn> children = new ArrayList<Dn>();
+        children.add( new Dn( "ou=unit1," + BASE ) );
+        children.add( new Dn( "ou=unit0," + BASE ) );
+
+        List<List<SearchParameter>> partitions = PartitionedExport.createPartitions( searchParameter, children, 4 );
+
+        assertEquals( 2, partitions.size() );
+        assertEquals( 2, partitions.get( 0 ).size() );
+        assertEquals( "ou=unit0," + BASE, partitions.get( 0 ).get( 1 ).getSearchBase().getName() );
+        assertEquals( "ou=unit1," + BASE, partitions.get( 1 ).get( 0 ).getSearchBase().getName() );
+    }
+
+
+    @Test
+    public void testMergeOrder() throws Exception
+    {
+        final List<List<SearchParameter>> partitions = PartitionedExport.createPartitions( searchParameter,
+            getChildren(), 4 );
+
+        // the first partitions are the slowest ones, so they finish last
+        File file = export( partitions, 4, new TestPartitionWriter()
+        {
+            public void writeEntries( SearchParameter search, Writer writer, StudioProgressMonitor monitor )
+                throws IOException
+            {
+                for ( int i = 0; i < partitions.size(); i++ )
+                {
+                    if ( partitions.get( i ).contains( search ) )
+                    {
+                        sleep( 20L * ( partitions.size() - i ) );
+                    }
+                }
+                super.writeEntries( search, writer, monitor );
+            }
+        } );
+
+        assertEquals( HEADER + exportSerial(), read( file ) );
+    }
+
+
+    @Test
+    public void testOutputEquivalentToSerialExport() throws Exception
+    {
+        for ( int parallelism = 2; parallelism <= 5; parallelism++ )
+        {
+            List<List<SearchParameter>> partitions = PartitionedExport.createPartitions( searchParameter,
+                getChildren(), parallelism );
+
+            File file = export( partitions, parallelism, new TestPartitionWriter() );
+
+            assertEquals( HEADER + exportSerial(), read( file ) );
+        }
+    }
+
+
+    @Test
+    public void testSeparateFiles() throws Exception
+    {
+        List<List<SearchParameter>> partitions = PartitionedExport.createPartitions( searchParameter,
+            getChildren(), 2 );
+        File file = File.createTempFile( "PartitionedExportTest", ".ldif" );
+        file.deleteOnExit();
+
+        PartitionedExport.export( partitions, file.getAbsolutePath(), 2, true, new TestPartitionWriter(),
+            new StudioProgressMonitor( new NullProgressMonitor() ) );
+
+        // each partition file has its own header, the partitions together equal the serial export
+        StringBuilder sb = new StringBuilder();
+        for ( int i = 0; i < partitions.size(); i++ )
+        {
+            File partitionFile = PartitionedExport.getPartitionFile( file.getAbsolutePath(), i );
+            partitionFile.deleteOnExit();
+            String content = read( partitionFile );
+            assertEquals( HEADER, content.substring( 0, HEADER.length() ) );
+            sb.append( content.substring( HEADER.length() ) );
+        }
+        assertEquals( exportSerial(), sb.toString() );
+    }
+
+
+    private File export( List<List<SearchParameter>> partitions, int parallelism, TestPartitionWriter writer )
+        throws IOException
+    {
+        File file = File.createTempFile( "PartitionedExportTest", ".ldif" );
+        file.deleteOnExit();
+        StudioProgressMonitor monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+
+        PartitionedExport.export( partitions, file.getAbsolutePath(), parallelism, false, writer, monitor );
+
+        assertFalse( monitor.errorsReported() );
+        return file;
+    }
+
+
+    private String exportSerial() throws IOException
+    {
+        StringWriter writer = new StringWriter();
+        new TestPartitionWriter().writeEntries( searchParameter, writer, null );
+        return writer.toString();
+    }
+
+
+    private void addEntry( String parent, String dn )
+    {
+        List<String> children = tree.get( parent );
+        if ( children == null )
+        {
+            children = new ArrayList<String>();
+            tree.put( parent, children );
+        }
+        children.add( dn );
+    }
+
+
+    private List<Dn> getChildren() throws LdapException
+    {
+        List<Dn> children = new ArrayList<Dn>();
+        for ( String child : tree.get( BASE ) )
+        {
+            children.add( new Dn( child ) );
+        }
+        return children;
+    }
+
+
+    private List<String> getSortedChildren( String dn )
+    {
+        List<String> children = new ArrayList<String>();
+        if ( tree.containsKey( dn ) )
+        {
+            children.addAll( tree.get( dn ) );
+        }
+        Collections.sort( children, String.CASE_INSENSITIVE_ORDER );
+        return children;
+    }
+
+
+    private static String read( File file ) throws IOException
+    {
+        return new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+    }
+
+
+    private static void sleep( long millis )
+    {
+        try
+        {
+            Thread.sleep( millis );
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Writes the entries of the test directory, the child entries of an entry
+     * are written in Dn order after the entry.
+     */
+    private class TestPartitionWriter implements PartitionedExport.PartitionWriter
+    {
+        public Writer openWriter( File file ) throws IOException
+        {
+            return new OutputStreamWriter( new FileOutputStream( file ), StandardCharsets.UTF_8 );
+        }
+
+
+        public void writeHeader( Writer writer ) throws IOException
+        {
+            writer.write( HEADER );
+        }
+
+
+        public void writeEntries( SearchParameter search, Writer writer, StudioProgressMonitor monitor )
+            throws IOException
+        {
+            writeEntry( search.getSearchBase().getName(), search.getScope() == SearchScope.SUBTREE, writer );
+        }
+
+
+        private void writeEntry( String dn, boolean subtree, Writer writer ) throws IOException
+        {
+            writer.write( "dn: " + dn + "\nobjectClass: top\n\n" );
+            if ( subtree )
+            {
+                for ( String child : getSortedChildren( dn ) )
+                {
+                    writeEntry( child, true, writer );
+                }
+            }
+        }
+    }
+}
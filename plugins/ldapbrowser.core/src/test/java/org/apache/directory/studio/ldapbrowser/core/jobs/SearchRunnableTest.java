@@ -0,0 +1,132 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.jobs;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.directory.api.ldap.model.entry.DefaultAttribute;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Value;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class SearchRunnableTest
+{
+    private IBrowserConnection connection;
+    private IEntry entry;
+
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        connection = new DummyConnection( Schema.DEFAULT_SCHEMA );
+        entry = new DummyEntry( new Dn( "cn=foo" ), connection );
+    }
+
+
+    @Test
+    public void testCaseIgnoreValuesDifferingInCaseAreKept() throws Exception
+    {
+        Attribute cn = addAttribute( "cn", "Foo Bar", "baz" );
+        IValue[] values = cn.getValues();
+
+        // cn is a sub-type of name, its equality matching rule is caseIgnoreMatch
+        boolean modified = SearchRunnable.updateAttribute( entry, "cn", new DefaultAttribute( "cn", "foo  bar",
+            "BAZ" ) );
+
+        assertFalse( modified );
+        assertSame( cn, entry.getAttribute( "cn" ) );
+        assertEquals( 2, cn.getValueSize() );
+        assertSame( values[0], cn.getValues()[0] );
+        assertSame( values[1], cn.getValues()[1] );
+        assertEquals( "Foo Bar", cn.getValues()[0].getStringValue() );
+    }
+
+
+    @Test
+    public void testTelephoneNumberValuesDifferingInSpacesAreKept() throws Exception
+    {
+        Attribute telephoneNumber = addAttribute( "telephoneNumber", "+1 555-0100" );
+
+        boolean modified = SearchRunnable.updateAttribute( entry, "telephoneNumber", new DefaultAttribute(
+            "telephoneNumber", "+15550100" ) );
+
+        assertFalse( modified );
+        assertEquals( "+1 555-0100", telephoneNumber.getValues()[0].getStringValue() );
+    }
+
+
+    @Test
+    public void testValuesDifferingInCaseWithoutMatchingRuleAreReplaced() throws Exception
+    {
+        // unknown attribute type, no equality matching rule
+        Attribute unknown = addAttribute( "unknownAttribute", "Foo", "bar" );
+        IValue bar = unknown.getValues()[1];
+
+        boolean modified = SearchRunnable.updateAttribute( entry, "unknownAttribute", new DefaultAttribute(
+            "unknownAttribute", "foo", "bar" ) );
+
+        assertTrue( modified );
+        assertEquals( 2, unknown.getValueSize() );
+        assertSame( bar, unknown.getValues()[0] );
+        assertEquals( "foo", unknown.getValues()[1].getStringValue() );
+    }
+
+
+    @Test
+    public void testChangedValuesAreReplaced() throws Exception
+    {
+        Attribute cn = addAttribute( "cn", "foo", "bar" );
+        IValue foo = cn.getValues()[0];
+
+        boolean modified = SearchRunnable.updateAttribute( entry, "cn", new DefaultAttribute( "cn", "FOO", "qux" ) );
+
+        assertTrue( modified );
+        assertEquals( 2, cn.getValueSize() );
+        assertSame( foo, cn.getValues()[0] );
+        assertEquals( "qux", cn.getValues()[1].getStringValue() );
+    }
+
+
+    private Attribute addAttribute( String description, String... values )
+    {
+        Attribute attribute = new Attribute( entry, description );
+        entry.addAttribute( attribute );
+        for ( String value : values )
+        {
+            attribute.addValue( new Value( attribute, value ) );
+        }
+        return attribute;
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ *   Licensed to the Apache Software Foundation (ASF) under one
+ *   or more contributor license agreements.  See the NOTICE file
+ *   distributed with this work for additional information
+ *   regarding copyright ownership.  The ASF licenses this file
+ *   to you under the Apache License, Version 2.0 (the
+ *   "License"); you may not use this file except in compliance
+ *   with the License.  You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing,
+ *   software distributed under the License is distributed on an
+ *   "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *   KIND, either express or implied.  See the License for the
+ *   specific language governing permissions and limitations
+ *   under the License.
+ *
+ */
+
+package org.apache.directory.studio.ldapbrowser.core.model;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests for {@link AttributeValueRange}.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class AttributeValueRangeTest
+{
+    @Test
+    public void testParseRange()
+    {
+        AttributeValueRange range = AttributeValueRange.parse( "member;range=0-1499" ); //$NON-NLS-1$
+
+        assertEquals( 0, range.getLow() );
+        assertEquals( 1499, range.getHigh() );
+        assertFalse( range.isLast() );
+        assertEquals( 1500, range.getNextLow() );
+    }
+
+
+    @Test
+    public void testParseLastRange()
+    {
+        AttributeValueRange range = AttributeValueRange.parse( "member;Range=1500-*" ); //$NON-NLS-1$
+
+        assertEquals( 1500, range.getLow() );
+        assertTrue( range.isLast() );
+        assertEquals( AttributeValueRange.LAST, range.getNextLow() );
+    }
+
+
+    @Test
+    public void testParseNoRange()
+    {
+        assertNull( AttributeValueRange.parse( "member" ) ); //$NON-NLS-1$
+        assertNull( AttributeValueRange.parse( "cn;lang-de" ) ); //$NON-NLS-1$
+        assertNull( AttributeValueRange.parse( "member;range=foo-bar" ) ); //$NON-NLS-1$
+        assertNull( AttributeValueRange.parse( "member;range=-5" ) ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testStripRange()
+    {
+        assertEquals( "member", AttributeValueRange.stripRange( "member;range=0-1499" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( "cn;lang-de", AttributeValueRange.stripRange( "cn;range=0-*;lang-de" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( "cn;lang-de", AttributeValueRange.stripRange( "cn;lang-de" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( "member", AttributeValueRange.stripRange( "member" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    @Test
+    public void testToRequestDescription()
+    {
+        assertEquals( "member;range=1500-*", AttributeValueRange.toRequestDescription( "member", 1500 ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
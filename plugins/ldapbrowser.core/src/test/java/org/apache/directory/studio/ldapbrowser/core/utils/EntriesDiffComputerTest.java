@@ -0,0 +1,202 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.DefaultModification;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.ModificationOperation;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.ldif.ChangeType;
+import org.apache.directory.api.ldap.model.ldif.LdifEntry;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.junit.jupiter.api.Test;
+
+
+public class EntriesDiffComputerTest
+{
+    /** Replaces the description if it differs */
+    private static final EntriesDiffComputer.EntryComparator DESCRIPTION_COMPARATOR = new EntriesDiffComputer.EntryComparator()
+    {
+        @Override
+        public void compareEntries( Entry originalEntry, Entry modifiedEntry, LdifEntry modificationEntry )
+            throws LdapException
+        {
+            if ( !String.valueOf( originalEntry.get( "description" ) ).equals(
+                String.valueOf( modifiedEntry.get( "description" ) ) ) )
+            {
+                modificationEntry.addModification( new DefaultModification( ModificationOperation.REPLACE_ATTRIBUTE,
+                    modifiedEntry.get( "description" ) ) );
+            }
+        }
+    };
+
+
+    @Test
+    public void testNoModifications() throws Exception
+    {
+        List<Entry> entries = Arrays.asList(
+            new DefaultEntry( "cn=config", "objectClass: top", "description: config" ),
+            new DefaultEntry( "cn=schema,cn=config", "objectClass: top", "description: schema" ) );
+
+        assertTrue( EntriesDiffComputer.computeModifications( entries, entries, DESCRIPTION_COMPARATOR ).isEmpty() );
+    }
+
+
+    @Test
+    public void testModificationsOrder() throws Exception
+    {
+        List<Entry> originalEntries = Arrays.asList(
+            new DefaultEntry( "cn=config", "objectClass: top", "description: config" ),
+            new DefaultEntry( "olcDatabase={1}mdb,cn=config", "objectClass: top", "description: db" ),
+            new DefaultEntry( "olcOverlay={0}syncprov,olcDatabase={1}mdb,cn=config", "objectClass: top",
+                "description: overlay" ) );
+
+        // the Dn of the modified base entry has another case
+        List<Entry> modifiedEntries = Arrays.asList(
+            new DefaultEntry( "CN=config", "objectClass: top", "description: modified" ),
+            new DefaultEntry( "olcDatabase={2}mdb,cn=config", "objectClass: top", "description: db" ),
+            new DefaultEntry( "olcOverlay={0}ppolicy,olcDatabase={2}mdb,cn=config", "objectClass: top",
+                "description: overlay" ) );
+
+        List<LdifEntry> modifications = EntriesDiffComputer.computeModifications( originalEntries, modifiedEntries,
+            DESCRIPTION_COMPARATOR );
+
+        assertEquals( 5, modifications.size() );
+
+        // deletions, children first
+        assertEquals( ChangeType.Delete, modifications.get( 0 ).getChangeType() );
+        assertEquals( "olcOverlay={0}syncprov,olcDatabase={1}mdb,cn=config", modifications.get( 0 ).getDn()
+            .getName() );
+        assertEquals( ChangeType.Delete, modifications.get( 1 ).getChangeType() );
+        assertEquals( "olcDatabase={1}mdb,cn=config", modifications.get( 1 ).getDn().getName() );
+
+        // modifications
+        assertEquals( ChangeType.Modify, modifications.get( 2 ).getChangeType() );
+        assertEquals( "cn=config", modifications.get( 2 ).getDn().getName() );
+
+        // additions, parents first
+        assertEquals( ChangeType.Add, modifications.get( 3 ).getChangeType() );
+        assertEquals( "olcDatabase={2}mdb,cn=config", modifications.get( 3 ).getDn().getName() );
+        assertEquals( ChangeType.Add, modifications.get( 4 ).getChangeType() );
+        assertEquals( "olcOverlay={0}ppolicy,olcDatabase={2}mdb,cn=config", modifications.get( 4 ).getDn()
+            .getName() );
+    }
+
+
+    @Test
+    public void testInterleavedModifications() throws Exception
+    {
+        List<Entry> originalEntries = Arrays.asList(
+            new DefaultEntry( "cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=a,cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=a1,cn=a,cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=c,cn=config", "objectClass: top", "description: c" ),
+            new DefaultEntry( "cn=e,cn=config", "objectClass: top" ) );
+
+        List<Entry> modifiedEntries = Arrays.asList(
+            new DefaultEntry( "cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=b,cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=b1,cn=b,cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=c,cn=config", "objectClass: top", "description: modified" ),
+            new DefaultEntry( "cn=d,cn=config", "objectClass: top" ) );
+
+        List<LdifEntry> modifications = EntriesDiffComputer.computeModifications( originalEntries, modifiedEntries,
+            DESCRIPTION_COMPARATOR );
+
+        List<String> result = new ArrayList<>();
+        for ( LdifEntry modification : modifications )
+        {
+            result.add( modification.getChangeType() + " " + modification.getDn().getName() );
+        }
+
+        assertEquals( Arrays.asList(
+            "Delete cn=e,cn=config",
+            "Delete cn=a1,cn=a,cn=config",
+            "Delete cn=a,cn=config",
+            "Modify cn=c,cn=config",
+            "Add cn=b,cn=config",
+            "Add cn=b1,cn=b,cn=config",
+            "Add cn=d,cn=config" ), result );
+    }
+
+
+    @Test
+    public void testReadSubtree() throws Exception
+    {
+        final List<Entry> entries = Arrays.asList(
+            new DefaultEntry( "cn=b2,cn=b,cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=b,cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=a1,cn=a,cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=b1,cn=b,cn=config", "objectClass: top" ),
+            new DefaultEntry( "cn=a,cn=config", "objectClass: top" ) );
+
+        final List<String> readDns = new ArrayList<>();
+        EntriesDiffComputer.EntryStream stream = EntriesDiffComputer.readSubtree( entries.get( 1 ),
+            new EntriesDiffComputer.ChildEntriesReader()
+            {
+                @Override
+                public List<Entry> readChildEntries( Dn dn )
+                {
+                    readDns.add( dn.getName() );
+                    List<Entry> childEntries = new ArrayList<>();
+                    for ( Entry entry : entries )
+                    {
+                        if ( dn.equals( entry.getDn().getParent() ) )
+                        {
+                            childEntries.add( entry );
+                        }
+                    }
+                    return childEntries;
+                }
+            } );
+
+        List<String> result = new ArrayList<>();
+        for ( Entry entry = stream.next(); entry != null; entry = stream.next() )
+        {
+            result.add( entry.getDn().getName() );
+        }
+
+        // parents first, all descendants before the next sibling
+        List<String> expected = Arrays.asList( "cn=config", "cn=a,cn=config", "cn=a1,cn=a,cn=config",
+            "cn=b,cn=config", "cn=b1,cn=b,cn=config", "cn=b2,cn=b,cn=config" );
+        assertEquals( expected, result );
+
+        // the child entries of each entry are read once
+        assertEquals( expected, readDns );
+
+        List<Entry> sortedEntries = new ArrayList<>( entries );
+        sortedEntries.sort( ( entry1, entry2 ) -> EntriesDiffComputer.DN_ORDER.compare( entry1.getDn(),
+            entry2.getDn() ) );
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+            assertEquals( expected.get( i ), sortedEntries.get( i ).getDn().getName() );
+        }
+    }
+}
@@ -0,0 +1,257 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.AttributeValueRange;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Attribute;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.Value;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class EntryChangeJournalTest
+{
+    private IBrowserConnection connection;
+    private IEntry referenceCopy;
+    private IEntry workingCopy;
+    private EntryChangeJournal journal;
+
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        connection = new DummyConnection( Schema.DEFAULT_SCHEMA );
+        referenceCopy = createEntry();
+        workingCopy = createEntry();
+        journal = EntryChangeJournal.attach( workingCopy );
+    }
+
+
+    private IEntry createEntry() throws Exception
+    {
+        IEntry entry = new DummyEntry( new Dn( "cn=foo" ), connection );
+
+        Attribute objectClass = new Attribute( entry, "objectClass" );
+        entry.addAttribute( objectClass );
+        objectClass.addValue( new Value( objectClass, "top" ) );
+        objectClass.addValue( new Value( objectClass, "person" ) );
+
+        Attribute cn = new Attribute( entry, "cn" );
+        entry.addAttribute( cn );
+        cn.addValue( new Value( cn, "foo" ) );
+
+        Attribute sn = new Attribute( entry, "sn" );
+        entry.addAttribute( sn );
+        sn.addValue( new Value( sn, "bar" ) );
+
+        return entry;
+    }
+
+
+    @Test
+    public void testAttachAndDetach()
+    {
+        assertNotNull( journal );
+        assertEquals( journal, EntryChangeJournal.getJournal( workingCopy ) );
+        assertFalse( journal.hasChanges() );
+
+        EntryChangeJournal.detach( workingCopy );
+        workingCopy.getAttribute( "cn" ).addValue( new Value( workingCopy.getAttribute( "cn" ), "baz" ) );
+
+        assertEquals( null, EntryChangeJournal.getJournal( workingCopy ) );
+        assertFalse( journal.hasChanges() );
+    }
+
+
+    @Test
+    public void testAddAndDeleteValueCancelOut()
+    {
+        Attribute cn = ( Attribute ) workingCopy.getAttribute( "cn" );
+        Value baz = new Value( cn, "baz" );
+
+        cn.addValue( baz );
+        assertTrue( journal.hasChanges() );
+        assertEquals( Arrays.asList( "cn" ), journal.getModifiedAttributeDescriptions() );
+
+        cn.deleteValue( new Value( cn, "baz" ) );
+        assertFalse( journal.hasChanges() );
+        assertTrue( journal.getModifiedAttributeDescriptions().isEmpty() );
+    }
+
+
+    @Test
+    public void testModifyValueAndBack()
+    {
+        Attribute sn = ( Attribute ) workingCopy.getAttribute( "sn" );
+        Value bar = ( Value ) sn.getValues()[0];
+        Value baz = new Value( sn, "baz" );
+
+        sn.modifyValue( bar, baz );
+        assertTrue( journal.hasChanges() );
+        assertEquals( Arrays.asList( "sn" ), journal.getModifiedAttributeDescriptions() );
+
+        sn.modifyValue( baz, new Value( sn, "bar" ) );
+        assertFalse( journal.hasChanges() );
+    }
+
+
+    @Test
+    public void testDeleteAttribute()
+    {
+        workingCopy.deleteAttribute( workingCopy.getAttribute( "sn" ) );
+        assertTrue( journal.hasChanges() );
+        assertEquals( Arrays.asList( "sn" ), journal.getModifiedAttributeDescriptions() );
+
+        journal.clear();
+        assertFalse( journal.hasChanges() );
+    }
+
+
+    @Test
+    public void testRestrictedDiffEqualsFullDiff()
+    {
+        Attribute cn = ( Attribute ) workingCopy.getAttribute( "cn" );
+        cn.addValue( new Value( cn, "baz" ) );
+        workingCopy.deleteAttribute( workingCopy.getAttribute( "sn" ) );
+
+        LdifFile fullDiff = Utils.computeDiff( referenceCopy, workingCopy );
+        LdifFile restrictedDiff = Utils.computeDiff( referenceCopy, workingCopy,
+            journal.getModifiedAttributeDescriptions() );
+
+        assertNotNull( restrictedDiff );
+        assertEquals( fullDiff.toFormattedString( LdifFormatParameters.DEFAULT ),
+            restrictedDiff.toFormattedString( LdifFormatParameters.DEFAULT ) );
+    }
+
+
+    @Test
+    public void testAddedAndDeletedValues()
+    {
+        Attribute cn = ( Attribute ) workingCopy.getAttribute( "cn" );
+        Value foo = ( Value ) cn.getValues()[0];
+        cn.addValue( new Value( cn, "baz" ) );
+        cn.addValue( new Value( cn, "qux" ) );
+        cn.deleteValue( foo );
+        cn.deleteValue( ( Value ) cn.getValues()[0] );
+
+        assertEquals( 1, journal.getAddedValues( "CN" ).size() );
+        assertEquals( "qux", journal.getAddedValues( "CN" ).get( 0 ).getUnfoldedValue() );
+        assertEquals( 1, journal.getDeletedValues( "cn" ).size() );
+        assertEquals( "foo", journal.getDeletedValues( "cn" ).get( 0 ).getUnfoldedValue() );
+        assertTrue( journal.getAddedValues( "sn" ).isEmpty() );
+    }
+
+
+    @Test
+    public void testJournalDiffEqualsFullDiff() throws Exception
+    {
+        Attribute cn = ( Attribute ) workingCopy.getAttribute( "cn" );
+        cn.addValue( new Value( cn, "baz" ) );
+        cn.deleteValue( ( Value ) cn.getValues()[0] );
+        workingCopy.deleteAttribute( workingCopy.getAttribute( "sn" ) );
+        Attribute description = new Attribute( workingCopy, "description" );
+        workingCopy.addAttribute( description );
+        description.addValue( new Value( description, "a" ) );
+        description.addValue( new Value( description, "b" ) );
+
+        LdifFile fullDiff = Utils.computeDiff( referenceCopy, workingCopy );
+        LdifFile journalDiff = Utils.computeDiffFromJournal( referenceCopy, workingCopy, journal );
+
+        assertNotNull( journalDiff );
+        assertEquals( fullDiff.toFormattedString( LdifFormatParameters.DEFAULT ),
+            journalDiff.toFormattedString( LdifFormatParameters.DEFAULT ) );
+    }
+
+
+    @Test
+    public void testFetchedValuesAreNotRecorded()
+    {
+        // the original entry holds all values of the partially fetched description
+        IEntry originalEntry = new DummyEntry( workingCopy.getDn(), connection );
+        Attribute originalDescription = addDescription( originalEntry, "a", "b", "c" );
+
+        addDescription( referenceCopy, "a" ).setNextRangeLow( 1 );
+        EntryChangeJournal.detach( workingCopy );
+        addDescription( workingCopy, "a" ).setNextRangeLow( 1 );
+        EntryChangeJournal.attach( workingCopy, journal );
+
+        Attribute cn = ( Attribute ) workingCopy.getAttribute( "cn" );
+        cn.addValue( new Value( cn, "baz" ) );
+
+        new CompoundModification().appendFetchedValues( originalDescription, 1, referenceCopy );
+        new CompoundModification().appendFetchedValues( originalDescription, 1, workingCopy );
+
+        assertEquals( journal, EntryChangeJournal.getJournal( workingCopy ) );
+        assertEquals( Arrays.asList( "cn" ), journal.getModifiedAttributeDescriptions() );
+        assertEquals( 3, workingCopy.getAttribute( "description" ).getValueSize() );
+        assertEquals( "c", workingCopy.getAttribute( "description" ).getValues()[2].getStringValue() );
+        assertFalse( workingCopy.getAttribute( "description" ).hasMoreValues() );
+        assertFalse( referenceCopy.getAttribute( "description" ).hasMoreValues() );
+
+        LdifFile fullDiff = Utils.computeDiff( referenceCopy, workingCopy );
+        LdifFile journalDiff = Utils.computeDiffFromJournal( referenceCopy, workingCopy, journal );
+
+        assertEquals( fullDiff.toFormattedString( LdifFormatParameters.DEFAULT ),
+            journalDiff.toFormattedString( LdifFormatParameters.DEFAULT ) );
+        assertFalse( journalDiff.toFormattedString( LdifFormatParameters.DEFAULT ).contains( "description" ) );
+    }
+
+
+    @Test
+    public void testJournalDiffWithoutChanges()
+    {
+        Attribute cn = ( Attribute ) workingCopy.getAttribute( "cn" );
+        cn.addValue( new Value( cn, "baz" ) );
+        cn.deleteValue( new Value( cn, "baz" ) );
+
+        assertEquals( null, Utils.computeDiffFromJournal( referenceCopy, workingCopy, journal ) );
+    }
+
+
+    private static Attribute addDescription( IEntry entry, String... values )
+    {
+        Attribute description = new Attribute( entry, "description" );
+        entry.addAttribute( description );
+        for ( String value : values )
+        {
+            description.addValue( new Value( description, value ) );
+        }
+        description.setNextRangeLow( AttributeValueRange.LAST );
+        return description;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ *
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.jupiter.api.Test;
+
+
+public class FileStreamsTest
+{
+    private static final String LDIF = "version: 1\n\ndn: cn=test,dc=example,dc=com\nobjectClass: top\ncn: test\n\n";
+
+    @Test
+    public void testChecksum() throws IOException
+    {
+        File file = createFile( ".ldif" );
+        write( file, true );
+
+        String content = new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+        assertEquals( true, content.startsWith( LDIF + FileStreams.CHECKSUM_PREFIX ) );
+        assertEquals( Boolean.TRUE, readAndVerify( FileStreams.newInputStream( file ) ) );
+    }
+
+
+    @Test
+    public void testCompressedChecksum() throws IOException
+    {
+        File file = createFile( ".ldif.gz" );
+        write( file, true );
+
+        assertEquals( true, Files.readAllBytes( file.toPath() )[0] == ( byte ) 0x1f );
+        assertEquals( Boolean.TRUE, readAndVerify( FileStreams.newInputStream( file ) ) );
+    }
+
+
+    @Test
+    public void testChecksumMismatch() throws IOException
+    {
+        File file = createFile( ".ldif" );
+        write( file, true );
+
+        byte[] bytes = Files.readAllBytes( file.toPath() );
+        bytes[20] = 'X';
+        assertEquals( Boolean.FALSE, readAndVerify( new ByteArrayInputStream( bytes ) ) );
+    }
+
+
+    @Test
+    public void testChecksumInUtf16() throws IOException
+    {
+        File file = createFile( ".ldif" );
+        write( file, "UTF-16", true );
+
+        assertEquals( Boolean.TRUE, readAndVerify( FileStreams.newInputStream( file ), StandardCharsets.UTF_16 ) );
+
+        // the checksum comment isn't found when the charset is not known
+        assertNull( readAndVerify( FileStreams.newInputStream( file ) ) );
+    }
+
+
+    @Test
+    public void testMalformedChecksum() throws IOException
+    {
+        byte[] bytes = ( LDIF + FileStreams.CHECKSUM_PREFIX + "xyz\n" ).getBytes( StandardCharsets.UTF_8 );
+
+        assertEquals( Boolean.FALSE, readAndVerify( new ByteArrayInputStream( bytes ) ) );
+    }
+
+
+    @Test
+    public void testChecksumNotOnLastLine() throws IOException
+    {
+        // a checksum comment followed by another record is an ordinary comment
+        File file = createFile( ".ldif" );
+        write( file, true );
+
+        String content = new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 )
+            + "dn: cn=next,dc=example,dc=com\nobjectClass: top\n";
+        assertNull( readAndVerify( new ByteArrayInputStream( content.getBytes( StandardCharsets.UTF_8 ) ) ) );
+
+        // also if only another comment follows
+        content = LDIF + FileStreams.CHECKSUM_PREFIX + "00000000\n# end\n";
+        assertNull( readAndVerify( new ByteArrayInputStream( content.getBytes( StandardCharsets.UTF_8 ) ) ) );
+    }
+
+
+    @Test
+    public void testChecksumWithoutLineSeparator() throws IOException
+    {
+        File file = createFile( ".ldif" );
+        write( file, true );
+
+        String content = new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 );
+        content = content.substring( 0, content.length() - 1 );
+        assertEquals( Boolean.TRUE, readAndVerify( new ByteArrayInputStream( content
+            .getBytes( StandardCharsets.UTF_8 ) ) ) );
+    }
+
+
+    @Test
+    public void testNoChecksum() throws IOException
+    {
+        File file = createFile( ".ldif" );
+        write( file, false );
+
+        assertNull( readAndVerify( FileStreams.newInputStream( file ) ) );
+    }
+
+
+    private static File createFile( String suffix ) throws IOException
+    {
+        File file = File.createTempFile( "export", suffix );
+        file.deleteOnExit();
+        return file;
+    }
+
+
+    private static void write( File file, boolean checksum ) throws IOException
+    {
+        write( file, "UTF-8", checksum );
+    }
+
+
+    private static void write( File file, String encoding, boolean checksum ) throws IOException
+    {
+        Writer writer = FileStreams.newLdifWriter( file, encoding, "\n", checksum );
+        writer.write( LDIF );
+        writer.close();
+    }
+
+
+    private static Boolean readAndVerify( InputStream in ) throws IOException
+    {
+        return readAndVerify( in, StandardCharsets.ISO_8859_1 );
+    }
+
+
+    private static Boolean readAndVerify( InputStream in, Charset charset ) throws IOException
+    {
+        ChecksumInputStream checksumInputStream = new ChecksumInputStream( in, charset );
+        byte[] buffer = new byte[7];
+        while ( checksumInputStream.read( buffer ) != -1 )
+        {
+            // read until the end of the stream
+        }
+        checksumInputStream.close();
+
+        return checksumInputStream.verifyChecksum();
+    }
+}
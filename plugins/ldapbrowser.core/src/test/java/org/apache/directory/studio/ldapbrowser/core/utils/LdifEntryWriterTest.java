@@ -0,0 +1,148 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.ldapbrowser.core.utils;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.connection.core.event.ConnectionEventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyConnection;
+import org.apache.directory.studio.ldapbrowser.core.model.impl.DummyEntry;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
+import org.apache.directory.studio.ldifparser.LdifFormatParameters;
+import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
+import org.apache.directory.studio.ldifparser.model.lines.LdifAttrValLine;
+import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+public class LdifEntryWriterTest
+{
+    private IBrowserConnection connection;
+
+    private Entry entry;
+
+
+    @BeforeEach
+    public void setup() throws Exception
+    {
+        ConnectionEventRegistry.suspendEventFiringInCurrentThread();
+        connection = new DummyConnection( Schema.DEFAULT_SCHEMA );
+
+        entry = new DefaultEntry( new Dn( "cn=Müller,dc=example,dc=com" ) );
+        entry.add( "sn", "Müller" );
+        entry.add( "description", "a long description which exceeds the line width and must be folded, "
+            + "the continuation lines start with a space" );
+        entry.add( "cn", "foo", "", "Bar", "Müller" );
+        entry.add( "objectClass", "top", "person", "inetOrgPerson" );
+        entry.add( "jpegPhoto", new byte[]
+            { ( byte ) 0xff, ( byte ) 0xd8, ( byte ) 0xff, ( byte ) 0xe0, 0x00, 0x10 } );
+        entry.add( "userPassword", new byte[0] );
+        entry.add( "mail", " leading space", "foo@example.com" );
+        entry.add( "createTimestamp", "20260101000000Z" );
+        entry.add( "unknownAttribute", "Foo", "bar" );
+    }
+
+
+    @Test
+    public void testOutputEqualsSortedContentRecord() throws Exception
+    {
+        LdifFormatParameters[] formatParameters =
+            {
+                new LdifFormatParameters( true, 78, "\n" ),
+                new LdifFormatParameters( false, 20, "\r\n" ),
+                new LdifFormatParameters( true, 1000, "\n" )
+        };
+
+        for ( LdifFormatParameters parameters : formatParameters )
+        {
+            assertEquals( formatSortedContentRecord( entry, parameters ), write( entry, parameters ) );
+        }
+    }
+
+
+    @Test
+    public void testEmptyValuesAreLast() throws Exception
+    {
+        LdifFormatParameters parameters = new LdifFormatParameters( true, 1000, "\n" );
+        String ldif = write( entry, parameters );
+
+        // the values are sorted ignoring case, the base64 encoded value is followed by the empty value
+        assertTrue( ldif.contains( "cn: Bar\ncn: foo\ncn:: " ), ldif );
+        assertTrue( ldif.indexOf( "\ncn: \n" ) > ldif.indexOf( "cn:: " ), ldif );
+        assertEquals( formatSortedContentRecord( entry, parameters ), ldif );
+    }
+
+
+    private String write( Entry entry, LdifFormatParameters parameters ) throws Exception
+    {
+        StringWriter writer = new StringWriter();
+        new LdifEntryWriter( writer, connection, parameters ).writeEntry( entry );
+        return writer.toString();
+    }
+
+
+    /**
+     * Formats the entry like the export did before the {@link LdifEntryWriter}: the entry
+     * is converted to a content record and to a dummy entry, its values are sorted and 
+     * converted back to a content record.
+     */
+    private String formatSortedContentRecord( Entry entry, LdifFormatParameters parameters ) throws Exception
+    {
+        LdifContentRecord record = LdifContentRecord.create( entry.getDn().getName() );
+        for ( Attribute attribute : entry )
+        {
+            String attributeName = attribute.getUpId();
+            for ( Value value : attribute )
+            {
+                if ( value.isHumanReadable() )
+                {
+                    record.addAttrVal( LdifAttrValLine.create( attributeName, value.getString() ) );
+                }
+                else
+                {
+                    record.addAttrVal( LdifAttrValLine.create( attributeName, value.getBytes() ) );
+                }
+            }
+        }
+        record.finish( LdifSepLine.create() );
+
+        DummyEntry dummyEntry = ModelConverter.ldifContentRecordToEntry( record, connection );
+        LdifContentRecord sortedRecord = new LdifContentRecord( record.getDnLine() );
+        for ( IValue value : AttributeComparator.toSortedValues( dummyEntry ) )
+        {
+            sortedRecord.addAttrVal( ModelConverter.valueToLdifAttrValLine( value ) );
+        }
+        sortedRecord.finish( record.getSepLine() );
+
+        return sortedRecord.toFormattedString( parameters );
+    }
+}
@@ -39,6 +39,9 @@ import org.apache.directory.studio.connection.core.event.ConnectionUpdateListene
 import org.apache.directory.studio.connection.ui.ConnectionUIPlugin;
 import org.apache.directory.studio.connection.ui.RunnableContextRunner;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonActivator;
+import org.apache.directory.studio.ldapbrowser.core.events.AttributeAddedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.AttributeDeletedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.AttributeValuesFetchedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EntryModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EntryUpdateListener;
 import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
@@ -56,6 +59,7 @@ import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
 import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.apache.directory.studio.ldapbrowser.core.utils.CompoundModification;
+import org.apache.directory.studio.ldapbrowser.core.utils.EntryChangeJournal;
 import org.apache.directory.studio.ldapbrowser.core.utils.Utils;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIPlugin;
@@ -116,6 +120,9 @@ public class EntryEditorManager
     /** The shared working copies for open-save-close editors; original entry -> working copy */
     private Map<IEntry, IEntry> oscSharedWorkingCopies = new HashMap<>();
 
+    /** The original entries modified after their reference copy for open-save-close editors was taken */
+    private Set<IEntry> outdatedOscSharedReferenceCopies = new HashSet<>();
+
     /** The shared reference copies for auto-save editors; original entry -> reference copy */
     private Map<IEntry, IEntry> autoSaveSharedReferenceCopies = new HashMap<>();
 
@@ -183,9 +190,7 @@ public class EntryEditorManager
                     // check if the same entry is used in an OSC editor and is dirty -> should save first?
                     if ( oscSharedReferenceCopy != null && oscSharedWorkingCopy != null )
                     {
-                        LdifFile diff = Utils.computeDiff( oscSharedReferenceCopy, oscSharedWorkingCopy );
-                        
-                        if ( diff != null )
+                        if ( isWorkingCopyModified( oscSharedReferenceCopy, oscSharedWorkingCopy ) )
                         {
                             MessageDialog dialog = new MessageDialog( partRef.getPart( false ).getSite().getShell(),
                                 Messages.getString( "EntryEditorManager.SaveChanges" ), null,//$NON-NLS-1$ 
@@ -206,14 +211,10 @@ public class EntryEditorManager
                     // check if original entry was updated
                     if ( ( oscSharedReferenceCopy != null ) && ( oscSharedWorkingCopy != null ) )
                     {
-                        LdifFile refDiff = Utils.computeDiff( originalEntry, oscSharedReferenceCopy );
-                        
-                        if ( refDiff != null )
+                        if ( outdatedOscSharedReferenceCopies.contains( originalEntry ) )
                         {
                             // check if we could just update the working copy
-                            LdifFile workDiff = Utils.computeDiff( oscSharedReferenceCopy, oscSharedWorkingCopy );
-                            
-                            if ( workDiff != null )
+                            if ( isWorkingCopyModified( oscSharedReferenceCopy, oscSharedWorkingCopy ) )
                             {
                                 askUpdateSharedWorkingCopy( partRef, originalEntry, oscSharedWorkingCopy, null );
                             }
@@ -278,7 +279,13 @@ public class EntryEditorManager
             IBrowserConnection browserConnection = modifiedEntry.getBrowserConnection();
             IEntry originalEntry = browserConnection.getEntryFromCache( modifiedEntry.getDn() );
 
-            if ( modifiedEntry == originalEntry )
+            if ( ( modifiedEntry == originalEntry ) && ( event instanceof AttributeValuesFetchedEvent ) )
+            {
+                // further values of partially fetched attributes, take them over without discarding changes
+                appendFetchedValues( originalEntry, ( AttributeValuesFetchedEvent ) event );
+            }
+
+            else if ( modifiedEntry == originalEntry )
             {
                 // an original entry has been modified, check if we could update the editors
 
@@ -288,14 +295,11 @@ public class EntryEditorManager
                 
                 if ( ( oscSharedReferenceCopy != null ) && ( oscSharedWorkingCopy != null ) )
                 {
-                    LdifFile refDiff = Utils.computeDiff( originalEntry, oscSharedReferenceCopy );
-                    
-                    if ( refDiff != null )
+                    if ( outdatedOscSharedReferenceCopies.contains( originalEntry )
+                        || isReferenceCopyOutdated( originalEntry, oscSharedReferenceCopy, event ) )
                     {
                         // diff between original entry and reference copy
-                        LdifFile workDiff = Utils.computeDiff( oscSharedReferenceCopy, oscSharedWorkingCopy );
-                        
-                        if ( workDiff == null )
+                        if ( !isWorkingCopyModified( oscSharedReferenceCopy, oscSharedWorkingCopy ) )
                         {
                             // no changes on working copy, update
                             updateOscSharedReferenceCopy( originalEntry );
@@ -311,7 +315,8 @@ public class EntryEditorManager
                         }
                         else
                         {
-                            // changes on working copy, ask before update
+                            // changes on working copy, ask before update, or later when an editor is activated
+                            outdatedOscSharedReferenceCopies.add( originalEntry );
                             IWorkbenchPartReference reference = getActivePartRef( getOscEditors( oscSharedWorkingCopy ) );
                             
                             if ( reference != null )
@@ -324,9 +329,7 @@ public class EntryEditorManager
                     else
                     {
                         // no diff betweeen original entry and reference copy, check if editor is dirty
-                        LdifFile workDiff = Utils.computeDiff( oscSharedReferenceCopy, oscSharedWorkingCopy );
-                        
-                        if ( workDiff != null )
+                        if ( isWorkingCopyModified( oscSharedReferenceCopy, oscSharedWorkingCopy ) )
                         {
                             // changes on working copy, ask before update
                             IWorkbenchPartReference reference = getActivePartRef( getOscEditors( oscSharedWorkingCopy ) );
@@ -345,9 +348,7 @@ public class EntryEditorManager
                 
                 if ( ( autoSaveSharedReferenceCopy != null ) && ( autoSaveSharedWorkingCopy != null ) )
                 {
-                    LdifFile diff = Utils.computeDiff( originalEntry, autoSaveSharedReferenceCopy );
-                    
-                    if ( diff != null )
+                    if ( isReferenceCopyOutdated( originalEntry, autoSaveSharedReferenceCopy, event ) )
                     {
                         updateAutoSaveSharedReferenceCopy( originalEntry );
                         updateAutoSaveSharedWorkingCopy( originalEntry );
@@ -445,7 +446,7 @@ public class EntryEditorManager
                     }
                 }
 
-                LdifFile diff = Utils.computeDiff( autoSaveSharedReferenceCopy, autoSaveSharedWorkingCopy );
+                LdifFile diff = computeWorkingCopyDiff( autoSaveSharedReferenceCopy, autoSaveSharedWorkingCopy );
                 
                 if ( diff != null )
                 {
@@ -804,6 +805,7 @@ public class EntryEditorManager
 
     private void updateOscSharedReferenceCopy( IEntry entry )
     {
+        outdatedOscSharedReferenceCopies.remove( entry );
         IEntry referenceCopy = oscSharedReferenceCopies.remove( entry );
         
         if ( referenceCopy != null )
@@ -824,7 +826,7 @@ public class EntryEditorManager
         if ( workingCopy != null )
         {
             EntryEditorUtils.ensureAttributesInitialized( entry );
-            new CompoundModification().replaceAttributes( entry, workingCopy, this );
+            replaceWorkingCopyAttributes( entry, workingCopy );
         }
     }
 
@@ -843,7 +845,187 @@ public class EntryEditorManager
     {
         EntryEditorUtils.ensureAttributesInitialized( entry );
         IEntry workingCopy = autoSaveSharedWorkingCopies.get( entry );
+        replaceWorkingCopyAttributes( entry, workingCopy );
+    }
+
+
+    /**
+     * Appends the values fetched for the attributes of the given entry to its shared
+     * reference copies and working copies and informs the editors. The values are
+     * appended to both copies, so the changes of the working copy are kept and the
+     * fetched values are not treated as added values.
+     *
+     * @param entry the original entry
+     * @param event the event with the attributes with fetched values
+     */
+    private void appendFetchedValues( IEntry entry, AttributeValuesFetchedEvent event )
+    {
+        IEntry oscSharedReferenceCopy = oscSharedReferenceCopies.get( entry );
+        IEntry oscSharedWorkingCopy = oscSharedWorkingCopies.get( entry );
+
+        if ( ( oscSharedReferenceCopy != null ) && ( oscSharedWorkingCopy != null ) )
+        {
+            appendFetchedValues( event, oscSharedReferenceCopy, oscSharedWorkingCopy );
+
+            for ( IEntryEditor editor : getOscEditors( oscSharedWorkingCopy ) )
+            {
+                editor.workingCopyModified( event.getSource() );
+            }
+        }
+
+        IEntry autoSaveSharedReferenceCopy = autoSaveSharedReferenceCopies.get( entry );
+        IEntry autoSaveSharedWorkingCopy = autoSaveSharedWorkingCopies.get( entry );
+
+        if ( ( autoSaveSharedReferenceCopy != null ) && ( autoSaveSharedWorkingCopy != null ) )
+        {
+            appendFetchedValues( event, autoSaveSharedReferenceCopy, autoSaveSharedWorkingCopy );
+
+            for ( IEntryEditor editor : getAutoSaveEditors( autoSaveSharedWorkingCopy ) )
+            {
+                editor.workingCopyModified( event.getSource() );
+            }
+        }
+    }
+
+
+    private void appendFetchedValues( AttributeValuesFetchedEvent event, IEntry referenceCopy, IEntry workingCopy )
+    {
+        CompoundModification compoundModification = new CompoundModification();
+
+        for ( IAttribute fetchedAttribute : event.getFetchedAttributes() )
+        {
+            IAttribute referenceAttribute = referenceCopy.getAttribute( fetchedAttribute.getDescription() );
+
+            // the reference copy holds the values fetched before
+            if ( ( referenceAttribute != null ) && referenceAttribute.hasMoreValues() )
+            {
+                int fromIndex = referenceAttribute.getValueSize();
+                compoundModification.appendFetchedValues( fetchedAttribute, fromIndex, referenceCopy );
+                compoundModification.appendFetchedValues( fetchedAttribute, fromIndex, workingCopy );
+            }
+        }
+    }
+
+
+    /**
+     * Replaces the attributes of the working copy with the attributes of the given entry
+     * and starts a new change journal for the working copy.
+     *
+     * @param entry the entry to copy the attributes from
+     * @param workingCopy the working copy
+     */
+    private void replaceWorkingCopyAttributes( IEntry entry, IEntry workingCopy )
+    {
+        // don't record the replacement, the working copy isn't modified afterwards
+        EntryChangeJournal.detach( workingCopy );
         new CompoundModification().replaceAttributes( entry, workingCopy, this );
+        EntryChangeJournal.attach( workingCopy );
+    }
+
+
+    /**
+     * Checks if the original entry has been modified by the given event so that the reference
+     * copy is outdated. Only the attributes affected by the event are compared, all attributes
+     * only if the event doesn't tell which attributes have been modified.
+     *
+     * @param originalEntry the original entry
+     * @param referenceCopy the reference copy
+     * @param event the modification event of the original entry
+     * @return true if the reference copy differs from the original entry
+     */
+    private boolean isReferenceCopyOutdated( IEntry originalEntry, IEntry referenceCopy, EntryModificationEvent event )
+    {
+        Collection<String> attributeDescriptions = null;
+
+        if ( event instanceof ValueAddedEvent )
+        {
+            attributeDescriptions = Collections.singleton( ( ( ValueAddedEvent ) event ).getModifiedAttribute()
+                .getDescription() );
+        }
+        else if ( event instanceof ValueDeletedEvent )
+        {
+            attributeDescriptions = Collections.singleton( ( ( ValueDeletedEvent ) event ).getModifiedAttribute()
+                .getDescription() );
+        }
+        else if ( event instanceof ValueModifiedEvent )
+        {
+            attributeDescriptions = Collections.singleton( ( ( ValueModifiedEvent ) event ).getModifiedAttribute()
+                .getDescription() );
+        }
+        else if ( event instanceof ValueRenamedEvent )
+        {
+            ValueRenamedEvent valueRenamedEvent = ( ValueRenamedEvent ) event;
+            attributeDescriptions = new ArrayList<>();
+            attributeDescriptions.add( valueRenamedEvent.getOldValue().getAttribute().getDescription() );
+            attributeDescriptions.add( valueRenamedEvent.getNewValue().getAttribute().getDescription() );
+        }
+        else if ( event instanceof AttributeAddedEvent )
+        {
+            attributeDescriptions = Collections.singleton( ( ( AttributeAddedEvent ) event ).getAddedAttribute()
+                .getDescription() );
+        }
+        else if ( event instanceof AttributeDeletedEvent )
+        {
+            attributeDescriptions = Collections.singleton( ( ( AttributeDeletedEvent ) event ).getDeletedAttribute()
+                .getDescription() );
+        }
+
+        return Utils.computeDiff( originalEntry, referenceCopy, attributeDescriptions ) != null;
+    }
+
+
+    /**
+     * Checks if the working copy has been modified. Uses the change journal of the
+     * working copy if available, otherwise compares all values with the reference copy.
+     *
+     * @param referenceCopy the reference copy
+     * @param workingCopy the working copy
+     * @return true if the working copy has been modified
+     */
+    private boolean isWorkingCopyModified( IEntry referenceCopy, IEntry workingCopy )
+    {
+        EntryChangeJournal journal = EntryChangeJournal.getJournal( workingCopy );
+
+        if ( journal != null )
+        {
+            return journal.hasChanges();
+        }
+
+        return Utils.computeDiff( referenceCopy, workingCopy ) != null;
+    }
+
+
+    /**
+     * Computes the modifications of the working copy. If a change journal is available
+     * the modifications are built from the values recorded in the journal.
+     *
+     * @param referenceCopy the reference copy
+     * @param workingCopy the working copy
+     * @return the modifications or null if the working copy has not been modified
+     */
+    private LdifFile computeWorkingCopyDiff( IEntry referenceCopy, IEntry workingCopy )
+    {
+        EntryChangeJournal journal = EntryChangeJournal.getJournal( workingCopy );
+
+        if ( journal == null )
+        {
+            return Utils.computeDiff( referenceCopy, workingCopy );
+        }
+
+        if ( !journal.hasChanges() )
+        {
+            return null;
+        }
+
+        LdifFile diff = Utils.computeDiffFromJournal( referenceCopy, workingCopy, journal );
+
+        if ( diff == null )
+        {
+            // the recorded operations don't change the values
+            journal.clear();
+        }
+
+        return diff;
     }
 
 
@@ -936,7 +1118,9 @@ public class EntryEditorManager
             if ( !autoSaveSharedWorkingCopies.containsKey( originalEntry ) )
             {
                 IEntry referenceCopy = autoSaveSharedReferenceCopies.get( originalEntry );
-                autoSaveSharedWorkingCopies.put( originalEntry, new CompoundModification().cloneEntry( referenceCopy ) );
+                IEntry workingCopy = new CompoundModification().cloneEntry( referenceCopy );
+                EntryChangeJournal.attach( workingCopy );
+                autoSaveSharedWorkingCopies.put( originalEntry, workingCopy );
             }
             
             return autoSaveSharedWorkingCopies.get( originalEntry );
@@ -951,7 +1135,9 @@ public class EntryEditorManager
             if ( !oscSharedWorkingCopies.containsKey( originalEntry ) )
             {
                 IEntry referenceCopy = oscSharedReferenceCopies.get( originalEntry );
-                oscSharedWorkingCopies.put( originalEntry, new CompoundModification().cloneEntry( referenceCopy ) );
+                IEntry workingCopy = new CompoundModification().cloneEntry( referenceCopy );
+                EntryChangeJournal.attach( workingCopy );
+                oscSharedWorkingCopies.put( originalEntry, workingCopy );
             }
             
             return oscSharedWorkingCopies.get( originalEntry );
@@ -972,8 +1158,7 @@ public class EntryEditorManager
             
             if ( ( referenceCopy != null ) && ( workingCopy != null ) )
             {
-                LdifFile diff = Utils.computeDiff( referenceCopy, workingCopy );
-                return diff != null;
+                return isWorkingCopyModified( referenceCopy, workingCopy );
             }
             
             return false;
@@ -1003,7 +1188,7 @@ public class EntryEditorManager
                     }
                 }
 
-                LdifFile diff = Utils.computeDiff( referenceCopy, workingCopy );
+                LdifFile diff = computeWorkingCopyDiff( referenceCopy, workingCopy );
                 
                 if ( diff != null )
                 {
@@ -1114,6 +1299,7 @@ public class EntryEditorManager
             {
                 it.remove();
                 oscSharedWorkingCopies.remove( entry );
+                outdatedOscSharedReferenceCopies.remove( entry );
             }
         }
         
@@ -21,9 +21,16 @@
 package org.apache.directory.studio.ldapbrowser.ui.editors.searchresult;
 
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonActivator;
 import org.apache.directory.studio.ldapbrowser.common.BrowserCommonConstants;
 import org.apache.directory.studio.ldapbrowser.common.actions.BrowserSelectionUtils;
+import org.apache.directory.studio.ldapbrowser.core.events.DisplayValueUpdateEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.DisplayValueUpdateListener;
 import org.apache.directory.studio.ldapbrowser.core.events.EmptyValueAddedEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EntryModificationEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.EntryUpdateListener;
@@ -32,8 +39,10 @@ import org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateEvent;
 import org.apache.directory.studio.ldapbrowser.core.events.SearchUpdateListener;
 import org.apache.directory.studio.ldapbrowser.core.model.AttributeHierarchy;
 import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
+import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearch;
 import org.apache.directory.studio.ldapbrowser.core.model.ISearchResult;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIConstants;
 import org.apache.directory.studio.ldapbrowser.ui.BrowserUIPlugin;
 import org.apache.directory.studio.ldapbrowser.ui.actions.OpenSearchResultAction;
@@ -78,7 +87,8 @@ import org.eclipse.ui.forms.widgets.Hyperlink;
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
-public class SearchResultEditorUniversalListener implements SearchUpdateListener, EntryUpdateListener
+public class SearchResultEditorUniversalListener implements SearchUpdateListener, EntryUpdateListener,
+    DisplayValueUpdateListener
 {
 
     /** The search result editor */
@@ -490,6 +500,7 @@ public class SearchResultEditorUniversalListener implements SearchUpdateListener
 
         EventRegistry.addSearchUpdateListener( this, BrowserCommonActivator.getDefault().getEventRunner() );
         EventRegistry.addEntryUpdateListener( this, BrowserCommonActivator.getDefault().getEventRunner() );
+        EventRegistry.addDisplayValueUpdateListener( this, BrowserCommonActivator.getDefault().getEventRunner() );
     }
 
 
@@ -506,6 +517,7 @@ public class SearchResultEditorUniversalListener implements SearchUpdateListener
 
             EventRegistry.removeSearchUpdateListener( this );
             EventRegistry.removeEntryUpdateListener( this );
+            EventRegistry.removeDisplayValueUpdateListener( this );
 
             selectedSearch = null;
             startEditAction = null;
@@ -561,6 +573,45 @@ public class SearchResultEditorUniversalListener implements SearchUpdateListener
     }
 
 
+    /**
+     * {@inheritDoc}
+     *
+     * This implementation updates the rows of the search results whose
+     * display values have changed, the editor isn't refreshed.
+     */
+    public void displayValueUpdated( DisplayValueUpdateEvent event )
+    {
+        if ( ( selectedSearch == null ) || ( selectedSearch.getSearchResults() == null ) || ( viewer == null )
+            || viewer.getTable().isDisposed() )
+        {
+            return;
+        }
+
+        Set<IEntry> entries = new HashSet<IEntry>();
+
+        for ( IValue value : event.getValues() )
+        {
+            entries.add( value.getAttribute().getEntry() );
+        }
+
+        List<ISearchResult> searchResults = new ArrayList<ISearchResult>();
+
+        for ( ISearchResult searchResult : selectedSearch.getSearchResults() )
+        {
+            if ( entries.contains( searchResult.getEntry() ) )
+            {
+                searchResults.add( searchResult );
+            }
+        }
+
+        if ( !searchResults.isEmpty() )
+        {
+            viewer.update( searchResults.toArray(), null );
+            cursor.redraw();
+        }
+    }
+
+
     /**
      * Sets the input.
      *
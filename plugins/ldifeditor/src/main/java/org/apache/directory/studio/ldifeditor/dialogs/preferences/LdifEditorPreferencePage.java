@@ -28,6 +28,8 @@ import org.eclipse.jface.preference.PreferencePage;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.events.SelectionAdapter;
 import org.eclipse.swt.events.SelectionEvent;
+import org.eclipse.swt.events.VerifyEvent;
+import org.eclipse.swt.events.VerifyListener;
 import org.eclipse.swt.layout.GridData;
 import org.eclipse.swt.layout.GridLayout;
 import org.eclipse.swt.widgets.Button;
@@ -36,6 +38,7 @@ import org.eclipse.swt.widgets.Control;
 import org.eclipse.swt.widgets.Group;
 import org.eclipse.swt.widgets.Label;
 import org.eclipse.swt.widgets.Link;
+import org.eclipse.swt.widgets.Text;
 import org.eclipse.ui.IWorkbench;
 import org.eclipse.ui.IWorkbenchPreferencePage;
 import org.eclipse.ui.dialogs.PreferencesUtil;
@@ -75,6 +78,9 @@ public class LdifEditorPreferencePage extends PreferencePage implements IWorkben
     /** The continue on error button. */
     private Button continueOnErrorButton;
 
+    /** The concurrent operations text. */
+    private Text concurrentOperationsText;
+
 
     /**
      * Creates a new instance of LdifEditorPreferencePage.
@@ -193,6 +199,30 @@ public class LdifEditorPreferencePage extends PreferencePage implements IWorkben
         continueOnErrorButton.setSelection( getPreferenceStore().getBoolean(
             LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_CONTINUEONERROR ) );
 
+        Composite concurrentOperationsComposite = BaseWidgetUtils.createColumnContainer( optionsGroup, 2, 1 );
+        String concurrentOperationsTooltip = Messages
+            .getString( "LdifEditorPreferencePage.ConcurrentOperationsToolTip" ); //$NON-NLS-1$
+        Label concurrentOperationsLabel = BaseWidgetUtils.createLabel( concurrentOperationsComposite, Messages
+            .getString( "LdifEditorPreferencePage.ConcurrentOperations" ), 1 ); //$NON-NLS-1$
+        concurrentOperationsLabel.setToolTipText( concurrentOperationsTooltip );
+        concurrentOperationsText = BaseWidgetUtils.createText( concurrentOperationsComposite, getPreferenceStore()
+            .getString( LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_CONCURRENTOPERATIONS ), 3, 1 );
+        concurrentOperationsText.setToolTipText( concurrentOperationsTooltip );
+        concurrentOperationsText.addVerifyListener( new VerifyListener()
+        {
+            public void verifyText( VerifyEvent e )
+            {
+                if ( !e.text.matches( "[0-9]*" ) ) //$NON-NLS-1$
+                {
+                    e.doit = false;
+                }
+                if ( "".equals( concurrentOperationsText.getText() ) && e.text.matches( "[0]" ) ) //$NON-NLS-1$ //$NON-NLS-2$
+                {
+                    e.doit = false;
+                }
+            }
+        } );
+
         checkEnabled();
 
         return composite;
@@ -232,6 +262,11 @@ public class LdifEditorPreferencePage extends PreferencePage implements IWorkben
             updateIfEntryExistsButton.getSelection() );
         getPreferenceStore().setValue( LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_CONTINUEONERROR,
             continueOnErrorButton.getSelection() );
+        if ( !"".equals( concurrentOperationsText.getText() ) ) //$NON-NLS-1$
+        {
+            getPreferenceStore().setValue( LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_CONCURRENTOPERATIONS,
+                concurrentOperationsText.getText() );
+        }
 
         return true;
     }
@@ -258,6 +293,8 @@ public class LdifEditorPreferencePage extends PreferencePage implements IWorkben
             LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_UPDATEIFENTRYEXISTS ) );
         continueOnErrorButton.setSelection( getPreferenceStore().getDefaultBoolean(
             LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_CONTINUEONERROR ) );
+        concurrentOperationsText.setText( getPreferenceStore().getDefaultString(
+            LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_CONCURRENTOPERATIONS ) );
 
         super.performDefaults();
 
@@ -21,26 +21,53 @@
 package org.apache.directory.studio.ldifeditor.editor;
 
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 import org.apache.directory.studio.ldapbrowser.common.dialogs.SelectBrowserConnectionDialog;
 import org.apache.directory.studio.ldapbrowser.core.jobs.ExecuteLdifRunnable;
+import org.apache.directory.studio.ldapbrowser.core.jobs.ExecuteLdifRunnable.ExecuteLdifListener;
 import org.apache.directory.studio.ldapbrowser.core.jobs.StudioBrowserJob;
 import org.apache.directory.studio.ldapbrowser.core.model.IBrowserConnection;
 import org.apache.directory.studio.ldifeditor.LdifEditorActivator;
 import org.apache.directory.studio.ldifeditor.LdifEditorConstants;
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
 import org.eclipse.jface.action.Action;
 import org.eclipse.jface.preference.IPreferenceStore;
+import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.Position;
+import org.eclipse.jface.text.source.Annotation;
+import org.eclipse.jface.text.source.IAnnotationModel;
+import org.eclipse.jface.text.source.IAnnotationModelExtension;
+import org.eclipse.jface.text.source.ISourceViewer;
+import org.eclipse.swt.widgets.Display;
 
 
 /**
- * This Action executes LDIF code.
+ * This Action executes LDIF code. The parsed records of the editor are executed
+ * directly, the result of each record is marked inline as it arrives.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class ExecuteLdifAction extends Action
 {
+    private static final String ERROR_ANNOTATION_TYPE = "org.eclipse.ui.workbench.texteditor.error"; //$NON-NLS-1$
+
+    private static final String INFO_ANNOTATION_TYPE = "org.eclipse.ui.workbench.texteditor.info"; //$NON-NLS-1$
+
     /** The LDIF Editor */
     private LdifEditor editor;
 
+    /** The annotations marking the results of the last execution */
+    private List<Annotation> resultAnnotations = new ArrayList<Annotation>();
+
+    /** The results not yet marked in the editor, the exception is null for successfully executed records */
+    private Map<LdifRecord, Exception> pendingResults = new HashMap<LdifRecord, Exception>();
+
 
     /**
      * Creates a new instance of ExecuteLdifAction.
@@ -87,21 +114,183 @@ public class ExecuteLdifAction extends Action
             }
         }
 
-        String ldif = editor.getLdifModel().toRawString();
+        // execute the already parsed records, a copy of the list is used as the model changes while editing
+        List<LdifContainer> containers = new ArrayList<LdifContainer>( editor.getLdifModel().getContainers() );
 
         IPreferenceStore preferenceStore = LdifEditorActivator.getDefault().getPreferenceStore();
         boolean updateIfEntryExistsButton = preferenceStore
             .getBoolean( LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_UPDATEIFENTRYEXISTS );
         boolean continueOnErrorButton = preferenceStore
             .getBoolean( LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_CONTINUEONERROR );
+        int concurrentOperations = preferenceStore
+            .getInt( LdifEditorConstants.PREFERENCE_LDIFEDITOR_OPTIONS_CONCURRENTOPERATIONS );
+
+        removeResultAnnotations();
 
-        ExecuteLdifRunnable runnable = new ExecuteLdifRunnable( connection, ldif, updateIfEntryExistsButton,
-            continueOnErrorButton );
+        IDocument document = editor.getDocumentProvider().getDocument( editor.getEditorInput() );
+
+        ExecuteLdifRunnable runnable = new ExecuteLdifRunnable( connection, containers, document,
+            updateIfEntryExistsButton, continueOnErrorButton, concurrentOperations, new ExecuteLdifListener()
+            {
+                public void recordExecuted( LdifRecord record, Exception exception )
+                {
+                    addResult( record, exception );
+                }
+            } );
         StudioBrowserJob job = new StudioBrowserJob( runnable );
         job.execute();
     }
 
 
+    /**
+     * Adds the result of an executed record. The results are marked in the UI thread, 
+     * results that arrive until then are marked together.
+     * 
+     * @param record the executed record
+     * @param exception the error or null if the record was executed successfully
+     */
+    private void addResult( LdifRecord record, Exception exception )
+    {
+        synchronized ( pendingResults )
+        {
+            boolean scheduled = !pendingResults.isEmpty();
+            pendingResults.put( record, exception );
+
+            if ( scheduled )
+            {
+                return;
+            }
+        }
+
+        Display.getDefault().asyncExec( new Runnable()
+        {
+            public void run()
+            {
+                Map<LdifRecord, Exception> results;
+
+                synchronized ( pendingResults )
+                {
+                    results = new HashMap<LdifRecord, Exception>( pendingResults );
+                    pendingResults.clear();
+                }
+
+                markResults( results );
+            }
+        } );
+    }
+
+
+    /**
+     * Marks the results of the executed records in the editor. Records
+     * that have been changed in the meantime are not marked.
+     * 
+     * @param results the executed records and their errors
+     */
+    private void markResults( Map<LdifRecord, Exception> results )
+    {
+        IAnnotationModel annotationModel = getAnnotationModel();
+        LdifFile ldifModel = editor.getLdifModel();
+
+        if ( annotationModel == null || ldifModel == null )
+        {
+            return;
+        }
+
+        Map<Annotation, Position> annotationsToAdd = new HashMap<Annotation, Position>();
+
+        for ( Map.Entry<LdifRecord, Exception> result : results.entrySet() )
+        {
+            LdifRecord record = result.getKey();
+            Position position;
+
+            synchronized ( ldifModel )
+            {
+                int index = ldifModel.indexOf( record );
+
+                if ( index < 0 )
+                {
+                    continue;
+                }
+
+                // the record as returned by the model has the offsets of the current document, mark the DN line
+                LdifContainer container = ldifModel.getContainer( index );
+                position = record.getDnLine() != null ? new Position( record.getDnLine().getOffset(), record
+                    .getDnLine().getLength() ) : new Position( container.getOffset(), container.getLength() );
+            }
+
+            Annotation annotation;
+
+            if ( result.getValue() == null )
+            {
+                annotation = new Annotation( INFO_ANNOTATION_TYPE, false, Messages
+                    .getString( "ExecuteLdifAction.RecordExecuted" ) ); //$NON-NLS-1$
+            }
+            else
+            {
+                annotation = new Annotation( ERROR_ANNOTATION_TYPE, false, Messages
+                    .getString( "ExecuteLdifAction.RecordFailed" ) + result.getValue().getMessage() ); //$NON-NLS-1$
+            }
+
+            annotationsToAdd.put( annotation, position );
+            resultAnnotations.add( annotation );
+        }
+
+        if ( annotationModel instanceof IAnnotationModelExtension )
+        {
+            ( ( IAnnotationModelExtension ) annotationModel ).replaceAnnotations( new Annotation[0], annotationsToAdd );
+        }
+        else
+        {
+            for ( Map.Entry<Annotation, Position> entry : annotationsToAdd.entrySet() )
+            {
+                annotationModel.addAnnotation( entry.getKey(), entry.getValue() );
+            }
+        }
+    }
+
+
+    /**
+     * Removes the annotations marking the results of the last execution.
+     */
+    private void removeResultAnnotations()
+    {
+        IAnnotationModel annotationModel = getAnnotationModel();
+
+        if ( annotationModel instanceof IAnnotationModelExtension )
+        {
+            ( ( IAnnotationModelExtension ) annotationModel ).replaceAnnotations( resultAnnotations
+                .toArray( new Annotation[resultAnnotations.size()] ), null );
+        }
+        else if ( annotationModel != null )
+        {
+            for ( Annotation annotation : resultAnnotations )
+            {
+                annotationModel.removeAnnotation( annotation );
+            }
+        }
+
+        resultAnnotations.clear();
+    }
+
+
+    /**
+     * Gets the annotation model of the editor.
+     * 
+     * @return the annotation model, null if the editor is disposed
+     */
+    private IAnnotationModel getAnnotationModel()
+    {
+        ISourceViewer viewer = ( ISourceViewer ) editor.getAdapter( ISourceViewer.class );
+
+        if ( viewer == null || viewer.getTextWidget() == null || viewer.getTextWidget().isDisposed() )
+        {
+            return null;
+        }
+
+        return viewer.getAnnotationModel();
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -137,15 +137,16 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
             // get containers to replace (from changeOffset till
             // changeOffset+replacedTextLength, check end of record)
             List<LdifContainer> oldContainerList = new ArrayList<LdifContainer>();
-            List<LdifContainer> containers = ldifModel.getContainers();
-            
-            for ( int i = 0; i < containers.size(); i++ )
+            // containers before the first index end before the change region, no need to check them
+            int containerCount = ldifModel.getContainerCount();
+
+            for ( int i = ldifModel.getFirstContainerIndex( changeRegion.getOffset() ); i < containerCount; i++ )
             {
-                LdifContainer ldifContainer = containers.get( i );
+                LdifContainer ldifContainer = ldifModel.getContainer( i );
 
-                Region containerRegion = new Region( containers.get( i ).getOffset(), containers.get( i ).getLength() );
+                Region containerRegion = new Region( ldifContainer.getOffset(), ldifContainer.getLength() );
 
-                boolean changeOffsetAtEOF = i == containers.size() - 1
+                boolean changeOffsetAtEOF = i == containerCount - 1
                     && changeOffset >= containerRegion.getOffset() + containerRegion.getLength();
 
                 if ( TextUtilities.overlaps( containerRegion, changeRegion ) || changeOffsetAtEOF )
@@ -157,7 +158,7 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
                     i--;
                     for ( ; i >= 0; i-- )
                     {
-                        ldifContainer = containers.get( i );
+                        ldifContainer = ldifModel.getContainer( i );
                         
                         if ( !ldifContainer.isValid() || !( ldifContainer instanceof LdifRecord ) )
                         {
@@ -171,9 +172,9 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
 
                     // add all overlapping containers
                     i = index;
-                    for ( ; i < containers.size(); i++ )
+                    for ( ; i < containerCount; i++ )
                     {
-                        ldifContainer = containers.get( i );
+                        ldifContainer = ldifModel.getContainer( i );
                         containerRegion = new Region( ldifContainer.getOffset(), ldifContainer.getLength() );
                         
                         if ( TextUtilities.overlaps( containerRegion, changeRegion ) || changeOffsetAtEOF )
@@ -187,9 +188,9 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
                     }
 
                     // add invalid containers and non-records after overlap
-                    for ( ; i < containers.size(); i++ )
+                    for ( ; i < containerCount; i++ )
                     {
-                        ldifContainer = containers.get( i );
+                        ldifContainer = ldifModel.getContainer( i );
 
                         if ( !ldifContainer.isValid() || !( ldifContainer instanceof LdifRecord )
                             || !( oldContainerList.get( oldContainerList.size() - 1 ) instanceof LdifRecord ) )
@@ -201,6 +202,9 @@ public class LdifDocumentProvider extends AbstractDocumentProvider implements ID
                             break;
                         }
                     }
+
+                    // the following containers are not affected
+                    break;
                 }
             }
             
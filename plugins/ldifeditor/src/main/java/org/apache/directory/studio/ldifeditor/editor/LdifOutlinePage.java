@@ -39,6 +39,7 @@ import org.apache.directory.studio.ldifparser.model.container.LdifChangeAddRecor
 import org.apache.directory.studio.ldifparser.model.container.LdifChangeDeleteRecord;
 import org.apache.directory.studio.ldifparser.model.container.LdifChangeModDnRecord;
 import org.apache.directory.studio.ldifparser.model.container.LdifChangeModifyRecord;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.container.LdifContentRecord;
 import org.apache.directory.studio.ldifparser.model.container.LdifModSpec;
 import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
@@ -72,6 +73,12 @@ public class LdifOutlinePage extends ContentOutlinePage
     /** Whether or not the outline page is linked to an entry in the LDAP Browser view*/
     private boolean isLinkedToLdapBrowser = false;
 
+    /** The containers of the model when the tree was last updated, the records among them are the tree items */
+    private List<LdifContainer> displayedContainers = new ArrayList<LdifContainer>();
+
+    /** The modification count of the model when the tree was last updated */
+    private int displayedModificationCount;
+
 
     /**
      * Creates a new instance of LdifOutlinePage.
@@ -215,6 +222,15 @@ public class LdifOutlinePage extends ContentOutlinePage
 
             treeViewer.refresh();
 
+            displayedContainers.clear();
+
+            if ( treeViewer.getInput() instanceof LdifFile )
+            {
+                LdifFile ldifFile = ( LdifFile ) treeViewer.getInput();
+                displayedContainers.addAll( ldifFile.getContainers() );
+                displayedModificationCount = ldifFile.getModificationCount();
+            }
+
             if ( isLinkedToLdapBrowser )
             {
                 treeViewer.setAutoExpandLevel( 2 );
@@ -226,6 +242,85 @@ public class LdifOutlinePage extends ContentOutlinePage
     }
 
 
+    /**
+     * Updates this viewer with the records that have been reparsed since the last update.
+     * Unchanged records keep their tree items, only the items of replaced records are
+     * removed and the new records are inserted. Falls back to a complete refresh if the
+     * model has been replaced or if its changes are not known anymore.
+     */
+    public void update()
+    {
+        final TreeViewer treeViewer = getTreeViewer();
+
+        if ( treeViewer == null || treeViewer.getTree() == null || treeViewer.getTree().isDisposed() )
+        {
+            return;
+        }
+
+        if ( ldifEditor == null || treeViewer.getInput() != ldifEditor.getLdifModel()
+            || !treeViewer.getTree().isEnabled() )
+        {
+            refresh();
+            return;
+        }
+
+        // the containers replaced since the last update: {index, removed count, inserted count}
+        LdifFile ldifFile = ldifEditor.getLdifModel();
+        int[] range = ldifFile.getChangedRange( displayedModificationCount );
+
+        if ( range == null )
+        {
+            refresh();
+            return;
+        }
+
+        // the position of the first changed record in the tree
+        int position = 0;
+
+        for ( int i = 0; i < range[0]; i++ )
+        {
+            if ( displayedContainers.get( i ) instanceof LdifRecord )
+            {
+                position++;
+            }
+        }
+
+        List<LdifContainer> removedContainers = displayedContainers.subList( range[0], range[0] + range[1] );
+        List<LdifRecord> removedRecords = new ArrayList<LdifRecord>();
+
+        for ( LdifContainer container : removedContainers )
+        {
+            if ( container instanceof LdifRecord )
+            {
+                removedRecords.add( ( LdifRecord ) container );
+            }
+        }
+
+        removedContainers.clear();
+
+        if ( !removedRecords.isEmpty() )
+        {
+            treeViewer.remove( removedRecords.toArray() );
+        }
+
+        List<LdifContainer> insertedContainers = new ArrayList<LdifContainer>( range[2] );
+
+        for ( int i = range[0]; i < range[0] + range[2]; i++ )
+        {
+            LdifContainer container = ldifFile.getContainer( i );
+            insertedContainers.add( container );
+
+            if ( container instanceof LdifRecord )
+            {
+                treeViewer.insert( ldifFile, container, position++ );
+            }
+        }
+
+        displayedContainers.addAll( range[0], insertedContainers );
+        displayedModificationCount = ldifFile.getModificationCount();
+    }
+
+
     /**
      * {@inheritDoc}
      */
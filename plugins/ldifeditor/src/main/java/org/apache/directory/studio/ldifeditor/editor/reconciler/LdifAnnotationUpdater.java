@@ -22,18 +22,20 @@ package org.apache.directory.studio.ldifeditor.editor.reconciler;
 
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.apache.directory.studio.ldifeditor.editor.ILdifEditor;
 import org.apache.directory.studio.ldifparser.model.LdifFile;
 import org.apache.directory.studio.ldifparser.model.LdifPart;
 import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
-import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.source.Annotation;
 import org.eclipse.jface.text.source.IAnnotationModel;
 import org.eclipse.jface.text.source.IAnnotationModelExtension;
 import org.eclipse.jface.text.source.ISourceViewer;
+import org.eclipse.swt.widgets.Display;
 
 
 class LdifAnnotationUpdater
@@ -43,6 +45,27 @@ class LdifAnnotationUpdater
 
     private ILdifEditor editor;
 
+    /** The model of the last computed update, only accessed by {@link #update()} */
+    private LdifFile lastModel;
+
+    /** The modification count of the model at the last computed update, only accessed by {@link #update()} */
+    private int lastModificationCount;
+
+    /** Flag indicating that the next update must be a complete update, set in the UI thread */
+    private volatile boolean completeUpdateRequested;
+
+    /** 
+     * The error annotations of the containers of the last applied update, in the order of the
+     * containers, null for valid containers. Unchanged containers keep their annotation,
+     * its position is tracked by the annotation model. Only accessed in the UI thread.
+     */
+    private List<Annotation> containerAnnotations = new ArrayList<Annotation>();
+
+    /** Flag indicating that an update could not be applied, only a complete update is applied then */
+    private boolean outOfSync;
+
+    private boolean disposed;
+
 
     public LdifAnnotationUpdater( ILdifEditor editor )
     {
@@ -52,87 +75,236 @@ class LdifAnnotationUpdater
 
     public void dispose()
     {
+        disposed = true;
+        containerAnnotations.clear();
     }
 
 
-    public void updateAnnotations( LdifContainer[] containers )
+    /**
+     * Computes the error annotations of the containers that have been changed since
+     * the last update in the calling thread. Only the replacement of the annotations
+     * in the annotation model is posted to the UI thread.
+     */
+    public synchronized void update()
     {
+        LdifFile model = editor.getLdifModel();
+
+        if ( model == null )
+        {
+            return;
+        }
+
+        final AnnotationUpdate update;
+
+        // the containers must not be replaced while the changed ones are read
+        synchronized ( model )
+        {
+            if ( completeUpdateRequested )
+            {
+                completeUpdateRequested = false;
+                lastModel = null;
+            }
+
+            // the containers replaced since the last update: {index, removed count, inserted count}
+            int[] range = ( model == lastModel ) ? model.getChangedRange( lastModificationCount ) : null;
+            boolean complete = range == null;
+
+            if ( complete )
+            {
+                range = new int[]
+                    { 0, 0, model.getContainerCount() };
+            }
+            else if ( range[1] == 0 && range[2] == 0 )
+            {
+                return;
+            }
+
+            update = new AnnotationUpdate( model, range, complete );
+
+            for ( int i = range[0]; i < range[0] + range[2]; i++ )
+            {
+                LdifContainer container = model.getContainer( i );
+                update.containers.add( container );
+                update.containerOffsets.add( container.getOffset() );
+                update.annotations.add( createAnnotation( container, update.positions ) );
+            }
+
+            lastModel = model;
+            lastModificationCount = model.getModificationCount();
+        }
 
+        Display.getDefault().asyncExec( new Runnable()
+        {
+            public void run()
+            {
+                apply( update );
+            }
+        } );
     }
 
 
-    public void updateAnnotations()
+    /**
+     * Replaces the annotations of the replaced containers by the computed annotations
+     * of the new containers. Must be called in the UI thread, in the order of the updates.
+     *
+     * @param update the computed update
+     */
+    private void apply( AnnotationUpdate update )
     {
-        LdifFile model = editor.getLdifModel();
-        ISourceViewer viewer = ( ISourceViewer ) editor.getAdapter( ISourceViewer.class );
-        
-        if ( viewer == null )
+        if ( disposed )
         {
             return;
         }
 
-        IDocument document = viewer.getDocument();
-        IAnnotationModel annotationModel = viewer.getAnnotationModel();
-        
-        if ( document == null || annotationModel == null || model == null )
+        ISourceViewer viewer = ( ISourceViewer ) editor.getAdapter( ISourceViewer.class );
+        IAnnotationModel annotationModel = viewer != null ? viewer.getAnnotationModel() : null;
+
+        if ( !( annotationModel instanceof IAnnotationModelExtension ) || ( outOfSync && !update.complete ) )
         {
+            // the annotations of the containers are not known anymore, start over
+            outOfSync = true;
+            completeUpdateRequested = true;
             return;
         }
 
-        if ( annotationModel instanceof IAnnotationModelExtension )
+        outOfSync = false;
+
+        // the annotations of all removed containers, only the annotations created by this updater
+        // are removed, other annotations (e.g. the results of the LDIF execution) are kept
+        int removedCount = update.complete ? containerAnnotations.size() : update.range[1];
+        List<Annotation> removedAnnotations = containerAnnotations.subList( update.range[0], update.range[0]
+            + removedCount );
+        List<Annotation> annotationsToRemove = new ArrayList<Annotation>();
+
+        for ( Annotation annotation : removedAnnotations )
         {
-            ( ( IAnnotationModelExtension ) annotationModel ).removeAllAnnotations();
+            if ( annotation != null )
+            {
+                annotationsToRemove.add( annotation );
+            }
+        }
+
+        removedAnnotations.clear();
 
-            List<Position> positionList = new ArrayList<Position>();
+        // the annotations of all inserted containers, the document may have been changed
+        // since the annotations were computed, so the positions are moved with their container
+        Map<Annotation, Position> annotationsToAdd = new HashMap<Annotation, Position>();
+
+        for ( int i = 0; i < update.annotations.size(); i++ )
+        {
+            Annotation annotation = update.annotations.get( i );
 
-            List<LdifContainer> containers = model.getContainers();
-            
-            for ( LdifContainer ldifContainer : containers )
+            if ( annotation != null )
             {
-                // LdifPart errorPart = null;
-                int errorOffset = -1;
-                int errorLength = -1;
-                StringBuilder errorText = null;
-
-                LdifPart[] parts = ldifContainer.getParts();
-                
-                for ( LdifPart ldifPart : parts )
+                int delta = LdifReconcilingStrategy.getOffsetDelta( update.model, update.containers.get( i ),
+                    update.containerOffsets.get( i ) );
+
+                if ( delta != LdifReconcilingStrategy.NO_OFFSET )
                 {
-                    if ( !ldifPart.isValid() )
-                    {
-                        if ( errorOffset == -1 )
-                        {
-                            // errorPart = part;
-                            errorOffset = ldifPart.getOffset();
-                            errorLength = ldifPart.getLength();
-                            errorText = new StringBuilder();
-                            errorText.append( ldifPart.toRawString() );
-                        }
-                        else
-                        {
-                            errorLength += ldifPart.getLength();
-                            errorText.append( ldifPart.toRawString() );
-                        }
-                    }
+                    Position position = update.positions.get( annotation );
+                    annotationsToAdd.put( annotation, new Position( position.getOffset() + delta, position
+                        .getLength() ) );
                 }
+            }
+        }
+
+        containerAnnotations.addAll( update.range[0], update.annotations );
+
+        if ( !annotationsToRemove.isEmpty() || !annotationsToAdd.isEmpty() )
+        {
+            ( ( IAnnotationModelExtension ) annotationModel ).replaceAnnotations( annotationsToRemove
+                .toArray( new Annotation[annotationsToRemove.size()] ), annotationsToAdd );
+        }
+    }
+
+
+    /**
+     * Creates the error annotation of the given container.
+     *
+     * @param ldifContainer the container
+     * @param annotationsToAdd the map the new annotation and its position are added to
+     * @return the error annotation, or null if the container is valid
+     */
+    private Annotation createAnnotation( LdifContainer ldifContainer, Map<Annotation, Position> annotationsToAdd )
+    {
+        // LdifPart errorPart = null;
+        int errorOffset = -1;
+        int errorLength = -1;
+        StringBuilder errorText = null;
 
-                if ( errorOffset == -1 && !ldifContainer.isValid() )
+        LdifPart[] parts = ldifContainer.getParts();
+        
+        for ( LdifPart ldifPart : parts )
+        {
+            if ( !ldifPart.isValid() )
+            {
+                if ( errorOffset == -1 )
                 {
-                    errorOffset = ldifContainer.getOffset();
-                    errorLength = ldifContainer.getLength();
+                    // errorPart = part;
+                    errorOffset = ldifPart.getOffset();
+                    errorLength = ldifPart.getLength();
                     errorText = new StringBuilder();
-                    errorText.append( ldifContainer.toRawString() );
+                    errorText.append( ldifPart.toRawString() );
                 }
-
-                if ( errorOffset > -1 )
+                else
                 {
-                    Annotation annotation = new Annotation( ERROR_ANNOTATION_TYPE, true, errorText.toString() );
-                    Position position = new Position( errorOffset, errorLength );
-                    positionList.add( position );
-                    viewer.getAnnotationModel().addAnnotation( annotation, position );
+                    errorLength += ldifPart.getLength();
+                    errorText.append( ldifPart.toRawString() );
                 }
             }
         }
+
+        if ( errorOffset == -1 && !ldifContainer.isValid() )
+        {
+            errorOffset = ldifContainer.getOffset();
+            errorLength = ldifContainer.getLength();
+            errorText = new StringBuilder();
+            errorText.append( ldifContainer.toRawString() );
+        }
+
+        Annotation annotation = null;
+
+        if ( errorOffset > -1 )
+        {
+            annotation = new Annotation( ERROR_ANNOTATION_TYPE, true, errorText.toString() );
+            annotationsToAdd.put( annotation, new Position( errorOffset, errorLength ) );
+        }
+
+        return annotation;
     }
 
-}
\ No newline at end of file
+    /**
+     * The error annotations computed for the containers replaced since the previous update.
+     */
+    private static class AnnotationUpdate
+    {
+        /** The model */
+        private LdifFile model;
+
+        /** The replaced containers: {index, removed count, inserted count} */
+        private int[] range;
+
+        /** Flag indicating that all annotations are replaced */
+        private boolean complete;
+
+        /** The inserted containers */
+        private List<LdifContainer> containers = new ArrayList<LdifContainer>();
+
+        /** The offsets of the inserted containers when the annotations were computed */
+        private List<Integer> containerOffsets = new ArrayList<Integer>();
+
+        /** The annotations of the inserted containers, null for valid containers */
+        private List<Annotation> annotations = new ArrayList<Annotation>();
+
+        /** The positions of the annotations when they were computed */
+        private Map<Annotation, Position> positions = new HashMap<Annotation, Position>();
+
+
+        private AnnotationUpdate( LdifFile model, int[] range, boolean complete )
+        {
+            this.model = model;
+            this.range = range;
+            this.complete = complete;
+        }
+    }
+}
@@ -37,15 +37,20 @@ import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.apache.directory.studio.ldifparser.model.lines.LdifNonEmptyLineBase;
 import org.apache.directory.studio.ldifparser.model.lines.LdifSepLine;
 
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.jface.text.BadLocationException;
 import org.eclipse.jface.text.IDocument;
+import org.eclipse.jface.text.IDocumentExtension4;
 import org.eclipse.jface.text.Position;
 import org.eclipse.jface.text.source.Annotation;
-import org.eclipse.jface.text.source.ISourceViewer;
 import org.eclipse.jface.text.source.projection.ProjectionAnnotation;
 import org.eclipse.jface.text.source.projection.ProjectionAnnotationModel;
 import org.eclipse.jface.util.IPropertyChangeListener;
 import org.eclipse.jface.util.PropertyChangeEvent;
+import org.eclipse.swt.widgets.Display;
 
 
 public class LdifFoldingRegionUpdater implements IPropertyChangeListener
@@ -53,6 +58,30 @@ public class LdifFoldingRegionUpdater implements IPropertyChangeListener
 
     private ILdifEditor editor;
 
+    /** The document of the editor */
+    private volatile IDocument document;
+
+    /** The model of the last computed update, only accessed by {@link #update()} */
+    private LdifFile lastModel;
+
+    /** The modification count of the model at the last computed update, only accessed by {@link #update()} */
+    private int lastModificationCount;
+
+    /** Flag indicating that the next update must be a complete update */
+    private volatile boolean completeUpdateRequested;
+
+    /** 
+     * The folding annotations of the containers of the last applied update, in the order of the
+     * containers. Unchanged containers keep their annotations, the positions are tracked
+     * by the annotation model. Only accessed in the UI thread.
+     */
+    private List<List<ProjectionAnnotation>> containerAnnotations = new ArrayList<List<ProjectionAnnotation>>();
+
+    /** Flag indicating that an update could not be applied, only a complete update is applied then */
+    private boolean outOfSync;
+
+    private volatile boolean disposed;
+
 
     public LdifFoldingRegionUpdater( ILdifEditor editor )
     {
@@ -65,6 +94,19 @@ public class LdifFoldingRegionUpdater implements IPropertyChangeListener
     public void dispose()
     {
         LdifEditorActivator.getDefault().getPreferenceStore().removePropertyChangeListener( this );
+        disposed = true;
+        containerAnnotations.clear();
+    }
+
+
+    /**
+     * Sets the document the folding regions are computed for.
+     *
+     * @param document the document
+     */
+    public void setDocument( IDocument document )
+    {
+        this.document = document;
     }
 
 
@@ -75,152 +117,330 @@ public class LdifFoldingRegionUpdater implements IPropertyChangeListener
             || LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_INITIALLYFOLDRECORDS.equals( event.getProperty() )
             || LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_INITIALLYFOLDWRAPPEDLINES.equals( event.getProperty() ) )
         {
-            this.updateFoldingRegions();
+            // recreate the folding regions of all containers, not in the UI thread
+            completeUpdateRequested = true;
+            Job job = new Job( "LDIF Folding" ) //$NON-NLS-1$
+            {
+                protected IStatus run( IProgressMonitor monitor )
+                {
+                    update();
+                    return Status.OK_STATUS;
+                }
+            };
+            job.setSystem( true );
+            job.schedule();
         }
     }
 
 
-    public void updateFoldingRegions()
+    /**
+     * Computes the folding regions of the containers that have been changed since
+     * the last update in the calling thread. Only the modification of the projection
+     * annotation model is posted to the UI thread.
+     */
+    public synchronized void update()
     {
+        LdifFile model = editor.getLdifModel();
+        IDocument document = this.document;
 
-        ISourceViewer viewer = ( ISourceViewer ) editor.getAdapter( ISourceViewer.class );
-        if ( viewer == null )
+        if ( model == null || document == null || disposed )
+        {
             return;
+        }
 
-        IDocument document = viewer.getDocument();
+        boolean ENABLE_FOLDING = LdifEditorActivator.getDefault().getPreferenceStore().getBoolean(
+            LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_ENABLE );
+        boolean FOLD_COMMENTS = LdifEditorActivator.getDefault().getPreferenceStore().getBoolean(
+            LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_INITIALLYFOLDCOMMENTS );
+        boolean FOLD_RECORDS = LdifEditorActivator.getDefault().getPreferenceStore().getBoolean(
+            LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_INITIALLYFOLDRECORDS );
+        boolean FOLD_WRAPPEDLINES = LdifEditorActivator.getDefault().getPreferenceStore().getBoolean(
+            LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_INITIALLYFOLDWRAPPEDLINES );
 
-        try
+        final FoldingUpdate update;
+
+        // the containers must not be replaced while the changed ones are read
+        synchronized ( model )
         {
-            ProjectionAnnotationModel projectionAnnotationModel = ( ProjectionAnnotationModel ) editor
-                .getAdapter( ProjectionAnnotationModel.class );
-            if ( projectionAnnotationModel == null )
+            if ( completeUpdateRequested )
+            {
+                completeUpdateRequested = false;
+                lastModel = null;
+            }
+
+            // the containers replaced since the last update: {index, removed count, inserted count}
+            int[] range = ( model == lastModel ) ? model.getChangedRange( lastModificationCount ) : null;
+            boolean complete = range == null;
+
+            if ( complete )
+            {
+                range = new int[]
+                    { 0, 0, model.getContainerCount() };
+            }
+            else if ( range[1] == 0 && range[2] == 0 )
+            {
                 return;
+            }
 
-            // create folding regions of current LDIF model; mark comments
-            // and
-            // folded lines as collapsed
-            Map<Position, ProjectionAnnotation> positionToAnnotationMap = createFoldingRegions( editor.getLdifModel(), document );
-
-            // compare with current annotation model (--> toAdd, toDelete)
-            List<Annotation> annotationsToDeleteList = new ArrayList<Annotation>();
-            Map<ProjectionAnnotation, Position> annotationsToAddMap = new HashMap<ProjectionAnnotation, Position>();
-            this.computeDifferences( projectionAnnotationModel, positionToAnnotationMap, annotationsToDeleteList,
-                annotationsToAddMap );
-            Annotation[] annotationsToDelete = ( Annotation[] ) annotationsToDeleteList
-                .toArray( new Annotation[annotationsToDeleteList.size()] );
-
-            // update annotation model
-            if ( !annotationsToDeleteList.isEmpty() || !annotationsToAddMap.isEmpty() )
+            update = new FoldingUpdate( model, range, complete );
+            long modificationStamp = getModificationStamp( document );
+
+            try
             {
-                projectionAnnotationModel.modifyAnnotations( annotationsToDelete, annotationsToAddMap,
-                    new Annotation[0] );
+                // create folding regions of the new containers; mark comments
+                // and folded lines as collapsed
+                for ( int i = range[0]; i < range[0] + range[2]; i++ )
+                {
+                    LdifContainer ldifContainer = model.getContainer( i );
+                    update.containers.add( ldifContainer );
+                    update.containerOffsets.add( ldifContainer.getOffset() );
+                    update.foldingRegions.add( ENABLE_FOLDING ? createFoldingRegions( ldifContainer, document,
+                        FOLD_COMMENTS, FOLD_RECORDS, FOLD_WRAPPEDLINES )
+                        : new HashMap<Position, ProjectionAnnotation>() );
+                }
+            }
+            catch ( BadLocationException e )
+            {
+                // the document has been changed, but the model not yet
+                lastModel = null;
+                return;
             }
 
+            if ( modificationStamp != getModificationStamp( document ) )
+            {
+                // the lines may not match the containers, compute the changes again with the next update
+                return;
+            }
+
+            lastModel = model;
+            lastModificationCount = model.getModificationCount();
         }
-        catch ( BadLocationException e )
+
+        Display.getDefault().asyncExec( new Runnable()
         {
-            e.printStackTrace();
-        }
+            public void run()
+            {
+                apply( update );
+            }
+        } );
     }
 
 
-    private void computeDifferences( ProjectionAnnotationModel model, Map<Position, ProjectionAnnotation> positionToAnnotationMap,
-        List<Annotation> annotationsToDeleteList, Map<ProjectionAnnotation, Position> annotationsToAddMap )
+    /**
+     * Replaces the folding annotations of the replaced containers by the computed folding
+     * regions of the new containers. Existing annotations at the same position are reused
+     * to keep their collapsed state. Must be called in the UI thread, in the order of the updates.
+     *
+     * @param update the computed update
+     */
+    private void apply( FoldingUpdate update )
     {
-        for ( Iterator<Annotation> iter = model.getAnnotationIterator(); iter.hasNext(); )
+        if ( disposed )
         {
-            Annotation annotation = iter.next();
-            
-            if ( annotation instanceof ProjectionAnnotation )
+            return;
+        }
+
+        ProjectionAnnotationModel projectionAnnotationModel = ( ProjectionAnnotationModel ) editor
+            .getAdapter( ProjectionAnnotationModel.class );
+
+        if ( projectionAnnotationModel == null || ( outOfSync && !update.complete ) )
+        {
+            // the annotations of the containers are not known anymore, start over
+            outOfSync = true;
+            completeUpdateRequested = true;
+            return;
+        }
+
+        outOfSync = false;
+
+        // the annotations of removed containers, they are reused for a new folding region 
+        // at the same position to keep the collapsed state, or deleted
+        Map<Position, Annotation> positionToOldAnnotationMap = new HashMap<Position, Annotation>();
+
+        if ( update.complete )
+        {
+            containerAnnotations.clear();
+
+            for ( Iterator<Annotation> iter = projectionAnnotationModel.getAnnotationIterator(); iter.hasNext(); )
             {
-                Position position = model.getPosition( ( Annotation ) annotation );
-                
-                if ( positionToAnnotationMap.containsKey( position ) )
+                Annotation annotation = iter.next();
+
+                if ( annotation instanceof ProjectionAnnotation )
                 {
-                    positionToAnnotationMap.remove( position );
+                    positionToOldAnnotationMap.put( projectionAnnotationModel.getPosition( annotation ), annotation );
                 }
-                else
+            }
+        }
+        else
+        {
+            List<List<ProjectionAnnotation>> removedAnnotations = containerAnnotations.subList( update.range[0],
+                update.range[0] + update.range[1] );
+
+            for ( List<ProjectionAnnotation> annotations : removedAnnotations )
+            {
+                for ( ProjectionAnnotation annotation : annotations )
                 {
-                    annotationsToDeleteList.add( annotation );
+                    Position position = projectionAnnotationModel.getPosition( annotation );
+
+                    if ( position != null )
+                    {
+                        positionToOldAnnotationMap.put( position, annotation );
+                    }
                 }
             }
+
+            removedAnnotations.clear();
         }
 
-        for ( Map.Entry<Position, ProjectionAnnotation> entry : positionToAnnotationMap.entrySet() )
+        Map<ProjectionAnnotation, Position> annotationsToAddMap = new HashMap<ProjectionAnnotation, Position>();
+        List<List<ProjectionAnnotation>> insertedAnnotations = new ArrayList<List<ProjectionAnnotation>>(
+            update.range[2] );
+
+        for ( int i = 0; i < update.foldingRegions.size(); i++ )
         {
-            annotationsToAddMap.put( entry.getValue(), entry.getKey() );
+            List<ProjectionAnnotation> annotations = new ArrayList<ProjectionAnnotation>();
+
+            // the document may have been changed since the folding regions were computed,
+            // so the positions are moved with their container
+            int delta = LdifReconcilingStrategy.getOffsetDelta( update.model, update.containers.get( i ),
+                update.containerOffsets.get( i ) );
+
+            if ( delta != LdifReconcilingStrategy.NO_OFFSET )
+            {
+                for ( Map.Entry<Position, ProjectionAnnotation> entry : update.foldingRegions.get( i ).entrySet() )
+                {
+                    Position position = new Position( entry.getKey().getOffset() + delta, entry.getKey()
+                        .getLength() );
+                    Annotation oldAnnotation = positionToOldAnnotationMap.remove( position );
+
+                    if ( oldAnnotation instanceof ProjectionAnnotation )
+                    {
+                        annotations.add( ( ProjectionAnnotation ) oldAnnotation );
+                    }
+                    else
+                    {
+                        annotations.add( entry.getValue() );
+                        annotationsToAddMap.put( entry.getValue(), position );
+                    }
+                }
+            }
+
+            insertedAnnotations.add( annotations );
+        }
+
+        containerAnnotations.addAll( update.range[0], insertedAnnotations );
+
+        Annotation[] annotationsToDelete = positionToOldAnnotationMap.values().toArray(
+            new Annotation[positionToOldAnnotationMap.size()] );
+
+        // update annotation model
+        if ( annotationsToDelete.length > 0 || !annotationsToAddMap.isEmpty() )
+        {
+            projectionAnnotationModel.modifyAnnotations( annotationsToDelete, annotationsToAddMap,
+                new Annotation[0] );
         }
     }
 
 
+    private static long getModificationStamp( IDocument document )
+    {
+        if ( document instanceof IDocumentExtension4 )
+        {
+            return ( ( IDocumentExtension4 ) document ).getModificationStamp();
+        }
+
+        return IDocumentExtension4.UNKNOWN_MODIFICATION_STAMP;
+    }
+
+
     /**
-     * Creates all folding region of the given LDIF model.
+     * Creates the folding regions of the given LDIF container.
      * LdifCommentContainers and wrapped lines are marked as collapsed.
      * 
-     * @param model
+     * @param ldifContainer
      * @param document
+     * @param foldComments
+     * @param foldRecords
+     * @param foldWrappedLines
      * @return a map with positions as keys to annotations as values
      * @throws BadLocationException
      */
-    private Map<Position, ProjectionAnnotation> createFoldingRegions( LdifFile model, IDocument document ) throws BadLocationException
+    private Map<Position, ProjectionAnnotation> createFoldingRegions( LdifContainer ldifContainer, IDocument document,
+        boolean foldComments, boolean foldRecords, boolean foldWrappedLines ) throws BadLocationException
     {
         Map<Position, ProjectionAnnotation> positionToAnnotationMap = new HashMap<Position, ProjectionAnnotation>();
-        List<LdifContainer> containers = model.getContainers();
 
-        boolean ENABLE_FOLDING = LdifEditorActivator.getDefault().getPreferenceStore().getBoolean(
-            LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_ENABLE );
-        boolean FOLD_COMMENTS = LdifEditorActivator.getDefault().getPreferenceStore().getBoolean(
-            LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_INITIALLYFOLDCOMMENTS );
-        boolean FOLD_RECORDS = LdifEditorActivator.getDefault().getPreferenceStore().getBoolean(
-            LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_INITIALLYFOLDRECORDS );
-        boolean FOLD_WRAPPEDLINES = LdifEditorActivator.getDefault().getPreferenceStore().getBoolean(
-            LdifEditorConstants.PREFERENCE_LDIFEDITOR_FOLDING_INITIALLYFOLDWRAPPEDLINES );
-
-        if ( ENABLE_FOLDING )
+        int containerStartLine = document.getLineOfOffset( ldifContainer.getOffset() );
+        int containerEndLine = -1;
+        LdifPart[] parts = ldifContainer.getParts();
+        
+        for ( int j = parts.length - 1; j >= 0; j-- )
         {
-            for ( LdifContainer ldifContainer : containers )
+            if ( containerEndLine == -1
+                && ( !( parts[j] instanceof LdifSepLine ) || ( ldifContainer instanceof LdifCommentContainer && j < parts.length - 1 ) ) )
             {
-                int containerStartLine = document.getLineOfOffset( ldifContainer.getOffset() );
-                int containerEndLine = -1;
-                LdifPart[] parts = ldifContainer.getParts();
+                containerEndLine = document.getLineOfOffset( parts[j].getOffset() + parts[j].getLength() - 1 );
+                // break;
+            }
+            
+            if ( parts[j] instanceof LdifNonEmptyLineBase )
+            {
+                LdifNonEmptyLineBase line = ( LdifNonEmptyLineBase ) parts[j];
                 
-                for ( int j = parts.length - 1; j >= 0; j-- )
-                {
-                    if ( containerEndLine == -1
-                        && ( !( parts[j] instanceof LdifSepLine ) || ( ldifContainer instanceof LdifCommentContainer && j < parts.length - 1 ) ) )
-                    {
-                        containerEndLine = document.getLineOfOffset( parts[j].getOffset() + parts[j].getLength() - 1 );
-                        // break;
-                    }
-                    
-                    if ( parts[j] instanceof LdifNonEmptyLineBase )
-                    {
-                        LdifNonEmptyLineBase line = ( LdifNonEmptyLineBase ) parts[j];
-                        
-                        if ( line.isFolded() )
-                        {
-                            Position position = new Position( line.getOffset(), line.getLength() );
-                            // ProjectionAnnotation annotation = new
-                            // ProjectionAnnotation(true);
-                            ProjectionAnnotation annotation = new ProjectionAnnotation( FOLD_WRAPPEDLINES );
-                            positionToAnnotationMap.put( position, annotation );
-                        }
-                    }
-                }
-
-                if ( containerStartLine < containerEndLine )
+                if ( line.isFolded() )
                 {
-                    int start = document.getLineOffset( containerStartLine );
-                    int end = document.getLineOffset( containerEndLine ) + document.getLineLength( containerEndLine );
-                    Position position = new Position( start, end - start );
-                    ProjectionAnnotation annotation = new ProjectionAnnotation( FOLD_RECORDS
-                        || ( FOLD_COMMENTS && ldifContainer instanceof LdifCommentContainer ) );
+                    Position position = new Position( line.getOffset(), line.getLength() );
+                    // ProjectionAnnotation annotation = new
+                    // ProjectionAnnotation(true);
+                    ProjectionAnnotation annotation = new ProjectionAnnotation( foldWrappedLines );
                     positionToAnnotationMap.put( position, annotation );
                 }
             }
         }
 
+        if ( containerStartLine < containerEndLine )
+        {
+            int start = document.getLineOffset( containerStartLine );
+            int end = document.getLineOffset( containerEndLine ) + document.getLineLength( containerEndLine );
+            Position position = new Position( start, end - start );
+            ProjectionAnnotation annotation = new ProjectionAnnotation( foldRecords
+                || ( foldComments && ldifContainer instanceof LdifCommentContainer ) );
+            positionToAnnotationMap.put( position, annotation );
+        }
+
         return positionToAnnotationMap;
     }
 
+    /**
+     * The folding regions computed for the containers replaced since the previous update.
+     */
+    private static class FoldingUpdate
+    {
+        /** The model */
+        private LdifFile model;
+
+        /** The replaced containers: {index, removed count, inserted count} */
+        private int[] range;
+
+        /** Flag indicating that all folding regions are replaced */
+        private boolean complete;
+
+        /** The inserted containers */
+        private List<LdifContainer> containers = new ArrayList<LdifContainer>();
+
+        /** The offsets of the inserted containers when the folding regions were computed */
+        private List<Integer> containerOffsets = new ArrayList<Integer>();
+
+        /** The folding regions of the inserted containers */
+        private List<Map<Position, ProjectionAnnotation>> foldingRegions =
+            new ArrayList<Map<Position, ProjectionAnnotation>>();
+
+
+        private FoldingUpdate( LdifFile model, int[] range, boolean complete )
+        {
+            this.model = model;
+            this.range = range;
+            this.complete = complete;
+        }
+    }
 }
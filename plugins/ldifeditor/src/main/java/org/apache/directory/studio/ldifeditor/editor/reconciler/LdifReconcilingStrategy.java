@@ -21,8 +21,12 @@
 package org.apache.directory.studio.ldifeditor.editor.reconciler;
 
 
+import java.util.concurrent.atomic.AtomicBoolean;
+
 import org.apache.directory.studio.ldifeditor.editor.ILdifEditor;
 import org.apache.directory.studio.ldifeditor.editor.LdifOutlinePage;
+import org.apache.directory.studio.ldifparser.model.LdifFile;
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
@@ -33,8 +37,17 @@ import org.eclipse.swt.widgets.Display;
 import org.eclipse.ui.views.contentoutline.IContentOutlinePage;
 
 
+/**
+ * The reconciling strategy of the LDIF editor. The error annotations and folding regions
+ * of the changed containers are computed in the reconciler thread, only the modifications
+ * of the annotation models and the update of the outline are done in the UI thread.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
 public class LdifReconcilingStrategy implements IReconcilingStrategy, IReconcilingStrategyExtension
 {
+    /** The value of {@link #getOffsetDelta(LdifFile, LdifContainer, int)} for removed containers */
+    static final int NO_OFFSET = Integer.MIN_VALUE;
 
     private ILdifEditor editor;
 
@@ -45,6 +58,12 @@ public class LdifReconcilingStrategy implements IReconcilingStrategy, IReconcili
 
     private LdifAnnotationUpdater annotationUpdater;
 
+    /** 
+     * Flag indicating that an update of the outline is already scheduled in the UI thread. 
+     * Further reconciles until the update runs are coalesced, the update considers all changes.
+     */
+    private AtomicBoolean outlineUpdateScheduled = new AtomicBoolean( false );
+
 
     public LdifReconcilingStrategy( ILdifEditor editor )
     {
@@ -65,7 +84,7 @@ public class LdifReconcilingStrategy implements IReconcilingStrategy, IReconcili
 
     public void setDocument( IDocument document )
     {
-        // this.document = document;
+        foldingUpdater.setDocument( document );
     }
 
 
@@ -95,33 +114,61 @@ public class LdifReconcilingStrategy implements IReconcilingStrategy, IReconcili
 
     private void reconcile()
     {
-        notifyEnvironment();
+        // compute the annotations of the changed containers, the updaters post the results to the UI thread
+        annotationUpdater.update();
+        foldingUpdater.update();
+
+        notifyOutline();
     }
 
 
-    private void notifyEnvironment()
+    private void notifyOutline()
     {
+        if ( !outlineUpdateScheduled.compareAndSet( false, true ) )
+        {
+            // the scheduled update isn't executed yet and will include this change 
+            return;
+        }
 
         Display.getDefault().asyncExec( new Runnable()
         {
             public void run()
             {
+                outlineUpdateScheduled.set( false );
 
-                // notify outline
+                // notify outline, only the changed records are updated
                 IContentOutlinePage outline = ( IContentOutlinePage ) editor.getAdapter( IContentOutlinePage.class );
                 if ( outline instanceof LdifOutlinePage )
                 {
-                    ( ( LdifOutlinePage ) outline ).refresh();
+                    ( ( LdifOutlinePage ) outline ).update();
                 }
+            }
+        } );
+    }
 
-                // notify annotation updater
-                annotationUpdater.updateAnnotations();
 
-                // notify folding updater
-                foldingUpdater.updateFoldingRegions();
+    /**
+     * Gets the distance the given container has been moved since its offset was taken,
+     * as the document may have been changed meanwhile.
+     *
+     * @param model the model
+     * @param container the container
+     * @param offset the previous offset of the container
+     * @return the distance, or {@link #NO_OFFSET} if the container has been removed from the model
+     */
+    static int getOffsetDelta( LdifFile model, LdifContainer container, int offset )
+    {
+        synchronized ( model )
+        {
+            int index = model.indexOf( container );
 
+            if ( index < 0 )
+            {
+                return NO_OFFSET;
             }
-        } );
+
+            return model.getContainer( index ).getOffset() - offset;
+        }
     }
 
 }
@@ -21,9 +21,7 @@
 package org.apache.directory.studio.ldifeditor.editor.text;
 
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 import org.apache.directory.studio.ldifeditor.LdifEditorActivator;
@@ -57,10 +55,8 @@ import org.eclipse.jface.text.DocumentEvent;
 import org.eclipse.jface.text.IDocument;
 import org.eclipse.jface.text.IRegion;
 import org.eclipse.jface.text.ITypedRegion;
-import org.eclipse.jface.text.Region;
 import org.eclipse.jface.text.TextAttribute;
 import org.eclipse.jface.text.TextPresentation;
-import org.eclipse.jface.text.TextUtilities;
 import org.eclipse.jface.text.presentation.IPresentationDamager;
 import org.eclipse.jface.text.presentation.IPresentationRepairer;
 import org.eclipse.swt.SWT;
@@ -97,21 +93,7 @@ public class LdifDamagerRepairer implements IPresentationDamager, IPresentationR
     {
 
         LdifFile ldifModel = this.editor.getLdifModel();
-        List<LdifContainer> allContainers = ldifModel.getContainers();
-        List<LdifContainer> containerList = new ArrayList<LdifContainer>();
-
-        for ( LdifContainer ldifContainer : allContainers )
-        {
-            Region containerRegion = new Region( ldifContainer.getOffset(), ldifContainer.getLength() );
-
-            if ( TextUtilities.overlaps( containerRegion, damage ) )
-            {
-                containerList.add( ldifContainer );
-            }
-        }
-
-        LdifContainer[] containers = ( LdifContainer[] ) containerList
-            .toArray( new LdifContainer[containerList.size()] );
+        LdifContainer[] containers = LdifFile.getContainers( ldifModel, damage.getOffset(), damage.getLength() );
         this.highlight( containers, presentation, damage );
     }
 
@@ -22,8 +22,11 @@ package org.apache.directory.studio.ldifparser.model;
 
 
 import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.List;
 
 import org.apache.directory.studio.ldifparser.LdifFormatParameters;
@@ -35,6 +38,11 @@ import org.apache.directory.studio.ldifparser.model.container.LdifRecord;
 
 /**
  * A LDIF file, as we manipulate it in Studio. It's a list of LdifContainer.
+ * 
+ * The LDIF editor replaces containers in the UI thread while the reconciler
+ * reads them in its own thread, so all accesses to the container list are
+ * synchronized on the LdifFile. The containers returned by the accessors
+ * always have the offsets of the current content.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -49,6 +57,31 @@ public class LdifFile implements Serializable
     /** A flag which is set if a LdifChange is added into the LdifFile */
     private boolean hasChanges = false;
 
+    /** 
+     * The index of the first container whose offsets are not adjusted yet. 
+     * The offsets of all containers starting at this index must be adjusted
+     * by pendingAdjust. Shifting the offsets of following containers after a
+     * replace is deferred, it is only done for the containers that are accessed
+     * afterwards. Hence typing in a large file only adjusts the containers between
+     * the current and the previous modification instead of all following containers.
+     */
+    private int pendingAdjustIndex = 0;
+
+    /** The pending offset adjustment, see pendingAdjustIndex */
+    private int pendingAdjust = 0;
+
+    /** The maximum number of changes kept in the change log */
+    private static final int MAX_CHANGE_LOG_SIZE = 64;
+
+    /** The number of changes of the container list since the creation of this file */
+    private int modificationCount = 0;
+
+    /**
+     * The last changes of the container list, as {index, removed count, inserted count}.
+     * The last entry is the change numbered modificationCount.
+     */
+    private Deque<int[]> changeLog = new ArrayDeque<int[]>();
+
 
     /**
      * Create an instance of a LdifFile.
@@ -63,7 +96,7 @@ public class LdifFile implements Serializable
      *
      * @return true if the LDIF file does not contain any change
      */
-    public boolean isContentType()
+    public synchronized boolean isContentType()
     {
         return !hasChanges;
     }
@@ -74,7 +107,7 @@ public class LdifFile implements Serializable
      *
      * @return true if the LDIF file is a Change LDIF
      */
-    public boolean isChangeType()
+    public synchronized boolean isChangeType()
     {
         return hasChanges;
     }
@@ -85,8 +118,10 @@ public class LdifFile implements Serializable
      * 
      * @param container The added LdifContainer
      */
-    public void addContainer( LdifContainer container )
+    public synchronized void addContainer( LdifContainer container )
     {
+        applyPendingAdjust( containerList.size() );
+        logChange( containerList.size(), 0, 1 );
         containerList.add( container );
         
         if ( container instanceof LdifChangeRecord )
@@ -97,20 +132,180 @@ public class LdifFile implements Serializable
 
 
     /**
+     * Gets a read-only view of the containers. The view is backed by this file,
+     * getting a container from the view is the same as {@link #getContainer(int)},
+     * so only the containers that are actually accessed get their offsets adjusted.
+     * 
      * @return A list of LdifContainers, including version, comments, records and unknown
      */
     public List<LdifContainer> getContainers()
     {
-        return containerList;
+        return new AbstractList<LdifContainer>()
+        {
+            public LdifContainer get( int index )
+            {
+                return getContainer( index );
+            }
+
+
+            public int size()
+            {
+                return getContainerCount();
+            }
+        };
+    }
+
+
+    /**
+     * @return The number of LdifContainers, including version, comments, records and unknown
+     */
+    public synchronized int getContainerCount()
+    {
+        return containerList.size();
+    }
+
+
+    /**
+     * Gets the container at the given index. The offsets of the returned container
+     * are the ones of the current content, a pending adjustment is applied before.
+     *
+     * @param index The index of the container
+     * @return The container at the given index
+     */
+    public synchronized LdifContainer getContainer( int index )
+    {
+        applyPendingAdjust( index + 1 );
+
+        return containerList.get( index );
+    }
+
+
+    /**
+     * Retrieve the index of the container at the given offset. Uses a binary search,
+     * the containers are ordered by their offset.
+     *
+     * @param offset The position in the file
+     * @return The index of the container, or -1 if there is no container at the given offset
+     */
+    public synchronized int getContainerIndex( int offset )
+    {
+        int index = getLastContainerIndexBefore( offset );
+
+        if ( ( index >= 0 ) && ( offset < getAdjustedOffset( index ) + containerList.get( index ).getLength() ) )
+        {
+            return index;
+        }
+
+        return -1;
+    }
+
+
+    /**
+     * Gets the index of the first container that may overlap the given offset,
+     * this is the container preceding the one at the offset. Containers before
+     * this index end before the given offset.
+     *
+     * @param offset The position in the file
+     * @return The index of the first container to check
+     */
+    public synchronized int getFirstContainerIndex( int offset )
+    {
+        return Math.max( 0, getLastContainerIndexBefore( offset ) - 1 );
+    }
+
+
+    /**
+     * Gets the index of the last container starting at or before the given offset.
+     *
+     * @param offset The position in the file
+     * @return The index of the container, or -1 if all containers start after the offset
+     */
+    private int getLastContainerIndexBefore( int offset )
+    {
+        int low = 0;
+        int high = containerList.size() - 1;
+        int index = -1;
+
+        while ( low <= high )
+        {
+            int mid = ( low + high ) >>> 1;
+
+            if ( getAdjustedOffset( mid ) <= offset )
+            {
+                index = mid;
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid - 1;
+            }
+        }
+
+        return index;
+    }
+
+
+    /**
+     * Gets the offset of the container at the given index, including a pending adjustment.
+     *
+     * @param index The index of the container
+     * @return The offset of the container
+     */
+    private int getAdjustedOffset( int index )
+    {
+        int offset = containerList.get( index ).getOffset();
+
+        if ( index >= pendingAdjustIndex )
+        {
+            offset += pendingAdjust;
+        }
+
+        return offset;
+    }
+
+
+    /**
+     * Applies the pending offset adjustment to all containers before the given index.
+     *
+     * @param toIndex The index of the first container that needs not to be adjusted
+     */
+    private void applyPendingAdjust( int toIndex )
+    {
+        if ( pendingAdjust == 0 )
+        {
+            pendingAdjustIndex = containerList.size();
+            return;
+        }
+
+        toIndex = Math.min( toIndex, containerList.size() );
+
+        for ( int i = pendingAdjustIndex; i < toIndex; i++ )
+        {
+            containerList.get( i ).adjustOffset( pendingAdjust );
+        }
+
+        if ( toIndex > pendingAdjustIndex )
+        {
+            pendingAdjustIndex = toIndex;
+        }
+
+        if ( pendingAdjustIndex >= containerList.size() )
+        {
+            pendingAdjust = 0;
+        }
     }
 
 
     /**
+     * Gets all records, this requires to visit all containers. Views that are updated
+     * while editing should use {@link #getChangedRange(int)} and {@link #getContainer(int)}.
+     * 
      * @return An array of LdifRecords (even invalid), no LdifVersion, LdifComments, or LdifUnknown
      */
-    public LdifRecord[] getRecords()
+    public synchronized LdifRecord[] getRecords()
     {
         List<LdifRecord> recordList = new ArrayList<LdifRecord>();
+        applyPendingAdjust( containerList.size() );
 
         for ( LdifContainer container : containerList )
         {
@@ -127,7 +322,7 @@ public class LdifFile implements Serializable
     /**
      * @return the last LdifContainer, or null
      */
-    public LdifContainer getLastContainer()
+    public synchronized LdifContainer getLastContainer()
     {
         if ( containerList.isEmpty() )
         {
@@ -135,12 +330,12 @@ public class LdifFile implements Serializable
         }
         else
         {
-            return containerList.get( containerList.size() - 1 );
+            return getContainer( containerList.size() - 1 );
         }
     }
 
 
-    public String toRawString()
+    public synchronized String toRawString()
     {
         StringBuilder sb = new StringBuilder();
 
@@ -153,7 +348,7 @@ public class LdifFile implements Serializable
     }
 
 
-    public String toFormattedString( LdifFormatParameters formatParameters )
+    public synchronized String toFormattedString( LdifFormatParameters formatParameters )
     {
         StringBuilder sb = new StringBuilder();
 
@@ -166,7 +361,7 @@ public class LdifFile implements Serializable
     }
 
 
-    public String toString()
+    public synchronized String toString()
     {
         StringBuilder sb = new StringBuilder();
 
@@ -193,21 +388,17 @@ public class LdifFile implements Serializable
             return null;
         }
 
-        List<LdifContainer> containers = model.getContainers();
-
-        if ( containers.size() > 0 )
+        synchronized ( model )
         {
-            for ( LdifContainer ldifContainer : containers )
+            int index = model.getContainerIndex( offset );
+
+            if ( index >= 0 )
             {
-                if ( ( ldifContainer.getOffset() <= offset ) &&
-                    ( offset < ldifContainer.getOffset() + ldifContainer.getLength() ) )
-                {
-                    return ldifContainer;
-                }
+                return model.getContainer( index );
             }
-        }
 
-        return null;
+            return null;
+        }
     }
 
 
@@ -250,14 +441,19 @@ public class LdifFile implements Serializable
         }
 
         List<LdifContainer> containerList = new ArrayList<LdifContainer>();
-        List<LdifContainer> containers = model.getContainers();
 
-        if ( containers.size() > 0 )
+        synchronized ( model )
         {
-            for ( LdifContainer container : containers )
+            for ( int i = model.getFirstContainerIndex( offset ); i < model.getContainerCount(); i++ )
             {
+                LdifContainer container = model.getContainer( i );
                 int containerOffset = container.getOffset();
 
+                if ( offset + length <= containerOffset )
+                {
+                    break;
+                }
+
                 if ( ( offset < containerOffset + container.getLength() ) &&
                     ( offset + length > containerOffset ) )
                 {
@@ -277,7 +473,22 @@ public class LdifFile implements Serializable
             return null;
         }
 
-        List<LdifContainer> containers = model.getContainers();
+        List<LdifContainer> containers = new ArrayList<LdifContainer>();
+
+        synchronized ( model )
+        {
+            for ( int i = model.getFirstContainerIndex( offset ); i < model.getContainerCount(); i++ )
+            {
+                LdifContainer container = model.getContainer( i );
+
+                if ( offset + length < container.getOffset() )
+                {
+                    break;
+                }
+
+                containers.add( container );
+            }
+        }
 
         return getParts( containers, offset, length );
 
@@ -374,16 +585,27 @@ public class LdifFile implements Serializable
     }
 
 
-    public void replace( LdifContainer[] oldContainers, List<LdifContainer> newContainers )
+    /**
+     * Replaces the given old containers by the given new containers. The
+     * offsets of the new containers are relative to the offset of the first
+     * old container. The offsets of the following containers are adjusted lazily.
+     *
+     * @param oldContainers The containers to replace, in order
+     * @param newContainers The new containers, with offsets starting at 0
+     */
+    public synchronized void replace( LdifContainer[] oldContainers, List<LdifContainer> newContainers )
     {
         // find index
         int index = 0;
 
         if ( oldContainers.length > 0 )
         {
-            index = containerList.indexOf( oldContainers[0] );
+            index = indexOf( oldContainers[0] );
         }
 
+        // the old containers and the following ones must have valid offsets 
+        applyPendingAdjust( index + oldContainers.length );
+
         // remove old containers
         int removeLength = 0;
         int removeOffset = 0;
@@ -394,30 +616,164 @@ public class LdifFile implements Serializable
 
             for ( int i = 0; i < oldContainers.length; i++ )
             {
-                containerList.remove( index );
                 removeLength += oldContainers[i].getLength();
             }
+
+            containerList.subList( index, index + oldContainers.length ).clear();
         }
 
         // add new containers
         int insertLength = 0;
-        int pos = 0;
 
         for ( LdifContainer ldifContainer : newContainers )
         {
             ldifContainer.adjustOffset( removeOffset );
             insertLength += ldifContainer.getLength();
-            containerList.add( index + pos, ldifContainer );
-            pos++;
         }
 
-        // adjust offset of following containers
+        containerList.addAll( index, newContainers );
+        logChange( index, oldContainers.length, newContainers.size() );
+
+        // adjust offset of following containers: the containers between the new containers 
+        // and the pending index are adjusted now, the remaining ones lazily
         int adjust = insertLength - removeLength;
+        int firstFollowingIndex = index + newContainers.size();
+        int pendingIndex = pendingAdjustIndex - oldContainers.length + newContainers.size();
+
+        if ( pendingAdjust == 0 )
+        {
+            pendingIndex = firstFollowingIndex;
+        }
+
+        for ( int i = firstFollowingIndex; i < pendingIndex; i++ )
+        {
+            containerList.get( i ).adjustOffset( adjust );
+        }
+
+        pendingAdjustIndex = pendingIndex;
+        pendingAdjust += adjust;
+
+        if ( pendingAdjustIndex >= containerList.size() )
+        {
+            pendingAdjust = 0;
+        }
+    }
+
+
+    /**
+     * Gets the number of changes of the container list since the creation of this file.
+     * It is used with {@link #getChangedRange(int)} to update a view incrementally.
+     *
+     * @return The modification count
+     */
+    public synchronized int getModificationCount()
+    {
+        return modificationCount;
+    }
+
 
-        for ( int i = index + newContainers.size(); i < containerList.size(); i++ )
+    /**
+     * Gets the range of containers changed since the given modification count, as 
+     * {index, removed count, inserted count}: the containers starting at index have been
+     * replaced, the removed count containers there before the changes have been replaced
+     * by the inserted count containers there now. The containers before and after this range
+     * are unchanged, only the offsets of the following containers may have been adjusted.
+     *
+     * @param sinceModificationCount The modification count of the last update of the caller
+     * @return The changed range, or null if the changes are not known anymore and the caller 
+     *         needs to do a complete update
+     */
+    public synchronized int[] getChangedRange( int sinceModificationCount )
+    {
+        int changes = modificationCount - sinceModificationCount;
+
+        if ( ( changes < 0 ) || ( changes > changeLog.size() ) )
+        {
+            return null;
+        }
+
+        int[] range = null;
+        int skip = changeLog.size() - changes;
+
+        for ( int[] change : changeLog )
+        {
+            if ( skip > 0 )
+            {
+                skip--;
+            }
+            else
+            {
+                range = ( range == null ) ? change.clone() : mergeChanges( range, change );
+            }
+        }
+
+        return ( range != null ) ? range : new int[]
+            { 0, 0, 0 };
+    }
+
+
+    /**
+     * Merges two consecutive changes into a single one.
+     *
+     * @param first The first change
+     * @param second The second change, with an index relative to the list after the first change
+     * @return The merged change
+     */
+    private static int[] mergeChanges( int[] first, int[] second )
+    {
+        // the union of both ranges, in the list after the first change
+        int start = Math.min( first[0], second[0] );
+        int end = Math.max( first[0] + first[2], second[0] + second[1] );
+
+        return new int[]
+            { start, end - first[2] + first[1] - start, end - second[1] + second[2] - start };
+    }
+
+
+    /**
+     * Logs a change of the container list.
+     *
+     * @param index The index of the change
+     * @param removedCount The number of removed containers
+     * @param insertedCount The number of inserted containers
+     */
+    private void logChange( int index, int removedCount, int insertedCount )
+    {
+        modificationCount++;
+        changeLog.addLast( new int[]
+            { index, removedCount, insertedCount } );
+
+        if ( changeLog.size() > MAX_CHANGE_LOG_SIZE )
+        {
+            changeLog.removeFirst();
+        }
+    }
+
+
+    /**
+     * Gets the index of the given container. Uses a binary search by offset
+     * and falls back to a linear search if the container wasn't found.
+     *
+     * @param container The container
+     * @return The index of the container, or -1 if it's not part of this file
+     */
+    public synchronized int indexOf( LdifContainer container )
+    {
+        int index = getContainerIndex( container.getOffset() );
+
+        if ( ( index >= 0 ) && ( containerList.get( index ) == container ) )
+        {
+            return index;
+        }
+
+        // the offset of the container may not be adjusted yet
+        index = getContainerIndex( container.getOffset() + pendingAdjust );
+
+        if ( ( index >= 0 ) && ( containerList.get( index ) == container ) )
         {
-            LdifContainer container = containerList.get( i );
-            container.adjustOffset( adjust );
+            return index;
         }
+
+        return containerList.indexOf( container );
     }
 }
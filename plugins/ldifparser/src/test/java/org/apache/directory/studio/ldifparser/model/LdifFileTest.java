@@ -0,0 +1,250 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.ldifparser.model;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.studio.ldifparser.model.container.LdifContainer;
+import org.apache.directory.studio.ldifparser.model.container.LdifEOFContainer;
+import org.apache.directory.studio.ldifparser.parser.LdifParser;
+import org.junit.jupiter.api.Test;
+
+
+public class LdifFileTest
+{
+
+    private static String record( String cn )
+    {
+        return "dn: cn=" + cn + ",ou=system\n" + "cn: " + cn + "\n" + "\n";
+    }
+
+
+    private static List<LdifContainer> parse( String ldif )
+    {
+        List<LdifContainer> containers = new ArrayList<LdifContainer>();
+
+        for ( LdifContainer container : new LdifParser().parse( ldif ).getContainers() )
+        {
+            if ( !( container instanceof LdifEOFContainer ) )
+            {
+                containers.add( container );
+            }
+        }
+
+        return containers;
+    }
+
+
+    private static LdifFile createModel( String ldif )
+    {
+        LdifFile model = new LdifFile();
+
+        for ( LdifContainer container : parse( ldif ) )
+        {
+            model.addContainer( container );
+        }
+
+        return model;
+    }
+
+
+    private static void assertOffsets( String ldif, LdifFile model )
+    {
+        List<LdifContainer> expected = parse( ldif );
+
+        assertEquals( expected.size(), model.getContainerCount() );
+
+        for ( int i = 0; i < expected.size(); i++ )
+        {
+            assertEquals( expected.get( i ).getOffset(), model.getContainer( i ).getOffset() );
+            assertEquals( expected.get( i ).getLength(), model.getContainer( i ).getLength() );
+        }
+    }
+
+
+    @Test
+    public void testGetContainerAtOffset()
+    {
+        String ldif = record( "a" ) + record( "bb" ) + record( "ccc" );
+        LdifFile model = createModel( ldif );
+
+        for ( int offset = 0; offset < ldif.length(); offset++ )
+        {
+            LdifContainer container = LdifFile.getContainer( model, offset );
+            assertEquals( true, container.getOffset() <= offset );
+            assertEquals( true, offset < container.getOffset() + container.getLength() );
+        }
+
+        assertNull( LdifFile.getContainer( model, ldif.length() + 10 ) );
+        assertNull( LdifFile.getContainer( model, -1 ) );
+    }
+
+
+    @Test
+    public void testReplaceAdjustsFollowingContainers()
+    {
+        List<String> records = new ArrayList<String>();
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            records.add( record( "cn" + i ) );
+        }
+
+        StringBuilder sb = new StringBuilder();
+
+        for ( String record : records )
+        {
+            sb.append( record );
+        }
+
+        LdifFile model = createModel( sb.toString() );
+
+        // several edits without accessing the following containers in between,
+        // this leaves pending offset adjustments behind
+        int[] editedRecords = new int[]
+            { 5, 2, 7, 2, 9, 0 };
+        String[] newValues = new String[]
+            { "longer-value-5", "x", "longer-value-7", "", "9", "longer-value-0" };
+
+        for ( int i = 0; i < editedRecords.length; i++ )
+        {
+            int index = editedRecords[i];
+            LdifContainer oldContainer = model.getContainer( index );
+            String newRecord = record( newValues[i] );
+            records.set( index, newRecord );
+
+            model.replace( new LdifContainer[]
+                { oldContainer }, parse( newRecord ) );
+
+            sb = new StringBuilder();
+
+            for ( String record : records )
+            {
+                sb.append( record );
+            }
+
+            // lookup by offset must take the pending adjustment into account
+            int offset = sb.indexOf( "cn: " + newValues[i] + "\n" );
+            assertSame( model.getContainer( index ), LdifFile.getContainer( model, offset ) );
+        }
+
+        assertOffsets( sb.toString(), model );
+    }
+
+
+    @Test
+    public void testReplaceWithMoreAndLessContainers()
+    {
+        String ldif = record( "a" ) + record( "b" ) + record( "c" ) + record( "d" );
+        LdifFile model = createModel( ldif );
+
+        // replace one record by two records
+        model.replace( new LdifContainer[]
+            { model.getContainer( 1 ) }, parse( record( "b1" ) + record( "b2" ) ) );
+
+        // replace two records by one record
+        model.replace( new LdifContainer[]
+            { model.getContainer( 3 ), model.getContainer( 4 ) }, parse( record( "cd" ) ) );
+
+        assertOffsets( record( "a" ) + record( "b1" ) + record( "b2" ) + record( "cd" ), model );
+        assertEquals( 4, model.getContainers().size() );
+    }
+
+
+    @Test
+    public void testContainersView()
+    {
+        String ldif = record( "a" ) + record( "b" ) + record( "c" );
+        LdifFile model = createModel( ldif );
+        List<LdifContainer> containers = model.getContainers();
+
+        model.replace( new LdifContainer[]
+            { model.getContainer( 0 ) }, parse( record( "a1" ) + record( "a2" ) ) );
+
+        // the view reflects the replacement, the containers have the offsets of the new content
+        String newLdif = record( "a1" ) + record( "a2" ) + record( "b" ) + record( "c" );
+        assertEquals( 4, containers.size() );
+        assertEquals( newLdif.indexOf( "dn: cn=c" ), containers.get( 3 ).getOffset() );
+        assertOffsets( newLdif, model );
+
+        assertThrows( UnsupportedOperationException.class, () -> containers.remove( 0 ) );
+    }
+
+
+    @Test
+    public void testChangedRange()
+    {
+        String ldif = record( "a" ) + record( "b" ) + record( "c" ) + record( "d" ) + record( "e" );
+        LdifFile model = createModel( ldif );
+
+        // the containers as seen by a view after its last update
+        List<LdifContainer> viewContainers = new ArrayList<LdifContainer>( model.getContainers() );
+        int modificationCount = model.getModificationCount();
+
+        model.replace( new LdifContainer[]
+            { model.getContainer( 3 ) }, parse( record( "d1" ) + record( "d2" ) ) );
+        model.replace( new LdifContainer[]
+            { model.getContainer( 0 ) }, parse( record( "a1" ) ) );
+        model.replace( new LdifContainer[]
+            { model.getContainer( 1 ), model.getContainer( 2 ) }, parse( record( "bc" ) ) );
+
+        int[] range = model.getChangedRange( modificationCount );
+        assertNotNull( range );
+
+        viewContainers.subList( range[0], range[0] + range[1] ).clear();
+
+        for ( int i = 0; i < range[2]; i++ )
+        {
+            viewContainers.add( range[0] + i, model.getContainer( range[0] + i ) );
+        }
+
+        assertEquals( model.getContainers().size(), viewContainers.size() );
+
+        for ( int i = 0; i < viewContainers.size(); i++ )
+        {
+            assertSame( model.getContainer( i ), viewContainers.get( i ) );
+        }
+
+        // no change since the last update
+        range = model.getChangedRange( model.getModificationCount() );
+        assertEquals( 0, range[1] );
+        assertEquals( 0, range[2] );
+
+        // too many changes since the last update
+        modificationCount = model.getModificationCount();
+
+        for ( int i = 0; i < 100; i++ )
+        {
+            model.replace( new LdifContainer[]
+                { model.getContainer( 0 ) }, parse( record( "a" + i ) ) );
+        }
+
+        assertNull( model.getChangedRange( modificationCount ) );
+    }
+}
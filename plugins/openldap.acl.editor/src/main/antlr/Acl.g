@@ -144,6 +144,10 @@ MINUS : '-';
 
 SLASH : '/';
 
+AT : '@';
+
+EXCLAMATION : '!';
+
 FILTER : '(' (SP)? ( ( '&' (SP)? (FILTER)+ ) | ( '|' (SP)? (FILTER)+ ) | ( '!' (SP)? FILTER ) | FILTER_VALUE ) (SP)? ')';
 
 protected FILTER_VALUE : (options{greedy=true;}: ~( ')' | '(' | '&' | '|' | '!' ) ( ~(')') )* ) ;
@@ -180,6 +184,33 @@ options
     {
         return aclItem;
     }
+    
+    
+    /**
+     * Adds a dn, filter or attributes clause of the 'what' part. The first clause
+     * is the what clause of the ACL item, the following clauses are combined with it.
+     */
+    private void addWhatClause( AclWhatClause clause )
+    {
+        AclWhatClause whatClause = aclItem.getWhatClause();
+        
+        if ( whatClause == null )
+        {
+            aclItem.setWhatClause( clause );
+        }
+        else if ( clause instanceof AclWhatClauseDn )
+        {
+            whatClause.setDnClause( ( AclWhatClauseDn ) clause );
+        }
+        else if ( clause instanceof AclWhatClauseFilter )
+        {
+            whatClause.setFilterClause( ( AclWhatClauseFilter ) clause );
+        }
+        else if ( clause instanceof AclWhatClauseAttributes )
+        {
+            whatClause.setAttributesClause( ( AclWhatClauseAttributes ) clause );
+        }
+    }
 }
 
 // ----------------------------------------------------------------------------
@@ -222,8 +253,9 @@ aclItem
 
 // ----------------------------------------------------------------------------
 // The <what> clause. 
-// <what> ::= 'dn' <what-dn> | <what-filter> | <what-attrs> | <what-star> | e
-// This is just a filtering clause
+// <what> ::= <what-star> | 'dn' <what-dn> ( SP <what-filter-attrs> )? | <what-filter-attrs> | e
+// This is just a filtering clause, the dn, filter and attrs clauses can be
+// combined, in this order
 // ----------------------------------------------------------------------------
 what
     {
@@ -231,7 +263,28 @@ what
 		System.out.println( "entered what()" );
     }
     :
-    ( ID_dn what_dn | what_filter | what_attrs | what_star )
+    (
+    	what_star
+    	|
+    	ID_dn what_dn ( SP what_filter_attrs )?
+    	|
+    	what_filter_attrs
+    )
+    ;
+
+// ----------------------------------------------------------------------------
+// The filter and attrs clauses of the <what> clause.
+// <what-filter-attrs> ::= <what-filter> ( SP <what-attrs> )? | <what-attrs>
+// A SP followed by 'by' ends the <what> clause
+// ----------------------------------------------------------------------------
+what_filter_attrs
+    {
+        log.debug( "entered what_filter_attrs()" );
+    }
+    :
+    what_filter ( SP what_attrs )?
+    |
+    what_attrs
     ;
 
 // ----------------------------------------------------------------------------
@@ -289,7 +342,7 @@ what_dn
 			}
 			
 			whatClauseDn.setPattern( dnString );
-			aclItem.setWhatClause( whatClauseDn );
+			addWhatClause( whatClauseDn );
 	    }
 		| 
 		string_token:STRING 
@@ -307,7 +360,7 @@ what_dn
 			}
 			
 			whatClauseDn.setPattern( dnString );
-			aclItem.setWhatClause( whatClauseDn );
+			addWhatClause( whatClauseDn );
 	    }
 	)
     ;
@@ -379,7 +432,7 @@ exact_basic_dn_style
 		)
 	)
 	{
-		aclItem.setWhatClause( whatClauseDn );
+		addWhatClause( whatClauseDn );
 	}
 	;
 
@@ -416,7 +469,7 @@ regex_basic_dn_style
 		)
 	)
 	{
-		aclItem.setWhatClause( whatClauseDn );
+		addWhatClause( whatClauseDn );
 	}
 	;
 
@@ -446,7 +499,7 @@ scope_dn_clause
 	    }
 	)
 	{
-		aclItem.setWhatClause( whatClauseDn );
+		addWhatClause( whatClauseDn );
 	}
 	;
 
@@ -516,7 +569,7 @@ what_filter
 		// TODO : check tah the filter is valid
         whatClauseFilter.setFilter( token.getText() );
 
-        aclItem.setWhatClause( whatClauseFilter );
+        addWhatClause( whatClauseFilter );
     };
     
 
@@ -526,104 +579,132 @@ what_filter
 what_attrs
 	{
 	    log.debug( "entered what_attrs()" );
-	    System.out.println( "entered what_attrs()" );
 
-	    //AclWhatClauseAttributes whatClauseAttributes = new AclWhatClauseAttributess();
+	    AclWhatClauseAttributes whatClauseAttributes = new AclWhatClauseAttributes();
 	}
     :
-    ( ID_attrs | ID_attr ) ( SP )? EQUAL ( SP )? what_attrs_list
-    ;
+    ( ID_attrs | ID_attr ) ( SP )? EQUAL ( SP )? what_attrs_list[whatClauseAttributes]
+    {
+        addWhatClause( whatClauseAttributes );
+    };
 
 // ----------------------------------------------------------------------------
-// <what-attrs-list>	::= IDENT <attr-val>? | <what_attr> <attr-list>
+// <what-attrs-list>	::= <what-attr> <attr-val>? | <what-attr> ',' <attr-list>
+// A 'val' clause is only allowed with a single attribute
 // ----------------------------------------------------------------------------
-what_attrs_list
+what_attrs_list [AclWhatClauseAttributes whatClauseAttributes]
 	{
 	    log.debug( "entered what_attrs_list()" );
-	    System.out.println( "entered what_attrs_list()" );
-		
 	}
 	:
-	(
-		attribute:IDENT ( (attr_val)? | SEP attr_list )
-		{
-			// We are not allowed to have more than one attribute 
-			// if we have a val
-		}
-		|
-		ID_entry
-		|
-		ID_children
-	)
+	what_attr[whatClauseAttributes] ( attr_val[whatClauseAttributes] | SEP attr_list[whatClauseAttributes] )?
 	;
 
 // ----------------------------------------------------------------------------
-// <attr_val>	::= SP 'val' <matching-rule>? <attr-val-style> SP? '=' SP? REGEX
+// <what-attr>	::= IDENT | '@' IDENT | '!' IDENT | 'entry' | 'children'
 // ----------------------------------------------------------------------------
-attr_val
+what_attr [AclWhatClauseAttributes whatClauseAttributes]
 	{
-	    log.debug( "entered what_attrs_list()" );
-	    System.out.println( "entered what_attrs_list()" );
+	    log.debug( "entered what_attr()" );
 	}
 	:
-	SP ID_val (matching_rule)? (attr_val_style)? (SP)? EQUAL (SP)? REGEX
+	attribute:IDENT
+	{
+	    whatClauseAttributes.addAttribute( attribute.getText() );
+	}
+	|
+	AT objectClass:IDENT
+	{
+	    whatClauseAttributes.addAttribute( AclAttribute.OC + objectClass.getText() );
+	}
+	|
+	EXCLAMATION notAllowedObjectClass:IDENT
+	{
+	    whatClauseAttributes.addAttribute( AclAttribute.OC_EX + notAllowedObjectClass.getText() );
+	}
+	|
+	ID_entry
+	{
+	    whatClauseAttributes.addAttribute( AclAttribute.ENTRY );
+	}
+	|
+	ID_children
+	{
+	    whatClauseAttributes.addAttribute( AclAttribute.CHILDREN );
+	}
+	;
+
+// ----------------------------------------------------------------------------
+// <attr_val>	::= SP 'val' <matching-rule>? <attr-val-style>? SP? '=' SP? DOUBLE_QUOTED_STRING
+// ----------------------------------------------------------------------------
+attr_val [AclWhatClauseAttributes whatClauseAttributes]
+	{
+	    log.debug( "entered attr_val()" );
+	}
+	:
+	SP ID_val ( matching_rule[whatClauseAttributes] )? ( attr_val_style[whatClauseAttributes] )? 
+	( SP )? EQUAL ( SP )? value:DOUBLE_QUOTED_STRING
+	{
+	    whatClauseAttributes.setVal( true );
+	    whatClauseAttributes.setValue( value.getText() );
+	}
 	;
 
 // ----------------------------------------------------------------------------
 // <matching-rule>	::= '/' IDENT
 // ----------------------------------------------------------------------------
-matching_rule
+matching_rule [AclWhatClauseAttributes whatClauseAttributes]
 	{
 	    log.debug( "entered matching_rule()" );
-	    System.out.println( "entered matching_rule()" );
 	}
 	:
 	SLASH IDENT
+	{
+	    whatClauseAttributes.setMatchingRule( true );
+	}
 	;
 
 // ----------------------------------------------------------------------------
-// <matching-rule>	::= '/' IDENT
+// <attr-val-style>	::= '.' ( 'exact' | 'base' | 'baseobject' | 'regex' )
 // ----------------------------------------------------------------------------
-attr_val_style
+attr_val_style [AclWhatClauseAttributes whatClauseAttributes]
 	{
 	    log.debug( "entered attr_val_style()" );
-	    System.out.println( "entered attr_val_style()" );
 	}
 	:
     DOT 
     (
         ID_exact
         {
-            //whatClauseAttributes.setStyle( AclAttributeStyleEnum.EXACT );
+            whatClauseAttributes.setStyle( AclAttributeStyleEnum.EXACT );
         }
         |
         ID_base
         {
-            //whatClauseAttributes.setStyle( AclAttributeStyleEnum.BASE );
+            whatClauseAttributes.setStyle( AclAttributeStyleEnum.BASE );
         }
         |
         ID_base_object
         {
-            //whatClauseAttributes.setStyle( AclAttributeStyleEnum.BASE_OBJECT );
+            whatClauseAttributes.setStyle( AclAttributeStyleEnum.BASE_OBJECT );
         }
         |
         ID_regex
         {
-            //whatClauseAttributes.setStyle( AclAttributeStyleEnum.REGEX );
+            whatClauseAttributes.setStyle( AclAttributeStyleEnum.REGEX );
         }
     )
 	;
 	
 // ----------------------------------------------------------------------------
-// <attr-list> 		::= ( IDENT | 'entry' | 'children' ) ( ',' <attr_list> )*
+// <attr-list> 		::= <what-attr> ( ',' <what-attr> )*
 // ----------------------------------------------------------------------------
-attr_list
+attr_list [AclWhatClauseAttributes whatClauseAttributes]
 	{
 	    log.debug( "entered attr_list()" );
-	    System.out.println( "entered attr_list()" );
 	}
 	:
-	(IDENT | ID_entry | ID_children) ( SEP attr_list )*
+	what_attr[whatClauseAttributes] ( SEP what_attr[whatClauseAttributes] )*
 	;
 	
 //what_attrs_val
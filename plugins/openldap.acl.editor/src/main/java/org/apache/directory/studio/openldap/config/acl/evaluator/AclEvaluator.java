@@ -0,0 +1,1077 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.config.acl.evaluator;
+
+
+import java.text.ParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.ldif.LdifEntry;
+import org.apache.directory.api.ldap.model.ldif.LdifReader;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.openldap.config.acl.model.AbstractAclWhoClauseCryptoStrength;
+import org.apache.directory.studio.openldap.config.acl.model.AclAccessLevel;
+import org.apache.directory.studio.openldap.config.acl.model.AclAccessLevelLevelEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclAccessLevelPrivModifierEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclAccessLevelPrivilegeEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclAttribute;
+import org.apache.directory.studio.openldap.config.acl.model.AclControlEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclItem;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClause;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseAttributes;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseDn;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseFilter;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClause;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseAnonymous;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseDn;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseDnAttr;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseDnModifierEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseDnTypeEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseGroup;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseGroupTypeEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseSaslSsf;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseSelf;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseSsf;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseStar;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseTlsSsf;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseTransportSsf;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseUsers;
+
+
+/**
+ * This class evaluates a list of OpenLDAP ACL items, as stored in the 'olcAccess'
+ * attribute of a database, to compute the effective access of an identity to
+ * the attributes of entries.
+ * <p>
+ * The ACL items are compiled once into matchers (DN scope or regular expression,
+ * filter, attribute set and 'by' clauses), so that large exports can be evaluated
+ * quickly. The evaluation follows the rules of slapd.access(5):
+ * <ul>
+ * <li>the first ACL item whose 'what' clause matches the entry and the attribute is used;</li>
+ * <li>its first 'by' clause matching the identity grants the access, unless its control is
+ * 'continue' (the next 'by' clauses are checked too) or 'break' (the next ACL items are
+ * checked too);</li>
+ * <li>each ACL item ends with an implicit 'by * none', and the list of items with an
+ * implicit 'access to * by * none'; an empty list grants read access to everyone.</li>
+ * </ul>
+ * No schema is required: attribute names are compared ignoring case (their aliases are
+ * only known when the ACL items were built with a schema), and the 'self' qualifier of access levels is ignored (the access is
+ * reported as granted). The ACL items with a 'val' assertion only apply to values,
+ * they are skipped. The root DN of the database is not handled specifically.
+ * <p>
+ * An evaluator is immutable, it can be used by several threads.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class AclEvaluator
+{
+    /** The number of entries evaluated by a single task */
+    private static final int BATCH_SIZE = 512;
+
+    /** The pattern of the substitution variables of the 'expand' modifier */
+    private static final Pattern SUBSTITUTION_PATTERN = Pattern.compile( "\\$(?:(\\d)|\\{(\\d+)\\})" ); //$NON-NLS-1$
+
+    /** The privileges granted by each access level */
+    private static final Map<AclAccessLevelLevelEnum, Set<AclAccessLevelPrivilegeEnum>> LEVEL_PRIVILEGES = new EnumMap<>(
+        AclAccessLevelLevelEnum.class );
+
+    static
+    {
+        // Each level grants its privilege and the privileges of the lower levels
+        Set<AclAccessLevelPrivilegeEnum> privileges = EnumSet.noneOf( AclAccessLevelPrivilegeEnum.class );
+        LEVEL_PRIVILEGES.put( AclAccessLevelLevelEnum.NONE, EnumSet.copyOf( privileges ) );
+        privileges.add( AclAccessLevelPrivilegeEnum.DISCLOSE );
+        LEVEL_PRIVILEGES.put( AclAccessLevelLevelEnum.DISCLOSE, EnumSet.copyOf( privileges ) );
+        privileges.add( AclAccessLevelPrivilegeEnum.AUTHENTICATION );
+        LEVEL_PRIVILEGES.put( AclAccessLevelLevelEnum.AUTH, EnumSet.copyOf( privileges ) );
+        privileges.add( AclAccessLevelPrivilegeEnum.COMPARE );
+        LEVEL_PRIVILEGES.put( AclAccessLevelLevelEnum.COMPARE, EnumSet.copyOf( privileges ) );
+        privileges.add( AclAccessLevelPrivilegeEnum.SEARCH );
+        LEVEL_PRIVILEGES.put( AclAccessLevelLevelEnum.SEARCH, EnumSet.copyOf( privileges ) );
+        privileges.add( AclAccessLevelPrivilegeEnum.READ );
+        LEVEL_PRIVILEGES.put( AclAccessLevelLevelEnum.READ, EnumSet.copyOf( privileges ) );
+        privileges.add( AclAccessLevelPrivilegeEnum.WRITE );
+        LEVEL_PRIVILEGES.put( AclAccessLevelLevelEnum.WRITE, EnumSet.copyOf( privileges ) );
+        privileges.add( AclAccessLevelPrivilegeEnum.MANAGE );
+        LEVEL_PRIVILEGES.put( AclAccessLevelLevelEnum.MANAGE, EnumSet.copyOf( privileges ) );
+    }
+
+    /**
+     * A listener notified of the effective access computed for each entry of a bulk evaluation.
+     */
+    public interface AccessListener
+    {
+        /**
+         * Notifies the effective access to an entry.
+         *
+         * @param entry the entry
+         * @param privileges the privileges granted on the evaluated attribute of the entry
+         */
+        void accessEvaluated( Entry entry, Set<AclAccessLevelPrivilegeEnum> privileges );
+    }
+
+    /** The scopes of the DN clauses */
+    private enum DnScope
+    {
+        EXACT,
+        ONE,
+        SUBTREE,
+        CHILDREN,
+        LEVEL
+    }
+
+    /** The compiled ACL items */
+    private final List<CompiledAclItem> compiledAclItems = new ArrayList<>();
+
+
+    /**
+     * Creates a new instance of AclEvaluator.
+     *
+     * @param aclItems the ACL items, in their order of precedence
+     * @throws ParseException if an ACL item contains an invalid DN, regular expression or filter
+     */
+    public AclEvaluator( List<AclItem> aclItems ) throws ParseException
+    {
+        for ( AclItem aclItem : aclItems )
+        {
+            CompiledAclItem compiledAclItem = new CompiledAclItem( aclItem );
+
+            if ( !compiledAclItem.isValueLevel )
+            {
+                compiledAclItems.add( compiledAclItem );
+            }
+        }
+    }
+
+
+    /**
+     * Computes the effective access of an identity to an attribute of an entry.
+     *
+     * @param entry the entry
+     * @param attribute the attribute, or one of the 'entry' and 'children' pseudo attributes
+     * @param identity the identity
+     * @return the privileges granted to the identity
+     */
+    public Set<AclAccessLevelPrivilegeEnum> getEffectiveAccess( Entry entry, String attribute, AclIdentity identity )
+    {
+        return getEffectiveAccess( new EvaluatedEntry( entry ), Strings.toLowerCase( attribute ), identity );
+    }
+
+
+    /**
+     * Computes the effective access of an identity to an attribute of all the entries
+     * of an LDIF export. The entries are read from the stream while they are evaluated
+     * in parallel in the common fork-join pool, the listener is notified in the order
+     * of the export. Change records are skipped.
+     *
+     * @param reader the LDIF reader
+     * @param attribute the attribute, or one of the 'entry' and 'children' pseudo attributes
+     * @param identity the identity
+     * @param listener the listener
+     */
+    public void evaluate( LdifReader reader, String attribute, AclIdentity identity, AccessListener listener )
+    {
+        evaluate( new LdifContentIterator( reader ), attribute, identity, ForkJoinPool.commonPool(), listener );
+    }
+
+
+    /**
+     * Computes the effective access of an identity to an attribute of all the given entries.
+     * The entries are consumed by batches, evaluated in parallel in the given pool while the
+     * next ones are read; at most two batches per thread of the pool are kept in memory. The
+     * listener is notified in the calling thread, in the order of the entries.
+     *
+     * @param entries the entries
+     * @param attribute the attribute, or one of the 'entry' and 'children' pseudo attributes
+     * @param identity the identity
+     * @param pool the fork-join pool
+     * @param listener the listener
+     */
+    public void evaluate( Iterator<Entry> entries, String attribute, AclIdentity identity, ForkJoinPool pool,
+        AccessListener listener )
+    {
+        String normalizedAttribute = Strings.toLowerCase( attribute );
+        int maxPendingBatches = 2 * pool.getParallelism();
+        Deque<List<Entry>> pendingBatches = new ArrayDeque<>();
+        Deque<ForkJoinTask<List<Set<AclAccessLevelPrivilegeEnum>>>> pendingTasks = new ArrayDeque<>();
+
+        while ( entries.hasNext() )
+        {
+            List<Entry> batch = new ArrayList<>( BATCH_SIZE );
+
+            while ( entries.hasNext() && ( batch.size() < BATCH_SIZE ) )
+            {
+                batch.add( entries.next() );
+            }
+
+            pendingBatches.add( batch );
+            pendingTasks.add( pool.submit( () -> evaluateBatch( batch, normalizedAttribute, identity ) ) );
+
+            // Bounding the number of entries in memory
+            while ( pendingTasks.size() > maxPendingBatches )
+            {
+                notifyBatch( pendingBatches.poll(), pendingTasks.poll().join(), listener );
+            }
+        }
+
+        while ( !pendingTasks.isEmpty() )
+        {
+            notifyBatch( pendingBatches.poll(), pendingTasks.poll().join(), listener );
+        }
+    }
+
+
+    /**
+     * Indicates if the given privileges include all the privileges of an access level.
+     *
+     * @param privileges the privileges
+     * @param level the access level
+     * @return <code>true</code> if the privileges include all the privileges of the level
+     */
+    public static boolean isGranted( Set<AclAccessLevelPrivilegeEnum> privileges, AclAccessLevelLevelEnum level )
+    {
+        return privileges.containsAll( LEVEL_PRIVILEGES.get( level ) );
+    }
+
+
+    /**
+     * Evaluates a batch of entries.
+     */
+    private List<Set<AclAccessLevelPrivilegeEnum>> evaluateBatch( List<Entry> batch, String normalizedAttribute,
+        AclIdentity identity )
+    {
+        List<Set<AclAccessLevelPrivilegeEnum>> results = new ArrayList<>( batch.size() );
+
+        for ( Entry entry : batch )
+        {
+            results.add( getEffectiveAccess( new EvaluatedEntry( entry ), normalizedAttribute, identity ) );
+        }
+
+        return results;
+    }
+
+
+    /**
+     * Notifies the listener of the results of a batch.
+     */
+    private static void notifyBatch( List<Entry> batch, List<Set<AclAccessLevelPrivilegeEnum>> results,
+        AccessListener listener )
+    {
+        for ( int i = 0; i < batch.size(); i++ )
+        {
+            listener.accessEvaluated( batch.get( i ), results.get( i ) );
+        }
+    }
+
+
+    /**
+     * Computes the effective access of an identity to an attribute of an entry.
+     */
+    private Set<AclAccessLevelPrivilegeEnum> getEffectiveAccess( EvaluatedEntry entry, String normalizedAttribute,
+        AclIdentity identity )
+    {
+        if ( compiledAclItems.isEmpty() )
+        {
+            // Without any access control, everyone can read everything
+            return EnumSet.copyOf( LEVEL_PRIVILEGES.get( AclAccessLevelLevelEnum.READ ) );
+        }
+
+        Set<AclAccessLevelPrivilegeEnum> privileges = EnumSet.noneOf( AclAccessLevelPrivilegeEnum.class );
+
+        for ( CompiledAclItem aclItem : compiledAclItems )
+        {
+            String[] groups = aclItem.matchWhat( entry, normalizedAttribute );
+
+            if ( groups == null )
+            {
+                continue;
+            }
+
+            AclControlEnum control = AclControlEnum.CONTINUE;
+
+            for ( CompiledWhoClause whoClause : aclItem.whoClauses )
+            {
+                if ( whoClause.matcher.matches( identity, entry, groups ) )
+                {
+                    privileges = whoClause.apply( privileges );
+                    control = whoClause.control;
+
+                    if ( control != AclControlEnum.CONTINUE )
+                    {
+                        break;
+                    }
+                }
+            }
+
+            if ( control == AclControlEnum.BREAK )
+            {
+                // Checking the next ACL items
+                continue;
+            }
+
+            if ( control == AclControlEnum.CONTINUE )
+            {
+                // The implicit 'by * none' clause
+                privileges.clear();
+            }
+
+            return privileges;
+        }
+
+        // The implicit 'access to * by * none' item
+        privileges.clear();
+
+        return privileges;
+    }
+
+
+    /**
+     * Normalizes a DN, for comparisons.
+     *
+     * @param dn the DN
+     * @return the normalized DN
+     */
+    static String normalize( Dn dn )
+    {
+        return Strings.toLowerCase( dn.getNormName() );
+    }
+
+
+    /**
+     * Parses and normalizes a DN pattern.
+     */
+    private static Dn parseDn( String pattern ) throws ParseException
+    {
+        try
+        {
+            return new Dn( pattern );
+        }
+        catch ( LdapInvalidDnException e )
+        {
+            throw new ParseException( "Invalid DN in ACL: " + pattern, 0 ); //$NON-NLS-1$
+        }
+    }
+
+
+    /**
+     * Compiles a regular expression, matched ignoring case.
+     */
+    private static Pattern compileRegex( String regex ) throws ParseException
+    {
+        try
+        {
+            return Pattern.compile( regex, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE );
+        }
+        catch ( PatternSyntaxException e )
+        {
+            throw new ParseException( "Invalid regular expression in ACL: " + regex, e.getIndex() ); //$NON-NLS-1$
+        }
+    }
+
+
+    /**
+     * Replaces the $n (or ${n}) variables of a pattern by the groups matched by the 'what' clause.
+     */
+    private static String expand( String pattern, String[] groups )
+    {
+        Matcher matcher = SUBSTITUTION_PATTERN.matcher( pattern );
+        StringBuffer sb = new StringBuffer();
+
+        while ( matcher.find() )
+        {
+            int index = Integer.parseInt( matcher.group( 1 ) != null ? matcher.group( 1 ) : matcher.group( 2 ) );
+            String group = ( index < groups.length ) && ( groups[index] != null ) ? groups[index] : ""; //$NON-NLS-1$
+            matcher.appendReplacement( sb, Matcher.quoteReplacement( group ) );
+        }
+
+        matcher.appendTail( sb );
+
+        return sb.toString();
+    }
+
+
+    /**
+     * Indicates if a normalized DN is in the scope of a normalized base DN.
+     */
+    private static boolean isInScope( String normalizedDn, int size, String normalizedBase, int baseSize,
+        DnScope scope, int level )
+    {
+        if ( normalizedDn.equals( normalizedBase ) )
+        {
+            return ( scope == DnScope.EXACT ) || ( scope == DnScope.SUBTREE ) || ( scope == DnScope.LEVEL );
+        }
+
+        if ( scope == DnScope.EXACT )
+        {
+            return false;
+        }
+
+        boolean isDescendant = normalizedBase.isEmpty() ? !normalizedDn.isEmpty()
+            : normalizedDn.endsWith( "," + normalizedBase ); //$NON-NLS-1$
+
+        if ( !isDescendant )
+        {
+            return false;
+        }
+
+        switch ( scope )
+        {
+            case ONE:
+                return size == baseSize + 1;
+
+            case LEVEL:
+                return size <= baseSize + level;
+
+            default:
+                return true;
+        }
+    }
+
+
+    /**
+     * An entry being evaluated, with its normalized DN.
+     */
+    private static final class EvaluatedEntry
+    {
+        private final Entry entry;
+
+        private final String normalizedDn;
+
+        private final int size;
+
+
+        private EvaluatedEntry( Entry entry )
+        {
+            this.entry = entry;
+            this.normalizedDn = normalize( entry.getDn() );
+            this.size = entry.getDn().size();
+        }
+    }
+
+    /**
+     * The matcher of a 'by' clause.
+     */
+    private interface WhoMatcher
+    {
+        /**
+         * Indicates if the 'by' clause applies.
+         *
+         * @param identity the identity
+         * @param entry the entry
+         * @param groups the groups matched by the 'what' clause
+         * @return <code>true</code> if the 'by' clause applies
+         */
+        boolean matches( AclIdentity identity, EvaluatedEntry entry, String[] groups );
+    }
+
+    /**
+     * A compiled ACL item.
+     */
+    private static final class CompiledAclItem
+    {
+        /** The scope of the 'what' DN, null if there is no DN or a regex */
+        private DnScope dnScope;
+
+        /** The normalized 'what' DN */
+        private String normalizedDn;
+
+        /** The size of the 'what' DN */
+        private int dnSize;
+
+        /** The 'what' DN regex */
+        private Pattern dnRegex;
+
+        /** The 'what' filter */
+        private Predicate<Entry> filter;
+
+        /** The normalized names of the 'what' attributes, null if all the attributes are selected */
+        private Set<String> attributes;
+
+        /** The normalized names of the attributes not allowed by the '!' object classes */
+        private List<Set<String>> notAllowedAttributes;
+
+        /** Tells if the item only applies to values */
+        private boolean isValueLevel;
+
+        /** The compiled 'by' clauses */
+        private final List<CompiledWhoClause> whoClauses = new ArrayList<>();
+
+
+        private CompiledAclItem( AclItem aclItem ) throws ParseException
+        {
+            AclWhatClause whatClause = aclItem.getWhatClause();
+
+            // The dn, filter and attributes clauses are combined, all of them must match
+            if ( whatClause != null )
+            {
+                if ( whatClause.getDnClause() != null )
+                {
+                    compileDn( whatClause.getDnClause() );
+                }
+
+                AclWhatClauseFilter filterClause = whatClause.getFilterClause();
+
+                if ( ( filterClause != null ) && !Strings.isEmpty( filterClause.getFilter() ) )
+                {
+                    filter = AclFilterMatcher.compile( filterClause.getFilter() );
+                }
+
+                AclWhatClauseAttributes attributesClause = whatClause.getAttributesClause();
+
+                if ( attributesClause != null )
+                {
+                    compileAttributes( attributesClause );
+                }
+            }
+
+            for ( AclWhoClause whoClause : aclItem.getWhoClauses() )
+            {
+                whoClauses.add( new CompiledWhoClause( whoClause ) );
+            }
+        }
+
+
+        private void compileDn( AclWhatClauseDn dnClause ) throws ParseException
+        {
+            String pattern = dnClause.getPattern() == null ? "" : dnClause.getPattern(); //$NON-NLS-1$
+
+            if ( dnClause.getType() == null )
+            {
+                dnScope = DnScope.EXACT;
+            }
+            else
+            {
+                switch ( dnClause.getType() )
+                {
+                    case REGEX:
+                        dnRegex = compileRegex( pattern );
+                        return;
+
+                    case ONE:
+                    case ONE_LEVEL:
+                        dnScope = DnScope.ONE;
+                        break;
+
+                    case SUB:
+                    case SUBTREE:
+                        dnScope = DnScope.SUBTREE;
+                        break;
+
+                    case CHILDREN:
+                        dnScope = DnScope.CHILDREN;
+                        break;
+
+                    default:
+                        dnScope = DnScope.EXACT;
+                        break;
+                }
+            }
+
+            Dn dn = parseDn( pattern );
+            normalizedDn = normalize( dn );
+            dnSize = dn.size();
+        }
+
+
+        private void compileAttributes( AclWhatClauseAttributes attributesClause )
+        {
+            if ( attributesClause.hasVal() )
+            {
+                isValueLevel = true;
+            }
+
+            attributes = new HashSet<>();
+
+            for ( AclAttribute attribute : attributesClause.getAttributes() )
+            {
+                if ( attribute.isObjectClass() || attribute.isObjectClassNotAllowed() )
+                {
+                    // The attributes of an object class can only be resolved with a schema
+                    ObjectClass objectClass = attribute.getObjectClass();
+                    Set<String> objectClassAttributes = new HashSet<>();
+
+                    if ( objectClass != null )
+                    {
+                        addAll( objectClassAttributes, objectClass.getMustAttributeTypeOids() );
+                        addAll( objectClassAttributes, objectClass.getMayAttributeTypeOids() );
+                    }
+
+                    if ( attribute.isObjectClass() )
+                    {
+                        attributes.addAll( objectClassAttributes );
+                    }
+                    else if ( objectClass != null )
+                    {
+                        if ( notAllowedAttributes == null )
+                        {
+                            notAllowedAttributes = new ArrayList<>();
+                        }
+
+                        notAllowedAttributes.add( objectClassAttributes );
+                    }
+                }
+                else if ( attribute.getName() != null )
+                {
+                    attributes.add( Strings.toLowerCase( attribute.getName() ) );
+
+                    // The aliases are known when the attribute type has been found in the schema
+                    AttributeType attributeType = attribute.getAttributeType();
+
+                    if ( attributeType != null )
+                    {
+                        addAll( attributes, attributeType.getNames() );
+                        attributes.add( attributeType.getOid() );
+                    }
+                }
+            }
+        }
+
+
+        private static void addAll( Set<String> normalizedNames, Collection<String> names )
+        {
+            if ( names != null )
+            {
+                for ( String name : names )
+                {
+                    normalizedNames.add( Strings.toLowerCase( name ) );
+                }
+            }
+        }
+
+
+        /**
+         * Matches the 'what' clause.
+         *
+         * @return the groups matched by the DN regex (or an empty array), null if the clause does not match
+         */
+        private String[] matchWhat( EvaluatedEntry entry, String normalizedAttribute )
+        {
+            if ( ( attributes != null ) && !attributes.contains( normalizedAttribute ) )
+            {
+                boolean notAllowed = false;
+
+                if ( notAllowedAttributes != null )
+                {
+                    for ( Set<String> allowedAttributes : notAllowedAttributes )
+                    {
+                        if ( !allowedAttributes.contains( normalizedAttribute ) )
+                        {
+                            notAllowed = true;
+                            break;
+                        }
+                    }
+                }
+
+                if ( !notAllowed )
+                {
+                    return null;
+                }
+            }
+
+            String[] groups = new String[0];
+
+            if ( dnRegex != null )
+            {
+                Matcher matcher = dnRegex.matcher( entry.normalizedDn );
+
+                if ( !matcher.find() )
+                {
+                    return null;
+                }
+
+                groups = new String[matcher.groupCount() + 1];
+
+                for ( int i = 0; i < groups.length; i++ )
+                {
+                    groups[i] = matcher.group( i );
+                }
+            }
+            else if ( ( dnScope != null )
+                && !isInScope( entry.normalizedDn, entry.size, normalizedDn, dnSize, dnScope, 0 ) )
+            {
+                return null;
+            }
+
+            if ( ( filter != null ) && !filter.test( entry.entry ) )
+            {
+                return null;
+            }
+
+            return groups;
+        }
+    }
+
+    /**
+     * A compiled 'by' clause.
+     */
+    private static final class CompiledWhoClause
+    {
+        /** The matcher */
+        private final WhoMatcher matcher;
+
+        /** The control */
+        private final AclControlEnum control;
+
+        /** The privileges of the access level, null if no level is given */
+        private Set<AclAccessLevelPrivilegeEnum> levelPrivileges;
+
+        /** The privileges modifier, null if no privileges are given */
+        private AclAccessLevelPrivModifierEnum privilegesModifier;
+
+        /** The privileges */
+        private Set<AclAccessLevelPrivilegeEnum> privileges = EnumSet.noneOf( AclAccessLevelPrivilegeEnum.class );
+
+
+        private CompiledWhoClause( AclWhoClause whoClause ) throws ParseException
+        {
+            matcher = compileMatcher( whoClause );
+            control = whoClause.getControl() == null ? AclControlEnum.STOP : whoClause.getControl();
+
+            AclAccessLevel accessLevel = whoClause.getAccessLevel();
+
+            if ( accessLevel != null )
+            {
+                if ( accessLevel.getLevel() != null )
+                {
+                    levelPrivileges = LEVEL_PRIVILEGES.get( accessLevel.getLevel() );
+                }
+                else if ( accessLevel.getPrivilegeModifier() != null )
+                {
+                    privilegesModifier = accessLevel.getPrivilegeModifier();
+                    privileges.addAll( accessLevel.getPrivileges() );
+                }
+            }
+        }
+
+
+        /**
+         * Applies the access of the clause to the current privileges.
+         */
+        private Set<AclAccessLevelPrivilegeEnum> apply( Set<AclAccessLevelPrivilegeEnum> current )
+        {
+            if ( levelPrivileges != null )
+            {
+                return EnumSet.copyOf( levelPrivileges );
+            }
+
+            if ( privilegesModifier != null )
+            {
+                switch ( privilegesModifier )
+                {
+                    case EQUAL:
+                        return EnumSet.copyOf( privileges );
+
+                    case PLUS:
+                        current.addAll( privileges );
+                        break;
+
+                    case MINUS:
+                        current.removeAll( privileges );
+                        break;
+
+                    default:
+                        break;
+                }
+            }
+
+            // Without any access, the privileges are left untouched
+            return current;
+        }
+
+
+        private static WhoMatcher compileMatcher( AclWhoClause whoClause ) throws ParseException
+        {
+            if ( whoClause instanceof AclWhoClauseStar )
+            {
+                return ( identity, entry, groups ) -> true;
+            }
+            else if ( whoClause instanceof AclWhoClauseAnonymous )
+            {
+                return ( identity, entry, groups ) -> identity.isAnonymous();
+            }
+            else if ( whoClause instanceof AclWhoClauseUsers )
+            {
+                return ( identity, entry, groups ) -> !identity.isAnonymous();
+            }
+            else if ( whoClause instanceof AclWhoClauseSelf )
+            {
+                return ( identity, entry, groups ) -> entry.normalizedDn.equals( identity.getNormalizedDn() );
+            }
+            else if ( whoClause instanceof AclWhoClauseDn )
+            {
+                return compileDnMatcher( ( AclWhoClauseDn ) whoClause );
+            }
+            else if ( whoClause instanceof AclWhoClauseDnAttr )
+            {
+                String attributeId = ( ( AclWhoClauseDnAttr ) whoClause ).getAttribute();
+
+                return ( identity, entry, groups ) -> !identity.isAnonymous()
+                    && containsDn( entry.entry.get( attributeId ), identity.getNormalizedDn() );
+            }
+            else if ( whoClause instanceof AclWhoClauseGroup )
+            {
+                return compileGroupMatcher( ( AclWhoClauseGroup ) whoClause );
+            }
+            else if ( whoClause instanceof AbstractAclWhoClauseCryptoStrength )
+            {
+                int strength = ( ( AbstractAclWhoClauseCryptoStrength ) whoClause ).getStrength();
+
+                if ( whoClause instanceof AclWhoClauseTransportSsf )
+                {
+                    return ( identity, entry, groups ) -> identity.getTransportSsf() >= strength;
+                }
+                else if ( whoClause instanceof AclWhoClauseTlsSsf )
+                {
+                    return ( identity, entry, groups ) -> identity.getTlsSsf() >= strength;
+                }
+                else if ( whoClause instanceof AclWhoClauseSaslSsf )
+                {
+                    return ( identity, entry, groups ) -> identity.getSaslSsf() >= strength;
+                }
+                else if ( whoClause instanceof AclWhoClauseSsf )
+                {
+                    return ( identity, entry, groups ) -> identity.getSsf() >= strength;
+                }
+            }
+
+            return ( identity, entry, groups ) -> false;
+        }
+
+
+        private static WhoMatcher compileDnMatcher( AclWhoClauseDn dnClause ) throws ParseException
+        {
+            String pattern = dnClause.getPattern() == null ? "" : dnClause.getPattern(); //$NON-NLS-1$
+            boolean expand = dnClause.getModifier() == AclWhoClauseDnModifierEnum.EXPAND;
+
+            if ( dnClause.getType() == AclWhoClauseDnTypeEnum.REGEX )
+            {
+                if ( expand )
+                {
+                    return ( identity, entry, groups ) -> !identity.isAnonymous()
+                        && matchesRegex( expand( pattern, groups ), identity.getNormalizedDn() );
+                }
+
+                Pattern regex = compileRegex( pattern );
+
+                return ( identity, entry, groups ) -> !identity.isAnonymous()
+                    && regex.matcher( identity.getNormalizedDn() ).find();
+            }
+
+            DnScope scope;
+            int level = 0;
+
+            if ( dnClause.getType() == null )
+            {
+                scope = DnScope.EXACT;
+            }
+            else
+            {
+                switch ( dnClause.getType() )
+                {
+                    case ONE:
+                        scope = DnScope.ONE;
+                        break;
+
+                    case SUBTREE:
+                        scope = DnScope.SUBTREE;
+                        break;
+
+                    case CHILDREN:
+                        scope = DnScope.CHILDREN;
+                        break;
+
+                    case LEVEL:
+                        scope = DnScope.LEVEL;
+                        level = dnClause.getType().getLevel();
+                        break;
+
+                    default:
+                        scope = DnScope.EXACT;
+                        break;
+                }
+            }
+
+            int scopeLevel = level;
+
+            if ( expand )
+            {
+                return ( identity, entry, groups ) ->
+                {
+                    if ( identity.isAnonymous() )
+                    {
+                        return false;
+                    }
+
+                    try
+                    {
+                        Dn dn = new Dn( expand( pattern, groups ) );
+
+                        return isInScope( identity.getNormalizedDn(), identity.getDn().size(), normalize( dn ),
+                            dn.size(), scope, scopeLevel );
+                    }
+                    catch ( LdapInvalidDnException e )
+                    {
+                        return false;
+                    }
+                };
+            }
+
+            Dn dn = parseDn( pattern );
+            String normalizedDn = normalize( dn );
+            int dnSize = dn.size();
+
+            return ( identity, entry, groups ) -> !identity.isAnonymous()
+                && isInScope( identity.getNormalizedDn(), identity.getDn().size(), normalizedDn, dnSize, scope,
+                    scopeLevel );
+        }
+
+
+        private static WhoMatcher compileGroupMatcher( AclWhoClauseGroup groupClause ) throws ParseException
+        {
+            String pattern = groupClause.getPattern() == null ? "" : groupClause.getPattern(); //$NON-NLS-1$
+
+            if ( groupClause.getType() == AclWhoClauseGroupTypeEnum.EXPAND )
+            {
+                return ( identity, entry, groups ) ->
+                {
+                    try
+                    {
+                        return identity.isMemberOf( normalize( new Dn( expand( pattern, groups ) ) ) );
+                    }
+                    catch ( LdapInvalidDnException e )
+                    {
+                        return false;
+                    }
+                };
+            }
+
+            String normalizedGroupDn = normalize( parseDn( pattern ) );
+
+            return ( identity, entry, groups ) -> identity.isMemberOf( normalizedGroupDn );
+        }
+
+
+        private static boolean matchesRegex( String regex, String value )
+        {
+            try
+            {
+                return compileRegex( regex ).matcher( value ).find();
+            }
+            catch ( ParseException e )
+            {
+                return false;
+            }
+        }
+
+
+        private static boolean containsDn( Attribute attribute, String normalizedDn )
+        {
+            if ( attribute != null )
+            {
+                for ( Value value : attribute )
+                {
+                    try
+                    {
+                        if ( normalize( new Dn( value.getString() ) ).equals( normalizedDn ) )
+                        {
+                            return true;
+                        }
+                    }
+                    catch ( LdapInvalidDnException e )
+                    {
+                        // Not a DN, skipping the value
+                    }
+                }
+            }
+
+            return false;
+        }
+    }
+
+    /**
+     * Iterates over the content records of an LDIF reader, skipping the change records.
+     */
+    private static final class LdifContentIterator implements Iterator<Entry>
+    {
+        private final Iterator<LdifEntry> ldifEntries;
+
+        private Entry next;
+
+
+        private LdifContentIterator( LdifReader reader )
+        {
+            this.ldifEntries = reader.iterator();
+        }
+
+
+        public boolean hasNext()
+        {
+            while ( ( next == null ) && ldifEntries.hasNext() )
+            {
+                LdifEntry ldifEntry = ldifEntries.next();
+
+                if ( ldifEntry.isLdifContent() )
+                {
+                    next = ldifEntry.getEntry();
+                }
+            }
+
+            return next != null;
+        }
+
+
+        public Entry next()
+        {
+            if ( !hasNext() )
+            {
+                throw new NoSuchElementException();
+            }
+
+            Entry entry = next;
+            next = null;
+
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.config.acl.evaluator;
+
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.filter.AndNode;
+import org.apache.directory.api.ldap.model.filter.ApproximateNode;
+import org.apache.directory.api.ldap.model.filter.EqualityNode;
+import org.apache.directory.api.ldap.model.filter.ExprNode;
+import org.apache.directory.api.ldap.model.filter.FilterParser;
+import org.apache.directory.api.ldap.model.filter.GreaterEqNode;
+import org.apache.directory.api.ldap.model.filter.LessEqNode;
+import org.apache.directory.api.ldap.model.filter.NotNode;
+import org.apache.directory.api.ldap.model.filter.ObjectClassNode;
+import org.apache.directory.api.ldap.model.filter.OrNode;
+import org.apache.directory.api.ldap.model.filter.PresenceNode;
+import org.apache.directory.api.ldap.model.filter.SimpleNode;
+import org.apache.directory.api.ldap.model.filter.SubstringNode;
+
+
+/**
+ * Compiles the filter of an ACL 'what' clause into a predicate on entries.
+ * <p>
+ * No schema is involved: attribute descriptions are compared by name and values
+ * are compared ignoring case (ordering assertions compare integers numerically).
+ * Extensible match assertions never match.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class AclFilterMatcher
+{
+    private AclFilterMatcher()
+    {
+        // Nothing to do
+    }
+
+
+    /**
+     * Compiles the given filter.
+     *
+     * @param filter the filter
+     * @return the predicate matching the entries selected by the filter
+     * @throws ParseException if the filter is not valid
+     */
+    static Predicate<Entry> compile( String filter ) throws ParseException
+    {
+        return compile( FilterParser.parse( filter ) );
+    }
+
+
+    /**
+     * Compiles the given filter node.
+     *
+     * @param node the filter node
+     * @return the predicate matching the entries selected by the filter node
+     */
+    private static Predicate<Entry> compile( ExprNode node )
+    {
+        if ( node instanceof AndNode )
+        {
+            List<Predicate<Entry>> children = compileChildren( ( ( AndNode ) node ).getChildren() );
+
+            return entry ->
+            {
+                for ( Predicate<Entry> child : children )
+                {
+                    if ( !child.test( entry ) )
+                    {
+                        return false;
+                    }
+                }
+
+                return true;
+            };
+        }
+        else if ( node instanceof OrNode )
+        {
+            List<Predicate<Entry>> children = compileChildren( ( ( OrNode ) node ).getChildren() );
+
+            return entry ->
+            {
+                for ( Predicate<Entry> child : children )
+                {
+                    if ( child.test( entry ) )
+                    {
+                        return true;
+                    }
+                }
+
+                return false;
+            };
+        }
+        else if ( node instanceof NotNode )
+        {
+            return compile( ( ( NotNode ) node ).getFirstChild() ).negate();
+        }
+        else if ( node instanceof ObjectClassNode )
+        {
+            return entry -> true;
+        }
+        else if ( node instanceof PresenceNode )
+        {
+            String attribute = ( ( PresenceNode ) node ).getAttribute();
+
+            return entry -> entry.get( attribute ) != null;
+        }
+        else if ( ( node instanceof EqualityNode ) || ( node instanceof ApproximateNode ) )
+        {
+            SimpleNode<?> simpleNode = ( SimpleNode<?> ) node;
+            String assertion = simpleNode.getValue().getString();
+
+            return entry -> anyValue( entry, simpleNode.getAttribute(), value -> value.equalsIgnoreCase( assertion ) );
+        }
+        else if ( node instanceof GreaterEqNode )
+        {
+            SimpleNode<?> simpleNode = ( SimpleNode<?> ) node;
+            String assertion = simpleNode.getValue().getString();
+
+            return entry -> anyValue( entry, simpleNode.getAttribute(), value -> compare( value, assertion ) >= 0 );
+        }
+        else if ( node instanceof LessEqNode )
+        {
+            SimpleNode<?> simpleNode = ( SimpleNode<?> ) node;
+            String assertion = simpleNode.getValue().getString();
+
+            return entry -> anyValue( entry, simpleNode.getAttribute(), value -> compare( value, assertion ) <= 0 );
+        }
+        else if ( node instanceof SubstringNode )
+        {
+            SubstringNode substringNode = ( SubstringNode ) node;
+            Pattern pattern = compileSubstring( substringNode );
+
+            return entry -> anyValue( entry, substringNode.getAttribute(),
+                value -> pattern.matcher( value ).matches() );
+        }
+
+        // Extensible and undefined nodes
+        return entry -> false;
+    }
+
+
+    /**
+     * Compiles the children of a branch node.
+     */
+    private static List<Predicate<Entry>> compileChildren( List<ExprNode> nodes )
+    {
+        List<Predicate<Entry>> children = new ArrayList<>( nodes.size() );
+
+        for ( ExprNode node : nodes )
+        {
+            children.add( compile( node ) );
+        }
+
+        return children;
+    }
+
+
+    /**
+     * Compiles a substring assertion into a case insensitive pattern.
+     */
+    private static Pattern compileSubstring( SubstringNode node )
+    {
+        StringBuilder regex = new StringBuilder();
+
+        if ( node.getInitial() != null )
+        {
+            regex.append( Pattern.quote( node.getInitial() ) );
+        }
+
+        regex.append( ".*" );
+
+        if ( node.getAny() != null )
+        {
+            for ( String any : node.getAny() )
+            {
+                regex.append( Pattern.quote( any ) ).append( ".*" );
+            }
+        }
+
+        if ( node.getFinal() != null )
+        {
+            regex.append( Pattern.quote( node.getFinal() ) );
+        }
+
+        return Pattern.compile( regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL );
+    }
+
+
+    /**
+     * Indicates if a value of the given attribute matches.
+     */
+    private static boolean anyValue( Entry entry, String attributeId, Predicate<String> predicate )
+    {
+        Attribute attribute = entry.get( attributeId );
+
+        if ( attribute != null )
+        {
+            for ( Value value : attribute )
+            {
+                if ( predicate.test( value.getString() ) )
+                {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Compares two values, numerically if both are integers.
+     */
+    private static int compare( String value, String assertion )
+    {
+        try
+        {
+            return Long.compare( Long.parseLong( value.trim() ), Long.parseLong( assertion.trim() ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            return value.compareToIgnoreCase( assertion );
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.config.acl.evaluator;
+
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.name.Dn;
+
+
+/**
+ * The identity for which the effective access is computed by an {@link AclEvaluator}:
+ * the DN it is bound with (none for an anonymous identity), the groups it belongs to,
+ * and the security strength factors of its connection.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class AclIdentity
+{
+    /** The DN, null for an anonymous identity */
+    private Dn dn;
+
+    /** The normalized DN, null for an anonymous identity */
+    private String normalizedDn;
+
+    /** The normalized DNs of the groups */
+    private Set<String> normalizedGroupDns = new HashSet<>();
+
+    /** The overall security strength factor */
+    private int ssf;
+
+    /** The transport security strength factor */
+    private int transportSsf;
+
+    /** The TLS security strength factor */
+    private int tlsSsf;
+
+    /** The SASL security strength factor */
+    private int saslSsf;
+
+
+    /**
+     * Creates a new anonymous AclIdentity.
+     */
+    public AclIdentity()
+    {
+    }
+
+
+    /**
+     * Creates a new instance of AclIdentity.
+     *
+     * @param dn the DN the identity is bound with, null for an anonymous identity
+     */
+    public AclIdentity( Dn dn )
+    {
+        if ( ( dn != null ) && !dn.isEmpty() )
+        {
+            this.dn = dn;
+            this.normalizedDn = AclEvaluator.normalize( dn );
+        }
+    }
+
+
+    /**
+     * @return the DN, null for an anonymous identity
+     */
+    public Dn getDn()
+    {
+        return dn;
+    }
+
+
+    /**
+     * @return <code>true</code> if the identity is anonymous
+     */
+    public boolean isAnonymous()
+    {
+        return dn == null;
+    }
+
+
+    /**
+     * Adds a group the identity belongs to.
+     *
+     * @param groupDn the DN of the group
+     */
+    public void addGroup( Dn groupDn )
+    {
+        normalizedGroupDns.add( AclEvaluator.normalize( groupDn ) );
+    }
+
+
+    /**
+     * @return the overall security strength factor
+     */
+    public int getSsf()
+    {
+        return ssf;
+    }
+
+
+    /**
+     * @param ssf the overall security strength factor to set
+     */
+    public void setSsf( int ssf )
+    {
+        this.ssf = ssf;
+    }
+
+
+    /**
+     * @return the transport security strength factor
+     */
+    public int getTransportSsf()
+    {
+        return transportSsf;
+    }
+
+
+    /**
+     * @param transportSsf the transport security strength factor to set
+     */
+    public void setTransportSsf( int transportSsf )
+    {
+        this.transportSsf = transportSsf;
+    }
+
+
+    /**
+     * @return the TLS security strength factor
+     */
+    public int getTlsSsf()
+    {
+        return tlsSsf;
+    }
+
+
+    /**
+     * @param tlsSsf the TLS security strength factor to set
+     */
+    public void setTlsSsf( int tlsSsf )
+    {
+        this.tlsSsf = tlsSsf;
+    }
+
+
+    /**
+     * @return the SASL security strength factor
+     */
+    public int getSaslSsf()
+    {
+        return saslSsf;
+    }
+
+
+    /**
+     * @param saslSsf the SASL security strength factor to set
+     */
+    public void setSaslSsf( int saslSsf )
+    {
+        this.saslSsf = saslSsf;
+    }
+
+
+    /**
+     * @return the normalized DN, null for an anonymous identity
+     */
+    String getNormalizedDn()
+    {
+        return normalizedDn;
+    }
+
+
+    /**
+     * Indicates if the identity belongs to the given group.
+     *
+     * @param normalizedGroupDn the normalized DN of the group
+     * @return <code>true</code> if the identity belongs to the group
+     */
+    boolean isMemberOf( String normalizedGroupDn )
+    {
+        return normalizedGroupDns.contains( normalizedGroupDn );
+    }
+}
@@ -158,7 +158,7 @@ public class AclItem
         // What Clause
         if ( whatClause != null )
         {
-            sb.append( whatClause.toString() );
+            sb.append( whatClause.toClausesString() );
         }
 
         // Who Clauses
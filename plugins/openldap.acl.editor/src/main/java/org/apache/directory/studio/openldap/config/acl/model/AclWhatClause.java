@@ -20,12 +20,16 @@
 package org.apache.directory.studio.openldap.config.acl.model;
 
 /**
- * The ACL what clause.
+ * The ACL what clause. The dn, filter and attributes clauses can be combined,
+ * they are then all held by the what clause of the ACL item.
  * 
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class AclWhatClause
 {
+    /** The dn clause */
+    private AclWhatClauseDn dnClause;
+
     /** The filter clause */
     private AclWhatClauseFilter filterClause;
 
@@ -41,6 +45,7 @@ public class AclWhatClause
     public AclWhatClause( AclWhatClauseStar starClause, AclWhatClauseDn dnClause, AclWhatClauseFilter filterClause,
         AclWhatClauseAttributes attributesClause )
     {
+        this.dnClause = dnClause;
         this.filterClause = filterClause;
         this.attributesClause = attributesClause;
     }
@@ -58,6 +63,15 @@ public class AclWhatClause
     }
 
 
+    /**
+     * @return the dnClause
+     */
+    public AclWhatClauseDn getDnClause()
+    {
+        return dnClause;
+    }
+
+
     /**
      * @return the attributesClause
      */
@@ -76,6 +90,15 @@ public class AclWhatClause
     }
 
 
+    /**
+     * @param dnClause the dnClause to set
+     */
+    public void setDnClause( AclWhatClauseDn dnClause )
+    {
+        this.dnClause = dnClause;
+    }
+
+
     /**
      * @param attributesClause the attributesClause to set
      */
@@ -92,4 +115,37 @@ public class AclWhatClause
     {
         this.filterClause = filterClause;
     }
+
+
+    /**
+     * Gets the string of the combined clauses, the dn, filter and attributes
+     * clauses are separated by a space.
+     * 
+     * @return the string of the combined clauses
+     */
+    public String toClausesString()
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for ( AclWhatClause clause : new AclWhatClause[]
+            { getDnClause(), getFilterClause(), getAttributesClause() } )
+        {
+            if ( clause != null )
+            {
+                if ( sb.length() > 0 )
+                {
+                    sb.append( ' ' );
+                }
+
+                sb.append( clause.toString() );
+            }
+        }
+
+        if ( sb.length() == 0 )
+        {
+            return toString();
+        }
+
+        return sb.toString();
+    }
 }
@@ -175,6 +175,15 @@ public class AclWhatClauseAttributes extends AclWhatClause
     }
     
 
+    /**
+     * {@inheritDoc}
+     */
+    public AclWhatClauseAttributes getAttributesClause()
+    {
+        return this;
+    }
+
+
     /**
      * {@inheritDoc}
      */
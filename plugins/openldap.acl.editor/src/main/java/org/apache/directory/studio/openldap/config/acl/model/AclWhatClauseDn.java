@@ -92,6 +92,15 @@ public class AclWhatClauseDn extends AclWhatClause
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public AclWhatClauseDn getDnClause()
+    {
+        return this;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -53,6 +53,15 @@ public class AclWhatClauseFilter extends AclWhatClause
     }
 
 
+    /**
+     * {@inheritDoc}
+     */
+    public AclWhatClauseFilter getFilterClause()
+    {
+        return this;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -30,9 +30,6 @@ import org.eclipse.swt.widgets.Composite;
 import org.eclipse.swt.widgets.Group;
 import org.apache.directory.studio.openldap.config.acl.OpenLdapAclValueWithContext;
 import org.apache.directory.studio.openldap.config.acl.model.AclWhatClause;
-import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseAttributes;
-import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseDn;
-import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseFilter;
 import org.apache.directory.studio.openldap.config.acl.widgets.composites.WhatClauseAttributesComposite;
 import org.apache.directory.studio.openldap.config.acl.widgets.composites.WhatClauseDnComposite;
 import org.apache.directory.studio.openldap.config.acl.widgets.composites.WhatClauseFilterComposite;
@@ -305,18 +302,20 @@ public class OpenLdapAclWhatClauseWidget extends AbstractWidget
         if ( whatClause != null )
         {
             // DN clause
-            if ( whatClause instanceof AclWhatClauseDn )
+            if ( whatClause.getDnClause() != null )
             {
                 dnCheckbox.setSelection( true );
                 createDnComposite();
             }
-            else if ( whatClause instanceof AclWhatClauseFilter )
+
+            if ( whatClause.getFilterClause() != null )
             {
                 // Filter clause
                 filterCheckbox.setSelection( true );
                 createFilterComposite();
             }
-            else if ( whatClause instanceof AclWhatClauseAttributes )
+
+            if ( whatClause.getAttributesClause() != null )
             {
                 // Attributes clause
                 attributesCheckbox.setSelection( true );
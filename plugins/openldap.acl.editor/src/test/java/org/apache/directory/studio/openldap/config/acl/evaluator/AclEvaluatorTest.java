@@ -0,0 +1,469 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.openldap.config.acl.evaluator;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.studio.openldap.config.acl.model.AclAccessLevel;
+import org.apache.directory.studio.openldap.config.acl.model.AclAccessLevelLevelEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclAccessLevelPrivModifierEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclAccessLevelPrivilegeEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclControlEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclItem;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClause;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseAttributes;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseDn;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseDnTypeEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseFilter;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhatClauseStar;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClause;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseAnonymous;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseDn;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseDnModifierEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseDnTypeEnum;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseGroup;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseSelf;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseStar;
+import org.apache.directory.studio.openldap.config.acl.model.AclWhoClauseUsers;
+import org.apache.directory.studio.openldap.config.acl.model.OpenLdapAclParser;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * A test for the AclEvaluator class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class AclEvaluatorTest
+{
+    private static final String ADMIN = "cn=admin,dc=example,dc=com";
+
+    private static final String JDOE = "uid=jdoe,ou=people,dc=example,dc=com";
+
+    private static final String JSMITH = "uid=jsmith,ou=people,dc=example,dc=com";
+
+
+    private static <T extends AclWhoClause> T who( T whoClause, AclAccessLevelLevelEnum level )
+    {
+        AclAccessLevel accessLevel = new AclAccessLevel();
+        accessLevel.setLevel( level );
+        whoClause.setAccessLevel( accessLevel );
+
+        return whoClause;
+    }
+
+
+    private static AclWhoClauseDn whoDn( AclWhoClauseDnTypeEnum type, String pattern, AclAccessLevelLevelEnum level )
+    {
+        AclWhoClauseDn whoClause = who( new AclWhoClauseDn(), level );
+        whoClause.setType( type );
+        whoClause.setPattern( pattern );
+
+        return whoClause;
+    }
+
+
+    private static AclWhatClauseAttributes attrs( String... attributes )
+    {
+        AclWhatClauseAttributes whatClause = new AclWhatClauseAttributes();
+
+        for ( String attribute : attributes )
+        {
+            whatClause.addAttribute( attribute );
+        }
+
+        return whatClause;
+    }
+
+
+    private static AclWhatClauseDn dn( AclWhatClauseDnTypeEnum type, String pattern )
+    {
+        AclWhatClauseDn whatClause = new AclWhatClauseDn();
+        whatClause.setType( type );
+        whatClause.setPattern( pattern );
+
+        return whatClause;
+    }
+
+
+    private static AclItem item( AclWhatClause whatClause, AclWhoClause... whoClauses )
+    {
+        return new AclItem( whatClause, Arrays.asList( whoClauses ) );
+    }
+
+
+    private static Entry person( String dn ) throws Exception
+    {
+        return new DefaultEntry( dn,
+            "objectClass: person",
+            "cn: someone",
+            "sn: someone" );
+    }
+
+
+    private static AclIdentity identity( String dn ) throws Exception
+    {
+        return new AclIdentity( new Dn( dn ) );
+    }
+
+
+    /**
+     * The classic userPassword ACL:
+     * <pre>
+     * access to attrs=userPassword
+     *     by self write
+     *     by anonymous auth
+     *     by dn.exact="cn=admin,dc=example,dc=com" read
+     *     by * none
+     * access to *
+     *     by users read
+     * </pre>
+     */
+    private static AclEvaluator passwordEvaluator() throws ParseException
+    {
+        return new AclEvaluator( Arrays.asList(
+            item( attrs( "userPassword" ),
+                who( new AclWhoClauseSelf(), AclAccessLevelLevelEnum.WRITE ),
+                who( new AclWhoClauseAnonymous(), AclAccessLevelLevelEnum.AUTH ),
+                whoDn( AclWhoClauseDnTypeEnum.EXACT, ADMIN, AclAccessLevelLevelEnum.READ ),
+                who( new AclWhoClauseStar(), AclAccessLevelLevelEnum.NONE ) ),
+            item( new AclWhatClauseStar(),
+                who( new AclWhoClauseUsers(), AclAccessLevelLevelEnum.READ ) ) ) );
+    }
+
+
+    @Test
+    public void testUserPassword() throws Exception
+    {
+        AclEvaluator evaluator = passwordEvaluator();
+        Entry entry = person( JDOE );
+
+        Set<AclAccessLevelPrivilegeEnum> self = evaluator.getEffectiveAccess( entry, "userPassword",
+            identity( JDOE ) );
+        assertTrue( AclEvaluator.isGranted( self, AclAccessLevelLevelEnum.WRITE ) );
+        assertFalse( AclEvaluator.isGranted( self, AclAccessLevelLevelEnum.MANAGE ) );
+
+        Set<AclAccessLevelPrivilegeEnum> anonymous = evaluator.getEffectiveAccess( entry, "userPassword",
+            new AclIdentity() );
+        assertTrue( AclEvaluator.isGranted( anonymous, AclAccessLevelLevelEnum.AUTH ) );
+        assertFalse( AclEvaluator.isGranted( anonymous, AclAccessLevelLevelEnum.COMPARE ) );
+
+        Set<AclAccessLevelPrivilegeEnum> admin = evaluator.getEffectiveAccess( entry, "USERPASSWORD",
+            identity( "cn=Admin,dc=example,dc=com" ) );
+        assertTrue( AclEvaluator.isGranted( admin, AclAccessLevelLevelEnum.READ ) );
+        assertFalse( AclEvaluator.isGranted( admin, AclAccessLevelLevelEnum.WRITE ) );
+
+        assertTrue( evaluator.getEffectiveAccess( entry, "userPassword", identity( JSMITH ) ).isEmpty() );
+
+        // The other attributes are covered by the second item
+        assertTrue( AclEvaluator.isGranted( evaluator.getEffectiveAccess( entry, "cn", identity( JSMITH ) ),
+            AclAccessLevelLevelEnum.READ ) );
+        assertTrue( evaluator.getEffectiveAccess( entry, "cn", new AclIdentity() ).isEmpty() );
+    }
+
+
+    @Test
+    public void testParsedUserPassword() throws Exception
+    {
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+        AclEvaluator evaluator = new AclEvaluator( Arrays.asList(
+            parser.parse( "to attrs=userPassword by self write by anonymous auth by * none" ),
+            parser.parse( "to * by users read" ) ) );
+        Entry entry = person( JDOE );
+
+        // The 'attrs' clause restricts the first item to the userPassword attribute
+        assertTrue( AclEvaluator.isGranted( evaluator.getEffectiveAccess( entry, "userPassword", identity( JDOE ) ),
+            AclAccessLevelLevelEnum.WRITE ) );
+        assertTrue( evaluator.getEffectiveAccess( entry, "userPassword", identity( JSMITH ) ).isEmpty() );
+        assertTrue( AclEvaluator.isGranted( evaluator.getEffectiveAccess( entry, "cn", identity( JSMITH ) ),
+            AclAccessLevelLevelEnum.READ ) );
+        assertFalse( AclEvaluator.isGranted( evaluator.getEffectiveAccess( entry, "cn", identity( JDOE ) ),
+            AclAccessLevelLevelEnum.WRITE ) );
+    }
+
+
+    @Test
+    public void testNoAclGrantsRead() throws Exception
+    {
+        AclEvaluator evaluator = new AclEvaluator( Collections.<AclItem> emptyList() );
+
+        Set<AclAccessLevelPrivilegeEnum> privileges = evaluator.getEffectiveAccess( person( JDOE ), "cn",
+            new AclIdentity() );
+
+        assertTrue( AclEvaluator.isGranted( privileges, AclAccessLevelLevelEnum.READ ) );
+        assertFalse( AclEvaluator.isGranted( privileges, AclAccessLevelLevelEnum.WRITE ) );
+    }
+
+
+    @Test
+    public void testImplicitNone() throws Exception
+    {
+        AclEvaluator evaluator = new AclEvaluator( Arrays.asList(
+            item( dn( AclWhatClauseDnTypeEnum.SUBTREE, "ou=groups,dc=example,dc=com" ),
+                who( new AclWhoClauseStar(), AclAccessLevelLevelEnum.READ ) ) ) );
+
+        // Not covered by any item
+        assertTrue( evaluator.getEffectiveAccess( person( JDOE ), "cn", identity( JDOE ) ).isEmpty() );
+
+        // Covered by the subtree
+        assertTrue( AclEvaluator.isGranted( evaluator.getEffectiveAccess(
+            person( "cn=staff,ou=groups,dc=example,dc=com" ), "cn", identity( JDOE ) ),
+            AclAccessLevelLevelEnum.READ ) );
+        assertTrue( AclEvaluator.isGranted( evaluator.getEffectiveAccess(
+            person( "ou=groups,dc=example,dc=com" ), "cn", identity( JDOE ) ), AclAccessLevelLevelEnum.READ ) );
+    }
+
+
+    @Test
+    public void testDnScopes() throws Exception
+    {
+        AclEvaluator children = new AclEvaluator( Arrays.asList(
+            item( dn( AclWhatClauseDnTypeEnum.CHILDREN, "ou=people,dc=example,dc=com" ),
+                who( new AclWhoClauseStar(), AclAccessLevelLevelEnum.READ ) ) ) );
+
+        assertFalse( children.getEffectiveAccess( person( "ou=people,dc=example,dc=com" ), "cn",
+            new AclIdentity() ).contains( AclAccessLevelPrivilegeEnum.READ ) );
+        assertTrue( children.getEffectiveAccess( person( JDOE ), "cn", new AclIdentity() )
+            .contains( AclAccessLevelPrivilegeEnum.READ ) );
+
+        AclEvaluator one = new AclEvaluator( Arrays.asList(
+            item( dn( AclWhatClauseDnTypeEnum.ONE, "dc=example,dc=com" ),
+                who( new AclWhoClauseStar(), AclAccessLevelLevelEnum.READ ) ) ) );
+
+        assertTrue( one.getEffectiveAccess( person( "ou=people,dc=example,dc=com" ), "cn", new AclIdentity() )
+            .contains( AclAccessLevelPrivilegeEnum.READ ) );
+        assertTrue( one.getEffectiveAccess( person( JDOE ), "cn", new AclIdentity() ).isEmpty() );
+    }
+
+
+    @Test
+    public void testFilter() throws Exception
+    {
+        AclWhatClauseFilter filter = new AclWhatClauseFilter();
+        filter.setFilter( "(&(objectClass=person)(!(cn=admin*)))" );
+
+        AclEvaluator evaluator = new AclEvaluator( Arrays.asList(
+            item( filter, who( new AclWhoClauseStar(), AclAccessLevelLevelEnum.SEARCH ) ) ) );
+
+        assertTrue( AclEvaluator.isGranted( evaluator.getEffectiveAccess( person( JDOE ), "cn", new AclIdentity() ),
+            AclAccessLevelLevelEnum.SEARCH ) );
+
+        Entry admin = new DefaultEntry( ADMIN, "objectClass: person", "cn: Administrator", "sn: admin" );
+        assertTrue( evaluator.getEffectiveAccess( admin, "cn", new AclIdentity() ).isEmpty() );
+
+        Entry organization = new DefaultEntry( "dc=example,dc=com", "objectClass: domain", "dc: example" );
+        assertTrue( evaluator.getEffectiveAccess( organization, "dc", new AclIdentity() ).isEmpty() );
+    }
+
+
+    @Test
+    public void testDnAndAttributes() throws Exception
+    {
+        // access to dn.subtree="ou=people,dc=example,dc=com" attrs=userPassword
+        //     by self write
+        //     by * auth
+        AclWhatClauseDn whatClause = dn( AclWhatClauseDnTypeEnum.SUBTREE, "ou=people,dc=example,dc=com" );
+        whatClause.setAttributesClause( attrs( "userPassword" ) );
+
+        AclEvaluator evaluator = new AclEvaluator( Arrays.asList(
+            item( whatClause,
+                who( new AclWhoClauseSelf(), AclAccessLevelLevelEnum.WRITE ),
+                who( new AclWhoClauseStar(), AclAccessLevelLevelEnum.AUTH ) ) ) );
+
+        assertDnAndAttributes( evaluator );
+    }
+
+
+    @Test
+    public void testParsedDnAndAttributes() throws Exception
+    {
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+        AclEvaluator evaluator = new AclEvaluator( Arrays.asList( parser.parse(
+            "to dn.subtree=\"ou=people,dc=example,dc=com\" attrs=userPassword by self write by * auth" ) ) );
+
+        assertDnAndAttributes( evaluator );
+    }
+
+
+    private static void assertDnAndAttributes( AclEvaluator evaluator ) throws Exception
+    {
+        Entry entry = person( JDOE );
+
+        // Both the DN and the attributes match
+        assertTrue( AclEvaluator.isGranted( evaluator.getEffectiveAccess( entry, "userPassword", identity( JDOE ) ),
+            AclAccessLevelLevelEnum.WRITE ) );
+        Set<AclAccessLevelPrivilegeEnum> other = evaluator.getEffectiveAccess( entry, "userPassword",
+            identity( JSMITH ) );
+        assertTrue( AclEvaluator.isGranted( other, AclAccessLevelLevelEnum.AUTH ) );
+        assertFalse( AclEvaluator.isGranted( other, AclAccessLevelLevelEnum.READ ) );
+
+        // Only the DN matches
+        assertTrue( evaluator.getEffectiveAccess( entry, "cn", identity( JDOE ) ).isEmpty() );
+
+        // Only the attributes match
+        assertTrue( evaluator.getEffectiveAccess( person( ADMIN ), "userPassword", identity( ADMIN ) ).isEmpty() );
+    }
+
+
+    @Test
+    public void testRegexExpand() throws Exception
+    {
+        // access to dn.regex="^uid=([^,]+),ou=people,dc=example,dc=com$"
+        //     by dn.exact,expand="uid=$1,ou=people,dc=example,dc=com" write
+        //     by users read
+        AclWhoClauseDn owner = whoDn( AclWhoClauseDnTypeEnum.EXACT, "uid=$1,ou=people,dc=example,dc=com",
+            AclAccessLevelLevelEnum.WRITE );
+        owner.setModifier( AclWhoClauseDnModifierEnum.EXPAND );
+
+        AclEvaluator evaluator = new AclEvaluator( Arrays.asList(
+            item( dn( AclWhatClauseDnTypeEnum.REGEX, "^uid=([^,]+),ou=people,dc=example,dc=com$" ),
+                owner, who( new AclWhoClauseUsers(), AclAccessLevelLevelEnum.READ ) ) ) );
+
+        Entry entry = person( JDOE );
+
+        assertTrue( AclEvaluator.isGranted( evaluator.getEffectiveAccess( entry, "cn", identity( JDOE ) ),
+            AclAccessLevelLevelEnum.WRITE ) );
+
+        Set<AclAccessLevelPrivilegeEnum> other = evaluator.getEffectiveAccess( entry, "cn", identity( JSMITH ) );
+        assertTrue( AclEvaluator.isGranted( other, AclAccessLevelLevelEnum.READ ) );
+        assertFalse( other.contains( AclAccessLevelPrivilegeEnum.WRITE ) );
+    }
+
+
+    @Test
+    public void testControls() throws Exception
+    {
+        // access to * by * =cs continue by users +r
+        AclWhoClauseStar star = new AclWhoClauseStar();
+        AclAccessLevel compareSearch = new AclAccessLevel();
+        compareSearch.setPrivilegeModifier( AclAccessLevelPrivModifierEnum.EQUAL );
+        compareSearch.addPrivilege( AclAccessLevelPrivilegeEnum.COMPARE );
+        compareSearch.addPrivilege( AclAccessLevelPrivilegeEnum.SEARCH );
+        star.setAccessLevel( compareSearch );
+        star.setControl( AclControlEnum.CONTINUE );
+
+        AclWhoClauseUsers users = new AclWhoClauseUsers();
+        AclAccessLevel plusRead = new AclAccessLevel();
+        plusRead.setPrivilegeModifier( AclAccessLevelPrivModifierEnum.PLUS );
+        plusRead.addPrivilege( AclAccessLevelPrivilegeEnum.READ );
+        users.setAccessLevel( plusRead );
+
+        AclEvaluator continueEvaluator = new AclEvaluator( Arrays.asList( item( new AclWhatClauseStar(), star,
+            users ) ) );
+
+        assertEquals( 3, continueEvaluator.getEffectiveAccess( person( JDOE ), "cn", identity( JDOE ) ).size() );
+
+        // The anonymous identity only matches the 'continue' clause, then the implicit 'by * none'
+        assertTrue( continueEvaluator.getEffectiveAccess( person( JDOE ), "cn", new AclIdentity() ).isEmpty() );
+
+        // access to * by * =cs break
+        // access to * by users +r
+        AclWhoClauseStar breakStar = new AclWhoClauseStar();
+        breakStar.setAccessLevel( compareSearch );
+        breakStar.setControl( AclControlEnum.BREAK );
+
+        AclEvaluator breakEvaluator = new AclEvaluator( Arrays.asList( item( new AclWhatClauseStar(), breakStar ),
+            item( new AclWhatClauseStar(), users ) ) );
+
+        assertEquals( 3, breakEvaluator.getEffectiveAccess( person( JDOE ), "cn", identity( JDOE ) ).size() );
+    }
+
+
+    @Test
+    public void testGroup() throws Exception
+    {
+        AclWhoClauseGroup group = who( new AclWhoClauseGroup(), AclAccessLevelLevelEnum.WRITE );
+        group.setPattern( "cn=editors,ou=groups,dc=example,dc=com" );
+
+        AclEvaluator evaluator = new AclEvaluator( Arrays.asList( item( new AclWhatClauseStar(), group ) ) );
+
+        AclIdentity member = identity( JSMITH );
+        member.addGroup( new Dn( "cn=Editors,ou=groups,dc=example,dc=com" ) );
+
+        assertTrue( AclEvaluator.isGranted( evaluator.getEffectiveAccess( person( JDOE ), "cn", member ),
+            AclAccessLevelLevelEnum.WRITE ) );
+        assertTrue( evaluator.getEffectiveAccess( person( JDOE ), "cn", identity( JSMITH ) ).isEmpty() );
+    }
+
+
+    @Test
+    public void testInvalidDn()
+    {
+        assertThrows( ParseException.class, () -> new AclEvaluator( Arrays.asList(
+            item( dn( AclWhatClauseDnTypeEnum.SUBTREE, "not a dn" ),
+                who( new AclWhoClauseStar(), AclAccessLevelLevelEnum.READ ) ) ) ) );
+    }
+
+
+    @Test
+    public void testBulkEvaluation() throws Exception
+    {
+        AclEvaluator evaluator = passwordEvaluator();
+        List<Entry> entries = new ArrayList<>();
+
+        for ( int i = 0; i < 2000; i++ )
+        {
+            entries.add( person( "uid=user" + i + ",ou=people,dc=example,dc=com" ) );
+        }
+
+        List<Entry> evaluatedEntries = new ArrayList<>();
+        int[] readable = new int[1];
+        ForkJoinPool pool = new ForkJoinPool( 2 );
+
+        try
+        {
+            evaluator.evaluate( entries.iterator(), "userPassword", identity( "uid=user42,ou=people,dc=example,dc=com" ),
+                pool, ( entry, privileges ) ->
+                {
+                    evaluatedEntries.add( entry );
+
+                    if ( AclEvaluator.isGranted( privileges, AclAccessLevelLevelEnum.READ ) )
+                    {
+                        readable[0]++;
+                    }
+                } );
+        }
+        finally
+        {
+            pool.shutdown();
+        }
+
+        // The listener is notified in the order of the entries
+        assertEquals( entries, evaluatedEntries );
+
+        // Only the identity itself can read its password
+        assertEquals( 1, readable[0] );
+    }
+}
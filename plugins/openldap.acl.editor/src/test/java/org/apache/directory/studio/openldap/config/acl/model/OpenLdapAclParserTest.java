@@ -638,6 +638,212 @@ public class OpenLdapAclParserTest
         // Testing the ACL item
         assertThrows(ParseException.class, () -> parser.parse( "access to filter=" + filter + " by *" ));
     }
+
+
+    //-----------------------------------------------------------------------------------------
+    // The WHAT ATTRS rule
+    //-----------------------------------------------------------------------------------------
+    @Test
+    public void testWhatAttrsSimple() throws Exception
+    {
+        System.out.println( "\n--> testWhatAttrsSimple" );
+
+        // Create parser
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+
+        // Testing the ACL item
+        AclItem aclItem = parser.parse( "access to attrs=userPassword by *" );
+        assertNotNull( aclItem );
+
+        // Testing the 'what' clause
+        AclWhatClause whatClause = aclItem.getWhatClause();
+        assertTrue( whatClause instanceof AclWhatClauseAttributes );
+
+        AclWhatClauseAttributes whatClauseAttributes = ( AclWhatClauseAttributes ) whatClause;
+        List<AclAttribute> attributes = whatClauseAttributes.getAttributes();
+        assertEquals( 1, attributes.size() );
+        assertEquals( "userPassword", attributes.get( 0 ).getName() );
+        assertTrue( attributes.get( 0 ).isAttributeType() );
+        assertFalse( whatClauseAttributes.hasVal() );
+
+        System.out.println( "<-- ACL:" + aclItem );
+    }
+
+
+    @Test
+    public void testWhatAttrsList() throws Exception
+    {
+        System.out.println( "\n--> testWhatAttrsList" );
+
+        // Create parser
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+
+        // Testing the ACL item
+        AclItem aclItem = parser.parse( "to attr = cn,sn,entry,children,@person,!inetOrgPerson by * read" );
+        assertNotNull( aclItem );
+
+        // Testing the 'what' clause
+        AclWhatClause whatClause = aclItem.getWhatClause();
+        assertTrue( whatClause instanceof AclWhatClauseAttributes );
+
+        List<AclAttribute> attributes = ( ( AclWhatClauseAttributes ) whatClause ).getAttributes();
+        assertEquals( 6, attributes.size() );
+        assertEquals( "cn", attributes.get( 0 ).getName() );
+        assertEquals( "sn", attributes.get( 1 ).getName() );
+        assertTrue( attributes.get( 2 ).isEntry() );
+        assertTrue( attributes.get( 3 ).isChildren() );
+        assertTrue( attributes.get( 4 ).isObjectClass() );
+        assertEquals( "person", attributes.get( 4 ).getName() );
+        assertTrue( attributes.get( 5 ).isObjectClassNotAllowed() );
+        assertEquals( "inetOrgPerson", attributes.get( 5 ).getName() );
+
+        System.out.println( "<-- ACL:" + aclItem );
+    }
+
+
+    @Test
+    public void testWhatAttrsVal() throws Exception
+    {
+        System.out.println( "\n--> testWhatAttrsVal" );
+
+        // Create parser
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+
+        // Testing the ACL item
+        AclItem aclItem = parser.parse( "to attrs=member val/distinguishedNameMatch.regex=\"uid=.*\" by self write" );
+        assertNotNull( aclItem );
+
+        // Testing the 'what' clause
+        AclWhatClause whatClause = aclItem.getWhatClause();
+        assertTrue( whatClause instanceof AclWhatClauseAttributes );
+
+        AclWhatClauseAttributes whatClauseAttributes = ( AclWhatClauseAttributes ) whatClause;
+        assertEquals( 1, whatClauseAttributes.getAttributes().size() );
+        assertEquals( "member", whatClauseAttributes.getAttributes().get( 0 ).getName() );
+        assertTrue( whatClauseAttributes.hasVal() );
+        assertTrue( whatClauseAttributes.hasMatchingRule() );
+        assertEquals( AclAttributeStyleEnum.REGEX, whatClauseAttributes.getStyle() );
+        assertEquals( "uid=.*", whatClauseAttributes.getValue() );
+
+        System.out.println( "<-- ACL:" + aclItem );
+    }
+
+
+    @Test
+    public void testWhatAttrsValWithSeveralAttributes() throws Exception
+    {
+        System.out.println( "\n--> testWhatAttrsValWithSeveralAttributes" );
+
+        // Create parser
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+
+        // Testing the ACL item
+        assertThrows( ParseException.class, () -> parser.parse( "to attrs=cn,sn val=\"test\" by *" ) );
+    }
+
+
+    @Test
+    public void testWhatDnAndAttrs() throws Exception
+    {
+        System.out.println( "\n--> testWhatDnAndAttrs" );
+
+        // Create parser
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+
+        // Testing the ACL item
+        AclItem aclItem = parser.parse(
+            "to dn.subtree=\"ou=people,dc=example,dc=com\" attrs=userPassword by self write by * auth" );
+        assertNotNull( aclItem );
+
+        // Testing the 'what' clause
+        AclWhatClause whatClause = aclItem.getWhatClause();
+        assertNotNull( whatClause );
+        AclWhatClauseDn whatClauseDn = whatClause.getDnClause();
+        assertNotNull( whatClauseDn );
+        assertEquals( AclWhatClauseDnTypeEnum.SUBTREE, whatClauseDn.getType() );
+        assertEquals( "ou=people,dc=example,dc=com", whatClauseDn.getPattern() );
+        assertNull( whatClause.getFilterClause() );
+        AclWhatClauseAttributes whatClauseAttributes = whatClause.getAttributesClause();
+        assertNotNull( whatClauseAttributes );
+        assertEquals( 1, whatClauseAttributes.getAttributes().size() );
+        assertEquals( "userPassword", whatClauseAttributes.getAttributes().get( 0 ).getName() );
+
+        // Testing the 'who' clauses
+        assertEquals( 2, aclItem.getWhoClauses().size() );
+        assertTrue( aclItem.getWhoClauses().get( 0 ) instanceof AclWhoClauseSelf );
+        assertTrue( aclItem.getWhoClauses().get( 1 ) instanceof AclWhoClauseStar );
+
+        assertEquals( "to dn.subtree=\"ou=people,dc=example,dc=com\" attrs=userPassword by self write by * auth",
+            aclItem.toString() );
+
+        System.out.println( "<-- ACL:" + aclItem );
+    }
+
+
+    @Test
+    public void testWhatDnAndFilterAndAttrs() throws Exception
+    {
+        System.out.println( "\n--> testWhatDnAndFilterAndAttrs" );
+
+        // Create parser
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+
+        // Testing the ACL item
+        AclItem aclItem = parser.parse( "access to dn.children=\"dc=example,dc=com\" filter=(objectClass=person) "
+            + "attrs=cn,sn val=\"test\" by *" );
+        assertNotNull( aclItem );
+
+        // Testing the 'what' clause
+        AclWhatClause whatClause = aclItem.getWhatClause();
+        assertNotNull( whatClause.getDnClause() );
+        assertEquals( AclWhatClauseDnTypeEnum.CHILDREN, whatClause.getDnClause().getType() );
+        assertNotNull( whatClause.getFilterClause() );
+        assertEquals( "(objectClass=person)", whatClause.getFilterClause().getFilter() );
+        assertNotNull( whatClause.getAttributesClause() );
+        assertEquals( 2, whatClause.getAttributesClause().getAttributes().size() );
+        assertTrue( whatClause.getAttributesClause().hasVal() );
+
+        System.out.println( "<-- ACL:" + aclItem );
+    }
+
+
+    @Test
+    public void testWhatFilterAndAttrs() throws Exception
+    {
+        System.out.println( "\n--> testWhatFilterAndAttrs" );
+
+        // Create parser
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+
+        // Testing the ACL item
+        AclItem aclItem = parser.parse( "to filter=(objectClass=person) attrs=userPassword by self write" );
+        assertNotNull( aclItem );
+
+        // Testing the 'what' clause
+        AclWhatClause whatClause = aclItem.getWhatClause();
+        assertNull( whatClause.getDnClause() );
+        assertEquals( "(objectClass=person)", whatClause.getFilterClause().getFilter() );
+        assertEquals( "userPassword", whatClause.getAttributesClause().getAttributes().get( 0 ).getName() );
+        assertEquals( "to filter=(objectClass=person) attrs=userPassword by self write", aclItem.toString() );
+
+        System.out.println( "<-- ACL:" + aclItem );
+    }
+
+
+    @Test
+    public void testWhatClausesOutOfOrder() throws Exception
+    {
+        System.out.println( "\n--> testWhatClausesOutOfOrder" );
+
+        // Create parser
+        OpenLdapAclParser parser = new OpenLdapAclParser();
+
+        // The dn, filter and attrs clauses can only be given once, in this order
+        assertThrows( ParseException.class,
+            () -> parser.parse( "to attrs=userPassword dn=\"dc=example,dc=com\" by *" ) );
+        assertThrows( ParseException.class,
+            () -> parser.parse( "to dn=\"dc=example,dc=com\" dn=\"dc=example,dc=com\" by *" ) );
+    }
  
 
     
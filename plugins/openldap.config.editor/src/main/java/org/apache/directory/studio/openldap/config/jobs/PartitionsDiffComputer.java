@@ -20,6 +20,7 @@
 package org.apache.directory.studio.openldap.config.jobs;
 
 
+import java.io.IOException;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.List;
@@ -35,7 +36,6 @@ import org.apache.directory.api.ldap.model.entry.ModificationOperation;
 import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeValueException;
 import org.apache.directory.api.ldap.model.filter.FilterParser;
-import org.apache.directory.api.ldap.model.ldif.ChangeType;
 import org.apache.directory.api.ldap.model.ldif.LdifEntry;
 import org.apache.directory.api.ldap.model.message.AliasDerefMode;
 import org.apache.directory.api.ldap.model.message.SearchScope;
@@ -46,6 +46,7 @@ import org.apache.directory.server.core.api.filtering.EntryFilteringCursor;
 import org.apache.directory.server.core.api.interceptor.context.LookupOperationContext;
 import org.apache.directory.server.core.api.interceptor.context.SearchOperationContext;
 import org.apache.directory.server.core.api.partition.Partition;
+import org.apache.directory.studio.ldapbrowser.core.utils.EntriesDiffComputer;
 
 
 /**
@@ -175,6 +176,10 @@ public class PartitionsDiffComputer
 
     /**
      * Compare two partitions.
+     * 
+     * Both partitions are read in Dn order, one level at a time, and the entries are
+     * merged on their normalized Dn by the {@link EntriesDiffComputer}. Deleted entries
+     * are deleted after all their children.
      *
      * @param originalPartition The original partition
      * @param modifiedPartition The modified partition
@@ -186,9 +191,6 @@ public class PartitionsDiffComputer
     public static List<LdifEntry> comparePartitions(  Partition originalPartition, Partition modifiedPartition,
         Dn baseDn, String[] attributeIds ) throws PartitionsDiffException
     {
-        // Creating the list containing all the modifications
-        List<LdifEntry> modifications = new ArrayList<>();
-
         try
         {
             // Looking up the original base entry
@@ -199,83 +201,7 @@ public class PartitionsDiffComputer
                 throw new PartitionsDiffException( "Unable to find the base entry in the original partition." );
             }
 
-            // Creating the list containing all the original entries to be processed
-            // and adding it the original base entry. This is done going down the tree.
-            List<Entry> originalEntries = new ArrayList<>();
-            originalEntries.add( originalBaseEntry );
-
-            // Looping until all original entries are being processed. We will read all the children,
-            // adding each of them at the end of the list, consuming the first element of the list
-            // at every iteration. When we have processed all the tree in depth, we should not have 
-            // any left entries in the list.
-            // We don't dereference aliases and referrals.
-            while ( !originalEntries.isEmpty() )
-            {
-                // Getting the first original entry from the list
-                Entry originalEntry = originalEntries.remove( 0 );
-
-                // Creating a modification entry to hold all modifications
-                LdifEntry ldifEntry = new LdifEntry();
-                ldifEntry.setDn( originalEntry.getDn() );
-
-                // Looking for the equivalent entry in the destination partition
-                Entry modifiedEntry = modifiedPartition.lookup( new LookupOperationContext( null, originalEntry
-                    .getDn(), attributeIds ) );
-                
-                if ( modifiedEntry != null )
-                {
-                    // Setting the changeType to Modify atm
-                    ldifEntry.setChangeType( ChangeType.Modify );
-
-                    // Comparing both entries
-                    compareEntries( originalEntry, modifiedEntry, ldifEntry );
-                }
-                else
-                {
-                    // The entry has been deleted from the partition. It has to be deleted.
-                    // Note : we *must* delete all of it's children first !!!
-                    List<LdifEntry> deletions = deleteEntry( originalPartition, originalEntry.getDn() );
-                    
-                    // Append the children
-                    modifications.addAll( deletions );
-
-                    // and add the parent entry
-                    ldifEntry.setChangeType( ChangeType.Delete );
-                    
-                    // And go on with the remaining entries
-                    continue;
-                }
-
-                // Checking if modifications occurred on the original entry
-                ChangeType modificationEntryChangeType = ldifEntry.getChangeType();
-                
-                if ( modificationEntryChangeType != ChangeType.None )
-                {
-                    if ( modificationEntryChangeType == ChangeType.Delete
-                        || ( modificationEntryChangeType == ChangeType.Modify && !ldifEntry.getModifications().isEmpty() ) )
-                    {
-                        // Adding the modification entry to the list
-                        modifications.add( ldifEntry );
-                    }
-                }
-
-                // Creating a search operation context to get the children of the current entry
-                SearchOperationContext soc = new SearchOperationContext( null, originalEntry.getDn(),
-                    SearchScope.ONELEVEL,
-                    FilterParser.parse( originalPartition.getSchemaManager(), LdapConstants.OBJECT_CLASS_STAR ), attributeIds );
-                soc.setAliasDerefMode( AliasDerefMode.DEREF_ALWAYS );
-
-                // Looking for the children of the current entry
-                EntryFilteringCursor cursor = originalPartition.search( soc );
-                
-                while ( cursor.next() )
-                {
-                    originalEntries.add( cursor.get() );
-                }
-            }
-
-            // Now, iterate on the modified partition, to see if some entries have
-            // been added.
+            // Looking up the modified base entry
             Entry destinationBaseEntry = modifiedPartition
                 .lookup( new LookupOperationContext( null, baseDn, attributeIds ) );
             
@@ -284,93 +210,70 @@ public class PartitionsDiffComputer
                 throw new PartitionsDiffException( "Unable to find the base entry in the destination partition." );
             }
 
-            // Creating the list containing all the destination entries to be processed
-            // and adding it the destination base entry
-            List<Entry> modifiedEntries = new ArrayList<>();
-            modifiedEntries.add( originalBaseEntry );
-
-            // Looping until all modified entries are being processed
-            while ( !modifiedEntries.isEmpty() )
-            {
-                // Getting the first modification entry from the list
-                Entry modifiedEntry = modifiedEntries.remove( 0 );
+            // Streaming both trees in Dn order
+            EntriesDiffComputer.EntryStream originalEntries = EntriesDiffComputer.readSubtree( originalBaseEntry,
+                createChildEntriesReader( originalPartition, attributeIds ) );
+            EntriesDiffComputer.EntryStream modifiedEntries = EntriesDiffComputer.readSubtree( destinationBaseEntry,
+                createChildEntriesReader( modifiedPartition, attributeIds ) );
 
-                // Looking for the equivalent entry in the destination partition
-                Entry originalEntry = originalPartition.lookup( new LookupOperationContext( null, modifiedEntry
-                    .getDn(), attributeIds ) );
-                
-                // We're only looking for new entries, modified or removed 
-                // entries have already been computed
-                if ( originalEntry == null )
+            return EntriesDiffComputer.computeModifications( originalEntries, modifiedEntries,
+                new EntriesDiffComputer.EntryComparator()
                 {
-                    // Creating a modification entry to hold all modifications
-                    LdifEntry modificationEntry = new LdifEntry();
-                    modificationEntry.setDn( modifiedEntry.getDn() );
-
-                    // Setting the changeType to addition
-                    modificationEntry.setChangeType( ChangeType.Add );
-
-                    // Copying attributes
-                    for ( Attribute attribute : modifiedEntry )
+                    @Override
+                    public void compareEntries( Entry originalEntry, Entry modifiedEntry, LdifEntry ldifEntry )
+                        throws LdapException
                     {
-                        modificationEntry.addAttribute( attribute );
+                        PartitionsDiffComputer.compareEntries( originalEntry, modifiedEntry, ldifEntry );
                     }
-
-                    // Adding the modification entry to the list
-                    modifications.add( modificationEntry );
-                }
-
-                // Creating a search operation context to get the children of the current entry
-                SearchOperationContext soc = new SearchOperationContext( null, modifiedEntry.getDn(),
-                    SearchScope.ONELEVEL,
-                    FilterParser.parse( originalPartition.getSchemaManager(), LdapConstants.OBJECT_CLASS_STAR ), attributeIds );
-                soc.setAliasDerefMode( AliasDerefMode.DEREF_ALWAYS );
-
-                // Looking for the children of the current entry
-                EntryFilteringCursor cursor = modifiedPartition.search( soc );
-
-                while ( cursor.next() )
-                {
-                    modifiedEntries.add( cursor.get() );
-                }
-            }
+                } );
+        }
+        catch ( PartitionsDiffException pde )
+        {
+            throw pde;
         }
         catch ( Exception e )
         {
             throw new PartitionsDiffException( e );
         }
-
-        return modifications;
     }
 
     
     /**
-     * Delete recursively the entries under a parent
+     * Creates a reader searching the child entries in the given partition
      */
-    private static List<LdifEntry> deleteEntry( Partition originalPartition, Dn parentDn ) throws LdapException, ParseException, CursorException
+    private static EntriesDiffComputer.ChildEntriesReader createChildEntriesReader( final Partition partition,
+        final String[] attributeIds )
     {
-        List<LdifEntry> deletions = new ArrayList<>();
-        
-        // Lookup for the children
-        SearchOperationContext soc = new SearchOperationContext( null, parentDn,
-            SearchScope.ONELEVEL,
-            FilterParser.parse( originalPartition.getSchemaManager(), LdapConstants.OBJECT_CLASS_STAR ), SchemaConstants.NO_ATTRIBUTE_ARRAY );
-        soc.setAliasDerefMode( AliasDerefMode.DEREF_ALWAYS );
+        return new EntriesDiffComputer.ChildEntriesReader()
+        {
+            @Override
+            public List<Entry> readChildEntries( Dn dn ) throws LdapException
+            {
+                List<Entry> entries = new ArrayList<>();
 
-        // Looking for the children of the current entry
-        EntryFilteringCursor cursor = originalPartition.search( soc );
+                try
+                {
+                    SearchOperationContext soc = new SearchOperationContext( null, dn, SearchScope.ONELEVEL,
+                        FilterParser.parse( partition.getSchemaManager(), LdapConstants.OBJECT_CLASS_STAR ),
+                        attributeIds );
+                    soc.setAliasDerefMode( AliasDerefMode.DEREF_ALWAYS );
 
-        while ( cursor.next() )
-        {
-            LdifEntry deletion = new LdifEntry( cursor.get().getDn() );
-            
-            // Iterate 
-            List<LdifEntry> childrenDeletions = deleteEntry( originalPartition, deletion.getDn() );
-            deletions.addAll( childrenDeletions );
-            deletions.add( deletion );
-        }
-        
-        return deletions;
+                    try ( EntryFilteringCursor cursor = partition.search( soc ) )
+                    {
+                        while ( cursor.next() )
+                        {
+                            entries.add( cursor.get() );
+                        }
+                    }
+                }
+                catch ( ParseException | CursorException | IOException e )
+                {
+                    throw new LdapException( e.getMessage(), e );
+                }
+
+                return entries;
+            }
+        };
     }
 
     /**
@@ -0,0 +1,816 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.config.jobs;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.naming.directory.SearchControls;
+
+import org.apache.directory.api.ldap.model.constants.LdapConstants;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
+import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
+import org.apache.directory.studio.connection.core.ConnectionParameter;
+import org.apache.directory.studio.connection.core.ConnectionParameter.AuthenticationMethod;
+import org.apache.directory.studio.connection.core.ConnectionParameter.EncryptionMethod;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.connection.core.jobs.CloseConnectionsRunnable;
+import org.apache.directory.studio.openldap.config.Messages;
+import org.apache.directory.studio.openldap.config.model.io.ConfigurationUtils;
+import org.apache.directory.studio.openldap.syncrepl.BindMethod;
+import org.apache.directory.studio.openldap.syncrepl.ContextCsn;
+import org.apache.directory.studio.openldap.syncrepl.Provider;
+import org.apache.directory.studio.openldap.syncrepl.ReplicationLag;
+import org.apache.directory.studio.openldap.syncrepl.ReplicationLagHistory;
+import org.apache.directory.studio.openldap.syncrepl.ReplicationLagStatus;
+import org.apache.directory.studio.openldap.syncrepl.SyncRepl;
+import org.apache.directory.studio.openldap.syncrepl.SyncReplParser;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+
+
+/**
+ * This job monitors the replication lag of an OpenLDAP consumer.
+ * <p>
+ * The replicated databases and their providers are read once from the 'olcSyncrepl'
+ * values of the consumer configuration. Then, at each interval, the 'contextCSN' values
+ * of each replicated suffix are read with a single base scope search on the consumer
+ * and on each of its providers, and the lag of the consumer is computed for each server ID.
+ * <p>
+ * An opened connection of the connection manager pointing to the provider is used if
+ * there is one, otherwise a connection is created from the 'olcSyncrepl' bind parameters.
+ * The created connections are kept opened between two polls, and closed by the job when
+ * the monitor is stopped. The connections of the connection manager a poll has to open,
+ * like a closed consumer connection, are closed at the end of the poll.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ReplicationLagMonitor extends Job
+{
+    /** The default polling interval, in milliseconds */
+    public static final long DEFAULT_INTERVAL = 30000L;
+
+    /** The default warning threshold, in milliseconds */
+    public static final long DEFAULT_WARNING_THRESHOLD = 60000L;
+
+    /** The default critical threshold, in milliseconds */
+    public static final long DEFAULT_CRITICAL_THRESHOLD = 300000L;
+
+    /** The default number of samples kept for each server ID */
+    public static final int DEFAULT_HISTORY_SIZE = 20;
+
+    /** The lag variation under which the lag is considered as stable, in milliseconds */
+    private static final long STABLE_TOLERANCE = 1000L;
+
+    /** The configuration DN */
+    private static final String CONFIGURATION_DN = "cn=config"; //$NON-NLS-1$
+
+    /** The filter used to find the replicated databases */
+    private static final String SYNCREPL_FILTER = "(olcSyncrepl=*)"; //$NON-NLS-1$
+
+    /** The suffix attribute */
+    private static final String OLC_SUFFIX = "olcSuffix"; //$NON-NLS-1$
+
+    /** The syncrepl attribute */
+    private static final String OLC_SYNCREPL = "olcSyncrepl"; //$NON-NLS-1$
+
+    /** The context CSN attribute */
+    private static final String CONTEXT_CSN = "contextCSN"; //$NON-NLS-1$
+
+    /** The default LDAP port */
+    private static final int DEFAULT_LDAP_PORT = 389;
+
+    /** The default LDAPS port */
+    private static final int DEFAULT_LDAPS_PORT = 636;
+
+    /**
+     * This interface is implemented by the classes listening to the lags computed by the monitor.
+     */
+    public interface ReplicationLagListener
+    {
+        /**
+         * Called after each poll, from the job thread.
+         *
+         * @param monitor the monitor
+         * @param lags the lags
+         */
+        void lagsUpdated( ReplicationLagMonitor monitor, List<ServerLag> lags );
+    }
+
+    /**
+     * This class holds the lag of a replicated database for a server ID of one of its providers.
+     */
+    public static class ServerLag
+    {
+        /** The suffix */
+        private String suffix;
+
+        /** The provider */
+        private String provider;
+
+        /** The lag */
+        private ReplicationLag lag;
+
+        /** The history */
+        private ReplicationLagHistory history;
+
+        /** The status */
+        private ReplicationLagStatus status;
+
+        /** The error message */
+        private String errorMessage;
+
+
+        /**
+         * Creates a new instance of ServerLag.
+         *
+         * @param suffix the suffix
+         * @param provider the provider
+         * @param lag the lag, or <code>null</code> in case of error
+         * @param history the history, or <code>null</code> in case of error
+         * @param status the status
+         * @param errorMessage the error message, or <code>null</code>
+         */
+        private ServerLag( String suffix, String provider, ReplicationLag lag, ReplicationLagHistory history,
+            ReplicationLagStatus status, String errorMessage )
+        {
+            this.suffix = suffix;
+            this.provider = provider;
+            this.lag = lag;
+            this.history = history;
+            this.status = status;
+            this.errorMessage = errorMessage;
+        }
+
+
+        /**
+         * @return the suffix
+         */
+        public String getSuffix()
+        {
+            return suffix;
+        }
+
+
+        /**
+         * @return the provider
+         */
+        public String getProvider()
+        {
+            return provider;
+        }
+
+
+        /**
+         * @return the lag, or <code>null</code> in case of error
+         */
+        public ReplicationLag getLag()
+        {
+            return lag;
+        }
+
+
+        /**
+         * @return the history, or <code>null</code> in case of error
+         */
+        public ReplicationLagHistory getHistory()
+        {
+            return history;
+        }
+
+
+        /**
+         * @return the status
+         */
+        public ReplicationLagStatus getStatus()
+        {
+            return status;
+        }
+
+
+        /**
+         * @return the error message, or <code>null</code>
+         */
+        public String getErrorMessage()
+        {
+            return errorMessage;
+        }
+    }
+
+    /**
+     * This class holds a replicated database of the consumer.
+     */
+    private static class ReplicatedDatabase
+    {
+        /** The first suffix, naming the database */
+        private String suffix;
+
+        /** All the suffixes */
+        private List<String> suffixes = new ArrayList<>();
+
+        /** The syncrepl values */
+        private List<SyncRepl> syncRepls = new ArrayList<>();
+    }
+
+    /** The consumer connection */
+    private Connection consumerConnection;
+
+    /** The polling interval, in milliseconds */
+    private volatile long interval = DEFAULT_INTERVAL;
+
+    /** The warning threshold, in milliseconds */
+    private volatile long warningThreshold = DEFAULT_WARNING_THRESHOLD;
+
+    /** The critical threshold, in milliseconds */
+    private volatile long criticalThreshold = DEFAULT_CRITICAL_THRESHOLD;
+
+    /** The replicated databases, read on the first poll */
+    private List<ReplicatedDatabase> databases;
+
+    /** The provider connections created by the monitor, keyed by provider URL, only used by the job */
+    private Map<String, Connection> createdConnections = new HashMap<>();
+
+    /** The connections of the connection manager opened by the current poll, only used by the job */
+    private List<Connection> openedConnections = new ArrayList<>();
+
+    /** The histories, keyed by suffix, provider URL and server ID */
+    private Map<String, ReplicationLagHistory> histories = new HashMap<>();
+
+    /** The last computed lags */
+    private volatile List<ServerLag> lastLags = Collections.emptyList();
+
+    /** The listeners */
+    private List<ReplicationLagListener> listeners = new CopyOnWriteArrayList<>();
+
+    /** The flag indicating that the monitor has been stopped */
+    private volatile boolean stopped;
+
+
+    /**
+     * Creates a new instance of ReplicationLagMonitor.
+     *
+     * @param consumerConnection the consumer connection
+     */
+    public ReplicationLagMonitor( Connection consumerConnection )
+    {
+        super( Messages.getString( "ReplicationLagMonitor.JobName" ) + " " + consumerConnection.getName() ); //$NON-NLS-1$ //$NON-NLS-2$
+        this.consumerConnection = consumerConnection;
+        setSystem( true );
+    }
+
+
+    /**
+     * Starts the monitor.
+     */
+    public void start()
+    {
+        stopped = false;
+        schedule();
+    }
+
+
+    /**
+     * Stops the monitor. The provider connections it has created are closed by the job,
+     * at the end of the running poll, or right away if no poll is running.
+     */
+    public void stop()
+    {
+        stopped = true;
+        cancel();
+
+        // A running job is run once more when it is done, a waiting or sleeping one is run now
+        schedule();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    protected IStatus run( IProgressMonitor monitor )
+    {
+        if ( stopped )
+        {
+            closeConnections( createdConnections.values() );
+            createdConnections.clear();
+
+            return Status.CANCEL_STATUS;
+        }
+
+        List<ServerLag> lags;
+
+        try
+        {
+            lags = poll( monitor );
+        }
+        finally
+        {
+            closeConnections( openedConnections );
+            openedConnections.clear();
+        }
+
+        if ( stopped || monitor.isCanceled() )
+        {
+            return Status.CANCEL_STATUS;
+        }
+
+        lastLags = lags;
+
+        for ( ReplicationLagListener listener : listeners )
+        {
+            listener.lagsUpdated( this, lags );
+        }
+
+        schedule( interval );
+
+        return Status.OK_STATUS;
+    }
+
+
+    /**
+     * Closes connections, and notifies the connection listeners.
+     *
+     * @param connections the connections
+     */
+    private void closeConnections( Collection<Connection> connections )
+    {
+        if ( !connections.isEmpty() )
+        {
+            // The connections are closed even if the job is canceled
+            StudioProgressMonitor closeMonitor = new StudioProgressMonitor( new NullProgressMonitor() );
+            CloseConnectionsRunnable runnable = new CloseConnectionsRunnable( new ArrayList<>( connections ) );
+            runnable.run( closeMonitor );
+            runnable.runNotification( closeMonitor );
+        }
+    }
+
+
+    /**
+     * Reads the context CSNs of the consumer and of its providers, and computes the lags.
+     *
+     * @param monitor the progress monitor
+     * @return the lags
+     */
+    private List<ServerLag> poll( IProgressMonitor monitor )
+    {
+        List<ServerLag> lags = new ArrayList<>();
+
+        try
+        {
+            if ( databases == null )
+            {
+                databases = readReplicatedDatabases( monitor );
+            }
+        }
+        catch ( Exception e )
+        {
+            lags.add( new ServerLag( CONFIGURATION_DN, consumerConnection.getName(), null, null,
+                ReplicationLagStatus.UNKNOWN, e.getMessage() ) );
+
+            return lags;
+        }
+
+        for ( ReplicatedDatabase database : databases )
+        {
+            List<ContextCsn> consumerCsns;
+
+            try
+            {
+                consumerCsns = readContextCsns( consumerConnection, database.suffixes, monitor );
+            }
+            catch ( Exception e )
+            {
+                lags.add( new ServerLag( database.suffix, consumerConnection.getName(), null, null,
+                    ReplicationLagStatus.UNKNOWN, e.getMessage() ) );
+
+                continue;
+            }
+
+            for ( SyncRepl syncRepl : database.syncRepls )
+            {
+                String providerUrl = syncRepl.getProvider().toString();
+
+                try
+                {
+                    Connection providerConnection = getProviderConnection( syncRepl );
+                    List<ContextCsn> providerCsns = readContextCsns( providerConnection, database.suffixes,
+                        monitor );
+
+                    for ( ReplicationLag lag : ReplicationLag.compute( providerCsns, consumerCsns ) )
+                    {
+                        ReplicationLagHistory history = histories.computeIfAbsent(
+                            database.suffix + '#' + providerUrl + '#' + lag.getServerId(),
+                            key -> new ReplicationLagHistory( DEFAULT_HISTORY_SIZE, STABLE_TOLERANCE ) );
+                        history.add( lag.getLag() );
+
+                        lags.add( new ServerLag( database.suffix, providerUrl, lag, history,
+                            ReplicationLagStatus.getStatus( lag.getLag(), warningThreshold, criticalThreshold ),
+                            null ) );
+                    }
+                }
+                catch ( Exception e )
+                {
+                    lags.add( new ServerLag( database.suffix, providerUrl, null, null, ReplicationLagStatus.UNKNOWN,
+                        e.getMessage() ) );
+                }
+            }
+        }
+
+        return lags;
+    }
+
+
+    /**
+     * Reads the replicated databases of the consumer and their providers, with a single
+     * subtree search on the configuration.
+     *
+     * @param monitor the progress monitor
+     * @return the replicated databases
+     * @throws Exception if an error occurs
+     */
+    private List<ReplicatedDatabase> readReplicatedDatabases( IProgressMonitor monitor ) throws Exception
+    {
+        SearchControls searchControls = new SearchControls();
+        searchControls.setSearchScope( SearchControls.SUBTREE_SCOPE );
+        searchControls.setReturningAttributes( new String[]
+            { OLC_SUFFIX, OLC_SYNCREPL } );
+
+        List<ReplicatedDatabase> replicatedDatabases = new ArrayList<>();
+        SyncReplParser parser = new SyncReplParser();
+
+        for ( Entry entry : search( consumerConnection, CONFIGURATION_DN, SYNCREPL_FILTER, searchControls, monitor ) )
+        {
+            ReplicatedDatabase database = new ReplicatedDatabase();
+            Attribute suffixAttribute = entry.get( OLC_SUFFIX );
+
+            if ( suffixAttribute != null )
+            {
+                for ( Value suffixValue : suffixAttribute )
+                {
+                    database.suffixes.add( suffixValue.getString() );
+                }
+            }
+
+            if ( database.suffixes.isEmpty() )
+            {
+                // The configuration database has no suffix
+                database.suffixes.add( CONFIGURATION_DN );
+            }
+
+            database.suffix = database.suffixes.get( 0 );
+
+            Attribute syncReplAttribute = entry.get( OLC_SYNCREPL );
+
+            if ( syncReplAttribute != null )
+            {
+                for ( Value syncReplValue : syncReplAttribute )
+                {
+                    // Removing the ordering prefix of the value
+                    SyncRepl syncRepl = parser.parse( syncReplValue.getString().replaceFirst( "^\\{\\d+\\}", "" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+                    if ( syncRepl.getProvider() != null )
+                    {
+                        database.syncRepls.add( syncRepl );
+                    }
+                }
+            }
+
+            if ( !database.syncRepls.isEmpty() )
+            {
+                replicatedDatabases.add( database );
+            }
+        }
+
+        return replicatedDatabases;
+    }
+
+
+    /**
+     * Reads the context CSNs of the suffixes of a database, with a base scope search on each suffix.
+     * The CSNs of all the suffixes are returned, the lag computation keeps the highest one of each
+     * server ID.
+     *
+     * @param connection the connection
+     * @param suffixes the suffixes
+     * @param monitor the progress monitor
+     * @return the context CSNs
+     * @throws Exception if an error occurs
+     */
+    private List<ContextCsn> readContextCsns( Connection connection, List<String> suffixes,
+        IProgressMonitor monitor ) throws Exception
+    {
+        List<ContextCsn> csns = new ArrayList<>();
+
+        for ( String suffix : suffixes )
+        {
+            csns.addAll( readContextCsns( connection, suffix, monitor ) );
+        }
+
+        return csns;
+    }
+
+
+    /**
+     * Reads the context CSNs of a suffix, with a base scope search.
+     *
+     * @param connection the connection
+     * @param suffix the suffix
+     * @param monitor the progress monitor
+     * @return the context CSNs
+     * @throws Exception if an error occurs
+     */
+    private List<ContextCsn> readContextCsns( Connection connection, String suffix, IProgressMonitor monitor )
+        throws Exception
+    {
+        SearchControls searchControls = new SearchControls();
+        searchControls.setSearchScope( SearchControls.OBJECT_SCOPE );
+        searchControls.setReturningAttributes( new String[]
+            { CONTEXT_CSN } );
+
+        List<ContextCsn> csns = new ArrayList<>();
+
+        for ( Entry entry : search( connection, suffix, LdapConstants.OBJECT_CLASS_STAR, searchControls, monitor ) )
+        {
+            Attribute contextCsnAttribute = entry.get( CONTEXT_CSN );
+
+            if ( contextCsnAttribute != null )
+            {
+                for ( Value contextCsnValue : contextCsnAttribute )
+                {
+                    csns.add( ContextCsn.parse( contextCsnValue.getString() ) );
+                }
+            }
+        }
+
+        return csns;
+    }
+
+
+    /**
+     * Searches the directory, opening the connection first if needed. The connection
+     * listeners are notified when the connection is opened. A connection of the connection
+     * manager opened here is closed at the end of the poll.
+     *
+     * @param connection the connection
+     * @param searchBase the search base
+     * @param filter the filter
+     * @param searchControls the search controls
+     * @param monitor the progress monitor
+     * @return the found entries
+     * @throws Exception if an error occurs
+     */
+    private List<Entry> search( Connection connection, String searchBase, String filter,
+        SearchControls searchControls, IProgressMonitor monitor ) throws Exception
+    {
+        if ( !connection.getConnectionWrapper().isConnected() )
+        {
+            StudioProgressMonitor connectMonitor = new StudioProgressMonitor( monitor );
+            ConfigurationUtils.openConnection( connection, connectMonitor );
+
+            if ( !createdConnections.containsValue( connection ) && !openedConnections.contains( connection ) )
+            {
+                openedConnections.add( connection );
+            }
+
+            if ( connectMonitor.errorsReported() )
+            {
+                throw connectMonitor.getException();
+            }
+        }
+
+        StudioProgressMonitor searchMonitor = new StudioProgressMonitor( monitor );
+        StudioSearchResultEnumeration enumeration = connection.getConnectionWrapper().search( searchBase, filter,
+            searchControls, AliasDereferencingMethod.NEVER, ReferralHandlingMethod.IGNORE, null, searchMonitor, null );
+
+        // Checking if an error occurred
+        if ( searchMonitor.errorsReported() )
+        {
+            throw searchMonitor.getException();
+        }
+
+        List<Entry> entries = new ArrayList<>();
+
+        if ( enumeration != null )
+        {
+            try
+            {
+                while ( enumeration.hasMore() )
+                {
+                    entries.add( enumeration.next().getEntry() );
+                }
+            }
+            finally
+            {
+                enumeration.close();
+            }
+        }
+
+        return entries;
+    }
+
+
+    /**
+     * Gets the connection to the provider of a syncrepl value, creating it if needed.
+     *
+     * @param syncRepl the syncrepl value
+     * @return the connection to the provider
+     */
+    private Connection getProviderConnection( SyncRepl syncRepl )
+    {
+        Provider provider = syncRepl.getProvider();
+        String providerUrl = provider.toString();
+        Connection providerConnection = createdConnections.get( providerUrl );
+
+        if ( providerConnection != null )
+        {
+            return providerConnection;
+        }
+
+        int port = provider.getPort();
+
+        if ( port == Provider.NO_PORT )
+        {
+            port = provider.isLdaps() ? DEFAULT_LDAPS_PORT : DEFAULT_LDAP_PORT;
+        }
+
+        EncryptionMethod encryptionMethod = EncryptionMethod.NONE;
+
+        if ( provider.isLdaps() )
+        {
+            encryptionMethod = EncryptionMethod.LDAPS;
+        }
+        else if ( syncRepl.getStartTls() != null )
+        {
+            encryptionMethod = EncryptionMethod.START_TLS;
+        }
+
+        // Looking for an opened connection to the provider in the connection manager, the
+        // closed ones are not opened by the monitor
+        for ( Connection connection : ConnectionCorePlugin.getDefault().getConnectionManager().getConnections() )
+        {
+            if ( provider.getHost().equalsIgnoreCase( connection.getHost() ) && ( port == connection.getPort() )
+                && ( encryptionMethod == connection.getEncryptionMethod() )
+                && connection.getConnectionWrapper().isConnected() )
+            {
+                return connection;
+            }
+        }
+
+        // Creating a connection from the syncrepl bind parameters
+        AuthenticationMethod authenticationMethod = AuthenticationMethod.NONE;
+
+        if ( ( syncRepl.getBindMethod() != BindMethod.SASL ) && ( syncRepl.getBindDn() != null ) )
+        {
+            authenticationMethod = AuthenticationMethod.SIMPLE;
+        }
+
+        ConnectionParameter connectionParameter = new ConnectionParameter( providerUrl, provider.getHost(), port,
+            encryptionMethod, authenticationMethod, syncRepl.getBindDn(), syncRepl.getCredentials(), null, true,
+            null, 0L );
+        providerConnection = new Connection( connectionParameter );
+        createdConnections.put( providerUrl, providerConnection );
+
+        return providerConnection;
+    }
+
+
+    /**
+     * Adds a listener.
+     *
+     * @param listener the listener
+     */
+    public void addListener( ReplicationLagListener listener )
+    {
+        listeners.add( listener );
+    }
+
+
+    /**
+     * Removes a listener.
+     *
+     * @param listener the listener
+     */
+    public void removeListener( ReplicationLagListener listener )
+    {
+        listeners.remove( listener );
+    }
+
+
+    /**
+     * Gets the consumer connection.
+     *
+     * @return the consumer connection
+     */
+    public Connection getConsumerConnection()
+    {
+        return consumerConnection;
+    }
+
+
+    /**
+     * Gets the last computed lags.
+     *
+     * @return the last computed lags
+     */
+    public List<ServerLag> getLastLags()
+    {
+        return lastLags;
+    }
+
+
+    /**
+     * Gets the polling interval.
+     *
+     * @return the polling interval, in milliseconds
+     */
+    public long getInterval()
+    {
+        return interval;
+    }
+
+
+    /**
+     * Sets the polling interval, used from the next poll on.
+     *
+     * @param interval the polling interval, in milliseconds
+     */
+    public void setInterval( long interval )
+    {
+        this.interval = interval;
+    }
+
+
+    /**
+     * Gets the warning threshold.
+     *
+     * @return the warning threshold, in milliseconds
+     */
+    public long getWarningThreshold()
+    {
+        return warningThreshold;
+    }
+
+
+    /**
+     * Sets the warning threshold, used from the next poll on.
+     *
+     * @param warningThreshold the warning threshold, in milliseconds
+     */
+    public void setWarningThreshold( long warningThreshold )
+    {
+        this.warningThreshold = warningThreshold;
+    }
+
+
+    /**
+     * Gets the critical threshold.
+     *
+     * @return the critical threshold, in milliseconds
+     */
+    public long getCriticalThreshold()
+    {
+        return criticalThreshold;
+    }
+
+
+    /**
+     * Sets the critical threshold, used from the next poll on.
+     *
+     * @param criticalThreshold the critical threshold, in milliseconds
+     */
+    public void setCriticalThreshold( long criticalThreshold )
+    {
+        this.criticalThreshold = criticalThreshold;
+    }
+}
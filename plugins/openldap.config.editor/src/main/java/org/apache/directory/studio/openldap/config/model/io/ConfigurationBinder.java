@@ -0,0 +1,398 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.config.model.io;
+
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.apache.directory.studio.openldap.config.model.ConfigurationElement;
+
+
+/**
+ * This class holds the binding metadata between a configuration bean class and
+ * the attribute types of its entry, as used by the {@link ConfigurationReader} and
+ * the {@link ConfigurationWriter}.
+ * <p>
+ * The class hierarchy of a bean is walked once, and the {@link ConfigurationElement}
+ * annotated fields are bound to {@link MethodHandle}s (getter, setter and 'add' method
+ * for multi-valued fields). The binders, as well as the constructors of the bean classes,
+ * are cached.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class ConfigurationBinder
+{
+    /** The binders, per bean class */
+    private static final ConcurrentMap<Class<?>, ConfigurationBinder> BINDERS = new ConcurrentHashMap<>();
+
+    /** The constructors, per bean class name */
+    private static final ConcurrentMap<String, MethodHandle> CONSTRUCTORS = new ConcurrentHashMap<>();
+
+    /** The lookup used to create the method handles */
+    private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+
+    /** The bound fields, from the bean class up to its top super class */
+    private final List<FieldBinder> fields;
+
+
+    /**
+     * Creates a new instance of ConfigurationBinder.
+     *
+     * @param beanClass the bean class
+     */
+    private ConfigurationBinder( Class<?> beanClass )
+    {
+        List<FieldBinder> boundFields = new ArrayList<>();
+
+        // Checking all fields of the bean (including super class fields)
+        Class<?> clazz = beanClass;
+
+        while ( clazz != null )
+        {
+            for ( Field field : clazz.getDeclaredFields() )
+            {
+                // Looking for the @ConfigurationElement annotation
+                ConfigurationElement configurationElement = field.getAnnotation( ConfigurationElement.class );
+
+                if ( configurationElement != null )
+                {
+                    boundFields.add( new FieldBinder( beanClass, field, configurationElement ) );
+                }
+            }
+
+            // Switching to the super class
+            clazz = clazz.getSuperclass();
+        }
+
+        fields = Collections.unmodifiableList( boundFields );
+    }
+
+
+    /**
+     * Gets the binder for the given bean class.
+     *
+     * @param beanClass the bean class
+     * @return the binder
+     */
+    static ConfigurationBinder getBinder( Class<?> beanClass )
+    {
+        ConfigurationBinder binder = BINDERS.get( beanClass );
+
+        if ( binder == null )
+        {
+            binder = new ConfigurationBinder( beanClass );
+            ConfigurationBinder existingBinder = BINDERS.putIfAbsent( beanClass, binder );
+
+            if ( existingBinder != null )
+            {
+                binder = existingBinder;
+            }
+        }
+
+        return binder;
+    }
+
+
+    /**
+     * Creates a new instance of the bean class with the given name, using its
+     * public no-arg constructor.
+     *
+     * @param className the fully qualified name of the bean class
+     * @return the new bean
+     * @throws ConfigurationException if the bean can't be instantiated
+     */
+    static Object newInstance( String className ) throws ConfigurationException
+    {
+        MethodHandle constructor = CONSTRUCTORS.get( className );
+
+        try
+        {
+            if ( constructor == null )
+            {
+                Class<?> clazz = Class.forName( className );
+                constructor = LOOKUP.findConstructor( clazz, MethodType.methodType( void.class ) );
+                CONSTRUCTORS.putIfAbsent( className, constructor );
+            }
+
+            return constructor.invoke();
+        }
+        catch ( Throwable t )
+        {
+            throw new ConfigurationException( t );
+        }
+    }
+
+
+    /**
+     * Gets the bound fields, from the bean class up to its top super class.
+     *
+     * @return the bound fields
+     */
+    List<FieldBinder> getFields()
+    {
+        return fields;
+    }
+
+
+    /**
+     * This class holds the binding of a single {@link ConfigurationElement} annotated field.
+     */
+    static final class FieldBinder
+    {
+        /** The field */
+        private final Field field;
+
+        /** The annotation of the field */
+        private final ConfigurationElement configurationElement;
+
+        /** The type of the field */
+        private final Class<?> type;
+
+        /** The type of the elements, for a Set or List field */
+        private final Class<?> elementType;
+
+        /** The name of the 'add' method, for a Set or List field */
+        private final String addMethodName;
+
+        /** The getter */
+        private final MethodHandle getter;
+
+        /** The setter (null if the field can't be written) */
+        private final MethodHandle setter;
+
+        /** The 'add' method, for a Set or List field (null if it does not exist) */
+        private final MethodHandle adder;
+
+
+        /**
+         * Creates a new instance of FieldBinder.
+         *
+         * @param beanClass the bean class
+         * @param field the field
+         * @param configurationElement the annotation of the field
+         */
+        private FieldBinder( Class<?> beanClass, Field field, ConfigurationElement configurationElement )
+        {
+            this.field = field;
+            this.configurationElement = configurationElement;
+            type = field.getType();
+            addMethodName = "add" + Character.toUpperCase( field.getName().charAt( 0 ) )
+                + field.getName().substring( 1 );
+
+            // Making the field accessible (we get an exception if we don't do that)
+            field.setAccessible( true );
+
+            try
+            {
+                getter = LOOKUP.unreflectGetter( field );
+            }
+            catch ( IllegalAccessException iae )
+            {
+                throw new IllegalStateException( "Cannot access to the field " + field.getName() + " of the class "
+                    + beanClass.getName(), iae );
+            }
+
+            MethodHandle fieldSetter = null;
+
+            try
+            {
+                fieldSetter = LOOKUP.unreflectSetter( field );
+            }
+            catch ( IllegalAccessException iae )
+            {
+                // The error is reported when a value is stored
+            }
+
+            setter = fieldSetter;
+
+            // Looking for the element type and the 'add' method of a multi-valued field
+            Class<?> fieldElementType = null;
+            MethodHandle fieldAdder = null;
+
+            if ( ( type == Set.class ) || ( type == List.class ) )
+            {
+                Type genericFieldType = field.getGenericType();
+
+                if ( genericFieldType instanceof ParameterizedType )
+                {
+                    Type[] fieldArgTypes = ( ( ParameterizedType ) genericFieldType ).getActualTypeArguments();
+
+                    if ( ( fieldArgTypes != null ) && ( fieldArgTypes.length > 0 )
+                        && ( fieldArgTypes[0] instanceof Class ) )
+                    {
+                        fieldElementType = ( Class<?> ) fieldArgTypes[0];
+
+                        try
+                        {
+                            Method method = beanClass.getMethod( addMethodName,
+                                Array.newInstance( fieldElementType, 0 ).getClass() );
+                            // The fixed arity is needed as the values are given as an array
+                            fieldAdder = LOOKUP.unreflect( method ).asFixedArity();
+                        }
+                        catch ( NoSuchMethodException | IllegalAccessException e )
+                        {
+                            // The error is reported when a value is added
+                        }
+                    }
+                }
+            }
+
+            elementType = fieldElementType;
+            adder = fieldAdder;
+        }
+
+
+        /**
+         * @return the annotation of the field
+         */
+        ConfigurationElement getConfigurationElement()
+        {
+            return configurationElement;
+        }
+
+
+        /**
+         * @return the attribute type bound to the field
+         */
+        String getAttributeType()
+        {
+            return configurationElement.attributeType();
+        }
+
+
+        /**
+         * @return the type of the field
+         */
+        Class<?> getType()
+        {
+            return type;
+        }
+
+
+        /**
+         * @return the type of the elements for a Set or List field, null otherwise
+         */
+        Class<?> getElementType()
+        {
+            return elementType;
+        }
+
+
+        /**
+         * @return the name of the field
+         */
+        String getName()
+        {
+            return field.getName();
+        }
+
+
+        /**
+         * Gets the value of the field.
+         *
+         * @param bean the bean
+         * @return the value of the field
+         * @throws ConfigurationException if the value can't be read
+         */
+        Object get( Object bean ) throws ConfigurationException
+        {
+            try
+            {
+                return getter.invoke( bean );
+            }
+            catch ( Throwable t )
+            {
+                throw new ConfigurationException( "Cannot read the field " + field.getName() + " of the class "
+                    + bean.getClass().getName(), t );
+            }
+        }
+
+
+        /**
+         * Sets the value of the field.
+         *
+         * @param bean the bean
+         * @param value the value
+         * @throws ConfigurationException if the value can't be stored
+         */
+        void set( Object bean, Object value ) throws ConfigurationException
+        {
+            if ( setter == null )
+            {
+                throw new ConfigurationException( "Cannot store '" + value + "' into attribute "
+                    + configurationElement.attributeType() );
+            }
+
+            try
+            {
+                setter.invoke( bean, value );
+            }
+            catch ( Throwable t )
+            {
+                throw new ConfigurationException( "Cannot store '" + value + "' into attribute "
+                    + configurationElement.attributeType() );
+            }
+        }
+
+
+        /**
+         * Adds the given value to a Set or List field, using its 'add' method.
+         *
+         * @param bean the bean
+         * @param value the value
+         * @throws ConfigurationException if the value can't be added
+         */
+        void add( Object bean, Object value ) throws ConfigurationException
+        {
+            if ( adder == null )
+            {
+                throw new ConfigurationException( "Cannot find a method " + addMethodName
+                    + " in the class "
+                    + bean.getClass().getName() );
+            }
+
+            Object methodParameter = Array.newInstance( elementType, 1 );
+            Array.set( methodParameter, 0, value );
+
+            try
+            {
+                adder.invoke( bean, methodParameter );
+            }
+            catch ( Throwable t )
+            {
+                throw new ConfigurationException( "Cannot invoke the class "
+                    + bean.getClass().getName() + ", "
+                    + t.getMessage() );
+            }
+        }
+    }
+}
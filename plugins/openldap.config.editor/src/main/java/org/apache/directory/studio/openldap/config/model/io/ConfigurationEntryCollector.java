@@ -0,0 +1,147 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.config.model.io;
+
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.name.Dn;
+
+
+/**
+ * This class collects the entries of a configuration tree, in whatever order
+ * they are received from the server, and releases them parent first.
+ * <p>
+ * An entry is released as soon as its parent has been released (the base
+ * entry being released right away). An entry received before its parent is
+ * kept aside, and released along with the parent when it shows up. This allows
+ * entries to be streamed into a partition while a search is still running.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class ConfigurationEntryCollector
+{
+    /** The DN of the base entry */
+    private final Dn baseDn;
+
+    /** The DNs of the released entries */
+    private final Set<Dn> releasedDns = new HashSet<>();
+
+    /** The entries waiting for their parent, stored by parent DN */
+    private final Map<Dn, List<Entry>> pendingEntries = new HashMap<>();
+
+    /** The number of entries waiting for their parent */
+    private int pendingCount;
+
+
+    /**
+     * Creates a new instance of ConfigurationEntryCollector.
+     *
+     * @param baseDn the DN of the base entry
+     */
+    ConfigurationEntryCollector( Dn baseDn )
+    {
+        this.baseDn = baseDn;
+    }
+
+
+    /**
+     * Adds an entry.
+     *
+     * @param entry the entry
+     * @return the entries released by this addition, parents before their children
+     */
+    List<Entry> add( Entry entry )
+    {
+        Dn dn = entry.getDn();
+
+        if ( releasedDns.contains( dn ) )
+        {
+            // The entry has already been received
+            return Collections.emptyList();
+        }
+
+        if ( !dn.equals( baseDn ) && !releasedDns.contains( dn.getParent() ) )
+        {
+            // The parent has not been received yet
+            pendingEntries.computeIfAbsent( dn.getParent(), parentDn -> new ArrayList<>() ).add( entry );
+            pendingCount++;
+
+            return Collections.emptyList();
+        }
+
+        List<Entry> releasedEntries = new ArrayList<>();
+        Deque<Entry> entriesToRelease = new ArrayDeque<>();
+        entriesToRelease.add( entry );
+
+        while ( !entriesToRelease.isEmpty() )
+        {
+            Entry entryToRelease = entriesToRelease.poll();
+
+            if ( releasedDns.add( entryToRelease.getDn() ) )
+            {
+                releasedEntries.add( entryToRelease );
+
+                // Releasing the children that were waiting for this entry
+                List<Entry> children = pendingEntries.remove( entryToRelease.getDn() );
+
+                if ( children != null )
+                {
+                    pendingCount -= children.size();
+                    entriesToRelease.addAll( children );
+                }
+            }
+        }
+
+        return releasedEntries;
+    }
+
+
+    /**
+     * Indicates if the entry with the given DN has been released.
+     *
+     * @param dn the DN
+     * @return <code>true</code> if the entry has been released
+     */
+    boolean isReleased( Dn dn )
+    {
+        return releasedDns.contains( dn );
+    }
+
+
+    /**
+     * Gets the number of entries still waiting for their parent.
+     *
+     * @return the number of entries still waiting for their parent
+     */
+    int getPendingCount()
+    {
+        return pendingCount;
+    }
+}
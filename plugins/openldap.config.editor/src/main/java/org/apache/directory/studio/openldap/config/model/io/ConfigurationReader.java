@@ -21,13 +21,6 @@ package org.apache.directory.studio.openldap.config.model.io;
 
 
 import java.io.File;
-import java.lang.reflect.Array;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -35,12 +28,17 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.directory.api.ldap.model.constants.LdapConstants;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.entry.Attribute;
 import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.entry.Value;
+import org.apache.directory.api.ldap.model.exception.LdapException;
 import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
 import org.apache.directory.api.ldap.model.exception.LdapNoSuchObjectException;
 import org.apache.directory.api.ldap.model.message.SearchScope;
@@ -50,6 +48,7 @@ import org.apache.directory.api.ldap.model.schema.SchemaManager;
 import org.apache.directory.api.ldap.util.tree.DnNode;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.Controls;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResult;
 import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
 import org.apache.directory.studio.ldapbrowser.core.BrowserCorePlugin;
@@ -97,6 +96,24 @@ public class ConfigurationReader
     /** The package name where the overlay model classes are stored */
     private static final String OVERLAY_PACKAGE_NAME = "org.apache.directory.studio.openldap.config.model.overlay";
 
+    /** The maximum number of concurrent searches when the configuration tree is walked level by level */
+    private static final int MAX_CONCURRENT_SEARCHES = 4;
+
+
+    /**
+     * A handler for the configuration entries read from the server.
+     */
+    private interface EntryHandler
+    {
+        /**
+         * Handles an entry.
+         *
+         * @param entry the entry
+         * @throws Exception if the entry can't be handled
+         */
+        void handleEntry( Entry entry ) throws Exception;
+    }
+
 
     /**
      * Reads the configuration.
@@ -120,15 +137,13 @@ public class ConfigurationReader
         // Find the location of the configuration
         Dn configurationDn = ConfigurationUtils.getConfigurationDn( browserConnection );
 
-        // Reading the configuration entries on the server
-        List<Entry> configurationEntries = readEntries( configurationDn, input, browserConnection );
-
         // Creating a map to store object created based on their DN
         Map<Dn, OlcConfig> dnToConfigObjectMap = new HashMap<>();
 
-        // For each configuration entries we create an associated configuration
+        // Reading the configuration entries on the server. For each configuration
+        // entry, as soon as it is received, we create an associated configuration
         // object and store it in the OpenLDAP configuration
-        for ( Entry entry : configurationEntries )
+        readEntries( configurationDn, input, browserConnection, entry ->
         {
             // Converting the entry into a configuration object
             OlcConfig configurationObject = createConfigurationObject( entry );
@@ -170,7 +185,7 @@ public class ConfigurationReader
                     configuration.add( configurationObject );
                 }
             }
-        }
+        } );
 
         return configuration;
     }
@@ -443,7 +458,7 @@ public class ConfigurationReader
      * @param configurationDn the configuration DN
      * @param input the editor input
      * @param browserConnection the connection
-     * @return the list of configuration entries found
+     * @return the list of configuration entries found, parents before their children
      * @throws Exception if an error occurred
      */
     public static List<Entry> readEntries( Dn configurationDn, ConnectionServerConfigurationInput input,
@@ -451,6 +466,30 @@ public class ConfigurationReader
     {
         List<Entry> foundEntries = new ArrayList<>();
 
+        readEntries( configurationDn, input, browserConnection, foundEntries::add );
+
+        return foundEntries;
+    }
+
+
+    /**
+     * Reads the configuration entries from the input, and hands them over to the
+     * given handler as soon as they are received, parents before their children.
+     * <p>
+     * The whole tree is first fetched with a single (paged, if enabled on the
+     * connection) subtree search. If the server refuses it, the tree is walked
+     * level by level, the children of all the entries of a level being fetched
+     * concurrently.
+     *
+     * @param configurationDn the configuration DN
+     * @param input the editor input
+     * @param browserConnection the connection
+     * @param entryHandler the entry handler
+     * @throws Exception if an error occurred
+     */
+    private static void readEntries( Dn configurationDn, ConnectionServerConfigurationInput input,
+        IBrowserConnection browserConnection, EntryHandler entryHandler ) throws Exception
+    {
         IProgressMonitor progressMonitor = new NullProgressMonitor();
         StudioProgressMonitor monitor = new StudioProgressMonitor( progressMonitor );
         Connection connection = input.getConnection();
@@ -458,8 +497,6 @@ public class ConfigurationReader
         // Creating the schema manager
         SchemaManager schemaManager = OpenLdapConfigurationPlugin.getDefault().getSchemaManager();
 
-        // The DN corresponding to the configuration base
-
         // Creating the configuration partition
         EntryBasedConfigurationPartition configurationPartition = OpenLdapServerConfigurationEditorUtils
             .createConfigurationPartition( schemaManager, configurationDn );
@@ -467,86 +504,243 @@ public class ConfigurationReader
         // Opening the connection (if needed)
         ConfigurationUtils.openConnection( connection, monitor );
 
-        // Creating the search parameter
-        SearchParameter configSearchParameter = new SearchParameter();
-        configSearchParameter.setSearchBase( configurationDn );
-        configSearchParameter.setFilter( LdapConstants.OBJECT_CLASS_STAR );
-        configSearchParameter.setScope( SearchScope.OBJECT );
-        configSearchParameter.setReturningAttributes( SchemaConstants.ALL_USER_ATTRIBUTES_ARRAY );
-
-        // Looking for the 'ou=config' base entry
-        Entry configEntry = null;
-        StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, configSearchParameter,
-            monitor );
-
         // Checking if an error occurred
         if ( monitor.errorsReported() )
         {
             throw monitor.getException();
         }
 
-        // Getting the entry
-        if ( enumeration.hasMore() )
+        // Every received entry is added to the partition and handed over to
+        // the handler once its parent has been received
+        ConfigurationEntryCollector collector = new ConfigurationEntryCollector( configurationDn );
+        EntryHandler releasedEntryHandler = receivedEntry ->
         {
-            // Creating the base entry
-            StudioSearchResult searchResult =  enumeration.next();
-            configEntry = searchResult.getEntry();
+            for ( Entry entry : collector.add( receivedEntry ) )
+            {
+                configurationPartition.addEntry( entry );
+                entryHandler.handleEntry( entry );
+            }
+        };
+
+        if ( !readSubtree( configurationDn, browserConnection, releasedEntryHandler ) )
+        {
+            readLevels( configurationDn, browserConnection, releasedEntryHandler );
         }
-        enumeration.close();
 
         // Verifying we found the base entry
-        if ( configEntry == null )
+        if ( !collector.isReleased( configurationDn ) )
         {
             throw new LdapNoSuchObjectException( NLS.bind( "Unable to find the ''{0}'' base entry.", configurationDn ) );
         }
 
-        // Creating a list to hold the entries that needs to be checked
-        // for children and added to the partition
-        List<Entry> entries = new ArrayList<>();
-        entries.add( configEntry );
+        // Setting the created partition to the input
+        input.setOriginalPartition( configurationPartition );
+    }
 
-        // Looping on the entries list until it's empty
-        while ( !entries.isEmpty() )
-        {
-            // Removing the first entry from the list
-            Entry entry = entries.remove( 0 );
 
-            // Adding the entry to the partition and the entries list
-            configurationPartition.addEntry( entry );
-            foundEntries.add( entry );
+    /**
+     * Reads the configuration entries with a single subtree search, paged if paged
+     * searches are enabled on the connection. The next pages are received in the
+     * background while the entries of the current page are handled.
+     *
+     * @param configurationDn the configuration DN
+     * @param browserConnection the connection
+     * @param entryHandler the entry handler
+     * @return <code>true</code> if the search succeeded, <code>false</code> if the server refused it
+     * @throws Exception if the entry handler failed
+     */
+    private static boolean readSubtree( Dn configurationDn, IBrowserConnection browserConnection,
+        EntryHandler entryHandler ) throws Exception
+    {
+        StudioProgressMonitor monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+
+        SearchParameter searchParameter = createSearchParameter( configurationDn, SearchScope.SUBTREE );
+
+        if ( browserConnection.isPagedSearch() )
+        {
+            searchParameter.getControls().add(
+                Controls.newPagedResultsControl( browserConnection.getPagedSearchSize() ) );
+        }
 
-            SearchParameter searchParameter = new SearchParameter();
-            searchParameter.setSearchBase( entry.getDn() );
-            searchParameter.setFilter( LdapConstants.OBJECT_CLASS_STAR );
-            searchParameter.setScope( SearchScope.ONELEVEL );
-            searchParameter.setReturningAttributes( SchemaConstants.ALL_USER_ATTRIBUTES_ARRAY );
+        StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, searchParameter,
+            monitor );
 
-            // Looking for the children of the entry
-            StudioSearchResultEnumeration childrenEnumeration = SearchRunnable.search( browserConnection,
-                searchParameter, monitor );
+        if ( ( enumeration == null ) || monitor.errorsReported() )
+        {
+            return false;
+        }
 
-            // Checking if an error occurred
-            if ( monitor.errorsReported() )
+        try
+        {
+            while ( true )
             {
-                throw monitor.getException();
+                Entry entry;
+
+                try
+                {
+                    if ( !enumeration.hasMore() )
+                    {
+                        break;
+                    }
+
+                    entry = enumeration.next().getEntry();
+                }
+                catch ( LdapException e )
+                {
+                    // The search failed while the entries were received, the entries
+                    // already handled are skipped when walking the tree
+                    return false;
+                }
+
+                entryHandler.handleEntry( entry );
             }
+        }
+        finally
+        {
+            enumeration.close();
+        }
+
+        return !monitor.errorsReported();
+    }
+
+
+    /**
+     * Reads the configuration entries level by level. The children of all the entries
+     * of a level are searched concurrently, and handled in the order of the level.
+     *
+     * @param configurationDn the configuration DN
+     * @param browserConnection the connection
+     * @param entryHandler the entry handler
+     * @throws Exception if an error occurred
+     */
+    private static void readLevels( Dn configurationDn, IBrowserConnection browserConnection,
+        EntryHandler entryHandler ) throws Exception
+    {
+        // Looking for the base entry
+        List<Entry> baseEntries = searchEntries( browserConnection,
+            createSearchParameter( configurationDn, SearchScope.OBJECT ) );
+
+        List<Dn> level = new ArrayList<>();
+
+        for ( Entry baseEntry : baseEntries )
+        {
+            entryHandler.handleEntry( baseEntry );
+            level.add( baseEntry.getDn() );
+        }
 
-            while ( childrenEnumeration.hasMore() )
+        ExecutorService executor = Executors.newFixedThreadPool( MAX_CONCURRENT_SEARCHES );
+
+        try
+        {
+            // Looping on the levels until no more children are found
+            while ( !level.isEmpty() )
             {
-                // Creating the child entry
-                StudioSearchResult searchResult =  childrenEnumeration.next();
-                Entry childEntry = searchResult.getEntry();
+                // Looking for the children of all the entries of the level
+                List<Future<List<Entry>>> childrenSearches = new ArrayList<>( level.size() );
+
+                for ( Dn dn : level )
+                {
+                    SearchParameter searchParameter = createSearchParameter( dn, SearchScope.ONELEVEL );
+                    childrenSearches.add( executor.submit( () -> searchEntries( browserConnection,
+                        searchParameter ) ) );
+                }
+
+                List<Dn> nextLevel = new ArrayList<>();
 
-                // Adding the children to the list of entries
-                entries.add( childEntry );
+                for ( Future<List<Entry>> childrenSearch : childrenSearches )
+                {
+                    List<Entry> children;
+
+                    try
+                    {
+                        children = childrenSearch.get();
+                    }
+                    catch ( ExecutionException e )
+                    {
+                        if ( e.getCause() instanceof Exception )
+                        {
+                            throw ( Exception ) e.getCause();
+                        }
+
+                        throw e;
+                    }
+
+                    for ( Entry child : children )
+                    {
+                        entryHandler.handleEntry( child );
+                        nextLevel.add( child.getDn() );
+                    }
+                }
+
+                level = nextLevel;
             }
-            childrenEnumeration.close();
         }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
 
-        // Setting the created partition to the input
-        input.setOriginalPartition( configurationPartition );
 
-        return foundEntries;
+    /**
+     * Searches the entries matching the given search parameter.
+     *
+     * @param browserConnection the connection
+     * @param searchParameter the search parameter
+     * @return the entries found
+     * @throws Exception if an error occurred
+     */
+    private static List<Entry> searchEntries( IBrowserConnection browserConnection, SearchParameter searchParameter )
+        throws Exception
+    {
+        StudioProgressMonitor monitor = new StudioProgressMonitor( new NullProgressMonitor() );
+        StudioSearchResultEnumeration enumeration = SearchRunnable.search( browserConnection, searchParameter,
+            monitor );
+
+        // Checking if an error occurred
+        if ( monitor.errorsReported() )
+        {
+            throw monitor.getException();
+        }
+
+        List<Entry> entries = new ArrayList<>();
+
+        if ( enumeration != null )
+        {
+            try
+            {
+                while ( enumeration.hasMore() )
+                {
+                    StudioSearchResult searchResult = enumeration.next();
+                    entries.add( searchResult.getEntry() );
+                }
+            }
+            finally
+            {
+                enumeration.close();
+            }
+        }
+
+        return entries;
+    }
+
+
+    /**
+     * Creates a search parameter returning all the user attributes.
+     *
+     * @param searchBase the search base
+     * @param scope the search scope
+     * @return the search parameter
+     */
+    private static SearchParameter createSearchParameter( Dn searchBase, SearchScope scope )
+    {
+        SearchParameter searchParameter = new SearchParameter();
+        searchParameter.setSearchBase( searchBase );
+        searchParameter.setFilter( LdapConstants.OBJECT_CLASS_STAR );
+        searchParameter.setScope( scope );
+        searchParameter.setReturningAttributes( SchemaConstants.ALL_USER_ATTRIBUTES_ARRAY );
+
+        return searchParameter;
     }
 
 
@@ -587,11 +781,9 @@ public class ConfigurationReader
 
             try
             {
-                Class<?> clazz = Class.forName( className.toString() );
-                Constructor<?> constructor = clazz.getConstructor();
-                bean = ( OlcConfig ) constructor.newInstance();
+                bean = ( OlcConfig ) ConfigurationBinder.newInstance( className.toString() );
             }
-            catch ( Exception e )
+            catch ( ClassCastException e )
             {
                 throw new ConfigurationException( e );
             }
@@ -622,11 +814,10 @@ public class ConfigurationReader
 
                     try
                     {
-                        Class<?> clazz = Class.forName( className.toString() );
-                        Constructor<?> constructor = clazz.getConstructor();
-                        auxiliaryObjectClassBean = ( AuxiliaryObjectClass ) constructor.newInstance();
+                        auxiliaryObjectClassBean = ( AuxiliaryObjectClass ) ConfigurationBinder
+                            .newInstance( className.toString() );
                     }
-                    catch ( Exception e )
+                    catch ( ClassCastException e )
                     {
                         throw new ConfigurationException( e );
                     }
@@ -667,40 +858,23 @@ public class ConfigurationReader
      */
     private static void readValues( Entry entry, Object bean ) throws ConfigurationException
     {
-        // Checking all fields of the bean (including super class fields)
-        Class<?> clazz = bean.getClass();
-        while ( clazz != null )
+        // Looping on all bound fields of the bean (including super class fields)
+        for ( ConfigurationBinder.FieldBinder field : ConfigurationBinder.getBinder( bean.getClass() ).getFields() )
         {
-            // Looping on all fields of the class
-            Field[] fields = clazz.getDeclaredFields();
-            for ( Field field : fields )
+            // Checking if we're have a value  for the attribute type
+            String attributeType = field.getAttributeType();
+            if ( ( attributeType != null ) && ( !"".equals( attributeType ) ) )
             {
-                // Looking for the @ConfigurationElement annotation
-                ConfigurationElement configurationElement = field.getAnnotation( ConfigurationElement.class );
-                if ( configurationElement != null )
+                Attribute attribute = entry.get( attributeType );
+                if ( ( attribute != null ) && ( attribute.size() > 0 ) )
                 {
-                    // Checking if we're have a value  for the attribute type
-                    String attributeType = configurationElement.attributeType();
-                    if ( ( attributeType != null ) && ( !"".equals( attributeType ) ) )
+                    // loop on the values and inject them in the bean
+                    for ( Value value : attribute )
                     {
-                        Attribute attribute = entry.get( attributeType );
-                        if ( ( attribute != null ) && ( attribute.size() > 0 ) )
-                        {
-                            // Making the field accessible (we get an exception if we don't do that)
-                            field.setAccessible( true );
-
-                            // loop on the values and inject them in the bean
-                            for ( Value value : attribute )
-                            {
-                                readAttributeValue( bean, field, attribute, value );
-                            }
-                        }
+                        readAttributeValue( bean, field, attribute, value );
                     }
                 }
             }
-
-            // Switching to the super class
-            clazz = clazz.getSuperclass();
         }
     }
 
@@ -709,163 +883,35 @@ public class ConfigurationReader
      * Reads the attribute value.
      *
      * @param bean the bean
-     * @param field the field
+     * @param field the bound field
      * @param attribute the attribute
      * @param value the value
      * @throws ConfigurationException
      */
-    private static void readAttributeValue( Object bean, Field field, Attribute attribute, Value value )
-        throws ConfigurationException
+    private static void readAttributeValue( Object bean, ConfigurationBinder.FieldBinder field, Attribute attribute,
+        Value value ) throws ConfigurationException
     {
         Class<?> type = field.getType();
-        String addMethodName = "add" + Character.toUpperCase( field.getName().charAt( 0 ) )
-            + field.getName().substring( 1 );
         String valueStr = value.getString();
 
-        try
+        // Set and List classes
+        if ( ( type == Set.class ) || ( type == List.class ) )
         {
-            // String class
-            if ( type == String.class )
-            {
-                Object stringValue = readSingleValue( type, attribute, valueStr );
-                if ( stringValue != null )
-                {
-                    field.set( bean, stringValue );
-                }
-            }
-            // Int primitive type
-            else if ( type == int.class )
-            {
-                Object integerValue = readSingleValue( type, attribute, valueStr );
-                if ( integerValue != null )
-                {
-                    field.setInt( bean, ( ( Integer ) integerValue ).intValue() );
-                }
-            }
-            // Integer class
-            else if ( type == Integer.class )
-            {
-                Object integerValue = readSingleValue( type, attribute, valueStr );
-                if ( integerValue != null )
-                {
-                    field.set( bean, ( Integer ) integerValue );
-                }
-            }
-            // Long primitive type
-            else if ( type == long.class )
-            {
-                Object longValue = readSingleValue( type, attribute, valueStr );
-                if ( longValue != null )
-                {
-                    field.setLong( bean, ( ( Long ) longValue ).longValue() );
-                }
-            }
-            // Long class
-            else if ( type == Long.class )
-            {
-                Object longValue = readSingleValue( type, attribute, valueStr );
-                if ( longValue != null )
-                {
-                    field.setLong( bean, ( Long ) longValue );
-                }
-            }
-            // Boolean primitive type
-            else if ( type == boolean.class )
-            {
-                Object booleanValue = readSingleValue( type, attribute, valueStr );
-                if ( booleanValue != null )
-                {
-                    field.setBoolean( bean, ( ( Boolean ) booleanValue ).booleanValue() );
-                }
-            }
-            // Boolean class
-            else if ( type == Boolean.class )
-            {
-                Object booleanValue = readSingleValue( type, attribute, valueStr );
-                if ( booleanValue != null )
-                {
-                    field.set( bean, ( Boolean ) booleanValue );
-                }
-            }
-            // Dn class
-            else if ( type == Dn.class )
-            {
-                Object dnValue = readSingleValue( type, attribute, valueStr );
-                if ( dnValue != null )
-                {
-                    field.set( bean, dnValue );
-                }
-            }
-            // Set class
-            else if ( type == Set.class )
-            {
-                Type genericFieldType = field.getGenericType();
+            Class<?> elementType = field.getElementType();
 
-                if ( genericFieldType instanceof ParameterizedType )
-                {
-                    ParameterizedType parameterizedType = ( ParameterizedType ) genericFieldType;
-                    Type[] fieldArgTypes = parameterizedType.getActualTypeArguments();
-                    if ( ( fieldArgTypes != null ) && ( fieldArgTypes.length > 0 ) )
-                    {
-                        Class<?> fieldArgClass = ( Class<?> ) fieldArgTypes[0];
-
-                        Object methodParameter = Array.newInstance( fieldArgClass, 1 );
-                        Array.set( methodParameter, 0, readSingleValue( fieldArgClass, attribute, valueStr ) );
-
-                        Method method = bean.getClass().getMethod( addMethodName, methodParameter.getClass() );
-
-                        method.invoke( bean, methodParameter );
-                    }
-                }
-            }
-            // List class
-            else if ( type == List.class )
+            if ( elementType != null )
             {
-                Type genericFieldType = field.getGenericType();
-
-                if ( genericFieldType instanceof ParameterizedType )
-                {
-                    ParameterizedType parameterizedType = ( ParameterizedType ) genericFieldType;
-                    Type[] fieldArgTypes = parameterizedType.getActualTypeArguments();
-                    if ( ( fieldArgTypes != null ) && ( fieldArgTypes.length > 0 ) )
-                    {
-                        Class<?> fieldArgClass = ( Class<?> ) fieldArgTypes[0];
-
-                        Object methodParameter = Array.newInstance( fieldArgClass, 1 );
-                        Array.set( methodParameter, 0, readSingleValue( fieldArgClass, attribute, valueStr ) );
-
-                        Method method = bean.getClass().getMethod( addMethodName, methodParameter.getClass() );
-
-                        method.invoke( bean, methodParameter );
-                    }
-                }
+                field.add( bean, readSingleValue( elementType, attribute, valueStr ) );
             }
         }
-        catch ( IllegalArgumentException | IllegalAccessException iae )
-        {
-            throw new ConfigurationException( "Cannot store '" + valueStr + "' into attribute "
-                + attribute.getId() );
-        }
-        catch ( SecurityException se )
-        {
-            throw new ConfigurationException( "Cannot access to the class "
-                + bean.getClass().getName() );
-        }
-        catch ( NoSuchMethodException nsme )
-        {
-            throw new ConfigurationException( "Cannot find a method " + addMethodName
-                + " in the class "
-                + bean.getClass().getName() );
-        }
-        catch ( InvocationTargetException ite )
-        {
-            throw new ConfigurationException( "Cannot invoke the class "
-                + bean.getClass().getName() + ", "
-                + ite.getMessage() );
-        }
-        catch ( NegativeArraySizeException nase )
+        // String, int, Integer, long, Long, boolean, Boolean and Dn classes
+        else
         {
-            // No way that can happen...
+            Object singleValue = readSingleValue( type, attribute, valueStr );
+            if ( singleValue != null )
+            {
+                field.set( bean, singleValue );
+            }
         }
     }
 
@@ -23,7 +23,6 @@ package org.apache.directory.studio.openldap.config.model.io;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.lang.reflect.Field;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -164,29 +163,12 @@ public class ConfigurationWriter
                         getObjectClassNameForBean( auxiliaryObjectClassBeanClass ), entry );
 
                     // Adding fields of the auxiliary object class to the entry 
-                    addFieldsToBean( auxiliaryObjectClass, auxiliaryObjectClassBeanClass, entry );
+                    addFieldsToBean( auxiliaryObjectClass, entry );
                 }
             }
 
-            // A flag to know when we reached the 'OlcConfig' class when 
-            // looping on the class hierarchy of the bean
-            boolean olcConfigBeanClassFound = false;
-
-            // Looping until the 'OlcConfig' class has been found
-            while ( !olcConfigBeanClassFound )
-            {
-                // Checking if we reached the 'OlcConfig' class
-                if ( beanClass == OlcConfig.class )
-                {
-                    olcConfigBeanClassFound = true;
-                }
-
-                // Adding fields of the bean to the entry 
-                addFieldsToBean( configurationBean, beanClass, entry );
-
-                // Moving to the upper class in the class hierarchy
-                beanClass = beanClass.getSuperclass();
-            }
+            // Adding fields of the bean to the entry (including super class fields)
+            addFieldsToBean( configurationBean, entry );
 
             return entry;
         }
@@ -195,41 +177,35 @@ public class ConfigurationWriter
     }
 
 
-    private void addFieldsToBean( Object configurationBean, Class<?> beanClass, LdifEntry entry ) throws Exception
+    private void addFieldsToBean( Object configurationBean, LdifEntry entry ) throws Exception
     {
-        if ( ( configurationBean != null ) && ( beanClass != null ) && ( entry != null ) )
+        if ( ( configurationBean != null ) && ( entry != null ) )
         {
-            // Looping on all fields of the bean
-            for ( Field field : beanClass.getDeclaredFields() )
+            // Looping on all bound fields of the bean (including super class fields)
+            for ( ConfigurationBinder.FieldBinder field : ConfigurationBinder.getBinder( configurationBean.getClass() )
+                .getFields() )
             {
-                // Making the field accessible (we get an exception if we don't do that)
-                field.setAccessible( true );
-
                 // Getting the class of the field
                 Class<?> fieldClass = field.getType();
                 Object fieldValue = field.get( configurationBean );
 
                 if ( fieldValue != null )
                 {
-                    // Looking for the @ConfigurationElement annotation
-                    ConfigurationElement configurationElement = field.getAnnotation( ConfigurationElement.class );
+                    ConfigurationElement configurationElement = field.getConfigurationElement();
+
+                    // Checking if we have a value for the attribute type
+                    String attributeType = configurationElement.attributeType();
                     
-                    if ( configurationElement != null )
+                    if ( !Strings.isEmpty( attributeType ) )
                     {
-                        // Checking if we have a value for the attribute type
-                        String attributeType = configurationElement.attributeType();
-                        
-                        if ( !Strings.isEmpty( attributeType ) )
-                        {
-                            // Adding values to the entry, and if it's empty, add the default value
-                            addAttributeTypeValues( configurationElement, fieldValue, entry );
-                        }
-                        
-                        else if ( OlcConfig.class.isAssignableFrom( fieldClass ) )
-                        {
-                            // Checking if we're dealing with a AdsBaseBean subclass type
-                            addConfigurationBean( ( OlcConfig ) fieldValue, entry.getDn() );
-                        }
+                        // Adding values to the entry, and if it's empty, add the default value
+                        addAttributeTypeValues( configurationElement, fieldValue, entry );
+                    }
+                    
+                    else if ( OlcConfig.class.isAssignableFrom( fieldClass ) )
+                    {
+                        // Checking if we're dealing with a AdsBaseBean subclass type
+                        addConfigurationBean( ( OlcConfig ) fieldValue, entry.getDn() );
                     }
                 }
             }
@@ -245,84 +221,60 @@ public class ConfigurationWriter
      * @return the Dn associated with the configuration bean based on the given base Dn.
      * @throws LdapInvalidDnException
      * @throws IllegalArgumentException
-     * @throws IllegalAccessException
+     * @throws ConfigurationException
      */
     private Dn getDn( OlcConfig bean, Dn parentDn ) throws LdapInvalidDnException, LdapInvalidAttributeValueException, 
-        IllegalAccessException
+        ConfigurationException
     {
-        // Getting the class of the bean
-        Class<?> beanClass = bean.getClass();
-
-        // A flag to know when we reached the 'AdsBaseBean' class when 
-        // looping on the class hierarchy of the bean
-        boolean olcConfigBeanClassFound = false;
-
-        // Looping until the 'OlcConfig' class has been found
-        while ( !olcConfigBeanClassFound )
+        // Looping on all bound fields of the bean (including super class fields)
+        for ( ConfigurationBinder.FieldBinder field : ConfigurationBinder.getBinder( bean.getClass() ).getFields() )
         {
-            // Checking if we reached the 'OlcConfig' class
-            if ( beanClass == OlcConfig.class )
-            {
-                olcConfigBeanClassFound = true;
-            }
-
-            // Looping on all fields of the bean
-            for ( Field field : beanClass.getDeclaredFields() )
+            // Checking if the field is the Rdn
+            ConfigurationElement configurationElement = field.getConfigurationElement();
+            
+            if ( configurationElement.isRdn() )
             {
-                // Making the field accessible (we get an exception if we don't do that)
-                field.setAccessible( true );
-
-                // Looking for the @ConfigurationElement annotation and
-                // if the field is the Rdn
-                ConfigurationElement configurationElement = field.getAnnotation( ConfigurationElement.class );
+                Object value = field.get( bean );
                 
-                if ( ( configurationElement != null ) && ( configurationElement.isRdn() ) )
+                if ( value == null )
                 {
-                    Object value = field.get( bean );
-                    
-                    if ( value == null )
-                    {
-                        continue;
-                    }
+                    continue;
+                }
 
-                    // Is the value multiple?
-                    if ( isMultiple( value.getClass() ) )
+                // Is the value multiple?
+                if ( isMultiple( value.getClass() ) )
+                {
+                    Collection<?> values = ( Collection<?> ) value;
+                    
+                    if ( values.isEmpty() )
                     {
-                        Collection<?> values = ( Collection<?> ) value;
+                        String defaultValue = configurationElement.defaultValue();
                         
-                        if ( values.isEmpty() )
+                        if ( defaultValue != null )
                         {
-                            String defaultValue = configurationElement.defaultValue();
-                            
-                            if ( defaultValue != null )
-                            {
-                                value = defaultValue;
-                            }
-                            else
-                            {
-                                continue;
-                            }
+                            value = defaultValue;
                         }
                         else
                         {
-                            value = values.toArray()[0];
+                            continue;
                         }
                     }
-
-                    if ( ( bean.getParentDn() != null ) )
-                    {
-                        return bean.getParentDn()
-                            .add( new Rdn( configurationElement.attributeType(), value.toString() ) );
-                    }
                     else
                     {
-                        return parentDn.add( new Rdn( configurationElement.attributeType(), value.toString() ) );
+                        value = values.toArray()[0];
                     }
                 }
-            }
 
-            // Moving to the upper class in the class hierarchy
-            beanClass = beanClass.getSuperclass();
+                if ( ( bean.getParentDn() != null ) )
+                {
+                    return bean.getParentDn()
+                        .add( new Rdn( configurationElement.attributeType(), value.toString() ) );
+                }
+                else
+                {
+                    return parentDn.add( new Rdn( configurationElement.attributeType(), value.toString() ) );
+                }
+            }
         }
 
         return Dn.EMPTY_DN;
@@ -0,0 +1,490 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.config.views;
+
+
+import java.text.DateFormat;
+import java.util.Date;
+import java.util.List;
+
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.openldap.config.jobs.ReplicationLagMonitor;
+import org.apache.directory.studio.openldap.config.jobs.ReplicationLagMonitor.ReplicationLagListener;
+import org.apache.directory.studio.openldap.config.jobs.ReplicationLagMonitor.ServerLag;
+import org.apache.directory.studio.openldap.syncrepl.ContextCsn;
+import org.apache.directory.studio.openldap.syncrepl.ReplicationLag;
+import org.eclipse.jface.viewers.ArrayContentProvider;
+import org.eclipse.jface.viewers.ITableColorProvider;
+import org.eclipse.jface.viewers.ITableLabelProvider;
+import org.eclipse.jface.viewers.LabelProvider;
+import org.eclipse.jface.viewers.TableViewer;
+import org.eclipse.swt.SWT;
+import org.eclipse.swt.graphics.Color;
+import org.eclipse.swt.graphics.Image;
+import org.eclipse.swt.layout.GridData;
+import org.eclipse.swt.layout.GridLayout;
+import org.eclipse.swt.widgets.Composite;
+import org.eclipse.swt.widgets.Display;
+import org.eclipse.swt.widgets.Label;
+import org.eclipse.swt.widgets.Spinner;
+import org.eclipse.swt.widgets.Table;
+import org.eclipse.swt.widgets.TableColumn;
+import org.eclipse.ui.IMemento;
+import org.eclipse.ui.IViewSite;
+import org.eclipse.ui.PartInitException;
+import org.eclipse.ui.part.ViewPart;
+
+
+/**
+ * This class implements the view displaying the replication lag of an OpenLDAP consumer,
+ * for each server ID of each of its providers.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ReplicationLagView extends ViewPart
+{
+    /** The ID of the View */
+    public static final String ID = ReplicationLagView.class.getName();
+
+    /** The text displayed for unknown values */
+    private static final String UNKNOWN = "-"; //$NON-NLS-1$
+
+    /** The column indexes */
+    private static final int SUFFIX_COLUMN = 0;
+    private static final int PROVIDER_COLUMN = 1;
+    private static final int SERVER_ID_COLUMN = 2;
+    private static final int PROVIDER_CSN_COLUMN = 3;
+    private static final int CONSUMER_CSN_COLUMN = 4;
+    private static final int LAG_COLUMN = 5;
+    private static final int MAX_LAG_COLUMN = 6;
+    private static final int TREND_COLUMN = 7;
+    private static final int STATUS_COLUMN = 8;
+
+    /** The memento tags of the settings */
+    private static final String TAG_INTERVAL = "interval"; //$NON-NLS-1$
+    private static final String TAG_WARNING_THRESHOLD = "warningThreshold"; //$NON-NLS-1$
+    private static final String TAG_CRITICAL_THRESHOLD = "criticalThreshold"; //$NON-NLS-1$
+
+    /** The maximum value of the settings, in seconds */
+    private static final int MAX_SECONDS = 86400;
+
+    /** The polling interval, in seconds */
+    private int interval = ( int ) ( ReplicationLagMonitor.DEFAULT_INTERVAL / 1000L );
+
+    /** The warning threshold, in seconds */
+    private int warningThreshold = ( int ) ( ReplicationLagMonitor.DEFAULT_WARNING_THRESHOLD / 1000L );
+
+    /** The critical threshold, in seconds */
+    private int criticalThreshold = ( int ) ( ReplicationLagMonitor.DEFAULT_CRITICAL_THRESHOLD / 1000L );
+
+    /** The overview label */
+    private Label overviewLabel;
+
+    /** The polling interval spinner */
+    private Spinner intervalSpinner;
+
+    /** The warning threshold spinner */
+    private Spinner warningThresholdSpinner;
+
+    /** The critical threshold spinner */
+    private Spinner criticalThresholdSpinner;
+
+    /** The viewer */
+    private TableViewer tableViewer;
+
+    /** The monitor */
+    private ReplicationLagMonitor monitor;
+
+    /** The listener */
+    private ReplicationLagListener listener = ( lagMonitor, lags ) -> Display.getDefault().asyncExec( () ->
+    {
+        if ( ( lagMonitor == monitor ) && ( tableViewer != null ) && !tableViewer.getTable().isDisposed() )
+        {
+            updateLags( lags );
+        }
+    } );
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void init( IViewSite site, IMemento memento ) throws PartInitException
+    {
+        super.init( site, memento );
+
+        if ( memento != null )
+        {
+            interval = getSeconds( memento, TAG_INTERVAL, interval );
+            warningThreshold = getSeconds( memento, TAG_WARNING_THRESHOLD, warningThreshold );
+            criticalThreshold = getSeconds( memento, TAG_CRITICAL_THRESHOLD, criticalThreshold );
+        }
+    }
+
+
+    /**
+     * Gets a setting from the memento.
+     *
+     * @param memento the memento
+     * @param key the key of the setting
+     * @param defaultValue the value used if the memento has no valid value
+     * @return the setting, in seconds
+     */
+    private static int getSeconds( IMemento memento, String key, int defaultValue )
+    {
+        Integer value = memento.getInteger( key );
+
+        if ( ( value != null ) && ( value.intValue() > 0 ) && ( value.intValue() <= MAX_SECONDS ) )
+        {
+            return value.intValue();
+        }
+
+        return defaultValue;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void saveState( IMemento memento )
+    {
+        memento.putInteger( TAG_INTERVAL, interval );
+        memento.putInteger( TAG_WARNING_THRESHOLD, warningThreshold );
+        memento.putInteger( TAG_CRITICAL_THRESHOLD, criticalThreshold );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void createPartControl( Composite parent )
+    {
+        GridLayout gridLayout = new GridLayout();
+        gridLayout.marginHeight = 0;
+        gridLayout.marginWidth = 0;
+        gridLayout.verticalSpacing = 0;
+        parent.setLayout( gridLayout );
+
+        // Overview Label
+        overviewLabel = new Label( parent, SWT.NONE );
+        overviewLabel.setText( Messages.getString( "ReplicationLagView.NoConsumer" ) ); //$NON-NLS-1$
+        overviewLabel.setLayoutData( new GridData( SWT.FILL, SWT.NONE, true, false ) );
+
+        // Settings
+        Composite settingsComposite = new Composite( parent, SWT.NONE );
+        settingsComposite.setLayout( new GridLayout( 6, false ) );
+        settingsComposite.setLayoutData( new GridData( SWT.FILL, SWT.NONE, true, false ) );
+        intervalSpinner = createSpinner( settingsComposite, "ReplicationLagView.Interval", interval ); //$NON-NLS-1$
+        warningThresholdSpinner = createSpinner( settingsComposite,
+            "ReplicationLagView.WarningThreshold", warningThreshold ); //$NON-NLS-1$
+        criticalThresholdSpinner = createSpinner( settingsComposite,
+            "ReplicationLagView.CriticalThreshold", criticalThreshold ); //$NON-NLS-1$
+
+        // Separator Label
+        Label separatorLabel = new Label( parent, SWT.SEPARATOR | SWT.HORIZONTAL );
+        separatorLabel.setLayoutData( new GridData( SWT.FILL, SWT.NONE, true, false ) );
+
+        // Viewer
+        tableViewer = new TableViewer( parent, SWT.FULL_SELECTION | SWT.H_SCROLL | SWT.V_SCROLL );
+        Table table = tableViewer.getTable();
+        table.setLayoutData( new GridData( SWT.FILL, SWT.FILL, true, true ) );
+        table.setHeaderVisible( true );
+        table.setLinesVisible( true );
+        createColumn( table, "ReplicationLagView.Suffix", 180 ); //$NON-NLS-1$
+        createColumn( table, "ReplicationLagView.Provider", 180 ); //$NON-NLS-1$
+        createColumn( table, "ReplicationLagView.ServerId", 70 ); //$NON-NLS-1$
+        createColumn( table, "ReplicationLagView.ProviderCsn", 280 ); //$NON-NLS-1$
+        createColumn( table, "ReplicationLagView.ConsumerCsn", 280 ); //$NON-NLS-1$
+        createColumn( table, "ReplicationLagView.Lag", 80 ); //$NON-NLS-1$
+        createColumn( table, "ReplicationLagView.MaxLag", 80 ); //$NON-NLS-1$
+        createColumn( table, "ReplicationLagView.Trend", 90 ); //$NON-NLS-1$
+        createColumn( table, "ReplicationLagView.Status", 200 ); //$NON-NLS-1$
+        tableViewer.setContentProvider( ArrayContentProvider.getInstance() );
+        tableViewer.setLabelProvider( new ReplicationLagLabelProvider() );
+    }
+
+
+    /**
+     * Creates a spinner and its label. The settings are applied to the monitor
+     * when the spinner is modified.
+     *
+     * @param parent the parent composite
+     * @param key the key of the label text
+     * @param seconds the value of the spinner, in seconds
+     * @return the spinner
+     */
+    private Spinner createSpinner( Composite parent, String key, int seconds )
+    {
+        Label label = new Label( parent, SWT.NONE );
+        label.setText( Messages.getString( key ) );
+
+        Spinner spinner = new Spinner( parent, SWT.BORDER );
+        spinner.setMinimum( 1 );
+        spinner.setMaximum( MAX_SECONDS );
+        spinner.setSelection( seconds );
+        spinner.addModifyListener( event -> applySettings() );
+
+        return spinner;
+    }
+
+
+    /**
+     * Reads the settings from the spinners, and applies them to the monitor.
+     */
+    private void applySettings()
+    {
+        interval = intervalSpinner.getSelection();
+        warningThreshold = warningThresholdSpinner.getSelection();
+        criticalThreshold = criticalThresholdSpinner.getSelection();
+
+        if ( monitor != null )
+        {
+            applySettings( monitor );
+        }
+    }
+
+
+    /**
+     * Applies the settings to a monitor, they are used from its next poll on.
+     *
+     * @param lagMonitor the monitor
+     */
+    private void applySettings( ReplicationLagMonitor lagMonitor )
+    {
+        lagMonitor.setInterval( interval * 1000L );
+        lagMonitor.setWarningThreshold( warningThreshold * 1000L );
+        lagMonitor.setCriticalThreshold( criticalThreshold * 1000L );
+    }
+
+
+    /**
+     * Creates a column.
+     *
+     * @param table the table
+     * @param key the key of the column text
+     * @param width the width of the column
+     */
+    private void createColumn( Table table, String key, int width )
+    {
+        TableColumn column = new TableColumn( table, SWT.LEFT );
+        column.setText( Messages.getString( key ) );
+        column.setWidth( width );
+    }
+
+
+    /**
+     * Starts monitoring the given consumer, stopping the monitoring of the previous one.
+     *
+     * @param connection the consumer connection
+     */
+    public void setConnection( Connection connection )
+    {
+        stopMonitor();
+
+        monitor = new ReplicationLagMonitor( connection );
+        applySettings( monitor );
+        monitor.addListener( listener );
+        monitor.start();
+
+        overviewLabel.setText( Messages.getString( "ReplicationLagView.Consumer" ) + " " + connection.getName() ); //$NON-NLS-1$ //$NON-NLS-2$
+        tableViewer.setInput( monitor.getLastLags() );
+    }
+
+
+    /**
+     * Updates the displayed lags.
+     *
+     * @param lags the lags
+     */
+    private void updateLags( List<ServerLag> lags )
+    {
+        overviewLabel.setText( Messages.getString( "ReplicationLagView.Consumer" ) + " " //$NON-NLS-1$ //$NON-NLS-2$
+            + monitor.getConsumerConnection().getName() + " - " //$NON-NLS-1$
+            + Messages.getString( "ReplicationLagView.LastUpdate" ) + " " //$NON-NLS-1$ //$NON-NLS-2$
+            + DateFormat.getTimeInstance().format( new Date() ) );
+        tableViewer.setInput( lags );
+    }
+
+
+    /**
+     * Stops the current monitor.
+     */
+    private void stopMonitor()
+    {
+        if ( monitor != null )
+        {
+            monitor.removeListener( listener );
+            monitor.stop();
+            monitor = null;
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void setFocus()
+    {
+        tableViewer.getTable().setFocus();
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public void dispose()
+    {
+        stopMonitor();
+        super.dispose();
+    }
+
+
+    /**
+     * Formats a lag.
+     *
+     * @param lag the lag, in milliseconds
+     * @return the formatted lag
+     */
+    private static String formatLag( long lag )
+    {
+        if ( lag == ReplicationLag.UNKNOWN_LAG )
+        {
+            return UNKNOWN;
+        }
+        else if ( lag < 1000L )
+        {
+            return lag + " ms"; //$NON-NLS-1$
+        }
+        else
+        {
+            return String.format( "%.1f s", lag / 1000d ); //$NON-NLS-1$
+        }
+    }
+
+
+    /**
+     * Formats a CSN.
+     *
+     * @param csn the CSN
+     * @return the formatted CSN
+     */
+    private static String formatCsn( ContextCsn csn )
+    {
+        return ( csn == null ) ? UNKNOWN : csn.toString();
+    }
+
+    /**
+     * The label provider of the viewer.
+     */
+    private class ReplicationLagLabelProvider extends LabelProvider implements ITableLabelProvider,
+        ITableColorProvider
+    {
+        /**
+         * {@inheritDoc}
+         */
+        public String getColumnText( Object element, int columnIndex )
+        {
+            ServerLag serverLag = ( ServerLag ) element;
+            ReplicationLag lag = serverLag.getLag();
+
+            switch ( columnIndex )
+            {
+                case SUFFIX_COLUMN:
+                    return serverLag.getSuffix();
+
+                case PROVIDER_COLUMN:
+                    return serverLag.getProvider();
+
+                case SERVER_ID_COLUMN:
+                    return ( lag == null ) ? UNKNOWN : Integer.toString( lag.getServerId() );
+
+                case PROVIDER_CSN_COLUMN:
+                    return ( lag == null ) ? UNKNOWN : formatCsn( lag.getProviderCsn() );
+
+                case CONSUMER_CSN_COLUMN:
+                    return ( lag == null ) ? UNKNOWN : formatCsn( lag.getConsumerCsn() );
+
+                case LAG_COLUMN:
+                    return ( lag == null ) ? UNKNOWN : formatLag( lag.getLag() );
+
+                case MAX_LAG_COLUMN:
+                    return ( serverLag.getHistory() == null ) ? UNKNOWN : formatLag( serverLag.getHistory().getMax() );
+
+                case TREND_COLUMN:
+                    return ( serverLag.getHistory() == null ) ? UNKNOWN : Messages.getString( "ReplicationLagView.Trend." //$NON-NLS-1$
+                        + serverLag.getHistory().getTrend().name() );
+
+                case STATUS_COLUMN:
+                    if ( serverLag.getErrorMessage() != null )
+                    {
+                        return serverLag.getErrorMessage();
+                    }
+
+                    return Messages.getString( "ReplicationLagView.Status." + serverLag.getStatus().name() ); //$NON-NLS-1$
+
+                default:
+                    return ""; //$NON-NLS-1$
+            }
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public Image getColumnImage( Object element, int columnIndex )
+        {
+            return null;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public Color getForeground( Object element, int columnIndex )
+        {
+            ServerLag serverLag = ( ServerLag ) element;
+
+            if ( serverLag.getErrorMessage() != null )
+            {
+                return Display.getDefault().getSystemColor( SWT.COLOR_RED );
+            }
+
+            switch ( serverLag.getStatus() )
+            {
+                case WARNING:
+                    return Display.getDefault().getSystemColor( SWT.COLOR_DARK_YELLOW );
+
+                case CRITICAL:
+                    return Display.getDefault().getSystemColor( SWT.COLOR_RED );
+
+                default:
+                    return null;
+            }
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public Color getBackground( Object element, int columnIndex )
+        {
+            return null;
+        }
+    }
+}
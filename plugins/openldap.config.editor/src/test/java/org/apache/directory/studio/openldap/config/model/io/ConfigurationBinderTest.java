@@ -0,0 +1,119 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.openldap.config.model.io;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.directory.studio.openldap.config.model.ConfigurationElement;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * A test for the ConfigurationBinder class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ConfigurationBinderTest
+{
+    public static class BaseBean
+    {
+        @ConfigurationElement(attributeType = "olcBaseValue", version = "2.4.0")
+        private String baseValue;
+
+        private String notBound;
+    }
+
+    public static class Bean extends BaseBean
+    {
+        @ConfigurationElement(attributeType = "olcIntValue", isRdn = true, version = "2.4.0")
+        private int intValue;
+
+        @ConfigurationElement(attributeType = "olcValues", version = "2.4.0")
+        private List<String> values = new ArrayList<>();
+
+        @ConfigurationElement(attributeType = "olcNoAdder", version = "2.4.0")
+        private List<String> noAdder = new ArrayList<>();
+
+
+        public void addValues( String... strings )
+        {
+            Collections.addAll( values, strings );
+        }
+    }
+
+
+    @Test
+    public void testFields()
+    {
+        List<ConfigurationBinder.FieldBinder> fields = ConfigurationBinder.getBinder( Bean.class ).getFields();
+
+        // The annotated fields, from the bean class up to its super classes
+        assertEquals( 4, fields.size() );
+        assertEquals( "intValue", fields.get( 0 ).getName() );
+        assertEquals( "values", fields.get( 1 ).getName() );
+        assertEquals( String.class, fields.get( 1 ).getElementType() );
+        assertEquals( "noAdder", fields.get( 2 ).getName() );
+        assertEquals( "olcBaseValue", fields.get( 3 ).getAttributeType() );
+
+        assertSame( ConfigurationBinder.getBinder( Bean.class ), ConfigurationBinder.getBinder( Bean.class ) );
+    }
+
+
+    @Test
+    public void testSetGetAndAdd() throws Exception
+    {
+        Bean bean = ( Bean ) ConfigurationBinder.newInstance( Bean.class.getName() );
+        List<ConfigurationBinder.FieldBinder> fields = ConfigurationBinder.getBinder( Bean.class ).getFields();
+
+        fields.get( 0 ).set( bean, Integer.valueOf( 12 ) );
+        fields.get( 1 ).add( bean, "a" );
+        fields.get( 1 ).add( bean, "b" );
+        fields.get( 3 ).set( bean, "base" );
+
+        assertEquals( 12, bean.intValue );
+        assertEquals( 12, fields.get( 0 ).get( bean ) );
+        assertEquals( 2, bean.values.size() );
+        assertEquals( "base", fields.get( 3 ).get( bean ) );
+    }
+
+
+    @Test
+    public void testMissingAdder() throws Exception
+    {
+        final Bean bean = new Bean();
+        final ConfigurationBinder.FieldBinder field = ConfigurationBinder.getBinder( Bean.class ).getFields().get( 2 );
+
+        assertThrows( ConfigurationException.class, () -> field.add( bean, "a" ) );
+    }
+
+
+    @Test
+    public void testUnknownClass()
+    {
+        assertThrows( ConfigurationException.class, () -> ConfigurationBinder.newInstance( "org.example.Unknown" ) );
+    }
+}
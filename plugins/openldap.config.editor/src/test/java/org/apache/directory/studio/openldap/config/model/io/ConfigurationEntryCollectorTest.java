@@ -0,0 +1,116 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.openldap.config.model.io;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.entry.DefaultEntry;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * A test for the ConfigurationEntryCollector class
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ConfigurationEntryCollectorTest
+{
+    private static Entry entry( String dn ) throws Exception
+    {
+        return new DefaultEntry( dn );
+    }
+
+
+    private static List<String> dns( List<Entry> entries )
+    {
+        List<String> dns = new ArrayList<>();
+
+        for ( Entry entry : entries )
+        {
+            dns.add( entry.getDn().getName() );
+        }
+
+        return dns;
+    }
+
+
+    @Test
+    public void testEntriesInTreeOrder() throws Exception
+    {
+        ConfigurationEntryCollector collector = new ConfigurationEntryCollector( new Dn( "cn=config" ) );
+
+        assertEquals( Arrays.asList( "cn=config" ), dns( collector.add( entry( "cn=config" ) ) ) );
+        assertEquals( Arrays.asList( "olcDatabase={1}mdb,cn=config" ),
+            dns( collector.add( entry( "olcDatabase={1}mdb,cn=config" ) ) ) );
+        assertEquals( Arrays.asList( "olcOverlay={0}syncprov,olcDatabase={1}mdb,cn=config" ),
+            dns( collector.add( entry( "olcOverlay={0}syncprov,olcDatabase={1}mdb,cn=config" ) ) ) );
+        assertEquals( 0, collector.getPendingCount() );
+    }
+
+
+    @Test
+    public void testChildrenBeforeParent() throws Exception
+    {
+        ConfigurationEntryCollector collector = new ConfigurationEntryCollector( new Dn( "cn=config" ) );
+
+        assertTrue( collector.add( entry( "olcOverlay={0}syncprov,olcDatabase={1}mdb,cn=config" ) ).isEmpty() );
+        assertTrue( collector.add( entry( "olcDatabase={1}mdb,cn=config" ) ).isEmpty() );
+        assertEquals( 2, collector.getPendingCount() );
+        assertFalse( collector.isReleased( new Dn( "olcDatabase={1}mdb,cn=config" ) ) );
+
+        assertEquals( Arrays.asList( "cn=config", "olcDatabase={1}mdb,cn=config",
+            "olcOverlay={0}syncprov,olcDatabase={1}mdb,cn=config" ), dns( collector.add( entry( "cn=config" ) ) ) );
+        assertEquals( 0, collector.getPendingCount() );
+        assertTrue( collector.isReleased( new Dn( "olcOverlay={0}syncprov,olcDatabase={1}mdb,cn=config" ) ) );
+    }
+
+
+    @Test
+    public void testDuplicateEntriesAreIgnored() throws Exception
+    {
+        ConfigurationEntryCollector collector = new ConfigurationEntryCollector( new Dn( "cn=config" ) );
+
+        assertEquals( 1, collector.add( entry( "cn=config" ) ).size() );
+        assertEquals( 1, collector.add( entry( "cn=schema,cn=config" ) ).size() );
+        assertTrue( collector.add( entry( "cn=config" ) ).isEmpty() );
+        assertTrue( collector.add( entry( "cn=schema,cn=config" ) ).isEmpty() );
+    }
+
+
+    @Test
+    public void testOrphanEntriesArePending() throws Exception
+    {
+        ConfigurationEntryCollector collector = new ConfigurationEntryCollector( new Dn( "cn=config" ) );
+
+        collector.add( entry( "cn=config" ) );
+
+        assertTrue( collector.add( entry( "cn={0}core,cn=schema,cn=config" ) ).isEmpty() );
+        assertEquals( 1, collector.getPendingCount() );
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.syncrepl;
+
+
+import java.text.ParseException;
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+
+/**
+ * This class implements a change sequence number, as found in the 'contextCSN' and
+ * 'entryCSN' operational attributes maintained by the OpenLDAP syncprov overlay.
+ * <p>
+ * Format: "YYYYmmddHHMMSS.uuuuuuZ#cccccc#sid#mmmmmm"
+ * <ul>
+ * <li>the UTC time of the change, with a microseconds precision</li>
+ * <li>the hexadecimal change counter within that microsecond</li>
+ * <li>the hexadecimal server ID (the 'olcServerID' of the server the change was done on)</li>
+ * <li>the hexadecimal modification number within the operation</li>
+ * </ul>
+ * CSNs are ordered by their time, then their change counter, then their server ID and
+ * modification number, which is the same order as the lexical order of their string form.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ContextCsn implements Comparable<ContextCsn>
+{
+    /** The pattern used for parsing */
+    private static final Pattern pattern = Pattern
+        .compile( "^(\\d{4})(\\d{2})(\\d{2})(\\d{2})(\\d{2})(\\d{2})(?:\\.(\\d{1,6}))?Z#([0-9a-fA-F]+)#([0-9a-fA-F]+)#([0-9a-fA-F]+)$" );
+
+    /** The UTC time zone */
+    private static final TimeZone UTC = TimeZone.getTimeZone( "UTC" ); //$NON-NLS-1$
+
+    /** The time of the change, in microseconds since the epoch */
+    private long timestamp;
+
+    /** The change counter */
+    private int changeCount;
+
+    /** The server ID */
+    private int serverId;
+
+    /** The modification number */
+    private int modificationNumber;
+
+
+    /**
+     * Creates a new instance of ContextCsn.
+     *
+     * @param timestamp the time of the change, in microseconds since the epoch
+     * @param changeCount the change counter
+     * @param serverId the server ID
+     * @param modificationNumber the modification number
+     */
+    public ContextCsn( long timestamp, int changeCount, int serverId, int modificationNumber )
+    {
+        this.timestamp = timestamp;
+        this.changeCount = changeCount;
+        this.serverId = serverId;
+        this.modificationNumber = modificationNumber;
+    }
+
+
+    /**
+     * Parses a CSN string.
+     *
+     * @param s the string
+     * @return a CSN
+     * @throws ParseException if an error occurs during parsing
+     */
+    public static ContextCsn parse( String s ) throws ParseException
+    {
+        if ( s == null )
+        {
+            throw new ParseException( "Unable to parse an empty CSN", 0 ); //$NON-NLS-1$
+        }
+
+        // Removing leading and trailing whitespaces
+        s = s.trim();
+
+        Matcher matcher = pattern.matcher( s );
+
+        if ( !matcher.find() )
+        {
+            throw new ParseException( "Unable to parse CSN '" + s + "'", 0 ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+
+        Calendar calendar = Calendar.getInstance( UTC );
+        calendar.clear();
+        calendar.set( Integer.parseInt( matcher.group( 1 ) ), Integer.parseInt( matcher.group( 2 ) ) - 1,
+            Integer.parseInt( matcher.group( 3 ) ), Integer.parseInt( matcher.group( 4 ) ),
+            Integer.parseInt( matcher.group( 5 ) ), Integer.parseInt( matcher.group( 6 ) ) );
+
+        long micros = 0L;
+        String fraction = matcher.group( 7 );
+
+        if ( fraction != null )
+        {
+            micros = Long.parseLong( fraction );
+
+            // Right padding the fraction to 6 digits
+            for ( int i = fraction.length(); i < 6; i++ )
+            {
+                micros *= 10;
+            }
+        }
+
+        try
+        {
+            return new ContextCsn( calendar.getTimeInMillis() * 1000L + micros,
+                Integer.parseInt( matcher.group( 8 ), 16 ),
+                Integer.parseInt( matcher.group( 9 ), 16 ),
+                Integer.parseInt( matcher.group( 10 ), 16 ) );
+        }
+        catch ( NumberFormatException e )
+        {
+            throw new ParseException( "Unable to parse CSN '" + s + "'", 0 ); //$NON-NLS-1$ //$NON-NLS-2$
+        }
+    }
+
+
+    /**
+     * Gets the time of the change, in microseconds since the epoch.
+     *
+     * @return the time of the change, in microseconds since the epoch
+     */
+    public long getTimestamp()
+    {
+        return timestamp;
+    }
+
+
+    /**
+     * Gets the time of the change, in milliseconds since the epoch.
+     *
+     * @return the time of the change, in milliseconds since the epoch
+     */
+    public long getTimeInMillis()
+    {
+        return timestamp / 1000L;
+    }
+
+
+    /**
+     * Gets the change counter.
+     *
+     * @return the change counter
+     */
+    public int getChangeCount()
+    {
+        return changeCount;
+    }
+
+
+    /**
+     * Gets the server ID.
+     *
+     * @return the server ID
+     */
+    public int getServerId()
+    {
+        return serverId;
+    }
+
+
+    /**
+     * Gets the modification number.
+     *
+     * @return the modification number
+     */
+    public int getModificationNumber()
+    {
+        return modificationNumber;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int compareTo( ContextCsn o )
+    {
+        int result = Long.compare( timestamp, o.timestamp );
+
+        if ( result == 0 )
+        {
+            result = Integer.compare( changeCount, o.changeCount );
+        }
+
+        if ( result == 0 )
+        {
+            result = Integer.compare( serverId, o.serverId );
+        }
+
+        if ( result == 0 )
+        {
+            result = Integer.compare( modificationNumber, o.modificationNumber );
+        }
+
+        return result;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean equals( Object o )
+    {
+        if ( o instanceof ContextCsn )
+        {
+            return compareTo( ( ContextCsn ) o ) == 0;
+        }
+
+        return false;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public int hashCode()
+    {
+        int result = 17;
+        result = 31 * result + Long.hashCode( timestamp );
+        result = 31 * result + changeCount;
+        result = 31 * result + serverId;
+        result = 31 * result + modificationNumber;
+
+        return result;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString()
+    {
+        Calendar calendar = Calendar.getInstance( UTC );
+        calendar.setTimeInMillis( Math.floorDiv( timestamp, 1000L ) );
+
+        return String.format( "%1$tY%1$tm%1$td%1$tH%1$tM%1$tS.%2$06dZ#%3$06x#%4$03x#%5$06x", calendar, //$NON-NLS-1$
+            Math.floorMod( timestamp, 1000000L ), changeCount, serverId, modificationNumber );
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.syncrepl;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * This class implements the replication lag of a consumer for a single server ID.
+ * <p>
+ * The lag is the time elapsed between the last change the provider knows about for
+ * this server ID (its 'contextCSN' value) and the last change the consumer has received
+ * for the same server ID. A consumer which is ahead of its provider (as it may happen
+ * in a multi-provider setup) has no lag.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ReplicationLag
+{
+    /** Constant used as lag value when the consumer has no CSN for the server ID */
+    public static final long UNKNOWN_LAG = -1L;
+
+    /** The server ID */
+    private int serverId;
+
+    /** The provider CSN */
+    private ContextCsn providerCsn;
+
+    /** The consumer CSN */
+    private ContextCsn consumerCsn;
+
+
+    /**
+     * Creates a new instance of ReplicationLag.
+     *
+     * @param serverId the server ID
+     * @param providerCsn the provider CSN
+     * @param consumerCsn the consumer CSN, or <code>null</code> if the consumer has none
+     */
+    public ReplicationLag( int serverId, ContextCsn providerCsn, ContextCsn consumerCsn )
+    {
+        this.serverId = serverId;
+        this.providerCsn = providerCsn;
+        this.consumerCsn = consumerCsn;
+    }
+
+
+    /**
+     * Computes the replication lag of a consumer for each server ID known by its provider.
+     * <p>
+     * When several CSNs are given for the same server ID, the highest one is used. The
+     * server IDs only known by the consumer are ignored.
+     *
+     * @param providerCsns the 'contextCSN' values of the provider
+     * @param consumerCsns the 'contextCSN' values of the consumer
+     * @return the replication lags, ordered by server ID
+     */
+    public static List<ReplicationLag> compute( Collection<ContextCsn> providerCsns,
+        Collection<ContextCsn> consumerCsns )
+    {
+        Map<Integer, ContextCsn> providerCsnsBySid = indexByServerId( providerCsns );
+        Map<Integer, ContextCsn> consumerCsnsBySid = indexByServerId( consumerCsns );
+
+        List<ReplicationLag> lags = new ArrayList<>( providerCsnsBySid.size() );
+
+        for ( Map.Entry<Integer, ContextCsn> providerCsn : providerCsnsBySid.entrySet() )
+        {
+            lags.add( new ReplicationLag( providerCsn.getKey(), providerCsn.getValue(),
+                consumerCsnsBySid.get( providerCsn.getKey() ) ) );
+        }
+
+        return lags;
+    }
+
+
+    /**
+     * Indexes CSNs by server ID, keeping the highest CSN of each server ID.
+     *
+     * @param csns the CSNs
+     * @return the CSNs, indexed by server ID
+     */
+    private static Map<Integer, ContextCsn> indexByServerId( Collection<ContextCsn> csns )
+    {
+        Map<Integer, ContextCsn> csnsBySid = new TreeMap<>();
+
+        if ( csns != null )
+        {
+            for ( ContextCsn csn : csns )
+            {
+                csnsBySid.merge( csn.getServerId(), csn, ( c1, c2 ) -> ( c1.compareTo( c2 ) >= 0 ) ? c1 : c2 );
+            }
+        }
+
+        return csnsBySid;
+    }
+
+
+    /**
+     * Gets the server ID.
+     *
+     * @return the server ID
+     */
+    public int getServerId()
+    {
+        return serverId;
+    }
+
+
+    /**
+     * Gets the provider CSN.
+     *
+     * @return the provider CSN
+     */
+    public ContextCsn getProviderCsn()
+    {
+        return providerCsn;
+    }
+
+
+    /**
+     * Gets the consumer CSN.
+     *
+     * @return the consumer CSN, or <code>null</code> if the consumer has none
+     */
+    public ContextCsn getConsumerCsn()
+    {
+        return consumerCsn;
+    }
+
+
+    /**
+     * Gets the lag.
+     *
+     * @return the lag, in milliseconds, or {@link #UNKNOWN_LAG} if the consumer has no CSN
+     */
+    public long getLag()
+    {
+        if ( consumerCsn == null )
+        {
+            return UNKNOWN_LAG;
+        }
+
+        return Math.max( 0L, providerCsn.getTimeInMillis() - consumerCsn.getTimeInMillis() );
+    }
+
+
+    /**
+     * Indicates if the consumer has received all the changes its provider knows about.
+     *
+     * @return <code>true</code> if the consumer is in sync, <code>false</code> if not
+     */
+    public boolean isInSync()
+    {
+        return ( consumerCsn != null ) && ( consumerCsn.compareTo( providerCsn ) >= 0 );
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString()
+    {
+        return "sid=" + serverId + ", provider=" + providerCsn + ", consumer=" + consumerCsn + ", lag=" + getLag(); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+    }
+}
@@ -0,0 +1,204 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.syncrepl;
+
+
+/**
+ * This class keeps the last replication lag samples of a single server ID, in a
+ * fixed size ring buffer, and computes their trend.
+ * <p>
+ * The trend is the slope of the least squares line fitted on the known samples: the
+ * lag is considered as stable as long as the slope, applied over the whole history,
+ * stays below the given tolerance.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ReplicationLagHistory
+{
+    /** The samples */
+    private final long[] samples;
+
+    /** The index of the next sample to write */
+    private int next;
+
+    /** The number of samples */
+    private int size;
+
+    /** The tolerance under which the lag is considered as stable, in milliseconds */
+    private final long stableTolerance;
+
+
+    /**
+     * Creates a new instance of ReplicationLagHistory.
+     *
+     * @param capacity the maximum number of samples to keep
+     * @param stableTolerance the tolerance under which the lag is considered as stable, in milliseconds
+     */
+    public ReplicationLagHistory( int capacity, long stableTolerance )
+    {
+        if ( capacity < 2 )
+        {
+            throw new IllegalArgumentException( "The history must keep at least 2 samples" ); //$NON-NLS-1$
+        }
+
+        this.samples = new long[capacity];
+        this.stableTolerance = stableTolerance;
+    }
+
+
+    /**
+     * Adds a sample, replacing the oldest one if the history is full.
+     *
+     * @param lag the lag, in milliseconds, or {@link ReplicationLag#UNKNOWN_LAG}
+     */
+    public synchronized void add( long lag )
+    {
+        samples[next] = lag;
+        next = ( next + 1 ) % samples.length;
+
+        if ( size < samples.length )
+        {
+            size++;
+        }
+    }
+
+
+    /**
+     * Gets the number of samples.
+     *
+     * @return the number of samples
+     */
+    public synchronized int size()
+    {
+        return size;
+    }
+
+
+    /**
+     * Gets the samples, from the oldest to the most recent.
+     *
+     * @return the samples
+     */
+    public synchronized long[] getSamples()
+    {
+        long[] result = new long[size];
+        int first = ( next - size + samples.length ) % samples.length;
+
+        for ( int i = 0; i < size; i++ )
+        {
+            result[i] = samples[( first + i ) % samples.length];
+        }
+
+        return result;
+    }
+
+
+    /**
+     * Gets the most recent sample.
+     *
+     * @return the most recent sample, or {@link ReplicationLag#UNKNOWN_LAG} if there is none
+     */
+    public synchronized long getLast()
+    {
+        if ( size == 0 )
+        {
+            return ReplicationLag.UNKNOWN_LAG;
+        }
+
+        return samples[( next - 1 + samples.length ) % samples.length];
+    }
+
+
+    /**
+     * Gets the highest known sample.
+     *
+     * @return the highest known sample, or {@link ReplicationLag#UNKNOWN_LAG} if there is none
+     */
+    public long getMax()
+    {
+        long max = ReplicationLag.UNKNOWN_LAG;
+
+        for ( long sample : getSamples() )
+        {
+            max = Math.max( max, sample );
+        }
+
+        return max;
+    }
+
+
+    /**
+     * Gets the trend of the known samples.
+     *
+     * @return the trend of the known samples
+     */
+    public ReplicationLagTrend getTrend()
+    {
+        long[] values = getSamples();
+
+        double sumX = 0d;
+        double sumY = 0d;
+        double sumXY = 0d;
+        double sumXX = 0d;
+        int count = 0;
+        int firstX = -1;
+        int lastX = -1;
+
+        for ( int x = 0; x < values.length; x++ )
+        {
+            if ( values[x] != ReplicationLag.UNKNOWN_LAG )
+            {
+                sumX += x;
+                sumY += values[x];
+                sumXY += ( double ) x * values[x];
+                sumXX += ( double ) x * x;
+                count++;
+
+                if ( firstX < 0 )
+                {
+                    firstX = x;
+                }
+
+                lastX = x;
+            }
+        }
+
+        if ( count < 2 )
+        {
+            return ReplicationLagTrend.UNKNOWN;
+        }
+
+        double slope = ( count * sumXY - sumX * sumY ) / ( count * sumXX - sumX * sumX );
+        double drift = slope * ( lastX - firstX );
+
+        if ( drift > stableTolerance )
+        {
+            return ReplicationLagTrend.INCREASING;
+        }
+        else if ( drift < -stableTolerance )
+        {
+            return ReplicationLagTrend.DECREASING;
+        }
+        else
+        {
+            return ReplicationLagTrend.STABLE;
+        }
+    }
+}
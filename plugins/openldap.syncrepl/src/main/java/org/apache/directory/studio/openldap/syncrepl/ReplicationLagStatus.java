@@ -0,0 +1,71 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.openldap.syncrepl;
+
+
+/**
+ * This enum implements all the possible states of a replication lag, as compared
+ * to the warning and critical thresholds.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public enum ReplicationLagStatus
+{
+    /** The lag is not known (the consumer never received a change from the server ID) */
+    UNKNOWN,
+
+    /** The lag is below the warning threshold */
+    OK,
+
+    /** The lag is above the warning threshold */
+    WARNING,
+
+    /** The lag is above the critical threshold */
+    CRITICAL;
+
+
+    /**
+     * Gets the status of a lag.
+     *
+     * @param lag the lag, in milliseconds, or {@link ReplicationLag#UNKNOWN_LAG}
+     * @param warningThreshold the warning threshold, in milliseconds
+     * @param criticalThreshold the critical threshold, in milliseconds
+     * @return the status of the lag
+     */
+    public static ReplicationLagStatus getStatus( long lag, long warningThreshold, long criticalThreshold )
+    {
+        if ( lag == ReplicationLag.UNKNOWN_LAG )
+        {
+            return UNKNOWN;
+        }
+        else if ( lag >= criticalThreshold )
+        {
+            return CRITICAL;
+        }
+        else if ( lag >= warningThreshold )
+        {
+            return WARNING;
+        }
+        else
+        {
+            return OK;
+        }
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.openldap.syncrepl;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ReplicationLagTest
+{
+    @Test
+    public void testParseCsn() throws Exception
+    {
+        ContextCsn csn = ContextCsn.parse( "20240102030405.123456Z#00000a#001#000002" );
+
+        assertEquals( 1704164645123L, csn.getTimeInMillis() );
+        assertEquals( 1704164645123456L, csn.getTimestamp() );
+        assertEquals( 10, csn.getChangeCount() );
+        assertEquals( 1, csn.getServerId() );
+        assertEquals( 2, csn.getModificationNumber() );
+        assertEquals( "20240102030405.123456Z#00000a#001#000002", csn.toString() );
+    }
+
+
+    @Test
+    public void testParseCsnWithoutFraction() throws Exception
+    {
+        ContextCsn csn = ContextCsn.parse( "20240102030405Z#000000#0ff#000000" );
+
+        assertEquals( 1704164645000L, csn.getTimeInMillis() );
+        assertEquals( 255, csn.getServerId() );
+    }
+
+
+    @Test
+    public void testParseInvalidCsn() throws Exception
+    {
+        for ( String s : Arrays.asList( "", "20240102030405.123456Z", "20240102030405.123456Z#00000a#001",
+            "2024010203.123456Z#000000#001#000000", "20240102030405.123456Z#00000g#001#000000" ) )
+        {
+            try
+            {
+                ContextCsn.parse( s );
+
+                fail( s );
+            }
+            catch ( Exception e )
+            {
+                // Should happen
+            }
+        }
+    }
+
+
+    @Test
+    public void testCsnOrdering() throws Exception
+    {
+        ContextCsn csn1 = ContextCsn.parse( "20240102030405.123456Z#000000#001#000000" );
+        ContextCsn csn2 = ContextCsn.parse( "20240102030405.123456Z#000001#001#000000" );
+        ContextCsn csn3 = ContextCsn.parse( "20240102030405.123457Z#000000#000#000000" );
+
+        assertTrue( csn1.compareTo( csn2 ) < 0 );
+        assertTrue( csn2.compareTo( csn3 ) < 0 );
+        assertEquals( csn1, ContextCsn.parse( csn1.toString() ) );
+    }
+
+
+    @Test
+    public void testComputeLag() throws Exception
+    {
+        List<ContextCsn> providerCsns = Arrays.asList(
+            ContextCsn.parse( "20240102030410.000000Z#000000#002#000000" ),
+            ContextCsn.parse( "20240102030405.000000Z#000000#001#000000" ),
+            ContextCsn.parse( "20240102030400.000000Z#000000#003#000000" ) );
+        List<ContextCsn> consumerCsns = Arrays.asList(
+            ContextCsn.parse( "20240102030405.000000Z#000000#001#000000" ),
+            ContextCsn.parse( "20240102030407.500000Z#000000#002#000000" ),
+            ContextCsn.parse( "20240102030409.000000Z#000000#004#000000" ) );
+
+        List<ReplicationLag> lags = ReplicationLag.compute( providerCsns, consumerCsns );
+
+        assertEquals( 3, lags.size() );
+
+        assertEquals( 1, lags.get( 0 ).getServerId() );
+        assertEquals( 0L, lags.get( 0 ).getLag() );
+        assertTrue( lags.get( 0 ).isInSync() );
+
+        assertEquals( 2, lags.get( 1 ).getServerId() );
+        assertEquals( 2500L, lags.get( 1 ).getLag() );
+        assertFalse( lags.get( 1 ).isInSync() );
+
+        assertEquals( 3, lags.get( 2 ).getServerId() );
+        assertNull( lags.get( 2 ).getConsumerCsn() );
+        assertEquals( ReplicationLag.UNKNOWN_LAG, lags.get( 2 ).getLag() );
+        assertFalse( lags.get( 2 ).isInSync() );
+    }
+
+
+    @Test
+    public void testComputeLagKeepsHighestCsn() throws Exception
+    {
+        List<ContextCsn> providerCsns = Arrays.asList(
+            ContextCsn.parse( "20240102030410.000000Z#000000#001#000000" ),
+            ContextCsn.parse( "20240102030405.000000Z#000000#001#000000" ) );
+        List<ContextCsn> consumerCsns = Collections
+            .singletonList( ContextCsn.parse( "20240102030412.000000Z#000000#001#000000" ) );
+
+        List<ReplicationLag> lags = ReplicationLag.compute( providerCsns, consumerCsns );
+
+        assertEquals( 1, lags.size() );
+        assertEquals( "20240102030410.000000Z#000000#001#000000", lags.get( 0 ).getProviderCsn().toString() );
+        assertEquals( 0L, lags.get( 0 ).getLag() );
+        assertTrue( lags.get( 0 ).isInSync() );
+    }
+
+
+    @Test
+    public void testStatus() throws Exception
+    {
+        assertEquals( ReplicationLagStatus.UNKNOWN,
+            ReplicationLagStatus.getStatus( ReplicationLag.UNKNOWN_LAG, 1000L, 5000L ) );
+        assertEquals( ReplicationLagStatus.OK, ReplicationLagStatus.getStatus( 999L, 1000L, 5000L ) );
+        assertEquals( ReplicationLagStatus.WARNING, ReplicationLagStatus.getStatus( 1000L, 1000L, 5000L ) );
+        assertEquals( ReplicationLagStatus.CRITICAL, ReplicationLagStatus.getStatus( 5000L, 1000L, 5000L ) );
+    }
+
+
+    @Test
+    public void testHistoryRingBuffer() throws Exception
+    {
+        ReplicationLagHistory history = new ReplicationLagHistory( 3, 0L );
+
+        assertEquals( ReplicationLag.UNKNOWN_LAG, history.getLast() );
+
+        history.add( 1L );
+        history.add( 2L );
+        history.add( 3L );
+        history.add( 4L );
+
+        assertEquals( 3, history.size() );
+        assertEquals( 4L, history.getLast() );
+        assertEquals( 4L, history.getMax() );
+        assertEquals( Arrays.toString( new long[] { 2L, 3L, 4L } ), Arrays.toString( history.getSamples() ) );
+    }
+
+
+    @Test
+    public void testHistoryTrend() throws Exception
+    {
+        ReplicationLagHistory history = new ReplicationLagHistory( 5, 500L );
+
+        history.add( 0L );
+        assertEquals( ReplicationLagTrend.UNKNOWN, history.getTrend() );
+
+        history.add( ReplicationLag.UNKNOWN_LAG );
+        assertEquals( ReplicationLagTrend.UNKNOWN, history.getTrend() );
+
+        history.add( 1000L );
+        history.add( 2000L );
+        assertEquals( ReplicationLagTrend.INCREASING, history.getTrend() );
+
+        history.add( 2000L );
+        history.add( 2100L );
+        history.add( 1900L );
+        history.add( 2000L );
+        history.add( 2000L );
+        assertEquals( ReplicationLagTrend.STABLE, history.getTrend() );
+
+        history.add( 500L );
+        history.add( 0L );
+        assertEquals( ReplicationLagTrend.DECREASING, history.getTrend() );
+    }
+}
@@ -20,21 +20,28 @@
 package org.apache.directory.studio.schemaeditor;
 
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URL;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.UUID;
 
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
-import org.apache.directory.api.util.FileUtils;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.ConnectionCorePlugin;
 import org.apache.directory.studio.schemaeditor.controller.ProjectsHandler;
@@ -48,8 +55,6 @@ import org.apache.directory.studio.schemaeditor.model.io.XMLSchemaFileImportExce
 import org.apache.directory.studio.schemaeditor.model.io.XMLSchemaFileImporter;
 import org.apache.directory.studio.schemaeditor.view.ViewUtils;
 import org.apache.directory.studio.schemaeditor.view.widget.CoreSchemasSelectionWidget.ServerTypeEnum;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
 import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtensionPoint;
@@ -133,6 +138,54 @@ public class PluginUtils
     }
 
 
+    /**
+     * The loader of the schemas of the projects stored in their own file. The error
+     * is reported before it is thrown, the project then stays unloaded.
+     */
+    private static final Project.SchemasLoader PROJECT_SCHEMAS_LOADER = new Project.SchemasLoader()
+    {
+        public void loadSchemas( Project project ) throws ProjectsImportException
+        {
+            File projectFile = new File( getProjectsDirectory(), project.getStorageFileName() );
+            FileInputStream inputStream = null;
+
+            try
+            {
+                inputStream = new FileInputStream( projectFile );
+                ProjectsImporter.loadProjectSchemas( inputStream, projectFile.getAbsolutePath(), project );
+            }
+            catch ( ProjectsImportException e )
+            {
+                reportError( Messages.getString( "PluginUtils.ErrorLoadingProject" ), e, Messages //$NON-NLS-1$
+                    .getString( "PluginUtils.ProjectsLoadingError" ), Messages //$NON-NLS-1$
+                    .getString( "PluginUtils.ErrorLoadingProject" ) ); //$NON-NLS-1$
+                throw e;
+            }
+            catch ( FileNotFoundException e )
+            {
+                reportError( Messages.getString( "PluginUtils.ErrorLoadingProject" ), e, Messages //$NON-NLS-1$
+                    .getString( "PluginUtils.ProjectsLoadingError" ), Messages //$NON-NLS-1$
+                    .getString( "PluginUtils.ErrorLoadingProject" ) ); //$NON-NLS-1$
+                throw new ProjectsImportException( e.getMessage() );
+            }
+            finally
+            {
+                if ( inputStream != null )
+                {
+                    try
+                    {
+                        inputStream.close();
+                    }
+                    catch ( IOException e )
+                    {
+                        // Nothing to do
+                    }
+                }
+            }
+        }
+    };
+
+
     /**
      * Gets the projects file (where is stored information about the loaded projects).
      *
@@ -157,8 +210,23 @@ public class PluginUtils
     }
 
 
+    /**
+     * Gets the projects directory (where each project is stored in its own file).
+     *
+     * @return
+     *      the projects directory
+     */
+    private static File getProjectsDirectory()
+    {
+        return Activator.getDefault().getStateLocation().append( "projects" ).toFile(); //$NON-NLS-1$
+    }
+
+
     /**
      * Loads the projects saved in the Projects File.
+     * <p>
+     * The Projects File only contains the properties of the projects. The schemas
+     * of each project are loaded from its own file, the first time they are needed.
      */
     public static void loadProjects()
     {
@@ -172,7 +240,7 @@ public class PluginUtils
         {
             try
             {
-                projects = ProjectsImporter.getProjects( new FileInputStream( projectsFile ), projectsFile
+                projects = ProjectsImporter.getIndexedProjects( new FileInputStream( projectsFile ), projectsFile
                     .getAbsolutePath() );
             }
             catch ( ProjectsImportException e )
@@ -187,10 +255,7 @@ public class PluginUtils
             if ( !loadFailed )
             {
                 // If everything went fine, we add the projects
-                for ( Project project : projects )
-                {
-                    projectsHandler.addProject( project );
-                }
+                addProjects( projectsHandler, projects );
             }
             else
             {
@@ -201,8 +266,8 @@ public class PluginUtils
                 {
                     try
                     {
-                        projects = ProjectsImporter.getProjects( new FileInputStream( tempProjectsFile ), projectsFile
-                            .getAbsolutePath() );
+                        projects = ProjectsImporter.getIndexedProjects( new FileInputStream( tempProjectsFile ),
+                            projectsFile.getAbsolutePath() );
 
                         loadFailed = false;
                     }
@@ -222,10 +287,7 @@ public class PluginUtils
                     }
 
                     // We add the projects
-                    for ( Project project : projects )
-                    {
-                        projectsHandler.addProject( project );
-                    }
+                    addProjects( projectsHandler, projects );
                 }
                 else
                 {
@@ -240,49 +302,171 @@ public class PluginUtils
 
 
     /**
-     * Saves the projects in the Projects File.
+     * Adds the given projects to the projects handler, deferring the loading
+     * of the schemas of the projects stored in their own file.
+     *
+     * @param projectsHandler
+     *      the projects handler
+     * @param projects
+     *      the projects
+     */
+    private static void addProjects( ProjectsHandler projectsHandler, Project[] projects )
+    {
+        for ( Project project : projects )
+        {
+            if ( project.getStorageFileName() != null )
+            {
+                project.setSchemasLoader( PROJECT_SCHEMAS_LOADER );
+            }
+
+            projectsHandler.addProject( project );
+        }
+    }
+
+
+    /**
+     * Saves the projects.
+     * <p>
+     * Only the projects which have been modified since they were loaded or saved
+     * are written to their own file. The Projects File, which only contains the
+     * properties of the projects, is always written.
      */
     public static void saveProjects()
     {
+        File projectsDirectory = getProjectsDirectory();
+        projectsDirectory.mkdirs();
+
+        final List<Project> projects = Activator.getDefault().getProjectsHandler().getProjects();
+        Set<String> storageFileNames = new HashSet<String>();
+
+        // Saving the modified projects
+        for ( final Project project : projects )
+        {
+            if ( project.getStorageFileName() == null )
+            {
+                project.setStorageFileName( UUID.randomUUID().toString() + ".xml" ); //$NON-NLS-1$
+                project.setDirty( true );
+            }
+
+            storageFileNames.add( project.getStorageFileName() );
+
+            if ( project.isDirty() )
+            {
+                File projectFile = new File( projectsDirectory, project.getStorageFileName() );
+
+                try
+                {
+                    writeFile( new ContentWriter()
+                    {
+                        public void write( OutputStream outputStream ) throws IOException
+                        {
+                            ProjectsExporter.write( project, outputStream );
+                        }
+                    }, projectFile, new File( projectsDirectory, project.getStorageFileName() + ".tmp" ) ); //$NON-NLS-1$
+                    project.setDirty( false );
+                }
+                catch ( IOException e )
+                {
+                    reportError( Messages.getString( "PluginUtils.ErrorSavingProject" ), e, Messages //$NON-NLS-1$
+                        .getString( "PluginUtils.ProjectsSavingError" ), Messages //$NON-NLS-1$
+                        .getString( "PluginUtils.ErrorSavingProject" ) ); //$NON-NLS-1$
+                    return;
+                }
+            }
+        }
+
+        // Saving the projects file
         try
         {
-            // Saving the projects to the temp projects file
-            OutputFormat outformat = OutputFormat.createPrettyPrint();
-            outformat.setEncoding( "UTF-8" ); //$NON-NLS-1$
-            XMLWriter writer = new XMLWriter( new FileOutputStream( getTempProjectsFile() ), outformat );
-            writer.write( ProjectsExporter.toDocument( Activator.getDefault().getProjectsHandler().getProjects()
-                .toArray( new Project[0] ) ) );
-            writer.flush();
-
-            // Copying the temp projects file to the final location
-            String content = FileUtils.readFileToString( getTempProjectsFile(), "UTF-8" ); //$NON-NLS-1$
-            FileUtils.writeStringToFile( getProjectsFile(), content, "UTF-8" ); //$NON-NLS-1$
+            writeFile( new ContentWriter()
+            {
+                public void write( OutputStream outputStream ) throws IOException
+                {
+                    ProjectsExporter.writeIndex( projects.toArray( new Project[0] ), outputStream );
+                }
+            }, getProjectsFile(), getTempProjectsFile() );
         }
         catch ( IOException e )
         {
-            // If an error occurs when saving to the temp projects file or
-            // when copying the temp projects file to the final location,
-            // we try to save the projects directly to the final location.
-            try
-            {
-                OutputFormat outformat = OutputFormat.createPrettyPrint();
-                outformat.setEncoding( "UTF-8" ); //$NON-NLS-1$
-                XMLWriter writer = new XMLWriter( new FileOutputStream( getProjectsFile() ), outformat );
-                writer.write( ProjectsExporter.toDocument( Activator.getDefault().getProjectsHandler().getProjects()
-                    .toArray( new Project[0] ) ) );
-                writer.flush();
-            }
-            catch ( IOException e2 )
+            reportError( Messages.getString( "PluginUtils.ErrorSavingProject" ), e, Messages //$NON-NLS-1$
+                .getString( "PluginUtils.ProjectsSavingError" ), Messages //$NON-NLS-1$
+                .getString( "PluginUtils.ErrorSavingProject" ) ); //$NON-NLS-1$
+            return;
+        }
+
+        // Deleting the files of the removed projects
+        File[] files = projectsDirectory.listFiles();
+        if ( files != null )
+        {
+            for ( File file : files )
             {
-                // If another error occur, we display an error
-                reportError( Messages.getString( "PluginUtils.ErrorSavingProject" ), e2, Messages //$NON-NLS-1$
-                    .getString( "PluginUtils.ProjectsSavingError" ), Messages //$NON-NLS-1$
-                    .getString( "PluginUtils.ErrorSavingProject" ) ); //$NON-NLS-1$
+                if ( file.isFile() && !storageFileNames.contains( file.getName() ) )
+                {
+                    file.delete();
+                }
             }
         }
     }
 
 
+    /**
+     * This interface is used to write the content of a file.
+     *
+     * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+     */
+    private interface ContentWriter
+    {
+        /**
+         * Writes the content to the given output stream.
+         *
+         * @param outputStream
+         *      the output stream
+         * @throws IOException
+         *      if an error occurs when writing the content
+         */
+        void write( OutputStream outputStream ) throws IOException;
+    }
+
+
+    /**
+     * Writes the given content to the given file.
+     * <p>
+     * The content is first written to the temporary file, which is then moved to
+     * the final location, so that a failure never leaves a truncated file behind.
+     *
+     * @param contentWriter
+     *      the writer of the content
+     * @param file
+     *      the file
+     * @param tempFile
+     *      the temporary file
+     * @throws IOException
+     *      if an error occurs when writing the content
+     */
+    private static void writeFile( ContentWriter contentWriter, File file, File tempFile ) throws IOException
+    {
+        OutputStream outputStream = new BufferedOutputStream( new FileOutputStream( tempFile ) );
+        try
+        {
+            contentWriter.write( outputStream );
+        }
+        finally
+        {
+            outputStream.close();
+        }
+
+        try
+        {
+            Files.move( tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE );
+        }
+        catch ( AtomicMoveNotSupportedException e )
+        {
+            Files.move( tempFile.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+
     /**
      * Logs the given message and exception with the ERROR status level.
      * 
@@ -178,13 +178,19 @@ public class ProjectsHandler
 
 
     /**
-     * Opens the given project (and closes the previously opened project)
+     * Opens the given project (and closes the previously opened project).
+     * A project whose schemas can not be loaded is not opened.
      *
      * @param project
      *      the project
      */
     public void openProject( Project project )
     {
+        if ( !project.load() )
+        {
+            return;
+        }
+
         Project oldOpenProject = openProject;
         if ( oldOpenProject != null )
         {
@@ -32,6 +32,7 @@ import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.api.ldap.model.schema.SchemaObject;
 import org.apache.directory.api.util.Strings;
 import org.apache.directory.studio.schemaeditor.model.Schema;
+import org.apache.directory.studio.schemaeditor.model.hierarchy.HierarchyManager;
 
 
 /**
@@ -77,6 +78,9 @@ public class SchemaHandler
     //
     private List<SchemaHandlerListener> schemaHandlerListeners;
 
+    /** The hierarchy of the attribute types and object classes, created on demand */
+    private HierarchyManager hierarchyManager;
+
 
     /**
      * Creates a new instance of SchemaHandler.
@@ -347,6 +351,27 @@ public class SchemaHandler
     }
 
 
+    /**
+     * Gets the hierarchy of the attribute types and object classes. It is built
+     * on the first call, and then kept up to date with the modifications: additions
+     * and modifications are applied before the listeners are notified, so they can
+     * query the new hierarchy, and removals after, so they can still find the
+     * removed objects in it.
+     *
+     * @return
+     *      the hierarchy of the attribute types and object classes
+     */
+    public HierarchyManager getHierarchyManager()
+    {
+        if ( hierarchyManager == null )
+        {
+            hierarchyManager = new HierarchyManager( this );
+        }
+
+        return hierarchyManager;
+    }
+
+
     /**
      * Adds a SchemaHandlerListener.
      *
@@ -777,6 +802,12 @@ public class SchemaHandler
      */
     private void notifySchemaAdded( Schema schema )
     {
+        // Hierarchy
+        if ( hierarchyManager != null )
+        {
+            hierarchyManager.schemaAdded( schema );
+        }
+
         for ( SchemaHandlerListener listener : schemaHandlerListeners.toArray( new SchemaHandlerListener[0] ) )
         {
             listener.schemaAdded( schema );
@@ -796,6 +827,12 @@ public class SchemaHandler
         {
             listener.schemaRemoved( schema );
         }
+
+        // Hierarchy
+        if ( hierarchyManager != null )
+        {
+            hierarchyManager.schemaRemoved( schema );
+        }
     }
 
 
@@ -822,6 +859,12 @@ public class SchemaHandler
      */
     private void notifyAttributeTypeAdded( AttributeType at )
     {
+        // Hierarchy
+        if ( hierarchyManager != null )
+        {
+            hierarchyManager.attributeTypeAdded( at );
+        }
+
         // SchemaHandler Listeners
         for ( SchemaHandlerListener listener : schemaHandlerListeners.toArray( new SchemaHandlerListener[0] ) )
         {
@@ -838,6 +881,12 @@ public class SchemaHandler
      */
     private void notifyAttributeTypeModified( AttributeType at )
     {
+        // Hierarchy
+        if ( hierarchyManager != null )
+        {
+            hierarchyManager.attributeTypeModified( at );
+        }
+
         // SchemaHandler Listeners
         for ( SchemaHandlerListener listener : schemaHandlerListeners.toArray( new SchemaHandlerListener[0] ) )
         {
@@ -859,6 +908,12 @@ public class SchemaHandler
         {
             listener.attributeTypeRemoved( at );
         }
+
+        // Hierarchy
+        if ( hierarchyManager != null )
+        {
+            hierarchyManager.attributeTypeRemoved( at );
+        }
     }
 
 
@@ -870,6 +925,12 @@ public class SchemaHandler
      */
     private void notifyObjectClassAdded( ObjectClass oc )
     {
+        // Hierarchy
+        if ( hierarchyManager != null )
+        {
+            hierarchyManager.objectClassAdded( oc );
+        }
+
         // SchemaHandler Listeners
         for ( SchemaHandlerListener listener : schemaHandlerListeners.toArray( new SchemaHandlerListener[0] ) )
         {
@@ -886,6 +947,12 @@ public class SchemaHandler
      */
     private void notifyObjectClassModified( ObjectClass oc )
     {
+        // Hierarchy
+        if ( hierarchyManager != null )
+        {
+            hierarchyManager.objectClassModified( oc );
+        }
+
         // SchemaHandler Listeners
         for ( SchemaHandlerListener listener : schemaHandlerListeners.toArray( new SchemaHandlerListener[0] ) )
         {
@@ -907,6 +974,12 @@ public class SchemaHandler
         {
             listener.objectClassRemoved( oc );
         }
+
+        // Hierarchy
+        if ( hierarchyManager != null )
+        {
+            hierarchyManager.objectClassRemoved( oc );
+        }
     }
 
 
@@ -23,6 +23,8 @@ package org.apache.directory.studio.schemaeditor.controller;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.studio.schemaeditor.Activator;
 import org.apache.directory.studio.schemaeditor.PluginConstants;
 import org.apache.directory.studio.schemaeditor.controller.actions.OpenSearchViewPreferenceAction;
@@ -30,6 +32,8 @@ import org.apache.directory.studio.schemaeditor.controller.actions.OpenSearchVie
 import org.apache.directory.studio.schemaeditor.controller.actions.RunCurrentSearchAgainAction;
 import org.apache.directory.studio.schemaeditor.controller.actions.ShowSearchFieldAction;
 import org.apache.directory.studio.schemaeditor.controller.actions.ShowSearchHistoryAction;
+import org.apache.directory.studio.schemaeditor.model.Project;
+import org.apache.directory.studio.schemaeditor.model.Schema;
 import org.apache.directory.studio.schemaeditor.view.views.SearchView;
 import org.eclipse.jface.action.IMenuManager;
 import org.eclipse.jface.action.IToolBarManager;
@@ -58,6 +62,135 @@ public class SearchViewController
     private OpenSearchViewSortingDialogAction openSearchViewSortingDialog;
     private OpenSearchViewPreferenceAction openSearchViewPreference;
 
+    /** The SchemaHandlerListener, keeping the search index of the view up to date */
+    private SchemaHandlerListener schemaHandlerListener = new SchemaHandlerAdapter()
+    {
+        /**
+         * {@inheritDoc}
+         */
+        public void attributeTypeAdded( AttributeType at )
+        {
+            view.getSearchIndex().add( at );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void attributeTypeModified( AttributeType at )
+        {
+            view.getSearchIndex().add( at );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void attributeTypeRemoved( AttributeType at )
+        {
+            view.getSearchIndex().remove( at );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void objectClassAdded( ObjectClass oc )
+        {
+            view.getSearchIndex().add( oc );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void objectClassModified( ObjectClass oc )
+        {
+            view.getSearchIndex().add( oc );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void objectClassRemoved( ObjectClass oc )
+        {
+            view.getSearchIndex().remove( oc );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void schemaAdded( Schema schema )
+        {
+            for ( AttributeType at : schema.getAttributeTypes() )
+            {
+                view.getSearchIndex().add( at );
+            }
+
+            for ( ObjectClass oc : schema.getObjectClasses() )
+            {
+                view.getSearchIndex().add( oc );
+            }
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public void schemaRemoved( Schema schema )
+        {
+            for ( AttributeType at : schema.getAttributeTypes() )
+            {
+                view.getSearchIndex().remove( at );
+            }
+
+            for ( ObjectClass oc : schema.getObjectClasses() )
+            {
+                view.getSearchIndex().remove( oc );
+            }
+        }
+    };
+
+    /** The ProjectsHandlerListener, moving the SchemaHandlerListener to the opened project */
+    private ProjectsHandlerListener projectsHandlerListener = new ProjectsHandlerAdapter()
+    {
+        /**
+         * {@inheritDoc}
+         */
+        public void openProjectChanged( Project oldProject, Project newProject )
+        {
+            if ( oldProject != null )
+            {
+                oldProject.getSchemaHandler().removeListener( schemaHandlerListener );
+            }
+
+            // The index is rebuilt from the new project on the next search
+            view.getSearchIndex().clear();
+
+            if ( newProject != null )
+            {
+                newProject.getSchemaHandler().addListener( schemaHandlerListener );
+            }
+        }
+    };
+
+    /** The PropertyChangeListener, refreshing the view when its preferences change */
+    private IPropertyChangeListener propertyChangeListener = new IPropertyChangeListener()
+    {
+        /**
+         * {@inheritDoc}
+         */
+        public void propertyChange( PropertyChangeEvent event )
+        {
+            if ( authorizedPrefs.contains( event.getProperty() ) )
+            {
+                view.refresh();
+            }
+        }
+    };
+
 
     /**
      * Creates a new instance of SearchViewController.
@@ -74,6 +207,7 @@ public class SearchViewController
         initMenu();
         initAuthorizedPrefs();
         initPreferencesListener();
+        initProjectsHandlerListener();
     }
 
 
@@ -135,23 +269,42 @@ public class SearchViewController
     }
 
 
+    /**
+     * Initializes the ProjectsHandlerListener.
+     */
+    private void initProjectsHandlerListener()
+    {
+        SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
+        if ( schemaHandler != null )
+        {
+            schemaHandler.addListener( schemaHandlerListener );
+        }
+
+        Activator.getDefault().getProjectsHandler().addListener( projectsHandlerListener );
+    }
+
+
     /**
      * Initializes the listener on the preferences store
      */
     private void initPreferencesListener()
     {
-        Activator.getDefault().getPreferenceStore().addPropertyChangeListener( new IPropertyChangeListener()
+        Activator.getDefault().getPreferenceStore().addPropertyChangeListener( propertyChangeListener );
+    }
+
+
+    /**
+     * This method is called when the view is disposed.
+     */
+    public void dispose()
+    {
+        SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
+        if ( schemaHandler != null )
         {
-            /**
-             * {@inheritDoc}
-             */
-            public void propertyChange( PropertyChangeEvent event )
-            {
-                if ( authorizedPrefs.contains( event.getProperty() ) )
-                {
-                    view.refresh();
-                }
-            }
-        } );
+            schemaHandler.removeListener( schemaHandlerListener );
+        }
+
+        Activator.getDefault().getProjectsHandler().removeListener( projectsHandlerListener );
+        Activator.getDefault().getPreferenceStore().removePropertyChangeListener( propertyChangeListener );
     }
 }
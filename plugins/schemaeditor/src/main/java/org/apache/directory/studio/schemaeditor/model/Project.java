@@ -20,11 +20,16 @@
 package org.apache.directory.studio.schemaeditor.model;
 
 
+import java.util.ArrayList;
 import java.util.List;
 
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.schemaeditor.controller.SchemaHandler;
+import org.apache.directory.studio.schemaeditor.controller.SchemaHandlerAdapter;
+import org.apache.directory.studio.schemaeditor.model.io.ProjectsImportException;
 import org.apache.directory.studio.schemaeditor.model.io.SchemaConnector;
 import org.apache.directory.studio.schemaeditor.model.io.SchemaConnectorException;
 
@@ -49,6 +54,25 @@ public class Project
         CLOSED
     }
 
+    /**
+     * Classes which implement this interface load the schemas of a project
+     * the first time they are needed.
+     *
+     * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+     */
+    public interface SchemasLoader
+    {
+        /**
+         * Loads the schemas of the given project.
+         *
+         * @param project
+         *      the project
+         * @throws ProjectsImportException
+         *      if the schemas could not be loaded
+         */
+        void loadSchemas( Project project ) throws ProjectsImportException;
+    }
+
     /** The type of the project */
     private ProjectType type;
 
@@ -73,6 +97,18 @@ public class Project
     /** The flag for Online Schema Fetch */
     private boolean hasOnlineSchemaBeenFetched = false;
 
+    /** The name of the file in which the project is stored */
+    private String storageFileName;
+
+    /** The loader of the schemas, set while they have not been loaded */
+    private SchemasLoader schemasLoader;
+
+    /** The flag indicating if the last load of the schemas failed, they are then only loaded again on request */
+    private boolean loadFailed = false;
+
+    /** The flag indicating if the project has been modified since it was loaded or saved */
+    private volatile boolean dirty = false;
+
 
     /**
      * Creates a new instance of Project.
@@ -126,6 +162,61 @@ public class Project
         this.name = name;
         this.state = state;
         schemaHandler = new SchemaHandler();
+        schemaHandler.addListener( new SchemaHandlerAdapter()
+        {
+            public void attributeTypeAdded( AttributeType at )
+            {
+                dirty = true;
+            }
+
+
+            public void attributeTypeModified( AttributeType at )
+            {
+                dirty = true;
+            }
+
+
+            public void attributeTypeRemoved( AttributeType at )
+            {
+                dirty = true;
+            }
+
+
+            public void objectClassAdded( ObjectClass oc )
+            {
+                dirty = true;
+            }
+
+
+            public void objectClassModified( ObjectClass oc )
+            {
+                dirty = true;
+            }
+
+
+            public void objectClassRemoved( ObjectClass oc )
+            {
+                dirty = true;
+            }
+
+
+            public void schemaAdded( Schema schema )
+            {
+                dirty = true;
+            }
+
+
+            public void schemaRemoved( Schema schema )
+            {
+                dirty = true;
+            }
+
+
+            public void schemaRenamed( Schema schema )
+            {
+                dirty = true;
+            }
+        } );
     }
 
 
@@ -209,10 +300,150 @@ public class Project
      */
     public SchemaHandler getSchemaHandler()
     {
+        loadSchemas();
+
         return schemaHandler;
     }
 
 
+    /**
+     * Loads the schemas of the project, if they have not been loaded yet
+     * and the last load did not fail.
+     */
+    private synchronized void loadSchemas()
+    {
+        if ( ( schemasLoader != null ) && !loadFailed )
+        {
+            // Resetting the loader first, as it accesses the schema handler
+            SchemasLoader loader = schemasLoader;
+            schemasLoader = null;
+
+            try
+            {
+                loader.loadSchemas( this );
+                dirty = false;
+            }
+            catch ( ProjectsImportException e )
+            {
+                // The project stays unloaded, the partially loaded schemas are dropped
+                schemasLoader = loader;
+                loadFailed = true;
+
+                for ( Schema schema : new ArrayList<Schema>( schemaHandler.getSchemas() ) )
+                {
+                    schemaHandler.removeSchema( schema );
+                }
+
+                initialSchema = null;
+                dirty = false;
+            }
+        }
+    }
+
+
+    /**
+     * Loads the schemas of the project, if they have not been loaded yet.
+     * The load is tried again if it failed before.
+     *
+     * @return
+     *      true if the schemas have been loaded
+     */
+    public synchronized boolean load()
+    {
+        loadFailed = false;
+        loadSchemas();
+
+        return isLoaded();
+    }
+
+
+    /**
+     * Sets the loader of the schemas. The schemas are loaded the first
+     * time the schema handler or the initial schema are accessed.
+     *
+     * @param schemasLoader
+     *      the loader of the schemas
+     */
+    public synchronized void setSchemasLoader( SchemasLoader schemasLoader )
+    {
+        this.schemasLoader = schemasLoader;
+    }
+
+
+    /**
+     * Returns whether the schemas of the project have been loaded.
+     *
+     * @return
+     *      true if the schemas have been loaded
+     */
+    public synchronized boolean isLoaded()
+    {
+        return schemasLoader == null;
+    }
+
+
+    /**
+     * Returns whether the last load of the schemas of the project failed.
+     * The project must then neither be opened nor saved.
+     *
+     * @return
+     *      true if the last load of the schemas failed
+     */
+    public synchronized boolean isLoadFailed()
+    {
+        return loadFailed;
+    }
+
+
+    /**
+     * Returns whether the schemas of the project have been modified since
+     * they were loaded or saved.
+     *
+     * @return
+     *      true if the project has been modified
+     */
+    public synchronized boolean isDirty()
+    {
+        return dirty && ( schemasLoader == null );
+    }
+
+
+    /**
+     * Sets the dirty flag of the project.
+     *
+     * @param dirty
+     *      the dirty flag
+     */
+    public synchronized void setDirty( boolean dirty )
+    {
+        this.dirty = dirty;
+    }
+
+
+    /**
+     * Gets the name of the file in which the project is stored.
+     *
+     * @return
+     *      the name of the file, or null if the project has never been stored
+     */
+    public String getStorageFileName()
+    {
+        return storageFileName;
+    }
+
+
+    /**
+     * Sets the name of the file in which the project is stored.
+     *
+     * @param storageFileName
+     *      the name of the file
+     */
+    public void setStorageFileName( String storageFileName )
+    {
+        this.storageFileName = storageFileName;
+    }
+
+
     /**
      * Gets the Connection.
      *
@@ -256,13 +487,18 @@ public class Project
                 monitor.reportError( e );
             }
 
-            // Adding each schema to the schema handler
+            // Adding each schema to the schema handler, the initial schema keeps a copy
+            // which is not modified by the edits made on the project
             if ( initialSchema != null )
             {
-                monitor.beginTask( Messages.getString( "Project.AddingSchemaToProject" ), initialSchema.size() ); //$NON-NLS-1$
-                for ( Schema schema : initialSchema )
+                List<Schema> schemas = initialSchema;
+                initialSchema = new ArrayList<Schema>();
+
+                monitor.beginTask( Messages.getString( "Project.AddingSchemaToProject" ), schemas.size() ); //$NON-NLS-1$
+                for ( Schema schema : schemas )
                 {
                     getSchemaHandler().addSchema( schema );
+                    initialSchema.add( schema.copy() );
                 }
             }
 
@@ -291,6 +527,8 @@ public class Project
      */
     public List<Schema> getInitialSchema()
     {
+        loadSchemas();
+
         return initialSchema;
     }
 
@@ -303,6 +541,7 @@ public class Project
     public void setInitialSchema( List<Schema> initialSchema )
     {
         this.initialSchema = initialSchema;
+        dirty = true;
     }
 
 
@@ -381,6 +381,42 @@ public class Schema extends DefaultSchema
     }
 
 
+    /**
+     * Returns a copy of the Schema, with copies of its attribute types and object 
+     * classes. The matching rules and syntaxes, which are not edited, are shared.
+     *
+     * @return
+     *      a copy of the Schema
+     */
+    public Schema copy()
+    {
+        Schema copy = new Schema( getSchemaName() );
+        copy.setProject( project );
+
+        for ( AttributeType at : attributeTypes )
+        {
+            copy.addAttributeType( at.copy() );
+        }
+
+        for ( ObjectClass oc : objectClasses )
+        {
+            copy.addObjectClass( oc.copy() );
+        }
+
+        for ( MatchingRule mr : matchingRules )
+        {
+            copy.addMatchingRule( mr );
+        }
+
+        for ( LdapSyntax syntax : syntaxes )
+        {
+            copy.addSyntax( syntax );
+        }
+
+        return copy;
+    }
+
+
     /**
      * {@inheritDoc}
      */
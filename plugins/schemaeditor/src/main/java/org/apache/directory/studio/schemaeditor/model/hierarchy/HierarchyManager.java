@@ -20,157 +20,121 @@
 package org.apache.directory.studio.schemaeditor.model.hierarchy;
 
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-import org.apache.commons.collections4.MultiValuedMap;
-import org.apache.commons.collections4.multimap.ArrayListValuedHashMap;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.api.ldap.model.schema.SchemaObject;
 import org.apache.directory.api.util.Strings;
-import org.apache.directory.studio.schemaeditor.Activator;
 import org.apache.directory.studio.schemaeditor.controller.SchemaHandler;
 import org.apache.directory.studio.schemaeditor.model.Schema;
 
 
 /**
  * This class represents the HierarchyManager.
+ * <p>
+ * It keeps the parents and children of each attribute type and object class of a
+ * {@link SchemaHandler}, and is updated incrementally by the schema handler as its
+ * schema objects are added, modified or removed, so it is only built once per project.
+ * <p>
+ * A superior which can not be found is represented by its lower-cased name (or OID):
+ * the object referencing it is then attached to this name and to the RootObject,
+ * until an object defining this name is added.
+ * <p>
+ * The hierarchy works on the identity of the schema objects, as schema objects
+ * are modified in place by the schema handler.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
 public class HierarchyManager
 {
+    /** The OID of the "top" object class */
+    private static final String TOP_OID = "2.5.6.0"; //$NON-NLS-1$
+
     /** The parents map is used to store for each element its parents */
-    private MultiValuedMap<Object, Object> parentsMap;
+    private Map<SchemaObject, Set<Object>> parentsMap = new IdentityHashMap<>();
+
+    /** The children map is used to store for each element its children */
+    private Map<Object, Set<SchemaObject>> childrenMap = new IdentityHashMap<>();
+
+    /** The unresolved superior names, as used as keys of the children map */
+    private Map<String, String> unresolvedNames = new HashMap<>();
 
-    /** The parents map is used to store for each element its children */
-    private MultiValuedMap<Object, Object> childrenMap;
+    /** The attribute types, by lower-cased name and OID */
+    private Map<String, SchemaObject> attributeTypesIndex = new HashMap<>();
 
-    /** The SchemaHandler */
-    private SchemaHandler schemaHandler;
+    /** The object classes, by lower-cased name and OID */
+    private Map<String, SchemaObject> objectClassesIndex = new HashMap<>();
+
+    /** The keys under which each schema object has been indexed */
+    private Map<SchemaObject, List<String>> indexedKeys = new IdentityHashMap<>();
 
     /** The RootObject of the Hierarchy */
-    private RootObject root;
+    private RootObject root = new RootObject();
 
 
     /**
      * Creates a new instance of HierarchyManager.
+     *
+     * @param schemaHandler
+     *      the schema handler whose schemas are loaded
      */
-    public HierarchyManager()
+    public HierarchyManager( SchemaHandler schemaHandler )
     {
-        // Initializing the maps
-        parentsMap = new ArrayListValuedHashMap<>();
-        childrenMap = new ArrayListValuedHashMap<>();
-
-        // Getting the SchemaHandler
-        schemaHandler = Activator.getDefault().getSchemaHandler();
-
-        // Loading the complete Schema
-        loadSchema();
+        if ( schemaHandler != null )
+        {
+            // Loading the complete Schema
+            for ( Schema schema : schemaHandler.getSchemas() )
+            {
+                schemaAdded( schema );
+            }
+        }
     }
 
 
     /**
-     * Adds an attribute type.
+     * This method is called when a schema is added.
      *
-     * @param at
-     *      the attribute type
+     * @param schema
+     *      the added schema
      */
-    private void addAttributeType( AttributeType at )
+    public void schemaAdded( Schema schema )
     {
-        // Checking Aliases and OID
-        checkAliasesAndOID( at );
-
-        String superiorName = at.getSuperiorOid();
-        if ( superiorName != null )
-        // The attribute type has a superior
+        for ( AttributeType at : schema.getAttributeTypes() )
         {
-            AttributeType superior = schemaHandler.getAttributeType( superiorName );
-            if ( superior != null )
-            // The superior attribute type object exists
-            {
-                parentsMap.put( at, superior );
-                childrenMap.put( superior, at );
-            }
-            else
-            // The superior attribute type object does not exist
-            {
-                // Then, its parent is the name of its superior and
-                // it becomes the children of it and the RootObject
-                parentsMap.put( at, Strings.toLowerCase( superiorName ) );
-                childrenMap.put( Strings.toLowerCase( superiorName ), at );
-                childrenMap.put( root, at );
-            }
+            addSchemaObject( at );
         }
-        else
-        // The attribute type does not have a superior
+
+        for ( ObjectClass oc : schema.getObjectClasses() )
         {
-            // Then, its parent is the RootObject
-            parentsMap.put( at, root );
-            childrenMap.put( root, at );
+            addSchemaObject( oc );
         }
     }
 
 
     /**
-     * Adds an object class.
+     * This method is called when a schema is removed.
      *
-     * @param oc
-     *      the object class
+     * @param schema
+     *      the removed schema
      */
-    private void addObjectClass( ObjectClass oc )
+    public void schemaRemoved( Schema schema )
     {
-        // Checking Aliases and OID
-        checkAliasesAndOID( oc );
-
-        List<String> superClasseNames = oc.getSuperiorOids();
-        if ( ( superClasseNames != null ) && ( superClasseNames.size() > 0 ) )
-        // The object class has one or more superiors
+        for ( AttributeType at : schema.getAttributeTypes() )
         {
-            for ( String superClassName : superClasseNames )
-            {
-                ObjectClass superClass = schemaHandler.getObjectClass( superClassName );
-                if ( superClass == null )
-                {
-                    parentsMap.put( oc, Strings.toLowerCase( superClassName ) );
-                    childrenMap.put( Strings.toLowerCase( superClassName ), oc );
-                    childrenMap.put( root, oc );
-                }
-                else
-                {
-                    parentsMap.put( oc, superClass );
-                    childrenMap.put( superClass, oc );
-                }
-            }
+            removeSchemaObject( at );
         }
-        else
-        // The object class does not have any declared superior
-        // Then, it is a child of the "top (2.5.6.0)" object class
-        // (Unless it is the "top (2.5.6.0)" object class itself)
+
+        for ( ObjectClass oc : schema.getObjectClasses() )
         {
-            ObjectClass topOC = schemaHandler.getObjectClass( "2.5.6.0" ); //$NON-NLS-1$
-            if ( oc.equals( topOC ) )
-            // The given object class is the "top (2.5.6.0)" object class
-            {
-                parentsMap.put( oc, root );
-                childrenMap.put( root, oc );
-            }
-            else
-            {
-                if ( topOC != null )
-                // The "top (2.5.6.0)" object class exists
-                {
-                    parentsMap.put( oc, topOC );
-                    childrenMap.put( topOC, oc );
-                }
-                else
-                // The "top (2.5.6.0)" object class does not exist
-                {
-                    parentsMap.put( oc, "2.5.6.0" ); //$NON-NLS-1$
-                    childrenMap.put( "2.5.6.0", oc ); //$NON-NLS-1$
-                    childrenMap.put( root, oc );
-                }
-            }
+            removeSchemaObject( oc );
         }
     }
 
@@ -183,7 +147,7 @@ public class HierarchyManager
      */
     public void attributeTypeAdded( AttributeType at )
     {
-        addAttributeType( at );
+        addSchemaObject( at );
     }
 
 
@@ -195,20 +159,9 @@ public class HierarchyManager
      */
     public void attributeTypeModified( AttributeType at )
     {
-        // Removing the attribute type
-        List<Object> parents = getParents( at );
-        if ( parents != null )
-        {
-            for ( Object parent : parents )
-            {
-                childrenMap.removeMapping( parent, at );
-            }
-
-            parentsMap.remove( at );
-        }
-
-        // Adding the attribute type again
-        addAttributeType( at );
+        // Its names, OID or superior may have changed
+        removeSchemaObject( at );
+        addSchemaObject( at );
     }
 
 
@@ -220,63 +173,45 @@ public class HierarchyManager
      */
     public void attributeTypeRemoved( AttributeType at )
     {
-        removeAttributeType( at );
+        removeSchemaObject( at );
     }
 
 
     /**
-     * Checks the Aliases and OID of an attribute type or an object class.
+     * This method is called when an object class is added.
      *
-     * @param object
-     *      an attribute type or an object class.
+     * @param oc
+     *      the added object class
      */
-    private void checkAliasesAndOID( SchemaObject object )
+    public void objectClassAdded( ObjectClass oc )
     {
-        // Aliases
-        List<String> aliases = object.getNames();
-        if ( aliases != null )
-        {
-            for ( String alias : aliases )
-            {
-                // Looking for children objects for this alias value
-                @SuppressWarnings("unchecked")
-                List<Object> children = ( List<Object> ) childrenMap.get( Strings.toLowerCase( alias ) );
-                if ( children != null )
-                {
-                    for ( Object value : children )
-                    {
-                        childrenMap.put( object, value );
-                        parentsMap.removeMapping( value, Strings.toLowerCase( alias ) );
-                        parentsMap.put( value, object );
-                    }
-                    childrenMap.remove( Strings.toLowerCase( alias ) );
-                }
-            }
-        }
+        addSchemaObject( oc );
+    }
 
-        // OID
-        String oid = object.getOid();
-        if ( oid != null )
-        {
-            // Looking for children objects for this OID value
-            @SuppressWarnings("unchecked")
-            List<Object> children = ( List<Object> ) childrenMap.get( Strings.toLowerCase( oid ) );
-            if ( children != null )
-            {
-                for ( Object value : children )
-                {
-                    childrenMap.put( object, value );
-                    if ( oid.equals( "2.5.6.0" ) ) //$NON-NLS-1$
-                    {
-                        childrenMap.removeMapping( root, value );
-                    }
-                    parentsMap.removeMapping( value, Strings.toLowerCase( oid ) );
-                    parentsMap.put( value, object );
 
-                }
-                childrenMap.remove( Strings.toLowerCase( oid ) );
-            }
-        }
+    /**
+     * This method is called when an object class is modified.
+     *
+     * @param oc
+     *      the modified object class
+     */
+    public void objectClassModified( ObjectClass oc )
+    {
+        // Its names, OID or superiors may have changed
+        removeSchemaObject( oc );
+        addSchemaObject( oc );
+    }
+
+
+    /**
+     * This method is called when an object class is removed.
+     *
+     * @param oc
+     *      the removed object class
+     */
+    public void objectClassRemoved( ObjectClass oc )
+    {
+        removeSchemaObject( oc );
     }
 
 
@@ -284,14 +219,25 @@ public class HierarchyManager
      * Gets the children of the given object.
      *
      * @param o
-     *      the object
+     *      the object (the RootObject, a schema object or the name of an unresolved superior)
      * @return
      *      the children of the given object
      */
-    @SuppressWarnings("unchecked")
     public List<Object> getChildren( Object o )
     {
-        return ( List<Object> ) childrenMap.get( o );
+        if ( o instanceof String )
+        {
+            o = unresolvedNames.get( Strings.toLowerCase( ( String ) o ) );
+        }
+
+        Set<SchemaObject> children = childrenMap.get( o );
+
+        if ( children == null )
+        {
+            return new ArrayList<>();
+        }
+
+        return new ArrayList<>( children );
     }
 
 
@@ -303,10 +249,16 @@ public class HierarchyManager
      * @return
      *      the parents of the given object
      */
-    @SuppressWarnings("unchecked")
     public List<Object> getParents( Object o )
     {
-        return ( List<Object> ) parentsMap.get( o );
+        Set<Object> parents = parentsMap.get( o );
+
+        if ( parents == null )
+        {
+            return new ArrayList<>();
+        }
+
+        return new ArrayList<>( parents );
     }
 
 
@@ -323,235 +275,388 @@ public class HierarchyManager
 
 
     /**
-     * Loads the Schema.
+     * Adds an attribute type or an object class. Nothing is done if it is
+     * already in the hierarchy.
+     *
+     * @param object
+     *      the schema object
      */
-    private void loadSchema()
+    private void addSchemaObject( SchemaObject object )
     {
-        if ( schemaHandler != null )
+        if ( indexedKeys.containsKey( object ) )
         {
-            // Creating the root element
-            root = new RootObject();
+            return;
+        }
 
-            // Looping on the schemas
-            for ( Schema schema : schemaHandler.getSchemas() )
+        // Indexing the object by its names and OID (the first object defining a key wins)
+        Map<String, SchemaObject> index = getIndex( object );
+        List<String> keys = new ArrayList<>();
+
+        for ( String key : getKeys( object ) )
+        {
+            if ( index.putIfAbsent( key, object ) == null )
             {
-                // Looping on the attribute types
-                for ( AttributeType at : schema.getAttributeTypes() )
-                {
-                    addAttributeType( at );
-                }
+                keys.add( key );
+            }
+        }
 
-                // Looping on the object classes
-                for ( ObjectClass oc : schema.getObjectClasses() )
+        indexedKeys.put( object, keys );
+
+        // Attaching the objects waiting for one of these keys
+        for ( String key : keys )
+        {
+            String unresolvedName = unresolvedNames.get( key );
+
+            if ( unresolvedName != null )
+            {
+                for ( SchemaObject child : getChildren( unresolvedName ).toArray( new SchemaObject[0] ) )
                 {
-                    addObjectClass( oc );
+                    if ( isSameType( child, object ) && ( child != object ) )
+                    {
+                        unlink( unresolvedName, child );
+                        link( object, child );
+                        updateRootLink( child );
+                    }
                 }
             }
         }
+
+        // Attaching the object to its superiors
+        attachToSuperiors( object );
     }
 
 
     /**
-     * This method is called when an object class is added.
+     * Removes an attribute type or an object class. Its children are attached
+     * again to their superiors, which are now unresolved.
      *
-     * @param oc
-     *      the added object class
+     * @param object
+     *      the schema object
      */
-    public void objectClassAdded( ObjectClass oc )
+    private void removeSchemaObject( SchemaObject object )
     {
-        addObjectClass( oc );
+        List<String> keys = indexedKeys.remove( object );
+
+        if ( keys == null )
+        {
+            return;
+        }
+
+        Map<String, SchemaObject> index = getIndex( object );
+
+        for ( String key : keys )
+        {
+            index.remove( key );
+        }
+
+        detachFromSuperiors( object );
+
+        Set<SchemaObject> children = childrenMap.remove( object );
+
+        if ( children != null )
+        {
+            for ( SchemaObject child : children )
+            {
+                detachFromSuperiors( child );
+                attachToSuperiors( child );
+            }
+        }
     }
 
 
     /**
-     * This method is called when an object class is modified.
+     * Attaches a schema object to its superiors.
      *
-     * @param oc
-     *      the modified object class
+     * @param object
+     *      the schema object
      */
-    public void objectClassModified( ObjectClass oc )
+    private void attachToSuperiors( SchemaObject object )
     {
-        // Removing the object class type
-        List<Object> parents = getParents( oc );
-        if ( parents != null )
+        List<String> superiorNames = getSuperiorNames( object );
+
+        if ( superiorNames.isEmpty() )
         {
-            for ( Object parent : parents )
+            // The object does not have a superior, its parent is the RootObject
+            link( root, object );
+
+            return;
+        }
+
+        Map<String, SchemaObject> index = getIndex( object );
+
+        for ( String superiorName : superiorNames )
+        {
+            String key = Strings.toLowerCase( superiorName );
+            SchemaObject superior = index.get( key );
+
+            if ( ( superior != null ) && ( superior != object ) )
             {
-                childrenMap.removeMapping( parent, oc );
+                link( superior, object );
+            }
+            else
+            {
+                link( unresolvedNames.computeIfAbsent( key, k -> k ), object );
             }
-
-            parentsMap.remove( oc );
         }
 
-        // Adding the object class again
-        addObjectClass( oc );
+        updateRootLink( object );
     }
 
 
     /**
-     * This method is called when an object class is removed.
+     * Detaches a schema object from its superiors and from the RootObject.
      *
-     * @param oc
-     *      the removed object class
+     * @param object
+     *      the schema object
      */
-    public void objectClassRemoved( ObjectClass oc )
+    private void detachFromSuperiors( SchemaObject object )
     {
-        removeObjectClass( oc );
+        Set<Object> parents = parentsMap.remove( object );
+
+        if ( parents != null )
+        {
+            for ( Object parent : parents )
+            {
+                removeChild( parent, object );
+            }
+        }
+
+        removeChild( root, object );
     }
 
 
     /**
-     * Removes an attribute type.
+     * Attaches a schema object to the RootObject if one of its superiors is
+     * unresolved, and detaches it otherwise (unless the RootObject is its parent).
      *
-     * @param at
-     *      the attribute type
+     * @param object
+     *      the schema object
      */
-    private void removeAttributeType( AttributeType at )
+    private void updateRootLink( SchemaObject object )
     {
-        // Removing the attribute type as child of its superior
-        String superiorName = at.getSuperiorOid();
-        if ( ( superiorName != null ) && ( !"".equals( superiorName ) ) ) //$NON-NLS-1$
-        {
-            AttributeType superiorAT = schemaHandler.getAttributeType( superiorName );
-            if ( superiorAT == null )
-            {
-                childrenMap.removeMapping( Strings.toLowerCase( superiorName ), at );
-            }
-            else
-            {
-                childrenMap.removeMapping( superiorAT, at );
-            }
-        }
-        else
+        Set<Object> parents = parentsMap.get( object );
+
+        if ( ( parents != null ) && parents.contains( root ) )
         {
-            childrenMap.removeMapping( root, at );
+            return;
         }
 
-        // Attaching each child (if there are children) to the RootObject
-        List<Object> children = getChildren( at );
-        if ( children != null )
+        boolean unresolved = false;
+
+        if ( parents != null )
         {
-            for ( Object child : children )
+            for ( Object parent : parents )
             {
-                AttributeType childAT = ( AttributeType ) child;
-
-                parentsMap.removeMapping( child, at );
-
-                parentsMap.put( child, root );
-                childrenMap.put( root, child );
-                String childSuperiorName = childAT.getSuperiorOid();
-                if ( ( childSuperiorName != null ) && ( !"".equals( childSuperiorName ) ) ) //$NON-NLS-1$
+                if ( parent instanceof String )
                 {
-                    parentsMap.put( child, Strings.toLowerCase( childSuperiorName ) );
-                    childrenMap.put( Strings.toLowerCase( childSuperiorName ), child );
+                    unresolved = true;
+                    break;
                 }
             }
         }
 
-        childrenMap.remove( at );
-        parentsMap.remove( at );
+        if ( unresolved )
+        {
+            childrenMap.computeIfAbsent( root, k -> newIdentitySet() ).add( object );
+        }
+        else
+        {
+            removeChild( root, object );
+        }
+    }
+
+
+    /**
+     * Links a parent and a child.
+     *
+     * @param parent
+     *      the parent
+     * @param child
+     *      the child
+     */
+    private void link( Object parent, SchemaObject child )
+    {
+        childrenMap.computeIfAbsent( parent, k -> newIdentitySet() ).add( child );
+        parentsMap.computeIfAbsent( child, k -> newIdentitySet() ).add( parent );
     }
 
 
-    private void removeObjectClass( ObjectClass oc )
+    /**
+     * Unlinks a parent and a child.
+     *
+     * @param parent
+     *      the parent
+     * @param child
+     *      the child
+     */
+    private void unlink( Object parent, SchemaObject child )
     {
-        // Removing the object class as child of its superiors
-        List<String> superClassesNames = oc.getSuperiorOids();
-        if ( ( superClassesNames != null ) && ( superClassesNames.size() > 0 ) )
+        removeChild( parent, child );
+
+        Set<Object> parents = parentsMap.get( child );
+
+        if ( parents != null )
         {
-            for ( String superClassName : superClassesNames )
+            parents.remove( parent );
+
+            if ( parents.isEmpty() )
             {
-                if ( !"".equals( superClassName ) ) //$NON-NLS-1$
-                {
-                    ObjectClass superClassOC = schemaHandler.getObjectClass( superClassName );
-                    if ( superClassOC == null )
-                    {
-                        childrenMap.removeMapping( Strings.toLowerCase( superClassName ), oc );
-                        childrenMap.removeMapping( root, oc );
-                    }
-                    else
-                    {
-                        childrenMap.removeMapping( superClassOC, oc );
-                    }
-                }
+                parentsMap.remove( child );
             }
         }
-        else
+    }
+
+
+    /**
+     * Removes a child from the children of a parent, forgetting the parent if
+     * it is an unresolved name which has no more children.
+     *
+     * @param parent
+     *      the parent
+     * @param child
+     *      the child
+     */
+    private void removeChild( Object parent, SchemaObject child )
+    {
+        Set<SchemaObject> children = childrenMap.get( parent );
+
+        if ( children != null )
         {
-            if ( oc.getOid().equals( "2.5.6.0" ) ) //$NON-NLS-1$
-            // The given object class is the "top (2.5.6.0)" object class
-            {
-                childrenMap.removeMapping( root, oc );
-            }
-            else
+            children.remove( child );
+
+            if ( children.isEmpty() && ( parent != root ) )
             {
-                ObjectClass topOC = schemaHandler.getObjectClass( "2.5.6.0" ); //$NON-NLS-1$
-                if ( topOC != null )
-                // The "top (2.5.6.0)" object class exists
-                {
-                    childrenMap.removeMapping( topOC, oc );
-                }
-                else
-                // The "top (2.5.6.0)" object class does not exist
+                childrenMap.remove( parent );
+
+                if ( parent instanceof String )
                 {
-                    childrenMap.removeMapping( "2.5.6.0", oc ); //$NON-NLS-1$
+                    unresolvedNames.remove( parent );
                 }
             }
         }
+    }
 
-        // Attaching each child (if there are children) to the RootObject
-        List<Object> children = getChildren( oc );
-        if ( children != null )
+
+    /**
+     * Gets the names of the superiors of a schema object. An object class without
+     * superior is a child of the "top (2.5.6.0)" object class (unless it is the
+     * "top (2.5.6.0)" object class itself).
+     *
+     * @param object
+     *      the schema object
+     * @return
+     *      the names of the superiors of the schema object
+     */
+    private static List<String> getSuperiorNames( SchemaObject object )
+    {
+        List<String> superiorNames = new ArrayList<>();
+
+        if ( object instanceof AttributeType )
         {
-            for ( Object child : children )
-            {
-                ObjectClass childOC = ( ObjectClass ) child;
+            String superiorName = ( ( AttributeType ) object ).getSuperiorOid();
 
-                parentsMap.removeMapping( child, oc );
+            if ( !Strings.isEmpty( superiorName ) )
+            {
+                superiorNames.add( superiorName );
+            }
+        }
+        else if ( object instanceof ObjectClass )
+        {
+            List<String> superClassNames = ( ( ObjectClass ) object ).getSuperiorOids();
 
-                parentsMap.put( child, root );
-                childrenMap.put( root, child );
-                List<String> childSuperClassesNames = childOC.getSuperiorOids();
-                if ( ( childSuperClassesNames != null ) && ( childSuperClassesNames.size() > 0 ) )
+            if ( superClassNames != null )
+            {
+                for ( String superClassName : superClassNames )
                 {
-                    String correctSuperClassName = getCorrectSuperClassName( oc, childSuperClassesNames );
-                    if ( correctSuperClassName != null )
+                    if ( !Strings.isEmpty( superClassName ) )
                     {
-                        parentsMap.put( child, Strings.toLowerCase( correctSuperClassName ) );
-                        childrenMap.put( Strings.toLowerCase( correctSuperClassName ), child );
+                        superiorNames.add( superClassName );
                     }
                 }
-                else
-                {
-                    parentsMap.put( child, "2.5.6.0" ); //$NON-NLS-1$
-                    childrenMap.put( "2.5.6.0", child ); //$NON-NLS-1$
-                }
+            }
+
+            if ( superiorNames.isEmpty() && !TOP_OID.equals( object.getOid() ) )
+            {
+                superiorNames.add( TOP_OID );
             }
         }
 
-        childrenMap.remove( oc );
-        parentsMap.remove( oc );
+        return superiorNames;
     }
 
 
-    private String getCorrectSuperClassName( ObjectClass oc, List<String> childSuperClassesNames )
+    /**
+     * Gets the lower-cased names and OID of a schema object.
+     *
+     * @param object
+     *      the schema object
+     * @return
+     *      the lower-cased names and OID of the schema object
+     */
+    private static Set<String> getKeys( SchemaObject object )
     {
-        if ( childSuperClassesNames != null )
+        Set<String> keys = new LinkedHashSet<>();
+
+        if ( object.getOid() != null )
         {
-            List<String> aliases = oc.getNames();
-            if ( aliases != null )
+            keys.add( Strings.toLowerCase( object.getOid() ) );
+        }
+
+        if ( object.getNames() != null )
+        {
+            for ( String name : object.getNames() )
             {
-                for ( String childSuperClassName : childSuperClassesNames )
-                {
-                    if ( aliases.contains( childSuperClassName ) )
-                    {
-                        return childSuperClassName;
-                    }
-                }
+                keys.add( Strings.toLowerCase( name ) );
             }
         }
 
-        // Default
-        return null;
+        return keys;
+    }
+
+
+    /**
+     * Gets the index of the schema objects of the same type as the given one.
+     *
+     * @param object
+     *      the schema object
+     * @return
+     *      the index of the schema objects of the same type as the given one
+     */
+    private Map<String, SchemaObject> getIndex( SchemaObject object )
+    {
+        if ( object instanceof AttributeType )
+        {
+            return attributeTypesIndex;
+        }
+
+        return objectClassesIndex;
+    }
+
+
+    /**
+     * Indicates if two schema objects are of the same type.
+     *
+     * @param o1
+     *      the first schema object
+     * @param o2
+     *      the second schema object
+     * @return
+     *      <code>true</code> if both are attribute types or both are object classes
+     */
+    private static boolean isSameType( SchemaObject o1, SchemaObject o2 )
+    {
+        return ( o1 instanceof AttributeType ) == ( o2 instanceof AttributeType );
+    }
+
+
+    /**
+     * Creates a new set based on the identity of its elements.
+     *
+     * @return
+     *      a new set based on the identity of its elements
+     */
+    private static <E> Set<E> newIdentitySet()
+    {
+        return Collections.newSetFromMap( new IdentityHashMap<E, Boolean>() );
     }
 }
@@ -20,10 +20,23 @@
 package org.apache.directory.studio.schemaeditor.model.io;
 
 
+import javax.naming.directory.SearchControls;
+
+import org.apache.directory.api.ldap.model.constants.LdapConstants;
+import org.apache.directory.api.ldap.model.entry.Attribute;
+import org.apache.directory.api.ldap.model.entry.Entry;
+import org.apache.directory.api.ldap.model.exception.LdapException;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeValueException;
 import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.connection.core.Connection.AliasDereferencingMethod;
 import org.apache.directory.studio.connection.core.Connection.ReferralHandlingMethod;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
+import org.apache.directory.studio.connection.core.io.api.StudioSearchResultEnumeration;
+import org.apache.directory.studio.schemaeditor.model.DependenciesComputer.DependencyComputerException;
+import org.apache.directory.studio.schemaeditor.model.Project;
+import org.apache.directory.studio.schemaeditor.model.io.SchemaDeploymentItem.DeploymentStatus;
+import org.eclipse.osgi.util.NLS;
 
 
 /**
@@ -82,6 +95,123 @@ public abstract class AbstractSchemaConnector implements SchemaConnector
     }
 
 
+    /**
+     * Deploys the changes made on the schema of the project to the subschema subentry 
+     * of the server. The result of each schema element is reported to the monitor.
+     */
+    public void exportSchema( Project project, StudioProgressMonitor monitor )
+        throws SchemaConnectorException
+    {
+        ConnectionWrapper wrapper = project.getConnection().getConnectionWrapper();
+
+        String subschemaSubentry = getSubschemaSubentry( wrapper, monitor );
+        if ( subschemaSubentry == null )
+        {
+            throw new SchemaConnectorException( Messages
+                .getString( "AbstractSchemaConnector.NoSubschemaSubentry" ) ); //$NON-NLS-1$
+        }
+
+        SchemaDeployer deployer;
+        try
+        {
+            deployer = new SchemaDeployer( project.getInitialSchema(), project.getSchemaHandler().getSchemas() );
+        }
+        catch ( DependencyComputerException e )
+        {
+            throw new SchemaConnectorException( e.getMessage(), e );
+        }
+
+        deployer.deploy( wrapper, subschemaSubentry, monitor );
+        deployer.updateInitialSchema( project );
+
+        int errorCount = 0;
+        for ( SchemaDeploymentItem item : deployer.getItems() )
+        {
+            if ( item.getStatus() == DeploymentStatus.FAILED )
+            {
+                errorCount++;
+                monitor.reportError( NLS.bind( Messages.getString( "AbstractSchemaConnector.ElementNotDeployed" ), //$NON-NLS-1$
+                    item.getDisplayName() ), item.getException() );
+            }
+            else if ( item.getStatus() == DeploymentStatus.SKIPPED )
+            {
+                errorCount++;
+                monitor.reportError( NLS.bind( Messages.getString( "AbstractSchemaConnector.ElementSkipped" ), //$NON-NLS-1$
+                    item.getDisplayName() ) );
+            }
+        }
+
+        if ( errorCount > 0 )
+        {
+            throw new SchemaConnectorException( NLS.bind( Messages
+                .getString( "AbstractSchemaConnector.ElementsNotDeployed" ), errorCount, deployer.getItems().size() ) ); //$NON-NLS-1$
+        }
+    }
+
+
+    /**
+     * Gets the DN of the subschema subentry of the server.
+     *
+     * @param wrapper
+     *      the connection wrapper
+     * @param monitor
+     *      the progress monitor
+     * @return
+     *      the DN of the subschema subentry, or null if it could not be found
+     */
+    protected static String getSubschemaSubentry( ConnectionWrapper wrapper, StudioProgressMonitor monitor )
+    {
+        SearchControls constraintSearch = new SearchControls();
+        constraintSearch.setSearchScope( SearchControls.OBJECT_SCOPE );
+        constraintSearch.setReturningAttributes( new String[]
+            { "subschemaSubentry" } ); //$NON-NLS-1$
+
+        StudioSearchResultEnumeration answer = wrapper.search( "", LdapConstants.OBJECT_CLASS_STAR, constraintSearch, //$NON-NLS-1$ //$NON-NLS-2$
+            DEREF_ALIAS_METHOD, HANDLE_REFERALS_METHOD, null, monitor, null );
+
+        if ( answer != null )
+        {
+            try
+            {
+                if ( answer.hasMore() )
+                {
+                    Entry searchResult = answer.next().getEntry();
+
+                    Attribute subschemaSubentryAttribute = searchResult.get( "subschemaSubentry" ); //$NON-NLS-1$
+                    if ( subschemaSubentryAttribute == null )
+                    {
+                        return null;
+                    }
+
+                    if ( subschemaSubentryAttribute.size() != 1 )
+                    {
+                        return null;
+                    }
+
+                    String subschemaSubentry = null;
+                    
+                    try
+                    {
+                        subschemaSubentry = subschemaSubentryAttribute.getString();
+                    }
+                    catch ( LdapInvalidAttributeValueException e )
+                    {
+                        return null;
+                    }
+
+                    return subschemaSubentry;
+                }
+            }
+            catch ( LdapException e )
+            {
+                monitor.reportError( e );
+            }
+        }
+
+        return null;
+    }
+
+
     /**
      * {@inheritDoc}
      */
@@ -543,14 +543,4 @@ public class ApacheDsSchemaConnector extends AbstractSchemaConnector implements
             return !Boolean.parseBoolean( at.getString() );
         }
     }
-
-
-    /**
-     * {@inheritDoc}
-     */
-    public void exportSchema( Project project, StudioProgressMonitor monitor )
-        throws SchemaConnectorException
-    {
-        // TODO Auto-generated method stub
-    }
 }
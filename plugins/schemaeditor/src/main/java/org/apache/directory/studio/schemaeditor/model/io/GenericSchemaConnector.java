@@ -26,13 +26,10 @@ import java.util.List;
 
 import javax.naming.directory.SearchControls;
 
-import org.apache.directory.api.ldap.model.constants.LdapConstants;
 import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.entry.Attribute;
 import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.entry.Value;
-import org.apache.directory.api.ldap.model.exception.LdapException;
-import org.apache.directory.api.ldap.model.exception.LdapInvalidAttributeValueException;
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.LdapSyntax;
 import org.apache.directory.api.ldap.model.schema.MatchingRule;
@@ -128,59 +125,6 @@ public class GenericSchemaConnector extends AbstractSchemaConnector implements S
     }
 
 
-    private static String getSubschemaSubentry( ConnectionWrapper wrapper, StudioProgressMonitor monitor )
-    {
-        SearchControls constraintSearch = new SearchControls();
-        constraintSearch.setSearchScope( SearchControls.OBJECT_SCOPE );
-        constraintSearch.setReturningAttributes( new String[]
-            { "subschemaSubentry" } ); //$NON-NLS-1$
-
-        StudioSearchResultEnumeration answer = wrapper.search( "", LdapConstants.OBJECT_CLASS_STAR, constraintSearch, //$NON-NLS-1$ //$NON-NLS-2$
-            DEREF_ALIAS_METHOD, HANDLE_REFERALS_METHOD, null, monitor, null );
-
-        if ( answer != null )
-        {
-            try
-            {
-                if ( answer.hasMore() )
-                {
-                    Entry searchResult = answer.next().getEntry();
-
-                    Attribute subschemaSubentryAttribute = searchResult.get( "subschemaSubentry" ); //$NON-NLS-1$
-                    if ( subschemaSubentryAttribute == null )
-                    {
-                        return null;
-                    }
-
-                    if ( subschemaSubentryAttribute.size() != 1 )
-                    {
-                        return null;
-                    }
-
-                    String subschemaSubentry = null;
-                    
-                    try
-                    {
-                        subschemaSubentry = subschemaSubentryAttribute.getString();
-                    }
-                    catch ( LdapInvalidAttributeValueException e )
-                    {
-                        return null;
-                    }
-
-                    return subschemaSubentry;
-                }
-            }
-            catch ( LdapException e )
-            {
-                monitor.reportError( e );
-            }
-        }
-
-        return null;
-    }
-
-
     private static void getSchema( Schema schema, ConnectionWrapper wrapper, Entry entry,
         StudioProgressMonitor monitor ) throws SchemaConnectorException
     {
@@ -383,14 +327,4 @@ public class GenericSchemaConnector extends AbstractSchemaConnector implements S
             }
         }
     }
-
-
-    /**
-     * {@inheritDoc}
-     */
-    public void exportSchema( Project project, StudioProgressMonitor monitor )
-        throws SchemaConnectorException
-    {
-        // TODO Auto-generated method stub
-    }
 }
@@ -0,0 +1,191 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.schemaeditor.model.io;
+
+
+import java.io.OutputStream;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+
+
+/**
+ * This class writes an indented XML document to an output stream, element
+ * by element, with a {@link XMLStreamWriter}.
+ * <p>
+ * The attributes of an element must be added before its child elements.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class IndentingXMLWriter
+{
+    /** The encoding of the documents */
+    private static final String ENCODING = "UTF-8"; //$NON-NLS-1$
+
+    /** The indentation of each level */
+    private static final String INDENT = "  "; //$NON-NLS-1$
+
+    /** The factory used to create the writers */
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    /** The underlying writer */
+    private final XMLStreamWriter writer;
+
+    /** The depth of the current element */
+    private int depth;
+
+    /** The flag indicating if the current element has child elements */
+    private boolean hasChildElements;
+
+
+    /**
+     * Creates a new instance of IndentingXMLWriter.
+     *
+     * @param outputStream
+     *      the output stream (it is not closed by the writer)
+     * @throws XMLStreamException
+     *      if the writer could not be created
+     */
+    IndentingXMLWriter( OutputStream outputStream ) throws XMLStreamException
+    {
+        writer = OUTPUT_FACTORY.createXMLStreamWriter( outputStream, ENCODING );
+    }
+
+
+    /**
+     * Writes the XML declaration.
+     *
+     * @throws XMLStreamException
+     *      if an error occurs when writing the document
+     */
+    void startDocument() throws XMLStreamException
+    {
+        writer.writeStartDocument( ENCODING, "1.0" ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Ends the document and flushes the writer.
+     *
+     * @throws XMLStreamException
+     *      if an error occurs when writing the document
+     */
+    void endDocument() throws XMLStreamException
+    {
+        writer.writeCharacters( "\n" ); //$NON-NLS-1$
+        writer.writeEndDocument();
+        writer.flush();
+    }
+
+
+    /**
+     * Writes the start tag of an element.
+     *
+     * @param name
+     *      the name of the element
+     * @throws XMLStreamException
+     *      if an error occurs when writing the document
+     */
+    void startElement( String name ) throws XMLStreamException
+    {
+        writeIndent();
+        writer.writeStartElement( name );
+        depth++;
+        hasChildElements = false;
+    }
+
+
+    /**
+     * Writes the end tag of the current element.
+     *
+     * @throws XMLStreamException
+     *      if an error occurs when writing the document
+     */
+    void endElement() throws XMLStreamException
+    {
+        depth--;
+
+        if ( hasChildElements )
+        {
+            writeIndent();
+        }
+
+        writer.writeEndElement();
+
+        // The parent element has at least this child element
+        hasChildElements = true;
+    }
+
+
+    /**
+     * Adds an attribute to the current element.
+     *
+     * @param name
+     *      the name of the attribute
+     * @param value
+     *      the value of the attribute
+     * @throws XMLStreamException
+     *      if an error occurs when writing the document
+     */
+    void addAttribute( String name, String value ) throws XMLStreamException
+    {
+        writer.writeAttribute( name, value );
+    }
+
+
+    /**
+     * Writes an element only containing the given text.
+     *
+     * @param name
+     *      the name of the element
+     * @param text
+     *      the text
+     * @throws XMLStreamException
+     *      if an error occurs when writing the document
+     */
+    void addTextElement( String name, String text ) throws XMLStreamException
+    {
+        writeIndent();
+        writer.writeStartElement( name );
+        writer.writeCharacters( text );
+        writer.writeEndElement();
+        hasChildElements = true;
+    }
+
+
+    /**
+     * Writes a new line and the indentation of the current depth.
+     *
+     * @throws XMLStreamException
+     *      if an error occurs when writing the document
+     */
+    private void writeIndent() throws XMLStreamException
+    {
+        StringBuilder sb = new StringBuilder( "\n" ); //$NON-NLS-1$
+
+        for ( int i = 0; i < depth; i++ )
+        {
+            sb.append( INDENT );
+        }
+
+        writer.writeCharacters( sb.toString() );
+    }
+}
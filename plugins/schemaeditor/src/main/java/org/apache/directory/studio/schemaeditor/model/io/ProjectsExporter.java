@@ -20,20 +20,24 @@
 package org.apache.directory.studio.schemaeditor.model.io;
 
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.apache.directory.studio.connection.core.Connection;
 import org.apache.directory.studio.schemaeditor.model.Project;
 import org.apache.directory.studio.schemaeditor.model.ProjectType;
 import org.apache.directory.studio.schemaeditor.model.Schema;
-import org.dom4j.Branch;
-import org.dom4j.Document;
-import org.dom4j.DocumentHelper;
-import org.dom4j.Element;
+import org.eclipse.osgi.util.NLS;
 
 
 /**
  * This class is used to export Project(s) into the XML Format.
+ * <p>
+ * The projects are written element by element to the output stream, without
+ * building the whole document in memory first.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -47,117 +51,216 @@ public class ProjectsExporter
     private static final String CONNECTION_TAG = "connection"; //$NON-NLS-1$
     private static final String SCHEMA_CONNECTOR_TAG = "schemaConnector"; //$NON-NLS-1$
     private static final String SCHEMA_BACKUP_TAG = "schemaBackup"; //$NON-NLS-1$
+    private static final String FILE_TAG = "file"; //$NON-NLS-1$
 
 
     /**
-     * Converts the given project to its representation
-     * in Dom4J Document.
+     * Writes the XML representation of the given project to the given
+     * output stream, in the UTF-8 encoding.
      * 
      * @param project
-     *      the project to convert
-     * @return
-     *      the corresponding Dom4j Document representation
+     *      the project to write
+     * @param outputStream
+     *      the output stream (it is not closed)
+     * @throws IOException
+     *      if an error occurs when writing the project, or if its schemas can not be loaded
      */
-    public static Document toDocument( Project project )
+    public static void write( Project project, OutputStream outputStream ) throws IOException
     {
-        // Creating the Document
-        Document document = DocumentHelper.createDocument();
-
-        // Adding the project
-        addProject( project, document );
+        // A project whose schemas can not be loaded would be written without its schemas
+        if ( !project.load() )
+        {
+            throw new IOException( NLS.bind( Messages.getString( "ProjectsExporter.NotLoaded" ), new String[] //$NON-NLS-1$
+                { project.getName() } ) );
+        }
 
-        return document;
+        try
+        {
+            IndentingXMLWriter writer = new IndentingXMLWriter( outputStream );
+            writer.startDocument();
+            writeProject( project, writer );
+            writer.endDocument();
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( e );
+        }
     }
 
 
     /**
-     * Converts the given projects to their representation
-     * in Dom4J Document.
+     * Writes the XML representation of the given projects to the given
+     * output stream, in the UTF-8 encoding.
      *
      * @param projects
-     *      the projects to convert
-     * @return
-     *      the corresponding Dom4j Document representation
+     *      the projects to write
+     * @param outputStream
+     *      the output stream (it is not closed)
+     * @throws IOException
+     *      if an error occurs when writing the projects
      */
-    public static Document toDocument( Project[] projects )
+    public static void write( Project[] projects, OutputStream outputStream ) throws IOException
     {
-        // Creating the Document
-        Document document = DocumentHelper.createDocument();
-        Element projectsElement = document.addElement( PROJECTS_TAG );
-
-        if ( projects != null )
+        try
         {
-            for ( Project project : projects )
+            IndentingXMLWriter writer = new IndentingXMLWriter( outputStream );
+            writer.startDocument();
+            writer.startElement( PROJECTS_TAG );
+
+            if ( projects != null )
             {
-                addProject( project, projectsElement );
+                for ( Project project : projects )
+                {
+                    writeProject( project, writer );
+                }
             }
-        }
 
-        return document;
+            writer.endElement();
+            writer.endDocument();
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( e );
+        }
     }
 
 
     /**
-     * Add the XML representation of the given project
-     * to the given branch
+     * Writes the projects index of the given projects to the given
+     * output stream, in the UTF-8 encoding.
+     * <p>
+     * Only the properties of the projects are written, along with the name of
+     * the file in which each project is stored. The schemas are not written.
      *
-     * @param project
-     *      the project
-     * @param branch
-     *      the branch
+     * @param projects
+     *      the projects to write
+     * @param outputStream
+     *      the output stream (it is not closed)
+     * @throws IOException
+     *      if an error occurs when writing the projects
      */
-    private static void addProject( Project project, Branch branch )
+    public static void writeIndex( Project[] projects, OutputStream outputStream ) throws IOException
     {
-        Element element = branch.addElement( PROJECT_TAG );
-
-        if ( project != null )
+        try
         {
-            // Name 
-            String name = project.getName();
-            if ( ( name != null ) && ( !name.equals( "" ) ) ) //$NON-NLS-1$
-            {
-                element.addAttribute( NAME_TAG, name );
-            }
+            IndentingXMLWriter writer = new IndentingXMLWriter( outputStream );
+            writer.startDocument();
+            writer.startElement( PROJECTS_TAG );
 
-            // Type
-            ProjectType type = project.getType();
-            if ( type != null )
+            if ( projects != null )
             {
-                element.addAttribute( TYPE_TAG, type.toString() );
-            }
+                for ( Project project : projects )
+                {
+                    writer.startElement( PROJECT_TAG );
+                    writeProjectProperties( project, writer );
 
-            // If project is an Online Schema Project
-            if ( type.equals( ProjectType.ONLINE ) )
-            {
-                // Connection ID
-                Connection connection = project.getConnection();
+                    String storageFileName = project.getStorageFileName();
+                    if ( storageFileName != null )
+                    {
+                        writer.addAttribute( FILE_TAG, storageFileName );
+                    }
 
-                if ( connection != null )
-                {
-                    element.addAttribute( CONNECTION_TAG, connection.getId() );
+                    writer.endElement();
                 }
+            }
 
-                // Schema Connection ID
-                SchemaConnector schemaConnector = project.getSchemaConnector();
+            writer.endElement();
+            writer.endDocument();
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( e );
+        }
+    }
 
-                if ( schemaConnector != null )
-                {
-                    element.addAttribute( SCHEMA_CONNECTOR_TAG, project.getSchemaConnector().getId() );
-                }
 
+    /**
+     * Writes the XML representation of the given project
+     * with the given writer.
+     *
+     * @param project
+     *      the project
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the project
+     */
+    private static void writeProject( Project project, IndentingXMLWriter writer ) throws XMLStreamException
+    {
+        writer.startElement( PROJECT_TAG );
+
+        if ( project != null )
+        {
+            writeProjectProperties( project, writer );
+
+            // If project is an Online Schema Project
+            if ( ProjectType.ONLINE.equals( project.getType() ) )
+            {
                 // Schema Backup
-                Element schemaBackupElement = element.addElement( SCHEMA_BACKUP_TAG );
+                writer.startElement( SCHEMA_BACKUP_TAG );
                 List<Schema> backupSchemas = project.getInitialSchema();
                 if ( backupSchemas != null )
                 {
-                    XMLSchemaFileExporter.addSchemas( backupSchemas.toArray( new Schema[0] ), schemaBackupElement );
+                    XMLSchemaFileExporter.writeSchemas( backupSchemas.toArray( new Schema[0] ), writer );
                 }
-
+                writer.endElement();
             }
 
             // Schemas
-            XMLSchemaFileExporter
-                .addSchemas( project.getSchemaHandler().getSchemas().toArray( new Schema[0] ), element );
+            XMLSchemaFileExporter.writeSchemas( project.getSchemaHandler().getSchemas().toArray( new Schema[0] ),
+                writer );
+        }
+
+        writer.endElement();
+    }
+
+
+    /**
+     * Writes the properties of the given project (name, type, connection
+     * and schema connector) as attributes of the current element.
+     *
+     * @param project
+     *      the project
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the properties
+     */
+    private static void writeProjectProperties( Project project, IndentingXMLWriter writer )
+        throws XMLStreamException
+    {
+        // Name 
+        String name = project.getName();
+        if ( ( name != null ) && ( !name.equals( "" ) ) ) //$NON-NLS-1$
+        {
+            writer.addAttribute( NAME_TAG, name );
+        }
+
+        // Type
+        ProjectType type = project.getType();
+        if ( type != null )
+        {
+            writer.addAttribute( TYPE_TAG, type.toString() );
+        }
+
+        // If project is an Online Schema Project
+        if ( ProjectType.ONLINE.equals( type ) )
+        {
+            // Connection ID
+            Connection connection = project.getConnection();
+
+            if ( connection != null )
+            {
+                writer.addAttribute( CONNECTION_TAG, connection.getId() );
+            }
+
+            // Schema Connection ID
+            SchemaConnector schemaConnector = project.getSchemaConnector();
+
+            if ( schemaConnector != null )
+            {
+                writer.addAttribute( SCHEMA_CONNECTOR_TAG, schemaConnector.getId() );
+            }
         }
     }
 }
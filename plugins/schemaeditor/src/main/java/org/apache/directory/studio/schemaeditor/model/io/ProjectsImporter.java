@@ -23,23 +23,23 @@ package org.apache.directory.studio.schemaeditor.model.io;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.directory.studio.schemaeditor.PluginUtils;
 import org.apache.directory.studio.schemaeditor.model.Project;
 import org.apache.directory.studio.schemaeditor.model.ProjectType;
 import org.apache.directory.studio.schemaeditor.model.Schema;
-import org.dom4j.Attribute;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Element;
-import org.dom4j.io.SAXReader;
 import org.eclipse.osgi.util.NLS;
 
 
 /**
  * This class is used to import a Project file.
+ * <p>
+ * The files are read with a {@link XMLStreamReader}, without building the whole
+ * document in memory first.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -54,13 +54,14 @@ public class ProjectsImporter
     private static final String CONNECTION_TAG = "connection"; //$NON-NLS-1$
     private static final String SCHEMA_CONNECTOR_TAG = "schemaConnector"; //$NON-NLS-1$
     private static final String SCHEMA_BACKUP_TAG = "schemaBackup"; //$NON-NLS-1$
+    private static final String FILE_TAG = "file"; //$NON-NLS-1$
 
 
     /**
      * Extract the project from the given path
      *
      * @param inputStream
-     *      the {@link InputStream} of the file
+     *      the {@link InputStream} of the file, closed once read
      * @param path
      *      the path of the file
      * @return
@@ -72,30 +73,100 @@ public class ProjectsImporter
     {
         Project project = new Project();
 
-        SAXReader reader = new SAXReader();
-        Document document = null;
         try
         {
-            document = reader.read( inputStream );
+            XMLStreamReader reader = XMLStreamUtils.createReader( inputStream );
+            try
+            {
+                checkRootElement( reader, PROJECT_TAG, path );
+                readProject( reader, project, path );
+            }
+            finally
+            {
+                reader.close();
+            }
         }
-        catch ( DocumentException e )
+        catch ( XMLStreamException e )
         {
             throw new ProjectsImportException( NLS.bind( Messages.getString( "ProjectsImporter.NotReadCorrectly" ), //$NON-NLS-1$
                 new String[]
                     { path } ) );
         }
+        finally
+        {
+            XMLStreamUtils.closeQuietly( inputStream );
+        }
+
+        return project;
+    }
 
-        Element rootElement = document.getRootElement();
-        if ( !rootElement.getName().equals( PROJECT_TAG ) )
+
+    /**
+     * Reads the schemas of the project stored at the given path into the given project.
+     * <p>
+     * The other properties of the project (name, type, connection...) are left untouched.
+     *
+     * @param inputStream
+     *      the {@link InputStream} of the file, closed once read
+     * @param path
+     *      the path of the file
+     * @param project
+     *      the project
+     * @throws ProjectsImportException 
+     *      if an error occurs when importing the project
+     */
+    public static void loadProjectSchemas( InputStream inputStream, String path, Project project )
+        throws ProjectsImportException
+    {
+        try
         {
-            throw new ProjectsImportException( NLS.bind( Messages.getString( "ProjectsImporter.NotValidProject" ), //$NON-NLS-1$
+            XMLStreamReader reader = XMLStreamUtils.createReader( inputStream );
+            try
+            {
+                checkRootElement( reader, PROJECT_TAG, path );
+                readProjectSchemas( reader, project, path );
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new ProjectsImportException( NLS.bind( Messages.getString( "ProjectsImporter.NotReadCorrectly" ), //$NON-NLS-1$
                 new String[]
                     { path } ) );
         }
+        finally
+        {
+            XMLStreamUtils.closeQuietly( inputStream );
+        }
+    }
 
-        readProject( rootElement, project, path );
 
-        return project;
+    /**
+     * Moves the reader to the root element and checks its name.
+     *
+     * @param reader
+     *      the reader
+     * @param rootTag
+     *      the expected name of the root element
+     * @param path
+     *      the path of the file
+     * @throws XMLStreamException
+     *      if an error occurs when reading the file
+     * @throws ProjectsImportException 
+     *      if the root element does not have the expected name
+     */
+    private static void checkRootElement( XMLStreamReader reader, String rootTag, String path )
+        throws XMLStreamException, ProjectsImportException
+    {
+        if ( !rootTag.equals( XMLStreamUtils.nextRootElement( reader ) ) )
+        {
+            throw new ProjectsImportException( NLS.bind( Messages.getString( "ProjectsImporter.NotValidProject" ), //$NON-NLS-1$
+                new String[]
+                    { path } ) );
+        }
     }
 
 
@@ -103,7 +174,7 @@ public class ProjectsImporter
      * Extract the projects from the given input stream
      *
      * @param inputStream
-     *      the {@link InputStream} of the file
+     *      the {@link InputStream} of the file, closed once read
      * @param path
      *      the path of the file
      * @return
@@ -115,13 +186,33 @@ public class ProjectsImporter
     {
         List<Project> projects = new ArrayList<Project>();
 
-        SAXReader reader = new SAXReader();
-        Document document = null;
         try
         {
-            document = reader.read( inputStream );
+            XMLStreamReader reader = XMLStreamUtils.createReader( inputStream );
+            try
+            {
+                checkRootElement( reader, PROJECTS_TAG, path );
+
+                while ( XMLStreamUtils.nextChildElement( reader ) )
+                {
+                    if ( reader.getLocalName().equals( PROJECT_TAG ) )
+                    {
+                        Project project = new Project();
+                        readProject( reader, project, path );
+                        projects.add( project );
+                    }
+                    else
+                    {
+                        XMLStreamUtils.skipElement( reader );
+                    }
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
         }
-        catch ( DocumentException e )
+        catch ( XMLStreamException e )
         {
             PluginUtils.logError( NLS.bind( Messages.getString( "ProjectsImporter.NotReadCorrectly" ), new String[] //$NON-NLS-1$
                 { path } ), e );
@@ -129,21 +220,84 @@ public class ProjectsImporter
                 new String[]
                     { path } ) );
         }
+        finally
+        {
+            XMLStreamUtils.closeQuietly( inputStream );
+        }
+
+        return projects.toArray( new Project[0] );
+    }
+
+
+    /**
+     * Extract the projects from the given projects index.
+     * <p>
+     * Only the properties of the projects are read, along with the name of the file
+     * in which each project is stored. The schemas of the projects which are stored
+     * in their own file are not read. The schemas of the projects without a file
+     * (written by previous versions, with all the schemas inline) are read.
+     *
+     * @param inputStream
+     *      the {@link InputStream} of the file, closed once read
+     * @param path
+     *      the path of the file
+     * @return
+     *      the corresponding projects
+     * @throws ProjectsImportException 
+     *      if an error occurs when importing the projects
+     */
+    public static Project[] getIndexedProjects( InputStream inputStream, String path ) throws ProjectsImportException
+    {
+        List<Project> projects = new ArrayList<Project>();
 
-        Element rootElement = document.getRootElement();
-        if ( !rootElement.getName().equals( PROJECTS_TAG ) )
+        try
         {
-            throw new ProjectsImportException( NLS.bind( Messages.getString( "ProjectsImporter.NotValidProject" ), //$NON-NLS-1$
+            XMLStreamReader reader = XMLStreamUtils.createReader( inputStream );
+            try
+            {
+                checkRootElement( reader, PROJECTS_TAG, path );
+
+                while ( XMLStreamUtils.nextChildElement( reader ) )
+                {
+                    if ( !reader.getLocalName().equals( PROJECT_TAG ) )
+                    {
+                        XMLStreamUtils.skipElement( reader );
+                        continue;
+                    }
+
+                    Project project = new Project();
+                    readProjectProperties( reader, project );
+
+                    String file = XMLStreamUtils.getAttribute( reader, FILE_TAG );
+                    if ( ( file != null ) && ( !file.equals( "" ) ) ) //$NON-NLS-1$
+                    {
+                        project.setStorageFileName( file );
+                        XMLStreamUtils.skipElement( reader );
+                    }
+                    else
+                    {
+                        readProjectSchemas( reader, project, path );
+                    }
+
+                    projects.add( project );
+                }
+            }
+            finally
+            {
+                reader.close();
+            }
+        }
+        catch ( XMLStreamException e )
+        {
+            PluginUtils.logError( NLS.bind( Messages.getString( "ProjectsImporter.NotReadCorrectly" ), new String[] //$NON-NLS-1$
+                { path } ), e );
+            throw new ProjectsImportException( NLS.bind( Messages.getString( "ProjectsImporter.NotReadCorrectly" ), //$NON-NLS-1$
                 new String[]
                     { path } ) );
         }
-
-        for ( Iterator<?> i = rootElement.elementIterator( PROJECT_TAG ); i.hasNext(); )
+        finally
         {
-            Element projectElement = ( Element ) i.next();
-            Project project = new Project();
-            readProject( projectElement, project, path );
-            projects.add( project );
+            XMLStreamUtils.closeQuietly( inputStream );
         }
 
         return projects.toArray( new Project[0] );
@@ -153,31 +307,52 @@ public class ProjectsImporter
     /**
      * Reads a project.
      *
-     * @param element
-     *      the element
+     * @param reader
+     *      the reader, positioned on the start tag of the project element
      * @param project
      *      the project
      * @param path
      *      the path
      * @throws ProjectsImportException 
      *      if an error occurs when importing the project
+     * @throws XMLStreamException
+     *      if an error occurs when reading the file
      */
-    private static void readProject( Element element, Project project, String path ) throws ProjectsImportException
+    private static void readProject( XMLStreamReader reader, Project project, String path )
+        throws ProjectsImportException, XMLStreamException
+    {
+        readProjectProperties( reader, project );
+        readProjectSchemas( reader, project, path );
+    }
+
+
+    /**
+     * Reads the properties of a project (name, type, connection and schema connector).
+     *
+     * @param reader
+     *      the reader, positioned on the start tag of the project element
+     * @param project
+     *      the project
+     * @throws ProjectsImportException 
+     *      if an error occurs when importing the project
+     */
+    private static void readProjectProperties( XMLStreamReader reader, Project project )
+        throws ProjectsImportException
     {
         // Name
-        Attribute nameAttribute = element.attribute( NAME_TAG );
-        if ( ( nameAttribute != null ) && ( !nameAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String name = XMLStreamUtils.getAttribute( reader, NAME_TAG );
+        if ( ( name != null ) && ( !name.equals( "" ) ) ) //$NON-NLS-1$
         {
-            project.setName( nameAttribute.getValue() );
+            project.setName( name );
         }
 
         // Type
-        Attribute typeAttribute = element.attribute( TYPE_TAG );
-        if ( ( typeAttribute != null ) && ( !typeAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String type = XMLStreamUtils.getAttribute( reader, TYPE_TAG );
+        if ( ( type != null ) && ( !type.equals( "" ) ) ) //$NON-NLS-1$
         {
             try
             {
-                project.setType( ProjectType.valueOf( typeAttribute.getValue() ) );
+                project.setType( ProjectType.valueOf( type ) );
             }
             catch ( IllegalArgumentException e )
             {
@@ -189,18 +364,16 @@ public class ProjectsImporter
         if ( project.getType().equals( ProjectType.ONLINE ) )
         {
             // Connection
-            Attribute connectionAttribute = element.attribute( CONNECTION_TAG );
-            if ( ( connectionAttribute != null ) && ( !connectionAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+            String connection = XMLStreamUtils.getAttribute( reader, CONNECTION_TAG );
+            if ( ( connection != null ) && ( !connection.equals( "" ) ) ) //$NON-NLS-1$
             {
-                project.setConnection( PluginUtils.getConnection( connectionAttribute.getValue() ) );
+                project.setConnection( PluginUtils.getConnection( connection ) );
             }
 
             // Schema Connector
-            Attribute schemaConnectorAttribute = element.attribute( SCHEMA_CONNECTOR_TAG );
-            if ( ( schemaConnectorAttribute != null ) && ( !schemaConnectorAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+            String schemaConnectorId = XMLStreamUtils.getAttribute( reader, SCHEMA_CONNECTOR_TAG );
+            if ( ( schemaConnectorId != null ) && ( !schemaConnectorId.equals( "" ) ) ) //$NON-NLS-1$
             {
-                String schemaConnectorId = schemaConnectorAttribute.getValue();
-
                 SchemaConnector schemaConnector = null;
                 List<SchemaConnector> schemaConnectors = PluginUtils.getSchemaConnectors();
                 for ( SchemaConnector sc : schemaConnectors )
@@ -220,54 +393,97 @@ public class ProjectsImporter
 
                 project.setSchemaConnector( schemaConnector );
             }
+        }
+    }
 
-            // SchemaBackup
-            Element schemaBackupElement = element.element( SCHEMA_BACKUP_TAG );
-            if ( schemaBackupElement != null )
+
+    /**
+     * Reads the schemas of a project (including the schema backup of an Online Schema Project).
+     *
+     * @param reader
+     *      the reader, positioned on the start tag of the project element
+     *      (it is left positioned on the end tag of this element)
+     * @param project
+     *      the project
+     * @param path
+     *      the path
+     * @throws ProjectsImportException 
+     *      if an error occurs when importing the project
+     * @throws XMLStreamException
+     *      if an error occurs when reading the file
+     */
+    private static void readProjectSchemas( XMLStreamReader reader, Project project, String path )
+        throws ProjectsImportException, XMLStreamException
+    {
+        while ( XMLStreamUtils.nextChildElement( reader ) )
+        {
+            String elementName = reader.getLocalName();
+
+            if ( elementName.equals( SCHEMA_BACKUP_TAG ) && project.getType().equals( ProjectType.ONLINE ) )
             {
-                Element schemasElement = schemaBackupElement.element( SCHEMAS_TAG );
-                if ( schemasElement != null )
+                // SchemaBackup
+                while ( XMLStreamUtils.nextChildElement( reader ) )
                 {
-                    Schema[] schemas = null;
-                    try
+                    if ( reader.getLocalName().equals( SCHEMAS_TAG ) )
                     {
-                        schemas = XMLSchemaFileImporter.readSchemas( schemasElement, path );
+                        Schema[] schemas = readSchemas( reader, path );
                         for ( Schema schema : schemas )
                         {
                             schema.setProject( project );
                         }
+
+                        project.setInitialSchema( Arrays.asList( schemas ) );
                     }
-                    catch ( XMLSchemaFileImportException e )
+                    else
                     {
-                        throw new ProjectsImportException( Messages.getString( "ProjectsImporter.NotConvertableSchema" ) ); //$NON-NLS-1$
+                        XMLStreamUtils.skipElement( reader );
                     }
-
-                    project.setInitialSchema( Arrays.asList( schemas ) );
                 }
             }
-        }
-
-        // Schemas
-        Element schemasElement = element.element( SCHEMAS_TAG );
-        if ( schemasElement != null )
-        {
-            Schema[] schemas = null;
-            try
-            {
-                schemas = XMLSchemaFileImporter.readSchemas( schemasElement, path );
-            }
-            catch ( XMLSchemaFileImportException e )
+            else if ( elementName.equals( SCHEMAS_TAG ) )
             {
-                throw new ProjectsImportException( Messages.getString( "ProjectsImporter.NotConvertableSchema" ) ); //$NON-NLS-1$
+                // Schemas
+                for ( Schema schema : readSchemas( reader, path ) )
+                {
+                    schema.setProject( project );
+                    project.getSchemaHandler().addSchema( schema );
+                }
             }
-            for ( Schema schema : schemas )
+            else
             {
-                schema.setProject( project );
-                project.getSchemaHandler().addSchema( schema );
+                XMLStreamUtils.skipElement( reader );
             }
         }
     }
 
+
+    /**
+     * Reads the schemas of the 'schemas' element.
+     *
+     * @param reader
+     *      the reader, positioned on the start tag of the 'schemas' element
+     * @param path
+     *      the path
+     * @return
+     *      the schemas
+     * @throws ProjectsImportException 
+     *      if the schemas could not be converted
+     * @throws XMLStreamException
+     *      if an error occurs when reading the file
+     */
+    private static Schema[] readSchemas( XMLStreamReader reader, String path ) throws ProjectsImportException,
+        XMLStreamException
+    {
+        try
+        {
+            return XMLSchemaFileImporter.readSchemas( reader, path );
+        }
+        catch ( XMLSchemaFileImportException e )
+        {
+            throw new ProjectsImportException( Messages.getString( "ProjectsImporter.NotConvertableSchema" ) ); //$NON-NLS-1$
+        }
+    }
+
     /**
      * This enum represents the different types of project files.
      *
@@ -281,9 +497,11 @@ public class ProjectsImporter
 
     /**
      * Gets the type of file.
+     * <p>
+     * Only the prolog and the start tag of the root element are read.
      *
      * @param inputStream
-     *      the {@link InputStream} of the file
+     *      the {@link InputStream} of the file, closed once read
      * @param path
      *      the path of the file
      * @return
@@ -293,25 +511,35 @@ public class ProjectsImporter
     public static ProjectFileType getProjectFileType( InputStream inputStream, String path )
         throws ProjectsImportException
     {
-        SAXReader reader = new SAXReader();
-        Document document = null;
+        String rootElementName = null;
         try
         {
-            document = reader.read( inputStream );
+            XMLStreamReader reader = XMLStreamUtils.createReader( inputStream );
+            try
+            {
+                rootElementName = XMLStreamUtils.nextRootElement( reader );
+            }
+            finally
+            {
+                reader.close();
+            }
         }
-        catch ( DocumentException e )
+        catch ( XMLStreamException e )
         {
             throw new ProjectsImportException( NLS.bind( Messages.getString( "ProjectsImporter.NotReadCorrectly" ), //$NON-NLS-1$
                 new String[]
                     { path } ) );
         }
+        finally
+        {
+            XMLStreamUtils.closeQuietly( inputStream );
+        }
 
-        Element rootElement = document.getRootElement();
-        if ( rootElement.getName().equals( PROJECT_TAG ) )
+        if ( PROJECT_TAG.equals( rootElementName ) )
         {
             return ProjectFileType.SINGLE;
         }
-        else if ( rootElement.getName().equals( PROJECTS_TAG ) )
+        else if ( PROJECTS_TAG.equals( rootElementName ) )
         {
             return ProjectFileType.MULTIPLE;
         }
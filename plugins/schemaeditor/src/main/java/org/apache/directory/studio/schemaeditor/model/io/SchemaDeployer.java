@@ -0,0 +1,714 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.schemaeditor.model.io;
+
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.collections4.MultiValuedMap;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
+import org.apache.directory.api.ldap.model.entry.DefaultModification;
+import org.apache.directory.api.ldap.model.entry.Modification;
+import org.apache.directory.api.ldap.model.entry.ModificationOperation;
+import org.apache.directory.api.ldap.model.exception.LdapInvalidDnException;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.api.ldap.model.schema.SchemaObjectRenderer;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.io.ConnectionWrapper;
+import org.apache.directory.studio.schemaeditor.model.DependenciesComputer;
+import org.apache.directory.studio.schemaeditor.model.DependenciesComputer.DependencyComputerException;
+import org.apache.directory.studio.schemaeditor.model.Project;
+import org.apache.directory.studio.schemaeditor.model.Schema;
+import org.apache.directory.studio.schemaeditor.model.difference.DifferenceType;
+import org.apache.directory.studio.schemaeditor.model.io.SchemaDeploymentItem.DeploymentStatus;
+import org.eclipse.core.runtime.IProgressMonitor;
+
+
+/**
+ * This class deploys the schema of a project to the subschema subentry of a server.
+ * <p>
+ * The attribute types and object classes of the project are compared with the schema 
+ * of the server, as fetched when the project was created. The changed elements are 
+ * grouped in waves: an element is only deployed in a wave following the waves of the 
+ * changed elements it depends on, added and modified elements first, then the removed 
+ * elements in the reverse order. The elements of a wave are independent from each other, 
+ * they are sent in as few modify operations as allowed by the maximum number of values 
+ * per operation.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaDeployer
+{
+    /** The default maximum number of values added to or deleted from the subschema subentry by one operation */
+    public static final int DEFAULT_MAX_VALUES_PER_OPERATION = 100;
+
+    /**
+     * The modify operation of the subschema subentry.
+     */
+    interface ModifyOperation
+    {
+        /**
+         * Modifies the subschema subentry.
+         *
+         * @param dn
+         *      the DN of the subschema subentry
+         * @param modifications
+         *      the modifications
+         * @return
+         *      the error, null if the modifications have been applied
+         */
+        Exception modify( Dn dn, List<Modification> modifications );
+    }
+
+    /** The items to deploy */
+    private List<SchemaDeploymentItem> items = new ArrayList<SchemaDeploymentItem>();
+
+    /** The items, grouped in waves of independent items */
+    private List<List<SchemaDeploymentItem>> waves = new ArrayList<List<SchemaDeploymentItem>>();
+
+    /** The maximum number of values added or deleted by one operation */
+    private int maxValuesPerOperation = DEFAULT_MAX_VALUES_PER_OPERATION;
+
+
+    /**
+     * Creates a new instance of SchemaDeployer.
+     *
+     * @param initialSchemas
+     *      the schemas of the server, may be null
+     * @param schemas
+     *      the schemas of the project
+     * @throws DependencyComputerException
+     *      if the schemas contain unresolvable dependencies
+     */
+    public SchemaDeployer( List<Schema> initialSchemas, List<Schema> schemas ) throws DependencyComputerException
+    {
+        if ( initialSchemas == null )
+        {
+            initialSchemas = new ArrayList<Schema>();
+        }
+
+        List<AttributeType> initialAttributeTypes = new ArrayList<AttributeType>();
+        List<ObjectClass> initialObjectClasses = new ArrayList<ObjectClass>();
+        for ( Schema schema : initialSchemas )
+        {
+            initialAttributeTypes.addAll( schema.getAttributeTypes() );
+            initialObjectClasses.addAll( schema.getObjectClasses() );
+        }
+
+        List<AttributeType> attributeTypes = new ArrayList<AttributeType>();
+        List<ObjectClass> objectClasses = new ArrayList<ObjectClass>();
+        for ( Schema schema : schemas )
+        {
+            attributeTypes.addAll( schema.getAttributeTypes() );
+            objectClasses.addAll( schema.getObjectClasses() );
+        }
+
+        // Comparing the elements, the subschema subentry does not know about schemas
+        Map<SchemaObject, SchemaDeploymentItem> updatedItems = new IdentityHashMap<SchemaObject, SchemaDeploymentItem>();
+        Map<SchemaObject, SchemaDeploymentItem> removedItems = new IdentityHashMap<SchemaObject, SchemaDeploymentItem>();
+        computeItems( initialAttributeTypes, attributeTypes, SchemaConstants.ATTRIBUTE_TYPES_AT, updatedItems,
+            removedItems );
+        computeItems( initialObjectClasses, objectClasses, SchemaConstants.OBJECT_CLASSES_AT, updatedItems,
+            removedItems );
+
+        // An added or modified element is deployed after the added or modified elements it depends on
+        DependenciesComputer dependenciesComputer = new DependenciesComputer( schemas );
+        addPrerequisites( dependenciesComputer.getAttributeTypesDependencies(), updatedItems, false );
+        addPrerequisites( dependenciesComputer.getObjectClassesDependencies(), updatedItems, false );
+
+        // A removed element is removed after the removed elements depending on it
+        if ( !removedItems.isEmpty() )
+        {
+            DependenciesComputer initialDependenciesComputer = new DependenciesComputer( initialSchemas );
+            addPrerequisites( initialDependenciesComputer.getAttributeTypesDependencies(), removedItems, true );
+            addPrerequisites( initialDependenciesComputer.getObjectClassesDependencies(), removedItems, true );
+        }
+
+        List<SchemaDeploymentItem> updates = new ArrayList<SchemaDeploymentItem>();
+        List<SchemaDeploymentItem> removals = new ArrayList<SchemaDeploymentItem>();
+        for ( SchemaDeploymentItem item : items )
+        {
+            if ( item.getType() == DifferenceType.REMOVED )
+            {
+                removals.add( item );
+            }
+            else
+            {
+                updates.add( item );
+            }
+        }
+
+        waves.addAll( groupInWaves( updates ) );
+        waves.addAll( groupInWaves( removals ) );
+    }
+
+
+    /**
+     * Computes the items for the given elements of the server and of the project.
+     *
+     * @param initialObjects
+     *      the elements of the server
+     * @param objects
+     *      the elements of the project
+     * @param attributeId
+     *      the subschema subentry attribute holding the elements
+     * @param updatedItems
+     *      the map receiving the added and modified items, by element of the project
+     * @param removedItems
+     *      the map receiving the removed items, by element of the server
+     */
+    private void computeItems( List<? extends SchemaObject> initialObjects, List<? extends SchemaObject> objects,
+        String attributeId, Map<SchemaObject, SchemaDeploymentItem> updatedItems,
+        Map<SchemaObject, SchemaDeploymentItem> removedItems )
+    {
+        Map<String, SchemaObject> initialObjectsMap = new LinkedHashMap<String, SchemaObject>();
+        for ( SchemaObject initialObject : initialObjects )
+        {
+            initialObjectsMap.put( Strings.toLowerCase( initialObject.getOid() ), initialObject );
+        }
+
+        for ( SchemaObject object : objects )
+        {
+            String value = render( object );
+            SchemaObject initialObject = initialObjectsMap.remove( Strings.toLowerCase( object.getOid() ) );
+
+            if ( initialObject == null )
+            {
+                SchemaDeploymentItem item = new SchemaDeploymentItem( DifferenceType.ADDED, null, object,
+                    attributeId, null, value );
+                items.add( item );
+                updatedItems.put( object, item );
+            }
+            else
+            {
+                String initialValue = render( initialObject );
+
+                if ( !initialValue.equals( value ) )
+                {
+                    SchemaDeploymentItem item = new SchemaDeploymentItem( DifferenceType.MODIFIED, initialObject,
+                        object, attributeId, initialValue, value );
+                    items.add( item );
+                    updatedItems.put( object, item );
+                }
+            }
+        }
+
+        for ( SchemaObject initialObject : initialObjectsMap.values() )
+        {
+            SchemaDeploymentItem item = new SchemaDeploymentItem( DifferenceType.REMOVED, initialObject, null,
+                attributeId, render( initialObject ), null );
+            items.add( item );
+            removedItems.put( initialObject, item );
+        }
+    }
+
+
+    /**
+     * Renders the given element as a value of the subschema subentry.
+     *
+     * @param object
+     *      the attribute type or object class
+     * @return
+     *      the value
+     */
+    private static String render( SchemaObject object )
+    {
+        if ( object instanceof AttributeType )
+        {
+            return SchemaObjectRenderer.SUBSCHEMA_SUBENTRY_RENDERER.render( ( AttributeType ) object );
+        }
+        else
+        {
+            return SchemaObjectRenderer.SUBSCHEMA_SUBENTRY_RENDERER.render( ( ObjectClass ) object );
+        }
+    }
+
+
+    /**
+     * Adds the prerequisites of the items from the given dependencies.
+     *
+     * @param dependencies
+     *      the dependencies, as computed by the DependenciesComputer
+     * @param itemsMap
+     *      the items, by element
+     * @param reverse
+     *      true if an element must be deployed before the elements it depends on
+     */
+    private static void addPrerequisites( MultiValuedMap<?, ?> dependencies,
+        Map<SchemaObject, SchemaDeploymentItem> itemsMap, boolean reverse )
+    {
+        for ( Map.Entry<?, ?> dependency : dependencies.entries() )
+        {
+            SchemaDeploymentItem dependentItem = itemsMap.get( dependency.getKey() );
+            SchemaDeploymentItem dependencyItem = itemsMap.get( dependency.getValue() );
+
+            if ( ( dependentItem != null ) && ( dependencyItem != null ) )
+            {
+                if ( reverse )
+                {
+                    dependencyItem.addPrerequisite( dependentItem );
+                }
+                else
+                {
+                    dependentItem.addPrerequisite( dependencyItem );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Groups the given items in waves, each item being placed in the wave following 
+     * the waves of its prerequisites.
+     *
+     * @param items
+     *      the items
+     * @return
+     *      the waves
+     */
+    private static List<List<SchemaDeploymentItem>> groupInWaves( List<SchemaDeploymentItem> items )
+    {
+        Map<SchemaDeploymentItem, Integer> levels = new IdentityHashMap<SchemaDeploymentItem, Integer>();
+        List<List<SchemaDeploymentItem>> waves = new ArrayList<List<SchemaDeploymentItem>>();
+
+        for ( SchemaDeploymentItem item : items )
+        {
+            int level = getLevel( item, levels );
+
+            while ( waves.size() <= level )
+            {
+                waves.add( new ArrayList<SchemaDeploymentItem>() );
+            }
+
+            waves.get( level ).add( item );
+        }
+
+        return waves;
+    }
+
+
+    /**
+     * Gets the level of the given item, that is the length of the longest chain of 
+     * prerequisites leading to it.
+     *
+     * @param item
+     *      the item
+     * @param levels
+     *      the already computed levels
+     * @return
+     *      the level of the item
+     */
+    private static int getLevel( SchemaDeploymentItem item, Map<SchemaDeploymentItem, Integer> levels )
+    {
+        Integer level = levels.get( item );
+
+        if ( level != null )
+        {
+            return level;
+        }
+
+        // Breaks dependency cycles, the server will reject the elements anyway
+        levels.put( item, 0 );
+
+        int itemLevel = 0;
+        for ( SchemaDeploymentItem prerequisite : item.getPrerequisites() )
+        {
+            itemLevel = Math.max( itemLevel, getLevel( prerequisite, levels ) + 1 );
+        }
+
+        levels.put( item, itemLevel );
+
+        return itemLevel;
+    }
+
+
+    /**
+     * Splits the given items of a wave into batches sent in a single modify operation.
+     *
+     * @param items
+     *      the items
+     * @param maxValuesPerOperation
+     *      the maximum number of values added or deleted by one operation
+     * @return
+     *      the batches
+     */
+    static List<List<SchemaDeploymentItem>> getBatches( List<SchemaDeploymentItem> items, int maxValuesPerOperation )
+    {
+        List<List<SchemaDeploymentItem>> batches = new ArrayList<List<SchemaDeploymentItem>>();
+        List<SchemaDeploymentItem> batch = new ArrayList<SchemaDeploymentItem>();
+        int valueCount = 0;
+
+        for ( SchemaDeploymentItem item : items )
+        {
+            if ( ( !batch.isEmpty() ) && ( valueCount + item.getValueCount() > maxValuesPerOperation ) )
+            {
+                batches.add( batch );
+                batch = new ArrayList<SchemaDeploymentItem>();
+                valueCount = 0;
+            }
+
+            batch.add( item );
+            valueCount += item.getValueCount();
+        }
+
+        if ( !batch.isEmpty() )
+        {
+            batches.add( batch );
+        }
+
+        return batches;
+    }
+
+
+    /**
+     * Deploys the items to the given subschema subentry. Items whose prerequisites could 
+     * not be deployed are skipped, the result of each item is available from its status.
+     * <p>
+     * The connection wrapper does not support concurrent operations, the modify operations 
+     * are sent one after the other.
+     *
+     * @param wrapper
+     *      the connection wrapper
+     * @param subschemaSubentry
+     *      the DN of the subschema subentry
+     * @param monitor
+     *      the progress monitor
+     * @throws SchemaConnectorException
+     *      if the deployment could not be executed
+     */
+    public void deploy( final ConnectionWrapper wrapper, String subschemaSubentry, StudioProgressMonitor monitor )
+        throws SchemaConnectorException
+    {
+        Dn dn;
+        try
+        {
+            dn = new Dn( subschemaSubentry );
+        }
+        catch ( LdapInvalidDnException e )
+        {
+            throw new SchemaConnectorException( e );
+        }
+
+        // one reusable monitor for the errors of the operations
+        final StudioProgressMonitor operationMonitor = new StudioProgressMonitor( monitor );
+
+        deploy( dn, new ModifyOperation()
+        {
+            public Exception modify( Dn subentryDn, List<Modification> modifications )
+            {
+                operationMonitor.reset();
+                wrapper.modifyEntry( subentryDn, modifications, null, operationMonitor, null );
+
+                if ( !operationMonitor.errorsReported() )
+                {
+                    return null;
+                }
+
+                Exception exception = operationMonitor.getException();
+
+                if ( exception == null )
+                {
+                    exception = new Exception( operationMonitor.getErrorStatus( "" ).getMessage() ); //$NON-NLS-1$
+                }
+
+                return exception;
+            }
+        }, monitor );
+    }
+
+
+    /**
+     * Deploys the items to the given subschema subentry using the given modify operation.
+     *
+     * @param dn
+     *      the DN of the subschema subentry
+     * @param operation
+     *      the modify operation
+     * @param monitor
+     *      the progress monitor
+     */
+    void deploy( Dn dn, ModifyOperation operation, IProgressMonitor monitor )
+    {
+        monitor.beginTask( Messages.getString( "SchemaDeployer.DeployingSchema" ), items.size() ); //$NON-NLS-1$
+
+        for ( List<SchemaDeploymentItem> wave : waves )
+        {
+            if ( monitor.isCanceled() )
+            {
+                break;
+            }
+
+            List<SchemaDeploymentItem> readyItems = new ArrayList<SchemaDeploymentItem>();
+            for ( SchemaDeploymentItem item : wave )
+            {
+                if ( arePrerequisitesDeployed( item ) )
+                {
+                    readyItems.add( item );
+                }
+                else
+                {
+                    item.setStatus( DeploymentStatus.SKIPPED, null );
+                    monitor.worked( 1 );
+                }
+            }
+
+            // the next wave depends on the results of this one
+            for ( List<SchemaDeploymentItem> batch : getBatches( readyItems, maxValuesPerOperation ) )
+            {
+                deploy( dn, batch, operation, monitor );
+                monitor.worked( batch.size() );
+            }
+        }
+    }
+
+
+    /**
+     * Checks if the prerequisites of the given item have been deployed.
+     *
+     * @param item
+     *      the item
+     * @return
+     *      true if all the prerequisites have been deployed
+     */
+    private static boolean arePrerequisitesDeployed( SchemaDeploymentItem item )
+    {
+        for ( SchemaDeploymentItem prerequisite : item.getPrerequisites() )
+        {
+            if ( prerequisite.getStatus() != DeploymentStatus.DEPLOYED )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Deploys the given batch of items with a single modify operation.
+     *
+     * @param dn
+     *      the DN of the subschema subentry
+     * @param batch
+     *      the items
+     * @param operation
+     *      the modify operation
+     * @param monitor
+     *      the progress monitor
+     */
+    private static void deploy( Dn dn, List<SchemaDeploymentItem> batch, ModifyOperation operation,
+        IProgressMonitor monitor )
+    {
+        if ( monitor.isCanceled() )
+        {
+            return;
+        }
+
+        Exception exception = operation.modify( dn, getModifications( batch ) );
+
+        if ( exception == null )
+        {
+            for ( SchemaDeploymentItem item : batch )
+            {
+                item.setStatus( DeploymentStatus.DEPLOYED, null );
+            }
+        }
+        else if ( batch.size() == 1 )
+        {
+            batch.get( 0 ).setStatus( DeploymentStatus.FAILED, exception );
+        }
+        else
+        {
+            // The modify operation is atomic, none of the items has been deployed: 
+            // deploying them one by one tells which of them are rejected
+            for ( SchemaDeploymentItem item : batch )
+            {
+                deploy( dn, Collections.singletonList( item ), operation, monitor );
+            }
+        }
+    }
+
+
+    /**
+     * Gets the modifications of the subschema subentry deploying the given items. The old 
+     * value of a modified element is deleted just before its new value is added.
+     *
+     * @param batch
+     *      the items
+     * @return
+     *      the modifications
+     */
+    private static List<Modification> getModifications( List<SchemaDeploymentItem> batch )
+    {
+        List<Modification> modifications = new ArrayList<Modification>();
+
+        for ( SchemaDeploymentItem item : batch )
+        {
+            if ( item.getInitialValue() != null )
+            {
+                modifications.add( new DefaultModification( ModificationOperation.REMOVE_ATTRIBUTE, item
+                    .getAttributeId(), item.getInitialValue() ) );
+            }
+
+            if ( item.getValue() != null )
+            {
+                modifications.add( new DefaultModification( ModificationOperation.ADD_ATTRIBUTE, item
+                    .getAttributeId(), item.getValue() ) );
+            }
+        }
+
+        return modifications;
+    }
+
+
+    /**
+     * Applies the deployed items to the initial schema of the given project, so it 
+     * reflects the schema of the server again.
+     *
+     * @param project
+     *      the project
+     */
+    public void updateInitialSchema( Project project )
+    {
+        List<Schema> initialSchemas = project.getInitialSchema();
+
+        if ( initialSchemas == null )
+        {
+            initialSchemas = new ArrayList<Schema>();
+        }
+
+        for ( SchemaDeploymentItem item : items )
+        {
+            if ( item.getStatus() != DeploymentStatus.DEPLOYED )
+            {
+                continue;
+            }
+
+            SchemaObject initialObject = item.getInitialObject();
+            if ( initialObject != null )
+            {
+                for ( Schema schema : initialSchemas )
+                {
+                    if ( initialObject instanceof AttributeType )
+                    {
+                        schema.removeAttributeType( ( AttributeType ) initialObject );
+                    }
+                    else
+                    {
+                        schema.removeObjectClass( ( ObjectClass ) initialObject );
+                    }
+                }
+            }
+
+            SchemaObject object = item.getObject();
+            if ( object != null )
+            {
+                Schema schema = getSchema( initialSchemas, object.getSchemaName(), project );
+
+                if ( object instanceof AttributeType )
+                {
+                    schema.addAttributeType( ( ( AttributeType ) object ).copy() );
+                }
+                else
+                {
+                    schema.addObjectClass( ( ( ObjectClass ) object ).copy() );
+                }
+            }
+        }
+
+        project.setInitialSchema( initialSchemas );
+    }
+
+
+    /**
+     * Gets the schema with the given name, creating it if needed.
+     *
+     * @param schemas
+     *      the schemas
+     * @param schemaName
+     *      the name of the schema
+     * @param project
+     *      the project of the schemas
+     * @return
+     *      the schema
+     */
+    private static Schema getSchema( List<Schema> schemas, String schemaName, Project project )
+    {
+        for ( Schema schema : schemas )
+        {
+            if ( schema.getSchemaName().equalsIgnoreCase( schemaName ) )
+            {
+                return schema;
+            }
+        }
+
+        Schema schema = new Schema( schemaName );
+        schema.setProject( project );
+        schemas.add( schema );
+
+        return schema;
+    }
+
+
+    /**
+     * Gets the items to deploy.
+     *
+     * @return
+     *      the items
+     */
+    public List<SchemaDeploymentItem> getItems()
+    {
+        return items;
+    }
+
+
+    /**
+     * Gets the items grouped in waves. The items of a wave do not depend on each other.
+     *
+     * @return
+     *      the waves
+     */
+    public List<List<SchemaDeploymentItem>> getWaves()
+    {
+        return waves;
+    }
+
+
+    /**
+     * Sets the maximum number of values added to or deleted from the subschema subentry 
+     * by one operation.
+     *
+     * @param maxValuesPerOperation
+     *      the maximum number of values
+     */
+    public void setMaxValuesPerOperation( int maxValuesPerOperation )
+    {
+        this.maxValuesPerOperation = maxValuesPerOperation;
+    }
+}
@@ -0,0 +1,289 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.schemaeditor.model.io;
+
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.studio.schemaeditor.model.difference.DifferenceType;
+
+
+/**
+ * This class represents a schema element to deploy to the subschema subentry of a server, 
+ * together with the result of its deployment.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaDeploymentItem
+{
+    /**
+     * This enum represents the status of the deployment of a schema element.
+     */
+    public enum DeploymentStatus
+    {
+        /** The element has not been sent to the server yet */
+        PENDING,
+
+        /** The element has been deployed */
+        DEPLOYED,
+
+        /** The server rejected the element */
+        FAILED,
+
+        /** The element has not been sent because an element it depends on could not be deployed */
+        SKIPPED
+    }
+
+    /** The type of the change (ADDED, MODIFIED or REMOVED) */
+    private DifferenceType type;
+
+    /** The schema element as known by the server, null for added elements */
+    private SchemaObject initialObject;
+
+    /** The schema element of the project, null for removed elements */
+    private SchemaObject object;
+
+    /** The subschema subentry attribute holding the element (attributeTypes or objectClasses) */
+    private String attributeId;
+
+    /** The value to delete from the subschema subentry, null for added elements */
+    private String initialValue;
+
+    /** The value to add to the subschema subentry, null for removed elements */
+    private String value;
+
+    /** The items that must be deployed before this one */
+    private List<SchemaDeploymentItem> prerequisites = new ArrayList<SchemaDeploymentItem>();
+
+    /** The status */
+    private DeploymentStatus status = DeploymentStatus.PENDING;
+
+    /** The error returned by the server, if the deployment failed */
+    private Exception exception;
+
+
+    /**
+     * Creates a new instance of SchemaDeploymentItem.
+     *
+     * @param type
+     *      the type of the change
+     * @param initialObject
+     *      the schema element as known by the server, null for added elements
+     * @param object
+     *      the schema element of the project, null for removed elements
+     * @param attributeId
+     *      the subschema subentry attribute holding the element
+     * @param initialValue
+     *      the value to delete, null for added elements
+     * @param value
+     *      the value to add, null for removed elements
+     */
+    public SchemaDeploymentItem( DifferenceType type, SchemaObject initialObject, SchemaObject object,
+        String attributeId, String initialValue, String value )
+    {
+        this.type = type;
+        this.initialObject = initialObject;
+        this.object = object;
+        this.attributeId = attributeId;
+        this.initialValue = initialValue;
+        this.value = value;
+    }
+
+
+    /**
+     * Gets the type of the change.
+     *
+     * @return
+     *      the type of the change
+     */
+    public DifferenceType getType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Gets the schema element as known by the server.
+     *
+     * @return
+     *      the schema element as known by the server, null for added elements
+     */
+    public SchemaObject getInitialObject()
+    {
+        return initialObject;
+    }
+
+
+    /**
+     * Gets the schema element of the project.
+     *
+     * @return
+     *      the schema element of the project, null for removed elements
+     */
+    public SchemaObject getObject()
+    {
+        return object;
+    }
+
+
+    /**
+     * Gets the name of the element, or its OID if it has no name.
+     *
+     * @return
+     *      the name of the element
+     */
+    public String getDisplayName()
+    {
+        SchemaObject schemaObject = ( object != null ) ? object : initialObject;
+        String name = schemaObject.getName();
+
+        if ( ( name != null ) && ( !name.equals( "" ) ) ) //$NON-NLS-1$
+        {
+            return name;
+        }
+
+        return schemaObject.getOid();
+    }
+
+
+    /**
+     * Gets the subschema subentry attribute holding the element.
+     *
+     * @return
+     *      the attribute ID
+     */
+    public String getAttributeId()
+    {
+        return attributeId;
+    }
+
+
+    /**
+     * Gets the value to delete from the subschema subentry.
+     *
+     * @return
+     *      the value to delete, null for added elements
+     */
+    public String getInitialValue()
+    {
+        return initialValue;
+    }
+
+
+    /**
+     * Gets the value to add to the subschema subentry.
+     *
+     * @return
+     *      the value to add, null for removed elements
+     */
+    public String getValue()
+    {
+        return value;
+    }
+
+
+    /**
+     * Gets the number of values this item adds to or deletes from the subschema subentry.
+     *
+     * @return
+     *      the number of values
+     */
+    public int getValueCount()
+    {
+        return ( ( initialValue != null ) ? 1 : 0 ) + ( ( value != null ) ? 1 : 0 );
+    }
+
+
+    /**
+     * Gets the items that must be deployed before this one.
+     *
+     * @return
+     *      the prerequisites
+     */
+    public List<SchemaDeploymentItem> getPrerequisites()
+    {
+        return prerequisites;
+    }
+
+
+    /**
+     * Adds an item that must be deployed before this one.
+     *
+     * @param item
+     *      the prerequisite
+     */
+    void addPrerequisite( SchemaDeploymentItem item )
+    {
+        if ( ( item != this ) && ( !prerequisites.contains( item ) ) )
+        {
+            prerequisites.add( item );
+        }
+    }
+
+
+    /**
+     * Gets the status.
+     *
+     * @return
+     *      the status
+     */
+    public DeploymentStatus getStatus()
+    {
+        return status;
+    }
+
+
+    /**
+     * Gets the error returned by the server.
+     *
+     * @return
+     *      the error, or null if the deployment did not fail
+     */
+    public Exception getException()
+    {
+        return exception;
+    }
+
+
+    /**
+     * Sets the status and the error of the deployment.
+     *
+     * @param status
+     *      the status
+     * @param exception
+     *      the error, may be null
+     */
+    void setStatus( DeploymentStatus status, Exception exception )
+    {
+        this.status = status;
+        this.exception = exception;
+    }
+
+
+    /**
+     * {@inheritDoc}
+     */
+    public String toString()
+    {
+        return type + " " + getDisplayName(); //$NON-NLS-1$
+    }
+}
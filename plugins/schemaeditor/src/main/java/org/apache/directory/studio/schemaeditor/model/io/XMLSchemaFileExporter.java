@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.util.List;
 
+import javax.xml.stream.XMLStreamException;
+
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.LdapSyntax;
 import org.apache.directory.api.ldap.model.schema.MatchingRule;
@@ -32,16 +34,13 @@ import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.api.ldap.model.schema.ObjectClassTypeEnum;
 import org.apache.directory.api.ldap.model.schema.UsageEnum;
 import org.apache.directory.studio.schemaeditor.model.Schema;
-import org.dom4j.Branch;
-import org.dom4j.Document;
-import org.dom4j.DocumentHelper;
-import org.dom4j.Element;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
 
 
 /**
  * This class is used to export a Schema file into the XML Format.
+ * <p>
+ * The schemas are written element by element to the output stream, without
+ * building the whole document in memory first.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -95,24 +94,10 @@ public class XMLSchemaFileExporter
      */
     public static String toXml( Schema schema ) throws IOException
     {
-        // Creating the Document
-        Document document = DocumentHelper.createDocument();
-
-        // Adding the schema
-        addSchema( schema, document );
-
-        // Creating the output stream we're going to put the XML in
-        OutputStream os = new ByteArrayOutputStream();
-        OutputFormat outformat = OutputFormat.createPrettyPrint();
-        outformat.setEncoding( "UTF-8" ); //$NON-NLS-1$
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        write( schema, os );
 
-        // Writing the XML.
-        XMLWriter writer = new XMLWriter( os, outformat );
-        writer.write( document );
-        writer.flush();
-        writer.close();
-
-        return os.toString();
+        return os.toString( "UTF-8" ); //$NON-NLS-1$
     }
 
 
@@ -128,448 +113,447 @@ public class XMLSchemaFileExporter
      */
     public static String toXml( Schema[] schemas ) throws IOException
     {
-        // Creating the Document and the 'root' Element
-        Document document = DocumentHelper.createDocument();
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        write( schemas, os );
 
-        addSchemas( schemas, document );
+        return os.toString( "UTF-8" ); //$NON-NLS-1$
+    }
 
-        // Creating the output stream we're going to put the XML in
-        OutputStream os = new ByteArrayOutputStream();
-        OutputFormat outformat = OutputFormat.createPrettyPrint();
-        outformat.setEncoding( "UTF-8" ); //$NON-NLS-1$
 
-        // Writing the XML.
-        XMLWriter writer = new XMLWriter( os, outformat );
-        writer.write( document );
-        writer.flush();
-        writer.close();
+    /**
+     * Writes the XML representation of the given schema to the given
+     * output stream, in the UTF-8 encoding.
+     *
+     * @param schema
+     *      the schema to write
+     * @param outputStream
+     *      the output stream (it is not closed)
+     * @throws IOException
+     *      if an error occurs when writing the schema
+     */
+    public static void write( Schema schema, OutputStream outputStream ) throws IOException
+    {
+        try
+        {
+            IndentingXMLWriter writer = new IndentingXMLWriter( outputStream );
+            writer.startDocument();
+            writeSchema( schema, writer );
+            writer.endDocument();
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( e );
+        }
+    }
 
-        return os.toString();
+
+    /**
+     * Writes the XML representation of the given schemas to the given
+     * output stream, in the UTF-8 encoding.
+     *
+     * @param schemas
+     *      the schemas to write
+     * @param outputStream
+     *      the output stream (it is not closed)
+     * @throws IOException
+     *      if an error occurs when writing the schemas
+     */
+    public static void write( Schema[] schemas, OutputStream outputStream ) throws IOException
+    {
+        try
+        {
+            IndentingXMLWriter writer = new IndentingXMLWriter( outputStream );
+            writer.startDocument();
+            writeSchemas( schemas, writer );
+            writer.endDocument();
+        }
+        catch ( XMLStreamException e )
+        {
+            throw new IOException( e );
+        }
     }
 
 
     /**
-     * Add the XML representation of the given schemas
-     * to the given branch.
+     * Writes the XML representation of the given schemas
+     * with the given writer.
      *
      * @param schemas
      *      the schemas
-     * @param branch
-     *      the branch
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the schemas
      */
-    public static void addSchemas( Schema[] schemas, Branch branch )
+    static void writeSchemas( Schema[] schemas, IndentingXMLWriter writer ) throws XMLStreamException
     {
-        Element element = branch.addElement( SCHEMAS_TAG );
+        writer.startElement( SCHEMAS_TAG );
 
         if ( schemas != null )
         {
             for ( Schema schema : schemas )
             {
-                addSchema( schema, element );
+                writeSchema( schema, writer );
             }
         }
+
+        writer.endElement();
     }
 
 
     /**
-     * Add the XML representation of the given schema
-     * to the given branch.
+     * Writes the XML representation of the given schema
+     * with the given writer.
      *
      * @param schema
      *      the schema
-     * @param branch
-     *      the branch
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the schema
      */
-    public static void addSchema( Schema schema, Branch branch )
+    static void writeSchema( Schema schema, IndentingXMLWriter writer ) throws XMLStreamException
     {
-        Element element = branch.addElement( SCHEMA_TAG );
+        writer.startElement( SCHEMA_TAG );
         if ( schema != null )
         {
             // Name
             String name = schema.getSchemaName();
             if ( ( name != null ) && ( !name.equals( "" ) ) ) //$NON-NLS-1$
             {
-                element.addAttribute( NAME_TAG, name );
+                writer.addAttribute( NAME_TAG, name );
             }
 
             // Attribute Types
             List<AttributeType> ats = schema.getAttributeTypes();
             if ( ( ats != null ) && ( ats.size() >= 1 ) )
             {
-                Element attributeTypesNode = element.addElement( ATTRIBUTE_TYPES_TAG );
+                writer.startElement( ATTRIBUTE_TYPES_TAG );
                 for ( AttributeType at : ats )
                 {
-                    toXml( at, attributeTypesNode );
+                    toXml( at, writer );
                 }
+                writer.endElement();
             }
 
             // Object Classes
             List<ObjectClass> ocs = schema.getObjectClasses();
             if ( ( ocs != null ) && ( ocs.size() >= 1 ) )
             {
-                Element objectClassesNode = element.addElement( OBJECT_CLASSES_TAG );
+                writer.startElement( OBJECT_CLASSES_TAG );
                 for ( ObjectClass oc : ocs )
                 {
-                    toXml( oc, objectClassesNode );
+                    toXml( oc, writer );
                 }
+                writer.endElement();
             }
 
             // Matching Rules
             List<MatchingRule> mrs = schema.getMatchingRules();
             if ( ( mrs != null ) && ( mrs.size() >= 1 ) )
             {
-                Element matchingRulesNode = element.addElement( MATCHING_RULES_TAG );
+                writer.startElement( MATCHING_RULES_TAG );
                 for ( MatchingRule mr : mrs )
                 {
-                    toXml( mr, matchingRulesNode );
+                    toXml( mr, writer );
                 }
+                writer.endElement();
             }
 
             // Syntaxes
             List<LdapSyntax> syntaxes = schema.getSyntaxes();
             if ( ( syntaxes != null ) && ( syntaxes.size() >= 1 ) )
             {
-                Element syntaxesNode = element.addElement( SYNTAXES_TAG );
+                writer.startElement( SYNTAXES_TAG );
                 for ( LdapSyntax syntax : syntaxes )
                 {
-                    toXml( syntax, syntaxesNode );
+                    toXml( syntax, writer );
                 }
+                writer.endElement();
             }
         }
+        writer.endElement();
     }
 
 
     /**
-     * Adds the given attribute type to its root Element.
+     * Writes the given attribute type.
+     * <p>
+     * The attributes of the element are written first, as required by the writer.
      *
      * @param at
      *      the attribute type
-     * @param root
-     *      the root Element
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the attribute type
      */
-    private static void toXml( AttributeType at, Element root )
+    private static void toXml( AttributeType at, IndentingXMLWriter writer ) throws XMLStreamException
     {
-        Element atNode = root.addElement( ATTRIBUTE_TYPE_TAG );
+        writer.startElement( ATTRIBUTE_TYPE_TAG );
 
         // OID
         String oid = at.getOid();
         if ( ( oid != null ) && ( !oid.equals( "" ) ) ) //$NON-NLS-1$
         {
-            atNode.addAttribute( OID_TAG, oid );
+            writer.addAttribute( OID_TAG, oid );
         }
 
+        // Obsolete
+        writer.addAttribute( OBSOLETE_TAG, toBoolean( at.isObsolete() ) );
+
+        // Single Value
+        writer.addAttribute( SINGLE_VALUE_TAG, toBoolean( at.isSingleValued() ) );
+
+        // Collective
+        writer.addAttribute( COLLECTIVE_TAG, toBoolean( at.isCollective() ) );
+
+        // No User Modification
+        writer.addAttribute( NO_USER_MODIFICATION_TAG, toBoolean( !at.isUserModifiable() ) );
+
         // Aliases
-        List<String> aliases = at.getNames();
-        if ( ( aliases != null ) && ( aliases.size() >= 1 ) )
-        {
-            Element aliasesNode = atNode.addElement( ALIASES_TAG );
-            for ( String alias : aliases )
-            {
-                aliasesNode.addElement( ALIAS_TAG ).setText( alias );
-            }
-        }
+        writeAliases( at.getNames(), writer );
 
         // Description
-        String description = at.getDescription();
-        if ( ( description != null ) && ( !description.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            atNode.addElement( DESCRIPTION_TAG ).setText( description );
-        }
+        writeTextElement( DESCRIPTION_TAG, at.getDescription(), writer );
 
         // Superior
-        String superior = at.getSuperiorOid();
-        if ( ( superior != null ) && ( !superior.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            atNode.addElement( SUPERIOR_TAG ).setText( superior );
-        }
+        writeTextElement( SUPERIOR_TAG, at.getSuperiorOid(), writer );
 
         // Usage
         UsageEnum usage = at.getUsage();
         if ( usage != null )
         {
-            atNode.addElement( USAGE_TAG ).setText( usage.toString() );
+            writer.addTextElement( USAGE_TAG, usage.toString() );
         }
 
         // Syntax
-        String syntax = at.getSyntaxOid();
-        if ( ( syntax != null ) && ( !syntax.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            atNode.addElement( SYNTAX_TAG ).setText( syntax );
-        }
+        writeTextElement( SYNTAX_TAG, at.getSyntaxOid(), writer );
 
         // Syntax Length
         long syntaxLength = at.getSyntaxLength();
         if ( syntaxLength > 0 )
         {
-            atNode.addElement( SYNTAX_LENGTH_TAG ).setText( "" + syntaxLength ); //$NON-NLS-1$
-        }
-
-        // Obsolete
-        if ( at.isObsolete() )
-        {
-            atNode.addAttribute( OBSOLETE_TAG, BOOLEAN_TRUE );
-        }
-        else
-        {
-            atNode.addAttribute( OBSOLETE_TAG, BOOLEAN_FALSE );
-        }
-
-        // Single Value
-        if ( at.isSingleValued() )
-        {
-            atNode.addAttribute( SINGLE_VALUE_TAG, BOOLEAN_TRUE );
-        }
-        else
-        {
-            atNode.addAttribute( SINGLE_VALUE_TAG, BOOLEAN_FALSE );
-        }
-
-        // Collective
-        if ( at.isCollective() )
-        {
-            atNode.addAttribute( COLLECTIVE_TAG, BOOLEAN_TRUE );
-        }
-        else
-        {
-            atNode.addAttribute( COLLECTIVE_TAG, BOOLEAN_FALSE );
-        }
-
-        // No User Modification
-        if ( at.isUserModifiable() )
-        {
-            atNode.addAttribute( NO_USER_MODIFICATION_TAG, BOOLEAN_FALSE );
-        }
-        else
-        {
-            atNode.addAttribute( NO_USER_MODIFICATION_TAG, BOOLEAN_TRUE );
+            writer.addTextElement( SYNTAX_LENGTH_TAG, "" + syntaxLength ); //$NON-NLS-1$
         }
 
         // Equality
-        String equality = at.getEqualityOid();
-        if ( ( equality != null ) && ( !equality.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            atNode.addElement( EQUALITY_TAG ).setText( equality );
-        }
+        writeTextElement( EQUALITY_TAG, at.getEqualityOid(), writer );
 
         // Ordering
-        String ordering = at.getOrderingOid();
-        if ( ( ordering != null ) && ( !ordering.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            atNode.addElement( ORDERING_TAG ).setText( ordering );
-        }
+        writeTextElement( ORDERING_TAG, at.getOrderingOid(), writer );
 
         // Substring
-        String substring = at.getSubstringOid();
-        if ( ( substring != null ) && ( !substring.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            atNode.addElement( SUBSTRING_TAG ).setText( substring );
-        }
+        writeTextElement( SUBSTRING_TAG, at.getSubstringOid(), writer );
+
+        writer.endElement();
     }
 
 
     /**
-     * Adds the given object class to its root Element.
+     * Writes the given object class.
+     * <p>
+     * The attributes of the element are written first, as required by the writer.
      *
      * @param oc
      *      the object class to convert
-     * @param root
-     *      the root Element
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the object class
      */
-    private static void toXml( ObjectClass oc, Element root )
+    private static void toXml( ObjectClass oc, IndentingXMLWriter writer ) throws XMLStreamException
     {
-        Element ocNode = root.addElement( OBJECT_CLASS_TAG );
+        writer.startElement( OBJECT_CLASS_TAG );
 
         // OID
         String oid = oc.getOid();
         if ( ( oid != null ) && ( !oid.equals( "" ) ) ) //$NON-NLS-1$
         {
-            ocNode.addAttribute( OID_TAG, oid );
+            writer.addAttribute( OID_TAG, oid );
         }
 
+        // Obsolete
+        writer.addAttribute( OBSOLETE_TAG, toBoolean( oc.isObsolete() ) );
+
         // Aliases
-        List<String> aliases = oc.getNames();
-        if ( ( aliases != null ) && ( aliases.size() >= 1 ) )
-        {
-            Element aliasesNode = ocNode.addElement( ALIASES_TAG );
-            for ( String alias : aliases )
-            {
-                aliasesNode.addElement( ALIAS_TAG ).setText( alias );
-            }
-        }
+        writeAliases( oc.getNames(), writer );
 
         // Description
-        String description = oc.getDescription();
-        if ( ( description != null ) && ( !description.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            ocNode.addElement( DESCRIPTION_TAG ).setText( description );
-        }
+        writeTextElement( DESCRIPTION_TAG, oc.getDescription(), writer );
 
         // Superiors
-        List<String> superiors = oc.getSuperiorOids();
-        if ( ( superiors != null ) && ( superiors.size() >= 1 ) )
-        {
-            Element superiorsNode = ocNode.addElement( SUPERIORS_TAG );
-            for ( String superior : superiors )
-            {
-                superiorsNode.addElement( SUPERIOR_TAG ).setText( superior );
-            }
-        }
+        writeList( SUPERIORS_TAG, SUPERIOR_TAG, oc.getSuperiorOids(), writer );
 
         // Type
         ObjectClassTypeEnum type = oc.getType();
         if ( type != null )
         {
-            ocNode.addElement( TYPE_TAG ).setText( type.toString() );
-        }
-
-        // Obsolete
-        if ( oc.isObsolete() )
-        {
-            ocNode.addAttribute( OBSOLETE_TAG, BOOLEAN_TRUE );
-        }
-        else
-        {
-            ocNode.addAttribute( OBSOLETE_TAG, BOOLEAN_FALSE );
+            writer.addTextElement( TYPE_TAG, type.toString() );
         }
 
         // Mandatory Attribute Types
-        List<String> mandatoryATs = oc.getMustAttributeTypeOids();
-        if ( ( mandatoryATs != null ) && ( mandatoryATs.size() >= 1 ) )
-        {
-            Element mandatoryNode = ocNode.addElement( MANDATORY_TAG );
-            for ( String mandatoryAT : mandatoryATs )
-            {
-                mandatoryNode.addElement( ATTRIBUTE_TYPE_TAG ).setText( mandatoryAT );
-            }
-        }
+        writeList( MANDATORY_TAG, ATTRIBUTE_TYPE_TAG, oc.getMustAttributeTypeOids(), writer );
 
         // Optional Attribute Types
-        List<String> optionalATs = oc.getMayAttributeTypeOids();
-        if ( ( optionalATs != null ) && ( optionalATs.size() >= 1 ) )
-        {
-            Element optionalNode = ocNode.addElement( OPTIONAL_TAG );
-            for ( String optionalAT : optionalATs )
-            {
-                optionalNode.addElement( ATTRIBUTE_TYPE_TAG ).setText( optionalAT );
-            }
-        }
+        writeList( OPTIONAL_TAG, ATTRIBUTE_TYPE_TAG, oc.getMayAttributeTypeOids(), writer );
+
+        writer.endElement();
     }
 
 
     /**
-     * Adds the given matching rule to its root Element.
+     * Writes the given matching rule.
      *
      * @param mr
      *      the matching rule to convert
-     * @param root
-     *      the root Element
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the matching rule
      */
-    private static void toXml( MatchingRule mr, Element root )
+    private static void toXml( MatchingRule mr, IndentingXMLWriter writer ) throws XMLStreamException
     {
-        Element mrNode = root.addElement( MATCHING_RULE_TAG );
+        writer.startElement( MATCHING_RULE_TAG );
 
         // OID
         String oid = mr.getOid();
         if ( ( oid != null ) && ( !oid.equals( "" ) ) ) //$NON-NLS-1$
         {
-            mrNode.addAttribute( OID_TAG, oid );
+            writer.addAttribute( OID_TAG, oid );
         }
 
+        // Obsolete
+        writer.addAttribute( OBSOLETE_TAG, toBoolean( mr.isObsolete() ) );
+
         // Aliases
-        List<String> aliases = mr.getNames();
-        if ( ( aliases != null ) && ( aliases.size() >= 1 ) )
-        {
-            Element aliasesNode = mrNode.addElement( ALIASES_TAG );
-            for ( String alias : aliases )
-            {
-                aliasesNode.addElement( ALIAS_TAG ).setText( alias );
-            }
-        }
+        writeAliases( mr.getNames(), writer );
 
         // Description
-        String description = mr.getDescription();
-        if ( ( description != null ) && ( !description.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            mrNode.addElement( DESCRIPTION_TAG ).setText( description );
-        }
-
-        // Obsolete
-        if ( mr.isObsolete() )
-        {
-            mrNode.addAttribute( OBSOLETE_TAG, BOOLEAN_TRUE );
-        }
-        else
-        {
-            mrNode.addAttribute( OBSOLETE_TAG, BOOLEAN_FALSE );
-        }
+        writeTextElement( DESCRIPTION_TAG, mr.getDescription(), writer );
 
         // Syntax OID
-        String syntaxOid = mr.getSyntaxOid();
-        if ( ( syntaxOid != null ) && ( !syntaxOid.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            mrNode.addElement( SYNTAX_OID_TAG ).setText( syntaxOid );
-        }
+        writeTextElement( SYNTAX_OID_TAG, mr.getSyntaxOid(), writer );
+
+        writer.endElement();
     }
 
 
     /**
-     * Converts the given syntax to its source code representation
-     * in XML file format.
+     * Writes the given syntax.
      *
      * @param syntax
      *      the syntax to convert
-     * @param root
-     *      the root Element
-     * @return
-     *      the corresponding source code representation
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the syntax
      */
-    private static void toXml( LdapSyntax syntax, Element root )
+    private static void toXml( LdapSyntax syntax, IndentingXMLWriter writer ) throws XMLStreamException
     {
-        Element syntaxNode = root.addElement( SYNTAX_TAG );
+        writer.startElement( SYNTAX_TAG );
 
         // OID
         String oid = syntax.getOid();
         if ( ( oid != null ) && ( !oid.equals( "" ) ) ) //$NON-NLS-1$
         {
-            syntaxNode.addAttribute( OID_TAG, oid );
+            writer.addAttribute( OID_TAG, oid );
         }
 
+        // Obsolete
+        writer.addAttribute( OBSOLETE_TAG, toBoolean( syntax.isObsolete() ) );
+
+        // Human Readible
+        writer.addAttribute( HUMAN_READABLE_TAG, toBoolean( syntax.isHumanReadable() ) );
+
         // Aliases
-        List<String> aliases = syntax.getNames();
-        if ( ( aliases != null ) && ( aliases.size() >= 1 ) )
+        writeAliases( syntax.getNames(), writer );
+
+        // Description
+        writeTextElement( DESCRIPTION_TAG, syntax.getDescription(), writer );
+
+        writer.endElement();
+    }
+
+
+    /**
+     * Writes the given aliases.
+     *
+     * @param aliases
+     *      the aliases
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the aliases
+     */
+    private static void writeAliases( List<String> aliases, IndentingXMLWriter writer ) throws XMLStreamException
+    {
+        writeList( ALIASES_TAG, ALIAS_TAG, aliases, writer );
+    }
+
+
+    /**
+     * Writes the given values, each one in its own child element, if the list
+     * is not empty.
+     *
+     * @param listTag
+     *      the name of the element containing the values
+     * @param valueTag
+     *      the name of the element of each value
+     * @param values
+     *      the values
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the values
+     */
+    private static void writeList( String listTag, String valueTag, List<String> values, IndentingXMLWriter writer )
+        throws XMLStreamException
+    {
+        if ( ( values != null ) && ( values.size() >= 1 ) )
         {
-            Element aliasesNode = syntaxNode.addElement( ALIASES_TAG );
-            for ( String alias : aliases )
+            writer.startElement( listTag );
+            for ( String value : values )
             {
-                aliasesNode.addElement( ALIAS_TAG ).setText( alias );
+                writer.addTextElement( valueTag, value );
             }
+            writer.endElement();
         }
+    }
 
-        // Description
-        String description = syntax.getDescription();
-        if ( ( description != null ) && ( !description.equals( "" ) ) ) //$NON-NLS-1$
-        {
-            syntaxNode.addElement( DESCRIPTION_TAG ).setText( description );
-        }
 
-        // Obsolete
-        if ( syntax.isObsolete() )
-        {
-            syntaxNode.addAttribute( OBSOLETE_TAG, BOOLEAN_TRUE );
-        }
-        else
+    /**
+     * Writes an element containing the given text, if the text is not empty.
+     *
+     * @param tag
+     *      the name of the element
+     * @param text
+     *      the text
+     * @param writer
+     *      the writer
+     * @throws XMLStreamException
+     *      if an error occurs when writing the element
+     */
+    private static void writeTextElement( String tag, String text, IndentingXMLWriter writer )
+        throws XMLStreamException
+    {
+        if ( ( text != null ) && ( !text.equals( "" ) ) ) //$NON-NLS-1$
         {
-            syntaxNode.addAttribute( OBSOLETE_TAG, BOOLEAN_FALSE );
+            writer.addTextElement( tag, text );
         }
+    }
 
-        // Human Readible
-        if ( syntax.isHumanReadable() )
-        {
-            syntaxNode.addAttribute( HUMAN_READABLE_TAG, BOOLEAN_TRUE );
-        }
-        else
-        {
-            syntaxNode.addAttribute( HUMAN_READABLE_TAG, BOOLEAN_FALSE );
-        }
+
+    /**
+     * Gets the XML representation of the given boolean.
+     *
+     * @param value
+     *      the boolean
+     * @return
+     *      the XML representation of the boolean
+     */
+    private static String toBoolean( boolean value )
+    {
+        return value ? BOOLEAN_TRUE : BOOLEAN_FALSE;
     }
 }
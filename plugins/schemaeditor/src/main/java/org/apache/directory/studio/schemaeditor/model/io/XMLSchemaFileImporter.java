@@ -23,9 +23,11 @@ package org.apache.directory.studio.schemaeditor.model.io;
 import java.io.File;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.Iterator;
 import java.util.List;
 
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
 import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.LdapSyntax;
 import org.apache.directory.api.ldap.model.schema.MatchingRule;
@@ -33,16 +35,14 @@ import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.api.ldap.model.schema.ObjectClassTypeEnum;
 import org.apache.directory.api.ldap.model.schema.UsageEnum;
 import org.apache.directory.studio.schemaeditor.model.Schema;
-import org.dom4j.Attribute;
-import org.dom4j.Document;
-import org.dom4j.DocumentException;
-import org.dom4j.Element;
-import org.dom4j.io.SAXReader;
 import org.eclipse.osgi.util.NLS;
 
 
 /**
  * This class is used to import a Schema file from the XML Format.
+ * <p>
+ * The files are read with a {@link XMLStreamReader}: the schema objects are created
+ * while the file is read, without building the whole document in memory first.
  *
  * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
  */
@@ -88,7 +88,7 @@ public class XMLSchemaFileImporter
      * Extracts the Schemas from the given path.
      *
      * @param inputStream
-     *      the {@link InputStream} of the file
+     *      the {@link InputStream} of the file, closed once read
      * @param path
      *      the path of the file.
      * @return
@@ -98,26 +98,29 @@ public class XMLSchemaFileImporter
      */
     public static Schema[] getSchemas( InputStream inputStream, String path ) throws XMLSchemaFileImportException
     {
-        SAXReader reader = new SAXReader();
-        Document document = null;
         try
         {
-            document = reader.read( inputStream );
+            XMLStreamReader reader = XMLStreamUtils.createReader( inputStream );
+            try
+            {
+                XMLStreamUtils.nextRootElement( reader );
+
+                return readSchemas( reader, path );
+            }
+            finally
+            {
+                reader.close();
+            }
         }
-        catch ( DocumentException e )
+        catch ( XMLStreamException e )
         {
             throw new XMLSchemaFileImportException( NLS.bind( Messages
                 .getString( "XMLSchemaFileImporter.NotReadCorrectly" ), new String[] { path } ), e ); //$NON-NLS-1$
         }
-
-        Element rootElement = document.getRootElement();
-        if ( !rootElement.getName().equals( SCHEMAS_TAG ) )
+        finally
         {
-            throw new XMLSchemaFileImportException( NLS.bind( Messages
-                .getString( "XMLSchemaFileImporter.NotValidSchema" ), new String[] { path } ) ); //$NON-NLS-1$
+            XMLStreamUtils.closeQuietly( inputStream );
         }
-
-        return readSchemas( rootElement, path );
     }
 
 
@@ -125,7 +128,7 @@ public class XMLSchemaFileImporter
      * Extracts the Schema from the given path.
      *
      * @param inputStream
-     *      the {@link InputStream} of the file
+     *      the {@link InputStream} of the file, closed once read
      * @param path
      *      the path of the file.
      * @return
@@ -135,50 +138,68 @@ public class XMLSchemaFileImporter
      */
     public static Schema getSchema( InputStream inputStream, String path ) throws XMLSchemaFileImportException
     {
-        SAXReader reader = new SAXReader();
-        Document document = null;
         try
         {
-            document = reader.read( inputStream );
+            XMLStreamReader reader = XMLStreamUtils.createReader( inputStream );
+            try
+            {
+                XMLStreamUtils.nextRootElement( reader );
+
+                return readSchema( reader, path );
+            }
+            finally
+            {
+                reader.close();
+            }
         }
-        catch ( DocumentException e )
+        catch ( XMLStreamException e )
         {
             throw new XMLSchemaFileImportException( NLS.bind( Messages
                 .getString( "XMLSchemaFileImporter.NotReadCorrectly" ), new String[] { path } ), e ); //$NON-NLS-1$
         }
-
-        Element rootElement = document.getRootElement();
-
-        return readSchema( rootElement, path );
+        finally
+        {
+            XMLStreamUtils.closeQuietly( inputStream );
+        }
     }
 
 
     /**
      * Reads schemas.
      *
-     * @param element
-     *      the element
+     * @param reader
+     *      the reader, positioned on the start tag of the 'schemas' element
+     *      (it is left positioned on the end tag of this element)
      * @param path
      *      the path of the file
      * @throws XMLSchemaFileImportException
      *      if an error occurs when importing the schema
+     * @throws XMLStreamException
+     *      if an error occurs when reading the file
      * @return
      *      the corresponding schemas
      */
-    public static Schema[] readSchemas( Element element, String path ) throws XMLSchemaFileImportException
+    public static Schema[] readSchemas( XMLStreamReader reader, String path ) throws XMLSchemaFileImportException,
+        XMLStreamException
     {
         List<Schema> schemas = new ArrayList<Schema>();
 
-        if ( !element.getName().equals( SCHEMAS_TAG ) )
+        if ( !reader.isStartElement() || !reader.getLocalName().equals( SCHEMAS_TAG ) )
         {
             throw new XMLSchemaFileImportException( NLS.bind( Messages
                 .getString( "XMLSchemaFileImporter.NotValidSchema" ), new String[] { path } ) ); //$NON-NLS-1$
         }
 
-        for ( Iterator<?> i = element.elementIterator( SCHEMA_TAG ); i.hasNext(); )
+        while ( XMLStreamUtils.nextChildElement( reader ) )
         {
-            Element schemaElement = ( Element ) i.next();
-            schemas.add( readSchema( schemaElement, path ) );
+            if ( reader.getLocalName().equals( SCHEMA_TAG ) )
+            {
+                schemas.add( readSchema( reader, path ) );
+            }
+            else
+            {
+                XMLStreamUtils.skipElement( reader );
+            }
         }
 
         return schemas.toArray( new Schema[0] );
@@ -188,31 +209,93 @@ public class XMLSchemaFileImporter
     /**
      * Reads a schema.
      *
-     * @param element
-     *      the element
+     * @param reader
+     *      the reader, positioned on the start tag of the 'schema' element
+     *      (it is left positioned on the end tag of this element)
      * @param path
      *      the path of the file
      * @throws XMLSchemaFileImportException
      *      if an error occurs when importing the schema
+     * @throws XMLStreamException
+     *      if an error occurs when reading the file
      * @return
      *      the corresponding schema
      */
-    public static Schema readSchema( Element element, String path ) throws XMLSchemaFileImportException
+    public static Schema readSchema( XMLStreamReader reader, String path ) throws XMLSchemaFileImportException,
+        XMLStreamException
     {
         // Creating the schema with an empty name
-        Schema schema = new Schema( getSchemaName( element, path ) );
-
-        // Attribute Types
-        readAttributeTypes( element, schema );
-
-        // Object Classes
-        readObjectClasses( element, schema );
+        Schema schema = new Schema( getSchemaName( reader, path ) );
 
-        // Matching Rules
-        readMatchingRules( element, schema );
-
-        // Syntaxes
-        readSyntaxes( element, schema );
+        while ( XMLStreamUtils.nextChildElement( reader ) )
+        {
+            switch ( reader.getLocalName() )
+            {
+                case ATTRIBUTE_TYPES_TAG:
+                    // Attribute Types
+                    while ( XMLStreamUtils.nextChildElement( reader ) )
+                    {
+                        if ( reader.getLocalName().equals( ATTRIBUTE_TYPE_TAG ) )
+                        {
+                            readAttributeType( reader, schema );
+                        }
+                        else
+                        {
+                            XMLStreamUtils.skipElement( reader );
+                        }
+                    }
+                    break;
+
+                case OBJECT_CLASSES_TAG:
+                    // Object Classes
+                    while ( XMLStreamUtils.nextChildElement( reader ) )
+                    {
+                        if ( reader.getLocalName().equals( OBJECT_CLASS_TAG ) )
+                        {
+                            readObjectClass( reader, schema );
+                        }
+                        else
+                        {
+                            XMLStreamUtils.skipElement( reader );
+                        }
+                    }
+                    break;
+
+                case MATCHING_RULES_TAG:
+                    // Matching Rules
+                    while ( XMLStreamUtils.nextChildElement( reader ) )
+                    {
+                        if ( reader.getLocalName().equals( MATCHING_RULE_TAG ) )
+                        {
+                            readMatchingRule( reader, schema );
+                        }
+                        else
+                        {
+                            XMLStreamUtils.skipElement( reader );
+                        }
+                    }
+                    break;
+
+                case SYNTAXES_TAG:
+                    // Syntaxes
+                    while ( XMLStreamUtils.nextChildElement( reader ) )
+                    {
+                        if ( reader.getLocalName().equals( SYNTAX_TAG ) )
+                        {
+                            readSyntax( reader, schema );
+                        }
+                        else
+                        {
+                            XMLStreamUtils.skipElement( reader );
+                        }
+                    }
+                    break;
+
+                default:
+                    XMLStreamUtils.skipElement( reader );
+                    break;
+            }
+        }
 
         return schema;
     }
@@ -221,8 +304,8 @@ public class XMLSchemaFileImporter
     /**
      * Gets the name of the schema.
      *
-     * @param element
-     *      the element
+     * @param reader
+     *      the reader, positioned on the start tag of the 'schema' element
      * @param path
      *      the path
      * @return
@@ -230,18 +313,18 @@ public class XMLSchemaFileImporter
      * @throws XMLSchemaFileImportException
      *      if an error occurs when reading the file
      */
-    private static String getSchemaName( Element element, String path ) throws XMLSchemaFileImportException
+    private static String getSchemaName( XMLStreamReader reader, String path ) throws XMLSchemaFileImportException
     {
-        if ( !element.getName().equals( SCHEMA_TAG ) )
+        if ( !reader.isStartElement() || !reader.getLocalName().equals( SCHEMA_TAG ) )
         {
             throw new XMLSchemaFileImportException( NLS.bind( Messages
                 .getString( "XMLSchemaFileImporter.NotValidSchema" ), new String[] { path } ) ); //$NON-NLS-1$
         }
 
-        Attribute nameAttribute = element.attribute( NAME_TAG );
-        if ( ( nameAttribute != null ) && ( !nameAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String name = XMLStreamUtils.getAttribute( reader, NAME_TAG );
+        if ( ( name != null ) && ( !name.equals( "" ) ) ) //$NON-NLS-1$
         {
-            return nameAttribute.getValue();
+            return name;
         }
         else
         {
@@ -272,45 +355,26 @@ public class XMLSchemaFileImporter
     }
 
 
-    /**
-     * Reads the attribute types.
-     *
-     * @param element
-     *      the element
-     * @param schema
-     *      the schema
-     * @throws XMLSchemaFileImportException
-     */
-    private static void readAttributeTypes( Element element, Schema schema ) throws XMLSchemaFileImportException
-    {
-        for ( Iterator<?> i = element.elementIterator( ATTRIBUTE_TYPES_TAG ); i.hasNext(); )
-        {
-            Element attributesTypesElement = ( Element ) i.next();
-            for ( Iterator<?> i2 = attributesTypesElement.elementIterator( ATTRIBUTE_TYPE_TAG ); i2.hasNext(); )
-            {
-                readAttributeType( ( Element ) i2.next(), schema );
-            }
-        }
-    }
-
-
     /**
      * Reads an attribute type.
      *
-     * @param element
-     *      the element
+     * @param reader
+     *      the reader, positioned on the start tag of the element
      * @param schema
      *      the schema
+     * @throws XMLSchemaFileImportException
+     * @throws XMLStreamException
      */
-    private static void readAttributeType( Element element, Schema schema ) throws XMLSchemaFileImportException
+    private static void readAttributeType( XMLStreamReader reader, Schema schema )
+        throws XMLSchemaFileImportException, XMLStreamException
     {
         AttributeType at = null;
 
         // OID
-        Attribute oidAttribute = element.attribute( OID_TAG );
-        if ( ( oidAttribute != null ) && ( !oidAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String oid = XMLStreamUtils.getAttribute( reader, OID_TAG );
+        if ( ( oid != null ) && ( !oid.equals( "" ) ) ) //$NON-NLS-1$
         {
-            at = new AttributeType( oidAttribute.getValue() );
+            at = new AttributeType( oid );
         }
         else
         {
@@ -320,120 +384,139 @@ public class XMLSchemaFileImporter
         // Schema
         at.setSchemaName( schema.getSchemaName() );
 
-        // Aliases
-        Element aliasesElement = element.element( ALIASES_TAG );
-        if ( aliasesElement != null )
-        {
-            List<String> aliases = new ArrayList<String>();
-            for ( Iterator<?> i = aliasesElement.elementIterator( ALIAS_TAG ); i.hasNext(); )
-            {
-                Element aliasElement = ( Element ) i.next();
-                aliases.add( aliasElement.getText() );
-            }
-            if ( aliases.size() >= 1 )
-            {
-                at.setNames( aliases.toArray( new String[0] ) );
-            }
-        }
-
-        // Description
-        Element descriptionElement = element.element( DESCRIPTION_TAG );
-        if ( ( descriptionElement != null ) && ( !descriptionElement.getText().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            at.setDescription( descriptionElement.getText() );
-        }
-
-        // Superior
-        Element superiorElement = element.element( SUPERIOR_TAG );
-        if ( ( superiorElement != null ) && ( !superiorElement.getText().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            at.setSuperiorOid( superiorElement.getText() );
-        }
-
-        // Usage
-        Element usageElement = element.element( USAGE_TAG );
-        if ( ( usageElement != null ) && ( !usageElement.getText().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            try
-            {
-                at.setUsage( UsageEnum.valueOf( usageElement.getText() ) );
-            }
-            catch ( IllegalArgumentException e )
-            {
-                throw new XMLSchemaFileImportException( Messages
-                    .getString( "XMLSchemaFileImporter.UnceonvertableAttribute" ), e ); //$NON-NLS-1$
-            }
-        }
-
-        // Syntax
-        Element syntaxElement = element.element( SYNTAX_TAG );
-        if ( ( syntaxElement != null ) && ( !syntaxElement.getText().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            at.setSyntaxOid( syntaxElement.getText() );
-        }
-
-        // Syntax Length
-        Element syntaxLengthElement = element.element( SYNTAX_LENGTH_TAG );
-        if ( ( syntaxLengthElement != null ) && ( !syntaxLengthElement.getText().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            try
-            {
-                at.setSyntaxLength( Long.parseLong( syntaxLengthElement.getText() ) );
-            }
-            catch ( NumberFormatException e )
-            {
-                throw new XMLSchemaFileImportException( Messages
-                    .getString( "XMLSchemaFileImporter.UnconvertableInteger" ), e ); //$NON-NLS-1$
-            }
-        }
-
         // Obsolete
-        Attribute obsoleteAttribute = element.attribute( OBSOLETE_TAG );
-        if ( ( obsoleteAttribute != null ) && ( !obsoleteAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String obsolete = XMLStreamUtils.getAttribute( reader, OBSOLETE_TAG );
+        if ( ( obsolete != null ) && ( !obsolete.equals( "" ) ) ) //$NON-NLS-1$
         {
-            at.setObsolete( readBoolean( obsoleteAttribute.getValue() ) );
+            at.setObsolete( readBoolean( obsolete ) );
         }
 
         // Single Value
-        Attribute singleValueAttribute = element.attribute( SINGLE_VALUE_TAG );
-        if ( ( singleValueAttribute != null ) && ( !singleValueAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String singleValue = XMLStreamUtils.getAttribute( reader, SINGLE_VALUE_TAG );
+        if ( ( singleValue != null ) && ( !singleValue.equals( "" ) ) ) //$NON-NLS-1$
         {
-            at.setSingleValued( readBoolean( singleValueAttribute.getValue() ) );
+            at.setSingleValued( readBoolean( singleValue ) );
         }
 
         // Collective
-        Attribute collectiveAttribute = element.attribute( COLLECTIVE_TAG );
-        if ( ( collectiveAttribute != null ) && ( !collectiveAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String collective = XMLStreamUtils.getAttribute( reader, COLLECTIVE_TAG );
+        if ( ( collective != null ) && ( !collective.equals( "" ) ) ) //$NON-NLS-1$
         {
-            at.setCollective( readBoolean( collectiveAttribute.getValue() ) );
+            at.setCollective( readBoolean( collective ) );
         }
 
         // No User Modification
-        Attribute noUserModificationAttribute = element.attribute( NO_USER_MODIFICATION_TAG );
-        if ( ( noUserModificationAttribute != null ) && ( !noUserModificationAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            at.setUserModifiable( !readBoolean( noUserModificationAttribute.getValue() ) );
-        }
-
-        // Equality
-        Element equalityElement = element.element( EQUALITY_TAG );
-        if ( ( equalityElement != null ) && ( !equalityElement.getText().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            at.setEqualityOid( equalityElement.getText() );
-        }
-
-        // Ordering
-        Element orderingElement = element.element( ORDERING_TAG );
-        if ( ( orderingElement != null ) && ( !orderingElement.getText().equals( "" ) ) ) //$NON-NLS-1$
+        String noUserModification = XMLStreamUtils.getAttribute( reader, NO_USER_MODIFICATION_TAG );
+        if ( ( noUserModification != null ) && ( !noUserModification.equals( "" ) ) ) //$NON-NLS-1$
         {
-            at.setOrderingOid( orderingElement.getText() );
+            at.setUserModifiable( !readBoolean( noUserModification ) );
         }
 
-        // Substring
-        Element substringElement = element.element( SUBSTRING_TAG );
-        if ( ( substringElement != null ) && ( !substringElement.getText().equals( "" ) ) ) //$NON-NLS-1$
+        while ( XMLStreamUtils.nextChildElement( reader ) )
         {
-            at.setSubstringOid( substringElement.getText() );
+            switch ( reader.getLocalName() )
+            {
+                case ALIASES_TAG:
+                    // Aliases
+                    List<String> aliases = XMLStreamUtils.getChildElementsText( reader, ALIAS_TAG );
+                    if ( aliases.size() >= 1 )
+                    {
+                        at.setNames( aliases.toArray( new String[0] ) );
+                    }
+                    break;
+
+                case DESCRIPTION_TAG:
+                    // Description
+                    String description = XMLStreamUtils.getElementText( reader );
+                    if ( !description.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        at.setDescription( description );
+                    }
+                    break;
+
+                case SUPERIOR_TAG:
+                    // Superior
+                    String superior = XMLStreamUtils.getElementText( reader );
+                    if ( !superior.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        at.setSuperiorOid( superior );
+                    }
+                    break;
+
+                case USAGE_TAG:
+                    // Usage
+                    String usage = XMLStreamUtils.getElementText( reader );
+                    if ( !usage.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        try
+                        {
+                            at.setUsage( UsageEnum.valueOf( usage ) );
+                        }
+                        catch ( IllegalArgumentException e )
+                        {
+                            throw new XMLSchemaFileImportException( Messages
+                                .getString( "XMLSchemaFileImporter.UnceonvertableAttribute" ), e ); //$NON-NLS-1$
+                        }
+                    }
+                    break;
+
+                case SYNTAX_TAG:
+                    // Syntax
+                    String syntax = XMLStreamUtils.getElementText( reader );
+                    if ( !syntax.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        at.setSyntaxOid( syntax );
+                    }
+                    break;
+
+                case SYNTAX_LENGTH_TAG:
+                    // Syntax Length
+                    String syntaxLength = XMLStreamUtils.getElementText( reader );
+                    if ( !syntaxLength.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        try
+                        {
+                            at.setSyntaxLength( Long.parseLong( syntaxLength ) );
+                        }
+                        catch ( NumberFormatException e )
+                        {
+                            throw new XMLSchemaFileImportException( Messages
+                                .getString( "XMLSchemaFileImporter.UnconvertableInteger" ), e ); //$NON-NLS-1$
+                        }
+                    }
+                    break;
+
+                case EQUALITY_TAG:
+                    // Equality
+                    String equality = XMLStreamUtils.getElementText( reader );
+                    if ( !equality.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        at.setEqualityOid( equality );
+                    }
+                    break;
+
+                case ORDERING_TAG:
+                    // Ordering
+                    String ordering = XMLStreamUtils.getElementText( reader );
+                    if ( !ordering.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        at.setOrderingOid( ordering );
+                    }
+                    break;
+
+                case SUBSTRING_TAG:
+                    // Substring
+                    String substring = XMLStreamUtils.getElementText( reader );
+                    if ( !substring.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        at.setSubstringOid( substring );
+                    }
+                    break;
+
+                default:
+                    XMLStreamUtils.skipElement( reader );
+                    break;
+            }
         }
 
         // Adding the attribute type to the schema
@@ -441,46 +524,26 @@ public class XMLSchemaFileImporter
     }
 
 
-    /**
-     * Reads the object classes
-     *
-     * @param element
-     *      the element
-     * @param schema
-     *      the schema
-     * @throws XMLSchemaFileImportException
-     */
-    private static void readObjectClasses( Element element, Schema schema ) throws XMLSchemaFileImportException
-    {
-        for ( Iterator<?> i = element.elementIterator( OBJECT_CLASSES_TAG ); i.hasNext(); )
-        {
-            Element objectClassesElement = ( Element ) i.next();
-            for ( Iterator<?> i2 = objectClassesElement.elementIterator( OBJECT_CLASS_TAG ); i2.hasNext(); )
-            {
-                readObjectClass( ( Element ) i2.next(), schema );
-            }
-        }
-    }
-
-
     /**
      * Reads an object class
      *
-     * @param element
-     *      the element
+     * @param reader
+     *      the reader, positioned on the start tag of the element
      * @param schema
      *      the schema
      * @throws XMLSchemaFileImportException
+     * @throws XMLStreamException
      */
-    private static void readObjectClass( Element element, Schema schema ) throws XMLSchemaFileImportException
+    private static void readObjectClass( XMLStreamReader reader, Schema schema ) throws XMLSchemaFileImportException,
+        XMLStreamException
     {
         ObjectClass oc = null;
 
         // OID
-        Attribute oidAttribute = element.attribute( OID_TAG );
-        if ( ( oidAttribute != null ) && ( !oidAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String oid = XMLStreamUtils.getAttribute( reader, OID_TAG );
+        if ( ( oid != null ) && ( !oid.equals( "" ) ) ) //$NON-NLS-1$
         {
-            oc = new ObjectClass( oidAttribute.getValue() );
+            oc = new ObjectClass( oid );
         }
         else
         {
@@ -490,96 +553,82 @@ public class XMLSchemaFileImporter
         // Schema
         oc.setSchemaName( schema.getSchemaName() );
 
-        // Aliases
-        Element aliasesElement = element.element( ALIASES_TAG );
-        if ( aliasesElement != null )
-        {
-            List<String> aliases = new ArrayList<String>();
-            for ( Iterator<?> i = aliasesElement.elementIterator( ALIAS_TAG ); i.hasNext(); )
-            {
-                Element aliasElement = ( Element ) i.next();
-                aliases.add( aliasElement.getText() );
-            }
-            if ( aliases.size() >= 1 )
-            {
-                oc.setNames( aliases.toArray( new String[0] ) );
-            }
-        }
-
-        // Description
-        Element descriptionElement = element.element( DESCRIPTION_TAG );
-        if ( ( descriptionElement != null ) && ( !descriptionElement.getText().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            oc.setDescription( descriptionElement.getText() );
-        }
-
-        // Superiors
-        Element superiorsElement = element.element( SUPERIORS_TAG );
-        if ( superiorsElement != null )
-        {
-            List<String> superiors = new ArrayList<String>();
-            for ( Iterator<?> i = superiorsElement.elementIterator( SUPERIOR_TAG ); i.hasNext(); )
-            {
-                Element superiorElement = ( Element ) i.next();
-                superiors.add( superiorElement.getText() );
-            }
-            if ( superiors.size() >= 1 )
-            {
-                oc.setSuperiorOids( superiors );
-            }
-        }
-
-        // Class Type
-        Element classTypeElement = element.element( TYPE_TAG );
-        if ( ( classTypeElement != null ) && ( !classTypeElement.getText().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            try
-            {
-                oc.setType( ObjectClassTypeEnum.valueOf( classTypeElement.getText() ) );
-            }
-            catch ( IllegalArgumentException e )
-            {
-                throw new XMLSchemaFileImportException(
-                    Messages.getString( "XMLSchemaFileImporter.UnconvertableValue" ), e ); //$NON-NLS-1$
-            }
-        }
-
         // Obsolete
-        Attribute obsoleteAttribute = element.attribute( OBSOLETE_TAG );
-        if ( ( obsoleteAttribute != null ) && ( !obsoleteAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String obsolete = XMLStreamUtils.getAttribute( reader, OBSOLETE_TAG );
+        if ( ( obsolete != null ) && ( !obsolete.equals( "" ) ) ) //$NON-NLS-1$
         {
-            oc.setObsolete( readBoolean( obsoleteAttribute.getValue() ) );
+            oc.setObsolete( readBoolean( obsolete ) );
         }
 
-        // Mandatory Attribute Types
-        Element mandatoryElement = element.element( MANDATORY_TAG );
-        if ( mandatoryElement != null )
+        while ( XMLStreamUtils.nextChildElement( reader ) )
         {
-            List<String> mandatoryATs = new ArrayList<String>();
-            for ( Iterator<?> i = mandatoryElement.elementIterator( ATTRIBUTE_TYPE_TAG ); i.hasNext(); )
-            {
-                Element attributeTypeElement = ( Element ) i.next();
-                mandatoryATs.add( attributeTypeElement.getText() );
-            }
-            if ( mandatoryATs.size() >= 1 )
-            {
-                oc.setMustAttributeTypeOids( mandatoryATs );
-            }
-        }
-
-        // Optional Attribute Types
-        Element optionalElement = element.element( OPTIONAL_TAG );
-        if ( optionalElement != null )
-        {
-            List<String> optionalATs = new ArrayList<String>();
-            for ( Iterator<?> i = optionalElement.elementIterator( ATTRIBUTE_TYPE_TAG ); i.hasNext(); )
-            {
-                Element attributeTypeElement = ( Element ) i.next();
-                optionalATs.add( attributeTypeElement.getText() );
-            }
-            if ( optionalATs.size() >= 1 )
+            switch ( reader.getLocalName() )
             {
-                oc.setMayAttributeTypeOids( optionalATs );
+                case ALIASES_TAG:
+                    // Aliases
+                    List<String> aliases = XMLStreamUtils.getChildElementsText( reader, ALIAS_TAG );
+                    if ( aliases.size() >= 1 )
+                    {
+                        oc.setNames( aliases.toArray( new String[0] ) );
+                    }
+                    break;
+
+                case DESCRIPTION_TAG:
+                    // Description
+                    String description = XMLStreamUtils.getElementText( reader );
+                    if ( !description.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        oc.setDescription( description );
+                    }
+                    break;
+
+                case SUPERIORS_TAG:
+                    // Superiors
+                    List<String> superiors = XMLStreamUtils.getChildElementsText( reader, SUPERIOR_TAG );
+                    if ( superiors.size() >= 1 )
+                    {
+                        oc.setSuperiorOids( superiors );
+                    }
+                    break;
+
+                case TYPE_TAG:
+                    // Class Type
+                    String classType = XMLStreamUtils.getElementText( reader );
+                    if ( !classType.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        try
+                        {
+                            oc.setType( ObjectClassTypeEnum.valueOf( classType ) );
+                        }
+                        catch ( IllegalArgumentException e )
+                        {
+                            throw new XMLSchemaFileImportException(
+                                Messages.getString( "XMLSchemaFileImporter.UnconvertableValue" ), e ); //$NON-NLS-1$
+                        }
+                    }
+                    break;
+
+                case MANDATORY_TAG:
+                    // Mandatory Attribute Types
+                    List<String> mandatoryATs = XMLStreamUtils.getChildElementsText( reader, ATTRIBUTE_TYPE_TAG );
+                    if ( mandatoryATs.size() >= 1 )
+                    {
+                        oc.setMustAttributeTypeOids( mandatoryATs );
+                    }
+                    break;
+
+                case OPTIONAL_TAG:
+                    // Optional Attribute Types
+                    List<String> optionalATs = XMLStreamUtils.getChildElementsText( reader, ATTRIBUTE_TYPE_TAG );
+                    if ( optionalATs.size() >= 1 )
+                    {
+                        oc.setMayAttributeTypeOids( optionalATs );
+                    }
+                    break;
+
+                default:
+                    XMLStreamUtils.skipElement( reader );
+                    break;
             }
         }
 
@@ -588,46 +637,26 @@ public class XMLSchemaFileImporter
     }
 
 
-    /**
-     * Reads the matching rules.
-     *
-     * @param element
-     *      the element
-     * @param schema
-     *      the schema
-     * @throws XMLSchemaFileImportException
-     */
-    private static void readMatchingRules( Element element, Schema schema ) throws XMLSchemaFileImportException
-    {
-        for ( Iterator<?> i = element.elementIterator( MATCHING_RULES_TAG ); i.hasNext(); )
-        {
-            Element matchingRulesElement = ( Element ) i.next();
-            for ( Iterator<?> i2 = matchingRulesElement.elementIterator( MATCHING_RULE_TAG ); i2.hasNext(); )
-            {
-                readMatchingRule( ( Element ) i2.next(), schema );
-            }
-        }
-    }
-
-
     /**
      * Reads a matching rule.
      *
-     * @param element
-     *      the element
+     * @param reader
+     *      the reader, positioned on the start tag of the element
      * @param schema
      *      the schema
      * @throws XMLSchemaFileImportException
+     * @throws XMLStreamException
      */
-    private static void readMatchingRule( Element element, Schema schema ) throws XMLSchemaFileImportException
+    private static void readMatchingRule( XMLStreamReader reader, Schema schema )
+        throws XMLSchemaFileImportException, XMLStreamException
     {
         MatchingRule mr = null;
 
         // OID
-        Attribute oidAttribute = element.attribute( OID_TAG );
-        if ( ( oidAttribute != null ) && ( !oidAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String oid = XMLStreamUtils.getAttribute( reader, OID_TAG );
+        if ( ( oid != null ) && ( !oid.equals( "" ) ) ) //$NON-NLS-1$
         {
-            mr = new MatchingRule( oidAttribute.getValue() );
+            mr = new MatchingRule( oid );
         }
         else
         {
@@ -637,41 +666,48 @@ public class XMLSchemaFileImporter
         // Schema
         mr.setSchemaName( schema.getSchemaName() );
 
-        // Aliases
-        Element aliasesElement = element.element( ALIASES_TAG );
-        if ( aliasesElement != null )
-        {
-            List<String> aliases = new ArrayList<String>();
-            for ( Iterator<?> i = aliasesElement.elementIterator( ALIAS_TAG ); i.hasNext(); )
-            {
-                Element aliasElement = ( Element ) i.next();
-                aliases.add( aliasElement.getText() );
-            }
-            if ( aliases.size() >= 1 )
-            {
-                mr.setNames( aliases.toArray( new String[0] ) );
-            }
-        }
-
-        // Description
-        Element descriptionElement = element.element( DESCRIPTION_TAG );
-        if ( ( descriptionElement != null ) && ( !descriptionElement.getText().equals( "" ) ) ) //$NON-NLS-1$
-        {
-            mr.setDescription( descriptionElement.getText() );
-        }
-
         // Obsolete
-        Attribute obsoleteAttribute = element.attribute( OBSOLETE_TAG );
-        if ( ( obsoleteAttribute != null ) && ( !obsoleteAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String obsolete = XMLStreamUtils.getAttribute( reader, OBSOLETE_TAG );
+        if ( ( obsolete != null ) && ( !obsolete.equals( "" ) ) ) //$NON-NLS-1$
         {
-            mr.setObsolete( readBoolean( obsoleteAttribute.getValue() ) );
+            mr.setObsolete( readBoolean( obsolete ) );
         }
 
-        // Syntax OID
-        Element syntaxOidElement = element.element( SYNTAX_OID_TAG );
-        if ( ( syntaxOidElement != null ) && ( !syntaxOidElement.getText().equals( "" ) ) ) //$NON-NLS-1$
+        while ( XMLStreamUtils.nextChildElement( reader ) )
         {
-            mr.setSyntaxOid( syntaxOidElement.getText() );
+            switch ( reader.getLocalName() )
+            {
+                case ALIASES_TAG:
+                    // Aliases
+                    List<String> aliases = XMLStreamUtils.getChildElementsText( reader, ALIAS_TAG );
+                    if ( aliases.size() >= 1 )
+                    {
+                        mr.setNames( aliases.toArray( new String[0] ) );
+                    }
+                    break;
+
+                case DESCRIPTION_TAG:
+                    // Description
+                    String description = XMLStreamUtils.getElementText( reader );
+                    if ( !description.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        mr.setDescription( description );
+                    }
+                    break;
+
+                case SYNTAX_OID_TAG:
+                    // Syntax OID
+                    String syntaxOid = XMLStreamUtils.getElementText( reader );
+                    if ( !syntaxOid.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        mr.setSyntaxOid( syntaxOid );
+                    }
+                    break;
+
+                default:
+                    XMLStreamUtils.skipElement( reader );
+                    break;
+            }
         }
 
         // Adding the matching rule to the schema
@@ -679,46 +715,26 @@ public class XMLSchemaFileImporter
     }
 
 
-    /**
-     * Reads the syntaxes
-     *
-     * @param element
-     *      the element
-     * @param schema
-     *      the schema
-     * @throws XMLSchemaFileImportException
-     */
-    private static void readSyntaxes( Element element, Schema schema ) throws XMLSchemaFileImportException
-    {
-        for ( Iterator<?> i = element.elementIterator( SYNTAXES_TAG ); i.hasNext(); )
-        {
-            Element syntaxElement = ( Element ) i.next();
-            for ( Iterator<?> i2 = syntaxElement.elementIterator( SYNTAX_TAG ); i2.hasNext(); )
-            {
-                readSyntax( ( Element ) i2.next(), schema );
-            }
-        }
-    }
-
-
     /**
      * Reads a syntax.
      *
-     * @param element
-     *      the element
+     * @param reader
+     *      the reader, positioned on the start tag of the element
      * @param schema
      *      the schema
      * @throws XMLSchemaFileImportException
+     * @throws XMLStreamException
      */
-    private static void readSyntax( Element element, Schema schema ) throws XMLSchemaFileImportException
+    private static void readSyntax( XMLStreamReader reader, Schema schema ) throws XMLSchemaFileImportException,
+        XMLStreamException
     {
         LdapSyntax syntax = null;
 
         // OID
-        Attribute oidAttribute = element.attribute( OID_TAG );
-        if ( ( oidAttribute != null ) && ( !oidAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        String oid = XMLStreamUtils.getAttribute( reader, OID_TAG );
+        if ( ( oid != null ) && ( !oid.equals( "" ) ) ) //$NON-NLS-1$
         {
-            syntax = new LdapSyntax( oidAttribute.getValue() );
+            syntax = new LdapSyntax( oid );
         }
         else
         {
@@ -728,41 +744,46 @@ public class XMLSchemaFileImporter
         // Schema
         syntax.setSchemaName( schema.getSchemaName() );
 
-        // Aliases
-        Element aliasesElement = element.element( ALIASES_TAG );
-        if ( aliasesElement != null )
-        {
-            List<String> aliases = new ArrayList<String>();
-            for ( Iterator<?> i = aliasesElement.elementIterator( ALIAS_TAG ); i.hasNext(); )
-            {
-                Element aliasElement = ( Element ) i.next();
-                aliases.add( aliasElement.getText() );
-            }
-            if ( aliases.size() >= 1 )
-            {
-                syntax.setNames( aliases.toArray( new String[0] ) );
-            }
-        }
-
-        // Description
-        Element descriptionElement = element.element( DESCRIPTION_TAG );
-        if ( ( descriptionElement != null ) && ( !descriptionElement.getText().equals( "" ) ) ) //$NON-NLS-1$
+        // Obsolete
+        String obsolete = XMLStreamUtils.getAttribute( reader, OBSOLETE_TAG );
+        if ( ( obsolete != null ) && ( !obsolete.equals( "" ) ) ) //$NON-NLS-1$
         {
-            syntax.setDescription( descriptionElement.getText() );
+            syntax.setObsolete( readBoolean( obsolete ) );
         }
 
-        // Obsolete
-        Attribute obsoleteAttribute = element.attribute( OBSOLETE_TAG );
-        if ( ( obsoleteAttribute != null ) && ( !obsoleteAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        // Human Readible
+        String humanReadible = XMLStreamUtils.getAttribute( reader, HUMAN_READABLE_TAG );
+        if ( ( humanReadible != null ) && ( !humanReadible.equals( "" ) ) ) //$NON-NLS-1$
         {
-            syntax.setObsolete( readBoolean( obsoleteAttribute.getValue() ) );
+            syntax.setHumanReadable( readBoolean( humanReadible ) );
         }
 
-        // Human Readible
-        Attribute humanReadibleAttribute = element.attribute( HUMAN_READABLE_TAG );
-        if ( ( humanReadibleAttribute != null ) && ( !humanReadibleAttribute.getValue().equals( "" ) ) ) //$NON-NLS-1$
+        while ( XMLStreamUtils.nextChildElement( reader ) )
         {
-            syntax.setHumanReadable( readBoolean( humanReadibleAttribute.getValue() ) );
+            switch ( reader.getLocalName() )
+            {
+                case ALIASES_TAG:
+                    // Aliases
+                    List<String> aliases = XMLStreamUtils.getChildElementsText( reader, ALIAS_TAG );
+                    if ( aliases.size() >= 1 )
+                    {
+                        syntax.setNames( aliases.toArray( new String[0] ) );
+                    }
+                    break;
+
+                case DESCRIPTION_TAG:
+                    // Description
+                    String description = XMLStreamUtils.getElementText( reader );
+                    if ( !description.equals( "" ) ) //$NON-NLS-1$
+                    {
+                        syntax.setDescription( description );
+                    }
+                    break;
+
+                default:
+                    XMLStreamUtils.skipElement( reader );
+                    break;
+            }
         }
 
         // Adding the syntax to the schema
@@ -809,7 +830,11 @@ public class XMLSchemaFileImporter
 
     /**
      * Gets the type of file.
+     * <p>
+     * Only the prolog and the start tag of the root element are read.
      *
+     * @param inputStream
+     *      the {@link InputStream} of the file, closed once read
      * @param path
      *      the path of the file
      * @return
@@ -819,24 +844,34 @@ public class XMLSchemaFileImporter
     public static SchemaFileType getSchemaFileType( InputStream inputStream, String path )
         throws XMLSchemaFileImportException
     {
-        SAXReader reader = new SAXReader();
-        Document document = null;
+        String rootElementName = null;
         try
         {
-            document = reader.read( inputStream );
+            XMLStreamReader reader = XMLStreamUtils.createReader( inputStream );
+            try
+            {
+                rootElementName = XMLStreamUtils.nextRootElement( reader );
+            }
+            finally
+            {
+                reader.close();
+            }
         }
-        catch ( DocumentException e )
+        catch ( XMLStreamException e )
         {
             throw new XMLSchemaFileImportException( NLS.bind( Messages
                 .getString( "XMLSchemaFileImporter.NotReadCorrectly" ), new String[] { path } ), e ); //$NON-NLS-1$
         }
+        finally
+        {
+            XMLStreamUtils.closeQuietly( inputStream );
+        }
 
-        Element rootElement = document.getRootElement();
-        if ( rootElement.getName().equals( SCHEMA_TAG ) )
+        if ( SCHEMA_TAG.equals( rootElementName ) )
         {
             return SchemaFileType.SINGLE;
         }
-        else if ( rootElement.getName().equals( SCHEMAS_TAG ) )
+        else if ( SCHEMAS_TAG.equals( rootElementName ) )
         {
             return SchemaFileType.MULTIPLE;
         }
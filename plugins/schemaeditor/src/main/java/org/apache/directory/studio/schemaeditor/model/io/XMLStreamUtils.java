@@ -0,0 +1,291 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.schemaeditor.model.io;
+
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+
+/**
+ * This class contains helper methods to read the XML files with a {@link XMLStreamReader}.
+ * <p>
+ * The methods reading the child elements of an element expect the reader to be positioned
+ * on the start tag of that element, and leave it positioned on its end tag.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+final class XMLStreamUtils
+{
+    /** The factory used to create the readers */
+    private static final XMLInputFactory INPUT_FACTORY = createInputFactory();
+
+
+    private XMLStreamUtils()
+    {
+        // Nothing to do
+    }
+
+
+    /**
+     * Creates the factory used to create the readers. DTDs and external entities
+     * are not processed.
+     *
+     * @return
+     *      the factory
+     */
+    private static XMLInputFactory createInputFactory()
+    {
+        XMLInputFactory factory = XMLInputFactory.newInstance();
+        factory.setProperty( XMLInputFactory.SUPPORT_DTD, Boolean.FALSE );
+        factory.setProperty( XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, Boolean.FALSE );
+        factory.setProperty( XMLInputFactory.IS_COALESCING, Boolean.TRUE );
+
+        return factory;
+    }
+
+
+    /**
+     * Creates a reader on the given input stream.
+     *
+     * @param inputStream
+     *      the input stream
+     * @return
+     *      the reader
+     * @throws XMLStreamException
+     *      if the reader could not be created
+     */
+    static XMLStreamReader createReader( InputStream inputStream ) throws XMLStreamException
+    {
+        return INPUT_FACTORY.createXMLStreamReader( inputStream );
+    }
+
+
+    /**
+     * Closes the given input stream. Closing a {@link XMLStreamReader} does not
+     * close its underlying stream, so the importers close it themselves.
+     *
+     * @param inputStream
+     *      the input stream, may be <code>null</code>
+     */
+    static void closeQuietly( InputStream inputStream )
+    {
+        if ( inputStream != null )
+        {
+            try
+            {
+                inputStream.close();
+            }
+            catch ( IOException e )
+            {
+                // Nothing to do
+            }
+        }
+    }
+
+
+    /**
+     * Moves the reader to the start tag of the root element. Only the prolog
+     * of the document is read.
+     *
+     * @param reader
+     *      the reader
+     * @return
+     *      the name of the root element, or <code>null</code> if the document
+     *      does not have any element
+     * @throws XMLStreamException
+     *      if an error occurs when reading the document
+     */
+    static String nextRootElement( XMLStreamReader reader ) throws XMLStreamException
+    {
+        while ( reader.hasNext() )
+        {
+            if ( reader.next() == XMLStreamConstants.START_ELEMENT )
+            {
+                return reader.getLocalName();
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Moves the reader to the start tag of the next child element of the current
+     * element.
+     *
+     * @param reader
+     *      the reader, positioned on the start tag of the current element or on the
+     *      end tag of its previous child element
+     * @return
+     *      <code>true</code> if the reader is positioned on the start tag of a child
+     *      element, <code>false</code> if it is positioned on the end tag of the
+     *      current element
+     * @throws XMLStreamException
+     *      if an error occurs when reading the document
+     */
+    static boolean nextChildElement( XMLStreamReader reader ) throws XMLStreamException
+    {
+        while ( reader.hasNext() )
+        {
+            int event = reader.next();
+
+            if ( event == XMLStreamConstants.START_ELEMENT )
+            {
+                return true;
+            }
+            else if ( event == XMLStreamConstants.END_ELEMENT )
+            {
+                return false;
+            }
+        }
+
+        return false;
+    }
+
+
+    /**
+     * Skips the current element and all its content.
+     *
+     * @param reader
+     *      the reader, positioned on the start tag of the element
+     * @throws XMLStreamException
+     *      if an error occurs when reading the document
+     */
+    static void skipElement( XMLStreamReader reader ) throws XMLStreamException
+    {
+        int depth = 1;
+
+        while ( ( depth > 0 ) && reader.hasNext() )
+        {
+            int event = reader.next();
+
+            if ( event == XMLStreamConstants.START_ELEMENT )
+            {
+                depth++;
+            }
+            else if ( event == XMLStreamConstants.END_ELEMENT )
+            {
+                depth--;
+            }
+        }
+    }
+
+
+    /**
+     * Gets the value of the given attribute of the current element.
+     *
+     * @param reader
+     *      the reader, positioned on the start tag of the element
+     * @param name
+     *      the name of the attribute
+     * @return
+     *      the value of the attribute, or <code>null</code> if the element does not
+     *      have this attribute
+     */
+    static String getAttribute( XMLStreamReader reader, String name )
+    {
+        return reader.getAttributeValue( null, name );
+    }
+
+
+    /**
+     * Reads the text of the current element. The content of its child elements,
+     * if any, is ignored.
+     *
+     * @param reader
+     *      the reader, positioned on the start tag of the element
+     * @return
+     *      the text of the element
+     * @throws XMLStreamException
+     *      if an error occurs when reading the document
+     */
+    static String getElementText( XMLStreamReader reader ) throws XMLStreamException
+    {
+        StringBuilder sb = new StringBuilder();
+
+        while ( reader.hasNext() )
+        {
+            int event = reader.next();
+
+            switch ( event )
+            {
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.CDATA:
+                case XMLStreamConstants.SPACE:
+                case XMLStreamConstants.ENTITY_REFERENCE:
+                    sb.append( reader.getText() );
+                    break;
+
+                case XMLStreamConstants.START_ELEMENT:
+                    skipElement( reader );
+                    break;
+
+                case XMLStreamConstants.END_ELEMENT:
+                    return sb.toString();
+
+                default:
+                    break;
+            }
+        }
+
+        return sb.toString();
+    }
+
+
+    /**
+     * Reads the texts of the child elements of the current element with the
+     * given name. The other child elements are skipped.
+     *
+     * @param reader
+     *      the reader, positioned on the start tag of the element
+     * @param name
+     *      the name of the child elements
+     * @return
+     *      the texts of the child elements
+     * @throws XMLStreamException
+     *      if an error occurs when reading the document
+     */
+    static List<String> getChildElementsText( XMLStreamReader reader, String name ) throws XMLStreamException
+    {
+        List<String> texts = new ArrayList<String>();
+
+        while ( nextChildElement( reader ) )
+        {
+            if ( name.equals( reader.getLocalName() ) )
+            {
+                texts.add( getElementText( reader ) );
+            }
+            else
+            {
+                skipElement( reader );
+            }
+        }
+
+        return texts;
+    }
+}
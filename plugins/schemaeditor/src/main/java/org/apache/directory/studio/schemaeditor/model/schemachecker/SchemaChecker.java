@@ -21,7 +21,13 @@ package org.apache.directory.studio.schemaeditor.model.schemachecker;
 
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.collections4.MultiValuedMap;
 import org.apache.commons.collections4.multimap.ArrayListValuedHashMap;
@@ -43,6 +49,7 @@ import org.apache.directory.studio.schemaeditor.model.Schema;
 import org.apache.directory.studio.schemaeditor.model.schemamanager.SchemaEditorSchemaLoader;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.OperationCanceledException;
 import org.eclipse.core.runtime.Status;
 import org.eclipse.core.runtime.jobs.Job;
 
@@ -59,8 +66,14 @@ public class SchemaChecker
     /** The SchemaChecker instance */
     private static SchemaChecker instance;
 
-    /** The schema manager */
-    private SchemaManager schemaManager;
+    /** The delay before checking the modifications, in milliseconds */
+    private static final long CHECK_DELAY = 300;
+
+    /** The errors list */
+    private List<Throwable> errorsList = new ArrayList<Throwable>();
+
+    /** The schema objects the errors belong to */
+    private Map<Throwable, SchemaObject> errorSources = new IdentityHashMap<>();
 
     /** The errors map */
     private MultiValuedMap<Object, Object> errorsMap = new ArrayListValuedHashMap<>();
@@ -80,6 +93,30 @@ public class SchemaChecker
     /** The listeners List */
     private List<SchemaCheckerListener> listeners = new ArrayList<SchemaCheckerListener>();
 
+    /** The index used to find the schema objects depending on a modified schema object */
+    private SchemaDependencyIndex dependencyIndex = new SchemaDependencyIndex();
+
+    /** The flag indicating that the whole schema has to be checked */
+    private boolean fullCheckPending = false;
+
+    /** The added or modified schema objects not checked yet */
+    private Set<SchemaObject> pendingModifiedObjects = newIdentitySet();
+
+    /** The removed schema objects not checked yet */
+    private Set<SchemaObject> pendingRemovedObjects = newIdentitySet();
+
+    /** The names and OIDs of the modified or removed schema objects not checked yet */
+    private Set<String> pendingModifiedKeys = new HashSet<>();
+
+    /** The job checking the schema */
+    private Job checkJob = new Job( "Checking Schema" )
+    {
+        protected IStatus run( IProgressMonitor monitor )
+        {
+            return checkSchema( monitor );
+        }
+    };
+
     /** The SchemaHandlerListener */
     private SchemaHandlerListener schemaHandlerListener = new SchemaHandlerAdapter()
     {
@@ -87,7 +124,7 @@ public class SchemaChecker
         {
             synchronized ( this )
             {
-                recheckWholeSchema();
+                schemaObjectModified( at );
             }
         }
 
@@ -96,7 +133,7 @@ public class SchemaChecker
         {
             synchronized ( this )
             {
-                recheckWholeSchema();
+                schemaObjectModified( at );
             }
         }
 
@@ -105,7 +142,7 @@ public class SchemaChecker
         {
             synchronized ( this )
             {
-                recheckWholeSchema();
+                schemaObjectRemoved( at );
             }
         }
 
@@ -114,7 +151,7 @@ public class SchemaChecker
         {
             synchronized ( this )
             {
-                recheckWholeSchema();
+                schemaObjectModified( oc );
             }
         }
 
@@ -123,7 +160,7 @@ public class SchemaChecker
         {
             synchronized ( this )
             {
-                recheckWholeSchema();
+                schemaObjectModified( oc );
             }
         }
 
@@ -132,7 +169,7 @@ public class SchemaChecker
         {
             synchronized ( this )
             {
-                recheckWholeSchema();
+                schemaObjectRemoved( oc );
             }
         }
 
@@ -264,52 +301,262 @@ public class SchemaChecker
     /**
      * Checks the whole schema.
      */
-    private void recheckWholeSchema()
+    private synchronized void recheckWholeSchema()
     {
-        Job job = new Job( "Checking Schema" )
+        fullCheckPending = true;
+        scheduleCheck();
+    }
+
+
+    /**
+     * Checks the given added or modified schema object and the schema objects depending on it.
+     *
+     * @param schemaObject the added or modified attribute type or object class
+     */
+    private synchronized void schemaObjectModified( SchemaObject schemaObject )
+    {
+        // The schema objects depending on the previous names and OID are affected too
+        pendingModifiedKeys.addAll( dependencyIndex.getDefinedKeys( schemaObject ) );
+        dependencyIndex.remove( schemaObject );
+        dependencyIndex.add( schemaObject );
+        pendingModifiedKeys.addAll( dependencyIndex.getDefinedKeys( schemaObject ) );
+
+        pendingModifiedObjects.add( schemaObject );
+        pendingRemovedObjects.remove( schemaObject );
+        scheduleCheck();
+    }
+
+
+    /**
+     * Checks the schema objects depending on the given removed schema object.
+     *
+     * @param schemaObject the removed attribute type or object class
+     */
+    private synchronized void schemaObjectRemoved( SchemaObject schemaObject )
+    {
+        pendingModifiedKeys.addAll( dependencyIndex.getDefinedKeys( schemaObject ) );
+        dependencyIndex.remove( schemaObject );
+
+        pendingModifiedObjects.remove( schemaObject );
+        pendingRemovedObjects.add( schemaObject );
+        scheduleCheck();
+    }
+
+
+    /**
+     * Schedules the check job. Modifications happening in a short time are checked
+     * together, a running check is cancelled as it is superseded by the new one.
+     */
+    private void scheduleCheck()
+    {
+        checkJob.cancel();
+        checkJob.schedule( CHECK_DELAY );
+    }
+
+
+    /**
+     * Checks the pending modifications.
+     *
+     * @param monitor the progress monitor
+     * @return the status
+     */
+    private IStatus checkSchema( IProgressMonitor monitor )
+    {
+        boolean fullCheck;
+        Set<SchemaObject> modifiedObjects;
+        Set<SchemaObject> removedObjects;
+        Set<String> modifiedKeys;
+        Set<SchemaObject> checkedObjects = null;
+        Set<SchemaObject> loadedObjects = null;
+
+        synchronized ( this )
+        {
+            fullCheck = fullCheckPending;
+            modifiedObjects = pendingModifiedObjects;
+            removedObjects = pendingRemovedObjects;
+            modifiedKeys = pendingModifiedKeys;
+
+            fullCheckPending = false;
+            pendingModifiedObjects = newIdentitySet();
+            pendingRemovedObjects = newIdentitySet();
+            pendingModifiedKeys = new HashSet<>();
+
+            if ( fullCheck )
+            {
+                rebuildDependencyIndex();
+            }
+            else
+            {
+                // The modified schema objects, the ones depending on them and the ones
+                // sharing a name or an OID with them have to be checked
+                checkedObjects = newIdentitySet();
+                checkedObjects.addAll( modifiedObjects );
+                checkedObjects.addAll( dependencyIndex.getDependents( modifiedKeys ) );
+                checkedObjects.addAll( dependencyIndex.getDefiningObjects( modifiedKeys ) );
+
+                // They are checked against all the schema objects they depend on
+                loadedObjects = dependencyIndex.getClosure( checkedObjects );
+            }
+        }
+
+        List<Throwable> errors = new ArrayList<Throwable>();
+
+        if ( fullCheck || !loadedObjects.isEmpty() )
+        {
+            // Checks the schema objects via the schema manager
+            try
+            {
+                SchemaEditorSchemaLoader loader = fullCheck ? new SchemaEditorSchemaLoader()
+                    : new SchemaEditorSchemaLoader( loadedObjects );
+
+                // The loader aborts the loading of the schemas as soon as the check is cancelled
+                loader.setProgressMonitor( monitor );
+
+                SchemaManager schemaManager = new DefaultSchemaManager( loader );
+                schemaManager.loadAllEnabled();
+                errors = schemaManager.getErrors();
+            }
+            catch ( OperationCanceledException e )
+            {
+                // Superseded by new modifications, handled below
+            }
+            catch ( Exception e )
+            {
+                // TODO Auto-generated catch block
+                e.printStackTrace();
+            }
+        }
+
+        if ( monitor.isCanceled() )
         {
-            protected IStatus run( IProgressMonitor monitor )
+            // Superseded by new modifications, the modifications are checked again with them
+            synchronized ( this )
             {
-                // Checks the whole schema via the schema manager
-                try
+                fullCheckPending |= fullCheck;
+
+                for ( SchemaObject modifiedObject : modifiedObjects )
                 {
-                    schemaManager = new DefaultSchemaManager( new SchemaEditorSchemaLoader() );
-                    schemaManager.loadAllEnabled();
+                    if ( !pendingRemovedObjects.contains( modifiedObject ) )
+                    {
+                        pendingModifiedObjects.add( modifiedObject );
+                    }
                 }
-                catch ( Exception e )
+
+                for ( SchemaObject removedObject : removedObjects )
                 {
-                    // TODO Auto-generated catch block
-                    e.printStackTrace();
+                    if ( !pendingModifiedObjects.contains( removedObject ) )
+                    {
+                        pendingRemovedObjects.add( removedObject );
+                    }
                 }
 
-                // Updates errors and warnings
-                updateErrorsAndWarnings();
+                pendingModifiedKeys.addAll( modifiedKeys );
+            }
+
+            return Status.CANCEL_STATUS;
+        }
+
+        // Updates errors and warnings
+        updateErrorsAndWarnings( errors, checkedObjects, removedObjects );
 
-                // Notify listeners
-                notifyListeners();
+        // Notify listeners
+        notifyListeners();
 
-                monitor.done();
+        monitor.done();
 
-                return Status.OK_STATUS;
+        return Status.OK_STATUS;
+    }
+
+
+    /**
+     * Rebuilds the dependency index with all attribute types and object classes.
+     */
+    private void rebuildDependencyIndex()
+    {
+        dependencyIndex.clear();
+        SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
+
+        if ( schemaHandler != null )
+        {
+            for ( AttributeType attributeType : schemaHandler.getAttributeTypes() )
+            {
+                dependencyIndex.add( attributeType );
+            }
+
+            for ( ObjectClass objectClass : schemaHandler.getObjectClasses() )
+            {
+                dependencyIndex.add( objectClass );
             }
-        };
-        job.schedule();
+        }
     }
 
 
     /**
      * Updates the errors and warnings. 
+     *
+     * @param errors the errors of the check
+     * @param checkedObjects the checked schema objects, null if the whole schema has been checked
+     * @param removedObjects the removed schema objects
      */
-    private synchronized void updateErrorsAndWarnings()
+    private void updateErrorsAndWarnings( List<Throwable> errors, Set<SchemaObject> checkedObjects,
+        Set<SchemaObject> removedObjects )
     {
         synchronized ( lock )
         {
-            // Errors
+            if ( checkedObjects == null )
+            {
+                errorsList.clear();
+                errorSources.clear();
+                warningsList.clear();
+            }
+            else
+            {
+                // Removing the errors and warnings of the checked and removed schema objects
+                for ( Iterator<Throwable> it = errorsList.iterator(); it.hasNext(); )
+                {
+                    Throwable error = it.next();
+                    SchemaObject source = errorSources.get( error );
+
+                    if ( ( source != null )
+                        && ( checkedObjects.contains( source ) || removedObjects.contains( source ) ) )
+                    {
+                        it.remove();
+                        errorSources.remove( error );
+                    }
+                }
+
+                for ( Iterator<SchemaWarning> it = warningsList.iterator(); it.hasNext(); )
+                {
+                    SchemaObject source = it.next().getSource();
+
+                    if ( checkedObjects.contains( source ) || removedObjects.contains( source ) )
+                    {
+                        it.remove();
+                    }
+                }
+            }
+
+            // Errors, the errors of the schema objects only loaded as dependencies are ignored
+            for ( Throwable error : errors )
+            {
+                SchemaObject source = getErrorSource( error );
+
+                if ( ( checkedObjects == null ) || ( ( source != null ) && checkedObjects.contains( source ) ) )
+                {
+                    errorsList.add( error );
+
+                    if ( source != null )
+                    {
+                        errorSources.put( error, source );
+                    }
+                }
+            }
+
             errorsMap.clear();
             indexErrors();
 
             // Warnings
-            createWarnings();
+            createWarnings( checkedObjects );
             warningsMap.clear();
             indexWarnings();
         }
@@ -321,47 +568,75 @@ public class SchemaChecker
      */
     private void indexErrors()
     {
-        for ( Throwable error : schemaManager.getErrors() )
+        for ( Throwable error : errorsList )
         {
-            if ( error instanceof LdapSchemaException )
+            SchemaObject source = errorSources.get( error );
+
+            if ( source != null )
             {
-                LdapSchemaException ldapSchemaException = ( LdapSchemaException ) error;
-                SchemaObject source = ldapSchemaException.getSourceObject();
-                if ( source != null )
-                {
-                    SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
+                errorsMap.put( source, error );
+            }
+        }
+    }
 
-                    if ( source instanceof AttributeType )
-                    {
-                        source = schemaHandler.getAttributeType( source.getOid() );
-                    }
-                    else if ( source instanceof LdapSyntax )
-                    {
-                        source = schemaHandler.getSyntax( source.getOid() );
-                    }
-                    else if ( source instanceof MatchingRule )
-                    {
-                        source = schemaHandler.getMatchingRule( source.getOid() );
-                    }
-                    else if ( source instanceof ObjectClass )
-                    {
-                        source = schemaHandler.getObjectClass( source.getOid() );
-                    }
 
-                    errorsMap.put( source, ldapSchemaException );
+    /**
+     * Gets the schema object of the schema handler the given error belongs to.
+     *
+     * @param error the error
+     * @return the schema object, null if the error doesn't belong to a schema object
+     */
+    private SchemaObject getErrorSource( Throwable error )
+    {
+        if ( error instanceof LdapSchemaException )
+        {
+            LdapSchemaException ldapSchemaException = ( LdapSchemaException ) error;
+            SchemaObject source = ldapSchemaException.getSourceObject();
+            if ( source != null )
+            {
+                SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
+
+                if ( source instanceof AttributeType )
+                {
+                    source = schemaHandler.getAttributeType( source.getOid() );
+                }
+                else if ( source instanceof LdapSyntax )
+                {
+                    source = schemaHandler.getSyntax( source.getOid() );
+                }
+                else if ( source instanceof MatchingRule )
+                {
+                    source = schemaHandler.getMatchingRule( source.getOid() );
                 }
+                else if ( source instanceof ObjectClass )
+                {
+                    source = schemaHandler.getObjectClass( source.getOid() );
+                }
+
+                return source;
             }
         }
+
+        return null;
     }
 
 
     /**
      * Creates the warnings.
+     *
+     * @param checkedObjects the checked schema objects, null to create the warnings of all schema objects
      */
-    private void createWarnings()
+    private void createWarnings( Set<SchemaObject> checkedObjects )
     {
-        // Clearing previous warnings
-        warningsList.clear();
+        if ( checkedObjects != null )
+        {
+            for ( SchemaObject schemaObject : checkedObjects )
+            {
+                checkSchemaObjectNames( schemaObject );
+            }
+
+            return;
+        }
 
         // Getting the schema handler to check for schema objects without names (aliases)
         SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
@@ -383,6 +658,17 @@ public class SchemaChecker
     }
 
 
+    /**
+     * Creates a new set of schema objects based on their identity.
+     *
+     * @return the new set
+     */
+    private static Set<SchemaObject> newIdentitySet()
+    {
+        return Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+    }
+
+
     /**
      * Checks the names of the given schema object.
      *
@@ -417,13 +703,9 @@ public class SchemaChecker
      */
     public List<Throwable> getErrors()
     {
-        if ( schemaManager != null )
-        {
-            return schemaManager.getErrors();
-        }
-        else
+        synchronized ( lock )
         {
-            return new ArrayList<Throwable>();
+            return new ArrayList<Throwable>( errorsList );
         }
     }
 
@@ -0,0 +1,313 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.schemaeditor.model.schemachecker;
+
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.api.util.Strings;
+
+
+/**
+ * This class indexes the attribute types and object classes by the names and OIDs
+ * they define and by the names and OIDs they reference (superiors, mandatory and
+ * optional attribute types). It is used by the {@link SchemaChecker} to find
+ * the schema objects affected by a modification.
+ * <p>
+ * The index works on the identity of the schema objects, as schema objects
+ * are modified in place by the schema handler.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class SchemaDependencyIndex
+{
+    /** The keys (lower-cased names and OID) defined by each schema object */
+    private Map<SchemaObject, Set<String>> definedKeys = new IdentityHashMap<>();
+
+    /** The keys (lower-cased names or OIDs) referenced by each schema object */
+    private Map<SchemaObject, Set<String>> referencedKeys = new IdentityHashMap<>();
+
+    /** The schema objects defining a key */
+    private Map<String, Set<SchemaObject>> definitions = new HashMap<>();
+
+    /** The schema objects referencing a key */
+    private Map<String, Set<SchemaObject>> references = new HashMap<>();
+
+
+    /**
+     * Adds an attribute type or an object class to the index.
+     *
+     * @param schemaObject the schema object
+     */
+    public void add( SchemaObject schemaObject )
+    {
+        Set<String> defined = new LinkedHashSet<>();
+        addKey( defined, schemaObject.getOid() );
+
+        if ( schemaObject.getNames() != null )
+        {
+            for ( String name : schemaObject.getNames() )
+            {
+                addKey( defined, name );
+            }
+        }
+
+        Set<String> referenced = new LinkedHashSet<>();
+
+        if ( schemaObject instanceof AttributeType )
+        {
+            addKey( referenced, ( ( AttributeType ) schemaObject ).getSuperiorOid() );
+        }
+        else if ( schemaObject instanceof ObjectClass )
+        {
+            ObjectClass objectClass = ( ObjectClass ) schemaObject;
+            addKeys( referenced, objectClass.getSuperiorOids() );
+            addKeys( referenced, objectClass.getMustAttributeTypeOids() );
+            addKeys( referenced, objectClass.getMayAttributeTypeOids() );
+        }
+
+        definedKeys.put( schemaObject, defined );
+        referencedKeys.put( schemaObject, referenced );
+
+        for ( String key : defined )
+        {
+            getObjects( definitions, key ).add( schemaObject );
+        }
+
+        for ( String key : referenced )
+        {
+            getObjects( references, key ).add( schemaObject );
+        }
+    }
+
+
+    /**
+     * Removes an attribute type or an object class from the index.
+     *
+     * @param schemaObject the schema object
+     */
+    public void remove( SchemaObject schemaObject )
+    {
+        removeObject( definitions, definedKeys.remove( schemaObject ), schemaObject );
+        removeObject( references, referencedKeys.remove( schemaObject ), schemaObject );
+    }
+
+
+    /**
+     * Clears the index.
+     */
+    public void clear()
+    {
+        definedKeys.clear();
+        referencedKeys.clear();
+        definitions.clear();
+        references.clear();
+    }
+
+
+    /**
+     * Gets the keys (lower-cased names and OID) the given schema object has been indexed with.
+     *
+     * @param schemaObject the schema object
+     * @return the keys, empty if the schema object isn't indexed
+     */
+    public Set<String> getDefinedKeys( SchemaObject schemaObject )
+    {
+        Set<String> keys = definedKeys.get( schemaObject );
+
+        if ( keys == null )
+        {
+            return Collections.emptySet();
+        }
+
+        return keys;
+    }
+
+
+    /**
+     * Gets the schema objects defining one of the given keys. More than one
+     * schema object defining the same key means that a name or OID is
+     * registered twice.
+     *
+     * @param keys the keys
+     * @return the schema objects defining the keys
+     */
+    public Set<SchemaObject> getDefiningObjects( Collection<String> keys )
+    {
+        Set<SchemaObject> objects = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+
+        for ( String key : keys )
+        {
+            Set<SchemaObject> definingObjects = definitions.get( key );
+
+            if ( definingObjects != null )
+            {
+                objects.addAll( definingObjects );
+            }
+        }
+
+        return objects;
+    }
+
+
+    /**
+     * Gets the schema objects depending directly or indirectly on one of the given keys,
+     * e.g. the sub types of an attribute type and the object classes using it.
+     *
+     * @param keys the keys
+     * @return the dependent schema objects
+     */
+    public Set<SchemaObject> getDependents( Collection<String> keys )
+    {
+        Set<SchemaObject> dependents = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+        Deque<String> keysToProcess = new ArrayDeque<>( keys );
+
+        while ( !keysToProcess.isEmpty() )
+        {
+            Set<SchemaObject> referencingObjects = references.get( keysToProcess.poll() );
+
+            if ( referencingObjects != null )
+            {
+                for ( SchemaObject referencingObject : referencingObjects )
+                {
+                    if ( dependents.add( referencingObject ) )
+                    {
+                        keysToProcess.addAll( getDefinedKeys( referencingObject ) );
+                    }
+                }
+            }
+        }
+
+        return dependents;
+    }
+
+
+    /**
+     * Gets the given schema objects and all schema objects they depend on,
+     * directly or indirectly.
+     *
+     * @param schemaObjects the schema objects
+     * @return the schema objects and their dependencies
+     */
+    public Set<SchemaObject> getClosure( Collection<SchemaObject> schemaObjects )
+    {
+        Set<SchemaObject> closure = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+        Deque<SchemaObject> objectsToProcess = new ArrayDeque<>( schemaObjects );
+
+        while ( !objectsToProcess.isEmpty() )
+        {
+            SchemaObject schemaObject = objectsToProcess.poll();
+
+            if ( closure.add( schemaObject ) )
+            {
+                Set<String> keys = referencedKeys.get( schemaObject );
+
+                if ( keys != null )
+                {
+                    objectsToProcess.addAll( getDefiningObjects( keys ) );
+                }
+            }
+        }
+
+        return closure;
+    }
+
+
+    /**
+     * Adds the lower-cased key to the set, if not null.
+     */
+    private static void addKey( Set<String> keys, String key )
+    {
+        if ( !Strings.isEmpty( key ) )
+        {
+            keys.add( Strings.toLowerCaseAscii( key ) );
+        }
+    }
+
+
+    /**
+     * Adds the lower-cased keys to the set.
+     */
+    private static void addKeys( Set<String> keys, List<String> keysToAdd )
+    {
+        if ( keysToAdd != null )
+        {
+            for ( String key : keysToAdd )
+            {
+                addKey( keys, key );
+            }
+        }
+    }
+
+
+    /**
+     * Gets the identity set of schema objects associated with the key, creates it if needed.
+     */
+    private static Set<SchemaObject> getObjects( Map<String, Set<SchemaObject>> map, String key )
+    {
+        Set<SchemaObject> objects = map.get( key );
+
+        if ( objects == null )
+        {
+            objects = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+            map.put( key, objects );
+        }
+
+        return objects;
+    }
+
+
+    /**
+     * Removes the schema object from the sets associated with the keys.
+     */
+    private static void removeObject( Map<String, Set<SchemaObject>> map, Set<String> keys, SchemaObject schemaObject )
+    {
+        if ( keys != null )
+        {
+            for ( String key : keys )
+            {
+                Set<SchemaObject> objects = map.get( key );
+
+                if ( objects != null )
+                {
+                    objects.remove( schemaObject );
+
+                    if ( objects.isEmpty() )
+                    {
+                        map.remove( key );
+                    }
+                }
+            }
+        }
+    }
+}
@@ -22,7 +22,11 @@ package org.apache.directory.studio.schemaeditor.model.schemamanager;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.directory.api.ldap.model.entry.Entry;
 import org.apache.directory.api.ldap.model.exception.LdapException;
@@ -30,10 +34,13 @@ import org.apache.directory.api.ldap.model.schema.AttributeType;
 import org.apache.directory.api.ldap.model.schema.LdapSyntax;
 import org.apache.directory.api.ldap.model.schema.MatchingRule;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
 import org.apache.directory.api.ldap.model.schema.registries.AbstractSchemaLoader;
 import org.apache.directory.api.ldap.model.schema.registries.Schema;
 import org.apache.directory.studio.schemaeditor.Activator;
 import org.apache.directory.studio.schemaeditor.model.Project;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.OperationCanceledException;
 
 
 /**
@@ -46,6 +53,12 @@ public class SchemaEditorSchemaLoader extends AbstractSchemaLoader
     /** The currently open project */
     private Project project;
 
+    /** The attribute types and object classes to load, null to load all of them */
+    private Set<SchemaObject> attributeTypesAndObjectClasses;
+
+    /** The progress monitor checked for cancellation while loading, may be null */
+    private IProgressMonitor monitor;
+
 
     /**
      * Creates a new instance of SchemaEditorSchemaLoader.
@@ -58,6 +71,58 @@ public class SchemaEditorSchemaLoader extends AbstractSchemaLoader
     }
 
 
+    /**
+     * Creates a new instance of SchemaEditorSchemaLoader, only loading
+     * the given attribute types and object classes. All syntaxes and
+     * matching rules are loaded.
+     *
+     * @param attributeTypesAndObjectClasses the attribute types and object classes to load
+     */
+    public SchemaEditorSchemaLoader( Collection<? extends SchemaObject> attributeTypesAndObjectClasses )
+    {
+        this.attributeTypesAndObjectClasses = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+        this.attributeTypesAndObjectClasses.addAll( attributeTypesAndObjectClasses );
+        initializeSchemas();
+    }
+
+
+    /**
+     * Indicates if the given attribute type or object class has to be loaded.
+     *
+     * @param schemaObject the attribute type or object class
+     * @return true if the schema object has to be loaded
+     */
+    private boolean isLoaded( SchemaObject schemaObject )
+    {
+        return ( attributeTypesAndObjectClasses == null ) || attributeTypesAndObjectClasses.contains( schemaObject );
+    }
+
+
+    /**
+     * Sets the progress monitor checked for cancellation while loading the schemas.
+     *
+     * @param monitor the progress monitor, may be null
+     */
+    public void setProgressMonitor( IProgressMonitor monitor )
+    {
+        this.monitor = monitor;
+    }
+
+
+    /**
+     * Aborts the loading if the progress monitor was cancelled.
+     *
+     * @throws OperationCanceledException if the progress monitor was cancelled
+     */
+    private void checkCanceled()
+    {
+        if ( ( monitor != null ) && monitor.isCanceled() )
+        {
+            throw new OperationCanceledException();
+        }
+    }
+
+
     /**
      * Initialize schemas.
      */
@@ -114,6 +179,8 @@ public class SchemaEditorSchemaLoader extends AbstractSchemaLoader
         {
             for ( Schema schema : schemas )
             {
+                checkCanceled();
+
                 org.apache.directory.studio.schemaeditor.model.Schema schemaHandlerSchema = project.getSchemaHandler()
                     .getSchema( schema.getSchemaName() );
 
@@ -144,6 +211,8 @@ public class SchemaEditorSchemaLoader extends AbstractSchemaLoader
         {
             for ( Schema schema : schemas )
             {
+                checkCanceled();
+
                 org.apache.directory.studio.schemaeditor.model.Schema schemaHandlerSchema = project.getSchemaHandler()
                     .getSchema( schema.getSchemaName() );
 
@@ -174,6 +243,8 @@ public class SchemaEditorSchemaLoader extends AbstractSchemaLoader
         {
             for ( Schema schema : schemas )
             {
+                checkCanceled();
+
                 org.apache.directory.studio.schemaeditor.model.Schema schemaHandlerSchema = project.getSchemaHandler()
                     .getSchema( schema.getSchemaName() );
 
@@ -183,7 +254,10 @@ public class SchemaEditorSchemaLoader extends AbstractSchemaLoader
 
                     for ( AttributeType attributeType : attributeTypes )
                     {
-                        attributeTypeList.add( SchemaEditorSchemaLoaderUtils.toEntry( attributeType ) );
+                        if ( isLoaded( attributeType ) )
+                        {
+                            attributeTypeList.add( SchemaEditorSchemaLoaderUtils.toEntry( attributeType ) );
+                        }
                     }
                 }
             }
@@ -240,6 +314,8 @@ public class SchemaEditorSchemaLoader extends AbstractSchemaLoader
         {
             for ( Schema schema : schemas )
             {
+                checkCanceled();
+
                 org.apache.directory.studio.schemaeditor.model.Schema schemaHandlerSchema = project.getSchemaHandler()
                     .getSchema( schema.getSchemaName() );
 
@@ -249,7 +325,10 @@ public class SchemaEditorSchemaLoader extends AbstractSchemaLoader
 
                     for ( ObjectClass objectClass : objectClasses )
                     {
-                        objectClassList.add( SchemaEditorSchemaLoaderUtils.toEntry( objectClass ) );
+                        if ( isLoaded( objectClass ) )
+                        {
+                            objectClassList.add( SchemaEditorSchemaLoaderUtils.toEntry( objectClass ) );
+                        }
                     }
                 }
             }
@@ -0,0 +1,751 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+package org.apache.directory.studio.schemaeditor.view.search;
+
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.studio.schemaeditor.PluginConstants;
+import org.apache.directory.studio.schemaeditor.view.search.SearchPage.SearchInEnum;
+
+
+/**
+ * This class implements an in-memory index of the attribute types and object classes,
+ * used to answer the queries of the Search View without scanning the whole schema.
+ * <p>
+ * For each searchable field (see {@link SearchInEnum}), the index holds:
+ * <ul>
+ *   <li>the trigrams of the lowercased values, used for the literal parts of the
+ *   search string;</li>
+ *   <li>the sorted lowercased values, used as a prefix tree when the search string
+ *   does not start with a wildcard (e.g. '2.5.4.*').</li>
+ * </ul>
+ * The index only preselects candidates, which are then matched against the search pattern.
+ * Queries without any usable literal part (e.g. '*' or '*a?b*') fall back to a scan.
+ * <p>
+ * The index is built lazily and kept up to date with the {@link #add(SchemaObject)} and
+ * {@link #remove(SchemaObject)} methods.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaSearchIndex
+{
+    /** The length of the indexed grams */
+    private static final int GRAM_LENGTH = 3;
+
+    /** The trigrams, per field */
+    private Map<SearchInEnum, Map<String, Set<SchemaObject>>> gramsMap = new EnumMap<SearchInEnum, Map<String, Set<SchemaObject>>>(
+        SearchInEnum.class );
+
+    /** The sorted lowercased values, per field */
+    private Map<SearchInEnum, NavigableMap<String, Set<SchemaObject>>> valuesMap = new EnumMap<SearchInEnum, NavigableMap<String, Set<SchemaObject>>>(
+        SearchInEnum.class );
+
+    /** The indexed values of each schema object, as they were when the object was indexed */
+    private Map<SchemaObject, Map<SearchInEnum, List<String>>> indexedObjects = new IdentityHashMap<SchemaObject, Map<SearchInEnum, List<String>>>();
+
+    /** The position of each schema object, in the order they were first indexed */
+    private Map<SchemaObject, Integer> positions = new IdentityHashMap<SchemaObject, Integer>();
+
+    /** The position of the next indexed schema object */
+    private int nextPosition = 0;
+
+    /** The comparator ordering the schema objects by position */
+    private Comparator<SchemaObject> positionComparator = new Comparator<SchemaObject>()
+    {
+        public int compare( SchemaObject o1, SchemaObject o2 )
+        {
+            return positions.get( o1 ).compareTo( positions.get( o2 ) );
+        }
+    };
+
+    /** The flag indicating if the index has been built */
+    private boolean built = false;
+
+
+    /**
+     * Builds the index from the given attribute types and object classes.
+     *
+     * @param attributeTypes
+     *      the attribute types
+     * @param objectClasses
+     *      the object classes
+     */
+    public synchronized void build( Collection<AttributeType> attributeTypes, Collection<ObjectClass> objectClasses )
+    {
+        clear();
+
+        for ( AttributeType at : attributeTypes )
+        {
+            index( at );
+        }
+
+        for ( ObjectClass oc : objectClasses )
+        {
+            index( oc );
+        }
+
+        built = true;
+    }
+
+
+    /**
+     * Indicates if the index has been built.
+     *
+     * @return
+     *      true if the index has been built, false if not
+     */
+    public synchronized boolean isBuilt()
+    {
+        return built;
+    }
+
+
+    /**
+     * Clears the index. It needs to be built again before being used.
+     */
+    public synchronized void clear()
+    {
+        gramsMap.clear();
+        valuesMap.clear();
+        indexedObjects.clear();
+        positions.clear();
+        nextPosition = 0;
+        built = false;
+    }
+
+
+    /**
+     * Adds (or re-indexes) the given schema object.
+     * <p>
+     * Nothing is done when the index has not been built yet, as it will
+     * be picked up by the next build.
+     *
+     * @param object
+     *      the schema object
+     */
+    public synchronized void add( SchemaObject object )
+    {
+        if ( built )
+        {
+            unindex( object );
+            index( object );
+        }
+    }
+
+
+    /**
+     * Removes the given schema object.
+     *
+     * @param object
+     *      the schema object
+     */
+    public synchronized void remove( SchemaObject object )
+    {
+        if ( built )
+        {
+            unindex( object );
+            positions.remove( object );
+        }
+    }
+
+
+    /**
+     * Gets the number of indexed schema objects.
+     *
+     * @return
+     *      the number of indexed schema objects
+     */
+    public synchronized int size()
+    {
+        return indexedObjects.size();
+    }
+
+
+    /**
+     * Searches the objects corresponding to the search parameters.
+     *
+     * @param searchString
+     *      the search String
+     * @param searchIn
+     *      the search In
+     * @param scope
+     *      the scope
+     * @return
+     *      the matching attribute types, followed by the matching object classes,
+     *      each in the order they were indexed
+     */
+    public synchronized List<SchemaObject> search( String searchString, SearchInEnum[] searchIn, int scope )
+    {
+        List<SchemaObject> searchResults = new ArrayList<SchemaObject>();
+
+        if ( searchString == null )
+        {
+            return searchResults;
+        }
+
+        boolean searchAttributeTypes = ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_AND_OC )
+            || ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_ONLY );
+        boolean searchObjectClasses = ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_AND_OC )
+            || ( scope == PluginConstants.PREFS_SEARCH_PAGE_SCOPE_OC_ONLY );
+
+        Pattern pattern = compilePattern( searchString );
+        String prefix = getPrefix( searchString );
+        List<String> fragments = getFragments( searchString );
+
+        Set<SchemaObject> matches = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+
+        for ( SearchInEnum field : searchIn )
+        {
+            for ( SchemaObject candidate : getCandidates( field, prefix, fragments ) )
+            {
+                if ( matches.contains( candidate ) )
+                {
+                    continue;
+                }
+
+                if ( ( candidate instanceof AttributeType ) && !searchAttributeTypes )
+                {
+                    continue;
+                }
+
+                if ( ( candidate instanceof ObjectClass ) && !searchObjectClasses )
+                {
+                    continue;
+                }
+
+                List<String> values = indexedObjects.get( candidate ).get( field );
+                if ( ( values != null ) && checkList( pattern, values ) )
+                {
+                    matches.add( candidate );
+                }
+            }
+        }
+
+        // Attribute types first, then object classes, keeping the order of the schema
+        List<SchemaObject> sortedMatches = new ArrayList<SchemaObject>( matches );
+        Collections.sort( sortedMatches, positionComparator );
+
+        for ( SchemaObject match : sortedMatches )
+        {
+            if ( match instanceof AttributeType )
+            {
+                searchResults.add( match );
+            }
+        }
+
+        for ( SchemaObject match : sortedMatches )
+        {
+            if ( match instanceof ObjectClass )
+            {
+                searchResults.add( match );
+            }
+        }
+
+        return searchResults;
+    }
+
+
+    /**
+     * Compiles the given search string into a case insensitive pattern.
+     * <p>
+     * '*' matches any string and '?' matches any character, everything
+     * else is matched literally.
+     *
+     * @param searchString
+     *      the search string
+     * @return
+     *      the corresponding pattern
+     */
+    public static Pattern compilePattern( String searchString )
+    {
+        StringBuilder sb = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+
+        for ( char c : searchString.toCharArray() )
+        {
+            if ( ( c == '*' ) || ( c == '?' ) )
+            {
+                if ( literal.length() > 0 )
+                {
+                    sb.append( Pattern.quote( literal.toString() ) );
+                    literal.setLength( 0 );
+                }
+
+                sb.append( ( c == '*' ) ? "[\\S]*" : "[\\S]" ); //$NON-NLS-1$ //$NON-NLS-2$
+            }
+            else
+            {
+                literal.append( c );
+            }
+        }
+
+        if ( literal.length() > 0 )
+        {
+            sb.append( Pattern.quote( literal.toString() ) );
+        }
+
+        return Pattern.compile( sb.toString(), Pattern.CASE_INSENSITIVE );
+    }
+
+
+    /**
+     * Gets the candidates for the given field.
+     *
+     * @param field
+     *      the field
+     * @param prefix
+     *      the lowercased literal prefix of the search string
+     * @param fragments
+     *      the lowercased literal fragments of the search string
+     * @return
+     *      the candidates, a superset of the matching objects
+     */
+    private Collection<SchemaObject> getCandidates( SearchInEnum field, String prefix, List<String> fragments )
+    {
+        Set<SchemaObject> candidates = null;
+
+        // Using the sorted values as a prefix tree
+        if ( prefix.length() > 0 )
+        {
+            candidates = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+            NavigableMap<String, Set<SchemaObject>> values = valuesMap.get( field );
+
+            if ( values != null )
+            {
+                for ( Map.Entry<String, Set<SchemaObject>> entry : values.tailMap( prefix, true ).entrySet() )
+                {
+                    if ( !entry.getKey().startsWith( prefix ) )
+                    {
+                        break;
+                    }
+
+                    candidates.addAll( entry.getValue() );
+                }
+            }
+        }
+
+        // Intersecting with the objects containing each trigram of the fragments
+        Map<String, Set<SchemaObject>> grams = gramsMap.get( field );
+
+        for ( String fragment : fragments )
+        {
+            for ( int i = 0; i + GRAM_LENGTH <= fragment.length(); i++ )
+            {
+                if ( ( candidates != null ) && candidates.isEmpty() )
+                {
+                    return candidates;
+                }
+
+                Set<SchemaObject> posting = ( grams == null ) ? null : grams.get( fragment.substring( i, i
+                    + GRAM_LENGTH ) );
+
+                if ( posting == null )
+                {
+                    return Collections.emptySet();
+                }
+
+                if ( candidates == null )
+                {
+                    candidates = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+                    candidates.addAll( posting );
+                }
+                else
+                {
+                    candidates.retainAll( posting );
+                }
+            }
+        }
+
+        if ( candidates == null )
+        {
+            // No usable literal part, scanning all the objects
+            return new ArrayList<SchemaObject>( indexedObjects.keySet() );
+        }
+
+        return candidates;
+    }
+
+
+    /**
+     * Gets the lowercased literal prefix of the search string.
+     *
+     * @param searchString
+     *      the search string
+     * @return
+     *      the literal prefix, or an empty string if the search string starts with a wildcard
+     */
+    private static String getPrefix( String searchString )
+    {
+        StringBuilder sb = new StringBuilder();
+
+        for ( char c : searchString.toCharArray() )
+        {
+            if ( ( c == '*' ) || ( c == '?' ) )
+            {
+                break;
+            }
+
+            sb.append( Character.toLowerCase( c ) );
+        }
+
+        return sb.toString();
+    }
+
+
+    /**
+     * Gets the lowercased literal fragments (the parts between the wildcards) of the search string.
+     *
+     * @param searchString
+     *      the search string
+     * @return
+     *      the literal fragments
+     */
+    private static List<String> getFragments( String searchString )
+    {
+        List<String> fragments = new ArrayList<String>();
+        StringBuilder sb = new StringBuilder();
+
+        for ( char c : searchString.toCharArray() )
+        {
+            if ( ( c == '*' ) || ( c == '?' ) )
+            {
+                if ( sb.length() > 0 )
+                {
+                    fragments.add( sb.toString() );
+                    sb.setLength( 0 );
+                }
+            }
+            else
+            {
+                sb.append( Character.toLowerCase( c ) );
+            }
+        }
+
+        if ( sb.length() > 0 )
+        {
+            fragments.add( sb.toString() );
+        }
+
+        return fragments;
+    }
+
+
+    /**
+     * Lowercases the given string, character per character, so that
+     * its length is preserved.
+     *
+     * @param string
+     *      the string
+     * @return
+     *      the lowercased string
+     */
+    private static String toLowerCase( String string )
+    {
+        char[] chars = string.toCharArray();
+
+        for ( int i = 0; i < chars.length; i++ )
+        {
+            chars[i] = Character.toLowerCase( chars[i] );
+        }
+
+        return new String( chars );
+    }
+
+
+    /**
+     * Indexes the given schema object.
+     *
+     * @param object
+     *      the schema object
+     */
+    private void index( SchemaObject object )
+    {
+        Map<SearchInEnum, List<String>> fields = getFields( object );
+
+        if ( fields == null )
+        {
+            return;
+        }
+
+        indexedObjects.put( object, fields );
+
+        // A re-indexed object keeps its position
+        if ( !positions.containsKey( object ) )
+        {
+            positions.put( object, nextPosition++ );
+        }
+
+        for ( Map.Entry<SearchInEnum, List<String>> entry : fields.entrySet() )
+        {
+            SearchInEnum field = entry.getKey();
+
+            for ( String value : entry.getValue() )
+            {
+                String lowerCasedValue = toLowerCase( value );
+
+                NavigableMap<String, Set<SchemaObject>> values = valuesMap.get( field );
+                if ( values == null )
+                {
+                    values = new TreeMap<String, Set<SchemaObject>>();
+                    valuesMap.put( field, values );
+                }
+
+                getPosting( values, lowerCasedValue ).add( object );
+
+                Map<String, Set<SchemaObject>> grams = gramsMap.get( field );
+                if ( grams == null )
+                {
+                    grams = new HashMap<String, Set<SchemaObject>>();
+                    gramsMap.put( field, grams );
+                }
+
+                for ( int i = 0; i + GRAM_LENGTH <= lowerCasedValue.length(); i++ )
+                {
+                    getPosting( grams, lowerCasedValue.substring( i, i + GRAM_LENGTH ) ).add( object );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Removes the given schema object from the index, using the values it
+     * had when it was indexed (the object may have been modified since).
+     *
+     * @param object
+     *      the schema object
+     */
+    private void unindex( SchemaObject object )
+    {
+        Map<SearchInEnum, List<String>> fields = indexedObjects.remove( object );
+
+        if ( fields == null )
+        {
+            return;
+        }
+
+        for ( Map.Entry<SearchInEnum, List<String>> entry : fields.entrySet() )
+        {
+            SearchInEnum field = entry.getKey();
+            NavigableMap<String, Set<SchemaObject>> values = valuesMap.get( field );
+            Map<String, Set<SchemaObject>> grams = gramsMap.get( field );
+
+            for ( String value : entry.getValue() )
+            {
+                String lowerCasedValue = toLowerCase( value );
+
+                removeFromPosting( values, lowerCasedValue, object );
+
+                for ( int i = 0; i + GRAM_LENGTH <= lowerCasedValue.length(); i++ )
+                {
+                    removeFromPosting( grams, lowerCasedValue.substring( i, i + GRAM_LENGTH ), object );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets (or creates) the posting associated with the given key.
+     *
+     * @param map
+     *      the map
+     * @param key
+     *      the key
+     * @return
+     *      the posting
+     */
+    private static Set<SchemaObject> getPosting( Map<String, Set<SchemaObject>> map, String key )
+    {
+        Set<SchemaObject> posting = map.get( key );
+
+        if ( posting == null )
+        {
+            posting = Collections.newSetFromMap( new IdentityHashMap<SchemaObject, Boolean>() );
+            map.put( key, posting );
+        }
+
+        return posting;
+    }
+
+
+    /**
+     * Removes the schema object from the posting associated with the given key.
+     *
+     * @param map
+     *      the map
+     * @param key
+     *      the key
+     * @param object
+     *      the schema object
+     */
+    private static void removeFromPosting( Map<String, Set<SchemaObject>> map, String key, SchemaObject object )
+    {
+        if ( map != null )
+        {
+            Set<SchemaObject> posting = map.get( key );
+
+            if ( posting != null )
+            {
+                posting.remove( object );
+
+                if ( posting.isEmpty() )
+                {
+                    map.remove( key );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets the searchable values of the given schema object, per field.
+     *
+     * @param object
+     *      the schema object
+     * @return
+     *      the searchable values, or null if the schema object is neither
+     *      an attribute type nor an object class
+     */
+    private static Map<SearchInEnum, List<String>> getFields( SchemaObject object )
+    {
+        Map<SearchInEnum, List<String>> fields = new EnumMap<SearchInEnum, List<String>>( SearchInEnum.class );
+
+        if ( object instanceof AttributeType )
+        {
+            AttributeType at = ( AttributeType ) object;
+
+            addValues( fields, SearchInEnum.ALIASES, at.getNames() );
+            addValue( fields, SearchInEnum.OID, at.getOid() );
+            addValue( fields, SearchInEnum.DESCRIPTION, at.getDescription() );
+            addValue( fields, SearchInEnum.SUPERIOR, at.getSuperiorOid() );
+            addValue( fields, SearchInEnum.SYNTAX, at.getSyntaxOid() );
+            addValue( fields, SearchInEnum.MATCHING_RULES, at.getEqualityOid() );
+            addValue( fields, SearchInEnum.MATCHING_RULES, at.getOrderingOid() );
+            addValue( fields, SearchInEnum.MATCHING_RULES, at.getSubstringOid() );
+        }
+        else if ( object instanceof ObjectClass )
+        {
+            ObjectClass oc = ( ObjectClass ) object;
+
+            addValues( fields, SearchInEnum.ALIASES, oc.getNames() );
+            addValue( fields, SearchInEnum.OID, oc.getOid() );
+            addValue( fields, SearchInEnum.DESCRIPTION, oc.getDescription() );
+            addValues( fields, SearchInEnum.SUPERIORS, oc.getSuperiorOids() );
+            addValues( fields, SearchInEnum.MANDATORY_ATTRIBUTES, oc.getMustAttributeTypeOids() );
+            addValues( fields, SearchInEnum.OPTIONAL_ATTRIBUTES, oc.getMayAttributeTypeOids() );
+        }
+        else
+        {
+            return null;
+        }
+
+        return fields;
+    }
+
+
+    /**
+     * Adds the given values to the given field.
+     *
+     * @param fields
+     *      the fields
+     * @param field
+     *      the field
+     * @param values
+     *      the values (may be null)
+     */
+    private static void addValues( Map<SearchInEnum, List<String>> fields, SearchInEnum field, List<String> values )
+    {
+        if ( values != null )
+        {
+            for ( String value : values )
+            {
+                addValue( fields, field, value );
+            }
+        }
+    }
+
+
+    /**
+     * Adds the given value to the given field.
+     *
+     * @param fields
+     *      the fields
+     * @param field
+     *      the field
+     * @param value
+     *      the value (may be null)
+     */
+    private static void addValue( Map<SearchInEnum, List<String>> fields, SearchInEnum field, String value )
+    {
+        if ( value != null )
+        {
+            List<String> values = fields.get( field );
+
+            if ( values == null )
+            {
+                values = new ArrayList<String>();
+                fields.put( field, values );
+            }
+
+            values.add( value );
+        }
+    }
+
+
+    /**
+     * Check a list with the given pattern.
+     *
+     * @param pattern
+     *      the Regex pattern
+     * @param list
+     *      the list
+     * @return
+     *      true if the pattern matches one of the values, false, if not.
+     */
+    private static boolean checkList( Pattern pattern, List<String> list )
+    {
+        for ( String string : list )
+        {
+            if ( pattern.matcher( string ).matches() )
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
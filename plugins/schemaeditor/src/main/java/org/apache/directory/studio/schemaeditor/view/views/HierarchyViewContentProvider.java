@@ -93,7 +93,7 @@ public class HierarchyViewContentProvider implements IStructuredContentProvider,
     {
         List<TreeNode> children = new ArrayList<TreeNode>();
 
-        HierarchyManager hierarchyManager = new HierarchyManager();
+        HierarchyManager hierarchyManager = Activator.getDefault().getSchemaHandler().getHierarchyManager();
 
         // Creating the wrapper of the object class
         ObjectClassWrapper ocw = new ObjectClassWrapper( oc );
@@ -214,7 +214,7 @@ public class HierarchyViewContentProvider implements IStructuredContentProvider,
     private List<TreeNode> createTypeHierarchyAttributeType( AttributeType at )
     {
         List<TreeNode> children = new ArrayList<TreeNode>();
-        HierarchyManager hierarchyManager = new HierarchyManager();
+        HierarchyManager hierarchyManager = Activator.getDefault().getSchemaHandler().getHierarchyManager();
         int mode = Activator.getDefault().getDialogSettings().getInt( PluginConstants.PREFS_HIERARCHY_VIEW_MODE );
 
         // Creating the wrapper of the attribute type
@@ -160,7 +160,15 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
                 {
                     elementsToWrappersMap = new ArrayListValuedHashMap<>();
 
-                    hierarchyManager = new HierarchyManager();
+                    SchemaHandler schemaHandler = Activator.getDefault().getSchemaHandler();
+                    if ( schemaHandler != null )
+                    {
+                        hierarchyManager = schemaHandler.getHierarchyManager();
+                    }
+                    else
+                    {
+                        hierarchyManager = new HierarchyManager( null );
+                    }
 
                     if ( group == PluginConstants.PREFS_SCHEMA_VIEW_GROUPING_FOLDERS )
                     {
@@ -519,8 +527,6 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
      */
     public void attributeTypeAddedHierarchicalPresentation( AttributeType at )
     {
-        hierarchyManager.attributeTypeAdded( at );
-
         List<TreeNode> createdWrappers = new ArrayList<TreeNode>();
 
         List<Object> parents = hierarchyManager.getParents( at );
@@ -571,6 +577,12 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
             for ( Object child : children )
             {
                 AttributeTypeWrapper childATW = ( AttributeTypeWrapper ) getWrapper( child );
+                if ( childATW == null )
+                {
+                    // The child has not been displayed yet (its schema is being added)
+                    continue;
+                }
+
                 elementsToWrappersMap.remove( child );
                 childATW.getParent().removeChild( childATW );
 
@@ -627,9 +639,6 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
      */
     public void attributeTypeModifiedHierarchicalPresentation( AttributeType at )
     {
-        // Propagating the modification to the hierarchy manager
-        hierarchyManager.attributeTypeModified( at );
-
         // Removing the Wrappers
         List<TreeNode> wrappers = getWrappers( at );
         if ( wrappers != null )
@@ -778,9 +787,6 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
 
             elementsToWrappersMap.remove( at );
         }
-
-        // Propagating the removal to the hierarchy manager
-        hierarchyManager.attributeTypeRemoved( at );
     }
 
 
@@ -880,26 +886,12 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
      */
     public void objectClassAddedHierarchicalPresentation( ObjectClass oc )
     {
-        // Removing unattached nodes for "top"
+        // Removing unattached nodes for "top" (the hierarchy manager has
+        // already attached them to the added object class)
         List<Object> ocChildren = new ArrayList<Object>();
-        List<Object> ocChildren2 = null;
         if ( "2.5.6.0".equals( oc.getOid() ) ) //$NON-NLS-1$
         {
-            ocChildren2 = hierarchyManager.getChildren( "2.5.6.0" ); //$NON-NLS-1$
-            if ( ocChildren2 != null )
-            {
-                ocChildren.addAll( ocChildren2 );
-            }
-            ocChildren2 = hierarchyManager.getChildren( "top" ); //$NON-NLS-1$
-            if ( ocChildren2 != null )
-            {
-                ocChildren.addAll( ocChildren2 );
-            }
-        }
-        ocChildren2 = hierarchyManager.getChildren( oc );
-        if ( ocChildren2 != null )
-        {
-            ocChildren.addAll( ocChildren2 );
+            ocChildren.addAll( hierarchyManager.getChildren( oc ) );
         }
         for ( Object ocChild : ocChildren )
         {
@@ -930,9 +922,6 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
             }
         }
 
-        // Propagating the addition to the hierarchy manager
-        hierarchyManager.objectClassAdded( oc );
-
         List<TreeNode> createdWrappers = new ArrayList<TreeNode>();
 
         List<Object> parents = hierarchyManager.getParents( oc );
@@ -983,15 +972,18 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
             for ( Object child : children )
             {
                 List<TreeNode> childOCWs = getWrappers( child );
-                if ( childOCWs != null )
+                if ( ( childOCWs == null ) || childOCWs.isEmpty() )
                 {
-                    for ( TreeNode childOCW : childOCWs )
+                    // The child has not been displayed yet (its schema is being added)
+                    continue;
+                }
+
+                for ( TreeNode childOCW : childOCWs )
+                {
+                    if ( root.equals( childOCW.getParent() ) )
                     {
-                        if ( root.equals( childOCW.getParent() ) )
-                        {
-                            elementsToWrappersMap.remove( child );
-                            childOCW.getParent().removeChild( childOCW );
-                        }
+                        elementsToWrappersMap.remove( child );
+                        childOCW.getParent().removeChild( childOCW );
                     }
                 }
 
@@ -1049,9 +1041,6 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
      */
     public void objectClassModifiedHierarchicalPresentation( ObjectClass oc )
     {
-        // Propagating the modification to the hierarchy manager
-        hierarchyManager.objectClassModified( oc );
-
         // Removing the Wrappers
         List<TreeNode> wrappers = getWrappers( oc );
         if ( wrappers != null )
@@ -1201,9 +1190,6 @@ public class SchemaViewContentProvider implements IStructuredContentProvider, IT
 
             elementsToWrappersMap.remove( oc );
         }
-
-        // Propagating the removal to the hierarchy manager
-        hierarchyManager.objectClassRemoved( oc );
     }
 
 
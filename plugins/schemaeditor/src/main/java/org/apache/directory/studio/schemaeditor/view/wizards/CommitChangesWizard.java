@@ -20,10 +20,15 @@
 package org.apache.directory.studio.schemaeditor.view.wizards;
 
 
+import org.apache.directory.studio.common.core.jobs.StudioProgressMonitor;
+import org.apache.directory.studio.connection.core.Connection;
+import org.apache.directory.studio.connection.core.jobs.StudioConnectionRunnableWithProgress;
+import org.apache.directory.studio.connection.ui.RunnableContextRunner;
 import org.apache.directory.studio.schemaeditor.Activator;
 import org.apache.directory.studio.schemaeditor.model.DependenciesComputer;
 import org.apache.directory.studio.schemaeditor.model.DependenciesComputer.DependencyComputerException;
 import org.apache.directory.studio.schemaeditor.model.Project;
+import org.apache.directory.studio.schemaeditor.model.io.SchemaConnectorException;
 import org.eclipse.jface.viewers.IStructuredSelection;
 import org.eclipse.jface.wizard.Wizard;
 import org.eclipse.ui.IExportWizard;
@@ -71,26 +76,44 @@ public class CommitChangesWizard extends Wizard implements IExportWizard
      */
     public boolean performFinish()
     {
-        //        final List<Schema> orderedSchemas = dependenciesComputer.getDependencyOrderedSchemasList();
-        //
-        //        try
-        //        {
-        //            getContainer().run( false, false, new IRunnableWithProgress()
-        //            {
-        //                public void run( IProgressMonitor monitor )
-        //                {
-        //                    //TODO implement
-        //                }
-        //            } );
-        //        }
-        //        catch ( InvocationTargetException e )
-        //        {
-        //            // Nothing to do (it will never occur)
-        //        }
-        //        catch ( InterruptedException e )
-        //        {
-        //            // Nothing to do.
-        //        }
+        RunnableContextRunner.execute( new StudioConnectionRunnableWithProgress()
+        {
+            public void run( StudioProgressMonitor monitor )
+            {
+                try
+                {
+                    project.getSchemaConnector().exportSchema( project, monitor );
+                }
+                catch ( SchemaConnectorException e )
+                {
+                    monitor.reportError( e );
+                }
+            }
+
+
+            public String getName()
+            {
+                return Messages.getString( "CommitChangesWizard.CommittingChanges" ); //$NON-NLS-1$
+            }
+
+
+            public Object[] getLockedObjects()
+            {
+                return null;
+            }
+
+
+            public String getErrorMessage()
+            {
+                return Messages.getString( "CommitChangesWizard.ErrorWhileCommittingChanges" ); //$NON-NLS-1$
+            }
+
+
+            public Connection[] getConnections()
+            {
+                return null;
+            }
+        }, getContainer(), true );
 
         return true;
     }
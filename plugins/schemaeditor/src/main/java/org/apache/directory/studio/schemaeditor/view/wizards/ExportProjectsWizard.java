@@ -20,18 +20,17 @@
 package org.apache.directory.studio.schemaeditor.view.wizards;
 
 
+import java.io.BufferedOutputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.UnsupportedEncodingException;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 
 import org.apache.directory.studio.schemaeditor.PluginUtils;
 import org.apache.directory.studio.schemaeditor.model.Project;
 import org.apache.directory.studio.schemaeditor.model.io.ProjectsExporter;
 import org.apache.directory.studio.schemaeditor.view.ViewUtils;
-import org.dom4j.io.OutputFormat;
-import org.dom4j.io.XMLWriter;
 import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.jface.operation.IRunnableWithProgress;
 import org.eclipse.jface.viewers.IStructuredSelection;
@@ -94,23 +93,16 @@ public class ExportProjectsWizard extends Wizard implements IExportWizard
 
                         try
                         {
-                            OutputFormat outformat = OutputFormat.createPrettyPrint();
-                            outformat.setEncoding( "UTF-8" ); //$NON-NLS-1$
-                            XMLWriter writer = new XMLWriter( new FileOutputStream( exportDirectory + "/" //$NON-NLS-1$
-                                + project.getName() + ".schemaproject" ), outformat ); //$NON-NLS-1$
-                            writer.write( ProjectsExporter.toDocument( project ) );
-                            writer.flush();
-                        }
-                        catch ( UnsupportedEncodingException e )
-                        {
-                            PluginUtils
-                                .logError(
-                                    NLS
-                                        .bind(
-                                            Messages.getString( "ExportProjectsWizard.ErrorWhenSavingProject" ), new String[] { project.getName() } ), e ); //$NON-NLS-1$
-                            ViewUtils
-                                .displayErrorMessageDialog(
-                                    Messages.getString( "ExportProjectsWizard.Error" ), NLS.bind( Messages.getString( "ExportProjectsWizard.ErrorWhenSavingProject" ), new String[] { project.getName() } ) ); //$NON-NLS-1$ //$NON-NLS-2$
+                            OutputStream outputStream = new BufferedOutputStream( new FileOutputStream(
+                                exportDirectory + "/" + project.getName() + ".schemaproject" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+                            try
+                            {
+                                ProjectsExporter.write( project, outputStream );
+                            }
+                            finally
+                            {
+                                outputStream.close();
+                            }
                         }
                         catch ( FileNotFoundException e )
                         {
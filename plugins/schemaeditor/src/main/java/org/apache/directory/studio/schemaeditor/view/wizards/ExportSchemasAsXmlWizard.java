@@ -20,9 +20,10 @@
 package org.apache.directory.studio.schemaeditor.view.wizards;
 
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.lang.reflect.InvocationTargetException;
 
 import org.apache.directory.studio.schemaeditor.PluginUtils;
@@ -94,10 +95,16 @@ public class ExportSchemasAsXmlWizard extends Wizard implements IExportWizard
 
                             try
                             {
-                                BufferedWriter buffWriter = new BufferedWriter( new FileWriter( exportDirectory + "/" //$NON-NLS-1$
-                                    + schema.getSchemaName() + ".xml" ) ); //$NON-NLS-1$
-                                buffWriter.write( XMLSchemaFileExporter.toXml( schema ) );
-                                buffWriter.close();
+                                OutputStream outputStream = new BufferedOutputStream( new FileOutputStream(
+                                    exportDirectory + "/" + schema.getSchemaName() + ".xml" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+                                try
+                                {
+                                    XMLSchemaFileExporter.write( schema, outputStream );
+                                }
+                                finally
+                                {
+                                    outputStream.close();
+                                }
                             }
                             catch ( IOException e )
                             {
@@ -137,9 +144,15 @@ public class ExportSchemasAsXmlWizard extends Wizard implements IExportWizard
                         monitor.beginTask( Messages.getString( "ExportSchemasAsXmlWizard.ExportingSchemas" ), 1 ); //$NON-NLS-1$
                         try
                         {
-                            BufferedWriter buffWriter = new BufferedWriter( new FileWriter( exportFile ) );
-                            buffWriter.write( XMLSchemaFileExporter.toXml( selectedSchemas ) );
-                            buffWriter.close();
+                            OutputStream outputStream = new BufferedOutputStream( new FileOutputStream( exportFile ) );
+                            try
+                            {
+                                XMLSchemaFileExporter.write( selectedSchemas, outputStream );
+                            }
+                            finally
+                            {
+                                outputStream.close();
+                            }
                         }
                         catch ( IOException e )
                         {
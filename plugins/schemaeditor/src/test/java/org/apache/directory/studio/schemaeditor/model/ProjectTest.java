@@ -0,0 +1,122 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.schemaeditor.model;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.directory.studio.schemaeditor.model.io.ProjectsImportException;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * This class tests the lazy loading of the schemas of the Project class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ProjectTest
+{
+    /**
+     * A loader adding a schema, which fails the first given number of times.
+     */
+    private static class TestSchemasLoader implements Project.SchemasLoader
+    {
+        private int failures;
+
+        private int loads = 0;
+
+
+        private TestSchemasLoader( int failures )
+        {
+            this.failures = failures;
+        }
+
+
+        public void loadSchemas( Project project ) throws ProjectsImportException
+        {
+            loads++;
+            project.getSchemaHandler().addSchema( new Schema( "schema" ) ); //$NON-NLS-1$
+
+            if ( loads <= failures )
+            {
+                throw new ProjectsImportException( "failure" ); //$NON-NLS-1$
+            }
+        }
+    }
+
+
+    @Test
+    public void testLoad()
+    {
+        Project project = new Project( ProjectType.OFFLINE, "project" ); //$NON-NLS-1$
+        TestSchemasLoader loader = new TestSchemasLoader( 0 );
+        project.setSchemasLoader( loader );
+        assertFalse( project.isLoaded() );
+
+        assertEquals( 1, project.getSchemaHandler().getSchemas().size() );
+        assertTrue( project.isLoaded() );
+        assertFalse( project.isLoadFailed() );
+        assertFalse( project.isDirty() );
+
+        project.getSchemaHandler();
+        assertEquals( 1, loader.loads );
+    }
+
+
+    @Test
+    public void testFailedLoad()
+    {
+        Project project = new Project( ProjectType.OFFLINE, "project" ); //$NON-NLS-1$
+        TestSchemasLoader loader = new TestSchemasLoader( 1 );
+        project.setSchemasLoader( loader );
+
+        // The partially loaded schemas are dropped and the project is neither loaded nor dirty
+        assertTrue( project.getSchemaHandler().getSchemas().isEmpty() );
+        assertFalse( project.isLoaded() );
+        assertTrue( project.isLoadFailed() );
+        project.setDirty( true );
+        assertFalse( project.isDirty() );
+
+        // The load is not implicitly tried again
+        project.getSchemaHandler();
+        project.getInitialSchema();
+        assertEquals( 1, loader.loads );
+    }
+
+
+    @Test
+    public void testLoadAgain()
+    {
+        Project project = new Project( ProjectType.OFFLINE, "project" ); //$NON-NLS-1$
+        TestSchemasLoader loader = new TestSchemasLoader( 2 );
+        project.setSchemasLoader( loader );
+
+        assertFalse( project.load() );
+        assertFalse( project.load() );
+        assertTrue( project.load() );
+
+        assertEquals( 3, loader.loads );
+        assertTrue( project.isLoaded() );
+        assertFalse( project.isLoadFailed() );
+        assertEquals( 1, project.getSchemaHandler().getSchemas().size() );
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.schemaeditor.model.hierarchy;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * This class tests the HierarchyManager class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class HierarchyManagerTest
+{
+    private HierarchyManager hierarchyManager;
+
+    private AttributeType name;
+    private AttributeType cn;
+    private ObjectClass top;
+    private ObjectClass person;
+
+
+    @BeforeEach
+    public void setup()
+    {
+        name = new AttributeType( "2.5.4.41" ); //$NON-NLS-1$
+        name.setNames( "name" ); //$NON-NLS-1$
+
+        cn = new AttributeType( "2.5.4.3" ); //$NON-NLS-1$
+        cn.setNames( "cn", "commonName" ); //$NON-NLS-1$ //$NON-NLS-2$
+        cn.setSuperiorOid( "Name" ); //$NON-NLS-1$
+
+        top = new ObjectClass( "2.5.6.0" ); //$NON-NLS-1$
+        top.setNames( "top" ); //$NON-NLS-1$
+
+        person = new ObjectClass( "2.5.6.6" ); //$NON-NLS-1$
+        person.setNames( "person" ); //$NON-NLS-1$
+        person.setSuperiorOids( Arrays.asList( "TOP" ) ); //$NON-NLS-1$
+
+        hierarchyManager = new HierarchyManager( null );
+    }
+
+
+    @Test
+    public void testResolvedSuperiors()
+    {
+        hierarchyManager.attributeTypeAdded( name );
+        hierarchyManager.attributeTypeAdded( cn );
+        hierarchyManager.objectClassAdded( top );
+        hierarchyManager.objectClassAdded( person );
+
+        assertEquals( Arrays.asList( name ), hierarchyManager.getParents( cn ) );
+        assertEquals( Arrays.asList( cn ), hierarchyManager.getChildren( name ) );
+        assertEquals( Arrays.asList( top ), hierarchyManager.getParents( person ) );
+
+        List<Object> rootChildren = hierarchyManager.getChildren( hierarchyManager.getRootObject() );
+        assertEquals( 2, rootChildren.size() );
+        assertTrue( rootChildren.contains( name ) );
+        assertTrue( rootChildren.contains( top ) );
+    }
+
+
+    @Test
+    public void testSuperiorAddedAfterItsChildren()
+    {
+        hierarchyManager.attributeTypeAdded( cn );
+        hierarchyManager.objectClassAdded( person );
+
+        // The superiors are unresolved, the children are attached to the root
+        assertEquals( Arrays.asList( "name" ), hierarchyManager.getParents( cn ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( cn ), hierarchyManager.getChildren( "NAME" ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( person ), hierarchyManager.getChildren( "top" ) ); //$NON-NLS-1$
+        assertEquals( 2, hierarchyManager.getChildren( hierarchyManager.getRootObject() ).size() );
+
+        hierarchyManager.attributeTypeAdded( name );
+        hierarchyManager.objectClassAdded( top );
+
+        assertEquals( Arrays.asList( name ), hierarchyManager.getParents( cn ) );
+        assertEquals( Arrays.asList( person ), hierarchyManager.getChildren( top ) );
+        assertTrue( hierarchyManager.getChildren( "name" ).isEmpty() ); //$NON-NLS-1$
+        assertTrue( hierarchyManager.getChildren( "top" ).isEmpty() ); //$NON-NLS-1$
+
+        List<Object> rootChildren = hierarchyManager.getChildren( hierarchyManager.getRootObject() );
+        assertEquals( 2, rootChildren.size() );
+        assertFalse( rootChildren.contains( cn ) );
+        assertFalse( rootChildren.contains( person ) );
+    }
+
+
+    @Test
+    public void testObjectClassWithoutSuperiorIsChildOfTop()
+    {
+        ObjectClass extensibleObject = new ObjectClass( "1.3.6.1.4.1.1466.101.120.111" ); //$NON-NLS-1$
+        extensibleObject.setNames( "extensibleObject" ); //$NON-NLS-1$
+
+        hierarchyManager.objectClassAdded( extensibleObject );
+        assertEquals( Arrays.asList( extensibleObject ), hierarchyManager.getChildren( "2.5.6.0" ) ); //$NON-NLS-1$
+
+        hierarchyManager.objectClassAdded( top );
+        assertEquals( Arrays.asList( top ), hierarchyManager.getParents( extensibleObject ) );
+        assertEquals( Arrays.asList( hierarchyManager.getRootObject() ), hierarchyManager.getParents( top ) );
+    }
+
+
+    @Test
+    public void testNamespacesAreSeparated()
+    {
+        // An object class named like an attribute type is not its superior
+        ObjectClass nameOC = new ObjectClass( "1.2.3.4" ); //$NON-NLS-1$
+        nameOC.setNames( "name" ); //$NON-NLS-1$
+
+        hierarchyManager.attributeTypeAdded( cn );
+        hierarchyManager.objectClassAdded( nameOC );
+
+        assertEquals( Arrays.asList( "name" ), hierarchyManager.getParents( cn ) ); //$NON-NLS-1$
+        assertTrue( hierarchyManager.getChildren( nameOC ).isEmpty() );
+    }
+
+
+    @Test
+    public void testRemoveDetachesChildren()
+    {
+        hierarchyManager.attributeTypeAdded( name );
+        hierarchyManager.attributeTypeAdded( cn );
+
+        hierarchyManager.attributeTypeRemoved( name );
+
+        assertTrue( hierarchyManager.getParents( name ).isEmpty() );
+        assertEquals( Arrays.asList( "name" ), hierarchyManager.getParents( cn ) ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( cn ), hierarchyManager.getChildren( hierarchyManager.getRootObject() ) );
+
+        // Removing twice has no effect
+        hierarchyManager.attributeTypeRemoved( name );
+        assertEquals( Arrays.asList( cn ), hierarchyManager.getChildren( "name" ) ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testAddTwice()
+    {
+        hierarchyManager.attributeTypeAdded( name );
+        hierarchyManager.attributeTypeAdded( cn );
+        hierarchyManager.attributeTypeAdded( cn );
+
+        assertEquals( Arrays.asList( cn ), hierarchyManager.getChildren( name ) );
+        assertEquals( Arrays.asList( name ), hierarchyManager.getParents( cn ) );
+    }
+
+
+    @Test
+    public void testModifiedNamesAndSuperior()
+    {
+        AttributeType surname = new AttributeType( "2.5.4.4" ); //$NON-NLS-1$
+        surname.setNames( "sn" ); //$NON-NLS-1$
+        surname.setSuperiorOid( "fullName" ); //$NON-NLS-1$
+
+        hierarchyManager.attributeTypeAdded( name );
+        hierarchyManager.attributeTypeAdded( cn );
+        hierarchyManager.attributeTypeAdded( surname );
+
+        // Renaming 'name' to 'fullName' (in place, as the schema handler does)
+        name.setNames( "fullName" ); //$NON-NLS-1$
+        hierarchyManager.attributeTypeModified( name );
+
+        assertEquals( Arrays.asList( surname ), hierarchyManager.getChildren( name ) );
+        assertEquals( Arrays.asList( "name" ), hierarchyManager.getParents( cn ) ); //$NON-NLS-1$
+
+        // Changing the superior of 'cn'
+        cn.setSuperiorOid( "2.5.4.41" ); //$NON-NLS-1$
+        hierarchyManager.attributeTypeModified( cn );
+
+        assertSame( name, hierarchyManager.getParents( cn ).get( 0 ) );
+        assertEquals( 2, hierarchyManager.getChildren( name ).size() );
+        assertEquals( Arrays.asList( name ), hierarchyManager.getChildren( hierarchyManager.getRootObject() ) );
+    }
+}
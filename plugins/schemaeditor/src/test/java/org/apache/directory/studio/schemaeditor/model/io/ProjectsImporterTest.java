@@ -0,0 +1,165 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.schemaeditor.model.io;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.studio.schemaeditor.model.Project;
+import org.apache.directory.studio.schemaeditor.model.ProjectType;
+import org.apache.directory.studio.schemaeditor.model.Schema;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * This class tests the storage of the projects in an index and one file per project.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class ProjectsImporterTest
+{
+    private Project project;
+
+
+    @BeforeEach
+    public void setUp()
+    {
+        AttributeType at = new AttributeType( "1.2.3.4" ); //$NON-NLS-1$
+        at.setNames( "name0" ); //$NON-NLS-1$
+        at.setSchemaName( "dummy" ); //$NON-NLS-1$
+
+        Schema schema = new Schema( "dummy" ); //$NON-NLS-1$
+        schema.addAttributeType( at );
+
+        project = new Project( ProjectType.OFFLINE, "project" ); //$NON-NLS-1$
+        project.getSchemaHandler().addSchema( schema );
+        project.setStorageFileName( "project.xml" ); //$NON-NLS-1$
+    }
+
+
+    private static InputStream toIndexInputStream( Project[] projects ) throws IOException
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ProjectsExporter.writeIndex( projects, os );
+
+        return new ByteArrayInputStream( os.toByteArray() );
+    }
+
+
+    @Test
+    public void testIndexDoesNotContainSchemas() throws Exception
+    {
+        Project[] projects = ProjectsImporter.getIndexedProjects( toIndexInputStream( new Project[]
+            { project } ), "projects.xml" ); //$NON-NLS-1$
+
+        assertEquals( 1, projects.length );
+        assertEquals( "project", projects[0].getName() ); //$NON-NLS-1$
+        assertEquals( ProjectType.OFFLINE, projects[0].getType() );
+        assertEquals( "project.xml", projects[0].getStorageFileName() ); //$NON-NLS-1$
+        assertTrue( projects[0].getSchemaHandler().getSchemas().isEmpty() );
+    }
+
+
+    @Test
+    public void testLoadProjectSchemasLazily() throws Exception
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ProjectsExporter.write( project, os );
+        final byte[] projectFile = os.toByteArray();
+
+        Project indexedProject = ProjectsImporter.getIndexedProjects( toIndexInputStream( new Project[]
+            { project } ), "projects.xml" )[0]; //$NON-NLS-1$
+
+        indexedProject.setSchemasLoader( new Project.SchemasLoader()
+        {
+            public void loadSchemas( Project project )
+            {
+                try
+                {
+                    ProjectsImporter.loadProjectSchemas( new ByteArrayInputStream( projectFile ), "project.xml", //$NON-NLS-1$
+                        project );
+                }
+                catch ( ProjectsImportException e )
+                {
+                    throw new RuntimeException( e );
+                }
+            }
+        } );
+
+        assertFalse( indexedProject.isLoaded() );
+        assertFalse( indexedProject.isDirty() );
+
+        assertNotNull( indexedProject.getSchemaHandler().getAttributeType( "name0" ) ); //$NON-NLS-1$
+        assertTrue( indexedProject.isLoaded() );
+        assertFalse( indexedProject.isDirty() );
+
+        indexedProject.getSchemaHandler().removeSchema( indexedProject.getSchemaHandler().getSchema( "dummy" ) ); //$NON-NLS-1$
+        assertTrue( indexedProject.isDirty() );
+    }
+
+
+    @Test
+    public void testLegacyProjectsFile() throws Exception
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        ProjectsExporter.write( new Project[]
+            { project }, os );
+
+        Project[] projects = ProjectsImporter.getIndexedProjects( new ByteArrayInputStream( os.toByteArray() ),
+            "projects.xml" ); //$NON-NLS-1$
+
+        assertEquals( 1, projects.length );
+        assertNull( projects[0].getStorageFileName() );
+        assertEquals( 1, projects[0].getSchemaHandler().getSchemas().size() );
+        assertTrue( projects[0].isDirty() );
+    }
+
+
+    @Test
+    public void testInputStreamIsClosed() throws Exception
+    {
+        final boolean[] closed = new boolean[1];
+        InputStream is = new FilterInputStream( toIndexInputStream( new Project[]
+            { project } ) )
+        {
+            public void close() throws IOException
+            {
+                closed[0] = true;
+                super.close();
+            }
+        };
+
+        ProjectsImporter.getIndexedProjects( is, "projects.xml" ); //$NON-NLS-1$
+
+        assertTrue( closed[0] );
+    }
+}
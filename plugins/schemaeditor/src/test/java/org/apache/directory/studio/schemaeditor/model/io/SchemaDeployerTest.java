@@ -0,0 +1,303 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.schemaeditor.model.io;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.entry.Modification;
+import org.apache.directory.api.ldap.model.name.Dn;
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.studio.schemaeditor.model.Schema;
+import org.apache.directory.studio.schemaeditor.model.difference.DifferenceType;
+import org.apache.directory.studio.schemaeditor.model.io.SchemaDeployer.ModifyOperation;
+import org.apache.directory.studio.schemaeditor.model.io.SchemaDeploymentItem.DeploymentStatus;
+import org.eclipse.core.runtime.NullProgressMonitor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * Tests for the SchemaDeployer.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaDeployerTest
+{
+    private Schema initialSchema;
+    private Schema schema;
+
+
+    @BeforeEach
+    public void setUp()
+    {
+        initialSchema = new Schema( "schema" );
+        initialSchema.addAttributeType( createAttributeType( "1.1.1", "name", null ) );
+        initialSchema.addObjectClass( createObjectClass( "1.2.1", "top", null ) );
+
+        schema = new Schema( "schema" );
+        schema.addAttributeType( createAttributeType( "1.1.1", "name", null ) );
+        schema.addObjectClass( createObjectClass( "1.2.1", "top", null ) );
+    }
+
+
+    @Test
+    public void testIdenticalSchemas() throws Exception
+    {
+        SchemaDeployer deployer = new SchemaDeployer( Arrays.asList( initialSchema ), Arrays.asList( schema ) );
+
+        assertTrue( deployer.getItems().isEmpty() );
+        assertTrue( deployer.getWaves().isEmpty() );
+    }
+
+
+    @Test
+    public void testAddedElementsAreOrderedByDependencies() throws Exception
+    {
+        ObjectClass person = createObjectClass( "1.2.2", "myPerson", "top", "myCn" );
+        AttributeType cn = createAttributeType( "1.1.2", "myCn", "name" );
+        AttributeType commonName = createAttributeType( "1.1.3", "myCommonName", "myCn" );
+        schema.addObjectClass( person );
+        schema.addAttributeType( commonName );
+        schema.addAttributeType( cn );
+
+        SchemaDeployer deployer = new SchemaDeployer( Arrays.asList( initialSchema ), Arrays.asList( schema ) );
+
+        assertEquals( 3, deployer.getItems().size() );
+        List<List<SchemaDeploymentItem>> waves = deployer.getWaves();
+        assertEquals( 2, waves.size() );
+        assertEquals( 1, waves.get( 0 ).size() );
+        assertSame( cn, waves.get( 0 ).get( 0 ).getObject() );
+        assertEquals( 2, waves.get( 1 ).size() );
+
+        for ( SchemaDeploymentItem item : deployer.getItems() )
+        {
+            assertEquals( DifferenceType.ADDED, item.getType() );
+            assertNull( item.getInitialValue() );
+            assertEquals( 1, item.getValueCount() );
+        }
+    }
+
+
+    @Test
+    public void testModifiedElement() throws Exception
+    {
+        schema.getAttributeTypes().get( 0 ).setDescription( "A name" );
+
+        SchemaDeployer deployer = new SchemaDeployer( Arrays.asList( initialSchema ), Arrays.asList( schema ) );
+
+        assertEquals( 1, deployer.getItems().size() );
+        SchemaDeploymentItem item = deployer.getItems().get( 0 );
+        assertEquals( DifferenceType.MODIFIED, item.getType() );
+        assertSame( initialSchema.getAttributeTypes().get( 0 ), item.getInitialObject() );
+        assertSame( schema.getAttributeTypes().get( 0 ), item.getObject() );
+        assertEquals( "attributeTypes", item.getAttributeId() );
+        assertEquals( 2, item.getValueCount() );
+        assertTrue( !item.getInitialValue().equals( item.getValue() ) );
+    }
+
+
+    @Test
+    public void testRemovedElementsAreRemovedAfterTheirDependents() throws Exception
+    {
+        initialSchema.addAttributeType( createAttributeType( "1.1.2", "myCn", "name" ) );
+        initialSchema.addObjectClass( createObjectClass( "1.2.2", "myPerson", "top", "myCn" ) );
+        schema.addAttributeType( createAttributeType( "1.1.4", "myMail", null ) );
+
+        SchemaDeployer deployer = new SchemaDeployer( Arrays.asList( initialSchema ), Arrays.asList( schema ) );
+
+        List<List<SchemaDeploymentItem>> waves = deployer.getWaves();
+        assertEquals( 3, waves.size() );
+        assertEquals( DifferenceType.ADDED, waves.get( 0 ).get( 0 ).getType() );
+        assertEquals( "myPerson", waves.get( 1 ).get( 0 ).getDisplayName() );
+        assertEquals( DifferenceType.REMOVED, waves.get( 1 ).get( 0 ).getType() );
+        assertEquals( "myCn", waves.get( 2 ).get( 0 ).getDisplayName() );
+        assertEquals( Arrays.asList( waves.get( 1 ).get( 0 ) ), waves.get( 2 ).get( 0 ).getPrerequisites() );
+    }
+
+
+    @Test
+    public void testElementMovedToAnotherSchemaIsModified() throws Exception
+    {
+        Schema otherSchema = new Schema( "other" );
+        AttributeType name = schema.getAttributeTypes().get( 0 );
+        schema.removeAttributeType( name );
+        name.setSchemaName( "other" );
+        otherSchema.addAttributeType( name );
+
+        SchemaDeployer deployer = new SchemaDeployer( Arrays.asList( initialSchema ),
+            Arrays.asList( schema, otherSchema ) );
+
+        assertEquals( 1, deployer.getItems().size() );
+        assertEquals( DifferenceType.MODIFIED, deployer.getItems().get( 0 ).getType() );
+    }
+
+
+    @Test
+    public void testBatches()
+    {
+        List<SchemaDeploymentItem> items = new ArrayList<SchemaDeploymentItem>();
+        items.add( new SchemaDeploymentItem( DifferenceType.ADDED, null, null, "attributeTypes", null, "a" ) );
+        items.add( new SchemaDeploymentItem( DifferenceType.MODIFIED, null, null, "attributeTypes", "b", "b2" ) );
+        items.add( new SchemaDeploymentItem( DifferenceType.ADDED, null, null, "attributeTypes", null, "c" ) );
+        items.add( new SchemaDeploymentItem( DifferenceType.REMOVED, null, null, "attributeTypes", "d", null ) );
+
+        List<List<SchemaDeploymentItem>> batches = SchemaDeployer.getBatches( items, 3 );
+        assertEquals( 2, batches.size() );
+        assertEquals( items.subList( 0, 2 ), batches.get( 0 ) );
+        assertEquals( items.subList( 2, 4 ), batches.get( 1 ) );
+
+        assertEquals( 4, SchemaDeployer.getBatches( items, 1 ).size() );
+        assertEquals( Collections.singletonList( items ), SchemaDeployer.getBatches( items, 100 ) );
+    }
+
+
+    @Test
+    public void testDeployRetriesRejectedBatchOneByOne() throws Exception
+    {
+        schema.addAttributeType( createAttributeType( "1.1.2", "myCn", "name" ) );
+        schema.addAttributeType( createAttributeType( "1.1.4", "myMail", null ) );
+        schema.addObjectClass( createObjectClass( "1.2.2", "myPerson", "top", "myCn" ) );
+
+        SchemaDeployer deployer = new SchemaDeployer( Arrays.asList( initialSchema ), Arrays.asList( schema ) );
+        RecordingModifyOperation operation = new RecordingModifyOperation( getItem( deployer, "myCn" ).getValue() );
+        deployer.deploy( new Dn( "cn=schema" ), operation, new NullProgressMonitor() );
+
+        // The batch of the first wave is rejected, its items are retried one by one
+        assertEquals( Arrays.asList( 2, 1, 1 ), operation.operationSizes );
+        assertEquals( DeploymentStatus.FAILED, getItem( deployer, "myCn" ).getStatus() );
+        assertEquals( "rejected", getItem( deployer, "myCn" ).getException().getMessage() );
+        assertEquals( DeploymentStatus.DEPLOYED, getItem( deployer, "myMail" ).getStatus() );
+
+        // The object class depending on the rejected attribute type is not sent
+        assertEquals( DeploymentStatus.SKIPPED, getItem( deployer, "myPerson" ).getStatus() );
+    }
+
+
+    @Test
+    public void testDeployWavesInBatches() throws Exception
+    {
+        schema.addAttributeType( createAttributeType( "1.1.2", "myCn", "name" ) );
+        schema.addAttributeType( createAttributeType( "1.1.4", "myMail", null ) );
+        schema.addObjectClass( createObjectClass( "1.2.2", "myPerson", "top", "myCn" ) );
+
+        SchemaDeployer deployer = new SchemaDeployer( Arrays.asList( initialSchema ), Arrays.asList( schema ) );
+        RecordingModifyOperation operation = new RecordingModifyOperation( null );
+        deployer.deploy( new Dn( "cn=schema" ), operation, new NullProgressMonitor() );
+
+        // One operation per wave
+        assertEquals( Arrays.asList( 2, 1 ), operation.operationSizes );
+
+        for ( SchemaDeploymentItem item : deployer.getItems() )
+        {
+            assertEquals( DeploymentStatus.DEPLOYED, item.getStatus() );
+        }
+
+        // One operation per item
+        deployer = new SchemaDeployer( Arrays.asList( initialSchema ), Arrays.asList( schema ) );
+        deployer.setMaxValuesPerOperation( 1 );
+        operation = new RecordingModifyOperation( null );
+        deployer.deploy( new Dn( "cn=schema" ), operation, new NullProgressMonitor() );
+
+        assertEquals( Arrays.asList( 1, 1, 1 ), operation.operationSizes );
+    }
+
+
+    private static SchemaDeploymentItem getItem( SchemaDeployer deployer, String displayName )
+    {
+        for ( SchemaDeploymentItem item : deployer.getItems() )
+        {
+            if ( displayName.equals( item.getDisplayName() ) )
+            {
+                return item;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * A modify operation recording the number of modifications of each operation, 
+     * and rejecting the operations adding a given value.
+     */
+    private static class RecordingModifyOperation implements ModifyOperation
+    {
+        private String rejectedValue;
+        private List<Integer> operationSizes = new ArrayList<Integer>();
+
+
+        private RecordingModifyOperation( String rejectedValue )
+        {
+            this.rejectedValue = rejectedValue;
+        }
+
+
+        public Exception modify( Dn dn, List<Modification> modifications )
+        {
+            operationSizes.add( modifications.size() );
+
+            for ( Modification modification : modifications )
+            {
+                if ( modification.getAttribute().get().getString().equals( rejectedValue ) )
+                {
+                    return new Exception( "rejected" );
+                }
+            }
+
+            return null;
+        }
+    }
+
+
+    private static AttributeType createAttributeType( String oid, String name, String superior )
+    {
+        AttributeType at = new AttributeType( oid );
+        at.setNames( name );
+        at.setSuperiorOid( superior );
+        at.setSchemaName( "schema" );
+
+        return at;
+    }
+
+
+    private static ObjectClass createObjectClass( String oid, String name, String superior, String... may )
+    {
+        ObjectClass oc = new ObjectClass( oid );
+        oc.setNames( name );
+        if ( superior != null )
+        {
+            oc.setSuperiorOids( Collections.singletonList( superior ) );
+        }
+        oc.setMayAttributeTypeOids( Arrays.asList( may ) );
+        oc.setSchemaName( "schema" );
+
+        return oc;
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.schemaeditor.model.io;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.LdapSyntax;
+import org.apache.directory.api.ldap.model.schema.MatchingRule;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.ObjectClassTypeEnum;
+import org.apache.directory.api.ldap.model.schema.UsageEnum;
+import org.apache.directory.studio.schemaeditor.model.Schema;
+import org.apache.directory.studio.schemaeditor.model.io.XMLSchemaFileImporter.SchemaFileType;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * This class tests the streaming import and export of the schemas in the XML format.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class XMLSchemaFileImporterTest
+{
+    private static InputStream toInputStream( String xml )
+    {
+        return new ByteArrayInputStream( xml.getBytes( StandardCharsets.UTF_8 ) );
+    }
+
+
+    private static Schema createSchema()
+    {
+        Schema schema = new Schema( "dummy" ); //$NON-NLS-1$
+
+        AttributeType at = new AttributeType( "1.2.3.4" ); //$NON-NLS-1$
+        at.setNames( "name0", "name1" ); //$NON-NLS-1$ //$NON-NLS-2$
+        at.setDescription( "An attribute type & its <description>" ); //$NON-NLS-1$
+        at.setSuperiorOid( "name" ); //$NON-NLS-1$
+        at.setUsage( UsageEnum.DIRECTORY_OPERATION );
+        at.setSyntaxOid( "1.3.6.1.4.1.1466.115.121.1.15" ); //$NON-NLS-1$
+        at.setSyntaxLength( 32 );
+        at.setSingleValued( true );
+        at.setUserModifiable( false );
+        at.setEqualityOid( "caseIgnoreMatch" ); //$NON-NLS-1$
+        schema.addAttributeType( at );
+
+        ObjectClass oc = new ObjectClass( "1.2.3.5" ); //$NON-NLS-1$
+        oc.setNames( "oc0" ); //$NON-NLS-1$
+        oc.setSuperiorOids( Arrays.asList( "top", "person" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        oc.setType( ObjectClassTypeEnum.AUXILIARY );
+        oc.setMustAttributeTypeOids( Arrays.asList( "name0" ) ); //$NON-NLS-1$
+        oc.setMayAttributeTypeOids( Arrays.asList( "cn", "sn" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        oc.setObsolete( true );
+        schema.addObjectClass( oc );
+
+        MatchingRule mr = new MatchingRule( "1.2.3.6" ); //$NON-NLS-1$
+        mr.setNames( "mr0" ); //$NON-NLS-1$
+        mr.setSyntaxOid( "1.3.6.1.4.1.1466.115.121.1.15" ); //$NON-NLS-1$
+        schema.addMatchingRule( mr );
+
+        LdapSyntax syntax = new LdapSyntax( "1.2.3.7" ); //$NON-NLS-1$
+        syntax.setDescription( "A syntax" ); //$NON-NLS-1$
+        syntax.setHumanReadable( true );
+        schema.addSyntax( syntax );
+
+        return schema;
+    }
+
+
+    @Test
+    public void testRoundTrip() throws Exception
+    {
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        XMLSchemaFileExporter.write( createSchema(), os );
+
+        Schema schema = XMLSchemaFileImporter.getSchema( new ByteArrayInputStream( os.toByteArray() ), "dummy.xml" ); //$NON-NLS-1$
+        assertEquals( "dummy", schema.getSchemaName() ); //$NON-NLS-1$
+
+        AttributeType at = schema.getAttributeTypes().get( 0 );
+        assertEquals( "1.2.3.4", at.getOid() ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( "name0", "name1" ), at.getNames() ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( "An attribute type & its <description>", at.getDescription() ); //$NON-NLS-1$
+        assertEquals( "name", at.getSuperiorOid() ); //$NON-NLS-1$
+        assertEquals( UsageEnum.DIRECTORY_OPERATION, at.getUsage() );
+        assertEquals( "1.3.6.1.4.1.1466.115.121.1.15", at.getSyntaxOid() ); //$NON-NLS-1$
+        assertEquals( 32, at.getSyntaxLength() );
+        assertTrue( at.isSingleValued() );
+        assertFalse( at.isUserModifiable() );
+        assertFalse( at.isCollective() );
+        assertEquals( "caseIgnoreMatch", at.getEqualityOid() ); //$NON-NLS-1$
+        assertEquals( "dummy", at.getSchemaName() ); //$NON-NLS-1$
+
+        ObjectClass oc = schema.getObjectClasses().get( 0 );
+        assertEquals( Arrays.asList( "top", "person" ), oc.getSuperiorOids() ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertEquals( ObjectClassTypeEnum.AUXILIARY, oc.getType() );
+        assertEquals( Arrays.asList( "name0" ), oc.getMustAttributeTypeOids() ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( "cn", "sn" ), oc.getMayAttributeTypeOids() ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertTrue( oc.isObsolete() );
+
+        MatchingRule mr = schema.getMatchingRules().get( 0 );
+        assertEquals( "mr0", mr.getName() ); //$NON-NLS-1$
+        assertEquals( "1.3.6.1.4.1.1466.115.121.1.15", mr.getSyntaxOid() ); //$NON-NLS-1$
+
+        LdapSyntax syntax = schema.getSyntaxes().get( 0 );
+        assertEquals( "A syntax", syntax.getDescription() ); //$NON-NLS-1$
+        assertTrue( syntax.isHumanReadable() );
+    }
+
+
+    @Test
+    public void testRoundTripMultipleSchemas() throws Exception
+    {
+        Schema other = new Schema( "other" ); //$NON-NLS-1$
+
+        ByteArrayOutputStream os = new ByteArrayOutputStream();
+        XMLSchemaFileExporter.write( new Schema[]
+            { createSchema(), other }, os );
+
+        assertEquals( SchemaFileType.MULTIPLE, XMLSchemaFileImporter.getSchemaFileType( new ByteArrayInputStream( os
+            .toByteArray() ), "schemas.xml" ) ); //$NON-NLS-1$
+
+        Schema[] schemas = XMLSchemaFileImporter.getSchemas( new ByteArrayInputStream( os.toByteArray() ),
+            "schemas.xml" ); //$NON-NLS-1$
+        assertEquals( 2, schemas.length );
+        assertEquals( 1, schemas[0].getAttributeTypes().size() );
+        assertEquals( "other", schemas[1].getSchemaName() ); //$NON-NLS-1$
+        assertTrue( schemas[1].getAttributeTypes().isEmpty() );
+    }
+
+
+    @Test
+    public void testSchemaFileTypeOnlyReadsRootElement() throws Exception
+    {
+        // The rest of the document is never read
+        assertEquals( SchemaFileType.SINGLE, XMLSchemaFileImporter.getSchemaFileType( toInputStream(
+            "<?xml version=\"1.0\"?>\n<!-- comment -->\n<schema name=\"s\"><attributetypes><attr" ), "s.xml" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertThrows( XMLSchemaFileImportException.class, () -> XMLSchemaFileImporter.getSchemaFileType(
+            toInputStream( "<projects/>" ), "p.xml" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    @Test
+    public void testUnknownElementsAreSkipped() throws Exception
+    {
+        Schema schema = XMLSchemaFileImporter.getSchema( toInputStream( "<schema>" //$NON-NLS-1$
+            + "<unknown><attributetypes><attributetype oid=\"9.9\"/></attributetypes></unknown>" //$NON-NLS-1$
+            + "<attributetypes><attributetype oid=\"1.2\" obsolete=\"false\"><extension><alias>x</alias></extension>" //$NON-NLS-1$
+            + "<aliases><alias>a</alias><comment/><alias>b</alias></aliases></attributetype></attributetypes>" //$NON-NLS-1$
+            + "</schema>" ), "/tmp/core.xml" ); //$NON-NLS-1$ //$NON-NLS-2$
+
+        assertEquals( "core", schema.getSchemaName() ); //$NON-NLS-1$
+        assertEquals( 1, schema.getAttributeTypes().size() );
+        assertEquals( Arrays.asList( "a", "b" ), schema.getAttributeTypes().get( 0 ).getNames() ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+
+
+    @Test
+    public void testInvalidDocument()
+    {
+        assertThrows( XMLSchemaFileImportException.class, () -> XMLSchemaFileImporter.getSchemas(
+            toInputStream( "<schema/>" ), "s.xml" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertThrows( XMLSchemaFileImportException.class, () -> XMLSchemaFileImporter.getSchema(
+            toInputStream( "<schema><attributetypes>" ), "s.xml" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        assertThrows( XMLSchemaFileImportException.class, () -> XMLSchemaFileImporter.getSchema(
+            toInputStream( "<schema><attributetypes><attributetype/></attributetypes></schema>" ), "s.xml" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+    }
+}
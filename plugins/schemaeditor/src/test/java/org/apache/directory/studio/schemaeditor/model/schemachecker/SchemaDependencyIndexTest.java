@@ -0,0 +1,133 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.schemaeditor.model.schemachecker;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Set;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * This class tests the SchemaDependencyIndex class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaDependencyIndexTest
+{
+    private SchemaDependencyIndex index;
+
+    private AttributeType name;
+    private AttributeType cn;
+    private AttributeType description;
+    private ObjectClass top;
+    private ObjectClass person;
+
+
+    @BeforeEach
+    public void setup()
+    {
+        name = new AttributeType( "2.5.4.41" ); //$NON-NLS-1$
+        name.setNames( "name" ); //$NON-NLS-1$
+
+        cn = new AttributeType( "2.5.4.3" ); //$NON-NLS-1$
+        cn.setNames( "cn", "commonName" ); //$NON-NLS-1$ //$NON-NLS-2$
+        cn.setSuperiorOid( "name" ); //$NON-NLS-1$
+
+        description = new AttributeType( "2.5.4.13" ); //$NON-NLS-1$
+        description.setNames( "description" ); //$NON-NLS-1$
+
+        top = new ObjectClass( "2.5.6.0" ); //$NON-NLS-1$
+        top.setNames( "top" ); //$NON-NLS-1$
+
+        person = new ObjectClass( "2.5.6.6" ); //$NON-NLS-1$
+        person.setNames( "person" ); //$NON-NLS-1$
+        person.setSuperiorOids( Arrays.asList( "top" ) ); //$NON-NLS-1$
+        person.setMustAttributeTypeOids( Arrays.asList( "CN" ) ); //$NON-NLS-1$
+        person.setMayAttributeTypeOids( Arrays.asList( "2.5.4.13" ) ); //$NON-NLS-1$
+
+        index = new SchemaDependencyIndex();
+        index.add( name );
+        index.add( cn );
+        index.add( description );
+        index.add( top );
+        index.add( person );
+    }
+
+
+    @Test
+    public void testGetDependents()
+    {
+        Set<SchemaObject> dependents = index.getDependents( index.getDefinedKeys( name ) );
+
+        assertEquals( 2, dependents.size() );
+        assertTrue( dependents.contains( cn ) );
+        assertTrue( dependents.contains( person ) );
+
+        assertEquals( Collections.singleton( person ), index.getDependents( index.getDefinedKeys( description ) ) );
+        assertTrue( index.getDependents( index.getDefinedKeys( person ) ).isEmpty() );
+    }
+
+
+    @Test
+    public void testGetClosure()
+    {
+        Set<SchemaObject> closure = index.getClosure( Collections.<SchemaObject> singleton( person ) );
+
+        assertEquals( 5, closure.size() );
+        assertTrue( index.getClosure( Collections.<SchemaObject> singleton( name ) ).contains( name ) );
+        assertEquals( 1, index.getClosure( Collections.<SchemaObject> singleton( name ) ).size() );
+    }
+
+
+    @Test
+    public void testDuplicateNames()
+    {
+        AttributeType otherCn = new AttributeType( "1.2.3.4" ); //$NON-NLS-1$
+        otherCn.setNames( "cn" ); //$NON-NLS-1$
+        index.add( otherCn );
+
+        Set<SchemaObject> definingObjects = index.getDefiningObjects( index.getDefinedKeys( otherCn ) );
+
+        assertEquals( 2, definingObjects.size() );
+        assertTrue( definingObjects.contains( cn ) );
+        assertTrue( definingObjects.contains( otherCn ) );
+    }
+
+
+    @Test
+    public void testRemove()
+    {
+        index.remove( cn );
+
+        assertTrue( index.getDefinedKeys( cn ).isEmpty() );
+        assertEquals( Collections.singleton( person ), index.getDependents( Arrays.asList( "cn" ) ) ); //$NON-NLS-1$
+        assertTrue( index.getDependents( index.getDefinedKeys( name ) ).isEmpty() );
+    }
+}
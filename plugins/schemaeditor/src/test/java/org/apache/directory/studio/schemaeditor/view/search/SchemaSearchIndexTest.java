@@ -0,0 +1,190 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License.
+ * 
+ */
+package org.apache.directory.studio.schemaeditor.view.search;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.directory.api.ldap.model.schema.AttributeType;
+import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.api.ldap.model.schema.SchemaObject;
+import org.apache.directory.studio.schemaeditor.PluginConstants;
+import org.apache.directory.studio.schemaeditor.view.search.SearchPage.SearchInEnum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+
+/**
+ * This class tests the SchemaSearchIndex class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class SchemaSearchIndexTest
+{
+    private static final SearchInEnum[] ALL_FIELDS = SearchInEnum.values();
+
+    private SchemaSearchIndex index;
+
+    private AttributeType name;
+    private AttributeType cn;
+    private AttributeType description;
+    private ObjectClass person;
+
+
+    @BeforeEach
+    public void setup()
+    {
+        name = new AttributeType( "2.5.4.41" ); //$NON-NLS-1$
+        name.setNames( "name" ); //$NON-NLS-1$
+
+        cn = new AttributeType( "2.5.4.3" ); //$NON-NLS-1$
+        cn.setNames( "cn", "commonName" ); //$NON-NLS-1$ //$NON-NLS-2$
+        cn.setSuperiorOid( "name" ); //$NON-NLS-1$
+        cn.setDescription( "RFC4519: common name(s) for which the entity is known by" ); //$NON-NLS-1$
+
+        description = new AttributeType( "2.5.4.13" ); //$NON-NLS-1$
+        description.setNames( "description" ); //$NON-NLS-1$
+
+        person = new ObjectClass( "2.5.6.6" ); //$NON-NLS-1$
+        person.setNames( "person" ); //$NON-NLS-1$
+        person.setMustAttributeTypeOids( Arrays.asList( "sn", "cn" ) ); //$NON-NLS-1$ //$NON-NLS-2$
+        person.setMayAttributeTypeOids( Arrays.asList( "description" ) ); //$NON-NLS-1$
+
+        index = new SchemaSearchIndex();
+        index.build( Arrays.asList( name, cn, description ), Arrays.asList( person ) );
+    }
+
+
+    private List<SchemaObject> search( String searchString, SearchInEnum... searchIn )
+    {
+        return index.search( searchString, searchIn, PluginConstants.PREFS_SEARCH_PAGE_SCOPE_AT_AND_OC );
+    }
+
+
+    @Test
+    public void testSearchExactAlias()
+    {
+        List<SchemaObject> results = search( "COMMONNAME", SearchInEnum.ALIASES ); //$NON-NLS-1$
+
+        assertEquals( 1, results.size() );
+        assertTrue( results.contains( cn ) );
+    }
+
+
+    @Test
+    public void testSearchOidPrefix()
+    {
+        List<SchemaObject> results = search( "2.5.4.*", SearchInEnum.OID ); //$NON-NLS-1$
+
+        assertEquals( 3, results.size() );
+        assertFalse( results.contains( person ) );
+
+        // The dots are matched literally
+        assertTrue( search( "2x5*", SearchInEnum.OID ).isEmpty() ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testSearchSubstring()
+    {
+        List<SchemaObject> results = search( "*scr*", ALL_FIELDS ); //$NON-NLS-1$
+
+        // 'description' attribute type, and 'person' which may contain it
+        assertEquals( 2, results.size() );
+        assertTrue( results.contains( description ) );
+        assertTrue( results.contains( person ) );
+
+        // The wildcards do not match white spaces
+        assertTrue( search( "*entity*", SearchInEnum.DESCRIPTION ).isEmpty() ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testSearchWithoutLiteral()
+    {
+        assertEquals( 1, search( "??", SearchInEnum.ALIASES ).size() ); //$NON-NLS-1$
+        assertEquals( 4, search( "*", SearchInEnum.OID ).size() ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testSearchResultsOrder()
+    {
+        assertEquals( Arrays.asList( name, cn, description, person ), search( "*", SearchInEnum.OID ) ); //$NON-NLS-1$
+
+        // A modified object keeps its position
+        name.setDescription( "the name" ); //$NON-NLS-1$
+        index.add( name );
+        assertEquals( Arrays.asList( name, cn, description, person ), search( "*", SearchInEnum.OID ) ); //$NON-NLS-1$
+    }
+
+
+    @Test
+    public void testSearchScope()
+    {
+        List<SchemaObject> results = index.search( "*name*", ALL_FIELDS, //$NON-NLS-1$
+            PluginConstants.PREFS_SEARCH_PAGE_SCOPE_OC_ONLY );
+
+        assertTrue( results.isEmpty() );
+
+        results = index.search( "cn", ALL_FIELDS, PluginConstants.PREFS_SEARCH_PAGE_SCOPE_OC_ONLY ); //$NON-NLS-1$
+
+        assertEquals( 1, results.size() );
+        assertTrue( results.contains( person ) );
+    }
+
+
+    @Test
+    public void testModifiedObjectIsReindexed()
+    {
+        cn.setNames( "cn", "fullName" ); //$NON-NLS-1$ //$NON-NLS-2$
+        index.add( cn );
+
+        assertTrue( search( "commonName", SearchInEnum.ALIASES ).isEmpty() ); //$NON-NLS-1$
+        assertTrue( search( "*ulln*", SearchInEnum.ALIASES ).contains( cn ) ); //$NON-NLS-1$
+        assertEquals( 4, index.size() );
+    }
+
+
+    @Test
+    public void testRemove()
+    {
+        index.remove( person );
+
+        assertTrue( search( "person", SearchInEnum.ALIASES ).isEmpty() ); //$NON-NLS-1$
+        assertEquals( 3, index.size() );
+    }
+
+
+    @Test
+    public void testNotBuilt()
+    {
+        index.clear();
+        index.add( cn );
+
+        assertFalse( index.isBuilt() );
+        assertEquals( 0, index.size() );
+    }
+}
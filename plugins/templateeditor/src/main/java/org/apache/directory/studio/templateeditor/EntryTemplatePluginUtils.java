@@ -30,14 +30,17 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Set;
 
-import org.apache.commons.collections4.MultiValuedMap;
-import org.apache.commons.collections4.multimap.ArrayListValuedHashMap;
+import org.apache.directory.api.ldap.model.constants.SchemaConstants;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
 import org.apache.directory.api.ldap.model.schema.ObjectClassTypeEnum;
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.ldapbrowser.core.model.IAttribute;
 import org.apache.directory.studio.ldapbrowser.core.model.IEntry;
 import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
 import org.eclipse.core.runtime.Status;
@@ -170,6 +173,9 @@ public class EntryTemplatePluginUtils
 
     /**
      * Gets a list of templates matching the given entry.
+     * <p>
+     * The matching templates only depend on the entry's object classes and on the schema, 
+     * so they are cached by the templates manager for each schema and set of object classes.
      * 
      * @param entry
      *      the entry
@@ -177,6 +183,70 @@ public class EntryTemplatePluginUtils
      *      a list of templates matching the given entry
      */
     public static List<Template> getMatchingTemplates( IEntry entry )
+    {
+        if ( ( entry != null ) && ( entry.getBrowserConnection() != null )
+            && ( entry.getBrowserConnection().getSchema() != null ) )
+        {
+            TemplatesManager manager = EntryTemplatePlugin.getDefault().getTemplatesManager();
+            Schema schema = entry.getBrowserConnection().getSchema();
+            Set<String> objectClasses = getNormalizedObjectClasses( entry );
+
+            List<Template> matchingTemplates = manager.getCachedMatchingTemplates( schema, objectClasses );
+
+            if ( matchingTemplates == null )
+            {
+                matchingTemplates = computeMatchingTemplates( entry );
+
+                if ( matchingTemplates == null )
+                {
+                    matchingTemplates = new ArrayList<Template>();
+                }
+
+                manager.cacheMatchingTemplates( schema, objectClasses, matchingTemplates );
+            }
+
+            // Returning a copy, the callers may modify the list
+            return new ArrayList<Template>( matchingTemplates );
+        }
+
+        return computeMatchingTemplates( entry );
+    }
+
+
+    /**
+     * Gets the lower-cased object classes of the given entry.
+     *
+     * @param entry
+     *      the entry
+     * @return
+     *      the lower-cased object classes of the given entry
+     */
+    private static Set<String> getNormalizedObjectClasses( IEntry entry )
+    {
+        Set<String> objectClasses = new HashSet<String>();
+        IAttribute objectClassAttribute = entry.getAttribute( SchemaConstants.OBJECT_CLASS_AT );
+
+        if ( objectClassAttribute != null )
+        {
+            for ( String objectClass : objectClassAttribute.getStringValues() )
+            {
+                objectClasses.add( Strings.toLowerCase( objectClass ) );
+            }
+        }
+
+        return objectClasses;
+    }
+
+
+    /**
+     * Computes the list of templates matching the given entry.
+     * 
+     * @param entry
+     *      the entry
+     * @return
+     *      a list of templates matching the given entry
+     */
+    private static List<Template> computeMatchingTemplates( IEntry entry )
     {
         if ( entry != null )
         {
@@ -312,18 +382,6 @@ public class EntryTemplatePluginUtils
         // Getting the templates manager
         TemplatesManager manager = EntryTemplatePlugin.getDefault().getTemplatesManager();
 
-        // Getting the list of all the available templates
-        Template[] templates = manager.getTemplates();
-
-        // Creating a MultiValueMap that holds the templates ordered by ObjectClassDescription object
-        MultiValuedMap<ObjectClass, Template> templatesByOcd = new ArrayListValuedHashMap<>();
-
-        // Populating this map
-        for ( Template template : templates )
-        {
-            templatesByOcd.put( getObjectClass( template.getStructuralObjectClass(), schema ), template );
-        }
-
         // Initializing the LIFO queue with the highest ObjectClassDescription object
         LinkedList<ObjectClass> ocdQueue = new LinkedList<ObjectClass>();
         ocdQueue.add( objectClassDescription );
@@ -0,0 +1,291 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.templateeditor;
+
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.studio.templateeditor.model.AbstractTemplate;
+import org.apache.directory.studio.templateeditor.model.Template;
+
+
+/**
+ * This class holds a lightweight index of the templates, persisted between sessions.
+ * <p>
+ * For each template source (a template file or a file contributed by an extension),
+ * the index stores the timestamp of the source together with the ID, title and 
+ * object classes of the template. As long as the timestamp of the source doesn't 
+ * change, the template doesn't need to be parsed to be listed and matched against 
+ * entries.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+class TemplatesIndex
+{
+    /** The version of the index file format */
+    private static final int VERSION = 1;
+
+    /** The index entries, by source */
+    private Map<String, IndexEntry> entries = new HashMap<String, IndexEntry>();
+
+    /** The flag indicating if the index has been modified since it was loaded */
+    private boolean modified = false;
+
+    /**
+     * An entry of the index.
+     */
+    private static class IndexEntry
+    {
+        /** The timestamp of the source */
+        private long timestamp;
+
+        /** The ID */
+        private String id;
+
+        /** The title */
+        private String title;
+
+        /** The structural object class */
+        private String structuralObjectClass;
+
+        /** The auxiliary object classes */
+        private List<String> auxiliaryObjectClasses = new ArrayList<String>();
+    }
+
+
+    /**
+     * Loads the index from the given file. A missing, outdated or 
+     * corrupted file results in an empty index.
+     *
+     * @param file
+     *      the index file
+     */
+    public void load( File file )
+    {
+        entries.clear();
+        modified = false;
+
+        if ( !file.exists() )
+        {
+            return;
+        }
+
+        try ( DataInputStream in = new DataInputStream( new BufferedInputStream( new FileInputStream( file ) ) ) )
+        {
+            if ( in.readInt() != VERSION )
+            {
+                modified = true;
+                return;
+            }
+
+            int size = in.readInt();
+
+            for ( int i = 0; i < size; i++ )
+            {
+                String source = in.readUTF();
+                IndexEntry entry = new IndexEntry();
+                entry.timestamp = in.readLong();
+                entry.id = in.readUTF();
+                entry.title = in.readUTF();
+                entry.structuralObjectClass = in.readUTF();
+                int auxiliaryObjectClassesCount = in.readInt();
+
+                for ( int j = 0; j < auxiliaryObjectClassesCount; j++ )
+                {
+                    entry.auxiliaryObjectClasses.add( in.readUTF() );
+                }
+
+                entries.put( source, entry );
+            }
+        }
+        catch ( IOException e )
+        {
+            // The index is rebuilt from the templates
+            entries.clear();
+            modified = true;
+        }
+    }
+
+
+    /**
+     * Saves the index to the given file, if it has been modified.
+     *
+     * @param file
+     *      the index file
+     * @throws IOException
+     *      if an error occurs when writing the file
+     */
+    public void save( File file ) throws IOException
+    {
+        if ( !modified )
+        {
+            return;
+        }
+
+        File parent = file.getParentFile();
+
+        if ( ( parent != null ) && !parent.exists() )
+        {
+            parent.mkdirs();
+        }
+
+        try ( DataOutputStream out = new DataOutputStream( new BufferedOutputStream( new FileOutputStream( file ) ) ) )
+        {
+            out.writeInt( VERSION );
+            out.writeInt( entries.size() );
+
+            for ( Map.Entry<String, IndexEntry> mapEntry : entries.entrySet() )
+            {
+                IndexEntry entry = mapEntry.getValue();
+                out.writeUTF( mapEntry.getKey() );
+                out.writeLong( entry.timestamp );
+                out.writeUTF( entry.id );
+                out.writeUTF( entry.title );
+                out.writeUTF( entry.structuralObjectClass );
+                out.writeInt( entry.auxiliaryObjectClasses.size() );
+
+                for ( String auxiliaryObjectClass : entry.auxiliaryObjectClasses )
+                {
+                    out.writeUTF( auxiliaryObjectClass );
+                }
+            }
+        }
+
+        modified = false;
+    }
+
+
+    /**
+     * Indicates if the index contains an up-to-date entry for the given source.
+     *
+     * @param source
+     *      the source
+     * @param timestamp
+     *      the current timestamp of the source
+     * @return
+     *      <code>true</code> if the index contains an entry for the given 
+     *      source with the same timestamp
+     */
+    public boolean isUpToDate( String source, long timestamp )
+    {
+        IndexEntry entry = entries.get( source );
+
+        return ( entry != null ) && ( entry.timestamp == timestamp );
+    }
+
+
+    /**
+     * Copies the indexed ID, title and object classes of the given source
+     * to the given template.
+     *
+     * @param source
+     *      the source
+     * @param template
+     *      the template
+     */
+    public void fill( String source, AbstractTemplate template )
+    {
+        IndexEntry entry = entries.get( source );
+
+        template.setId( entry.id );
+        template.setTitle( entry.title );
+        template.setStructuralObjectClass( entry.structuralObjectClass );
+        template.setAuxiliaryObjectClasses( new ArrayList<String>( entry.auxiliaryObjectClasses ) );
+    }
+
+
+    /**
+     * Adds or replaces the entry of the given source.
+     *
+     * @param source
+     *      the source
+     * @param timestamp
+     *      the timestamp of the source
+     * @param template
+     *      the template parsed from the source
+     */
+    public void put( String source, long timestamp, Template template )
+    {
+        if ( ( template.getId() == null ) || ( template.getTitle() == null )
+            || ( template.getStructuralObjectClass() == null ) )
+        {
+            // Only complete templates are indexed
+            remove( source );
+            return;
+        }
+
+        IndexEntry entry = new IndexEntry();
+        entry.timestamp = timestamp;
+        entry.id = template.getId();
+        entry.title = template.getTitle();
+        entry.structuralObjectClass = template.getStructuralObjectClass();
+
+        if ( template.getAuxiliaryObjectClasses() != null )
+        {
+            entry.auxiliaryObjectClasses.addAll( template.getAuxiliaryObjectClasses() );
+        }
+
+        entries.put( source, entry );
+        modified = true;
+    }
+
+
+    /**
+     * Removes the entry of the given source.
+     *
+     * @param source
+     *      the source
+     */
+    public void remove( String source )
+    {
+        if ( entries.remove( source ) != null )
+        {
+            modified = true;
+        }
+    }
+
+
+    /**
+     * Removes the entries of all the sources not contained in the given collection.
+     *
+     * @param sources
+     *      the sources to keep
+     */
+    public void retainAll( Collection<String> sources )
+    {
+        if ( entries.keySet().retainAll( sources ) )
+        {
+            modified = true;
+        }
+    }
+}
@@ -29,13 +29,17 @@ import java.io.InputStream;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.WeakHashMap;
 
 import org.apache.commons.collections4.MultiValuedMap;
 import org.apache.commons.collections4.multimap.ArrayListValuedHashMap;
 import org.apache.directory.api.ldap.model.schema.ObjectClass;
+import org.apache.directory.studio.ldapbrowser.core.model.schema.Schema;
 import org.eclipse.core.runtime.IConfigurationElement;
 import org.eclipse.core.runtime.IExtensionPoint;
 import org.eclipse.core.runtime.IPath;
@@ -45,6 +49,7 @@ import org.eclipse.jface.preference.IPreferenceStore;
 import org.apache.directory.studio.templateeditor.model.ExtensionPointTemplate;
 import org.apache.directory.studio.templateeditor.model.FileTemplate;
 import org.apache.directory.studio.templateeditor.model.Template;
+import org.apache.directory.studio.templateeditor.model.TemplateLoader;
 import org.apache.directory.studio.templateeditor.model.parser.TemplateIO;
 import org.apache.directory.studio.templateeditor.model.parser.TemplateIOException;
 
@@ -83,6 +88,20 @@ public class TemplatesManager
     /** The list of listeners */
     private List<TemplatesManagerListener> listeners = new ArrayList<TemplatesManagerListener>();
 
+    /** The index of the templates, used to defer the parsing of the templates */
+    private TemplatesIndex templatesIndex = new TemplatesIndex();
+
+    /** The sources of the templates found while loading the templates */
+    private Set<String> templateSources = new HashSet<String>();
+
+    /** 
+     * The matching templates, by schema and by normalized set of object classes. 
+     * A schema reload creates a new schema instance, the entries of the old one 
+     * are garbage-collected.
+     */
+    private Map<Schema, Map<Set<String>, List<Template>>> matchingTemplatesCache =
+        new WeakHashMap<Schema, Map<Set<String>, List<Template>>>();
+
 
     /**
      * Creates a new instance of TemplatesManager.
@@ -139,6 +158,8 @@ public class TemplatesManager
      */
     private void fireTemplateAdded( Template template )
     {
+        matchingTemplatesCache.clear();
+
         for ( TemplatesManagerListener listener : listeners.toArray( new TemplatesManagerListener[0] ) )
         {
             listener.templateAdded( template );
@@ -154,6 +175,8 @@ public class TemplatesManager
      */
     private void fireTemplateRemoved( Template template )
     {
+        matchingTemplatesCache.clear();
+
         for ( TemplatesManagerListener listener : listeners.toArray( new TemplatesManagerListener[0] ) )
         {
             listener.templateRemoved( template );
@@ -169,6 +192,8 @@ public class TemplatesManager
      */
     private void fireTemplateEnabled( Template template )
     {
+        matchingTemplatesCache.clear();
+
         for ( TemplatesManagerListener listener : listeners.toArray( new TemplatesManagerListener[0] ) )
         {
             listener.templateEnabled( template );
@@ -184,6 +209,8 @@ public class TemplatesManager
     */
     private void fireTemplateDisabled( Template template )
     {
+        matchingTemplatesCache.clear();
+
         for ( TemplatesManagerListener listener : listeners.toArray( new TemplatesManagerListener[0] ) )
         {
             listener.templateDisabled( template );
@@ -192,15 +219,52 @@ public class TemplatesManager
 
 
     /**
-     * Loads the templates
+     * Loads the templates.
+     * <p>
+     * Templates whose source did not change since the last session are not parsed, 
+     * they are created from the templates index. Their form is parsed when first needed.
      */
     private void loadTemplates()
     {
+        File indexFile = getTemplatesIndexFile();
+        templatesIndex.load( indexFile );
+        templateSources.clear();
+
         // Loading the templates added using the extension point
         loadExtensionPointTemplates();
 
         // Loading the templates added via files on the disk (added by the user)
         loadFileTemplates();
+
+        // Saving the index, without the templates which do not exist anymore
+        templatesIndex.retainAll( templateSources );
+        templateSources.clear();
+
+        try
+        {
+            templatesIndex.save( indexFile );
+        }
+        catch ( IOException e )
+        {
+            // Logging the error, the templates are parsed again on next startup
+            EntryTemplatePluginUtils.logWarning( e, Messages
+                .getString( "TemplatesManager.TheTemplatesIndexCouldNotBeSaved" ), indexFile.getAbsolutePath() ); //$NON-NLS-1$
+        }
+    }
+
+
+    /**
+     * Registers the given template in the templates list and maps.
+     *
+     * @param template
+     *      the template
+     */
+    private void registerTemplate( Template template )
+    {
+        templatesList.add( template );
+        templatesByIdMap.put( template.getId(), template );
+        templatesByStructuralObjectClassMap.put( EntryTemplatePluginUtils
+            .getObjectClassDescriptionFromDefaultSchema( template.getStructuralObjectClass() ), template );
     }
 
 
@@ -223,9 +287,9 @@ public class TemplatesManager
                 IConfigurationElement member = members[m];
 
                 // Getting the URL of the file associated with the extension
-                String contributorName = member.getContributor().getName();
-                String filePathInPlugin = member.getAttribute( "file" ); //$NON-NLS-1$
-                URL fileUrl = Platform.getBundle( contributorName ).getResource( filePathInPlugin );
+                final String contributorName = member.getContributor().getName();
+                final String filePathInPlugin = member.getAttribute( "file" ); //$NON-NLS-1$
+                final URL fileUrl = Platform.getBundle( contributorName ).getResource( filePathInPlugin );
 
                 // Checking if the URL is null
                 if ( filePathInPlugin == null )
@@ -236,6 +300,38 @@ public class TemplatesManager
                         filePathInPlugin, Messages.getString( "TemplatesManager.URLCreatedForTheTemplateIsNull" ) ); //$NON-NLS-1$
                 }
 
+                // The file of an extension changes only with its bundle
+                String source = "bundle:" + contributorName + "/" + filePathInPlugin; //$NON-NLS-1$ //$NON-NLS-2$
+                long timestamp = Platform.getBundle( contributorName ).getLastModified();
+                templateSources.add( source );
+
+                // Creating the template from the index, its form is parsed when first needed
+                if ( ( fileUrl != null ) && templatesIndex.isUpToDate( source, timestamp ) )
+                {
+                    ExtensionPointTemplate template = new ExtensionPointTemplate();
+                    templatesIndex.fill( source, template );
+                    template.setLoader( new TemplateLoader()
+                    {
+                        public void load( Template templateToLoad )
+                        {
+                            try ( InputStream is = fileUrl.openStream() )
+                            {
+                                TemplateIO.readTemplate( is, templateToLoad );
+                            }
+                            catch ( TemplateIOException | IOException e )
+                            {
+                                // Logging the error
+                                EntryTemplatePluginUtils.logError( e, Messages
+                                    .getString( "TemplatesManager.AnErrorOccurredWhenParsingTheTemplate3Params" ), //$NON-NLS-1$
+                                    contributorName, filePathInPlugin, e.getMessage() );
+                            }
+                        }
+                    } );
+
+                    registerTemplate( template );
+                    continue;
+                }
+
                 // Parsing the template and adding it to the templates list
                 try
                 {
@@ -243,10 +339,8 @@ public class TemplatesManager
 
                     ExtensionPointTemplate template = TemplateIO.readAsExtensionPointTemplate( is );
 
-                    templatesList.add( template );
-                    templatesByIdMap.put( template.getId(), template );
-                    templatesByStructuralObjectClassMap.put( EntryTemplatePluginUtils
-                        .getObjectClassDescriptionFromDefaultSchema( template.getStructuralObjectClass() ), template );
+                    registerTemplate( template );
+                    templatesIndex.put( source, timestamp, template );
 
                     is.close();
                 }
@@ -302,7 +396,37 @@ public class TemplatesManager
         for ( String templateName : templateNames )
         {
             // Creating the template file
-            File templateFile = new File( templatesFolder, templateName );
+            final File templateFile = new File( templatesFolder, templateName );
+            String source = "file:" + templateName; //$NON-NLS-1$
+            long timestamp = templateFile.lastModified();
+            templateSources.add( source );
+
+            // Creating the template from the index, its form is parsed when first needed
+            if ( templatesIndex.isUpToDate( source, timestamp ) )
+            {
+                FileTemplate template = new FileTemplate();
+                templatesIndex.fill( source, template );
+                template.setLoader( new TemplateLoader()
+                {
+                    public void load( Template templateToLoad )
+                    {
+                        try ( InputStream is = new FileInputStream( templateFile ) )
+                        {
+                            TemplateIO.readTemplate( is, templateToLoad );
+                        }
+                        catch ( TemplateIOException | IOException e )
+                        {
+                            // Logging the error
+                            EntryTemplatePluginUtils.logError( e, Messages
+                                .getString( "TemplatesManager.AnErrorOccurredWhenParsingTheTemplate2Params" ), //$NON-NLS-1$
+                                templateFile.getAbsolutePath(), e.getMessage() );
+                        }
+                    }
+                } );
+
+                registerTemplate( template );
+                continue;
+            }
 
             // Parsing the template and adding it to the templates list
             try
@@ -310,10 +434,8 @@ public class TemplatesManager
                 InputStream is = new FileInputStream( templateFile );
 
                 FileTemplate template = TemplateIO.readAsFileTemplate( is );
-                templatesList.add( template );
-                templatesByIdMap.put( template.getId(), template );
-                templatesByStructuralObjectClassMap.put( EntryTemplatePluginUtils
-                    .getObjectClassDescriptionFromDefaultSchema( template.getStructuralObjectClass() ), template );
+                registerTemplate( template );
+                templatesIndex.put( source, timestamp, template );
 
                 is.close();
             }
@@ -591,6 +713,18 @@ public class TemplatesManager
     }
 
 
+    /**
+     * Gets the templates index file.
+     *
+     * @return
+     *      the templates index file
+     */
+    private static File getTemplatesIndexFile()
+    {
+        return EntryTemplatePlugin.getDefault().getStateLocation().append( "templates.index" ).toFile(); //$NON-NLS-1$
+    }
+
+
     /**
      * Loads the {@link List} of disabled templates from the preference store.
      */
@@ -767,6 +901,7 @@ public class TemplatesManager
 
             // Saving default templates
             saveDefaultTemplates();
+            matchingTemplatesCache.clear();
         }
     }
 
@@ -786,6 +921,7 @@ public class TemplatesManager
 
             // Saving default template
             saveDefaultTemplates();
+            matchingTemplatesCache.clear();
         }
     }
 
@@ -873,4 +1009,54 @@ public class TemplatesManager
             .getObjectClassDescriptionFromDefaultSchema( nameOrOid ) );
     }
 
+
+    /**
+     * Gets the cached list of templates matching the given object classes.
+     *
+     * @param schema
+     *      the schema used to compute the matching templates
+     * @param objectClasses
+     *      the lower-cased object classes of the entry
+     * @return
+     *      the cached list of matching templates, 
+     *      or <code>null</code> if the list isn't cached
+     */
+    List<Template> getCachedMatchingTemplates( Schema schema, Set<String> objectClasses )
+    {
+        Map<Set<String>, List<Template>> schemaMatchingTemplates = matchingTemplatesCache.get( schema );
+
+        if ( schemaMatchingTemplates != null )
+        {
+            return schemaMatchingTemplates.get( objectClasses );
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Caches the list of templates matching the given object classes.
+     * The cache is cleared whenever a template is added, removed, enabled, 
+     * disabled or set as default.
+     *
+     * @param schema
+     *      the schema used to compute the matching templates
+     * @param objectClasses
+     *      the lower-cased object classes of the entry
+     * @param matchingTemplates
+     *      the list of matching templates
+     */
+    void cacheMatchingTemplates( Schema schema, Set<String> objectClasses, List<Template> matchingTemplates )
+    {
+        Map<Set<String>, List<Template>> schemaMatchingTemplates = matchingTemplatesCache.get( schema );
+
+        if ( schemaMatchingTemplates == null )
+        {
+            schemaMatchingTemplates = new HashMap<Set<String>, List<Template>>();
+            matchingTemplatesCache.put( schema, schemaMatchingTemplates );
+        }
+
+        schemaMatchingTemplates.put( objectClasses, matchingTemplates );
+    }
+
 }
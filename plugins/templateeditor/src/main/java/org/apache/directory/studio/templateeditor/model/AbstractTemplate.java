@@ -63,6 +63,9 @@ public abstract class AbstractTemplate implements Template
     /** The form */
     private TemplateForm form;
 
+    /** The loader used to read the form when it is first needed, or <code>null</code> if loaded */
+    private TemplateLoader loader;
+
 
     /**
      * Creates a new instance of AbstractTemplate.
@@ -109,6 +112,8 @@ public abstract class AbstractTemplate implements Template
      */
     public TemplateForm getForm()
     {
+        load();
+
         return form;
     }
 
@@ -143,6 +148,67 @@ public abstract class AbstractTemplate implements Template
     }
 
 
+    /**
+     * Sets the loader used to read the form of the template when it is first needed.
+     * <p>
+     * The ID, title and object classes of the template must already be set.
+     *
+     * @param loader
+     *      the loader
+     */
+    public synchronized void setLoader( TemplateLoader loader )
+    {
+        this.loader = loader;
+    }
+
+
+    /**
+     * Indicates if the template is completely loaded.
+     *
+     * @return
+     *      <code>true</code> if the template is completely loaded,
+     *      <code>false</code> if its form is read when first needed
+     */
+    public synchronized boolean isLoaded()
+    {
+        return loader == null;
+    }
+
+
+    /**
+     * Reads the complete template with the loader, if not done yet.
+     * <p>
+     * The template is read into a separate instance, its object classes and form are
+     * only taken over if the loader succeeded. Otherwise the object classes are kept
+     * and an empty form is used.
+     */
+    private synchronized void load()
+    {
+        if ( loader != null )
+        {
+            TemplateLoader templateLoader = loader;
+            loader = null;
+
+            AbstractTemplate loadedTemplate = new AbstractTemplate()
+            {
+            };
+            templateLoader.load( loadedTemplate );
+
+            if ( loadedTemplate.form != null )
+            {
+                title = loadedTemplate.title;
+                structuralObjectClass = loadedTemplate.structuralObjectClass;
+                auxiliaryObjectClasses = loadedTemplate.auxiliaryObjectClasses;
+                form = loadedTemplate.form;
+            }
+            else
+            {
+                form = new TemplateForm();
+            }
+        }
+    }
+
+
     /**
      * Initializes the fields of the AbstractTemplate.
      */
@@ -0,0 +1,43 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.templateeditor.model;
+
+
+/**
+ * A template loader reads the complete definition of a template 
+ * whose ID, title and object classes are already known.
+ * <p>
+ * It is used to defer the parsing of the template's form until
+ * it is needed for the first time. Errors are handled by the loader,
+ * the template keeps an empty form in that case.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public interface TemplateLoader
+{
+    /**
+     * Reads the complete definition of the given template.
+     *
+     * @param template
+     *      the template to fill
+     */
+    void load( Template template );
+}
@@ -0,0 +1,111 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.templateeditor;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+import org.apache.directory.studio.templateeditor.model.FileTemplate;
+
+
+/**
+ * This class is used test the {@link TemplatesIndex} class.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class TemplatesIndexTest
+{
+    /**
+     * Tests that an index survives a save and load round trip.
+     */
+    @Test
+    public void testSaveAndLoad() throws Exception
+    {
+        File file = File.createTempFile( "templates", ".index" ); //$NON-NLS-1$ //$NON-NLS-2$
+        file.deleteOnExit();
+
+        FileTemplate template = new FileTemplate();
+        template.setId( "org.apache.directory.studio.templates.person" ); //$NON-NLS-1$
+        template.setTitle( "Person" ); //$NON-NLS-1$
+        template.setStructuralObjectClass( "person" ); //$NON-NLS-1$
+        template.addAuxiliaryObjectClass( "extensibleObject" ); //$NON-NLS-1$
+
+        TemplatesIndex index = new TemplatesIndex();
+        index.put( "file:person.xml", 42L, template ); //$NON-NLS-1$
+        index.save( file );
+
+        TemplatesIndex loadedIndex = new TemplatesIndex();
+        loadedIndex.load( file );
+
+        assertTrue( loadedIndex.isUpToDate( "file:person.xml", 42L ) ); //$NON-NLS-1$
+        assertFalse( loadedIndex.isUpToDate( "file:person.xml", 43L ) ); //$NON-NLS-1$
+        assertFalse( loadedIndex.isUpToDate( "file:other.xml", 42L ) ); //$NON-NLS-1$
+
+        FileTemplate indexedTemplate = new FileTemplate();
+        loadedIndex.fill( "file:person.xml", indexedTemplate ); //$NON-NLS-1$
+        assertEquals( "org.apache.directory.studio.templates.person", indexedTemplate.getId() ); //$NON-NLS-1$
+        assertEquals( "Person", indexedTemplate.getTitle() ); //$NON-NLS-1$
+        assertEquals( "person", indexedTemplate.getStructuralObjectClass() ); //$NON-NLS-1$
+        assertEquals( Arrays.asList( "extensibleObject" ), indexedTemplate.getAuxiliaryObjectClasses() ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Tests that removed sources are dropped and that a corrupted file results in an empty index.
+     */
+    @Test
+    public void testRetainAndCorruptedFile() throws Exception
+    {
+        File file = File.createTempFile( "templates", ".index" ); //$NON-NLS-1$ //$NON-NLS-2$
+        file.deleteOnExit();
+
+        FileTemplate template = new FileTemplate();
+        template.setId( "person" ); //$NON-NLS-1$
+        template.setTitle( "Person" ); //$NON-NLS-1$
+        template.setStructuralObjectClass( "person" ); //$NON-NLS-1$
+
+        TemplatesIndex index = new TemplatesIndex();
+        index.put( "file:person.xml", 1L, template ); //$NON-NLS-1$
+        index.put( "file:other.xml", 1L, template ); //$NON-NLS-1$
+        index.retainAll( Collections.singleton( "file:other.xml" ) ); //$NON-NLS-1$
+
+        assertFalse( index.isUpToDate( "file:person.xml", 1L ) ); //$NON-NLS-1$
+        assertTrue( index.isUpToDate( "file:other.xml", 1L ) ); //$NON-NLS-1$
+
+        try ( FileOutputStream out = new FileOutputStream( file ) )
+        {
+            out.write( new byte[]
+                { 0, 0, 0, 1, 0, 0, 0, 5 } );
+        }
+
+        index.load( file );
+        assertFalse( index.isUpToDate( "file:other.xml", 1L ) ); //$NON-NLS-1$
+    }
+}
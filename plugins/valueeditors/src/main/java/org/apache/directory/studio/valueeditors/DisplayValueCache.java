@@ -0,0 +1,359 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.valueeditors;
+
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.directory.api.util.Strings;
+import org.apache.directory.studio.connection.core.event.CoreEventRunner;
+import org.apache.directory.studio.ldapbrowser.core.events.DisplayValueUpdateEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EntryModificationEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.EntryUpdateListener;
+import org.apache.directory.studio.ldapbrowser.core.events.EventRegistry;
+import org.apache.directory.studio.ldapbrowser.core.events.ValueDeletedEvent;
+import org.apache.directory.studio.ldapbrowser.core.events.ValueModifiedEvent;
+import org.apache.directory.studio.ldapbrowser.core.model.IValue;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.Status;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+
+
+/**
+ * The DisplayValueCache caches the display strings of binary values
+ * whose rendering requires to parse the value, like images or certificates.
+ * Label providers ask for the display value on each repaint, so the string
+ * is only computed once per value.
+ * <p>
+ * Entries are keyed by the attribute description and the content of the
+ * raw value, so values re-created when an entry is reloaded hit the cache.
+ * They are removed when the value is modified or deleted, and the least
+ * recently used entries are dropped once the cache is full.
+ * <p>
+ * A cheap renderer is tried first within the current thread, the expensive
+ * renderer runs in a background job and a placeholder is returned until
+ * the job has finished. Afterwards a {@link DisplayValueUpdateEvent} is
+ * fired for the rendered values so that viewers update their labels.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public class DisplayValueCache implements EntryUpdateListener
+{
+    /**
+     * Renders the display string of a binary value.
+     */
+    public interface DisplayValueRenderer
+    {
+        /**
+         * Renders the display string.
+         *
+         * @param data the binary value
+         * @return the display string, or null if this renderer isn't able
+         *         to render the value
+         */
+        String render( byte[] data );
+    }
+
+    /** The maximum number of cached display strings */
+    private static final int MAX_DISPLAY_VALUES = 1000;
+
+    /** The cached display strings, the least recently used ones are dropped first */
+    @SuppressWarnings("serial")
+    private final Map<Key, String> displayValues = new LinkedHashMap<Key, String>( 16, 0.75f, true )
+    {
+        protected boolean removeEldestEntry( Map.Entry<Key, String> eldest )
+        {
+            return size() > MAX_DISPLAY_VALUES;
+        }
+    };
+
+    /** The values waiting to be rendered in background */
+    private final Map<Key, PendingValue> pendingValues = new LinkedHashMap<Key, PendingValue>();
+
+    /** The job rendering the pending values */
+    private final Job renderJob;
+
+
+    /**
+     * Creates a new instance of DisplayValueCache.
+     */
+    public DisplayValueCache()
+    {
+        renderJob = new Job( Messages.getString( "DisplayValueCache.RenderJob" ) ) //$NON-NLS-1$
+        {
+            protected IStatus run( IProgressMonitor monitor )
+            {
+                renderPendingValues( monitor );
+
+                return Status.OK_STATUS;
+            }
+        };
+        renderJob.setSystem( true );
+    }
+
+
+    /**
+     * Registers this cache for entry update events.
+     */
+    public void register()
+    {
+        EventRegistry.addEntryUpdateListener( this, new CoreEventRunner() );
+    }
+
+
+    /**
+     * Unregisters this cache, cancels pending renderings and clears the cache.
+     */
+    public void unregister()
+    {
+        EventRegistry.removeEntryUpdateListener( this );
+        renderJob.cancel();
+
+        synchronized ( this )
+        {
+            pendingValues.clear();
+            displayValues.clear();
+        }
+    }
+
+
+    /**
+     * Gets the display string of the given binary value. If not cached yet
+     * the quick renderer is tried within the current thread. If it isn't
+     * able to render the value the background renderer is scheduled and
+     * a placeholder is returned meanwhile.
+     *
+     * @param value the value
+     * @param quickRenderer the renderer to run in the current thread, may be null
+     * @param backgroundRenderer the renderer to run in background
+     * @return the display string, or a placeholder
+     */
+    public String getDisplayValue( IValue value, DisplayValueRenderer quickRenderer,
+        DisplayValueRenderer backgroundRenderer )
+    {
+        byte[] data = value.getBinaryValue();
+        Key key = new Key( value, data );
+
+        synchronized ( this )
+        {
+            String displayValue = displayValues.get( key );
+
+            if ( displayValue != null )
+            {
+                return displayValue;
+            }
+        }
+
+        if ( quickRenderer != null )
+        {
+            String displayValue = quickRenderer.render( data );
+
+            if ( displayValue != null )
+            {
+                synchronized ( this )
+                {
+                    displayValues.put( key, displayValue );
+                }
+
+                return displayValue;
+            }
+        }
+
+        synchronized ( this )
+        {
+            PendingValue pendingValue = pendingValues.get( key );
+
+            if ( pendingValue == null )
+            {
+                pendingValue = new PendingValue( data, backgroundRenderer );
+                pendingValues.put( key, pendingValue );
+                renderJob.schedule();
+            }
+
+            // all values with the same content are updated once rendered
+            if ( !pendingValue.values.contains( value ) )
+            {
+                pendingValue.values.add( value );
+            }
+        }
+
+        return NLS.bind( Messages.getString( "DisplayValueCache.Rendering" ), data.length ); //$NON-NLS-1$
+    }
+
+
+    /**
+     * Renders the pending values and notifies the listeners about the rendered values.
+     *
+     * @param monitor the progress monitor
+     */
+    private void renderPendingValues( IProgressMonitor monitor )
+    {
+        List<IValue> renderedValues = new ArrayList<IValue>();
+
+        while ( !monitor.isCanceled() )
+        {
+            Key key;
+            PendingValue pendingValue;
+
+            synchronized ( this )
+            {
+                if ( pendingValues.isEmpty() )
+                {
+                    break;
+                }
+
+                Map.Entry<Key, PendingValue> next = pendingValues.entrySet().iterator().next();
+                key = next.getKey();
+                pendingValue = next.getValue();
+            }
+
+            String displayValue = pendingValue.renderer.render( pendingValue.data );
+
+            synchronized ( this )
+            {
+                // the value may have been invalidated meanwhile
+                if ( pendingValues.remove( key ) == pendingValue )
+                {
+                    displayValues.put( key, displayValue );
+                    renderedValues.addAll( pendingValue.values );
+                }
+            }
+        }
+
+        if ( !renderedValues.isEmpty() )
+        {
+            EventRegistry.fireDisplayValueUpdated(
+                new DisplayValueUpdateEvent( renderedValues.toArray( new IValue[renderedValues.size()] ) ), this );
+        }
+    }
+
+
+    /**
+     * {@inheritDoc}
+     *
+     * This implementation removes the display strings of modified
+     * and deleted values.
+     */
+    public void entryUpdated( EntryModificationEvent event )
+    {
+        if ( event instanceof ValueModifiedEvent )
+        {
+            invalidate( ( ( ValueModifiedEvent ) event ).getOldValue() );
+        }
+        else if ( event instanceof ValueDeletedEvent )
+        {
+            invalidate( ( ( ValueDeletedEvent ) event ).getDeletedValue() );
+        }
+    }
+
+
+    /**
+     * Removes the display string of the given value.
+     *
+     * @param value the value
+     */
+    private synchronized void invalidate( IValue value )
+    {
+        if ( ( value != null ) && value.isBinary() )
+        {
+            Key key = new Key( value, value.getBinaryValue() );
+            displayValues.remove( key );
+            pendingValues.remove( key );
+        }
+    }
+
+    /**
+     * The key of a display string, the attribute description and the content of the raw value.
+     */
+    private static final class Key
+    {
+        /** The normalized attribute description */
+        private final String attributeDescription;
+
+        /** The raw value */
+        private final byte[] data;
+
+        /** The hash code */
+        private final int hashCode;
+
+
+        private Key( IValue value, byte[] data )
+        {
+            this.attributeDescription = Strings.toLowerCase( value.getAttribute().getDescription() );
+            this.data = data;
+            this.hashCode = 31 * attributeDescription.hashCode() + Arrays.hashCode( data );
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public int hashCode()
+        {
+            return hashCode;
+        }
+
+
+        /**
+         * {@inheritDoc}
+         */
+        public boolean equals( Object obj )
+        {
+            if ( !( obj instanceof Key ) )
+            {
+                return false;
+            }
+
+            Key other = ( Key ) obj;
+
+            return ( hashCode == other.hashCode ) && attributeDescription.equals( other.attributeDescription )
+                && Arrays.equals( data, other.data );
+        }
+    }
+
+    /**
+     * A value waiting to be rendered in background.
+     */
+    private static final class PendingValue
+    {
+        /** The raw value */
+        private final byte[] data;
+
+        /** The renderer */
+        private final DisplayValueRenderer renderer;
+
+        /** The values with this content, updated once rendered */
+        private final List<IValue> values = new ArrayList<IValue>();
+
+
+        private PendingValue( byte[] data, DisplayValueRenderer renderer )
+        {
+            this.data = data;
+            this.renderer = renderer;
+        }
+    }
+}
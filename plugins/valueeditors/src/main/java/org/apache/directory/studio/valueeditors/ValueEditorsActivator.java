@@ -44,6 +44,9 @@ public class ValueEditorsActivator extends AbstractUIPlugin
     /** The plugin properties */
     private PropertyResourceBundle properties;
 
+    /** The cache of rendered display values */
+    private DisplayValueCache displayValueCache;
+
 
     /**
      * The constructor
@@ -60,6 +63,9 @@ public class ValueEditorsActivator extends AbstractUIPlugin
     public void start( BundleContext context ) throws Exception
     {
         super.start( context );
+
+        displayValueCache = new DisplayValueCache();
+        displayValueCache.register();
     }
 
 
@@ -69,6 +75,13 @@ public class ValueEditorsActivator extends AbstractUIPlugin
     public void stop( BundleContext context ) throws Exception
     {
         plugin = null;
+
+        if ( displayValueCache != null )
+        {
+            displayValueCache.unregister();
+            displayValueCache = null;
+        }
+
         super.stop( context );
     }
 
@@ -84,6 +97,17 @@ public class ValueEditorsActivator extends AbstractUIPlugin
     }
 
 
+    /**
+     * Gets the cache of rendered display values.
+     *
+     * @return the display value cache
+     */
+    public DisplayValueCache getDisplayValueCache()
+    {
+        return displayValueCache;
+    }
+
+
     /**
      * Use this method to get SWT images. Use the IMG_ constants from
      * ValueEditorConstants for the key.
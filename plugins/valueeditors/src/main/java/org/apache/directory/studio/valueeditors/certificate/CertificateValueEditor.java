@@ -24,6 +24,8 @@ package org.apache.directory.studio.valueeditors.certificate;
 import org.apache.directory.studio.ldapbrowser.common.dialogs.TextDialog;
 import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.apache.directory.studio.valueeditors.AbstractDialogBinaryValueEditor;
+import org.apache.directory.studio.valueeditors.DisplayValueCache.DisplayValueRenderer;
+import org.apache.directory.studio.valueeditors.ValueEditorsActivator;
 import org.eclipse.swt.widgets.Shell;
 
 
@@ -35,6 +37,15 @@ import org.eclipse.swt.widgets.Shell;
  */
 public class CertificateValueEditor extends AbstractDialogBinaryValueEditor
 {
+    /** Renders the certificate info by parsing the certificate */
+    private static final DisplayValueRenderer CERTIFICATE_RENDERER = new DisplayValueRenderer()
+    {
+        public String render( byte[] data )
+        {
+            return CertificateDialog.getCertificateInfo( data );
+        }
+    };
+
     /**
      * {@inheritDoc}
      * 
@@ -65,7 +76,8 @@ public class CertificateValueEditor extends AbstractDialogBinaryValueEditor
      * {@inheritDoc}
      * 
      * Returns the certificate info text created by 
-     * CertificateDialog.getCertificateInfo().
+     * CertificateDialog.getCertificateInfo(). The info is cached,
+     * the certificate is parsed in background.
      */
     public String getDisplayValue( IValue value )
     {
@@ -81,10 +93,8 @@ public class CertificateValueEditor extends AbstractDialogBinaryValueEditor
             }
             else if ( value.isBinary() )
             {
-                byte[] data = value.getBinaryValue();
-                String text = CertificateDialog.getCertificateInfo( data );
-                
-                return text;
+                return ValueEditorsActivator.getDefault().getDisplayValueCache()
+                    .getDisplayValue( value, null, CERTIFICATE_RENDERER );
             }
             else
             {
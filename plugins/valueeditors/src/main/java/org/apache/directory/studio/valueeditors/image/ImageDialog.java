@@ -773,7 +773,8 @@ public class ImageDialog extends Dialog
 
 
     /**
-     * Gets the image info.
+     * Gets the image info. The format and dimensions are read from the
+     * image header if possible, otherwise the whole image is decoded.
      * 
      * @param imageRawData the image raw data
      * 
@@ -786,21 +787,18 @@ public class ImageDialog extends Dialog
             return IValueEditor.NULL;
         }
 
-        String text;
+        String text = getImageHeaderInfo( imageRawData );
+        
+        if ( text != null )
+        {
+            return text;
+        }
+
         try
         {
             ByteArrayInputStream bais = new ByteArrayInputStream( imageRawData );
             ImageData imageData = new ImageData( bais );
-            String typePrefix = getImageType( imageData.type );
-            
-            if ( !Strings.isEmpty( typePrefix ) ) //$NON-NLS-1$
-            {
-                typePrefix += "-"; //$NON-NLS-1$
-            }
-
-            text = NLS
-                .bind(
-                    Messages.getString( "ImageDialog.Image" ), new Object[] { typePrefix, imageData.width, imageData.height, imageRawData.length } ); //$NON-NLS-1$
+            text = getImageInfo( imageData.type, imageData.width, imageData.height, imageRawData.length );
         }
         catch ( SWTException swte )
         {
@@ -811,6 +809,41 @@ public class ImageDialog extends Dialog
     }
 
 
+    /**
+     * Gets the image info by only reading the image header, 
+     * without decoding the image.
+     * 
+     * @param imageRawData the image raw data
+     * 
+     * @return the image info, or null if the image header isn't recognized
+     */
+    public static String getImageHeaderInfo( byte[] imageRawData )
+    {
+        ImageHeader header = ImageHeader.read( imageRawData );
+        
+        if ( header == null )
+        {
+            return null;
+        }
+        
+        return getImageInfo( header.getType(), header.getWidth(), header.getHeight(), imageRawData.length );
+    }
+
+
+    private static String getImageInfo( int type, int width, int height, int length )
+    {
+        String typePrefix = getImageType( type );
+        
+        if ( !Strings.isEmpty( typePrefix ) ) //$NON-NLS-1$
+        {
+            typePrefix += "-"; //$NON-NLS-1$
+        }
+
+        return NLS.bind(
+            Messages.getString( "ImageDialog.Image" ), new Object[] { typePrefix, width, height, length } ); //$NON-NLS-1$
+    }
+
+
     /**
      * Gets the image type.
      * 
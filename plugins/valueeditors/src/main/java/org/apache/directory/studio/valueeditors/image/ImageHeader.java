@@ -0,0 +1,316 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.valueeditors.image;
+
+
+import org.eclipse.swt.SWT;
+
+
+/**
+ * The ImageHeader reads the format and the dimensions of an image
+ * from the first bytes of its raw data, without decoding the pixels.
+ * The PNG, GIF, BMP and JPEG formats are supported.
+ *
+ * @author <a href="mailto:dev@directory.apache.org">Apache Directory Project</a>
+ */
+public final class ImageHeader
+{
+    /** The PNG file signature */
+    private static final byte[] PNG_SIGNATURE = new byte[]
+        { ( byte ) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+
+    /** The image type, one of the SWT.IMAGE_* constants */
+    private final int type;
+
+    /** The image width in pixel */
+    private final int width;
+
+    /** The image height in pixel */
+    private final int height;
+
+
+    /**
+     * Creates a new instance of ImageHeader.
+     *
+     * @param type the SWT image type
+     * @param width the width
+     * @param height the height
+     */
+    private ImageHeader( int type, int width, int height )
+    {
+        this.type = type;
+        this.width = width;
+        this.height = height;
+    }
+
+
+    /**
+     * Reads the image header from the given raw data.
+     *
+     * @param data the image raw data
+     * @return the image header, or null if the format isn't
+     *         recognized or the header is truncated
+     */
+    public static ImageHeader read( byte[] data )
+    {
+        if ( data == null )
+        {
+            return null;
+        }
+        else if ( startsWith( data, PNG_SIGNATURE ) )
+        {
+            return readPng( data );
+        }
+        else if ( ( data.length >= 6 ) && ( data[0] == 'G' ) && ( data[1] == 'I' ) && ( data[2] == 'F' ) )
+        {
+            return readGif( data );
+        }
+        else if ( ( data.length >= 2 ) && ( data[0] == 'B' ) && ( data[1] == 'M' ) )
+        {
+            return readBmp( data );
+        }
+        else if ( ( data.length >= 2 ) && ( data[0] == ( byte ) 0xFF ) && ( data[1] == ( byte ) 0xD8 ) )
+        {
+            return readJpeg( data );
+        }
+
+        return null;
+    }
+
+
+    /**
+     * The IHDR chunk directly follows the signature, width and height
+     * are stored as big endian integers.
+     */
+    private static ImageHeader readPng( byte[] data )
+    {
+        if ( ( data.length < 24 ) || ( data[12] != 'I' ) || ( data[13] != 'H' ) || ( data[14] != 'D' )
+            || ( data[15] != 'R' ) )
+        {
+            return null;
+        }
+
+        return newHeader( SWT.IMAGE_PNG, readIntBigEndian( data, 16 ), readIntBigEndian( data, 20 ) );
+    }
+
+
+    /**
+     * The logical screen descriptor follows the GIF87a or GIF89a signature,
+     * width and height are stored as little endian shorts.
+     */
+    private static ImageHeader readGif( byte[] data )
+    {
+        if ( data.length < 10 )
+        {
+            return null;
+        }
+
+        return newHeader( SWT.IMAGE_GIF, readShortLittleEndian( data, 6 ), readShortLittleEndian( data, 8 ) );
+    }
+
+
+    /**
+     * The DIB header follows the 14 bytes file header. The old OS/2 header
+     * stores the dimensions as shorts, all others as integers. A negative
+     * height denotes a top-down bitmap.
+     */
+    private static ImageHeader readBmp( byte[] data )
+    {
+        if ( data.length < 18 )
+        {
+            return null;
+        }
+
+        int dibHeaderSize = readIntLittleEndian( data, 14 );
+
+        if ( dibHeaderSize == 12 )
+        {
+            if ( data.length < 22 )
+            {
+                return null;
+            }
+
+            return newHeader( SWT.IMAGE_BMP, readShortLittleEndian( data, 18 ), readShortLittleEndian( data, 20 ) );
+        }
+        else if ( ( dibHeaderSize >= 40 ) && ( data.length >= 34 ) )
+        {
+            int compression = readIntLittleEndian( data, 30 );
+            int type = ( compression == 1 ) || ( compression == 2 ) ? SWT.IMAGE_BMP_RLE : SWT.IMAGE_BMP;
+
+            return newHeader( type, readIntLittleEndian( data, 18 ), Math.abs( readIntLittleEndian( data, 22 ) ) );
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Walks the marker segments up to the first start of frame segment,
+     * which holds the height and width as big endian shorts.
+     */
+    private static ImageHeader readJpeg( byte[] data )
+    {
+        int pos = 2;
+
+        while ( pos + 1 < data.length )
+        {
+            if ( data[pos] != ( byte ) 0xFF )
+            {
+                return null;
+            }
+
+            int marker = data[pos + 1] & 0xFF;
+
+            if ( marker == 0xFF )
+            {
+                // fill byte
+                pos++;
+                continue;
+            }
+
+            pos += 2;
+
+            if ( ( marker == 0x01 ) || ( ( marker >= 0xD0 ) && ( marker <= 0xD8 ) ) )
+            {
+                // standalone marker without length
+                continue;
+            }
+
+            if ( ( marker == 0xD9 ) || ( marker == 0xDA ) || ( pos + 2 > data.length ) )
+            {
+                // end of image or start of scan before any frame
+                return null;
+            }
+
+            int length = readShortBigEndian( data, pos );
+
+            if ( ( marker >= 0xC0 ) && ( marker <= 0xCF ) && ( marker != 0xC4 ) && ( marker != 0xC8 )
+                && ( marker != 0xCC ) )
+            {
+                if ( pos + 7 > data.length )
+                {
+                    return null;
+                }
+
+                return newHeader( SWT.IMAGE_JPEG, readShortBigEndian( data, pos + 5 ),
+                    readShortBigEndian( data, pos + 3 ) );
+            }
+
+            if ( length < 2 )
+            {
+                return null;
+            }
+
+            pos += length;
+        }
+
+        return null;
+    }
+
+
+    private static ImageHeader newHeader( int type, int width, int height )
+    {
+        if ( ( width <= 0 ) || ( height <= 0 ) )
+        {
+            return null;
+        }
+
+        return new ImageHeader( type, width, height );
+    }
+
+
+    private static boolean startsWith( byte[] data, byte[] prefix )
+    {
+        if ( data.length < prefix.length )
+        {
+            return false;
+        }
+
+        for ( int i = 0; i < prefix.length; i++ )
+        {
+            if ( data[i] != prefix[i] )
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    private static int readIntBigEndian( byte[] data, int pos )
+    {
+        return ( ( data[pos] & 0xFF ) << 24 ) | ( ( data[pos + 1] & 0xFF ) << 16 ) | ( ( data[pos + 2] & 0xFF ) << 8 )
+            | ( data[pos + 3] & 0xFF );
+    }
+
+
+    private static int readIntLittleEndian( byte[] data, int pos )
+    {
+        return ( data[pos] & 0xFF ) | ( ( data[pos + 1] & 0xFF ) << 8 ) | ( ( data[pos + 2] & 0xFF ) << 16 )
+            | ( ( data[pos + 3] & 0xFF ) << 24 );
+    }
+
+
+    private static int readShortBigEndian( byte[] data, int pos )
+    {
+        return ( ( data[pos] & 0xFF ) << 8 ) | ( data[pos + 1] & 0xFF );
+    }
+
+
+    private static int readShortLittleEndian( byte[] data, int pos )
+    {
+        return ( data[pos] & 0xFF ) | ( ( data[pos + 1] & 0xFF ) << 8 );
+    }
+
+
+    /**
+     * Gets the image type.
+     *
+     * @return the image type, one of the SWT.IMAGE_* constants
+     */
+    public int getType()
+    {
+        return type;
+    }
+
+
+    /**
+     * Gets the width.
+     *
+     * @return the width in pixel
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+
+
+    /**
+     * Gets the height.
+     *
+     * @return the height in pixel
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+}
@@ -23,6 +23,8 @@ package org.apache.directory.studio.valueeditors.image;
 
 import org.apache.directory.studio.ldapbrowser.core.model.IValue;
 import org.apache.directory.studio.valueeditors.AbstractDialogBinaryValueEditor;
+import org.apache.directory.studio.valueeditors.DisplayValueCache.DisplayValueRenderer;
+import org.apache.directory.studio.valueeditors.ValueEditorsActivator;
 import org.eclipse.swt.SWT;
 import org.eclipse.swt.widgets.Shell;
 
@@ -35,6 +37,24 @@ import org.eclipse.swt.widgets.Shell;
  */
 public class ImageValueEditor extends AbstractDialogBinaryValueEditor
 {
+    /** Renders the image info from the image header only */
+    private static final DisplayValueRenderer IMAGE_HEADER_RENDERER = new DisplayValueRenderer()
+    {
+        public String render( byte[] data )
+        {
+            return ImageDialog.getImageHeaderInfo( data );
+        }
+    };
+
+    /** Renders the image info by decoding the whole image */
+    private static final DisplayValueRenderer IMAGE_RENDERER = new DisplayValueRenderer()
+    {
+        public String render( byte[] data )
+        {
+            return ImageDialog.getImageInfo( data );
+        }
+    };
+
 
     /**
      * {@inheritDoc}
@@ -67,7 +87,9 @@ public class ImageValueEditor extends AbstractDialogBinaryValueEditor
      * {@inheritDoc}
      * 
      * Returns the image info text created by 
-     * ImageDialog.getImageInfo().
+     * ImageDialog.getImageInfo(). The info is cached, the format and 
+     * dimensions are read from the image header. Only images with an 
+     * unknown header are decoded, in background.
      */
     public String getDisplayValue( IValue value )
     {
@@ -83,10 +105,8 @@ public class ImageValueEditor extends AbstractDialogBinaryValueEditor
             }
             else if ( value.isBinary() )
             {
-                byte[] data = value.getBinaryValue();
-                String text = ImageDialog.getImageInfo( data );
-                
-                return text;
+                return ValueEditorsActivator.getDefault().getDisplayValueCache()
+                    .getDisplayValue( value, IMAGE_HEADER_RENDERER, IMAGE_RENDERER );
             }
             else
             {
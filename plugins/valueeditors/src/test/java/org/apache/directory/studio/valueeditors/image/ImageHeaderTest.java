@@ -0,0 +1,111 @@
+/*
+ *  Licensed to the Apache Software Foundation (ASF) under one
+ *  or more contributor license agreements.  See the NOTICE file
+ *  distributed with this work for additional information
+ *  regarding copyright ownership.  The ASF licenses this file
+ *  to you under the Apache License, Version 2.0 (the
+ *  "License"); you may not use this file except in compliance
+ *  with the License.  You may obtain a copy of the License at
+ *  
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *  Unless required by applicable law or agreed to in writing,
+ *  software distributed under the License is distributed on an
+ *  "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ *  KIND, either express or implied.  See the License for the
+ *  specific language governing permissions and limitations
+ *  under the License. 
+ *  
+ */
+
+package org.apache.directory.studio.valueeditors.image;
+
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import org.eclipse.swt.SWT;
+import org.junit.jupiter.api.Test;
+
+
+public class ImageHeaderTest
+{
+
+    @Test
+    public void testPng()
+    {
+        byte[] data = new byte[]
+            { ( byte ) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n', //
+                0, 0, 0, 13, 'I', 'H', 'D', 'R', //
+                0, 0, 0x01, 0x2C, 0, 0, 0, 0x64 };
+
+        ImageHeader header = ImageHeader.read( data );
+        assertEquals( SWT.IMAGE_PNG, header.getType() );
+        assertEquals( 300, header.getWidth() );
+        assertEquals( 100, header.getHeight() );
+    }
+
+
+    @Test
+    public void testGif()
+    {
+        byte[] data = new byte[]
+            { 'G', 'I', 'F', '8', '9', 'a', 0x20, 0x03, 0x58, 0x02 };
+
+        ImageHeader header = ImageHeader.read( data );
+        assertEquals( SWT.IMAGE_GIF, header.getType() );
+        assertEquals( 800, header.getWidth() );
+        assertEquals( 600, header.getHeight() );
+    }
+
+
+    @Test
+    public void testBmpTopDown()
+    {
+        byte[] data = new byte[54];
+        data[0] = 'B';
+        data[1] = 'M';
+        data[14] = 40;
+        data[18] = 16;
+        // height -8, top-down bitmap
+        data[22] = ( byte ) 0xF8;
+        data[23] = ( byte ) 0xFF;
+        data[24] = ( byte ) 0xFF;
+        data[25] = ( byte ) 0xFF;
+
+        ImageHeader header = ImageHeader.read( data );
+        assertEquals( SWT.IMAGE_BMP, header.getType() );
+        assertEquals( 16, header.getWidth() );
+        assertEquals( 8, header.getHeight() );
+    }
+
+
+    @Test
+    public void testJpeg()
+    {
+        byte[] data = new byte[]
+            { ( byte ) 0xFF, ( byte ) 0xD8, //
+                // APP0 segment
+                ( byte ) 0xFF, ( byte ) 0xE0, 0, 6, 'J', 'F', 'I', 'F', //
+                // SOF0 segment
+                ( byte ) 0xFF, ( byte ) 0xC0, 0, 11, 8, 0x01, ( byte ) 0xE0, 0x02, ( byte ) 0x80, 3 };
+
+        ImageHeader header = ImageHeader.read( data );
+        assertEquals( SWT.IMAGE_JPEG, header.getType() );
+        assertEquals( 640, header.getWidth() );
+        assertEquals( 480, header.getHeight() );
+    }
+
+
+    @Test
+    public void testUnknownOrTruncated()
+    {
+        assertNull( ImageHeader.read( null ) );
+        assertNull( ImageHeader.read( new byte[]
+            { 'I', 'I', '*', 0 } ) );
+        assertNull( ImageHeader.read( new byte[]
+            { 'G', 'I', 'F', '8', '9', 'a', 0x20 } ) );
+        assertNull( ImageHeader.read( new byte[]
+            { ( byte ) 0xFF, ( byte ) 0xD8, ( byte ) 0xFF, ( byte ) 0xDA, 0, 2 } ) );
+    }
+}